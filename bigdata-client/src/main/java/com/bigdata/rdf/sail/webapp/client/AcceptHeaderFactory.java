@@ -67,6 +67,13 @@ public class AcceptHeaderFactory {
 
     private static final int defaultQValue = 10;
 
+    /**
+     * The MIME type of the bigdata binary format for SPARQL result sets.
+     * 
+     * @see com.bigdata.rdf.ServiceProviderHook#BINARY_RESULTS
+     */
+    private static final String MIME_BIGDATA_BINARY_RESULTS = "application/x-bigdata-binary-results-table";
+
     /**
      * 
      * @param rdfFormats
@@ -249,8 +256,19 @@ public class AcceptHeaderFactory {
 
         }
         
+        /*
+         * Prefer the bigdata binary format when its parser is available and
+         * otherwise the openrdf binary format.
+         */
+        final TupleQueryResultFormat bigdataBinary = TupleQueryResultFormat
+                .forMIMEType(MIME_BIGDATA_BINARY_RESULTS);
+
+        final TupleQueryResultFormat preferredFormat = values
+                .contains(bigdataBinary) ? bigdataBinary
+                : TupleQueryResultFormat.BINARY;
+
         final List<String> list2 = AcceptHeaderFactory.getAcceptParams(values,
-                TupleQueryResultFormat.BINARY);
+                preferredFormat);
 
         return toString(list2);
         
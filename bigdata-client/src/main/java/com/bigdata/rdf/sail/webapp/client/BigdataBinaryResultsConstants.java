@@ -0,0 +1,114 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp.client;
+
+/**
+ * Record markers and other constants for the bigdata binary SPARQL results
+ * format. A response consists of:
+ * 
+ * <pre>
+ * MAGIC VERSION #columns column-name* record* END
+ * </pre>
+ * 
+ * Each distinct namespace and each distinct RDF {@link org.openrdf.model.Value}
+ * is defined exactly once in the response by a definition record and is
+ * assigned the next ordinal in the namespace table or the value table
+ * respectively. A {@link #SOLUTION} record then gives, for each column, the
+ * ordinal of the bound value plus one, or zero if the column is unbound. A
+ * {@link #RESET} record clears both tables so the memory demand on the writer
+ * and the parser is bounded regardless of the size of the result set.
+ * <p>
+ * Integers (counts, lengths and ordinals) are written as unsigned variable
+ * length integers using 7 bits per byte with the high bit set on all but the
+ * last byte. Strings are written as a length followed by their UTF-8 bytes.
+ * 
+ * @see BigdataBinaryResultsWriter
+ * @see BigdataBinaryResultsParser
+ */
+interface BigdataBinaryResultsConstants {
+
+    /**
+     * The magic value which begins each response.
+     */
+    int MAGIC = 0x42445254; // "BDRT"
+
+    /**
+     * The version of the format.
+     */
+    int VERSION = 1;
+
+    /**
+     * Defines the next namespace: <code>string</code>.
+     */
+    byte NAMESPACE = 1;
+
+    /**
+     * Defines the next value as a URI: <code>namespace-ordinal localName</code>.
+     */
+    byte URI_VALUE = 2;
+
+    /**
+     * Defines the next value as a blank node: <code>id</code>.
+     */
+    byte BNODE_VALUE = 3;
+
+    /**
+     * Defines the next value as a plain literal: <code>label</code>.
+     */
+    byte PLAIN_LITERAL = 4;
+
+    /**
+     * Defines the next value as a language tagged literal:
+     * <code>label language</code>.
+     */
+    byte LANG_LITERAL = 5;
+
+    /**
+     * Defines the next value as a datatype literal:
+     * <code>label datatype-value-ordinal</code>. The datatype URI is defined
+     * in the value table before the literal.
+     */
+    byte TYPED_LITERAL = 6;
+
+    /**
+     * A solution: one value ordinal plus one for each column, or zero if that
+     * column is not bound.
+     */
+    byte SOLUTION = 7;
+
+    /**
+     * Clears the namespace table and the value table.
+     */
+    byte RESET = 8;
+
+    /**
+     * The end of the response.
+     */
+    byte END = 9;
+
+}
@@ -0,0 +1,269 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp.client;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.query.QueryResultHandlerException;
+import org.openrdf.query.TupleQueryResultHandler;
+import org.openrdf.query.TupleQueryResultHandlerException;
+import org.openrdf.query.impl.MapBindingSet;
+import org.openrdf.query.resultio.QueryResultFormat;
+import org.openrdf.query.resultio.QueryResultParseException;
+import org.openrdf.query.resultio.QueryResultParserBase;
+import org.openrdf.query.resultio.TupleQueryResultFormat;
+import org.openrdf.query.resultio.TupleQueryResultParser;
+
+import com.bigdata.rdf.ServiceProviderHook;
+
+/**
+ * Parser for the bigdata binary SPARQL results format. The parser maintains
+ * the namespace and value tables defined by the response so each distinct
+ * {@link Value} is created only once (until the tables are reset by the
+ * writer).
+ * 
+ * @see BigdataBinaryResultsConstants
+ * @see BigdataBinaryResultsWriter
+ */
+public class BigdataBinaryResultsParser extends QueryResultParserBase implements
+        TupleQueryResultParser, BigdataBinaryResultsConstants {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The namespaces defined since the last {@link #RESET}.
+     */
+    private final List<String> namespaces = new ArrayList<String>();
+
+    /**
+     * The values defined since the last {@link #RESET}.
+     */
+    private final List<Value> values = new ArrayList<Value>();
+
+    /**
+     * Buffer used to decode strings (grown as necessary).
+     */
+    private byte[] buf = new byte[256];
+
+    public BigdataBinaryResultsParser() {
+
+        super();
+
+    }
+
+    /**
+     * Construct a parser with a specific {@link ValueFactory}.
+     * 
+     * @param valueFactory
+     *            The factory to use to create values.
+     */
+    public BigdataBinaryResultsParser(final ValueFactory valueFactory) {
+
+        super(valueFactory);
+
+    }
+
+    @Override
+    public QueryResultFormat getQueryResultFormat() {
+
+        return getTupleQueryResultFormat();
+
+    }
+
+    @Override
+    public TupleQueryResultFormat getTupleQueryResultFormat() {
+
+        return ServiceProviderHook.BINARY_RESULTS;
+
+    }
+
+    @Override
+    @Deprecated
+    public void setTupleQueryResultHandler(
+            final TupleQueryResultHandler handler) {
+
+        setQueryResultHandler(handler);
+
+    }
+
+    @Override
+    @Deprecated
+    public void parse(final InputStream in) throws IOException,
+            QueryResultParseException, TupleQueryResultHandlerException {
+
+        try {
+            parseQueryResult(in);
+        } catch (TupleQueryResultHandlerException e) {
+            throw e;
+        } catch (QueryResultHandlerException e) {
+            throw new TupleQueryResultHandlerException(e);
+        }
+
+    }
+
+    @Override
+    public void parseQueryResult(final InputStream is) throws IOException,
+            QueryResultParseException, QueryResultHandlerException {
+
+        final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(is));
+
+        if (in.readInt() != MAGIC)
+            throw new QueryResultParseException("Bad magic");
+
+        final int version = in.readInt();
+
+        if (version != VERSION)
+            throw new QueryResultParseException("Unknown version: " + version);
+
+        final String[] columns = new String[readInt(in)];
+
+        for (int i = 0; i < columns.length; i++) {
+
+            columns[i] = readString(in);
+
+        }
+
+        namespaces.clear();
+
+        values.clear();
+
+        if (handler != null)
+            handler.startQueryResult(Arrays.asList(columns));
+
+        while (true) {
+
+            final byte b = in.readByte();
+
+            switch (b) {
+            case NAMESPACE:
+                namespaces.add(readString(in));
+                break;
+            case URI_VALUE: {
+                final String ns = namespaces.get(readInt(in));
+                values.add(valueFactory.createURI(ns, readString(in)));
+                break;
+            }
+            case BNODE_VALUE:
+                values.add(valueFactory.createBNode(readString(in)));
+                break;
+            case PLAIN_LITERAL:
+                values.add(valueFactory.createLiteral(readString(in)));
+                break;
+            case LANG_LITERAL: {
+                final String label = readString(in);
+                values.add(valueFactory.createLiteral(label, readString(in)));
+                break;
+            }
+            case TYPED_LITERAL: {
+                final String label = readString(in);
+                final URI datatype = (URI) values.get(readInt(in));
+                values.add(valueFactory.createLiteral(label, datatype));
+                break;
+            }
+            case SOLUTION: {
+                final MapBindingSet bset = new MapBindingSet(columns.length);
+                for (int i = 0; i < columns.length; i++) {
+                    final int ordinal = readInt(in);
+                    if (ordinal != 0) {
+                        bset.addBinding(columns[i], values.get(ordinal - 1));
+                    }
+                }
+                if (handler != null)
+                    handler.handleSolution(bset);
+                break;
+            }
+            case RESET:
+                namespaces.clear();
+                values.clear();
+                break;
+            case END:
+                if (handler != null)
+                    handler.endQueryResult();
+                return;
+            default:
+                throw new QueryResultParseException("Unknown record type: "
+                        + b);
+            }
+
+        }
+
+    }
+
+    /**
+     * Read a non-negative int written using 7 bits per byte.
+     */
+    private static int readInt(final DataInputStream in) throws IOException {
+
+        int v = 0;
+
+        int shift = 0;
+
+        byte b;
+
+        do {
+
+            b = in.readByte();
+
+            v |= (b & 0x7F) << shift;
+
+            shift += 7;
+
+        } while ((b & 0x80) != 0);
+
+        return v;
+
+    }
+
+    private String readString(final DataInputStream in) throws IOException {
+
+        final int len = readInt(in);
+
+        if (buf.length < len) {
+
+            buf = new byte[Math.max(len, buf.length << 1)];
+
+        }
+
+        in.readFully(buf, 0, len);
+
+        return new String(buf, 0, len, UTF8);
+
+    }
+
+}
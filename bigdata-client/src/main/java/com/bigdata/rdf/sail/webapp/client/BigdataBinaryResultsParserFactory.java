@@ -0,0 +1,63 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp.client;
+
+import org.openrdf.query.resultio.TupleQueryResultFormat;
+import org.openrdf.query.resultio.TupleQueryResultParser;
+import org.openrdf.query.resultio.TupleQueryResultParserFactory;
+
+import com.bigdata.rdf.ServiceProviderHook;
+
+/**
+ * A {@link TupleQueryResultParserFactory} for the bigdata binary SPARQL results
+ * format.
+ */
+public class BigdataBinaryResultsParserFactory implements
+        TupleQueryResultParserFactory {
+
+    /**
+     * Returns {@link ServiceProviderHook#BINARY_RESULTS}.
+     */
+    @Override
+    public TupleQueryResultFormat getTupleQueryResultFormat() {
+
+        return ServiceProviderHook.BINARY_RESULTS;
+
+    }
+
+    /**
+     * Returns a new instance of {@link BigdataBinaryResultsParser}.
+     */
+    @Override
+    public TupleQueryResultParser getParser() {
+
+        return new BigdataBinaryResultsParser();
+
+    }
+
+}
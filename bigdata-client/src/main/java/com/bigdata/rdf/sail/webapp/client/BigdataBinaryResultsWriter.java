@@ -0,0 +1,429 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp.client;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryResultHandlerException;
+import org.openrdf.query.TupleQueryResultHandlerException;
+import org.openrdf.query.resultio.QueryResultFormat;
+import org.openrdf.query.resultio.QueryResultWriterBase;
+import org.openrdf.query.resultio.TupleQueryResultFormat;
+import org.openrdf.query.resultio.TupleQueryResultWriter;
+
+import com.bigdata.rdf.ServiceProviderHook;
+
+/**
+ * Writer for the bigdata binary SPARQL results format. Each distinct namespace
+ * and RDF {@link Value} is written once per response and solutions are then
+ * written as a sequence of ordinals into those tables. This is much more
+ * compact than the XML, JSON and TSV formats for result sets in which the same
+ * values appear many times, and it is much cheaper to generate and parse.
+ * <p>
+ * The tables are cleared once they reach a configured size so the writer may
+ * be used to stream arbitrarily large result sets.
+ * 
+ * @see BigdataBinaryResultsConstants
+ * @see BigdataBinaryResultsParser
+ */
+public class BigdataBinaryResultsWriter extends QueryResultWriterBase implements
+        TupleQueryResultWriter, BigdataBinaryResultsConstants {
+
+    /**
+     * The default maximum #of values in the value table before it is cleared.
+     */
+    public static final int DEFAULT_MAX_TABLE_SIZE = 100000;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final DataOutputStream out;
+
+    /**
+     * The maximum #of values in the value table before it is cleared.
+     */
+    private final int maxTableSize;
+
+    /**
+     * The ordinal of each namespace defined since the last {@link #RESET}.
+     */
+    private final Map<String, Integer> namespaces = new HashMap<String, Integer>();
+
+    /**
+     * The ordinal of each value defined since the last {@link #RESET}.
+     */
+    private final Map<Value, Integer> values = new HashMap<Value, Integer>();
+
+    /**
+     * The column names (set by {@link #startQueryResult(List)}).
+     */
+    private String[] columns = null;
+
+    /**
+     * The ordinals for the current solution (one per column).
+     */
+    private int[] ordinals = null;
+
+    public BigdataBinaryResultsWriter(final OutputStream os) {
+
+        this(os, DEFAULT_MAX_TABLE_SIZE);
+
+    }
+
+    /**
+     * @param os
+     *            Where to write the result set.
+     * @param maxTableSize
+     *            The maximum #of values in the value table before it is
+     *            cleared.
+     */
+    public BigdataBinaryResultsWriter(final OutputStream os,
+            final int maxTableSize) {
+
+        if (os == null)
+            throw new IllegalArgumentException();
+
+        if (maxTableSize <= 0)
+            throw new IllegalArgumentException();
+
+        this.out = new DataOutputStream(new BufferedOutputStream(os));
+
+        this.maxTableSize = maxTableSize;
+
+    }
+
+    @Override
+    public QueryResultFormat getQueryResultFormat() {
+
+        return getTupleQueryResultFormat();
+
+    }
+
+    @Override
+    public TupleQueryResultFormat getTupleQueryResultFormat() {
+
+        return ServiceProviderHook.BINARY_RESULTS;
+
+    }
+
+    @Override
+    public void handleNamespace(final String prefix, final String uri)
+            throws QueryResultHandlerException {
+
+        // Ignored. Namespaces are defined as they are used.
+
+    }
+
+    @Override
+    public void startDocument() throws QueryResultHandlerException {
+
+        // NOP
+
+    }
+
+    @Override
+    public void handleStylesheet(final String stylesheetUrl)
+            throws QueryResultHandlerException {
+
+        // Ignored.
+
+    }
+
+    @Override
+    public void startHeader() throws QueryResultHandlerException {
+
+        // NOP
+
+    }
+
+    @Override
+    public void endHeader() throws QueryResultHandlerException {
+
+        // NOP
+
+    }
+
+    @Override
+    public void handleBoolean(final boolean value)
+            throws QueryResultHandlerException {
+
+        throw new UnsupportedOperationException(
+                "Cannot handle boolean results");
+
+    }
+
+    @Override
+    public void handleLinks(final List<String> linkUrls)
+            throws QueryResultHandlerException {
+
+        // Ignored.
+
+    }
+
+    @Override
+    public void startQueryResult(final List<String> bindingNames)
+            throws TupleQueryResultHandlerException {
+
+        if (columns != null)
+            throw new IllegalStateException();
+
+        columns = bindingNames.toArray(new String[bindingNames.size()]);
+
+        ordinals = new int[columns.length];
+
+        try {
+
+            out.writeInt(MAGIC);
+
+            out.writeInt(VERSION);
+
+            writeInt(columns.length);
+
+            for (String s : columns) {
+
+                writeString(s);
+
+            }
+
+        } catch (IOException e) {
+
+            throw new TupleQueryResultHandlerException(e);
+
+        }
+
+    }
+
+    @Override
+    public void handleSolution(final BindingSet bindingSet)
+            throws TupleQueryResultHandlerException {
+
+        if (columns == null)
+            throw new IllegalStateException(
+                    "Must call startQueryResult before handleSolution");
+
+        try {
+
+            if (values.size() >= maxTableSize) {
+
+                /*
+                 * Note: The tables are only cleared between solutions so the
+                 * ordinals in a solution always refer to the current tables.
+                 */
+
+                out.writeByte(RESET);
+
+                namespaces.clear();
+
+                values.clear();
+
+            }
+
+            // Define any new values.
+            for (int i = 0; i < columns.length; i++) {
+
+                final Value v = bindingSet.getValue(columns[i]);
+
+                ordinals[i] = v == null ? 0 : defineValue(v) + 1;
+
+            }
+
+            out.writeByte(SOLUTION);
+
+            for (int i = 0; i < columns.length; i++) {
+
+                writeInt(ordinals[i]);
+
+            }
+
+        } catch (IOException e) {
+
+            throw new TupleQueryResultHandlerException(e);
+
+        }
+
+    }
+
+    @Override
+    public void endQueryResult() throws TupleQueryResultHandlerException {
+
+        if (columns == null)
+            throw new IllegalStateException(
+                    "Could not end query result as startQueryResult was not called first.");
+
+        try {
+
+            out.writeByte(END);
+
+            out.flush();
+
+        } catch (IOException e) {
+
+            throw new TupleQueryResultHandlerException(e);
+
+        }
+
+    }
+
+    /**
+     * Return the ordinal of the value, writing a definition record if the
+     * value is not in the value table.
+     */
+    private int defineValue(final Value v) throws IOException,
+            TupleQueryResultHandlerException {
+
+        final Integer ordinal = values.get(v);
+
+        if (ordinal != null)
+            return ordinal.intValue();
+
+        if (v instanceof URI) {
+
+            final URI uri = (URI) v;
+
+            final int ns = defineNamespace(uri.getNamespace());
+
+            out.writeByte(URI_VALUE);
+
+            writeInt(ns);
+
+            writeString(uri.getLocalName());
+
+        } else if (v instanceof BNode) {
+
+            out.writeByte(BNODE_VALUE);
+
+            writeString(((BNode) v).getID());
+
+        } else if (v instanceof Literal) {
+
+            final Literal lit = (Literal) v;
+
+            if (lit.getLanguage() != null) {
+
+                out.writeByte(LANG_LITERAL);
+
+                writeString(lit.getLabel());
+
+                writeString(lit.getLanguage());
+
+            } else if (lit.getDatatype() != null) {
+
+                // Note: Defines the datatype first.
+                final int datatype = defineValue(lit.getDatatype());
+
+                out.writeByte(TYPED_LITERAL);
+
+                writeString(lit.getLabel());
+
+                writeInt(datatype);
+
+            } else {
+
+                out.writeByte(PLAIN_LITERAL);
+
+                writeString(lit.getLabel());
+
+            }
+
+        } else {
+
+            throw new TupleQueryResultHandlerException(
+                    "Unknown Value object type: " + v.getClass());
+
+        }
+
+        final int n = values.size();
+
+        values.put(v, n);
+
+        return n;
+
+    }
+
+    /**
+     * Return the ordinal of the namespace, writing a definition record if the
+     * namespace is not in the namespace table.
+     */
+    private int defineNamespace(final String ns) throws IOException {
+
+        final Integer ordinal = namespaces.get(ns);
+
+        if (ordinal != null)
+            return ordinal.intValue();
+
+        out.writeByte(NAMESPACE);
+
+        writeString(ns);
+
+        final int n = namespaces.size();
+
+        namespaces.put(ns, n);
+
+        return n;
+
+    }
+
+    /**
+     * Write a non-negative int using 7 bits per byte.
+     */
+    private void writeInt(int v) throws IOException {
+
+        while ((v & ~0x7F) != 0) {
+
+            out.writeByte((v & 0x7F) | 0x80);
+
+            v >>>= 7;
+
+        }
+
+        out.writeByte(v);
+
+    }
+
+    private void writeString(final String s) throws IOException {
+
+        final byte[] b = s.getBytes(UTF8);
+
+        writeInt(b.length);
+
+        out.write(b);
+
+    }
+
+}
@@ -327,6 +327,153 @@ public class RemoteRepository extends RemoteRepositoryBase {
 
     }
 
+    /**
+     * Prepare a SPARQL query on the server. The server parses the query once
+     * and returns a handle. The query may then be evaluated any number of
+     * times by that handle with different bindings (see
+     * {@link IPreparedQuery#addRequestParam(String, String...)} and
+     * {@link #BINDING_PREFIX}) without sending or parsing the query string
+     * again. The server also reuses the optimized query plan when the same
+     * bindings are evaluated against the same commit point.
+     * <p>
+     * The server retains a bounded number of prepared queries. If a prepared
+     * query has been evicted, its evaluation fails with an HTTP 404 and the
+     * query should be prepared again.
+     * 
+     * @param query
+     *            the query string
+     * 
+     * @return The handle for the prepared query.
+     * 
+     * @see #prepareServerSideTupleQuery(UUID)
+     * @see #prepareServerSideGraphQuery(UUID)
+     * @see #prepareServerSideBooleanQuery(UUID)
+     * @see #closeServerSideQuery(UUID)
+     */
+    public UUID prepareServerSideQuery(final String query) throws Exception {
+
+        if (query == null)
+            throw new IllegalArgumentException();
+
+        final ConnectOptions opts = mgr.newQueryConnectOptions(
+                sparqlEndpointURL, UUID.randomUUID(), tx);
+
+        opts.method = "POST";
+        opts.addRequestParam(PREPARE);
+        opts.addRequestParam("query", query);
+
+        JettyResponseListener resp = null;
+        try {
+
+            checkResponseCode(resp = doConnect(opts));
+
+            return UUID.fromString(resp.getResponseBody().trim());
+
+        } finally {
+
+            if (resp != null)
+                resp.abort();
+
+        }
+
+    }
+
+    /**
+     * Return a tuple (select) query which evaluates a query prepared on the
+     * server.
+     * 
+     * @param handle
+     *            The handle returned by {@link #prepareServerSideQuery(String)}.
+     * 
+     * @return The {@link IPreparedTupleQuery}.
+     */
+    public IPreparedTupleQuery prepareServerSideTupleQuery(final UUID handle)
+            throws Exception {
+
+        final UUID uuid = UUID.randomUUID();
+
+        return new TupleQuery(mgr.newQueryConnectOptions(sparqlEndpointURL,
+                uuid, tx), uuid, handle);
+
+    }
+
+    /**
+     * Return a graph query which evaluates a query prepared on the server.
+     * 
+     * @param handle
+     *            The handle returned by {@link #prepareServerSideQuery(String)}.
+     * 
+     * @return The {@link IPreparedGraphQuery}.
+     */
+    public IPreparedGraphQuery prepareServerSideGraphQuery(final UUID handle)
+            throws Exception {
+
+        final UUID uuid = UUID.randomUUID();
+
+        return new GraphQuery(mgr.newQueryConnectOptions(sparqlEndpointURL,
+                uuid, tx), uuid, handle);
+
+    }
+
+    /**
+     * Return a boolean (ask) query which evaluates a query prepared on the
+     * server.
+     * 
+     * @param handle
+     *            The handle returned by {@link #prepareServerSideQuery(String)}.
+     * 
+     * @return The {@link IPreparedBooleanQuery}.
+     */
+    public IPreparedBooleanQuery prepareServerSideBooleanQuery(
+            final UUID handle) throws Exception {
+
+        final UUID uuid = UUID.randomUUID();
+
+        return new BooleanQuery(mgr.newQueryConnectOptions(sparqlEndpointURL,
+                uuid, tx), uuid, handle);
+
+    }
+
+    /**
+     * Release a query which was prepared on the server.
+     * 
+     * @param handle
+     *            The handle returned by {@link #prepareServerSideQuery(String)}.
+     * 
+     * @return <code>true</code> iff the server still had that prepared query.
+     */
+    public boolean closeServerSideQuery(final UUID handle) throws Exception {
+
+        if (handle == null)
+            throw new IllegalArgumentException();
+
+        final ConnectOptions opts = mgr.newQueryConnectOptions(
+                sparqlEndpointURL, UUID.randomUUID(), tx);
+
+        opts.method = "POST";
+        opts.addRequestParam(CLOSE_PREPARED, handle.toString());
+
+        JettyResponseListener resp = null;
+        try {
+
+            resp = doConnect(opts);
+
+            if (resp.getStatus() == 404 /* NOT FOUND */)
+                return false;
+
+            checkResponseCode(resp);
+
+            return true;
+
+        } finally {
+
+            if (resp != null)
+                resp.abort();
+
+        }
+
+    }
+
     /**
      * Prepare a SPARQL UPDATE request.
      * 
@@ -1052,6 +1199,12 @@ public class RemoteRepository extends RemoteRepositoryBase {
 
         private final boolean update;
 
+        /**
+         * The handle of a query which was prepared on the server and which is
+         * evaluated instead of {@link #query} (optional).
+         */
+        private final UUID preparedId;
+
         public QueryOrUpdate(final ConnectOptions opts, final UUID id,
                 final String query) {
 
@@ -1059,6 +1212,33 @@ public class RemoteRepository extends RemoteRepositoryBase {
 
         }
 
+        /**
+         * 
+         * @param id
+         *            The query id.
+         * @param preparedId
+         *            The handle of a query which was prepared on the server.
+         */
+        public QueryOrUpdate(final ConnectOptions opts, final UUID id,
+                final UUID preparedId) {
+
+            if (opts == null)
+                throw new IllegalArgumentException();
+            
+            if (preparedId == null)
+                throw new IllegalArgumentException();
+            
+            if (id == null)
+                throw new IllegalArgumentException();
+            
+            this.opts = opts;
+            this.uuid = id;
+            this.query = null;
+            this.update = false;
+            this.preparedId = preparedId;
+
+        }
+
         /**
          * 
          * @param id
@@ -1084,6 +1264,7 @@ public class RemoteRepository extends RemoteRepositoryBase {
             this.uuid = uuid;
             this.query = query;
             this.update = update;
+            this.preparedId = null;
             
         }
 
@@ -1112,7 +1293,11 @@ public class RemoteRepository extends RemoteRepositoryBase {
             
             opts.method = mgr.getQueryMethod();
 
-            if(update) {
+            if (preparedId != null) {
+
+                opts.addRequestParam(PREPARED, preparedId.toString());
+
+            } else if(update) {
             
                 opts.addRequestParam("update", query);
                 
@@ -1191,6 +1376,13 @@ public class RemoteRepository extends RemoteRepositoryBase {
 
         }
 
+        public TupleQuery(final ConnectOptions opts, final UUID id,
+                final UUID preparedId) {
+
+            super(opts, id, preparedId);
+
+        }
+
         @Override
         protected void setupConnectOptions() {
 
@@ -1229,6 +1421,13 @@ public class RemoteRepository extends RemoteRepositoryBase {
 
         }
 
+        public GraphQuery(final ConnectOptions opts, final UUID id,
+                final UUID preparedId) {
+
+            super(opts, id, preparedId);
+
+        }
+
         @Override
         protected void setupConnectOptions() {
 
@@ -1267,6 +1466,13 @@ public class RemoteRepository extends RemoteRepositoryBase {
             super(opts, id, query);
             
         }
+
+        public BooleanQuery(final ConnectOptions opts, final UUID id,
+                final UUID preparedId) {
+
+            super(opts, id, preparedId);
+
+        }
         
 
         @Override
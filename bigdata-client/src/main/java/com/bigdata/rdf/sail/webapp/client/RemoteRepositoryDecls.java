@@ -180,6 +180,26 @@ public class RemoteRepositoryDecls {
     * @see com.bigdata.rdf.sail.webapp.QueryServlet.BINDING_PREFIX
     */
    public static final String BINDING_PREFIX = "$";
+
+   /**
+    * URL query parameter used to prepare a SPARQL query on the server.
+    * @see com.bigdata.rdf.sail.webapp.QueryServlet.ATTR_PREPARE
+    */
+   static protected final String PREPARE = "prepare";
+
+   /**
+    * URL query parameter used to execute a SPARQL query which was prepared on
+    * the server.
+    * @see com.bigdata.rdf.sail.webapp.QueryServlet.ATTR_PREPARED
+    */
+   static protected final String PREPARED = "prepared";
+
+   /**
+    * URL query parameter used to release a SPARQL query which was prepared on
+    * the server.
+    * @see com.bigdata.rdf.sail.webapp.QueryServlet.ATTR_CLOSE_PREPARED
+    */
+   static protected final String CLOSE_PREPARED = "closePrepared";
    
    /**
     * URL query parameter that contains boolean flag to create full text index if not exists.
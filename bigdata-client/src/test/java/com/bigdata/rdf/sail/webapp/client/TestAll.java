@@ -52,6 +52,8 @@ public class TestAll extends TestCase {
         final TestSuite suite = new TestSuite(TestAll.class.getPackage().getName());
 
         suite.addTestSuite(TestEncodeDecodeValue.class);
+
+        suite.addTestSuite(TestBigdataBinaryResults.class);
         
         return suite;
 
@@ -0,0 +1,215 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase2;
+
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.impl.MapBindingSet;
+import org.openrdf.query.impl.TupleQueryResultBuilder;
+import org.openrdf.query.resultio.QueryResultParseException;
+
+/**
+ * Test suite for the bigdata binary SPARQL results format.
+ * 
+ * @see BigdataBinaryResultsWriter
+ * @see BigdataBinaryResultsParser
+ */
+public class TestBigdataBinaryResults extends TestCase2 {
+
+    public TestBigdataBinaryResults() {
+    }
+
+    public TestBigdataBinaryResults(final String name) {
+        super(name);
+    }
+
+    private final ValueFactory f = ValueFactoryImpl.getInstance();
+
+    private final List<String> vars = Arrays.asList("s", "p", "o");
+
+    /**
+     * An empty result set.
+     */
+    public void test_empty() throws Exception {
+
+        doRoundTripTest(new LinkedList<BindingSet>(),
+                BigdataBinaryResultsWriter.DEFAULT_MAX_TABLE_SIZE);
+
+    }
+
+    /**
+     * Each kind of value, including repeated values and unbound columns.
+     */
+    public void test_values() throws Exception {
+
+        final Value[] values = new Value[] {//
+                f.createURI("http://www.bigdata.com/a"),//
+                f.createURI("http://www.bigdata.com/b"),//
+                f.createURI("urn:x"),//
+                RDF.TYPE,//
+                f.createBNode("b1"),//
+                f.createLiteral("abc"),//
+                f.createLiteral("abc", "en"),//
+                f.createLiteral("12", XMLSchema.INT),//
+                f.createLiteral("été 中文"),//
+                f.createLiteral(""),//
+        };
+
+        final List<BindingSet> expected = new LinkedList<BindingSet>();
+
+        for (int i = 0; i < values.length * 3; i++) {
+
+            final MapBindingSet bset = new MapBindingSet();
+
+            bset.addBinding("s", values[i % values.length]);
+
+            if (i % 4 != 0)
+                bset.addBinding("p", RDF.TYPE);
+
+            bset.addBinding("o", values[(i * 7) % values.length]);
+
+            expected.add(bset);
+
+        }
+
+        // No solutions bind anything.
+        expected.add(new MapBindingSet());
+
+        doRoundTripTest(expected,
+                BigdataBinaryResultsWriter.DEFAULT_MAX_TABLE_SIZE);
+
+    }
+
+    /**
+     * A result set which overflows the value table several times.
+     */
+    public void test_reset() throws Exception {
+
+        final List<BindingSet> expected = new LinkedList<BindingSet>();
+
+        for (int i = 0; i < 100; i++) {
+
+            final MapBindingSet bset = new MapBindingSet();
+
+            bset.addBinding("s", f.createURI("http://www.bigdata.com/s" + i));
+
+            bset.addBinding("p", RDF.TYPE);
+
+            bset.addBinding("o", f.createLiteral(Integer.toString(i % 3),
+                    XMLSchema.INTEGER));
+
+            expected.add(bset);
+
+        }
+
+        doRoundTripTest(expected, 5/* maxTableSize */);
+
+    }
+
+    /**
+     * A response is rejected by the parser if the magic is wrong.
+     */
+    public void test_badMagic() throws Exception {
+
+        final BigdataBinaryResultsParser parser = new BigdataBinaryResultsParser();
+
+        try {
+            parser.parseQueryResult(new ByteArrayInputStream(new byte[] { 1,
+                    2, 3, 4, 5, 6, 7, 8 }));
+            fail("Expecting: " + QueryResultParseException.class);
+        } catch (QueryResultParseException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+    private void doRoundTripTest(final List<BindingSet> expected,
+            final int maxTableSize) throws Exception {
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        final BigdataBinaryResultsWriter writer = new BigdataBinaryResultsWriter(
+                baos, maxTableSize);
+
+        writer.startQueryResult(vars);
+
+        for (BindingSet bset : expected) {
+
+            writer.handleSolution(bset);
+
+        }
+
+        writer.endQueryResult();
+
+        final TupleQueryResultBuilder builder = new TupleQueryResultBuilder();
+
+        final BigdataBinaryResultsParser parser = new BigdataBinaryResultsParser();
+
+        parser.setQueryResultHandler(builder);
+
+        parser.parseQueryResult(new ByteArrayInputStream(baos.toByteArray()));
+
+        final TupleQueryResult actual = builder.getQueryResult();
+
+        try {
+
+            assertEquals(vars, actual.getBindingNames());
+
+            for (BindingSet bset : expected) {
+
+                assertTrue(actual.hasNext());
+
+                assertEquals(bset, actual.next());
+
+            }
+
+            assertFalse(actual.hasNext());
+
+        } finally {
+
+            actual.close();
+
+        }
+
+    }
+
+}
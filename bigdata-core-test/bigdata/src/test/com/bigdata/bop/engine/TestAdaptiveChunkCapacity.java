@@ -0,0 +1,136 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.engine;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.bop.BufferAnnotations;
+
+/**
+ * Test suite for the adaptive chunk capacity used by the
+ * {@link ChunkedRunningQuery}.
+ * 
+ * @see BufferAnnotations#ADAPTIVE_CHUNK_CAPACITY
+ */
+public class TestAdaptiveChunkCapacity extends TestCase2 {
+
+    /**
+     * 
+     */
+    public TestAdaptiveChunkCapacity() {
+    }
+
+    /**
+     * @param name
+     */
+    public TestAdaptiveChunkCapacity(String name) {
+        super(name);
+    }
+
+    public void test_correctRejection() {
+
+        try {
+            ChunkedRunningQuery.getAdaptiveChunkCapacity(0/* chunkCapacity */,
+                    10/* factor */, 0L/* unitsIn */, 0L/* unitsOut */);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        try {
+            ChunkedRunningQuery.getAdaptiveChunkCapacity(100/* chunkCapacity */,
+                    0/* factor */, 0L/* unitsIn */, 0L/* unitsOut */);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+    /**
+     * The configured capacity is used until something has been observed.
+     */
+    public void test_nothingObserved() {
+
+        assertEquals(100, ChunkedRunningQuery.getAdaptiveChunkCapacity(
+                100/* chunkCapacity */, 10/* factor */, 0L/* unitsIn */, 0L/* unitsOut */));
+
+    }
+
+    /**
+     * The capacity is scaled by the observed fan-out.
+     */
+    public void test_scaledByFanOut() {
+
+        // one solution out for each solution in.
+        assertEquals(100, ChunkedRunningQuery.getAdaptiveChunkCapacity(
+                100/* chunkCapacity */, 10/* factor */, 1000L/* unitsIn */,
+                1000L/* unitsOut */));
+
+        // selective.
+        assertEquals(25, ChunkedRunningQuery.getAdaptiveChunkCapacity(
+                100/* chunkCapacity */, 10/* factor */, 1000L/* unitsIn */,
+                250L/* unitsOut */));
+
+        // fan-out.
+        assertEquals(300, ChunkedRunningQuery.getAdaptiveChunkCapacity(
+                100/* chunkCapacity */, 10/* factor */, 1000L/* unitsIn */,
+                3000L/* unitsOut */));
+
+    }
+
+    /**
+     * The scaled capacity is bounded by the factor.
+     */
+    public void test_bounded() {
+
+        // nothing out.
+        assertEquals(10, ChunkedRunningQuery.getAdaptiveChunkCapacity(
+                100/* chunkCapacity */, 10/* factor */, 1000L/* unitsIn */,
+                0L/* unitsOut */));
+
+        // large fan-out.
+        assertEquals(1000, ChunkedRunningQuery.getAdaptiveChunkCapacity(
+                100/* chunkCapacity */, 10/* factor */, 1L/* unitsIn */,
+                1000000L/* unitsOut */));
+
+        // never less than one.
+        assertEquals(1, ChunkedRunningQuery.getAdaptiveChunkCapacity(
+                5/* chunkCapacity */, 10/* factor */, 1000L/* unitsIn */,
+                0L/* unitsOut */));
+
+        // a factor of one disables the scaling.
+        assertEquals(100, ChunkedRunningQuery.getAdaptiveChunkCapacity(
+                100/* chunkCapacity */, 1/* factor */, 1L/* unitsIn */,
+                1000000L/* unitsOut */));
+
+    }
+
+}
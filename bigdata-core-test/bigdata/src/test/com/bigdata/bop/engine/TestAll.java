@@ -84,6 +84,9 @@ public class TestAll extends TestCase {
         // test suite for the bop statistics class.
         suite.addTestSuite(TestBOpStats.class);
 
+        // test suite for the adaptive chunk capacity.
+        suite.addTestSuite(TestAdaptiveChunkCapacity.class);
+
         // test suite for startOp messages.
         suite.addTestSuite(TestStartOpMessage.class);
         
@@ -68,10 +68,17 @@ public class TestAll extends TestCase {
 
         // Test suite for the guts of the HTree hash join logic.
         suite.addTestSuite(TestHTreeHashJoinUtility.class);
+
+        // Test suite for the native hash table for inline IV keys.
+        suite.addTestSuite(TestInlineIVHashIndex.class);
+
+        // Test suite for the guts of the inline IV hash join logic.
+        suite.addTestSuite(TestInlineIVHashJoinUtility.class);
         
         // Test suite for a hash join with an access path.
         suite.addTestSuite(TestJVMHashJoinOp.class); // JVM
         suite.addTestSuite(TestHTreeHashJoinOp.class); // HTree
+        suite.addTestSuite(TestInlineIVHashJoinOp.class); // Inline IVs
         
         // Test suite for building a hash index from solutions and joining that
         // hash index back into the pipeline.
@@ -86,6 +93,10 @@ public class TestAll extends TestCase {
 		suite.addTestSuite(TestNestedLoopJoinOp.class);
 
 		suite.addTestSuite(TestFastRangeCountOp.class);
+
+		suite.addTestSuite(TestSPOMergeJoinOp.class);
+
+		suite.addTestSuite(TestLeapfrogTriejoinOp.class);
 		
 		/*
 		 * TODO These tests must be specific to the IV layer. They can not be
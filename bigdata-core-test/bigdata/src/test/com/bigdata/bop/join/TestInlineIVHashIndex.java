@@ -0,0 +1,315 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.io.DirectBufferPool;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.internal.impl.literal.FullyInlineTypedLiteralIV;
+import com.bigdata.rdf.internal.impl.literal.XSDNumericIV;
+import com.bigdata.rwstore.sector.MemoryManager;
+
+/**
+ * Test suite for the {@link InlineIVHashIndex}.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TestInlineIVHashIndex extends TestCase2 {
+
+    public TestInlineIVHashIndex() {
+    }
+
+    public TestInlineIVHashIndex(final String name) {
+        super(name);
+    }
+
+    private MemoryManager mmgr;
+
+    @Override
+    protected void tearDown() throws Exception {
+
+        if (mmgr != null) {
+            mmgr.clear();
+            mmgr = null;
+        }
+
+        super.tearDown();
+
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        mmgr = new MemoryManager(DirectBufferPool.INSTANCE);
+
+    }
+
+    private static final IVariable<?> x = Var.var("x");
+
+    private static final IVariable<?> y = Var.var("y");
+
+    private static IBindingSet bset(final IVariable<?> var, final IV iv) {
+
+        final IBindingSet bset = new ListBindingSet();
+
+        if (iv != null)
+            bset.set(var, new Constant<IV>(iv));
+
+        return bset;
+
+    }
+
+    /**
+     * Correct rejection tests for the constructor.
+     */
+    public void test_ctor_correctRejection() {
+
+        try {
+            new InlineIVHashIndex(new IVariable[0], 10, mmgr);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        try {
+            new InlineIVHashIndex(new IVariable[] { x }, 0, mmgr);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        try {
+            new InlineIVHashIndex(new IVariable[] { x }, 10, null);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+    /**
+     * Term identifiers and numeric inline IVs are packed. The same numeric
+     * value having a different datatype has a different key. Unbound
+     * variables and fully inline literals are not packed.
+     */
+    public void test_pack() {
+
+        final IVariable<?>[] vars = new IVariable[] { x };
+
+        final long[] k1 = new long[2];
+        final long[] k2 = new long[2];
+
+        assertTrue(InlineIVHashIndex.pack(vars,
+                bset(x, new TermId(VTE.URI, 12L)), k1));
+        assertTrue(InlineIVHashIndex.pack(vars,
+                bset(x, new TermId(VTE.URI, 12L)), k2));
+        assertTrue(Arrays.equals(k1, k2));
+
+        assertTrue(InlineIVHashIndex.pack(vars,
+                bset(x, new XSDNumericIV(12)), k2));
+        assertFalse(k1[0] == k2[0]);
+
+        assertTrue(InlineIVHashIndex.pack(vars,
+                bset(x, new XSDNumericIV(12L)), k1));
+        assertFalse(k1[0] == k2[0]);
+
+        assertFalse(InlineIVHashIndex.pack(vars, bset(x, null), k1));
+
+        assertFalse(InlineIVHashIndex.pack(vars,
+                bset(x, new FullyInlineTypedLiteralIV("abc")), k1));
+
+    }
+
+    /**
+     * Add solutions, including several for the same key, and verify that
+     * they are found by a probe and visited by the chain for that key.
+     */
+    public void test_add_find() {
+
+        final InlineIVHashIndex index = new InlineIVHashIndex(
+                new IVariable[] { x }, 2/* initialCapacity */, mmgr);
+
+        try {
+
+            final long[] key = new long[index.getKeyLength()];
+
+            final IBindingSet a = bset(x, new TermId(VTE.URI, 1L));
+            final IBindingSet b = bset(x, new TermId(VTE.URI, 2L));
+            final IBindingSet c = bset(x, new TermId(VTE.URI, 1L));
+
+            assertTrue(index.add(a, key));
+            assertTrue(index.add(b, key));
+            assertTrue(index.add(c, key));
+            assertFalse(index.add(bset(x, null), key));
+
+            assertEquals(3, index.size());
+            assertEquals(2, index.keyCount());
+
+            // Most recent solution first.
+            int i = index.find(bset(x, new TermId(VTE.URI, 1L)), key);
+            assertTrue(index.get(i) == c);
+            i = index.next(i);
+            assertTrue(index.get(i) == a);
+            assertEquals(-1, index.next(i));
+
+            i = index.find(bset(x, new TermId(VTE.URI, 2L)), key);
+            assertTrue(index.get(i) == b);
+            assertEquals(-1, index.next(i));
+
+            assertEquals(-1, index.find(bset(x, new TermId(VTE.URI, 3L)), key));
+            assertEquals(-2, index.find(bset(x, null), key));
+
+            assertTrue(index.isFirst(0));
+            assertTrue(index.isFirst(1));
+            assertFalse(index.isFirst(2));
+
+            assertFalse(index.isJoined(1));
+            index.setJoined(1);
+            assertTrue(index.isJoined(1));
+
+            assertSameArray(new IBindingSet[] { a, b, c }, index.toArray());
+
+        } finally {
+
+            index.close();
+
+        }
+
+    }
+
+    /**
+     * Add enough distinct composite keys to force the table to be rehashed
+     * across several pages and verify that every key is still found.
+     */
+    public void test_rehash() {
+
+        final int n = 100000;
+
+        final InlineIVHashIndex index = new InlineIVHashIndex(
+                new IVariable[] { x, y }, 16/* initialCapacity */, mmgr);
+
+        try {
+
+            final long[] key = new long[index.getKeyLength()];
+
+            for (int i = 0; i < n; i++) {
+
+                final IBindingSet bset = bset(x, new XSDNumericIV(i));
+
+                bset.set(y, new Constant<IV>(new TermId(VTE.LITERAL, i + 1L)));
+
+                assertTrue(index.add(bset, key));
+
+            }
+
+            assertEquals(n, index.size());
+            assertEquals(n, index.keyCount());
+            assertTrue(index.getNativeBytes() > DirectBufferPool.INSTANCE
+                    .getBufferCapacity());
+            assertTrue(mmgr.getAllocationCount() > 0);
+
+            for (int i = 0; i < n; i++) {
+
+                final IBindingSet bset = bset(x, new XSDNumericIV(i));
+
+                bset.set(y, new Constant<IV>(new TermId(VTE.LITERAL, i + 1L)));
+
+                final int j = index.find(bset, key);
+
+                assertEquals(i, j);
+
+                assertEquals(-1, index.next(j));
+
+            }
+
+        } finally {
+
+            index.close();
+
+        }
+
+        assertEquals(0L, index.getNativeBytes());
+
+        // The pages were returned to the memory manager.
+        assertEquals(0L, mmgr.getAllocationCount());
+
+    }
+
+    /**
+     * The hash table is not allocated until the first solution is added, so
+     * an index that is never used (or only sees solutions whose keys can not
+     * be packed) holds no native memory.
+     */
+    public void test_lazyAllocation() {
+
+        final InlineIVHashIndex index = new InlineIVHashIndex(
+                new IVariable[] { x }, 1000/* initialCapacity */, mmgr);
+
+        try {
+
+            final long[] key = new long[index.getKeyLength()];
+
+            assertEquals(-1, index.find(bset(x, new TermId(VTE.URI, 1L)), key));
+
+            assertFalse(index.add(bset(x, null), key));
+
+            assertEquals(0L, index.getNativeBytes());
+            assertEquals(0L, mmgr.getAllocationCount());
+
+            assertTrue(index.add(bset(x, new TermId(VTE.URI, 1L)), key));
+
+            assertTrue(index.getNativeBytes() > 0L);
+            assertTrue(mmgr.getAllocationCount() > 0L);
+
+            assertEquals(0, index.find(bset(x, new TermId(VTE.URI, 1L)), key));
+
+        } finally {
+
+            index.close();
+
+        }
+
+        assertEquals(0L, mmgr.getAllocationCount());
+
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.Map;
+import java.util.UUID;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpEvaluationContext;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.NamedSolutionSetRefUtility;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.ap.Predicate;
+import com.bigdata.bop.controller.NamedSetAnnotations;
+import com.bigdata.rdf.internal.IV;
+
+/**
+ * Test suite for {@link InlineIVHashJoinOp}.
+ */
+@SuppressWarnings("rawtypes")
+public class TestInlineIVHashJoinOp extends AbstractHashJoinOpTestCase {
+
+    /**
+     * 
+     */
+    public TestInlineIVHashJoinOp() {
+        super();
+    }
+
+    /**
+     * @param name
+     */
+    public TestInlineIVHashJoinOp(String name) {
+        super(name);
+    }
+
+    @Override
+    protected PipelineOp newJoin(final BOp[] args, final int joinId,
+            final IVariable<IV>[] joinVars,
+            final Predicate<IV> predOp,
+            final UUID queryId,
+            final NV... annotations) {
+
+        final Map<String,Object> tmp = NV.asMap(
+                new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER), //
+                new NV(Predicate.Annotations.BOP_ID, joinId),//
+                new NV(PipelineJoin.Annotations.PREDICATE, predOp),//
+                new NV(HashJoinAnnotations.JOIN_VARS, joinVars),//
+                new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),//
+                new NV(PipelineOp.Annotations.PIPELINED, false),//
+                new NV(NamedSetAnnotations.NAMED_SET_REF,
+                        NamedSolutionSetRefUtility.newInstance(queryId,
+                                getName(), joinVars))//
+                );
+
+        if (annotations != null) {
+
+            for (NV nv : annotations) {
+
+                tmp.put(nv.getName(), nv.getValue());
+
+            }
+
+        }
+
+        final PipelineOp joinOp = new InlineIVHashJoinOp<IV>(args, tmp);
+
+        return joinOp;
+
+    }
+
+}
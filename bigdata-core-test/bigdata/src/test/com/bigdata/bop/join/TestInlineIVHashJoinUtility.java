@@ -0,0 +1,198 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.io.DirectBufferPool;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.impl.literal.FullyInlineTypedLiteralIV;
+import com.bigdata.rdf.internal.impl.literal.XSDNumericIV;
+import com.bigdata.rwstore.sector.MemoryManager;
+import com.bigdata.striterator.Chunkerator;
+
+/**
+ * Test suite for the {@link InlineIVHashJoinUtility}.
+ */
+public class TestInlineIVHashJoinUtility extends
+        AbstractHashJoinUtilityTestCase {
+
+    /**
+     * 
+     */
+    public TestInlineIVHashJoinUtility() {
+    }
+
+    /**
+     * @param name
+     */
+    public TestInlineIVHashJoinUtility(String name) {
+        super(name);
+    }
+
+    private MemoryManager mmgr;
+
+    @Override
+    protected void tearDown() throws Exception {
+
+        if (mmgr != null) {
+            mmgr.clear();
+            mmgr = null;
+        }
+
+        super.tearDown();
+
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        mmgr = new MemoryManager(DirectBufferPool.INSTANCE);
+
+    }
+
+    @Override
+    protected InlineIVHashJoinUtility newHashJoinUtility(final PipelineOp op,
+            final JoinTypeEnum joinType) {
+
+        return new InlineIVHashJoinUtility(mmgr, op, joinType);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Merge joins are not supported by the {@link InlineIVHashJoinUtility}.
+     */
+    @Override
+    protected void doMergeJoinTest(final IConstraint[] constraints,
+            final IBindingSet[] expected, final boolean optional,
+            final IHashJoinUtility first, final IHashJoinUtility... others) {
+
+        try {
+            super.doMergeJoinTest(constraints, expected, optional, first,
+                    others);
+            fail("Expecting: " + UnsupportedOperationException.class);
+        } catch (UnsupportedOperationException ex) {
+            // Ignore expected exception.
+        }
+
+    }
+
+    /**
+     * Verify that the {@link InlineIVHashIndex} is used when the join
+     * variables are bound to IVs which can be packed.
+     */
+    public void test_inlineSelection_packable() {
+
+        final List<IBindingSet> right = new LinkedList<IBindingSet>();
+        right.add(bset(new XSDNumericIV(1)));
+        right.add(bset(new XSDNumericIV(2)));
+        right.add(bset(new FullyInlineTypedLiteralIV("abc")));
+
+        doInlineSelectionTest(right, true/* indexed */);
+
+    }
+
+    /**
+     * Verify that the join is delegated to the {@link JVMHashJoinUtility}
+     * when most of the join variables are bound to IVs which can not be
+     * packed.
+     */
+    public void test_inlineSelection_notPackable() {
+
+        final List<IBindingSet> right = new LinkedList<IBindingSet>();
+        right.add(bset(new FullyInlineTypedLiteralIV("abc")));
+        right.add(bset(new FullyInlineTypedLiteralIV("def")));
+        right.add(bset(new XSDNumericIV(1)));
+
+        doInlineSelectionTest(right, false/* indexed */);
+
+    }
+
+    private void doInlineSelectionTest(final List<IBindingSet> right,
+            final boolean indexed) {
+
+        final IVariable<?> x = Var.var("x");
+
+        final PipelineOp op = new MockPipelineOp(BOp.NOARGS,
+                new NV(HTreeHashJoinAnnotations.RELATION_NAME,
+                        new String[] { getName() }),//
+                new NV(HashJoinAnnotations.JOIN_VARS,
+                        new IVariable[] { x }),//
+                new NV(JoinAnnotations.SELECT, new IVariable[] { x })//
+                );
+
+        final InlineIVHashJoinUtility state = newHashJoinUtility(op,
+                JoinTypeEnum.Normal);
+
+        try {
+
+            state.acceptSolutions(
+                    new Chunkerator<IBindingSet>(right.iterator()), null/* stats */);
+
+            assertEquals(indexed, state.isIndexed());
+
+            assertEquals(right.size(), state.getRightSolutionCount());
+
+            assertSameSolutionsAnyOrder(
+                    right.toArray(new IBindingSet[right.size()]),
+                    state.indexScan());
+
+        } finally {
+
+            state.release();
+
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static IBindingSet bset(final IV iv) {
+
+        final IBindingSet bset = new ListBindingSet();
+
+        bset.set(Var.var("x"), new Constant<IV>(iv));
+
+        return bset;
+
+    }
+
+}
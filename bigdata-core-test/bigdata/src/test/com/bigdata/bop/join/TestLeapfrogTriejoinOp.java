@@ -0,0 +1,575 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.BOpEvaluationContext;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.IPredicate.Annotations;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.ap.Predicate;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.constraint.Constraint;
+import com.bigdata.bop.constraint.NEConstant;
+import com.bigdata.bop.engine.AbstractQueryEngineTestCase;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.BlockingBufferWithStats;
+import com.bigdata.bop.engine.MockRunningQuery;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.ITx;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.model.StatementEnum;
+import com.bigdata.rdf.spo.SPO;
+import com.bigdata.rdf.spo.SPOKeyOrder;
+import com.bigdata.rdf.spo.SPOPredicate;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.LocalTripleStore;
+import com.bigdata.relation.accesspath.IAsynchronousIterator;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.ThickAsynchronousIterator;
+
+/**
+ * Unit tests for the {@link LeapfrogTriejoinOp}.
+ * 
+ * @author <a href="mailto:thompsonbry@users.sourceforge.net">Bryan Thompson</a>
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TestLeapfrogTriejoinOp extends TestCase2 {
+
+    /**
+     * 
+     */
+    public TestLeapfrogTriejoinOp() {
+    }
+
+    /**
+     * @param name
+     */
+    public TestLeapfrogTriejoinOp(String name) {
+        super(name);
+    }
+
+    /** The number of resources in the test data. */
+    private static final int N = 30;
+
+    private Journal jnl;
+
+    private String spoNamespace;
+
+    private IV knows, likes;
+
+    private IV[] e;
+
+    /** The statements written onto the kb. */
+    private List<SPO> stmts;
+
+    private final IVariable<IV> a = Var.var("a");
+    private final IVariable<IV> b = Var.var("b");
+    private final IVariable<IV> c = Var.var("c");
+    private final IVariable<IV> d = Var.var("d");
+
+    @Override
+    public void setUp() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.Transient.toString());
+
+        jnl = new Journal(properties);
+
+        // create the kb.
+        final AbstractTripleStore kb = new LocalTripleStore(jnl, getName(),
+                ITx.UNISOLATED, properties);
+
+        kb.create();
+
+        spoNamespace = kb.getSPORelation().getNamespace();
+
+        // Setup the vocabulary.
+        {
+
+            final BigdataValueFactory vf = kb.getValueFactory();
+
+            final String uriString = "http://bigdata.com/";
+
+            final BigdataURI[] a = new BigdataURI[N + 2];
+
+            a[0] = vf.createURI(uriString + "knows");
+            a[1] = vf.createURI(uriString + "likes");
+
+            for (int i = 0; i < N; i++) {
+
+                a[i + 2] = vf.createURI(uriString + "e" + i);
+
+            }
+
+            kb.getLexiconRelation().addTerms(a, a.length, false/* readOnly */);
+
+            knows = a[0].getIV();
+            likes = a[1].getIV();
+
+            e = new IV[N];
+
+            for (int i = 0; i < N; i++) {
+
+                e[i] = a[i + 2].getIV();
+
+            }
+
+        }
+
+        /*
+         * A graph with many triangles. The :likes statements include some
+         * self-loops.
+         */
+        final Set<SPO> tmp = new LinkedHashSet<SPO>();
+
+        for (int i = 0; i < N; i++) {
+
+            tmp.add(new SPO(e[i], knows, e[(i + 1) % N], StatementEnum.Explicit));
+
+            tmp.add(new SPO(e[i], knows, e[(i + 2) % N], StatementEnum.Explicit));
+
+            tmp.add(new SPO(e[i], knows, e[(i * 7) % N], StatementEnum.Explicit));
+
+            tmp.add(new SPO(e[(i + 3) % N], knows, e[i], StatementEnum.Explicit));
+
+            if (i % 3 == 0)
+                tmp.add(new SPO(e[i], likes, e[(i * 5) % N],
+                        StatementEnum.Explicit));
+
+        }
+
+        stmts = new LinkedList<SPO>(tmp);
+
+        final SPO[] a = stmts.toArray(new SPO[stmts.size()]);
+
+        kb.addStatements(a, a.length);
+
+        // Do commit since not scale-out.
+        jnl.commit();
+
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+
+        if (jnl != null) {
+            jnl.destroy();
+            jnl = null;
+        }
+
+        stmts = null;
+        e = null;
+
+    }
+
+    private SPOPredicate newPredicate(final int predId,
+            final IVariableOrConstant... terms) {
+
+        return new SPOPredicate(terms, NV.asMap(new NV[] {//
+                new NV(Predicate.Annotations.RELATION_NAME,
+                        new String[] { spoNamespace }),//
+                new NV(Predicate.Annotations.BOP_ID, predId),//
+                new NV(Annotations.TIMESTAMP, ITx.READ_COMMITTED),//
+        }));
+
+    }
+
+    private LeapfrogTriejoinOp newJoin(final SPOPredicate[] preds,
+            final IVariable<?>[] order, final NV... annotations) {
+
+        final List<NV> anns = new LinkedList<NV>(Arrays.asList(//
+                new NV(BOp.Annotations.BOP_ID, 1),//
+                new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(PipelineOp.Annotations.PIPELINED, false),//
+                new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),//
+                new NV(LeapfrogTriejoinOp.Annotations.PREDICATES, preds),//
+                new NV(LeapfrogTriejoinOp.Annotations.VARIABLE_ORDER, order)//
+                ));
+
+        anns.addAll(Arrays.asList(annotations));
+
+        return new LeapfrogTriejoinOp(new BOp[] {}, anns.toArray(new NV[anns
+                .size()]));
+
+    }
+
+    /**
+     * Compute the solutions for the statement patterns by brute force.
+     */
+    private IBindingSet[] bruteForce(final IBindingSet bindingSet,
+            final IVariableOrConstant[]... patterns) {
+
+        final Set<IBindingSet> solutions = new LinkedHashSet<IBindingSet>();
+
+        bruteForce(0, bindingSet, patterns, solutions);
+
+        return solutions.toArray(new IBindingSet[solutions.size()]);
+
+    }
+
+    private void bruteForce(final int i, final IBindingSet bindingSet,
+            final IVariableOrConstant[][] patterns,
+            final Set<IBindingSet> solutions) {
+
+        if (i == patterns.length) {
+
+            solutions.add(bindingSet);
+
+            return;
+
+        }
+
+        for (SPO spo : stmts) {
+
+            final IBindingSet tmp = bindingSet.clone();
+
+            boolean ok = true;
+
+            for (int j = 0; ok && j < 3; j++) {
+
+                final IVariableOrConstant t = patterns[i][j];
+
+                final IConstant<IV> val = new Constant<IV>(spo.get(j));
+
+                if (t.isConstant()) {
+
+                    ok = t.equals(val);
+
+                } else if (tmp.isBound((IVariable) t)) {
+
+                    ok = tmp.get((IVariable) t).equals(val);
+
+                } else {
+
+                    tmp.set((IVariable) t, val);
+
+                }
+
+            }
+
+            if (ok)
+                bruteForce(i + 1, tmp, patterns, solutions);
+
+        }
+
+    }
+
+    private void runJoin(final LeapfrogTriejoinOp query,
+            final IBindingSet[] source, final IBindingSet[] expected)
+            throws InterruptedException, ExecutionException {
+
+        final BOpStats stats = query.newStats();
+
+        final IAsynchronousIterator<IBindingSet[]> itr = new ThickAsynchronousIterator<IBindingSet[]>(
+                new IBindingSet[][] { source });
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(
+                query, stats);
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                new MockRunningQuery(null/* fed */, jnl/* indexManager */
+                ), -1/* partitionId */, stats, query/* op */,
+                true/* lastInvocation */, itr, sink, null/* sink2 */);
+
+        // get task.
+        final FutureTask<Void> ft = query.eval(context);
+
+        // execute task.
+        jnl.getExecutorService().execute(ft);
+
+        AbstractQueryEngineTestCase.assertSameSolutionsAnyOrder(expected,
+                sink.iterator(), ft);
+
+        assertEquals((long) source.length, stats.unitsIn.get());
+        assertEquals((long) expected.length, stats.unitsOut.get());
+
+    }
+
+    /**
+     * Unit test for the detection of cyclic join graphs.
+     */
+    public void test_isCyclic() {
+
+        // triangle.
+        assertTrue(LeapfrogTriejoinOp.isCyclic(edges(set(a, b), set(b, c),
+                set(c, a))));
+
+        // path.
+        assertFalse(LeapfrogTriejoinOp.isCyclic(edges(set(a, b), set(b, c),
+                set(c, d))));
+
+        // star.
+        assertFalse(LeapfrogTriejoinOp.isCyclic(edges(set(a, b), set(a, c),
+                set(a, d))));
+
+        // square.
+        assertTrue(LeapfrogTriejoinOp.isCyclic(edges(set(a, b), set(b, c),
+                set(c, d), set(d, a))));
+
+        // triangle covered by a single hyperedge is acyclic.
+        assertFalse(LeapfrogTriejoinOp.isCyclic(edges(set(a, b), set(b, c),
+                set(c, a), set(a, b, c))));
+
+        // the same edge twice.
+        assertFalse(LeapfrogTriejoinOp.isCyclic(edges(set(a, b), set(a, b))));
+
+        // a triangle with a tail.
+        assertTrue(LeapfrogTriejoinOp.isCyclic(edges(set(a, b), set(b, c),
+                set(c, a), set(c, d))));
+
+    }
+
+    private static Set<IVariable<?>> set(final IVariable<?>... vars) {
+
+        return new LinkedHashSet<IVariable<?>>(Arrays.asList(vars));
+
+    }
+
+    private static List<Set<IVariable<?>>> edges(
+            final Set<IVariable<?>>... edges) {
+
+        return Arrays.asList(edges);
+
+    }
+
+    /**
+     * Unit test for the choice of the statement index for a statement pattern
+     * given the global variable order.
+     */
+    public void test_getKeyOrder() {
+
+        final IConstant<?> p = new Constant<IV>(knows);
+        final IConstant<?> x = new Constant<IV>(e[0]);
+        final IVariable<?>[] order = new IVariable[] { a, b, c };
+
+        // (?b p ?a) : POS.
+        assertEquals(SPOKeyOrder.POS, LeapfrogTriejoinOp.getKeyOrder(
+                new IVariableOrConstant[] { b, p, a }, order));
+
+        // (x p ?a) : SPO.
+        assertEquals(SPOKeyOrder.SPO, LeapfrogTriejoinOp.getKeyOrder(
+                new IVariableOrConstant[] { x, p, a }, order));
+
+        // (?a ?b ?c) : SPO.
+        assertEquals(SPOKeyOrder.SPO, LeapfrogTriejoinOp.getKeyOrder(
+                new IVariableOrConstant[] { a, b, c }, order));
+
+        // (?c ?a ?b) : POS.
+        assertEquals(SPOKeyOrder.POS, LeapfrogTriejoinOp.getKeyOrder(
+                new IVariableOrConstant[] { c, a, b }, order));
+
+        // (?a p ?b) : would require PSO.
+        assertNull(LeapfrogTriejoinOp.getKeyOrder(new IVariableOrConstant[] {
+                a, p, b }, order));
+
+        // (?a p ?a) : repeated variable.
+        assertNull(LeapfrogTriejoinOp.getKeyOrder(new IVariableOrConstant[] {
+                a, p, a }, order));
+
+    }
+
+    /**
+     * Unit test for a triangle <code>(?a :knows ?b) . (?b :knows ?c) .
+     * (?c :knows ?a)</code>. Some of the statement patterns are read using a
+     * statement index and some must be buffered.
+     */
+    public void test_triangle() throws InterruptedException,
+            ExecutionException {
+
+        final IConstant<IV> p = new Constant<IV>(knows);
+
+        final IVariableOrConstant[][] patterns = new IVariableOrConstant[][] {
+                { a, p, b }, { b, p, c }, { c, p, a } };
+
+        final LeapfrogTriejoinOp query = newJoin(new SPOPredicate[] {
+                newPredicate(2, patterns[0]), newPredicate(3, patterns[1]),
+                newPredicate(4, patterns[2]) }, new IVariable[] { a, b, c });
+
+        final IBindingSet[] expected = bruteForce(new ListBindingSet(),
+                patterns);
+
+        assertTrue(expected.length > 0);
+
+        runJoin(query, new IBindingSet[] { new ListBindingSet() }, expected);
+
+    }
+
+    /**
+     * Unit test for a 4-clique using a variable order under which every
+     * statement pattern is buffered.
+     */
+    public void test_clique() throws InterruptedException, ExecutionException {
+
+        final IConstant<IV> p = new Constant<IV>(knows);
+
+        final IVariableOrConstant[][] patterns = new IVariableOrConstant[][] {
+                { a, p, b }, { a, p, c }, { a, p, d }, { b, p, c },
+                { b, p, d }, { c, p, d } };
+
+        final SPOPredicate[] preds = new SPOPredicate[patterns.length];
+
+        for (int i = 0; i < preds.length; i++)
+            preds[i] = newPredicate(2 + i, patterns[i]);
+
+        final LeapfrogTriejoinOp query = newJoin(preds, new IVariable[] { a,
+                b, c, d });
+
+        runJoin(query, new IBindingSet[] { new ListBindingSet() },
+                bruteForce(new ListBindingSet(), patterns));
+
+    }
+
+    /**
+     * Unit test for a 4-clique where no statement pattern may be buffered,
+     * so each source solution is evaluated using nested index joins.
+     */
+    public void test_clique_nestedIndexJoin() throws InterruptedException,
+            ExecutionException {
+
+        final IConstant<IV> p = new Constant<IV>(knows);
+
+        final IVariableOrConstant[][] patterns = new IVariableOrConstant[][] {
+                { a, p, b }, { a, p, c }, { a, p, d }, { b, p, c },
+                { b, p, d }, { c, p, d } };
+
+        final SPOPredicate[] preds = new SPOPredicate[patterns.length];
+
+        for (int i = 0; i < preds.length; i++)
+            preds[i] = newPredicate(2 + i, patterns[i]);
+
+        final LeapfrogTriejoinOp query = newJoin(preds, new IVariable[] { a,
+                b, c, d }, new NV(
+                LeapfrogTriejoinOp.Annotations.MAX_BUFFERED_KEYS, 0L));
+
+        final IBindingSet[] expected = bruteForce(new ListBindingSet(),
+                patterns);
+
+        assertTrue(expected.length > 0);
+
+        runJoin(query, new IBindingSet[] { new ListBindingSet() }, expected);
+
+    }
+
+    /**
+     * Unit test for a triangle which mixes predicates, has a variable in the
+     * predicate position, a self-loop and a constraint.
+     */
+    public void test_triangle_mixed() throws InterruptedException,
+            ExecutionException {
+
+        final IVariable<IV> q = Var.var("q");
+
+        final IVariableOrConstant[][] patterns = new IVariableOrConstant[][] {
+                { a, new Constant<IV>(likes), b },//
+                { b, q, c },//
+                { c, new Constant<IV>(knows), a } };
+
+        final LeapfrogTriejoinOp query = newJoin(new SPOPredicate[] {
+                newPredicate(2, patterns[0]), newPredicate(3, patterns[1]),
+                newPredicate(4, patterns[2]) },
+                new IVariable[] { a, b, c, q },//
+                new NV(JoinAnnotations.CONSTRAINTS, new IConstraint[] { Constraint
+                        .wrap(new NEConstant(c, new Constant<IV>(e[0]))) }));
+
+        final List<IBindingSet> expected = new LinkedList<IBindingSet>();
+
+        for (IBindingSet bset : bruteForce(new ListBindingSet(), patterns)) {
+
+            if (!bset.get(c).equals(new Constant<IV>(e[0])))
+                expected.add(bset);
+
+        }
+
+        runJoin(query, new IBindingSet[] { new ListBindingSet() },
+                expected.toArray(new IBindingSet[0]));
+
+    }
+
+    /**
+     * Unit test where the source solutions bind one of the variables.
+     */
+    public void test_triangle_asBound() throws InterruptedException,
+            ExecutionException {
+
+        final IConstant<IV> p = new Constant<IV>(knows);
+
+        final IVariableOrConstant[][] patterns = new IVariableOrConstant[][] {
+                { a, p, b }, { b, p, c }, { c, p, a } };
+
+        final LeapfrogTriejoinOp query = newJoin(new SPOPredicate[] {
+                newPredicate(2, patterns[0]), newPredicate(3, patterns[1]),
+                newPredicate(4, patterns[2]) }, new IVariable[] { a, b, c });
+
+        final List<IBindingSet> source = new LinkedList<IBindingSet>();
+
+        final List<IBindingSet> expected = new LinkedList<IBindingSet>();
+
+        for (int i : new int[] { 0, 4, 17 }) {
+
+            final IBindingSet bset = new ListBindingSet();
+
+            bset.set(b, new Constant<IV>(e[i]));
+
+            source.add(bset);
+
+            expected.addAll(Arrays.asList(bruteForce(bset, patterns)));
+
+        }
+
+        runJoin(query, source.toArray(new IBindingSet[0]),
+                expected.toArray(new IBindingSet[0]));
+
+    }
+
+}
@@ -1,6 +1,6 @@
 /**
 
-Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
 
 Contact:
      SYSTAP, LLC DBA Blazegraph
@@ -55,9 +55,11 @@ import com.bigdata.bop.constraint.NEConstant;
 import com.bigdata.bop.engine.AbstractQueryEngineTestCase;
 import com.bigdata.bop.engine.BlockingBufferWithStats;
 import com.bigdata.bop.engine.MockRunningQuery;
+import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.journal.BufferMode;
 import com.bigdata.journal.ITx;
 import com.bigdata.journal.Journal;
+import com.bigdata.relation.accesspath.AccessPath;
 import com.bigdata.relation.accesspath.IAsynchronousIterator;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
 import com.bigdata.relation.accesspath.ThickAsynchronousIterator;
@@ -542,6 +544,119 @@ public class TestPipelineJoin extends TestCase2 {
 
     }
 
+    /**
+     * Unit test for a pipeline join in which the access path is split into
+     * key-range partitions which are joined in parallel.
+     * 
+     * @throws ExecutionException
+     * @throws InterruptedException
+     */
+    public void test_join_keyRangePartitions() throws InterruptedException,
+            ExecutionException {
+
+        final int joinId = 2;
+        final int predId = 3;
+
+        /*
+         * Note: A read-only view of a commit point is required since the
+         * partitions are scanned concurrently.
+         */
+        final long timestamp = jnl.getLastCommitTime();
+
+        final Predicate<E> predOp = new Predicate<E>(new IVariableOrConstant[] {
+                Var.var("x"), Var.var("y") }, NV.asMap(new NV[] {//
+                        new NV(Predicate.Annotations.RELATION_NAME,
+                                new String[] { namespace }),//
+                        new NV(Predicate.Annotations.BOP_ID, predId),//
+                        new NV(Annotations.TIMESTAMP, timestamp),//
+                }));
+
+        // verify the separator keys for the access path.
+        {
+            final R rel = (R) jnl.getResourceLocator().locate(namespace,
+                    timestamp);
+
+            final AccessPath<E> ap = (AccessPath<E>) rel
+                    .getAccessPath(predOp);
+
+            assertEquals(0, ap.getSeparatorKeys(1/* maxPartitions */, 1L).length);
+            assertEquals(0, ap.getSeparatorKeys(4/* maxPartitions */, 3L).length);
+            assertEquals(1, ap.getSeparatorKeys(4/* maxPartitions */, 2L).length);
+            assertEquals(3, ap.getSeparatorKeys(4/* maxPartitions */, 1L).length);
+        }
+
+        final PipelineJoin<E> query = new PipelineJoin<E>(
+                new BOp[] { },// args
+                new NV(Predicate.Annotations.BOP_ID, joinId),//
+                new NV(PipelineJoin.Annotations.PREDICATE, predOp),//
+                new NV(PipelineJoin.Annotations.KEY_RANGE_PARTITIONS, true),//
+                new NV(PipelineJoin.Annotations.MIN_DATAPOINTS_PER_TASK, 1),//
+                new NV(PipelineJoin.Annotations.NUM_TASKS_PER_THREAD, 4)//
+                );
+
+        // the expected solutions.
+        final IBindingSet[] expected = new IBindingSet[] {//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("John"), new Constant<String>("Mary") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Mary"), new Constant<String>("Paul") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Paul"), new Constant<String>("Leon") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Leon"), new Constant<String>("Paul") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Mary"), new Constant<String>("John") }//
+                ),//
+        };
+
+        final PipelineJoinStats stats = query.newStats();
+
+        final IAsynchronousIterator<IBindingSet[]> source = newBindingSetIterator(new ListBindingSet());
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(query, stats);
+
+        // The partitions are scanned on the query engine's shared service.
+        final QueryEngine queryEngine = new QueryEngine(jnl);
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                new MockRunningQuery(null/* fed */, jnl/* indexManager */
+                ) {
+                    @Override
+                    public QueryEngine getQueryEngine() {
+                        return queryEngine;
+                    }
+                }, -1/* partitionId */, stats,query/* op */,
+                false/* lastInvocation */, 
+                source, sink, null/* sink2 */);
+
+        // get task.
+        final FutureTask<Void> ft = query.eval(context);
+        
+        // execute task.
+        jnl.getExecutorService().execute(ft);
+
+        AbstractQueryEngineTestCase.assertSameSolutionsAnyOrder(expected, sink.iterator(),
+                ft);
+
+        // join task
+        assertEquals(1L, stats.chunksIn.get());
+        assertEquals(1L, stats.unitsIn.get());
+        assertEquals(5L, stats.unitsOut.get());
+        // access path
+        assertEquals(1L, stats.accessPathCount.get());
+        assertEquals(5L, stats.accessPathUnitsIn.get());
+
+    }
+
     /**
      * Unit test for a join with an {@link IConstraint}. The constraint is used
      * to filter out one of the solutions where "Mary" is the present in the
@@ -0,0 +1,475 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.BOpEvaluationContext;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IPredicate.Annotations;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.ap.Predicate;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.engine.AbstractQueryEngineTestCase;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.BlockingBufferWithStats;
+import com.bigdata.bop.engine.MockRunningQuery;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.ITx;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.model.StatementEnum;
+import com.bigdata.rdf.spo.SPO;
+import com.bigdata.rdf.spo.SPOKeyOrder;
+import com.bigdata.rdf.spo.SPOPredicate;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.LocalTripleStore;
+import com.bigdata.relation.accesspath.IAsynchronousIterator;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.ThickAsynchronousIterator;
+
+/**
+ * Unit tests for the {@link SPOMergeJoinOp}.
+ * 
+ * @author <a href="mailto:thompsonbry@users.sourceforge.net">Bryan Thompson</a>
+ */
+@SuppressWarnings("rawtypes")
+public class TestSPOMergeJoinOp extends TestCase2 {
+
+    /**
+     * 
+     */
+    public TestSPOMergeJoinOp() {
+    }
+
+    /**
+     * @param name
+     */
+    public TestSPOMergeJoinOp(String name) {
+        super(name);
+    }
+
+    /** The number of resources in the test data. */
+    private static final int N = 50;
+
+    private Journal jnl;
+
+    private String spoNamespace;
+
+    private IV knows, likes;
+
+    private IV[] e;
+
+    /** The statements written onto the kb. */
+    private List<SPO> stmts;
+
+    @Override
+    public void setUp() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.Transient.toString());
+
+        jnl = new Journal(properties);
+
+        // create the kb.
+        final AbstractTripleStore kb = new LocalTripleStore(jnl, getName(),
+                ITx.UNISOLATED, properties);
+
+        kb.create();
+
+        spoNamespace = kb.getSPORelation().getNamespace();
+
+        // Setup the vocabulary.
+        {
+
+            final BigdataValueFactory vf = kb.getValueFactory();
+
+            final String uriString = "http://bigdata.com/";
+
+            final BigdataURI[] a = new BigdataURI[N + 2];
+
+            a[0] = vf.createURI(uriString + "knows");
+            a[1] = vf.createURI(uriString + "likes");
+
+            for (int i = 0; i < N; i++) {
+
+                a[i + 2] = vf.createURI(uriString + "e" + i);
+
+            }
+
+            kb.getLexiconRelation().addTerms(a, a.length, false/* readOnly */);
+
+            knows = a[0].getIV();
+            likes = a[1].getIV();
+
+            e = new IV[N];
+
+            for (int i = 0; i < N; i++) {
+
+                e[i] = a[i + 2].getIV();
+
+            }
+
+        }
+
+        // Two :knows and at most one :likes statement per resource.
+        stmts = new LinkedList<SPO>();
+
+        for (int i = 0; i < N; i++) {
+
+            stmts.add(new SPO(e[i], knows, e[(i * 7) % N],
+                    StatementEnum.Explicit));
+
+            stmts.add(new SPO(e[i], knows, e[(i + 1) % N],
+                    StatementEnum.Explicit));
+
+            if (i % 2 == 0)
+                stmts.add(new SPO(e[i], likes, e[(i * 3) % N],
+                        StatementEnum.Explicit));
+
+        }
+
+        final SPO[] a = stmts.toArray(new SPO[stmts.size()]);
+
+        kb.addStatements(a, a.length);
+
+        // Do commit since not scale-out.
+        jnl.commit();
+
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+
+        if (jnl != null) {
+            jnl.destroy();
+            jnl = null;
+        }
+
+        stmts = null;
+        e = null;
+
+    }
+
+    private SPOPredicate newPredicate(final int predId,
+            final IVariableOrConstant... terms) {
+
+        return new SPOPredicate(terms, NV.asMap(new NV[] {//
+                new NV(Predicate.Annotations.RELATION_NAME,
+                        new String[] { spoNamespace }),//
+                new NV(Predicate.Annotations.BOP_ID, predId),//
+                new NV(Annotations.TIMESTAMP, ITx.READ_COMMITTED),//
+        }));
+
+    }
+
+    private SPOMergeJoinOp newJoin(final SPOPredicate left,
+            final SPOPredicate right, final IVariable<?> joinVar,
+            final int partitionCount, final long minPartitionSize) {
+
+        return new SPOMergeJoinOp(new BOp[] {},//
+                new NV(BOp.Annotations.BOP_ID, 1),//
+                new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(PipelineOp.Annotations.PIPELINED, false),//
+                new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),//
+                new NV(SPOMergeJoinOp.Annotations.PREDICATE, left),//
+                new NV(SPOMergeJoinOp.Annotations.RIGHT_PREDICATE, right),//
+                new NV(SPOMergeJoinOp.Annotations.JOIN_VAR, joinVar),//
+                new NV(SPOMergeJoinOp.Annotations.PARTITION_COUNT,
+                        partitionCount),//
+                new NV(SPOMergeJoinOp.Annotations.MIN_PARTITION_SIZE,
+                        minPartitionSize)//
+        );
+
+    }
+
+    /**
+     * Compute the expected solutions for <code>(?a p1 ?x) . (?b p2 ?x)</code>
+     * by brute force, optionally restricting <code>?a</code> to a constant.
+     */
+    private IBindingSet[] expectedObjectJoin(final IV p1, final IV p2,
+            final IV boundA, final IVariable<IV> a, final IVariable<IV> b,
+            final IVariable<IV> x) {
+
+        final Set<IBindingSet> expected = new LinkedHashSet<IBindingSet>();
+
+        for (SPO left : stmts) {
+
+            if (!left.p().equals(p1))
+                continue;
+
+            if (boundA != null && !left.s().equals(boundA))
+                continue;
+
+            for (SPO right : stmts) {
+
+                if (!right.p().equals(p2) || !right.o().equals(left.o()))
+                    continue;
+
+                expected.add(new ListBindingSet(//
+                        new IVariable[] { a, b, x },//
+                        new IConstant[] { new Constant<IV>(left.s()),
+                                new Constant<IV>(right.s()),
+                                new Constant<IV>(left.o()) }//
+                ));
+
+            }
+
+        }
+
+        return expected.toArray(new IBindingSet[expected.size()]);
+
+    }
+
+    private void runJoin(final SPOMergeJoinOp query,
+            final IBindingSet[] source, final IBindingSet[] expected)
+            throws InterruptedException, ExecutionException {
+
+        final BOpStats stats = query.newStats();
+
+        final IAsynchronousIterator<IBindingSet[]> itr = new ThickAsynchronousIterator<IBindingSet[]>(
+                new IBindingSet[][] { source });
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(
+                query, stats);
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                new MockRunningQuery(null/* fed */, jnl/* indexManager */
+                ), -1/* partitionId */, stats, query/* op */,
+                true/* lastInvocation */, itr, sink, null/* sink2 */);
+
+        // get task.
+        final FutureTask<Void> ft = query.eval(context);
+
+        // execute task.
+        jnl.getExecutorService().execute(ft);
+
+        AbstractQueryEngineTestCase.assertSameSolutionsAnyOrder(expected,
+                sink.iterator(), ft);
+
+        assertEquals((long) source.length, stats.unitsIn.get());
+        assertEquals((long) expected.length, stats.unitsOut.get());
+
+    }
+
+    /**
+     * Unit test for the choice of the statement index for each side of the
+     * merge join.
+     */
+    public void test_getKeyOrder() {
+
+        final IVariable<?> s = Var.var("s");
+        final IVariable<?> o = Var.var("o");
+        final IVariable<?> z = Var.var("z");
+        final IConstant<?> p = new Constant<IV>(knows);
+        final IConstant<?> c = new Constant<IV>(e[0]);
+
+        // (?s p ?o) on ?o : POS.
+        assertEquals(SPOKeyOrder.POS, SPOMergeJoinOp.getKeyOrder(
+                new IVariableOrConstant[] { s, p, o }, o));
+
+        // (?s p c) on ?s : POS.
+        assertEquals(SPOKeyOrder.POS, SPOMergeJoinOp.getKeyOrder(
+                new IVariableOrConstant[] { s, p, c }, s));
+
+        // (c p ?o) on ?o : SPO.
+        assertEquals(SPOKeyOrder.SPO, SPOMergeJoinOp.getKeyOrder(
+                new IVariableOrConstant[] { c, p, o }, o));
+
+        // (?s ?z ?o) on ?s : SPO.
+        assertEquals(SPOKeyOrder.SPO, SPOMergeJoinOp.getKeyOrder(
+                new IVariableOrConstant[] { s, z, o }, s));
+
+        // (?s p ?o) on ?s : would require PSO.
+        assertNull(SPOMergeJoinOp.getKeyOrder(
+                new IVariableOrConstant[] { s, p, o }, s));
+
+        // (?s p ?s) : the join variable is repeated.
+        assertNull(SPOMergeJoinOp.getKeyOrder(
+                new IVariableOrConstant[] { s, p, s }, s));
+
+        // (?s ?o ?o) on ?s : a variable is repeated after the join variable.
+        assertNull(SPOMergeJoinOp.getKeyOrder(
+                new IVariableOrConstant[] { s, o, o }, s));
+
+        // The join variable does not appear.
+        assertNull(SPOMergeJoinOp.getKeyOrder(
+                new IVariableOrConstant[] { s, p, o }, z));
+
+    }
+
+    /**
+     * Unit test for <code>(?a :knows ?x) . (?b :likes ?x)</code> using a single
+     * partition.
+     */
+    @SuppressWarnings("unchecked")
+    public void test_mergeJoin_onePartition() throws InterruptedException,
+            ExecutionException {
+
+        final IVariable<IV> a = Var.var("a");
+        final IVariable<IV> b = Var.var("b");
+        final IVariable<IV> x = Var.var("x");
+
+        final SPOMergeJoinOp query = newJoin(//
+                newPredicate(2, a, new Constant<IV>(knows), x),//
+                newPredicate(3, b, new Constant<IV>(likes), x),//
+                x, 1/* partitionCount */, Long.MAX_VALUE/* minPartitionSize */);
+
+        final IBindingSet[] expected = expectedObjectJoin(knows, likes,
+                null/* boundA */, a, b, x);
+
+        assertTrue(expected.length > 0);
+
+        runJoin(query, new IBindingSet[] { new ListBindingSet() }, expected);
+
+    }
+
+    /**
+     * Unit test for <code>(?a :knows ?x) . (?b :knows ?x)</code> where the key
+     * range is split into several partitions which are joined in parallel.
+     */
+    @SuppressWarnings("unchecked")
+    public void test_mergeJoin_partitioned() throws InterruptedException,
+            ExecutionException {
+
+        final IVariable<IV> a = Var.var("a");
+        final IVariable<IV> b = Var.var("b");
+        final IVariable<IV> x = Var.var("x");
+
+        final SPOMergeJoinOp query = newJoin(//
+                newPredicate(2, a, new Constant<IV>(knows), x),//
+                newPredicate(3, b, new Constant<IV>(knows), x),//
+                x, 4/* partitionCount */, 1L/* minPartitionSize */);
+
+        final IBindingSet[] expected = expectedObjectJoin(knows, knows,
+                null/* boundA */, a, b, x);
+
+        runJoin(query, new IBindingSet[] { new ListBindingSet() }, expected);
+
+    }
+
+    /**
+     * Unit test where the source solution binds a variable of the left
+     * predicate. The left side is read from a different statement index for
+     * the as-bound predicate and the join is still evaluated as a merge join.
+     */
+    @SuppressWarnings("unchecked")
+    public void test_mergeJoin_asBound() throws InterruptedException,
+            ExecutionException {
+
+        final IVariable<IV> a = Var.var("a");
+        final IVariable<IV> b = Var.var("b");
+        final IVariable<IV> x = Var.var("x");
+
+        final SPOMergeJoinOp query = newJoin(//
+                newPredicate(2, a, new Constant<IV>(knows), x),//
+                newPredicate(3, b, new Constant<IV>(knows), x),//
+                x, 2/* partitionCount */, 1L/* minPartitionSize */);
+
+        final List<IBindingSet> expected = new LinkedList<IBindingSet>();
+        final List<IBindingSet> source = new LinkedList<IBindingSet>();
+
+        for (int i : new int[] { 3, 10 }) {
+
+            final IBindingSet bset = new ListBindingSet();
+            bset.set(a, new Constant<IV>(e[i]));
+            source.add(bset);
+
+            for (IBindingSet tmp : expectedObjectJoin(knows, knows, e[i], a,
+                    b, x)) {
+
+                expected.add(tmp);
+
+            }
+
+        }
+
+        runJoin(query, source.toArray(new IBindingSet[0]),
+                expected.toArray(new IBindingSet[0]));
+
+    }
+
+    /**
+     * Unit test where the source solution binds the join variable. The
+     * operator falls back onto a nested loop join for that solution.
+     */
+    @SuppressWarnings("unchecked")
+    public void test_mergeJoin_joinVarBound() throws InterruptedException,
+            ExecutionException {
+
+        final IVariable<IV> a = Var.var("a");
+        final IVariable<IV> b = Var.var("b");
+        final IVariable<IV> x = Var.var("x");
+
+        final SPOMergeJoinOp query = newJoin(//
+                newPredicate(2, a, new Constant<IV>(knows), x),//
+                newPredicate(3, b, new Constant<IV>(knows), x),//
+                x, 1/* partitionCount */, Long.MAX_VALUE/* minPartitionSize */);
+
+        final IBindingSet bset = new ListBindingSet();
+        bset.set(x, new Constant<IV>(e[1]));
+
+        final List<IBindingSet> expected = new LinkedList<IBindingSet>();
+
+        for (IBindingSet tmp : expectedObjectJoin(knows, knows,
+                null/* boundA */, a, b, x)) {
+
+            if (tmp.get(x).equals(new Constant<IV>(e[1])))
+                expected.add(tmp);
+
+        }
+
+        assertFalse(expected.isEmpty());
+
+        runJoin(query, new IBindingSet[] { bset },
+                expected.toArray(new IBindingSet[0]));
+
+    }
+
+}
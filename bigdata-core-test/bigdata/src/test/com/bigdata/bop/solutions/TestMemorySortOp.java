@@ -27,6 +27,8 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.bop.solutions;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.FutureTask;
@@ -60,6 +62,8 @@ import com.bigdata.rdf.internal.constraints.MathBOp;
 import com.bigdata.rdf.internal.impl.TermId;
 import com.bigdata.rdf.internal.impl.literal.XSDNumericIV;
 import com.bigdata.rdf.model.BigdataLiteral;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValue;
 import com.bigdata.rdf.model.BigdataValueFactory;
 import com.bigdata.rdf.model.BigdataValueFactoryImpl;
 import com.bigdata.rdf.sparql.ast.GlobalAnnotations;
@@ -333,6 +337,249 @@ public class TestMemorySortOp extends TestCase2 {
         assertEquals ( 1, stats.chunksOut.get () ) ;
     }
 
+    /**
+     * Unit test for a top-k sort ({@link MemorySortOp.Annotations#LIMIT}). The
+     * source solutions arrive in several chunks so the buffered solutions are
+     * truncated before the last pass. The retained solutions must be the same
+     * as the first solutions of a full (stable) sort.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testLimit() 
+    {
+
+        final IVariable<IV> x = Var.var ( "x" ) ;
+        final IVariable<IV> y = Var.var ( "y" ) ;
+
+        final ISortOrder<?> sors[] = new ISortOrder[] { //
+                new SortOrder(x, true/*asc*/),//
+                };
+
+        final int sortOpId = 1;
+        
+        final MemorySortOp query = new MemorySortOp(new BOp[] {}, NV.asMap(new NV[] {
+                new NV(MemorySortOp.Annotations.BOP_ID, sortOpId),
+                new NV(MemorySortOp.Annotations.SORT_ORDER,sors),//
+                new NV(MemorySortOp.Annotations.VALUE_COMPARATOR, new IVComparator()),//
+                new NV(SliceOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(MemorySortOp.Annotations.MAX_PARALLEL, 1),//
+                new NV(PipelineOp.Annotations.REORDER_SOLUTIONS,false),//
+                new NV(MemorySortOp.Annotations.LAST_PASS, true),//
+                new NV(MemorySortOp.Annotations.LIMIT, 4L),//
+        }));
+
+        assertEquals(4L, query.getLimit());
+
+        //
+        // the test data: each value of x appears 3 times.
+        //
+        final IBindingSet data [][] = new IBindingSet [6][5];
+        for (int i = 0; i < 30; i++) {
+            data[i / 5][i % 5] = new ListBindingSet(new IVariable<?>[] { x, y },
+                    new IConstant[] {
+                            new Constant<IV>(new XSDNumericIV((i * 7) % 10)),
+                            new Constant<IV>(new XSDNumericIV(i)) });
+        }
+
+        //
+        // the expected solutions (ties are in the source order).
+        //
+        final IBindingSet expected [] = new IBindingSet []
+        {
+              new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { new Constant<IV>(new XSDNumericIV(0)), new Constant<IV>(new XSDNumericIV(0)) } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { new Constant<IV>(new XSDNumericIV(0)), new Constant<IV>(new XSDNumericIV(10)) } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { new Constant<IV>(new XSDNumericIV(0)), new Constant<IV>(new XSDNumericIV(20)) } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { new Constant<IV>(new XSDNumericIV(1)), new Constant<IV>(new XSDNumericIV(3)) } )
+        } ;
+
+        final BOpStats stats = query.newStats () ;
+
+        final IAsynchronousIterator<IBindingSet[]> source = new ThickAsynchronousIterator<IBindingSet[]>(
+                data);
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(
+                query, stats);
+
+        final UUID queryId = UUID.randomUUID();
+        final IQueryContext queryContext = new MockQueryContext(queryId);
+        final IRunningQuery runningQuery = new MockRunningQuery(null/* fed */
+        , null/* indexManager */,queryContext
+        );
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                runningQuery, -1/* partitionId */
+                , stats, query/* op */, true/* lastInvocation */, source, sink,
+                null/* sink2 */
+      );
+
+        final FutureTask<Void> ft = query.eval(context);
+        // Run the query.
+        {
+            final Thread t = new Thread() {
+                public void run() {
+                    ft.run();
+                }
+            };
+            t.setDaemon(true);
+            t.start();
+        }
+
+        // Check the solutions.
+        AbstractQueryEngineTestCase.assertSameSolutions(expected, sink.iterator(), ft);
+
+        assertEquals ( 6, stats.chunksIn.get () ) ;
+        assertEquals ( 30, stats.unitsIn.get () ) ;
+        assertEquals ( 4, stats.unitsOut.get () ) ;
+        assertEquals ( 1, stats.chunksOut.get () ) ;
+    }
+
+    /**
+     * Materializes {@link TermId}s from a map and counts the solutions which
+     * it was asked to materialize.
+     */
+    private static class MockMaterializer implements ISolutionMaterializer {
+
+        private static final long serialVersionUID = 1L;
+
+        @SuppressWarnings("rawtypes")
+        private final Map<IV, BigdataValue> values = new HashMap<IV, BigdataValue>();
+
+        private int nsolutions = 0;
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        @Override
+        public IBindingSet[] materialize(final BOpContext<IBindingSet> context,
+                final String namespace, final long timestamp,
+                final IVariable<?>[] vars, final IBindingSet[] chunk) {
+
+            for (IBindingSet bset : chunk) {
+                for (IVariable<?> v : vars) {
+                    final IConstant<?> c = bset.get(v);
+                    if (c != null && values.containsKey(c.get()))
+                        ((IV) c.get()).setValue(values.get(c.get()));
+                }
+            }
+
+            nsolutions += chunk.length;
+
+            return chunk;
+
+        }
+
+    }
+
+    /**
+     * Unit test for a top-k sort with a
+     * {@link MemorySortOp.Annotations#MATERIALIZER}. Once the buffer has been
+     * truncated, the retained solutions are IRIs, so the source solutions
+     * which are literals (whether inline or not) are dropped without being
+     * materialized.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testLimitWithMaterializer() 
+    {
+
+        final BigdataValueFactory f = BigdataValueFactoryImpl.getInstance(getName());
+
+        final MockMaterializer materializer = new MockMaterializer();
+
+        final IVariable<IV> x = Var.var ( "x" ) ;
+
+        final ISortOrder<?> sors[] = new ISortOrder[] { //
+                new SortOrder(x, true/*asc*/),//
+                };
+
+        final int sortOpId = 1;
+        
+        final MemorySortOp query = new MemorySortOp(new BOp[] {}, NV.asMap(new NV[] {
+                new NV(MemorySortOp.Annotations.BOP_ID, sortOpId),
+                new NV(MemorySortOp.Annotations.SORT_ORDER,sors),//
+                new NV(MemorySortOp.Annotations.VALUE_COMPARATOR, new IVComparator()),//
+                new NV(SliceOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(MemorySortOp.Annotations.MAX_PARALLEL, 1),//
+                new NV(PipelineOp.Annotations.REORDER_SOLUTIONS,false),//
+                new NV(MemorySortOp.Annotations.LAST_PASS, true),//
+                new NV(MemorySortOp.Annotations.LIMIT, 2L),//
+                new NV(MemorySortOp.Annotations.MATERIALIZER, materializer),//
+                new NV(MemorySortOp.Annotations.RELATION_NAME, new String[] { getName() }),//
+                new NV(MemorySortOp.Annotations.TIMESTAMP, ITx.READ_COMMITTED),//
+        }));
+
+        assertTrue(query.getMaterializer() == materializer);
+
+        //
+        // the test data: two IRIs in the first chunk, then only literals.
+        //
+        final IBindingSet data [][] = new IBindingSet [6][5];
+        for (int i = 0; i < 30; i++) {
+            final IV iv;
+            if (i == 1 || i == 3) {
+                iv = new TermId<BigdataURI>(VTE.URI, termId++);
+                materializer.values.put(iv, f.createURI("http://www.bigdata.com/" + (4 - i)));
+            } else if (i % 2 == 0) {
+                iv = new TermId<BigdataLiteral>(VTE.LITERAL, termId++);
+                materializer.values.put(iv, f.createLiteral("l" + i));
+            } else {
+                iv = new XSDNumericIV(i);
+            }
+            data[i / 5][i % 5] = new ListBindingSet(new IVariable<?>[] { x },
+                    new IConstant[] { new Constant<IV>(iv) });
+        }
+
+        //
+        // the expected solutions.
+        //
+        final IBindingSet expected [] = new IBindingSet []
+        {
+              data[0][3]
+            , data[0][1]
+        } ;
+
+        final BOpStats stats = query.newStats () ;
+
+        final IAsynchronousIterator<IBindingSet[]> source = new ThickAsynchronousIterator<IBindingSet[]>(
+                data);
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(
+                query, stats);
+
+        final UUID queryId = UUID.randomUUID();
+        final IQueryContext queryContext = new MockQueryContext(queryId);
+        final IRunningQuery runningQuery = new MockRunningQuery(null/* fed */
+        , null/* indexManager */,queryContext
+        );
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                runningQuery, -1/* partitionId */
+                , stats, query/* op */, true/* lastInvocation */, source, sink,
+                null/* sink2 */
+      );
+
+        final FutureTask<Void> ft = query.eval(context);
+        // Run the query.
+        {
+            final Thread t = new Thread() {
+                public void run() {
+                    ft.run();
+                }
+            };
+            t.setDaemon(true);
+            t.start();
+        }
+
+        // Check the solutions.
+        AbstractQueryEngineTestCase.assertSameSolutions(expected, sink.iterator(), ft);
+
+        // Only the first chunk was materialized.
+        assertEquals ( 5, materializer.nsolutions ) ;
+
+        assertEquals ( 6, stats.chunksIn.get () ) ;
+        assertEquals ( 30, stats.unitsIn.get () ) ;
+        assertEquals ( 2, stats.unitsOut.get () ) ;
+        assertEquals ( 1, stats.chunksOut.get () ) ;
+    }
+
     /**
      * Test with computed value expressions.
      * <p>
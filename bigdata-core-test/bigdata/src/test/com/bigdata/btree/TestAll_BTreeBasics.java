@@ -142,6 +142,9 @@ public class TestAll_BTreeBasics extends TestCase {
          * test index with raw record support enabled.
          */
         suite.addTestSuite(TestRawRecords.class);
+
+        // test record-level compression of nodes and leaves.
+        suite.addTestSuite(TestRecordCompression.class);
         
         /*
          * stress test join processing
@@ -155,6 +158,12 @@ public class TestAll_BTreeBasics extends TestCase {
         suite.addTestSuite(TestBloomFilter.class);
         suite.addTestSuite(TestBTreeWithBloomFilter.class);
 
+        // Test per-leaf xor filters for negative lookups.
+        suite.addTestSuite(TestLeafFilters.class);
+
+        // Test bottom-up builds of a mutable B+Tree from sorted data.
+        suite.addTestSuite(TestBTreeBulkBuilder.class);
+
         // Unit test for initialization of the B+Tree with non-default m.
         suite.addTestSuite(TestBTreeBranchingFactors.class);
         
@@ -0,0 +1,277 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.btree;
+
+import java.util.UUID;
+
+import org.apache.log4j.Level;
+
+import com.bigdata.btree.keys.TestKeyBuilder;
+import com.bigdata.rawstore.IRawStore;
+import com.bigdata.rawstore.SimpleMemoryRawStore;
+
+/**
+ * Unit tests for {@link BTreeBulkBuilder}.
+ */
+public class TestBTreeBulkBuilder extends AbstractBTreeTestCase {
+
+    public TestBTreeBulkBuilder() {
+    }
+
+    public TestBTreeBulkBuilder(final String name) {
+        super(name);
+    }
+
+    private BTree newBTree(final IRawStore store, final int m) {
+
+        final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+        metadata.setBranchingFactor(m);
+
+        return BTree.create(store, metadata);
+
+    }
+
+    private static byte[] val(final int i) {
+
+        return ("value-" + i).getBytes();
+
+    }
+
+    /**
+     * Build trees of various sizes, including the boundary cases where the
+     * last leaf (or node) must be rebalanced with its left sibling, and verify
+     * the tuples, the entry counts and the minimum fill after reloading the
+     * tree from its checkpoint.
+     */
+    public void test_build() {
+
+        final int[] sizes = new int[] { 1, 2, 3, 4, 5, 7, 9, 10, 27, 28, 29,
+                100, 1000, 10000 };
+
+        for (int m : new int[] { 3, 4, 32 }) {
+
+            for (int n : sizes) {
+
+                doBuildTest(m, n);
+
+            }
+
+        }
+
+    }
+
+    private void doBuildTest(final int m, final int n) {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final BTree btree = newBTree(store, m);
+
+            final BTreeBulkBuilder builder = new BTreeBulkBuilder(btree);
+
+            for (int i = 0; i < n; i++) {
+
+                builder.add(TestKeyBuilder.asSortKey(i), val(i));
+
+            }
+
+            assertEquals(n, builder.close());
+
+            assertEquals(n, btree.getEntryCount());
+
+            assertTrue(btree.needsCheckpoint());
+
+            final long addrCheckpoint = btree.writeCheckpoint();
+
+            final BTree actual = BTree.load(store, addrCheckpoint, true/* readOnly */);
+
+            final String msg = "m=" + m + ", n=" + n;
+
+            assertEquals(msg, n, actual.getEntryCount());
+
+            assertEquals(msg, n, actual.rangeCount());
+
+            assertEquals(msg, btree.getHeight(), actual.getHeight());
+
+            assertTrue(msg, actual.dump(Level.ERROR, System.err));
+
+            for (int i = 0; i < n; i++) {
+
+                final byte[] key = TestKeyBuilder.asSortKey(i);
+
+                assertEquals(msg, val(i), actual.lookup(key));
+
+                assertEquals(msg, i, actual.indexOf(key));
+
+            }
+
+            assertNull(msg, actual.lookup(TestKeyBuilder.asSortKey(n)));
+
+            // Verify the leaf count and that no leaf is under filled.
+            long nleaves = 0;
+
+            final BTree.LeafCursor cursor = actual.newLeafCursor(SeekEnum.First);
+
+            Leaf leaf = cursor.leaf();
+
+            while (leaf != null) {
+
+                if (actual.getHeight() > 0)
+                    assertTrue(msg, leaf.getKeyCount() >= actual.minChildren);
+
+                nleaves++;
+
+                leaf = cursor.next();
+
+            }
+
+            assertEquals(msg, actual.getLeafCount(), nleaves);
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+    /**
+     * The bulk built tree may be modified normally afterwards.
+     */
+    public void test_insertAfterBuild() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final BTree btree = newBTree(store, 4);
+
+            final BTreeBulkBuilder builder = new BTreeBulkBuilder(btree);
+
+            for (int i = 0; i < 1000; i += 2) {
+
+                builder.add(TestKeyBuilder.asSortKey(i), val(i));
+
+            }
+
+            builder.close();
+
+            for (int i = 1; i < 1000; i += 2) {
+
+                assertNull(btree.insert(TestKeyBuilder.asSortKey(i), val(i)));
+
+            }
+
+            assertEquals(1000, btree.getEntryCount());
+
+            assertTrue(btree.dump(Level.ERROR, System.err));
+
+            for (int i = 0; i < 1000; i++) {
+
+                assertEquals(val(i), btree.lookup(TestKeyBuilder.asSortKey(i)));
+
+            }
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+    /**
+     * Keys must be presented in strictly ascending order.
+     */
+    public void test_keyOrder() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final BTreeBulkBuilder builder = new BTreeBulkBuilder(newBTree(
+                    store, 3));
+
+            builder.add(TestKeyBuilder.asSortKey(1), val(1));
+
+            try {
+                builder.add(TestKeyBuilder.asSortKey(1), val(1));
+                fail("Expecting: " + IllegalArgumentException.class);
+            } catch (IllegalArgumentException ex) {
+                if (log.isInfoEnabled())
+                    log.info("Ignoring expected exception: " + ex);
+            }
+
+            try {
+                builder.add(TestKeyBuilder.asSortKey(0), val(0));
+                fail("Expecting: " + IllegalArgumentException.class);
+            } catch (IllegalArgumentException ex) {
+                if (log.isInfoEnabled())
+                    log.info("Ignoring expected exception: " + ex);
+            }
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+    /**
+     * The target {@link BTree} must be empty.
+     */
+    public void test_notEmpty() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final BTree btree = newBTree(store, 3);
+
+            btree.insert(TestKeyBuilder.asSortKey(1), val(1));
+
+            try {
+                new BTreeBulkBuilder(btree);
+                fail("Expecting: " + IllegalStateException.class);
+            } catch (IllegalStateException ex) {
+                if (log.isInfoEnabled())
+                    log.info("Ignoring expected exception: " + ex);
+            }
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+}
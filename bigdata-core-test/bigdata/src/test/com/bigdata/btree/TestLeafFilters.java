@@ -0,0 +1,210 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+
+package com.bigdata.btree;
+
+import java.util.Random;
+import java.util.UUID;
+
+import com.bigdata.btree.keys.TestKeyBuilder;
+import com.bigdata.btree.raba.ReadOnlyKeysRaba;
+import com.bigdata.rawstore.IRawStore;
+import com.bigdata.rawstore.SimpleMemoryRawStore;
+
+/**
+ * Unit tests for the per-leaf {@link XorFilter}s.
+ * 
+ * @see LeafFilterCache
+ * @see IndexMetadata.Options#LEAF_FILTER_CACHE_CAPACITY
+ */
+public class TestLeafFilters extends AbstractBTreeTestCase {
+
+    public TestLeafFilters() {
+    }
+
+    public TestLeafFilters(final String name) {
+        super(name);
+    }
+
+    /**
+     * The filter never rejects a key which was used to build it and has a low
+     * false positive rate.
+     */
+    public void test_xorFilter() {
+
+        final int n = 1000;
+
+        final byte[][] keys = new byte[n][];
+
+        for (int i = 0; i < n; i++) {
+
+            keys[i] = TestKeyBuilder.asSortKey(i * 2);
+
+        }
+
+        final XorFilter filter = XorFilter.create(new ReadOnlyKeysRaba(keys));
+
+        assertNotNull(filter);
+
+        for (int i = 0; i < n; i++) {
+
+            assertTrue(filter.contains(keys[i]));
+
+        }
+
+        int nfalsePos = 0;
+
+        for (int i = 0; i < 100000; i++) {
+
+            if (filter.contains(TestKeyBuilder.asSortKey(i * 2 + 1)))
+                nfalsePos++;
+
+        }
+
+        // expected rate is ~0.39%.
+        assertTrue("falsePos=" + nfalsePos, nfalsePos < 1000);
+
+    }
+
+    /**
+     * The filter can not be constructed for duplicate keys.
+     */
+    public void test_xorFilter_duplicateKeys() {
+
+        final byte[][] keys = new byte[][] { new byte[] { 1 },
+                new byte[] { 1 } };
+
+        assertNull(XorFilter.create(new ReadOnlyKeysRaba(keys)));
+
+    }
+
+    /**
+     * Point lookups for keys which are not in the index are rejected without
+     * reading the leaf once the leaf has been evicted.
+     */
+    public void test_negativeLookups() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final int n = 1000;
+
+            final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+            metadata.setBranchingFactor(64);
+
+            metadata.setLeafFilterCacheCapacity(1000);
+
+            final BTree btree = BTree.create(store, metadata);
+
+            for (int i = 0; i < n; i++) {
+
+                btree.insert(TestKeyBuilder.asSortKey(i * 2), new byte[] { 1 });
+
+            }
+
+            final long addrCheckpoint = btree.writeCheckpoint();
+
+            // A filter was built for each leaf as it was written.
+            assertEquals(btree.getLeafCount(), btree.getLeafFilterCache()
+                    .size());
+
+            final BTree btree2 = BTree.load(store, addrCheckpoint, true/* readOnly */);
+
+            // The capacity is persisted with the index metadata.
+            assertEquals(1000, btree2.getIndexMetadata()
+                    .getLeafFilterCacheCapacity());
+
+            // A new view starts with an empty cache.
+            assertEquals(0, btree2.getLeafFilterCache().size());
+
+            assertEquals(1, btree2.getHeight());
+
+            // Read each leaf.
+            for (int i = 0; i < n; i++) {
+
+                assertTrue(btree2.contains(TestKeyBuilder.asSortKey(i * 2)));
+
+            }
+
+            assertEquals(btree2.getLeafCount(), btree2.getLeafFilterCache()
+                    .size());
+
+            // Simulate the eviction of the leaves.
+            final Node root = (Node) btree2.getRoot();
+
+            for (int i = 0; i < root.childRefs.length; i++) {
+
+                root.childRefs[i] = null;
+
+            }
+
+            final BTreeCounters counters = btree2.getBtreeCounters();
+
+            final long leavesRead = counters.leavesRead.get();
+
+            final Random r = new Random();
+
+            final int nprobes = 1000;
+
+            for (int i = 0; i < nprobes; i++) {
+
+                final byte[] key = TestKeyBuilder.asSortKey(r.nextInt(n) * 2 + 1);
+
+                assertFalse(btree2.contains(key));
+
+                assertNull(btree2.lookup(key));
+
+            }
+
+            // Every probe is either rejected or is a false positive.
+            assertEquals(2 * nprobes, counters.leafFilterRejects.get()
+                    + counters.leafFilterFalsePos.get());
+
+            assertTrue(counters.leafFilterRejects.get() > nprobes);
+
+            assertTrue(counters.leavesRead.get() - leavesRead <= btree2
+                    .getLeafCount());
+
+            // Keys in the index are still found.
+            for (int i = 0; i < n; i++) {
+
+                assertTrue(btree2.contains(TestKeyBuilder.asSortKey(i * 2)));
+
+            }
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+}
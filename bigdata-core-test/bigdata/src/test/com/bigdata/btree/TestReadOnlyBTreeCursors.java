@@ -28,9 +28,13 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.btree;
 
+import java.util.Properties;
 import java.util.UUID;
 
 import com.bigdata.btree.AbstractBTreeTupleCursor.ReadOnlyBTreeTupleCursor;
+import com.bigdata.btree.keys.TestKeyBuilder;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
 import com.bigdata.rawstore.SimpleMemoryRawStore;
 
 /**
@@ -102,4 +106,90 @@ public class TestReadOnlyBTreeCursors extends AbstractBTreeCursorTestCase {
         
     }
     
+    /**
+     * Verify that forward and reverse scans visit the expected tuples when the
+     * cursor reads ahead the sibling leaves. No read pool is configured, so
+     * the leaves are read by the journal's own read ahead executor.
+     */
+    public void test_readAhead() {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.Transient.toString());
+
+        properties.setProperty(Journal.Options.READ_AHEAD_LEAVES, "3");
+
+        final Journal journal = new Journal(properties);
+
+        try {
+
+            assertNull(journal.getReadExecutor());
+
+            assertNotNull(journal.getReadAheadExecutor());
+
+            final IndexMetadata md = new IndexMetadata(UUID.randomUUID());
+
+            md.setBranchingFactor(4);
+
+            final BTree btree = BTree.create(journal, md);
+
+            final int n = 1000;
+
+            for (int i = 0; i < n; i++) {
+
+                btree.insert(i, "v" + i);
+
+            }
+
+            // Re-load so the leaves must be read from the store.
+            final BTree view = BTree.load(journal, btree.writeCheckpoint(),
+                    true/* readOnly */);
+
+            final int fromKey = 100, toKey = 900;
+
+            {
+                final ITupleCursor2<String> cursor = newCursor(view,
+                        IRangeQuery.DEFAULT, TestKeyBuilder.asSortKey(fromKey),
+                        TestKeyBuilder.asSortKey(toKey));
+
+                for (int i = fromKey; i < toKey; i++) {
+
+                    assertTrue(cursor.hasNext());
+
+                    assertEquals(new TestTuple<String>(i, "v" + i), cursor
+                            .next());
+
+                }
+
+                assertFalse(cursor.hasNext());
+            }
+
+            {
+                final ITupleCursor2<String> cursor = newCursor(view,
+                        IRangeQuery.DEFAULT, TestKeyBuilder.asSortKey(fromKey),
+                        TestKeyBuilder.asSortKey(toKey));
+
+                cursor.last();
+
+                for (int i = toKey - 2; i >= fromKey; i--) {
+
+                    assertTrue(cursor.hasPrior());
+
+                    assertEquals(new TestTuple<String>(i, "v" + i), cursor
+                            .prior());
+
+                }
+
+                assertFalse(cursor.hasPrior());
+            }
+
+        } finally {
+
+            journal.destroy();
+
+        }
+
+    }
+
 }
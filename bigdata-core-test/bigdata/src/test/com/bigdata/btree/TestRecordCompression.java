@@ -0,0 +1,205 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.btree;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+import com.bigdata.btree.keys.TestKeyBuilder;
+import com.bigdata.io.compression.DictionaryTrainer;
+import com.bigdata.io.compression.IRecordCompressorFactory;
+import com.bigdata.io.compression.LZ4RecordCompressorFactory;
+import com.bigdata.io.compression.RecordCompressor;
+import com.bigdata.rawstore.IRawStore;
+import com.bigdata.rawstore.SimpleMemoryRawStore;
+
+/**
+ * Unit tests for record-level compression of the nodes and leaves of a
+ * {@link BTree}.
+ * 
+ * @see IndexMetadata.Options#BTREE_RECORD_COMPRESSOR_FACTORY
+ */
+public class TestRecordCompression extends AbstractBTreeTestCase {
+
+    public TestRecordCompression() {
+    }
+
+    public TestRecordCompression(final String name) {
+        super(name);
+    }
+
+    private static final int N = 5000;
+
+    /**
+     * Compressed records are smaller on the store and the index may be read
+     * back from its checkpoint.
+     */
+    public void test_lz4() {
+
+        final long nplain = doRoundTripTest(null/* factory */);
+
+        final long nlz4 = doRoundTripTest(new LZ4RecordCompressorFactory());
+
+        assertTrue("plain=" + nplain + ", lz4=" + nlz4, nlz4 < nplain);
+
+    }
+
+    /**
+     * Variant using a dictionary trained on the coded leaves of the index.
+     */
+    public void test_lz4_dictionary() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        final BTree btree = newBTree(store, null/* factory */);
+
+        btree.writeCheckpoint();
+
+        // Sample the coded leaves.
+        final List<byte[]> samples = new LinkedList<byte[]>();
+
+        final BTree.LeafCursor cursor = btree.newLeafCursor(SeekEnum.First);
+
+        Leaf leaf = cursor.leaf();
+
+        while (leaf != null) {
+
+            samples.add(leaf.data().toByteArray());
+
+            leaf = cursor.next();
+
+        }
+
+        store.destroy();
+
+        final byte[] dict = DictionaryTrainer.train(samples, 8 * 1024);
+
+        assertTrue(dict.length > 0);
+
+        final long nlz4 = doRoundTripTest(new LZ4RecordCompressorFactory(
+                false/* highCompression */, null/* dictionary */));
+
+        final long ndict = doRoundTripTest(new LZ4RecordCompressorFactory(
+                true/* highCompression */, dict));
+
+        assertTrue("lz4=" + nlz4 + ", dict=" + ndict, ndict <= nlz4);
+
+    }
+
+    /**
+     * The deflate based {@link RecordCompressor} is also supported (it does
+     * not decompress into an exact fit buffer).
+     */
+    public void test_deflate() {
+
+        final long nplain = doRoundTripTest(null/* factory */);
+
+        final long ndeflate = doRoundTripTest(new DeflateFactory());
+
+        assertTrue("plain=" + nplain + ", deflate=" + ndeflate,
+                ndeflate < nplain);
+
+    }
+
+    private static class DeflateFactory implements
+            IRecordCompressorFactory<RecordCompressor>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public RecordCompressor getInstance() {
+            return new RecordCompressor(Deflater.BEST_SPEED);
+        }
+
+    }
+
+    private BTree newBTree(final IRawStore store,
+            final IRecordCompressorFactory<?> factory) {
+
+        final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+        metadata.setBranchingFactor(32);
+
+        metadata.setBtreeRecordCompressorFactory(factory);
+
+        final BTree btree = BTree.create(store, metadata);
+
+        for (int i = 0; i < N; i++) {
+
+            btree.insert(TestKeyBuilder.asSortKey(i), ("value-" + (i % 10))
+                    .getBytes());
+
+        }
+
+        return btree;
+
+    }
+
+    /**
+     * Build an index, checkpoint it, read it back and verify the tuples.
+     * 
+     * @return The #of bytes written for the nodes and leaves.
+     */
+    private long doRoundTripTest(
+            final IRecordCompressorFactory<?> factory) {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final BTree btree = newBTree(store, factory);
+
+            final long addrCheckpoint = btree.writeCheckpoint();
+
+            final long nbytes = btree.getBtreeCounters().bytesWritten.get();
+
+            final BTree btree2 = BTree.load(store, addrCheckpoint, true/* readOnly */);
+
+            assertEquals(N, btree2.rangeCount());
+
+            for (int i = 0; i < N; i++) {
+
+                assertEquals(("value-" + (i % 10)).getBytes(), btree2
+                        .lookup(TestKeyBuilder.asSortKey(i)));
+
+            }
+
+            return nbytes;
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+}
@@ -71,6 +71,9 @@ public class TestAll extends TestCase {
         // canonical huffman coding.
         suite.addTestSuite(TestCanonicalHuffmanRabaCoder.class);
 
+        // bit packed fixed length keys.
+        suite.addTestSuite(TestBitPackedRabaCoder.class);
+
         /*
          * Tests of conditional raba coders (one coder is used when there are LT
          * N entries, otherwise the other coder is used).
@@ -0,0 +1,156 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+
+package com.bigdata.btree.raba.codec;
+
+import java.util.Random;
+
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.btree.raba.IRaba;
+import com.bigdata.btree.raba.ReadOnlyKeysRaba;
+import com.bigdata.btree.raba.codec.FrontCodedRabaCoder.DefaultFrontCodedRabaCoder;
+import com.bigdata.io.AbstractFixedByteArrayBuffer;
+import com.bigdata.io.DataOutputBuffer;
+
+/**
+ * Test suite for the {@link BitPackedRabaCoder}.
+ */
+public class TestBitPackedRabaCoder extends AbstractRabaCoderTestCase {
+
+    public TestBitPackedRabaCoder() {
+    }
+
+    public TestBitPackedRabaCoder(final String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        rabaCoder = new BitPackedRabaCoder();
+
+    }
+
+    /**
+     * Generate ordered composite keys modeled on the statement index keys:
+     * three components, each a flags byte followed by a 64-bit term
+     * identifier.
+     */
+    private byte[][] getCompositeKeys(final int size) {
+
+        final Random r = new Random();
+
+        final KeyBuilder keyBuilder = new KeyBuilder(3 * 9);
+
+        final byte[][] a = new byte[size][];
+
+        long s = 12000L + r.nextInt(1000), p = 20L, o = 100000L;
+
+        for (int i = 0; i < size; i++) {
+
+            if (r.nextInt(10) == 0) {
+                s += 1 + r.nextInt(20);
+                p = 20L + r.nextInt(5);
+                o = 100000L;
+            } else if (r.nextInt(3) == 0) {
+                p += 1 + r.nextInt(5);
+                o = 100000L;
+            }
+
+            o += 1 + r.nextInt(100000);
+
+            a[i] = keyBuilder.reset()//
+                    .append((byte) 0x11).append(s)//
+                    .append((byte) 0x12).append(p)//
+                    .append((byte) 0x13).append(o)//
+                    .getKey();
+
+        }
+
+        return a;
+
+    }
+
+    /**
+     * Keys having a common length are bit packed, are more compact than the
+     * front coded representation, and may be searched in place.
+     */
+    public void test_compositeKeys() {
+
+        final IRaba expected = new ReadOnlyKeysRaba(getCompositeKeys(1024));
+
+        doRoundTripTest(rabaCoder, expected);
+
+        final AbstractFixedByteArrayBuffer packed = rabaCoder.encode(expected,
+                new DataOutputBuffer());
+
+        final AbstractFixedByteArrayBuffer frontCoded = DefaultFrontCodedRabaCoder.INSTANCE
+                .encode(expected, new DataOutputBuffer());
+
+        if (log.isInfoEnabled())
+            log.info("packed=" + packed.len() + ", frontCoded="
+                    + frontCoded.len());
+
+        // not the fallback coder.
+        assertEquals(0, packed.getByte(0));
+
+        assertTrue(packed.len() < frontCoded.len());
+
+        final ICodedRaba actual = rabaCoder.decode(packed);
+
+        for (int i = 0; i < expected.size(); i++) {
+
+            assertEquals(i, actual.search(expected.get(i)));
+
+        }
+
+    }
+
+    /**
+     * Keys with different lengths are coded by the fallback coder.
+     */
+    public void test_fallback() {
+
+        final byte[][] a = new byte[][] { new byte[] { 1, 2 },
+                new byte[] { 1, 2, 3 }, new byte[] { 4 } };
+
+        final IRaba expected = new ReadOnlyKeysRaba(a);
+
+        doRoundTripTest(rabaCoder, expected);
+
+        final AbstractFixedByteArrayBuffer data = rabaCoder.encode(expected,
+                new DataOutputBuffer());
+
+        // the fallback coder.
+        assertEquals(1, data.getByte(0));
+
+    }
+
+}
@@ -72,6 +72,9 @@ public class TestAll extends TestCase {
         // test suite for FileChannel IO utility class.
         suite.addTestSuite(TestFileChannelUtility.class);
 
+        // test suite for memory mapped reads on a backing file.
+        suite.addTestSuite(TestMappedFileReader.class);
+
         // test suite for FileLock and advisory locking class.
         suite.addTestSuite(TestFileLockUtility.class);
         
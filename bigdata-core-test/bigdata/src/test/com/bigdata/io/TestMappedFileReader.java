@@ -0,0 +1,205 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+
+package com.bigdata.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Test suite for {@link MappedFileReader}.
+ */
+public class TestMappedFileReader extends TestCase {
+
+    public TestMappedFileReader() {
+    }
+
+    public TestMappedFileReader(String name) {
+        super(name);
+    }
+
+    private File file;
+
+    private RandomAccessFile raf;
+
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        file = File.createTempFile(getName(), ".tmp");
+
+        raf = new RandomAccessFile(file, "rw");
+
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+
+        if (raf != null)
+            raf.close();
+
+        if (file != null && !file.delete())
+            file.deleteOnExit();
+
+        raf = null;
+
+        file = null;
+
+        super.tearDown();
+
+    }
+
+    /**
+     * Write some random bytes at the given offset.
+     */
+    private byte[] write(final Random r, final long offset, final int nbytes)
+            throws IOException {
+
+        final byte[] b = new byte[nbytes];
+
+        r.nextBytes(b);
+
+        FileChannelUtility.writeAll(raf.getChannel(), ByteBuffer.wrap(b),
+                offset);
+
+        return b;
+
+    }
+
+    /**
+     * Read <i>nbytes</i> from the mapping.
+     * 
+     * @return The bytes -or- <code>null</code> if they were not read from the
+     *         mapping.
+     */
+    private ByteBuffer read(final MappedFileReader reader, final long offset,
+            final int nbytes) {
+
+        final ByteBuffer dst = ByteBuffer.allocate(nbytes);
+
+        if (!reader.read(offset, dst)) {
+
+            // The caller's buffer is unchanged.
+            assertEquals(ByteBuffer.allocate(nbytes), dst);
+
+            return null;
+
+        }
+
+        // The position of the caller's buffer is unchanged.
+        assertEquals(0, dst.position());
+
+        return dst;
+
+    }
+
+    /**
+     * Verify reads against the data written on the file, including a read
+     * beyond the end of the file and a read which spans a segment.
+     */
+    public void test_read() throws IOException {
+
+        final Random r = new Random();
+
+        final MappedFileReader reader = new MappedFileReader(new NOPReopener(
+                raf), 1024/* segmentSize */);
+
+        final byte[] a = write(r, 0L, 100);
+
+        final byte[] b = write(r, 1500L, 200);
+
+        assertEquals(ByteBuffer.wrap(a), read(reader, 0L, 100));
+
+        assertEquals(ByteBuffer.wrap(b), read(reader, 1500L, 200));
+
+        // Beyond the end of the file.
+        assertNull(read(reader, 1700L, 10));
+
+        // Spans a segment boundary.
+        assertNull(read(reader, 1000L, 100));
+
+        // The file is remapped when it is extended.
+        final int nremap = reader.getRemapCount();
+
+        final byte[] c = write(r, 4000L, 50);
+
+        assertEquals(ByteBuffer.wrap(c), read(reader, 4000L, 50));
+
+        assertEquals(nremap + 1, reader.getRemapCount());
+
+        assertEquals(4050L, reader.getExtent());
+
+        reader.clear();
+
+    }
+
+    /**
+     * Verify that the mapping is discarded by {@link MappedFileReader#clear()}
+     * so the file can be truncated and that the truncated file is remapped on
+     * demand.
+     */
+    public void test_clear_truncate() throws IOException {
+
+        final Random r = new Random();
+
+        final MappedFileReader reader = new MappedFileReader(new NOPReopener(
+                raf), 1024/* segmentSize */);
+
+        final byte[] a = write(r, 0L, 100);
+
+        write(r, 3000L, 100);
+
+        assertEquals(ByteBuffer.wrap(a), read(reader, 0L, 100));
+
+        assertEquals(3100L, reader.getExtent());
+
+        reader.clear();
+
+        assertEquals(0L, reader.getExtent());
+
+        raf.setLength(1500L);
+
+        // Beyond the end of the truncated file.
+        assertNull(read(reader, 3000L, 100));
+
+        // Remapped against the truncated file.
+        assertEquals(ByteBuffer.wrap(a), read(reader, 0L, 100));
+
+        assertEquals(1500L, reader.getExtent());
+
+        reader.clear();
+
+    }
+
+}
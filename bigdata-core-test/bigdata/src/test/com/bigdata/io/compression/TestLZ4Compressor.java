@@ -0,0 +1,207 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.io.compression;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.bigdata.io.SerializerUtil;
+
+/**
+ * Test suite for the {@link LZ4Compressor} (default match finder, no
+ * dictionary), plus tests for the high compression match finder and for
+ * dictionaries built by the {@link DictionaryTrainer}.
+ */
+public class TestLZ4Compressor extends AbstractRecordCompressorTestCase {
+
+    public TestLZ4Compressor() {
+    }
+
+    public TestLZ4Compressor(final String name) {
+        super(name);
+    }
+
+    @Override
+    public IRecordCompressor getInstance() {
+
+        return new LZ4Compressor();
+
+    }
+
+    /**
+     * Highly redundant data must compress (including overlapping matches) and
+     * must round trip for both match finders.
+     */
+    public void test_redundantData() {
+
+        final byte[] expected = new byte[20000];
+
+        for (int i = 0; i < expected.length; i++) {
+
+            expected[i] = (byte) (i % 13 == 0 ? 'x' : 'a');
+
+        }
+
+        for (boolean hc : new boolean[] { false, true }) {
+
+            final int n = doCompressionTest(new LZ4Compressor(hc, null),
+                    expected, 0, expected.length);
+
+            assertTrue("hc=" + hc + ", n=" + n, n < expected.length / 10);
+
+        }
+
+    }
+
+    /**
+     * The high compression match finder must not do worse than the default
+     * match finder.
+     */
+    public void test_highCompression() {
+
+        final byte[] expected = getTextRecord(1, 50000);
+
+        final int n1 = doCompressionTest(new LZ4Compressor(false, null),
+                expected, 0, expected.length);
+
+        final int n2 = doCompressionTest(new LZ4Compressor(true, null),
+                expected, 0, expected.length);
+
+        assertTrue("fast=" + n1 + ", hc=" + n2, n2 <= n1);
+
+    }
+
+    /**
+     * A dictionary trained on similar records improves the compression of a
+     * small record, and the compressor (with its dictionary) may be
+     * (de-)serialized.
+     */
+    public void test_dictionary() {
+
+        final List<byte[]> samples = new LinkedList<byte[]>();
+
+        for (int i = 0; i < 200; i++) {
+
+            samples.add(getTextRecord(i, 256));
+
+        }
+
+        final byte[] dict = DictionaryTrainer.train(samples, 4096);
+
+        assertTrue(dict.length > 0);
+
+        assertTrue(dict.length <= 4096);
+
+        final byte[] expected = getTextRecord(1000, 256);
+
+        final int n0 = doCompressionTest(new LZ4Compressor(false, null),
+                expected, 0, expected.length);
+
+        for (boolean hc : new boolean[] { false, true }) {
+
+            final LZ4Compressor c = new LZ4Compressor(hc, dict);
+
+            final int n1 = doCompressionTest(c, expected, 0, expected.length);
+
+            assertTrue("hc=" + hc + ", without=" + n0 + ", with=" + n1,
+                    n1 < n0);
+
+            final LZ4Compressor c2 = (LZ4Compressor) SerializerUtil
+                    .deserialize(SerializerUtil.serialize(c));
+
+            assertEquals(dict, c2.getDictionary());
+
+            assertEquals(hc, c2.isHighCompression());
+
+            // Compressed by one instance, decompressed by the other.
+            final ByteBuffer compressed = c.compress(ByteBuffer.wrap(expected));
+
+            assertEquals(expected, c2.decompress(compressed).array());
+
+        }
+
+    }
+
+    /**
+     * The factory shares one compressor and (de-)serializes its dictionary.
+     */
+    public void test_factory() {
+
+        final byte[] dict = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+
+        final LZ4RecordCompressorFactory f = new LZ4RecordCompressorFactory(
+                true, dict);
+
+        assertTrue(f.getInstance() == f.getInstance());
+
+        final LZ4RecordCompressorFactory f2 = (LZ4RecordCompressorFactory) SerializerUtil
+                .deserialize(SerializerUtil.serialize(f));
+
+        assertTrue(f2.getInstance().isHighCompression());
+
+        assertEquals(dict, f2.getInstance().getDictionary());
+
+        assertTrue(new LZ4HCRecordCompressorFactory().getInstance()
+                .isHighCompression());
+
+        assertFalse(new LZ4RecordCompressorFactory().getInstance()
+                .isHighCompression());
+
+    }
+
+    /**
+     * Return a record which resembles a coded leaf of an RDF index, having a
+     * lot of structure in common with other such records.
+     */
+    private static byte[] getTextRecord(final int seed, final int len) {
+
+        final StringBuilder sb = new StringBuilder();
+
+        int i = seed;
+
+        while (sb.length() < len) {
+
+            sb.append("<http://www.example.org/resource/").append(i % 97)
+                    .append("> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> ");
+
+            i = i * 31 + 7;
+
+        }
+
+        final byte[] b = new byte[len];
+
+        final byte[] a = sb.toString().getBytes();
+
+        System.arraycopy(a, 0, b, 0, len);
+
+        return b;
+
+    }
+
+}
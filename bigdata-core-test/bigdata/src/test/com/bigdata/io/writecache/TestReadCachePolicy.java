@@ -0,0 +1,199 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.io.writecache;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Test suite for the {@link FrequencySketch} and the
+ * {@link CompressedReadCache} used by the {@link WriteCacheService} read
+ * cache.
+ */
+public class TestReadCachePolicy extends TestCase {
+
+    public TestReadCachePolicy() {
+    }
+
+    public TestReadCachePolicy(final String name) {
+        super(name);
+    }
+
+    /**
+     * Records which are touched repeatedly have a higher estimated frequency
+     * than records touched once and the estimate saturates at 15.
+     */
+    public void test_sketch_frequency() {
+
+        final FrequencySketch sketch = new FrequencySketch(1024);
+
+        assertEquals(0, sketch.frequency(8192L));
+
+        for (int i = 0; i < 5; i++) {
+            sketch.increment(8192L);
+        }
+
+        sketch.increment(16384L);
+
+        assertTrue(sketch.frequency(8192L) >= 5);
+
+        assertTrue(sketch.frequency(16384L) >= 1);
+
+        assertTrue(sketch.frequency(8192L) > sketch.frequency(16384L));
+
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(8192L);
+        }
+
+        assertEquals(15, sketch.frequency(8192L));
+
+        sketch.clear();
+
+        assertEquals(0, sketch.frequency(8192L));
+
+    }
+
+    /**
+     * A scan which touches each record once must not age out a record which
+     * was touched repeatedly to a frequency below the estimate for the
+     * scanned records.
+     */
+    public void test_sketch_scanResistance() {
+
+        // sized for the working set plus the scan.
+        final FrequencySketch sketch = new FrequencySketch(32768);
+
+        for (int i = 0; i < 10; i++) {
+            sketch.increment(4096L);
+        }
+
+        for (long offset = 1 << 20; offset < (1 << 20) + 8192 * 128; offset += 128) {
+            sketch.increment(offset);
+        }
+
+        // One pass over the scanned records.
+        int nadmit = 0;
+        for (long offset = 1 << 20; offset < (1 << 20) + 8192 * 128; offset += 128) {
+            if (sketch.frequency(offset) >= 2)
+                nadmit++;
+        }
+
+        // Most scanned records are not admitted at a threshold of 2.
+        assertTrue("nadmit=" + nadmit, nadmit < 8192 / 2);
+
+        // The hot record is still admitted.
+        assertTrue(sketch.frequency(4096L) >= 2);
+
+    }
+
+    /**
+     * Records are returned as written, are invalidated by offset, and the
+     * least recently used records are evicted when the tier is full.
+     */
+    public void test_compressedCache() {
+
+        final int nbytes = 1024;
+
+        final CompressedReadCache cache = new CompressedReadCache(8 * nbytes);
+
+        cache.put(0L, record(0, nbytes));
+
+        assertEquals(1, cache.size());
+
+        assertTrue(cache.bytes() > 0);
+
+        // get() does not remove the record.
+        assertEquals(record(0, nbytes), cache.get(0L, nbytes));
+
+        assertEquals(1, cache.size());
+
+        // A different length is not the same record.
+        assertNull(cache.get(0L, nbytes + 4));
+
+        // remove() removes the record.
+        assertEquals(record(0, nbytes), cache.remove(0L, nbytes));
+
+        assertEquals(0, cache.size());
+
+        assertEquals(0L, cache.bytes());
+
+        assertNull(cache.remove(0L, nbytes));
+
+        cache.put(8192L, record(1, nbytes));
+
+        cache.clear(8192L);
+
+        assertNull(cache.get(8192L, nbytes));
+
+        /*
+         * Fill well past the capacity with incompressible records and verify
+         * that the tier stays within its bound.
+         */
+        final Random r = new Random(1);
+
+        for (int i = 0; i < 100; i++) {
+
+            final byte[] b = new byte[nbytes];
+
+            r.nextBytes(b);
+
+            cache.put(i * (long) nbytes, ByteBuffer.wrap(b));
+
+        }
+
+        assertTrue(cache.bytes() <= 8 * nbytes);
+
+        // The most recently used record is retained.
+        assertNotNull(cache.get(99L * nbytes, nbytes));
+
+        // The least recently used record was evicted.
+        assertNull(cache.get(0L, nbytes));
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+
+    }
+
+    private static ByteBuffer record(final int seed, final int nbytes) {
+
+        final byte[] b = new byte[nbytes];
+
+        for (int i = 0; i < nbytes; i++) {
+
+            b[i] = (byte) (seed + (i % 7));
+
+        }
+
+        return ByteBuffer.wrap(b);
+
+    }
+
+}
@@ -81,6 +81,7 @@ import com.bigdata.quorum.Quorum;
 import com.bigdata.quorum.QuorumActor;
 import com.bigdata.quorum.QuorumMember;
 import com.bigdata.util.Bytes;
+import com.bigdata.util.InnerCause;
 
 /**
  * Test suite for the {@link WriteCacheService} using pure append writes.
@@ -906,6 +907,140 @@ public class TestWORMWriteCacheService extends TestCase3 {
 
     }
     
+    /**
+     * An error thrown by one of the concurrent writers
+     * ({@link com.bigdata.journal.Options#WRITE_CACHE_WRITER_COUNT}) while the
+     * other writers in the same batch are running must halt the service and
+     * be reported by {@link WriteCacheService#flush(boolean)}.
+     */
+    public void test_writeCacheService_WORM_concurrentWriters_writerError()
+            throws InterruptedException, IOException {
+
+        final int nbuffers = 6;
+        final int writerCount = 3;
+        final int nrecs = 100;
+        final int reclen = 64 * Bytes.kilobyte32;
+
+        final AtomicInteger nwriterCalls = new AtomicInteger();
+        final AtomicInteger ninjected = new AtomicInteger();
+        final AtomicInteger armed = new AtomicInteger();
+
+        final File file = File.createTempFile(getName(), ".WORM.tmp");
+
+        final ReopenFileChannel opener = new ReopenFileChannel(file, "rw") {
+
+            @Override
+            public FileChannel reopenChannel() throws IOException {
+                if (armed.get() != 0) {
+                    if (Thread.currentThread().getName()
+                            .contains("writerService")) {
+                        // Fail the 2nd write made by a concurrent writer.
+                        if (nwriterCalls.incrementAndGet() == 2) {
+                            ninjected.incrementAndGet();
+                            throw new InjectedWriterError();
+                        }
+                    } else {
+                        // Slow the serial writer so dirty buffers pile up.
+                        try {
+                            Thread.sleep(100/* ms */);
+                        } catch (InterruptedException ex) {
+                            throw new RuntimeException(ex);
+                        }
+                    }
+                }
+                return super.reopenChannel();
+            }
+
+        };
+
+        WriteCacheService writeCacheService = null;
+        try {
+
+            // Pre-extend the file (see doStressTest()).
+            opener.truncate((long) nrecs * reclen);
+
+            writeCacheService = new WriteCacheService(nbuffers,
+                    0/* minCleanListSize */, 0/* nreadBuffers */,
+                    false/* prefixWrites */, 100/* compactionThreshold */,
+                    0/* hotCacheSize */, 1/* hotCacheThreshold */,
+                    false/* useChecksum */, opener.reopenChannel().size(),
+                    opener, null/* quorum */, null/* reader */, writerCount) {
+
+                @Override
+                public WriteCache newWriteCache(final IBufferAccess buf,
+                        final boolean useChecksum, final boolean bufferHasData,
+                        final IReopenChannel<? extends Channel> opener,
+                        final long fileExtent) throws InterruptedException {
+
+                    return new FileChannelWriteCache(0/* baseOffset */, buf,
+                            useChecksum, false/* isHighlyAvailable */,
+                            bufferHasData,
+                            (IReopenChannel<FileChannel>) opener, fileExtent);
+
+                }
+
+            };
+
+            final byte[] a = new byte[reclen];
+
+            new Random().nextBytes(a);
+
+            armed.set(1);
+
+            try {
+
+                for (int i = 0; i < nrecs; i++) {
+
+                    writeCacheService.write((long) i * reclen, ByteBuffer
+                            .wrap(a), 0/* chk */);
+
+                }
+
+                writeCacheService.flush(true/* force */);
+
+                fail("Expecting: " + InjectedWriterError.class);
+
+            } catch (Throwable t) {
+
+                if (!InnerCause.isInnerCause(t, InjectedWriterError.class))
+                    fail("Expecting: " + InjectedWriterError.class, t);
+
+            }
+
+            assertEquals(1, ninjected.get());
+
+            // The service stays halted.
+            try {
+                writeCacheService.flush(true/* force */);
+                fail("Expecting: " + InjectedWriterError.class);
+            } catch (RuntimeException ex) {
+                if (!InnerCause.isInnerCause(ex, InjectedWriterError.class))
+                    fail("Expecting: " + InjectedWriterError.class, ex);
+            }
+
+        } finally {
+
+            armed.set(0);
+
+            if (writeCacheService != null)
+                writeCacheService.close();
+
+            opener.destroy();
+
+        }
+
+    }
+
+    /**
+     * Thrown by a concurrent writer in
+     * {@link #test_writeCacheService_WORM_concurrentWriters_writerError()}.
+     */
+    private static class InjectedWriterError extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+    }
+
     /**
      * A test of the write pipeline driving from the {@link WriteCacheService}
      * of the leader using a quorum with k := 3, 2 running services, one buffer,
@@ -29,7 +29,9 @@ package com.bigdata.journal;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Properties;
+import java.util.Random;
 
 import junit.extensions.proxy.ProxyTestSuite;
 import junit.framework.Test;
@@ -194,6 +196,66 @@ public class TestWORMStrategy extends AbstractJournalTestCase {
 
     }
 
+    /**
+     * Unit test writes enough records to fill several write cache buffers with
+     * concurrent writers ({@link Options#WRITE_CACHE_WRITER_COUNT}) and commits
+     * while batches of those buffers are still being written. The commit must
+     * wait for those writes, so every record is found on the disk after a
+     * restart.
+     */
+    public void test_concurrentWriters_commit() {
+
+        final Properties properties = new Properties(getProperties());
+
+        properties.setProperty(Options.WRITE_CACHE_WRITER_COUNT, "4");
+
+        Journal journal = new Journal(properties);
+
+        try {
+
+            final Random r = new Random();
+
+            final int nrounds = 10;
+
+            final int n = 500;
+
+            final long[] addrs = new long[nrounds * n];
+
+            final byte[][] data = new byte[nrounds * n][];
+
+            for (int round = 0; round < nrounds; round++) {
+
+                for (int i = round * n; i < (round + 1) * n; i++) {
+
+                    data[i] = new byte[1 + r.nextInt(8000)];
+
+                    r.nextBytes(data[i]);
+
+                    addrs[i] = journal.write(ByteBuffer.wrap(data[i]));
+
+                }
+
+                // Commit while the dirty buffers are being written.
+                journal.commit();
+
+            }
+
+            journal = reopenStore(journal);
+
+            for (int i = 0; i < data.length; i++) {
+
+                assertEquals(ByteBuffer.wrap(data[i]), journal.read(addrs[i]));
+
+            }
+
+        } finally {
+
+            journal.destroy();
+
+        }
+
+    }
+
     /**
      * Test suite integration for {@link AbstractRestartSafeTestCase}.
      * 
@@ -30,8 +30,10 @@ package com.bigdata.rwstore;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 import java.util.Random;
 import java.util.TreeMap;
@@ -62,6 +64,9 @@ import com.bigdata.journal.CommitRecordIndex;
 import com.bigdata.journal.CommitRecordSerializer;
 import com.bigdata.journal.ICommitRecord;
 import com.bigdata.journal.IRootBlockView;
+import com.bigdata.journal.ISnapshotFactory;
+import com.bigdata.journal.ISnapshotResult;
+import com.bigdata.journal.IncrementalSnapshotRestore;
 import com.bigdata.journal.Journal;
 import com.bigdata.journal.Journal.Options;
 import com.bigdata.journal.RWStrategy;
@@ -2762,6 +2767,523 @@ public class TestRWJournal extends AbstractJournalTestCase {
             }
 		}
 
+        /**
+         * Verify that an online compaction releases the trailing allocation
+         * blocks which were emptied while they were evacuated, that the
+         * backing file is truncated and that the remaining records may be read
+         * after a restart.
+         */
+		public void test_evacuation() {
+			final Properties properties = new Properties(getProperties());
+
+			// The deleted records are released immediately.
+			properties.setProperty(AbstractTransactionService.Options.MIN_RELEASE_AGE, "0");
+
+			Journal store = getStore(properties);
+            try {
+
+            	RWStrategy bs = (RWStrategy) store.getBufferStrategy();
+
+            	final ByteBuffer data0 = randomData(78);
+
+            	final long addr0 = bs.write(data0);
+
+            	// Enough 8K slots to take several allocation blocks.
+            	final int n = 500;
+
+            	final long[] addrs = new long[n];
+
+            	final ByteBuffer[] data = new ByteBuffer[n];
+
+            	for (int i = 0; i < n; i++) {
+            		data[i] = randomData(6000);
+            		addrs[i] = bs.write(data[i]);
+            	}
+
+            	store.commit();
+
+            	// Only the first block of that allocator is still used.
+            	for (int i = 1; i < n; i++) {
+            		bs.delete(addrs[i]);
+            	}
+
+            	store.commit();
+
+            	final long extent = bs.getExtent();
+
+            	final RWStore rw = bs.getStore();
+
+            	assertTrue(rw.beginEvacuation(0.5f) > 0);
+
+            	try {
+            		rw.beginEvacuation(0.5f);
+            		fail("Expecting: " + IllegalStateException.class);
+            	} catch (IllegalStateException ex) {
+            		// expected
+            	}
+
+            	assertFalse(bs.isEvacuating(addr0));
+
+            	assertFalse(bs.isEvacuating(addrs[0]));
+
+            	// The empty blocks are released by the next commit.
+            	for (int i = 0; i < 4 && rw.getEvacuationCount() > 0; i++) {
+            		store.commit();
+            	}
+
+            	assertEquals(0, rw.getEvacuationCount());
+
+            	rw.endEvacuation();
+
+            	assertTrue(bs.getExtent() < extent);
+
+            	assertEquals(data0, bs.read(addr0));
+
+            	assertEquals(data[0], bs.read(addrs[0]));
+
+            	store = (Journal) reopenStore(store);
+
+            	bs = (RWStrategy) store.getBufferStrategy();
+
+            	assertEquals(data0, bs.read(addr0));
+
+            	assertEquals(data[0], bs.read(addrs[0]));
+
+            	// The released blocks are allocated again at the end of the heap.
+            	for (int i = 1; i < n; i++) {
+            		addrs[i] = bs.write(data[i]);
+            	}
+
+            	store.commit();
+
+            	for (int i = 0; i < n; i++) {
+            		assertEquals(data[i], bs.read(addrs[i]));
+            	}
+
+            } finally {
+            	store.destroy();
+            }
+		}
+
+        /**
+         * Verify that only allocators holding historical data are migrated to
+         * the cold tier, that they are read from that tier (including by a
+         * digest and a snapshot, which restores as a single tier store), that
+         * the tier map survives a restart and that the vacated regions of the
+         * backing file may be reused without corrupting the cold records.
+         */
+		public void test_coldTier() throws Exception {
+			final File coldFile = File.createTempFile(getName(), ".cold");
+
+			final Properties properties = new Properties(getProperties());
+
+			properties.setProperty(RWStore.Options.COLD_TIER_FILE, coldFile.toString());
+
+			// Only the allocators which hold historical data are migrated.
+			properties.setProperty(AbstractTransactionService.Options.MIN_RELEASE_AGE, "3600000");
+
+			Journal store = getStore(properties);
+
+			final List<File> files = new ArrayList<File>();
+            try {
+
+            	RWStrategy bs = (RWStrategy) store.getBufferStrategy();
+
+            	// Enough records to fill several allocators.
+            	final int n = 20000;
+
+            	final long[] addrs = new long[n];
+
+            	final ByteBuffer[] data = new ByteBuffer[n];
+
+            	for (int i = 0; i < n; i++) {
+            		data[i] = randomData(100);
+            		addrs[i] = bs.write(data[i]);
+            	}
+
+            	store.commit();
+
+            	// The records are part of the current state.
+            	assertEquals(0, store.migrateColdAllocators().get().intValue());
+
+            	assertFalse(bs.isCold(addrs[0]));
+
+            	// The records remain readable from the last commit point.
+            	for (int i = 0; i < n; i++) {
+            		bs.delete(addrs[i]);
+            	}
+
+            	store.commit();
+
+            	// The 2nd pass picks up any allocator read by the commit.
+            	store.migrateColdAllocators().get();
+            	store.migrateColdAllocators().get();
+
+            	assertTrue(bs.isCold(addrs[0]));
+
+            	for (int i = 0; i < n; i++) {
+            		assertEquals(data[i], bs.read(addrs[i]));
+            	}
+
+            	// The digest covers the cold tier.
+            	bs.computeDigest(null/* snapshot */, MessageDigest.getInstance("MD5"));
+
+            	// The snapshot includes the cold tier.
+            	final ISnapshotResult full = store.snapshot(
+            			new SnapshotFactory(getName(), false/* compress */, files)).get();
+
+            	final Properties p = new Properties(getProperties());
+
+            	p.setProperty(Options.CREATE_TEMP_FILE, "false");
+
+            	p.setProperty(Options.FILE, full.getFile().toString());
+
+            	final Journal restored = new Journal(p);
+            	try {
+
+            		final RWStrategy rbs = (RWStrategy) restored.getBufferStrategy();
+
+            		assertFalse(rbs.isCold(addrs[0]));
+
+            		for (int i = 0; i < n; i++) {
+            			assertEquals(data[i], rbs.read(addrs[i]));
+            		}
+
+            	} finally {
+            		restored.destroy();
+            	}
+
+            	// New allocations are never made against a cold allocator.
+            	assertFalse(bs.isCold(bs.write(randomData(100))));
+
+            	for (int i = 0; i < n; i++) {
+            		assertEquals(data[i], bs.read(addrs[i]));
+            	}
+
+            	// Commit the tier map and then release the vacated regions.
+            	for (int i = 0; i < 3; i++) {
+            		bs.write(randomData(100));
+            		store.commit();
+            	}
+
+            	store = reopenStore(store, coldFile);
+
+            	bs = (RWStrategy) store.getBufferStrategy();
+
+            	assertTrue(bs.isCold(addrs[0]));
+
+            	// New allocations may reuse the vacated regions.
+            	final long[] addrs2 = new long[n];
+
+            	final ByteBuffer[] data2 = new ByteBuffer[n];
+
+            	for (int i = 0; i < n; i++) {
+            		data2[i] = randomData(100);
+            		addrs2[i] = bs.write(data2[i]);
+            	}
+
+            	store.commit();
+
+            	store = reopenStore(store, coldFile);
+
+            	bs = (RWStrategy) store.getBufferStrategy();
+
+            	for (int i = 0; i < n; i++) {
+            		assertEquals(data[i], bs.read(addrs[i]));
+            		assertEquals(data2[i], bs.read(addrs2[i]));
+            	}
+
+            } finally {
+            	store.destroy();
+            	for (File f : files) {
+            		f.delete();
+            	}
+            }
+
+            assertFalse(coldFile.exists());
+		}
+
+		/**
+		 * With concurrent writers, a slot which is recycled before the commit
+		 * is written by a later buffer than the record it replaced while the
+		 * earlier buffer may still be dirty or in flight. Only the latest
+		 * record may be found on the disk after a restart.
+		 */
+		public void test_concurrentWriters_recycledSlots() {
+			final Properties properties = new Properties(getProperties());
+
+			properties.setProperty(AbstractTransactionService.Options.MIN_RELEASE_AGE, "0");
+
+			properties.setProperty(Options.WRITE_CACHE_WRITER_COUNT, "4");
+
+			Journal store = getStore(properties);
+            try {
+
+            	RWStrategy bs = (RWStrategy) store.getBufferStrategy();
+
+            	final int nrounds = 50;
+
+            	final long[] addrs = new long[nrounds];
+
+            	final ByteBuffer[] data = new ByteBuffer[nrounds];
+
+            	final List<Long> fillAddrs = new ArrayList<Long>();
+
+            	final List<ByteBuffer> fillData = new ArrayList<ByteBuffer>();
+
+            	int nrecycled = 0;
+
+            	for (int i = 0; i < nrounds; i++) {
+            		final long addr = bs.write(randomData(2000));
+
+            		// Fill the current buffer so the record is in a dirty buffer.
+            		for (int j = 0; j < 150; j++) {
+            			final ByteBuffer b = randomData(7000);
+            			fillAddrs.add(bs.write(b));
+            			fillData.add(b);
+            		}
+
+            		// Not committed, so the slot is recycled immediately.
+            		bs.delete(addr);
+
+            		data[i] = randomData(2000);
+            		addrs[i] = bs.write(data[i]);
+
+            		if (bs.getPhysicalAddress(addrs[i]) == bs.getPhysicalAddress(addr))
+            			nrecycled++;
+            	}
+
+            	assertTrue(nrecycled > 0);
+
+            	store.commit();
+
+            	store = (Journal) reopenStore(store);
+
+            	bs = (RWStrategy) store.getBufferStrategy();
+
+            	for (int i = 0; i < nrounds; i++) {
+            		assertEquals(data[i], bs.read(addrs[i]));
+            	}
+
+            	for (int i = 0; i < fillAddrs.size(); i++) {
+            		assertEquals(fillData.get(i), bs.read(fillAddrs.get(i)));
+            	}
+
+            } finally {
+            	store.destroy();
+            }
+		}
+
+		/**
+		 * With concurrent writers, each commit races the batches of dirty
+		 * buffers which are still being written. The commit must wait for
+		 * those writes, so every committed record is found on the disk after
+		 * a restart and the deleted records do not interfere.
+		 */
+		public void test_concurrentWriters_commit() {
+			final Properties properties = new Properties(getProperties());
+
+			properties.setProperty(AbstractTransactionService.Options.MIN_RELEASE_AGE, "0");
+
+			properties.setProperty(Options.WRITE_CACHE_WRITER_COUNT, "4");
+
+			Journal store = getStore(properties);
+            try {
+
+            	RWStrategy bs = (RWStrategy) store.getBufferStrategy();
+
+            	final int nrounds = 10;
+
+            	final int n = 500;
+
+            	final long[] addrs = new long[nrounds * n];
+
+            	final ByteBuffer[] data = new ByteBuffer[nrounds * n];
+
+            	for (int round = 0; round < nrounds; round++) {
+            		for (int i = round * n; i < (round + 1) * n; i++) {
+            			data[i] = randomData(1 + r.nextInt(8000));
+            			addrs[i] = bs.write(data[i]);
+            		}
+
+            		// Free some of the records of the previous round.
+            		for (int i = (round - 1) * n; round > 0 && i < round * n; i += 3) {
+            			bs.delete(addrs[i]);
+            			data[i] = null;
+            		}
+
+            		// Commit while the dirty buffers are being written.
+            		store.commit();
+            	}
+
+            	store = (Journal) reopenStore(store);
+
+            	bs = (RWStrategy) store.getBufferStrategy();
+
+            	for (int i = 0; i < data.length; i++) {
+            		if (data[i] != null)
+            			assertEquals(data[i], bs.read(addrs[i]));
+            	}
+
+            } finally {
+            	store.destroy();
+            }
+		}
+
+		/**
+		 * A chain of incremental snapshots applied to a full snapshot restores
+		 * the journal as of the last incremental snapshot.
+		 */
+		public void test_incrementalSnapshot() throws Exception {
+			final File changeLogFile = File.createTempFile(getName(), ".log");
+
+			final Properties properties = new Properties(getProperties());
+
+			properties.setProperty(RWStore.Options.CHANGE_LOG_FILE, changeLogFile.toString());
+
+			final List<File> files = new ArrayList<File>();
+
+			final Journal store = getStore(properties);
+            try {
+
+            	final RWStrategy bs = (RWStrategy) store.getBufferStrategy();
+
+            	final int n = 2000;
+
+            	final long[] addrs = new long[3 * n];
+
+            	final ByteBuffer[] data = new ByteBuffer[3 * n];
+
+            	for (int i = 0; i < n; i++) {
+            		data[i] = randomData(100 + r.nextInt(1000));
+            		addrs[i] = bs.write(data[i]);
+            	}
+
+            	store.commit();
+
+            	final ISnapshotResult full = store.snapshot(
+            			new SnapshotFactory(getName(), false/* compress */, files)).get();
+
+            	// Free some records so their slots are reused.
+            	for (int i = 0; i < n; i += 2) {
+            		bs.delete(addrs[i]);
+            		data[i] = null;
+            	}
+
+            	store.commit();
+
+            	for (int i = n; i < 2 * n; i++) {
+            		data[i] = randomData(100 + r.nextInt(1000));
+            		addrs[i] = bs.write(data[i]);
+            	}
+
+            	store.commit();
+
+            	final ISnapshotResult incr1 = store.incrementalSnapshot(
+            			new SnapshotFactory(getName(), true/* compress */, files),
+            			full.getRootBlock().getCommitCounter()).get();
+
+            	for (int i = 2 * n; i < 3 * n; i++) {
+            		data[i] = randomData(100 + r.nextInt(1000));
+            		addrs[i] = bs.write(data[i]);
+            	}
+
+            	store.commit();
+
+            	final ISnapshotResult incr2 = store.incrementalSnapshot(
+            			new SnapshotFactory(getName(), false/* compress */, files),
+            			incr1.getRootBlock().getCommitCounter()).get();
+
+            	// Must be applied in order.
+            	try {
+            		IncrementalSnapshotRestore.apply(full.getFile(), incr2.getFile());
+            		fail("Expecting: " + IOException.class);
+            	} catch (IOException ex) {
+            		if (log.isInfoEnabled())
+            			log.info("Ignoring expected exception: " + ex);
+            	}
+
+            	assertEquals(store.getRootBlockView().getCommitCounter(),
+            			IncrementalSnapshotRestore.apply(full.getFile(),
+            					incr1.getFile(), incr2.getFile()));
+
+            	final Properties p = new Properties(getProperties());
+
+            	p.setProperty(Options.CREATE_TEMP_FILE, "false");
+
+            	p.setProperty(Options.FILE, full.getFile().toString());
+
+            	final Journal restored = new Journal(p);
+            	try {
+
+            		assertEquals(store.getRootBlockView(), restored.getRootBlockView());
+
+            		final RWStrategy rbs = (RWStrategy) restored.getBufferStrategy();
+
+            		for (int i = 0; i < data.length; i++) {
+            			if (data[i] != null)
+            				assertEquals(data[i], rbs.read(addrs[i]));
+            		}
+
+            	} finally {
+            		restored.destroy();
+            	}
+
+            } finally {
+            	store.destroy();
+            	for (File f : files) {
+            		f.delete();
+            	}
+            }
+
+            assertFalse(changeLogFile.exists());
+		}
+
+		private static class SnapshotFactory implements ISnapshotFactory {
+
+			private final String prefix;
+			private final boolean compress;
+			private final List<File> files;
+
+			SnapshotFactory(final String prefix, final boolean compress,
+					final List<File> files) {
+				this.prefix = prefix;
+				this.compress = compress;
+				this.files = files;
+			}
+
+			@Override
+			public File getSnapshotFile(final IRootBlockView rbv)
+					throws IOException {
+				final File file = File.createTempFile(
+						prefix + "-" + rbv.getCommitCounter(), ".snapshot");
+				files.add(file);
+				return file;
+			}
+
+			@Override
+			public boolean getCompress() {
+				return compress;
+			}
+
+		}
+
+		private Journal reopenStore(final Journal store, final File coldFile) {
+
+			store.close();
+
+			final Properties properties = new Properties(getProperties());
+
+			properties.setProperty(Options.CREATE_TEMP_FILE, "false");
+
+			properties.setProperty(Options.FILE, store.getFile().toString());
+
+			properties.setProperty(RWStore.Options.COLD_TIER_FILE, coldFile.toString());
+
+			return new Journal(properties);
+
+		}
+
         /**
          * Verify that we correctly restore the RWStore commit state if
          * {@link RWStore#commit()} is followed by {@link RWStore#reset()}
@@ -45,6 +45,8 @@ import com.bigdata.bop.NV;
 import com.bigdata.bop.PipelineOp;
 import com.bigdata.bop.ap.Predicate;
 import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.solutions.ISolutionMaterializer;
+import com.bigdata.bop.solutions.MemorySortOp;
 import com.bigdata.rdf.internal.IV;
 import com.bigdata.rdf.internal.IVCache;
 import com.bigdata.rdf.lexicon.LexiconRelation;
@@ -187,6 +189,31 @@ public class ChunkedMaterializationOp extends PipelineOp {
 
     }
 
+    /**
+     * Materializes the non-inline {@link IV}s of a chunk of solutions against
+     * the {@link LexiconRelation}. This is used by operators which defer the
+     * materialization of the values which they need (e.g., a top-k
+     * {@link MemorySortOp}).
+     */
+    public static class SolutionMaterializer implements ISolutionMaterializer {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public IBindingSet[] materialize(
+                final BOpContext<IBindingSet> context, final String namespace,
+                final long timestamp, final IVariable<?>[] vars,
+                final IBindingSet[] chunk) {
+
+            final LexiconRelation lex = (LexiconRelation) context.getResource(
+                    namespace, timestamp);
+
+            return resolveChunk(vars, lex, chunk, false/* materializeInlineIVs */);
+
+        }
+
+    }
+
     /**
      * Task executing on the node.
      */
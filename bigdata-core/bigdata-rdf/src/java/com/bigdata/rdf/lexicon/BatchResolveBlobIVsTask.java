@@ -35,6 +35,7 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
     private final Collection<BlobIV<?>> ivs;
     private final ConcurrentHashMap<IV<?,?>/* iv */, BigdataValue/* term */> ret;
     private final ITermCache<IV<?,?>, BigdataValue> termCache;
+    private final OffHeapTermCache offHeapTermCache;
     private final BigdataValueFactory valueFactory;
     private final int MAX_CHUNK;
 
@@ -44,6 +45,7 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
             final Collection<BlobIV<?>> ivs,
             final ConcurrentHashMap<IV<?, ?>/* iv */, BigdataValue/* term */> ret,
             final ITermCache<IV<?,?>, BigdataValue> termCache,
+            final OffHeapTermCache offHeapTermCache,
             final BigdataValueFactory valueFactory,
             final int chunkSize) {
 
@@ -56,6 +58,8 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
         this.ret = ret;
         
         this.termCache = termCache;
+
+        this.offHeapTermCache = offHeapTermCache;
         
         this.valueFactory = valueFactory;
         
@@ -65,7 +69,15 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
 
     public Void call() throws Exception {
 
+        // Resolve what we can without reading on the index.
+        final Collection<BlobIV<?>> ivs = offHeapTermCache == null ? this.ivs
+                : offHeapTermCache.resolve(this.ivs, ret, termCache,
+                        valueFactory);
+
         final int numNotFound = ivs.size();
+
+        if (numNotFound == 0)
+            return null;
         
         // An array of IVs that to be resolved against the index.
         final BlobIV<?>[] notFound = ivs.toArray(new BlobIV[numNotFound]);
@@ -95,7 +107,7 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
 
             new ResolveBlobsTask(ndx, 0/* fromIndex */,
                     numNotFound/* toIndex */, keys, notFound, ret,
-                    termCache, valueFactory).call();
+                    termCache, offHeapTermCache, valueFactory).call();
 
         } else {
 
@@ -136,7 +148,8 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
                 // + toIndex + ", remaining=" + remaining);
 
                 tasks.add(new ResolveBlobsTask(ndx, fromIndex, toIndex,
-                        keys, notFound, ret, termCache, valueFactory));
+                        keys, notFound, ret, termCache, offHeapTermCache,
+                        valueFactory));
 
                 fromIndex = toIndex;
 
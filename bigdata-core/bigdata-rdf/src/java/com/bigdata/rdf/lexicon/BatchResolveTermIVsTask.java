@@ -34,6 +34,7 @@ class BatchResolveTermIVsTask implements Callable<Void> {
     private final Collection<TermId<?>> ivs;
     private final ConcurrentHashMap<IV<?,?>/* iv */, BigdataValue/* term */> ret;
     private final ITermCache<IV<?,?>, BigdataValue> termCache;
+    private final OffHeapTermCache offHeapTermCache;
     private final BigdataValueFactory valueFactory;
     private final int MAX_CHUNK;
 
@@ -43,6 +44,7 @@ class BatchResolveTermIVsTask implements Callable<Void> {
             final Collection<TermId<?>> ivs,
             final ConcurrentHashMap<IV<?, ?>/* iv */, BigdataValue/* term */> ret,
             final ITermCache<IV<?,?>, BigdataValue> termCache,
+            final OffHeapTermCache offHeapTermCache,
             final BigdataValueFactory valueFactory,
             final int chunkSize) {
 
@@ -55,6 +57,8 @@ class BatchResolveTermIVsTask implements Callable<Void> {
         this.ret = ret;
         
         this.termCache = termCache;
+
+        this.offHeapTermCache = offHeapTermCache;
         
         this.valueFactory = valueFactory;
 
@@ -64,7 +68,15 @@ class BatchResolveTermIVsTask implements Callable<Void> {
 
     public Void call() throws Exception {
 
+        // Resolve what we can without reading on the index.
+        final Collection<TermId<?>> ivs = offHeapTermCache == null ? this.ivs
+                : offHeapTermCache.resolve(this.ivs, ret, termCache,
+                        valueFactory);
+
         final int numNotFound = ivs.size();
+
+        if (numNotFound == 0)
+            return null;
         
         // An array of IVs that to be resolved against the index.
             final TermId<?>[] notFound = ivs.toArray(new TermId[numNotFound]);
@@ -95,7 +107,7 @@ class BatchResolveTermIVsTask implements Callable<Void> {
             
             new ResolveTermTask(ndx, 0/* fromIndex */,
                     numNotFound/* toIndex */, keys, notFound, ret,
-                    termCache, valueFactory).call();
+                    termCache, offHeapTermCache, valueFactory).call();
 
         } else {
             
@@ -136,7 +148,8 @@ class BatchResolveTermIVsTask implements Callable<Void> {
 //                            + toIndex + ", remaining=" + remaining);
                 
                 tasks.add(new ResolveTermTask(ndx, fromIndex, toIndex,
-                        keys, notFound, ret, termCache, valueFactory));
+                        keys, notFound, ret, termCache, offHeapTermCache,
+                        valueFactory));
 
                 fromIndex = toIndex;
                 
@@ -76,6 +76,9 @@ import com.bigdata.btree.filter.TupleFilter;
 import com.bigdata.btree.keys.IKeyBuilder;
 import com.bigdata.btree.keys.KVO;
 import com.bigdata.cache.ConcurrentWeakValueCacheWithBatchedUpdates;
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.ICounterSetAccess;
+import com.bigdata.counters.Instrument;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.journal.IJournal;
 import com.bigdata.journal.IResourceLock;
@@ -524,6 +527,18 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
                     AbstractTripleStore.Options.TERM_CACHE_CAPACITY,
                     AbstractTripleStore.Options.DEFAULT_TERM_CACHE_CAPACITY));
 
+            final String termCacheClass = getProperty(
+                    AbstractTripleStore.Options.TERM_CACHE_CLASS,
+                    AbstractTripleStore.Options.DEFAULT_TERM_CACHE_CLASS);
+
+            final int termCachePinCapacity = Integer.parseInt(getProperty(
+                    AbstractTripleStore.Options.TERM_CACHE_PIN_CAPACITY,
+                    AbstractTripleStore.Options.DEFAULT_TERM_CACHE_PIN_CAPACITY));
+
+            termCacheOffHeapCapacity = Long.parseLong(getProperty(
+                    AbstractTripleStore.Options.TERM_CACHE_OFF_HEAP_CAPACITY,
+                    AbstractTripleStore.Options.DEFAULT_TERM_CACHE_OFF_HEAP_CAPACITY));
+
             final Long commitTime = getCommitTime();
             
             if (commitTime != null && TimestampUtility.isReadOnly(timestamp)) {
@@ -540,19 +555,17 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
                  * store.
                  */
                 termCache = termCacheFactory.getInstance(new NT(namespace,
-                        commitTime.longValue()), termCacheCapacity * 2);
+                        commitTime.longValue()), new TermCacheConfig(
+                        termCacheClass, termCacheCapacity * 2,
+                        termCachePinCapacity));
 
             } else {
 
                 /*
                  * Unshared for any other view of the triple store.
                  */
-                termCache = new TermCache<IV<?,?>, BigdataValue>(//
-                        new ConcurrentWeakValueCacheWithBatchedUpdates<IV<?,?>, BigdataValue>(//
-                        termCacheCapacity, // queueCapacity
-                        .75f, // loadFactor (.75 is the default)
-                        16 // concurrency level (16 is the default)
-                ));
+                termCache = newTermCache(new TermCacheConfig(termCacheClass,
+                        termCacheCapacity, termCachePinCapacity));
 
             }
             
@@ -809,6 +822,9 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
 
             final IIndexManager indexManager = getIndexManager();
 
+            // resolve before the ID2TERM index (its key) is dropped.
+            final OffHeapTermCache offHeap = getSharedOffHeapTermCache();
+
             indexManager.dropIndex(getFQN(LexiconKeyOrder.TERM2ID));
             indexManager.dropIndex(getFQN(LexiconKeyOrder.ID2TERM));
 			if (getLexiconConfiguration().getBlobsThreshold() != Integer.MAX_VALUE) {
@@ -832,6 +848,16 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
             valueFactory.remove(/*getNamespace()*/);
 
             termCache.clear();
+
+            if (offHeap != null) {
+
+                offHeapTermCacheFactory.remove(offHeapTermCacheKey);
+
+                offHeap.close();
+
+                offHeapTermCache = null;
+
+            }
             
             super.destroy();
 
@@ -2852,14 +2878,16 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
 	        if (!termIVs.isEmpty()) {
 	
 	            tasks.add(new BatchResolveTermIVsTask(service, getId2TermIndex(),
-	                    termIVs, ret, termCache, valueFactory, termsChunksSize));
+	                    termIVs, ret, termCache, getOffHeapTermCache(),
+	                    valueFactory, termsChunksSize));
 	
 	        }
 	
 	        if (!blobIVs.isEmpty()) {
 	
 	            tasks.add(new BatchResolveBlobIVsTask(service, getBlobsIndex(),
-	                    blobIVs, ret, termCache, valueFactory, blobsChunkSize));
+	                    blobIVs, ret, termCache, getOffHeapTermCache(),
+	                    valueFactory, blobsChunkSize));
 	
 	        }
 	
@@ -3050,19 +3078,200 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
     /**
      * Factory used for {@link #termCache} for read-only views of the lexicon.
      */
-    static private CanonicalFactory<NT/* key */, ITermCache<IV<?,?>, BigdataValue>, Integer/* state */> termCacheFactory = new CanonicalFactory<NT, ITermCache<IV<?,?>, BigdataValue>, Integer>(
+    static private CanonicalFactory<NT/* key */, ITermCache<IV<?,?>, BigdataValue>, TermCacheConfig/* state */> termCacheFactory = new CanonicalFactory<NT, ITermCache<IV<?,?>, BigdataValue>, TermCacheConfig>(
             1/* queueCapacity */) {
         @Override
         protected ITermCache<IV<?,?>, BigdataValue> newInstance(
-                NT key, Integer termCacheCapacity) {
-            return new TermCache<IV<?,?>,BigdataValue>(//
-                    new ConcurrentWeakValueCacheWithBatchedUpdates<IV<?,?>, BigdataValue>(//
-                    termCacheCapacity.intValue(),// backing hard reference LRU queue capacity.
-                    .75f, // loadFactor (.75 is the default)
-                    16 // concurrency level (16 is the default)
-            ));
+                NT key, TermCacheConfig config) {
+            return newTermCache(config);
         }
     };
+
+    /**
+     * The configuration of a term cache.
+     * 
+     * @see AbstractTripleStore.Options#TERM_CACHE_CLASS
+     */
+    private static class TermCacheConfig {
+
+        final String className;
+
+        final int capacity;
+
+        final int pinCapacity;
+
+        TermCacheConfig(final String className, final int capacity,
+                final int pinCapacity) {
+            this.className = className;
+            this.capacity = capacity;
+            this.pinCapacity = pinCapacity;
+        }
+
+    }
+
+    /**
+     * Return a new term cache.
+     * 
+     * @throws IllegalArgumentException
+     *             if the class name is not a supported term cache.
+     */
+    static private ITermCache<IV<?,?>, BigdataValue> newTermCache(
+            final TermCacheConfig config) {
+
+        if (ShardedTermCache.class.getName().equals(config.className)) {
+
+            return new ShardedTermCache<IV<?,?>, BigdataValue>(
+                    config.capacity, config.pinCapacity);
+
+        }
+
+        if (!TermCache.class.getName().equals(config.className)) {
+
+            throw new IllegalArgumentException(
+                    AbstractTripleStore.Options.TERM_CACHE_CLASS + "="
+                            + config.className);
+
+        }
+
+        return new TermCache<IV<?,?>,BigdataValue>(//
+                new ConcurrentWeakValueCacheWithBatchedUpdates<IV<?,?>, BigdataValue>(//
+                config.capacity,// backing hard reference LRU queue capacity.
+                .75f, // loadFactor (.75 is the default)
+                16 // concurrency level (16 is the default)
+        ));
+
+    }
+
+    /**
+     * The maximum #of bytes of native memory for the
+     * {@link OffHeapTermCache} and zero if it is disabled.
+     * 
+     * @see AbstractTripleStore.Options#TERM_CACHE_OFF_HEAP_CAPACITY
+     */
+    private final long termCacheOffHeapCapacity;
+
+    /**
+     * The {@link OffHeapTermCache} (lazily resolved) and the key under which
+     * it was obtained from the {@link #offHeapTermCacheFactory}.
+     */
+    private volatile OffHeapTermCache offHeapTermCache;
+
+    private volatile UUID offHeapTermCacheKey;
+
+    /**
+     * Factory used for the {@link OffHeapTermCache}. The cache is shared by
+     * all views of the lexicon. It is keyed by the {@link UUID} of the
+     * ID2TERM index so a lexicon which is destroyed and then re-created
+     * within the same namespace will not see the entries of its predecessor.
+     */
+    static private CanonicalFactory<UUID/* key */, OffHeapTermCache, Long/* state */> offHeapTermCacheFactory = new CanonicalFactory<UUID, OffHeapTermCache, Long>(
+            1/* queueCapacity */) {
+        @Override
+        protected OffHeapTermCache newInstance(final UUID key,
+                final Long capacity) {
+            return new OffHeapTermCache(capacity.longValue());
+        }
+    };
+
+    /**
+     * Return the {@link OffHeapTermCache} for the lexicon if this is a
+     * read-only view.
+     * <p>
+     * Note: The cache is only read and filled from read-only views. Those
+     * views only see committed data. An unisolated or read-write view can see
+     * {@link TermId}s which are discarded by an abort and then assigned to
+     * different RDF Values, so entering its records would leave stale entries
+     * in the shared cache.
+     * 
+     * @return The cache -or- <code>null</code> if it is not enabled or if
+     *         this view is not read-only.
+     * 
+     * @see AbstractTripleStore.Options#TERM_CACHE_OFF_HEAP_CAPACITY
+     */
+    OffHeapTermCache getOffHeapTermCache() {
+
+        if (termCacheOffHeapCapacity <= 0L)
+            return null;
+
+        if (!TimestampUtility.isReadOnly(getTimestamp()))
+            return null;
+
+        return getSharedOffHeapTermCache();
+
+    }
+
+    /**
+     * Return the {@link OffHeapTermCache} shared by all views of the lexicon
+     * regardless of the timestamp of this view.
+     * 
+     * @return The cache -or- <code>null</code> if it is not enabled.
+     */
+    private OffHeapTermCache getSharedOffHeapTermCache() {
+
+        if (termCacheOffHeapCapacity <= 0L)
+            return null;
+
+        OffHeapTermCache tmp = offHeapTermCache;
+
+        if (tmp == null) {
+
+            final UUID key = getId2TermIndex().getIndexMetadata()
+                    .getIndexUUID();
+
+            tmp = offHeapTermCacheFactory.getInstance(key,
+                    termCacheOffHeapCapacity);
+
+            offHeapTermCacheKey = key;
+
+            offHeapTermCache = tmp;
+
+        }
+
+        return tmp;
+
+    }
+
+    /**
+     * Return the performance counters for the term cache (the hit, miss and
+     * eviction counters are only reported by a {@link ShardedTermCache}). The
+     * counters for the {@link OffHeapTermCache}, if enabled, are reported
+     * under <code>offHeap</code>.
+     * 
+     * @see AbstractTripleStore.Options#TERM_CACHE_CLASS
+     * @see AbstractTripleStore.Options#TERM_CACHE_OFF_HEAP_CAPACITY
+     */
+    public CounterSet getTermCacheCounters() {
+
+        final CounterSet counters;
+
+        if (termCache instanceof ICounterSetAccess) {
+
+            counters = ((ICounterSetAccess) termCache).getCounters();
+
+        } else {
+
+            counters = new CounterSet();
+
+            counters.addCounter("size", new Instrument<Integer>() {
+                @Override
+                public void sample() {
+                    setValue(termCache.size());
+                }
+            });
+
+        }
+
+        final OffHeapTermCache offHeap = getSharedOffHeapTermCache();
+
+        if (offHeap != null) {
+
+            counters.makePath("offHeap").attach(offHeap.getCounters());
+
+        }
+
+        return counters;
+
+    }
     
     /**
      * Clear all term caches for the supplied namespace.
@@ -3233,6 +3442,18 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
     }
     
     private BigdataValue __getTerm(final TermId<?> iv) {
+
+        final OffHeapTermCache offHeap = getOffHeapTermCache();
+
+        if (offHeap != null) {
+
+            final BigdataValue value = offHeap.resolve(iv, termCache,
+                    valueFactory);
+
+            if (value != null)
+                return value;
+
+        }
         
         final IIndex ndx = getId2TermIndex();
 
@@ -3246,6 +3467,12 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
         if (data == null)
             return null;
 
+        if (offHeap != null) {
+
+            offHeap.put(iv, data);
+
+        }
+
         // This also sets the value factory.
         BigdataValue value = valueFactory.getValueSerializer().deserialize(data);
         
@@ -3270,6 +3497,18 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
     }
     
     private BigdataValue __getBlob(final BlobIV<?> iv) {
+
+        final OffHeapTermCache offHeap = getOffHeapTermCache();
+
+        if (offHeap != null) {
+
+            final BigdataValue value = offHeap.resolve(iv, termCache,
+                    valueFactory);
+
+            if (value != null)
+                return value;
+
+        }
     
         final IIndex ndx = getBlobsIndex();
 
@@ -3283,6 +3522,12 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
         if (data == null)
             return null;
 
+        if (offHeap != null) {
+
+            offHeap.put(iv, data);
+
+        }
+
         // This also sets the value factory.
         BigdataValue value = valueFactory.getValueSerializer().deserialize(data);
         
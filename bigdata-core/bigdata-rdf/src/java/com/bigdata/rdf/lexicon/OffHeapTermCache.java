@@ -0,0 +1,690 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.lexicon;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.bigdata.counters.CAT;
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.ICounterSetAccess;
+import com.bigdata.counters.Instrument;
+import com.bigdata.io.DirectBufferPool;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.impl.BlobIV;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rwstore.sector.MemoryManager;
+import com.bigdata.rwstore.sector.MemoryManagerOutOfMemory;
+
+/**
+ * An off-heap cache of the serialized RDF Values in the ID2TERM and BLOBS
+ * indices. The serialized values are stored on the native heap in a
+ * {@link MemoryManager} backed by the {@link DirectBufferPool}, so the cache
+ * may be much larger than the JVM heap without adding to the work of the
+ * garbage collector. The on-heap index is a set of open addressing hash tables
+ * of primitive arrays (about 18 bytes per entry) which map the {@link TermId}
+ * or {@link BlobIV} to the address of the serialized value.
+ * <p>
+ * The cache is a second level behind the {@link ITermCache}. It is consulted
+ * for the {@link IV}s which are not found in the {@link ITermCache} before the
+ * indices are read, and the records read from the indices are entered into it.
+ * It is only used by read-only views of the lexicon, which see committed data.
+ * Since the mapping from a committed {@link IV} to its RDF Value is immutable
+ * for the life of an index, there is no invalidation. (The {@link TermId}s
+ * assigned by a write set which is aborted are reused, so the records seen by
+ * an unisolated view must not be cached.) When the memory manager is full,
+ * entries are evicted from the hash table (shard) which needs the space using
+ * a CLOCK policy.
+ * 
+ * @see AbstractTripleStore.Options#TERM_CACHE_OFF_HEAP_CAPACITY
+ */
+public class OffHeapTermCache implements ICounterSetAccess {
+
+    /**
+     * The #of hash tables for each kind of {@link IV} (a power of 2).
+     */
+    private static final int NSHARDS = 16;
+
+    /**
+     * The #of times that an allocation is retried after evicting an entry.
+     */
+    private static final int MAX_EVICT_RETRIES = 16;
+
+    private final long capacity;
+
+    private final MemoryManager mmgr;
+
+    /**
+     * Records larger than this are not cached.
+     */
+    private final int maxRecordSize;
+
+    private final Shard[] termShards = new Shard[NSHARDS];
+
+    private final Shard[] blobShards = new Shard[NSHARDS];
+
+    private volatile boolean open = true;
+
+    private final CAT hits = new CAT();
+
+    private final CAT misses = new CAT();
+
+    private final CAT inserts = new CAT();
+
+    private final CAT evictions = new CAT();
+
+    private final CAT rejections = new CAT();
+
+    /**
+     * @param capacity
+     *            The maximum #of bytes of native memory used by the cache.
+     */
+    public OffHeapTermCache(final long capacity) {
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException();
+
+        this.capacity = capacity;
+
+        final DirectBufferPool pool = DirectBufferPool.INSTANCE;
+
+        final long nsectors = Math.max(1L,
+                (capacity + pool.getBufferCapacity() - 1)
+                        / pool.getBufferCapacity());
+
+        this.mmgr = new MemoryManager(pool, (int) Math.min(
+                Integer.MAX_VALUE, nsectors), false/* blocks */, null/* properties */);
+
+        this.maxRecordSize = pool.getBufferCapacity() / 4;
+
+        for (int i = 0; i < NSHARDS; i++) {
+
+            termShards[i] = new Shard();
+
+            blobShards[i] = new Shard();
+
+        }
+
+    }
+
+    /**
+     * Return the hash table for an {@link IV} and the key for that
+     * {@link IV} in the table -or- <code>null</code> if the {@link IV} is
+     * neither a {@link TermId} nor a {@link BlobIV}.
+     */
+    private Shard shard(final IV<?, ?> iv, final long[] key) {
+
+        final Shard[] shards;
+
+        if (iv instanceof TermId<?>) {
+
+            key[0] = ((TermId<?>) iv).getTermId();
+
+            shards = termShards;
+
+        } else if (iv instanceof BlobIV<?>) {
+
+            final BlobIV<?> t = (BlobIV<?>) iv;
+
+            key[0] = (((long) t.hashCode()) << 16) | (t.counter() & 0xffffL);
+
+            shards = blobShards;
+
+        } else {
+
+            return null;
+
+        }
+
+        return shards[(int) (mix(key[0]) >>> 60) & (NSHARDS - 1)];
+
+    }
+
+    private static long mix(long h) {
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+
+    }
+
+    /**
+     * Return the serialized RDF Value for the {@link IV}.
+     * 
+     * @return The serialized value -or- <code>null</code> if it is not in the
+     *         cache.
+     */
+    public byte[] get(final IV<?, ?> iv) {
+
+        final long[] key = new long[1];
+
+        final Shard shard = shard(iv, key);
+
+        if (shard == null)
+            return null;
+
+        final byte[] data = shard.get(key[0], iv.flags());
+
+        if (data == null)
+            misses.increment();
+        else
+            hits.increment();
+
+        return data;
+
+    }
+
+    /**
+     * Enter the serialized RDF Value for the {@link IV} into the cache. This
+     * is a NOP if the {@link IV} is already in the cache, if the record is
+     * too large or if the memory can not be reclaimed.
+     * 
+     * @param iv
+     *            The {@link IV}.
+     * @param data
+     *            The serialized value as read from the index.
+     */
+    public void put(final IV<?, ?> iv, final byte[] data) {
+
+        if (data == null || data.length == 0)
+            throw new IllegalArgumentException();
+
+        final long[] key = new long[1];
+
+        final Shard shard = shard(iv, key);
+
+        if (shard == null)
+            return;
+
+        if (data.length > maxRecordSize) {
+
+            rejections.increment();
+
+            return;
+
+        }
+
+        shard.put(key[0], iv.flags(), data);
+
+    }
+
+    /**
+     * Resolve an {@link IV} against the cache. The value is entered into the
+     * {@link ITermCache}.
+     * 
+     * @return The RDF Value -or- <code>null</code> if the {@link IV} is not
+     *         in the cache.
+     */
+    BigdataValue resolve(final IV<?, ?> iv,
+            final ITermCache<IV<?, ?>, BigdataValue> termCache,
+            final BigdataValueFactory valueFactory) {
+
+        final byte[] data = get(iv);
+
+        if (data == null)
+            return null;
+
+        // This also sets the value factory.
+        BigdataValue value = valueFactory.getValueSerializer().deserialize(
+                data);
+
+        // This sets the term identifier.
+        value.setIV(iv);
+
+        final BigdataValue tmp = termCache.putIfAbsent(iv, value);
+
+        if (tmp != null) {
+
+            value = tmp;
+
+        }
+
+        return value;
+
+    }
+
+    /**
+     * Resolve a collection of {@link IV}s against the cache. The resolved
+     * values are entered into the caller's map and the {@link ITermCache}.
+     * 
+     * @return The {@link IV}s which were not found in the cache.
+     */
+    <T extends IV<?, ?>> Collection<T> resolve(final Collection<T> ivs,
+            final Map<IV<?, ?>, BigdataValue> ret,
+            final ITermCache<IV<?, ?>, BigdataValue> termCache,
+            final BigdataValueFactory valueFactory) {
+
+        final List<T> notFound = new ArrayList<T>(ivs.size());
+
+        for (T iv : ivs) {
+
+            final BigdataValue value = resolve(iv, termCache, valueFactory);
+
+            if (value == null) {
+
+                notFound.add(iv);
+
+            } else {
+
+                ret.put(iv, value);
+
+            }
+
+        }
+
+        return notFound;
+
+    }
+
+    /**
+     * The #of entries in the cache.
+     */
+    public long size() {
+
+        long n = 0;
+
+        for (int i = 0; i < NSHARDS; i++) {
+
+            n += termShards[i].size + blobShards[i].size;
+
+        }
+
+        return n;
+
+    }
+
+    /**
+     * Release the native memory. The cache is empty once closed.
+     */
+    public void close() {
+
+        open = false;
+
+        for (int i = 0; i < NSHARDS; i++) {
+
+            termShards[i].clear();
+
+            blobShards[i].clear();
+
+        }
+
+        mmgr.close();
+
+    }
+
+    @Override
+    public CounterSet getCounters() {
+
+        final CounterSet root = new CounterSet();
+
+        root.addCounter("capacity", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(capacity);
+            }
+        });
+
+        root.addCounter("size", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(size());
+            }
+        });
+
+        root.addCounter("userBytes", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(mmgr.getUserBytes());
+            }
+        });
+
+        root.addCounter("hits", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(hits.get());
+            }
+        });
+
+        root.addCounter("misses", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(misses.get());
+            }
+        });
+
+        root.addCounter("inserts", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(inserts.get());
+            }
+        });
+
+        root.addCounter("evictions", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(evictions.get());
+            }
+        });
+
+        root.addCounter("rejections", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(rejections.get());
+            }
+        });
+
+        return root;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getName() + "{capacity=" + capacity + ",size="
+                + size() + ",hits=" + hits.get() + ",misses=" + misses.get()
+                + ",evictions=" + evictions.get() + "}";
+
+    }
+
+    /**
+     * An open addressing (linear probing) hash table from a key to the
+     * address of a record in the {@link MemoryManager}. A zero address marks
+     * an empty slot.
+     */
+    private class Shard {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private long[] keys = new long[1024];
+
+        private long[] addrs = new long[1024];
+
+        private byte[] flags = new byte[1024];
+
+        /**
+         * The CLOCK reference bits.
+         */
+        private byte[] refs = new byte[1024];
+
+        private int mask = 1023;
+
+        private volatile int size = 0;
+
+        private int hand = 0;
+
+        private int find(final long key, final byte f) {
+
+            int i = (int) mix(key) & mask;
+
+            while (addrs[i] != 0L) {
+
+                if (keys[i] == key && flags[i] == f)
+                    return i;
+
+                i = (i + 1) & mask;
+
+            }
+
+            return -1;
+
+        }
+
+        byte[] get(final long key, final byte f) {
+
+            final Lock readLock = lock.readLock();
+
+            readLock.lock();
+
+            try {
+
+                if (!open)
+                    return null;
+
+                final int i = find(key, f);
+
+                if (i == -1)
+                    return null;
+
+                // Note: benign race with other readers.
+                refs[i] = 1;
+
+                return mmgr.read(addrs[i]);
+
+            } finally {
+
+                readLock.unlock();
+
+            }
+
+        }
+
+        void put(final long key, final byte f, final byte[] data) {
+
+            final Lock writeLock = lock.writeLock();
+
+            writeLock.lock();
+
+            try {
+
+                if (!open || find(key, f) != -1)
+                    return;
+
+                long addr = 0L;
+
+                for (int retry = 0; addr == 0L; retry++) {
+
+                    try {
+
+                        addr = mmgr.allocate(ByteBuffer.wrap(data), false/* blocks */);
+
+                    } catch (MemoryManagerOutOfMemory ex) {
+
+                        if (retry == MAX_EVICT_RETRIES || !evict()) {
+
+                            rejections.increment();
+
+                            return;
+
+                        }
+
+                    }
+
+                }
+
+                if ((size + 1) << 1 > keys.length)
+                    resize();
+
+                insert(key, f, addr);
+
+                inserts.increment();
+
+            } finally {
+
+                writeLock.unlock();
+
+            }
+
+        }
+
+        private void insert(final long key, final byte f, final long addr) {
+
+            int i = (int) mix(key) & mask;
+
+            while (addrs[i] != 0L)
+                i = (i + 1) & mask;
+
+            keys[i] = key;
+            addrs[i] = addr;
+            flags[i] = f;
+            refs[i] = 0;
+
+            size++;
+
+        }
+
+        private void resize() {
+
+            final long[] oldKeys = keys;
+            final long[] oldAddrs = addrs;
+            final byte[] oldFlags = flags;
+
+            final int n = oldKeys.length << 1;
+
+            keys = new long[n];
+            addrs = new long[n];
+            flags = new byte[n];
+            refs = new byte[n];
+            mask = n - 1;
+            size = 0;
+            hand = 0;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+
+                if (oldAddrs[i] != 0L)
+                    insert(oldKeys[i], oldFlags[i], oldAddrs[i]);
+
+            }
+
+        }
+
+        /**
+         * Evict the entry under the CLOCK hand which has not been referenced
+         * since the hand last passed it.
+         * 
+         * @return <code>false</code> if the table is empty.
+         */
+        private boolean evict() {
+
+            if (size == 0)
+                return false;
+
+            while (true) {
+
+                final int i = hand;
+
+                hand = (hand + 1) & mask;
+
+                if (addrs[i] == 0L)
+                    continue;
+
+                if (refs[i] != 0) {
+
+                    refs[i] = 0;
+
+                    continue;
+
+                }
+
+                mmgr.free(addrs[i]);
+
+                remove(i);
+
+                evictions.increment();
+
+                return true;
+
+            }
+
+        }
+
+        /**
+         * Remove the entry in a slot, shifting back any entries in the same
+         * probe sequence.
+         */
+        private void remove(int i) {
+
+            addrs[i] = 0L;
+
+            size--;
+
+            int j = i;
+
+            while (true) {
+
+                j = (j + 1) & mask;
+
+                if (addrs[j] == 0L)
+                    return;
+
+                final int k = (int) mix(keys[j]) & mask;
+
+                // Leave the entry if its home slot is cyclically in (i,j].
+                if (i <= j ? (i < k && k <= j) : (i < k || k <= j))
+                    continue;
+
+                keys[i] = keys[j];
+                addrs[i] = addrs[j];
+                flags[i] = flags[j];
+                refs[i] = refs[j];
+                addrs[j] = 0L;
+
+                i = j;
+
+            }
+
+        }
+
+        void clear() {
+
+            final Lock writeLock = lock.writeLock();
+
+            writeLock.lock();
+
+            try {
+
+                keys = new long[1024];
+                addrs = new long[1024];
+                flags = new byte[1024];
+                refs = new byte[1024];
+                mask = 1023;
+                size = 0;
+                hand = 0;
+
+            } finally {
+
+                writeLock.unlock();
+
+            }
+
+        }
+
+    }
+
+}
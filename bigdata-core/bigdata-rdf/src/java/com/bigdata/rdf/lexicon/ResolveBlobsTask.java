@@ -33,6 +33,7 @@ class ResolveBlobsTask implements Callable<Void> {
     private final BlobIV<?>[] notFound;
     private final ConcurrentHashMap<IV<?,?>, BigdataValue> map;
     private final ITermCache<IV<?,?>, BigdataValue> termCache;
+    private final OffHeapTermCache offHeapTermCache;
     private final BigdataValueFactory valueFactory;
     
     /**
@@ -58,12 +59,16 @@ class ResolveBlobsTask implements Callable<Void> {
      *            in which case the updates to the map can be concurrent.
      * @param termCache
      *            The term cache.
+     * @param offHeapTermCache
+     *            The optional off-heap cache of serialized values (may be
+     *            <code>null</code>).
      */
     @SuppressWarnings("unchecked")
     ResolveBlobsTask(final IIndex ndx, final int fromIndex,
             final int toIndex, final byte[][] keys, final BlobIV[] notFound,
             final ConcurrentHashMap<IV<?, ?>, BigdataValue> map,
             final ITermCache<IV<?,?>, BigdataValue> termCache,
+            final OffHeapTermCache offHeapTermCache,
             final BigdataValueFactory valueFactory) {
 
         this.ndx = ndx;
@@ -73,6 +78,7 @@ class ResolveBlobsTask implements Callable<Void> {
         this.notFound = notFound;
         this.map = map;
         this.termCache = termCache;
+        this.offHeapTermCache = offHeapTermCache;
         this.valueFactory = valueFactory;
 
     }
@@ -112,6 +118,13 @@ class ResolveBlobsTask implements Callable<Void> {
 
                 }
 
+                if (offHeapTermCache != null) {
+
+                    // Retain the serialized value outside of the heap.
+                    offHeapTermCache.put(tid, data);
+
+                }
+
                 /*
                  * Note: This automatically sets the valueFactory reference
                  * on the de-serialized value.
@@ -34,6 +34,7 @@ class ResolveTermTask implements Callable<Void> {
     private final TermId<?>[] notFound;
     private final ConcurrentHashMap<IV<?,?>, BigdataValue> map;
     private final ITermCache<IV<?,?>, BigdataValue> termCache;
+    private final OffHeapTermCache offHeapTermCache;
     private final BigdataValueFactory valueFactory;
 
     /**
@@ -57,11 +58,15 @@ class ResolveTermTask implements Callable<Void> {
      *            identifier as the key. This is a concurrent map because
      *            the operation may have been split across multiple shards,
      *            in which case the updates to the map can be concurrent.
+     * @param offHeapTermCache
+     *            The optional off-heap cache of serialized values (may be
+     *            <code>null</code>).
      */
     ResolveTermTask(final IIndex ndx, final int fromIndex,
             final int toIndex, final byte[][] keys, final TermId<?>[] notFound,
             final ConcurrentHashMap<IV<?,?>, BigdataValue> map,
             final ITermCache<IV<?,?>, BigdataValue> termCache,
+            final OffHeapTermCache offHeapTermCache,
             final BigdataValueFactory valueFactory) {
 
         this.ndx = ndx;
@@ -71,6 +76,7 @@ class ResolveTermTask implements Callable<Void> {
         this.notFound = notFound;
         this.map = map;
         this.termCache = termCache;
+        this.offHeapTermCache = offHeapTermCache;
         this.valueFactory = valueFactory;
 
     }
@@ -107,6 +113,13 @@ class ResolveTermTask implements Callable<Void> {
 
                 }
 
+                if (offHeapTermCache != null) {
+
+                    // Retain the serialized value outside of the heap.
+                    offHeapTermCache.put(tid, data);
+
+                }
+
                 /*
                  * Note: This automatically sets the valueFactory reference
                  * on the de-serialized value.
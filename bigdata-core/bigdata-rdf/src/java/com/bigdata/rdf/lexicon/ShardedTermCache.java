@@ -0,0 +1,781 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.lexicon;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.bigdata.counters.CAT;
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.ICounterSetAccess;
+import com.bigdata.counters.Instrument;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * A size bounded term cache using a W-TinyLFU policy. Unlike {@link TermCache},
+ * entries are held by hard references and remain in the cache until they are
+ * evicted by the policy, so the hit rate does not depend on the garbage
+ * collector.
+ * <p>
+ * The cache is partitioned into shards by the hash code of the {@link IV}.
+ * Each shard has a {@link ConcurrentHashMap} and a frequency sketch (4-bit
+ * count-min counters which are periodically halved). A read is lock-free: it
+ * increments the sketch with CAS operations, tests the map and marks the entry
+ * as referenced. An insert takes the shard lock to maintain the policy. New
+ * entries enter a small FIFO window. An entry leaving the window is only
+ * admitted to the main region (CLOCK) if its estimated frequency is greater
+ * than that of the CLOCK victim, so a scan over low frequency terms can not
+ * flush the frequently used terms from the cache.
+ * <p>
+ * Optionally, hot entries (those whose estimated frequency is at least
+ * {@link #PIN_THRESHOLD}) are softly pinned when they are evicted. A pinned
+ * entry is held by a {@link SoftReference} outside of the size bound and is
+ * only cleared when the JVM is under memory pressure. Entries may also be
+ * pinned explicitly using {@link #pin(IV, BigdataValue)}.
+ * 
+ * @see AbstractTripleStore.Options#TERM_CACHE_CLASS
+ * @see AbstractTripleStore.Options#TERM_CACHE_PIN_CAPACITY
+ */
+public class ShardedTermCache<K extends IV<?, ?>, V extends BigdataValue>
+        implements ITermCache<K, V>, ICounterSetAccess {
+
+    /**
+     * The minimum estimated frequency for an evicted entry to be softly
+     * pinned.
+     */
+    static final int PIN_THRESHOLD = 8;
+
+    /**
+     * The minimum capacity of a shard.
+     */
+    private static final int MIN_SHARD_CAPACITY = 32;
+
+    private final int capacity;
+
+    private final Shard<V>[] shards;
+
+    private final int shardMask;
+
+    private final int shardBits;
+
+    /**
+     * The softly pinned entries -or- <code>null</code> if pinning is
+     * disabled.
+     */
+    private final ConcurrentHashMap<IV<?, ?>, SoftReference<V>> pinned;
+
+    private final int pinCapacity;
+
+    private final CAT hits = new CAT();
+
+    private final CAT misses = new CAT();
+
+    private final CAT evictions = new CAT();
+
+    private final CAT rejections = new CAT();
+
+    private final CAT pinnedHits = new CAT();
+
+    /**
+     * @param capacity
+     *            The maximum #of entries in the cache (not counting the
+     *            pinned entries).
+     * @param pinCapacity
+     *            The maximum #of softly pinned entries (ZERO disables
+     *            pinning).
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedTermCache(final int capacity, final int pinCapacity) {
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException();
+
+        if (pinCapacity < 0)
+            throw new IllegalArgumentException();
+
+        this.capacity = capacity;
+
+        final int maxShards = 2 * Runtime.getRuntime().availableProcessors();
+
+        int nshards = 1, bits = 0;
+
+        while (nshards < maxShards
+                && capacity / (nshards << 1) >= MIN_SHARD_CAPACITY) {
+            nshards <<= 1;
+            bits++;
+        }
+
+        this.shards = new Shard[nshards];
+
+        this.shardMask = nshards - 1;
+
+        this.shardBits = bits;
+
+        final int shardCapacity = Math.max(2, (capacity + nshards - 1)
+                / nshards);
+
+        for (int i = 0; i < nshards; i++) {
+
+            shards[i] = new Shard<V>(this, shardCapacity);
+
+        }
+
+        this.pinCapacity = pinCapacity;
+
+        this.pinned = pinCapacity == 0 ? null
+                : new ConcurrentHashMap<IV<?, ?>, SoftReference<V>>();
+
+    }
+
+    /**
+     * Spread the hash code of the {@link IV} since the low bits select the
+     * shard and the high bits index the frequency sketch.
+     */
+    private static int spread(final int h) {
+
+        final int x = h * 0x9E3779B9;
+
+        return x ^ (x >>> 16);
+
+    }
+
+    private Shard<V> shard(final int h) {
+
+        return shards[h & shardMask];
+
+    }
+
+    @Override
+    public int size() {
+
+        int n = 0;
+
+        for (Shard<V> shard : shards) {
+
+            n += shard.map.size();
+
+        }
+
+        return n;
+
+    }
+
+    @Override
+    public V get(final K k) {
+
+        final int h = spread(k.hashCode());
+
+        final Shard<V> shard = shard(h);
+
+        shard.sketch.increment(h >>> shardBits);
+
+        final Node<V> node = shard.map.get(k);
+
+        if (node != null) {
+
+            node.referenced = true;
+
+            hits.increment();
+
+            return node.value;
+
+        }
+
+        final V v = getPinned(k);
+
+        if (v != null) {
+
+            pinnedHits.increment();
+
+            hits.increment();
+
+            return v;
+
+        }
+
+        misses.increment();
+
+        return null;
+
+    }
+
+    private V getPinned(final IV<?, ?> k) {
+
+        if (pinned == null)
+            return null;
+
+        final SoftReference<V> ref = pinned.get(k);
+
+        if (ref == null)
+            return null;
+
+        final V v = ref.get();
+
+        if (v == null) {
+
+            // Cleared by the GC.
+            pinned.remove(k, ref);
+
+        }
+
+        return v;
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note: As for {@link TermCache}, the {@link IV} is cloned in order to
+     * clear its reference to the cached {@link BigdataValue} before it is
+     * used as a key. Otherwise a softly pinned value would always be strongly
+     * reachable from its key.
+     */
+    @Override
+    public V putIfAbsent(final K k, final V v) {
+
+        final int h = spread(k.hashCode());
+
+        final Shard<V> shard = shard(h);
+
+        final Node<V> node = shard.map.get(k);
+
+        if (node != null) {
+
+            // No need to write on the map.
+            return node.value;
+
+        }
+
+        final V tmp = getPinned(k);
+
+        if (tmp != null)
+            return tmp;
+
+        final Node<V> newNode = new Node<V>(k.clone(true/* clearCache */), v,
+                h >>> shardBits);
+
+        final Node<V> oldNode = shard.map.putIfAbsent(newNode.key, newNode);
+
+        if (oldNode != null)
+            return oldNode.value;
+
+        shard.add(newNode);
+
+        return null;
+
+    }
+
+    /**
+     * Softly pin an entry. The entry is held outside of the size bound of the
+     * cache until the garbage collector clears it.
+     * 
+     * @return <code>true</code> iff the entry was pinned (it is not pinned if
+     *         pinning is disabled or the #of pinned entries is at the pin
+     *         capacity).
+     */
+    public boolean pin(final K k, final V v) {
+
+        return pin0(k.clone(true/* clearCache */), v);
+
+    }
+
+    private boolean pin0(final IV<?, ?> k, final V v) {
+
+        if (pinned == null || pinned.size() >= pinCapacity)
+            return false;
+
+        pinned.putIfAbsent(k, new SoftReference<V>(v));
+
+        return true;
+
+    }
+
+    /**
+     * Invoked when an entry leaves the cache.
+     * 
+     * @param node
+     *            The entry.
+     * @param freq
+     *            Its estimated frequency.
+     * @param admitted
+     *            <code>true</code> if the entry was evicted from the main
+     *            region and <code>false</code> if it was not admitted to the
+     *            main region.
+     */
+    private void evicted(final Node<V> node, final int freq,
+            final boolean admitted) {
+
+        if (admitted)
+            evictions.increment();
+        else
+            rejections.increment();
+
+        if (freq >= PIN_THRESHOLD)
+            pin0(node.key, node.value);
+
+    }
+
+    @Override
+    public void clear() {
+
+        for (Shard<V> shard : shards) {
+
+            shard.clear();
+
+        }
+
+        if (pinned != null)
+            pinned.clear();
+
+    }
+
+    @Override
+    public CounterSet getCounters() {
+
+        final CounterSet root = new CounterSet();
+
+        root.addCounter("capacity", new Instrument<Integer>() {
+            @Override
+            public void sample() {
+                setValue(capacity);
+            }
+        });
+
+        root.addCounter("shards", new Instrument<Integer>() {
+            @Override
+            public void sample() {
+                setValue(shards.length);
+            }
+        });
+
+        root.addCounter("size", new Instrument<Integer>() {
+            @Override
+            public void sample() {
+                setValue(size());
+            }
+        });
+
+        root.addCounter("pinnedSize", new Instrument<Integer>() {
+            @Override
+            public void sample() {
+                setValue(pinned == null ? 0 : pinned.size());
+            }
+        });
+
+        root.addCounter("hits", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(hits.get());
+            }
+        });
+
+        root.addCounter("misses", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(misses.get());
+            }
+        });
+
+        root.addCounter("hitRate", new Instrument<Double>() {
+            @Override
+            public void sample() {
+                final long nhits = hits.get();
+                final long total = nhits + misses.get();
+                setValue(total == 0 ? 0d : nhits / (double) total);
+            }
+        });
+
+        root.addCounter("pinnedHits", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(pinnedHits.get());
+            }
+        });
+
+        root.addCounter("evictions", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(evictions.get());
+            }
+        });
+
+        root.addCounter("rejections", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(rejections.get());
+            }
+        });
+
+        return root;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getName() + "{capacity=" + capacity + ",shards="
+                + shards.length + ",size=" + size() + ",hits=" + hits.get()
+                + ",misses=" + misses.get() + ",evictions=" + evictions.get()
+                + ",rejections=" + rejections.get() + "}";
+
+    }
+
+    /**
+     * A cache entry.
+     */
+    private static class Node<V> {
+
+        final IV<?, ?> key;
+
+        final V value;
+
+        /**
+         * The hash code used for the frequency sketch.
+         */
+        final int hash;
+
+        /**
+         * Set when the entry is read and cleared by the CLOCK hand.
+         */
+        volatile boolean referenced;
+
+        Node(final IV<?, ?> key, final V value, final int hash) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+        }
+
+    }
+
+    /**
+     * A shard of the cache.
+     */
+    private static class Shard<V extends BigdataValue> {
+
+        private final ShardedTermCache<?, V> cache;
+
+        final ConcurrentHashMap<IV<?, ?>, Node<V>> map;
+
+        final FrequencySketch sketch;
+
+        /**
+         * Guards the window and the main region.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final int windowCapacity;
+
+        private final ArrayDeque<Node<V>> window;
+
+        /**
+         * The main region, which is managed as a CLOCK.
+         */
+        private final Node<V>[] ring;
+
+        private int mainSize = 0;
+
+        private int hand = 0;
+
+        @SuppressWarnings("unchecked")
+        Shard(final ShardedTermCache<?, V> cache, final int capacity) {
+
+            this.cache = cache;
+
+            this.map = new ConcurrentHashMap<IV<?, ?>, Node<V>>(capacity);
+
+            this.sketch = new FrequencySketch(capacity);
+
+            this.windowCapacity = Math.max(1, capacity / 100);
+
+            this.window = new ArrayDeque<Node<V>>(windowCapacity + 1);
+
+            this.ring = new Node[capacity - windowCapacity];
+
+        }
+
+        /**
+         * Add a new entry (which is already in the map) to the window and
+         * apply the admission policy to the entry leaving the window.
+         */
+        void add(final Node<V> node) {
+
+            lock.lock();
+
+            try {
+
+                window.addLast(node);
+
+                if (window.size() <= windowCapacity)
+                    return;
+
+                final Node<V> candidate = window.removeFirst();
+
+                if (mainSize < ring.length) {
+
+                    ring[mainSize++] = candidate;
+
+                    return;
+
+                }
+
+                final int i = victim();
+
+                final Node<V> victim = ring[i];
+
+                final int candidateFreq = sketch.frequency(candidate.hash);
+
+                final int victimFreq = sketch.frequency(victim.hash);
+
+                if (candidateFreq > victimFreq) {
+
+                    ring[i] = candidate;
+
+                    map.remove(victim.key, victim);
+
+                    cache.evicted(victim, victimFreq, true/* admitted */);
+
+                } else {
+
+                    map.remove(candidate.key, candidate);
+
+                    cache.evicted(candidate, candidateFreq, false/* admitted */);
+
+                }
+
+            } finally {
+
+                lock.unlock();
+
+            }
+
+        }
+
+        /**
+         * Advance the CLOCK hand to the first entry which has not been
+         * referenced since the hand last passed it.
+         * 
+         * @return The index of that entry.
+         */
+        private int victim() {
+
+            while (true) {
+
+                final Node<V> node = ring[hand];
+
+                final int i = hand;
+
+                hand = (hand + 1) % ring.length;
+
+                if (!node.referenced)
+                    return i;
+
+                node.referenced = false;
+
+            }
+
+        }
+
+        void clear() {
+
+            lock.lock();
+
+            try {
+
+                map.clear();
+
+                window.clear();
+
+                Arrays.fill(ring, null);
+
+                mainSize = 0;
+
+                hand = 0;
+
+                sketch.clear();
+
+            } finally {
+
+                lock.unlock();
+
+            }
+
+        }
+
+    }
+
+    /**
+     * A count-min sketch with four 4-bit counters per key. The counters are
+     * halved once the #of increments reaches ten times the capacity so the
+     * estimates favor recent accesses.
+     */
+    static class FrequencySketch {
+
+        private static final long[] SEED = new long[] { 0xc3a5c85c97cb3127L,
+                0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final AtomicLongArray table;
+
+        private final int mask;
+
+        private final int sampleSize;
+
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(final int capacity) {
+
+            int n = 16;
+
+            while (n < capacity)
+                n <<= 1;
+
+            this.table = new AtomicLongArray(n);
+
+            this.mask = n - 1;
+
+            this.sampleSize = 10 * capacity;
+
+        }
+
+        private int indexOf(final int h, final int i) {
+
+            long hash = (h + SEED[i]) * SEED[i];
+
+            hash += hash >>> 32;
+
+            return ((int) hash) & mask;
+
+        }
+
+        /**
+         * Increment the counters for a key.
+         */
+        void increment(final int h) {
+
+            final int start = (h & 3) << 2;
+
+            boolean added = false;
+
+            for (int i = 0; i < 4; i++) {
+
+                final int index = indexOf(h, i);
+
+                final int offset = (start + i) << 2;
+
+                while (true) {
+
+                    final long v = table.get(index);
+
+                    if (((v >>> offset) & 0xfL) == 0xfL)
+                        break; // saturated.
+
+                    if (table.compareAndSet(index, v, v + (1L << offset))) {
+                        added = true;
+                        break;
+                    }
+
+                }
+
+            }
+
+            if (added && additions.incrementAndGet() == sampleSize) {
+
+                reset();
+
+            }
+
+        }
+
+        /**
+         * Return the estimated frequency of a key.
+         */
+        int frequency(final int h) {
+
+            final int start = (h & 3) << 2;
+
+            int freq = Integer.MAX_VALUE;
+
+            for (int i = 0; i < 4; i++) {
+
+                final int offset = (start + i) << 2;
+
+                final int count = (int) ((table.get(indexOf(h, i)) >>> offset) & 0xfL);
+
+                freq = Math.min(freq, count);
+
+            }
+
+            return freq;
+
+        }
+
+        /**
+         * Halve all counters.
+         */
+        private void reset() {
+
+            for (int i = 0; i < table.length(); i++) {
+
+                while (true) {
+
+                    final long v = table.get(i);
+
+                    if (table.compareAndSet(i, v, (v >>> 1) & RESET_MASK))
+                        break;
+
+                }
+
+            }
+
+            additions.set(sampleSize / 2);
+
+        }
+
+        void clear() {
+
+            for (int i = 0; i < table.length(); i++) {
+
+                table.set(i, 0L);
+
+            }
+
+            additions.set(0);
+
+        }
+
+    }
+
+}
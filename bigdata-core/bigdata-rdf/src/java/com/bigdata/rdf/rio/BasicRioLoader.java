@@ -69,9 +69,9 @@ public class BasicRioLoader implements IRioLoader {
     
     public long stmtsAdded;
     
-    long insertTime;
+    protected long insertTime;
     
-    long insertStart;
+    protected long insertStart;
     
     Vector<RioLoaderListener> listeners;
 
@@ -67,6 +67,7 @@ import com.bigdata.rdf.model.BigdataValueFactory;
 import com.bigdata.rdf.model.StatementEnum;
 import com.bigdata.rdf.spo.ISPO;
 import com.bigdata.rdf.spo.SPO;
+import com.bigdata.rdf.spo.SPOBulkBuilder;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.rdf.store.IRawTripleStore;
 import com.bigdata.rdf.store.TempTripleStore;
@@ -526,6 +527,32 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
 	 */
     private IChangeLog changeLog;
 
+    /**
+     * Divert the statements to an {@link SPOBulkBuilder} rather than writing
+     * them on the statement indices. The terms are still resolved against (and
+     * written on) the lexicon of the {@link #getDatabase() database} when the
+     * buffer is flushed, but the statements will not be visible in the
+     * statement indices until {@link SPOBulkBuilder#build()} is invoked.
+     * <p>
+     * Note: {@link #setChangeLog(IChangeLog) change log} events are not
+     * reported for statements diverted to the {@link SPOBulkBuilder}.
+     * 
+     * @param bulkBuilder
+     *            The builder (optional, when <code>null</code> the statements
+     *            are written on the statement indices as usual).
+     */
+    public void setBulkBuilder(final SPOBulkBuilder bulkBuilder) {
+
+        this.bulkBuilder = bulkBuilder;
+
+    }
+
+    /**
+     * When non-<code>null</code> the statements are diverted to this object
+     * rather than being written on the statement indices.
+     */
+    private SPOBulkBuilder bulkBuilder;
+
     /**
 	 * Note: The use of this interface is NOT encouraged. It is used to hook the
 	 * axioms in {@link com.bigdata.rdf.axioms.BaseAxioms}. Ideally this could
@@ -1539,6 +1566,7 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
 					sb.readOnly, // copy by reference
 					sb.changeLog, // copy by reference
 					sb.didWriteCallback, // copy by reference
+					sb.bulkBuilder, // copy by reference
 					numValues, // copied the data.
 					values, // copied the data.
 					numStmts, // copied the data.
@@ -1675,6 +1703,8 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
     	
     	private final IWrittenSPOArray didWriteCallback;
 
+    	private final SPOBulkBuilder bulkBuilder;
+
     	private final int numValues;
     	
     	private final BigdataValue[] values;
@@ -1692,6 +1722,7 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
 			readOnly = true;
 			changeLog = null;
 			didWriteCallback = null;
+			bulkBuilder = null;
 			numValues = 0;
 			values = null;
 			numStmts = 0;
@@ -1706,6 +1737,7 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
 				final boolean readOnly, //
 				final IChangeLog changeLog, //
 				final IWrittenSPOArray didWriteCallback, //
+				final SPOBulkBuilder bulkBuilder, //
 				final int numValues, //
 				final BigdataValue[] values, //
 				final int numStmts, //
@@ -1716,6 +1748,7 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
 			this.readOnly = readOnly;
 			this.changeLog = changeLog;
 			this.didWriteCallback = didWriteCallback;
+			this.bulkBuilder = bulkBuilder;
 			this.numValues = numValues;
 			this.values = values;
 			this.numStmts = numStmts;
@@ -1749,6 +1782,7 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
 			this.readOnly = sb.readOnly;
 			this.changeLog = sb.changeLog;
 			this.didWriteCallback = sb.didWriteCallback;
+			this.bulkBuilder = sb.bulkBuilder;
 
 	    	/*
 	    	 * Look for non-sid bnodes and add them to the values to be written
@@ -1909,7 +1943,13 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
 						log.debug("adding stmt: " + stmts[i]);
 					}
 				}
-				nwritten = addStatements(database, statementStore, stmts, numStmts, changeLog, didWriteCallback);
+				if (bulkBuilder != null) {
+					// Note: deferred until the statement indices are built.
+					bulkBuilder.add(toSPOs(stmts, numStmts), numStmts);
+					nwritten = numStmts;
+				} else {
+					nwritten = addStatements(database, statementStore, stmts, numStmts, changeLog, didWriteCallback);
+				}
 				if (DEBUG) {
 					for (int i = 0; i < numStmts; i++) {
 						log.debug(" added stmt: " + stmts[i]);
@@ -1993,27 +2033,8 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
     			final IChangeLog changeLog,
     			final IWrittenSPOArray didWriteCallback) {
 
-            final SPO[] tmp = new SPO[numStmts];
-
-            for (int i = 0; i < tmp.length; i++) {
-
-                final BigdataStatement stmt = stmts[i];
-                
-                final SPO spo = new SPO(stmt);
-
-                if (DEBUG) 
-                    log.debug("adding: " + stmt.toString() + " (" + spo + ")");
-                
-                if(!spo.isFullyBound()) {
-                    
-                    throw new AssertionError("Not fully bound? : " + spo);
-                    
-                }
-                
-                tmp[i] = spo;
+            final SPO[] tmp = toSPOs(stmts, numStmts);
 
-            }
-            
             /*
              * Note: When handling statement identifiers, we clone tmp[] to avoid a
              * side-effect on its order so that we can unify the assigned statement
@@ -2129,6 +2150,43 @@ public class StatementBuffer<S extends Statement> implements IStatementBuffer<S>
             
         }
 
+        /**
+         * Convert the statements to {@link SPO}s.
+         * 
+         * @param stmts
+         *            The statements, whose {s,p,o} term identifiers MUST be
+         *            defined.
+         * @param numStmts
+         *            The number of statements in that array.
+         */
+        final private static SPO[] toSPOs(final BigdataStatement[] stmts,
+                final int numStmts) {
+
+            final SPO[] tmp = new SPO[numStmts];
+
+            for (int i = 0; i < tmp.length; i++) {
+
+                final BigdataStatement stmt = stmts[i];
+                
+                final SPO spo = new SPO(stmt);
+
+                if (DEBUG) 
+                    log.debug("adding: " + stmt.toString() + " (" + spo + ")");
+                
+                if(!spo.isFullyBound()) {
+                    
+                    throw new AssertionError("Not fully bound? : " + spo);
+                    
+                }
+                
+                tmp[i] = spo;
+
+            }
+
+            return tmp;
+
+        }
+
         /**
     	 * Adds the statements to each index (batch api, NO truth maintenance).
     	 * 
@@ -0,0 +1,795 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.rio.ntriples;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.input.BOMInputStream;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.ntriples.NTriplesUtil;
+
+import com.bigdata.rdf.model.BigdataResource;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.rio.IStatementBuffer;
+import com.bigdata.rdf.rio.PresortRioLoader;
+import com.bigdata.rdf.rio.RDFParserOptions;
+import com.bigdata.util.DaemonThreadFactory;
+
+/**
+ * Loads N-Triples or N-Quads using a pool of parser threads. The input is read
+ * by the caller's thread and cut into blocks at newline boundaries. Each block
+ * is parsed by a worker thread directly from its character array into
+ * {@link BigdataValue}s and the parsed statements are then added to the
+ * {@link IStatementBuffer} while holding its monitor. Since there is a single
+ * buffer, blank nodes retain their scope (the document) no matter which block
+ * they appear in and the buffer writes on the indices exactly as it does for
+ * the RIO parsers.
+ * <p>
+ * The terms of a block are canonicalized by their lexical form within that
+ * block, so a term which is repeated within a block (a subject with many
+ * properties, a common predicate, etc.) is unescaped and allocated only once.
+ * <p>
+ * Note: This is a line-oriented parser for the W3C N-Triples and N-Quads
+ * syntax. It does not support the inline notation for statements about
+ * statements (see {@link BigdataNTriplesParser}), does not verify the lexical
+ * form of datatype literals, and treats all syntax errors as fatal. Formats
+ * other than {@link RDFFormat#NTRIPLES} and {@link RDFFormat#NQUADS} are
+ * delegated to the RIO parsers.
+ * 
+ * @see #isSupported(RDFFormat)
+ */
+public class ParallelNTriplesLoader extends PresortRioLoader {
+
+    /**
+     * The default #of characters in a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The #of statements between notices to the listeners.
+     */
+    private static final long NOTIFY_INTERVAL = 100000;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The #of parser threads.
+     */
+    private final int nthreads;
+
+    /**
+     * The #of characters in a block (blocks are grown for lines which are
+     * longer than this).
+     */
+    private final int blockSize;
+
+    /**
+     * @param buffer
+     *            The buffer onto which the parsed statements will be written.
+     * @param flush
+     *            When true, the <i>buffer</i> will be flushed when the end of
+     *            the input is reached.
+     * @param nthreads
+     *            The #of parser threads.
+     * @param blockSize
+     *            The #of characters in a block.
+     */
+    public ParallelNTriplesLoader(final IStatementBuffer<?> buffer,
+            final boolean flush, final int nthreads, final int blockSize) {
+
+        super(buffer, flush);
+
+        if (nthreads <= 0)
+            throw new IllegalArgumentException();
+
+        if (blockSize <= 0)
+            throw new IllegalArgumentException();
+
+        this.nthreads = nthreads;
+
+        this.blockSize = blockSize;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the format is handled by the parallel
+     * parser.
+     */
+    public static boolean isSupported(final RDFFormat rdfFormat) {
+
+        return RDFFormat.NTRIPLES.equals(rdfFormat)
+                || RDFFormat.NQUADS.equals(rdfFormat);
+
+    }
+
+    @Override
+    protected void loadRdf2(final Object source, final String baseURI,
+            final RDFFormat rdfFormat, final String defaultGraph,
+            final RDFParserOptions options) throws Exception {
+
+        if (!isSupported(rdfFormat)) {
+
+            super.loadRdf2(source, baseURI, rdfFormat, defaultGraph, options);
+
+            return;
+
+        }
+
+        if (source == null)
+            throw new IllegalArgumentException();
+
+        if (!(source instanceof Reader) && !(source instanceof InputStream)) {
+            throw new IllegalArgumentException();
+        }
+
+        if (options == null)
+            throw new IllegalArgumentException();
+
+        if (log.isInfoEnabled())
+            log.info("format=" + rdfFormat + ", options=" + options
+                    + ", nthreads=" + nthreads + ", blockSize=" + blockSize);
+
+        this.defaultGraph = defaultGraph;
+
+        final BigdataValueFactory vf = buffer.getDatabase().getValueFactory();
+
+        final BigdataURI defaultGraphURI = defaultGraph != null
+                && buffer.getDatabase().isQuads() ? vf.createURI(defaultGraph)
+                : null;
+
+        /*
+         * Note: As for the RIO parsers, blank node IDs are only preserved if
+         * requested. Otherwise they are made distinct from the IDs used in any
+         * other document.
+         */
+        final String bnodePrefix = options.getPreserveBNodeIDs() ? ""
+                : "n" + UUID.randomUUID().toString().replace("-", "");
+
+        final Reader reader = source instanceof Reader ? (Reader) source
+                : new InputStreamReader(new BOMInputStream(
+                        (InputStream) source), UTF8);
+
+        insertStart = System.currentTimeMillis();
+        insertTime = 0;
+        stmtsAdded = 0;
+
+        final ExecutorService service = Executors.newFixedThreadPool(nthreads,
+                new DaemonThreadFactory(getClass().getName() + ".parser"));
+
+        try {
+
+            before();
+
+            final LinkedList<Future<Long>> pending = new LinkedList<Future<Long>>();
+
+            char[] buf = new char[blockSize];
+
+            int len = 0;
+
+            long lineNo = 1;
+
+            while (true) {
+
+                final int n = reader.read(buf, len, buf.length - len);
+
+                if (n == -1) {
+
+                    if (len > 0) {
+
+                        // The last line need not end with a newline.
+                        pending.add(service.submit(new ParseTask(Arrays
+                                .copyOf(buf, len), lineNo, RDFFormat.NQUADS
+                                .equals(rdfFormat), vf, defaultGraphURI,
+                                bnodePrefix)));
+
+                    }
+
+                    break;
+
+                }
+
+                len += n;
+
+                if (len < buf.length)
+                    continue;
+
+                int last = len - 1;
+
+                while (last >= 0 && buf[last] != '\n')
+                    last--;
+
+                if (last == -1) {
+
+                    // The line is longer than the block.
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+
+                    continue;
+
+                }
+
+                final char[] block = Arrays.copyOf(buf, last + 1);
+
+                pending.add(service.submit(new ParseTask(block, lineNo,
+                        RDFFormat.NQUADS.equals(rdfFormat), vf,
+                        defaultGraphURI, bnodePrefix)));
+
+                for (int i = 0; i < block.length; i++) {
+                    if (block[i] == '\n')
+                        lineNo++;
+                }
+
+                // Carry the partial line into the next block.
+                len -= last + 1;
+
+                System.arraycopy(buf, last + 1, buf, 0, len);
+
+                // Bound the #of blocks which are buffered in memory.
+                while (pending.size() >= 2 * nthreads) {
+
+                    awaitBlock(pending.removeFirst());
+
+                }
+
+            }
+
+            while (!pending.isEmpty()) {
+
+                awaitBlock(pending.removeFirst());
+
+            }
+
+            insertTime = System.currentTimeMillis() - insertStart;
+
+            if (log.isInfoEnabled())
+                log.info("parse complete: elapsed=" + insertTime
+                        + "ms, toldTriples=" + stmtsAdded + ", tps="
+                        + getInsertRate());
+
+            success();
+
+        } catch (Exception ex) {
+
+            insertTime += System.currentTimeMillis() - insertStart;
+
+            // Stop the other parsers before the buffer is discarded.
+            service.shutdownNow();
+
+            service.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+
+            try {
+                error(ex);
+            } catch (Exception ex2) {
+                log.error("Ignoring: " + ex2);
+            }
+
+            throw ex;
+
+        } finally {
+
+            service.shutdownNow();
+
+            cleanUp();
+
+        }
+
+    }
+
+    /**
+     * Wait for a block to be parsed and buffered.
+     */
+    private void awaitBlock(final Future<Long> f) throws Exception {
+
+        final long n;
+        try {
+            n = f.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception)
+                throw (Exception) ex.getCause();
+            throw ex;
+        }
+
+        final long before = stmtsAdded;
+
+        stmtsAdded += n;
+
+        if (stmtsAdded / NOTIFY_INTERVAL != before / NOTIFY_INTERVAL) {
+
+            notifyListeners();
+
+        }
+
+    }
+
+    /**
+     * Parses a block of complete lines and adds the statements to the buffer.
+     */
+    private class ParseTask implements Callable<Long> {
+
+        private final char[] buf;
+
+        private final long firstLine;
+
+        private final boolean quads;
+
+        private final BigdataValueFactory vf;
+
+        private final BigdataURI defaultGraphURI;
+
+        private final String bnodePrefix;
+
+        /**
+         * The terms parsed from this block keyed by their lexical form.
+         */
+        private final TermMap terms = new TermMap();
+
+        /**
+         * The parsed statements as {s,p,o,c} tuples.
+         */
+        private BigdataValue[] stmts = new BigdataValue[4 * 1024];
+
+        private int nstmts = 0;
+
+        /**
+         * The offset of the next character to be parsed.
+         */
+        private int pos;
+
+        /**
+         * The offset of the newline (or end of block) for the current line.
+         */
+        private int end;
+
+        private long lineNo;
+
+        ParseTask(final char[] buf, final long firstLine, final boolean quads,
+                final BigdataValueFactory vf,
+                final BigdataURI defaultGraphURI, final String bnodePrefix) {
+
+            this.buf = buf;
+            this.firstLine = firstLine;
+            this.quads = quads;
+            this.vf = vf;
+            this.defaultGraphURI = defaultGraphURI;
+            this.bnodePrefix = bnodePrefix;
+
+        }
+
+        @Override
+        public Long call() throws Exception {
+
+            lineNo = firstLine;
+
+            pos = 0;
+
+            while (pos < buf.length) {
+
+                end = pos;
+
+                while (end < buf.length && buf[end] != '\n')
+                    end++;
+
+                parseLine();
+
+                pos = end + 1;
+
+                lineNo++;
+
+            }
+
+            synchronized (buffer) {
+
+                for (int i = 0; i < nstmts; i++) {
+
+                    final int off = i << 2;
+
+                    buffer.add((BigdataResource) stmts[off],
+                            (BigdataURI) stmts[off + 1], stmts[off + 2],
+                            (BigdataResource) stmts[off + 3]);
+
+                }
+
+            }
+
+            return Long.valueOf(nstmts);
+
+        }
+
+        private void parseLine() throws RDFParseException {
+
+            skipWS();
+
+            if (pos == end || buf[pos] == '#')
+                return; // blank line or comment.
+
+            final BigdataValue s = parseResource();
+
+            skipWS();
+
+            if (pos == end || buf[pos] != '<')
+                error("Expected '<'");
+
+            final BigdataValue p = parseURI();
+
+            skipWS();
+
+            if (pos == end)
+                error("Expected '<', '_' or '\"'");
+
+            final BigdataValue o = buf[pos] == '"' ? parseLiteral()
+                    : parseResource();
+
+            skipWS();
+
+            BigdataValue c = defaultGraphURI;
+
+            if (quads && pos < end && buf[pos] != '.') {
+
+                c = parseResource();
+
+                skipWS();
+
+            }
+
+            if (pos == end || buf[pos] != '.')
+                error("Expected '.'");
+
+            pos++;
+
+            skipWS();
+
+            if (pos < end && buf[pos] != '#')
+                error("Content after '.' is not allowed");
+
+            if (nstmts << 2 == stmts.length)
+                stmts = Arrays.copyOf(stmts, stmts.length << 1);
+
+            final int off = nstmts << 2;
+
+            stmts[off] = s;
+            stmts[off + 1] = p;
+            stmts[off + 2] = o;
+            stmts[off + 3] = c;
+
+            nstmts++;
+
+        }
+
+        private void skipWS() {
+
+            while (pos < end
+                    && (buf[pos] == ' ' || buf[pos] == '\t' || buf[pos] == '\r'))
+                pos++;
+
+        }
+
+        private BigdataValue parseResource() throws RDFParseException {
+
+            if (pos < end && buf[pos] == '<')
+                return parseURI();
+
+            if (pos + 1 < end && buf[pos] == '_' && buf[pos + 1] == ':')
+                return parseBNode();
+
+            error("Expected '<' or '_'");
+
+            throw new AssertionError();
+
+        }
+
+        private BigdataValue parseURI() throws RDFParseException {
+
+            final int start = pos;
+
+            pos++; // skip '<'
+
+            while (pos < end && buf[pos] != '>')
+                pos++;
+
+            if (pos == end)
+                error("Expected '>'");
+
+            pos++;
+
+            BigdataValue v = terms.get(buf, start, pos);
+
+            if (v == null) {
+
+                final String s = new String(buf, start + 1, pos - start - 2);
+
+                v = vf.createURI(unescape(s));
+
+                terms.put(buf, start, pos, v);
+
+            }
+
+            return v;
+
+        }
+
+        private BigdataValue parseBNode() throws RDFParseException {
+
+            final int start = pos;
+
+            pos += 2; // skip "_:"
+
+            while (pos < end && buf[pos] != ' ' && buf[pos] != '\t'
+                    && buf[pos] != '\r' && buf[pos] != '<' && buf[pos] != '"')
+                pos++;
+
+            // A label may contain but may not end with a '.'.
+            while (pos > start + 2 && buf[pos - 1] == '.')
+                pos--;
+
+            if (pos == start + 2)
+                error("Expected a blank node label");
+
+            BigdataValue v = terms.get(buf, start, pos);
+
+            if (v == null) {
+
+                v = vf.createBNode(bnodePrefix
+                        + new String(buf, start + 2, pos - start - 2));
+
+                terms.put(buf, start, pos, v);
+
+            }
+
+            return v;
+
+        }
+
+        private BigdataValue parseLiteral() throws RDFParseException {
+
+            final int start = pos;
+
+            pos++; // skip '"'
+
+            while (pos < end && buf[pos] != '"') {
+
+                if (buf[pos] == '\\')
+                    pos++; // skip the escaped character.
+
+                pos++;
+
+            }
+
+            if (pos >= end)
+                error("Unterminated literal");
+
+            final int labelEnd = pos;
+
+            pos++; // skip '"'
+
+            int langStart = -1, dtStart = -1;
+
+            if (pos < end && buf[pos] == '@') {
+
+                langStart = ++pos;
+
+                while (pos < end
+                        && (Character.isLetterOrDigit(buf[pos]) || buf[pos] == '-'))
+                    pos++;
+
+                if (pos == langStart)
+                    error("Expected a language tag");
+
+            } else if (pos + 2 < end && buf[pos] == '^' && buf[pos + 1] == '^') {
+
+                pos += 2;
+
+                if (buf[pos] != '<')
+                    error("Expected '<'");
+
+                dtStart = pos;
+
+                while (pos < end && buf[pos] != '>')
+                    pos++;
+
+                if (pos == end)
+                    error("Expected '>'");
+
+                pos++;
+
+            }
+
+            BigdataValue v = terms.get(buf, start, pos);
+
+            if (v == null) {
+
+                final String label = unescape(new String(buf, start + 1,
+                        labelEnd - start - 1));
+
+                if (langStart != -1) {
+
+                    v = vf.createLiteral(label, new String(buf, langStart, pos
+                            - langStart));
+
+                } else if (dtStart != -1) {
+
+                    v = vf.createLiteral(label, vf.createURI(unescape(new String(
+                            buf, dtStart + 1, pos - dtStart - 2))));
+
+                } else {
+
+                    v = vf.createLiteral(label);
+
+                }
+
+                terms.put(buf, start, pos, v);
+
+            }
+
+            return v;
+
+        }
+
+        private String unescape(final String s) throws RDFParseException {
+
+            if (s.indexOf('\\') == -1)
+                return s;
+
+            try {
+                return NTriplesUtil.unescapeString(s);
+            } catch (IllegalArgumentException ex) {
+                throw new RDFParseException(ex.getMessage(), lineNo, -1);
+            }
+
+        }
+
+        private void error(final String msg) throws RDFParseException {
+
+            throw new RDFParseException(msg + ", found: "
+                    + (pos < end ? "'" + buf[pos] + "'" : "end of line"),
+                    lineNo, -1);
+
+        }
+
+    }
+
+    /**
+     * An open addressing hash map from a range of characters to the
+     * {@link BigdataValue} parsed from those characters. This avoids
+     * allocating a key for each term occurrence.
+     */
+    private static class TermMap {
+
+        private char[][] keys = new char[1024][];
+
+        private BigdataValue[] vals = new BigdataValue[1024];
+
+        private int size = 0;
+
+        BigdataValue get(final char[] buf, final int from, final int to) {
+
+            final int mask = keys.length - 1;
+
+            int i = hash(buf, from, to) & mask;
+
+            char[] k;
+
+            while ((k = keys[i]) != null) {
+
+                if (equals(k, buf, from, to))
+                    return vals[i];
+
+                i = (i + 1) & mask;
+
+            }
+
+            return null;
+
+        }
+
+        void put(final char[] buf, final int from, final int to,
+                final BigdataValue v) {
+
+            if ((size + 1) << 1 > keys.length)
+                rehash();
+
+            final int mask = keys.length - 1;
+
+            int i = hash(buf, from, to) & mask;
+
+            while (keys[i] != null)
+                i = (i + 1) & mask;
+
+            keys[i] = Arrays.copyOfRange(buf, from, to);
+
+            vals[i] = v;
+
+            size++;
+
+        }
+
+        private void rehash() {
+
+            final char[][] oldKeys = keys;
+
+            final BigdataValue[] oldVals = vals;
+
+            keys = new char[oldKeys.length << 1][];
+
+            vals = new BigdataValue[oldKeys.length << 1];
+
+            size = 0;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+
+                if (oldKeys[i] != null)
+                    put(oldKeys[i], 0, oldKeys[i].length, oldVals[i]);
+
+            }
+
+        }
+
+        private static int hash(final char[] buf, final int from, final int to) {
+
+            int h = 0;
+
+            for (int i = from; i < to; i++)
+                h = 31 * h + buf[i];
+
+            return h ^ (h >>> 16);
+
+        }
+
+        private static boolean equals(final char[] k, final char[] buf,
+                final int from, final int to) {
+
+            if (k.length != to - from)
+                return false;
+
+            for (int i = 0; i < k.length; i++) {
+
+                if (k[i] != buf[from + i])
+                    return false;
+
+            }
+
+            return true;
+
+        }
+
+    }
+
+}
@@ -28,6 +28,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package com.bigdata.rdf.sparql.ast;
 
 import java.util.Map;
+import java.util.UUID;
 
 import org.openrdf.model.Value;
 
@@ -110,6 +111,16 @@ public class ASTContainer extends ASTBase {
 		 * Used to prevent running resolution again on consequent calls to query.evaluate
 		 */
         String RESOLVED = "resolved";
+
+        /**
+         * The handle of the prepared query from which this AST was copied
+         * (optional). The optimized query plans for a prepared query are
+         * cached under this handle.
+         * 
+         * @see com.bigdata.rdf.sparql.ast.cache.QueryPlanCache
+         */
+        String PREPARED_QUERY_ID = "preparedQueryId";
+
     }
 
     /**
@@ -312,6 +323,29 @@ public class ASTContainer extends ASTBase {
 
     }
 
+    /**
+     * Set the handle of the prepared query from which this AST was copied.
+     * 
+     * @see Annotations#PREPARED_QUERY_ID
+     */
+    public void setPreparedQueryId(final UUID preparedQueryId) {
+
+        setProperty(Annotations.PREPARED_QUERY_ID, preparedQueryId);
+
+    }
+
+    /**
+     * Return the handle of the prepared query from which this AST was copied
+     * (if any).
+     * 
+     * @see Annotations#PREPARED_QUERY_ID
+     */
+    public UUID getPreparedQueryId() {
+
+        return (UUID) getProperty(Annotations.PREPARED_QUERY_ID);
+
+    }
+
     /**
      * Set the optimized AST model.
      * <p>
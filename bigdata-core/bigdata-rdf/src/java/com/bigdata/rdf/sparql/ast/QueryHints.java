@@ -37,6 +37,8 @@ import com.bigdata.bop.engine.IRunningQuery;
 import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.bop.fed.QueryEngineFactory;
 import com.bigdata.bop.join.HashJoinAnnotations;
+import com.bigdata.bop.join.LeapfrogTriejoinOp;
+import com.bigdata.bop.join.SPOMergeJoinOp;
 import com.bigdata.bop.join.JoinAnnotations;
 import com.bigdata.htree.HTree;
 import com.bigdata.io.DirectBufferPool;
@@ -324,6 +326,45 @@ public interface QueryHints {
 
     boolean DEFAULT_NATIVE_HASH_JOINS = DEFAULT_ANALYTIC;
 
+    /**
+     * When <code>true</code> and {@link #NATIVE_HASH_JOINS} is not enabled,
+     * the hash joins against an access path and the hash indices built for
+     * solution set hash joins (sub-groups, sub-selects, EXISTS, VALUES and
+     * property paths) buffer their solutions on an index which packs join
+     * variables bound to term identifiers or fixed-width inline IVs into
+     * <code>long</code> keys on the native heap. This reduces the heap
+     * pressure of large hash joins. The hash table is allocated from the
+     * memory manager for the query when the first solution is buffered.
+     * <p>
+     * The choice is made automatically from the IVs to which the join
+     * variables are bound. A solution is packed only when all of its join
+     * variables are bound to such IVs. Other solutions are handled using the
+     * Java collection classes. If fewer than half of the first solutions
+     * buffered by a join can be packed, then that join does not use the
+     * native heap at all. The merge join and the pipelined hash join always
+     * use the Java collection classes.
+     * <p>
+     * This query hint is only an override. It may be used to disable the
+     * native heap keys for a query:
+     * 
+     * <pre>
+     * hint:Query hint:inlineHashJoins "false".
+     * </pre>
+     * 
+     * The default is <code>true</code>. The default may be overridden using
+     * the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.inlineHashJoins
+     * </pre>
+     * 
+     * @see com.bigdata.bop.join.InlineIVHashJoinOp
+     */
+    String INLINE_HASH_JOINS = "inlineHashJoins";
+
+    boolean DEFAULT_INLINE_HASH_JOINS = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + INLINE_HASH_JOINS, "true"));
+
     /**
      * When <code>true</code>, a merge-join pattern will be recognized if it
      * appears in a join group. When <code>false</code>, this can still be
@@ -333,6 +374,77 @@ public interface QueryHints {
 
     boolean DEFAULT_MERGE_JOIN = true;
 
+    /**
+     * When <code>true</code>, the static join optimizer will replace the
+     * first two joins in a join group by a {@link SPOMergeJoinOp} when the
+     * two statement patterns share a variable which follows their constants
+     * in some statement index and both have at least
+     * {@link #INDEX_MERGE_JOIN_THRESHOLD} matching statements. The two access
+     * paths are then co-scanned in the order of the shared variable rather
+     * than probing the second access path once per solution of the first.
+     * <p>
+     * Note: This is only supported for triples mode.
+     * 
+     * <pre>
+     * hint:Query hint:indexMergeJoin "false".
+     * </pre>
+     * 
+     * The default is <code>true</code>. The default may be overridden using
+     * the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.indexMergeJoin
+     * </pre>
+     * 
+     * @see #INDEX_MERGE_JOIN_THRESHOLD
+     */
+    String INDEX_MERGE_JOIN = "indexMergeJoin";
+
+    boolean DEFAULT_INDEX_MERGE_JOIN = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + INDEX_MERGE_JOIN, "true"));
+
+    /**
+     * The minimum estimated cardinality of both statement patterns before an
+     * {@link SPOMergeJoinOp} will be used.
+     * 
+     * @see #INDEX_MERGE_JOIN
+     */
+    String INDEX_MERGE_JOIN_THRESHOLD = "indexMergeJoinThreshold";
+
+    long DEFAULT_INDEX_MERGE_JOIN_THRESHOLD = 1000000L;
+
+    /**
+     * When <code>true</code>, the static join optimizer will replace the
+     * leading statement patterns in a join group by a
+     * {@link LeapfrogTriejoinOp} when the join graph of those statement
+     * patterns is cyclic (triangles, cliques, etc). The worst-case optimal
+     * join binds one variable at a time by intersecting the statement indices
+     * and avoids the large intermediate results which a sequence of binary
+     * joins produces for such patterns.
+     * <p>
+     * Note: This is only supported for triples mode. Quads mode was left out
+     * because the operator does not handle named and default graph access
+     * paths. A statement pattern which would have to be buffered in memory
+     * and whose range count exceeds
+     * {@link LeapfrogTriejoinOp.Annotations#MAX_BUFFERED_KEYS} makes the
+     * operator fall back to nested index joins.
+     * 
+     * <pre>
+     * hint:Query hint:leapfrogJoin "false".
+     * </pre>
+     * 
+     * The default is <code>true</code>. The default may be overridden using
+     * the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.leapfrogJoin
+     * </pre>
+     */
+    String LEAPFROG_JOIN = "leapfrogJoin";
+
+    boolean DEFAULT_LEAPFROG_JOIN = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + LEAPFROG_JOIN, "true"));
+
     /**
      * Query hint for disabling the DISTINCT SPO behavior for a CONSTRUCT QUERY
      * (default {@value #DEFAULT_CONSTRUCT_DISTINCT_SPO}). When disabled, the
@@ -804,4 +916,4 @@ public interface QueryHints {
    final static String GEARING_FORWARD = "forward";
    final static String GEARING_REVERSE = "reverse";
    
-}
+}
@@ -36,6 +36,8 @@ import com.bigdata.bop.BOp;
 import com.bigdata.bop.Constant;
 import com.bigdata.bop.IVariable;
 import com.bigdata.bop.NV;
+import com.bigdata.bop.join.LeapfrogTriejoinOp;
+import com.bigdata.bop.join.SPOMergeJoinOp;
 import com.bigdata.htree.HTree;
 import com.bigdata.rdf.internal.constraints.RangeBOp;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpBase;
@@ -216,6 +218,24 @@ public class StatementPatternNode extends
 		 *      PREDICATEs query is slow </a>
 		 */
         String DISTINCT_TERM_SCAN_VAR = "distinctTermScanVar";
+
+        /**
+         * An optional annotation whose value is the variable on which this
+         * triple pattern will be merge joined with the next triple pattern in
+         * the join group by co-scanning their statement indices.
+         * 
+         * @see SPOMergeJoinOp
+         */
+        String INDEX_MERGE_JOIN_VAR = "indexMergeJoinVar";
+
+        /**
+         * An optional annotation whose value is the number of triple patterns,
+         * beginning with this one, which will be evaluated together by a
+         * worst-case optimal join.
+         * 
+         * @see LeapfrogTriejoinOp
+         */
+        String LEAPFROG_JOIN_COUNT = "leapfrogJoinCount";
         
     }
     
@@ -460,6 +480,48 @@ public class StatementPatternNode extends
 		setProperty(Annotations.DISTINCT_TERM_SCAN_VAR, var);
 
 	}
+
+	/**
+	 * Return the variable on which this triple pattern is merge joined with
+	 * the next triple pattern in the join group.
+	 * 
+	 * @return The join variable -or- <code>null</code> if this triple pattern
+	 *         does not begin an index merge join.
+	 * 
+	 * @see Annotations#INDEX_MERGE_JOIN_VAR
+	 */
+	final public VarNode getIndexMergeJoinVar() {
+
+		return (VarNode) getProperty(Annotations.INDEX_MERGE_JOIN_VAR);
+
+	}
+
+	final public void setIndexMergeJoinVar(final VarNode var) {
+
+		setProperty(Annotations.INDEX_MERGE_JOIN_VAR, var);
+
+	}
+
+	/**
+	 * Return the number of triple patterns, beginning with this one, which are
+	 * evaluated together by a worst-case optimal join.
+	 * 
+	 * @return The number of triple patterns -or- ZERO (0) if this triple
+	 *         pattern does not begin such a join.
+	 * 
+	 * @see Annotations#LEAPFROG_JOIN_COUNT
+	 */
+	final public int getLeapfrogJoinCount() {
+
+		return getProperty(Annotations.LEAPFROG_JOIN_COUNT, 0);
+
+	}
+
+	final public void setLeapfrogJoinCount(final int count) {
+
+		setProperty(Annotations.LEAPFROG_JOIN_COUNT, count);
+
+	}
     
     /**
      * {@inheritDoc}
@@ -708,6 +770,16 @@ public class StatementPatternNode extends
 			sb.append(" [distinctTermScan=" + distinctTermScanVar + "]");
 		}
 
+		final VarNode indexMergeJoinVar = getIndexMergeJoinVar();
+		if (indexMergeJoinVar != null) {
+			sb.append(" [indexMergeJoin=" + indexMergeJoinVar + "]");
+		}
+
+		final int leapfrogJoinCount = getLeapfrogJoinCount();
+		if (leapfrogJoinCount != 0) {
+			sb.append(" [leapfrogJoin=" + leapfrogJoinCount + "]");
+		}
+
         if(isOptional()) {
             sb.append(" [optional]");
         }
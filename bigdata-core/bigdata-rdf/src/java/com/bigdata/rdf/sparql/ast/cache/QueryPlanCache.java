@@ -0,0 +1,2009 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.cache;
+
+import info.aduna.iteration.CloseableIteration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.Dataset;
+import org.openrdf.query.QueryEvaluationException;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpBase;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.ITimestampAnnotations;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.ModifiableBOpBase;
+import com.bigdata.bop.NamedSolutionSetRefUtility;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.controller.INamedSolutionSetRef;
+import com.bigdata.bop.controller.ServiceCallJoin;
+import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.bop.engine.StaticAnalysisStats;
+import com.bigdata.journal.AbstractJournal;
+import com.bigdata.journal.ICommitRecord;
+import com.bigdata.journal.TimestampUtility;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.constraints.IVValueExpression;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.BindingsClause;
+import com.bigdata.rdf.sparql.ast.ConstantNode;
+import com.bigdata.rdf.sparql.ast.DatasetNode;
+import com.bigdata.rdf.sparql.ast.FunctionNode;
+import com.bigdata.rdf.sparql.ast.FunctionRegistry;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.QueryType;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.TermNode;
+import com.bigdata.rdf.sparql.ast.VarNode;
+import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
+import com.bigdata.rdf.sparql.ast.eval.DataSetSummary;
+import com.bigdata.rdf.sparql.ast.service.ServiceNode;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.util.NT;
+
+/**
+ * A bounded cache of optimized query plans (and, optionally, of small result
+ * sets) for SELECT queries which are evaluated repeatedly against read-only
+ * views of an {@link AbstractJournal}. There is one cache for each KB
+ * namespace on a {@link QueryEngine}. It is configured by the
+ * {@link Options} of the KB.
+ * <p>
+ * The constants in the subject and object positions of the statement patterns
+ * and the globally scoped bindings are lifted out of the query into
+ * parameters. The plan cache key is formed from the namespace of the KB, the
+ * commit counter of the commit point on which the view reads, the original
+ * (unoptimized) AST with those constants replaced by placeholders, the query
+ * hints on the {@link ASTContainer}, the names of the lifted bindings, any
+ * bindings which were not lifted and the dataset. Queries which differ only in
+ * the values of their parameters therefore share a plan. On a plan cache hit,
+ * the AST optimizer pipeline and the conversion into a query plan are skipped.
+ * The parameters are still resolved against the lexicon. A copy of the cached
+ * plan is then used in which the {@link IV}s of the parameters for which the
+ * plan was generated are replaced by the {@link IV}s of the new parameters,
+ * together with the query UUID and the timestamp of the view which were baked
+ * into the plan.
+ * <p>
+ * A query which was prepared on the server is identified by its handle (see
+ * {@link ASTContainer#getPreparedQueryId()}) instead of its AST, so its plan
+ * is cached per handle and commit point. Its parameters are normally given as
+ * globally scoped bindings.
+ * <p>
+ * A constant or a binding is not lifted when the optimizers could have folded
+ * its value into the plan in a form which can not be replaced: the statement
+ * patterns whose predicate is not a constant or is one of the bigdata magic
+ * predicates (search, query hints, etc.), bindings for variables which are
+ * used in a value expression or in a VALUES clause, and every constant of a
+ * query which invokes a SERVICE. Those values are part of the plan cache key
+ * instead. The cached plan is not reused (the query is optimized again) when
+ * the new parameters are not known to the lexicon, do not have the same kind
+ * of {@link IV} as the parameters of the cached plan, do not preserve the
+ * equalities among those parameters, or collide with a constant which was not
+ * lifted. Note that the join order of a reused plan reflects the range counts
+ * of the parameters for which the plan was generated.
+ * <p>
+ * The result cache is keyed by the plan cache key together with the values of
+ * the parameters. Both caches are invalidated by a commit: the entries for
+ * older commit points are discarded once a view of a newer commit point is
+ * observed.
+ * 
+ * @see Options
+ */
+public class QueryPlanCache {
+
+    private static final Logger log = Logger.getLogger(QueryPlanCache.class);
+
+    /**
+     * Options understood by the {@link QueryPlanCache}. These are specified as
+     * properties of the KB.
+     */
+    public interface Options {
+
+        /**
+         * The maximum #of optimized query plans retained for the KB on each
+         * {@link QueryEngine} (default
+         * {@value #DEFAULT_PLAN_CACHE_CAPACITY}). The plan cache is disabled
+         * if this is ZERO (0).
+         */
+        String PLAN_CACHE_CAPACITY = QueryPlanCache.class.getName()
+                + ".planCacheCapacity";
+
+        String DEFAULT_PLAN_CACHE_CAPACITY = "100";
+
+        /**
+         * The maximum #of result sets retained for the KB on each
+         * {@link QueryEngine} (default
+         * {@value #DEFAULT_RESULT_CACHE_CAPACITY}). The result cache is
+         * disabled if this is ZERO (0).
+         * 
+         * @see #RESULT_CACHE_MAX_SOLUTIONS
+         */
+        String RESULT_CACHE_CAPACITY = QueryPlanCache.class.getName()
+                + ".resultCacheCapacity";
+
+        String DEFAULT_RESULT_CACHE_CAPACITY = "0";
+
+        /**
+         * The maximum #of solutions in a result set which will be entered into
+         * the result cache (default
+         * {@value #DEFAULT_RESULT_CACHE_MAX_SOLUTIONS}).
+         * 
+         * @see #RESULT_CACHE_CAPACITY
+         */
+        String RESULT_CACHE_MAX_SOLUTIONS = QueryPlanCache.class.getName()
+                + ".resultCacheMaxSolutions";
+
+        String DEFAULT_RESULT_CACHE_MAX_SOLUTIONS = "1000";
+
+    }
+
+    /**
+     * Functions which are not deterministic. Queries which use these functions
+     * are not cached since the optimizers may fold them into constants.
+     */
+    private static final List<URI> NON_DETERMINISTIC_FUNCTIONS = Arrays
+            .asList(new URI[] {//
+                    FunctionRegistry.NOW,//
+                    FunctionRegistry.RAND,//
+                    FunctionRegistry.UUID,//
+                    FunctionRegistry.STRUUID,//
+                    FunctionRegistry.BNODE //
+            });
+
+    /**
+     * The namespace shared by the magic predicates of bigdata (search, full
+     * text search, geospatial, GAS, query hints, etc.). The constants of a
+     * statement pattern using such a predicate are not lifted since the
+     * optimizers rewrite those statement patterns into other operators.
+     */
+    private static final String BIGDATA_NAMESPACE = "http://www.bigdata.com/";
+
+    /**
+     * The annotations whose value is the timestamp of the view against which
+     * the plan was generated.
+     */
+    private static final Set<String> TIMESTAMP_ANNOTATIONS = new HashSet<String>(
+            Arrays.asList(new String[] {//
+                    ITimestampAnnotations.TIMESTAMP,//
+                    IVValueExpression.Annotations.TIMESTAMP,//
+                    ServiceCallJoin.Annotations.TIMESTAMP //
+            }));
+
+    /**
+     * The prefix for the names of the variables which replace the lifted
+     * constants in the plan cache key. This is not a legal SPARQL variable
+     * name.
+     */
+    private static final String PARAM = "-param-";
+
+    private static final WeakHashMap<QueryEngine, ConcurrentHashMap<String, QueryPlanCache>> instanceCache = new WeakHashMap<QueryEngine, ConcurrentHashMap<String, QueryPlanCache>>();
+
+    /**
+     * Return the cache for a KB on the {@link QueryEngine}, creating it if
+     * necessary.
+     * 
+     * @param queryEngine
+     *            The query engine.
+     * @param db
+     *            The KB whose {@link Options} configure the cache.
+     * 
+     * @return The cache -or- <code>null</code> if caching is disabled for the
+     *         KB or the query engine is not backed by an
+     *         {@link AbstractJournal}.
+     */
+    static public QueryPlanCache getInstance(final QueryEngine queryEngine,
+            final AbstractTripleStore db) {
+
+        if (queryEngine == null)
+            throw new IllegalArgumentException();
+
+        if (db == null)
+            throw new IllegalArgumentException();
+
+        if (!(queryEngine.getIndexManager() instanceof AbstractJournal))
+            return null;
+
+        ConcurrentHashMap<String, QueryPlanCache> caches;
+
+        synchronized (instanceCache) {
+
+            caches = instanceCache.get(queryEngine);
+
+            if (caches == null) {
+
+                caches = new ConcurrentHashMap<String, QueryPlanCache>();
+
+                instanceCache.put(queryEngine, caches);
+
+            }
+
+        }
+
+        QueryPlanCache cache = caches.get(db.getNamespace());
+
+        if (cache == null) {
+
+            cache = new QueryPlanCache(//
+                    Integer.parseInt(db.getProperty(
+                            Options.PLAN_CACHE_CAPACITY,
+                            Options.DEFAULT_PLAN_CACHE_CAPACITY)),//
+                    Integer.parseInt(db.getProperty(
+                            Options.RESULT_CACHE_CAPACITY,
+                            Options.DEFAULT_RESULT_CACHE_CAPACITY)),//
+                    Integer.parseInt(db.getProperty(
+                            Options.RESULT_CACHE_MAX_SOLUTIONS,
+                            Options.DEFAULT_RESULT_CACHE_MAX_SOLUTIONS))//
+            );
+
+            final QueryPlanCache tmp = caches.putIfAbsent(db.getNamespace(),
+                    cache);
+
+            if (tmp != null)
+                cache = tmp;
+
+        }
+
+        return cache.isEnabled() ? cache : null;
+
+    }
+
+    /**
+     * The key for an entry in the plan cache. This identifies the query up to
+     * the values of its parameters.
+     */
+    private static class PlanKey {
+
+        private final String namespace;
+
+        private final boolean readCommitted;
+
+        private final long commitCounter;
+
+        /**
+         * The handle of the prepared query (if any).
+         * 
+         * @see ASTContainer#getPreparedQueryId()
+         */
+        private final UUID preparedQueryId;
+
+        /**
+         * The original AST with the lifted constants replaced by placeholders
+         * (<code>null</code> for a prepared query, which is identified by its
+         * handle).
+         */
+        private final QueryRoot template;
+
+        private final Map<String, String> queryHints;
+
+        private final List<String> liftedBindings;
+
+        private final Map<String, Value> fixedBindings;
+
+        private final List<Set<URI>> dataset;
+
+        private final int hashCode;
+
+        PlanKey(final String namespace, final boolean readCommitted,
+                final long commitCounter, final UUID preparedQueryId,
+                final QueryRoot template,
+                final Map<String, String> queryHints,
+                final List<String> liftedBindings,
+                final Map<String, Value> fixedBindings,
+                final List<Set<URI>> dataset) {
+
+            this.namespace = namespace;
+            this.readCommitted = readCommitted;
+            this.commitCounter = commitCounter;
+            this.preparedQueryId = preparedQueryId;
+            this.template = template;
+            this.queryHints = queryHints;
+            this.liftedBindings = liftedBindings;
+            this.fixedBindings = fixedBindings;
+            this.dataset = dataset;
+            this.hashCode = (int) (namespace.hashCode()
+                    * 31
+                    + (preparedQueryId != null ? preparedQueryId.hashCode()
+                            : hash(template)) * 13 + fixedBindings.hashCode()
+                    + commitCounter);
+
+        }
+
+        /**
+         * Return a hash code for the structure of an AST. The hash code of an
+         * AST node only reflects its children, not its annotations, and the
+         * top-level clauses of a query are annotations.
+         */
+        private static int hash(final BOp op) {
+
+            int h = 0;
+
+            final Iterator<BOp> itr = BOpUtility
+                    .preOrderIteratorWithAnnotations(op);
+
+            while (itr.hasNext()) {
+
+                final BOp t = itr.next();
+
+                h = 31 * h + t.getClass().getName().hashCode();
+
+                if (t instanceof IVariable<?>) {
+
+                    h = 31 * h + ((IVariable<?>) t).getName().hashCode();
+
+                } else if (t instanceof ConstantNode) {
+
+                    final Value v = ((ConstantNode) t).getValue();
+
+                    h = 31 * h + (v == null ? 0 : v.hashCode());
+
+                }
+
+            }
+
+            return h;
+
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hashCode;
+
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            if (this == o)
+                return true;
+
+            if (!(o instanceof PlanKey))
+                return false;
+
+            final PlanKey t = (PlanKey) o;
+
+            return hashCode == t.hashCode && commitCounter == t.commitCounter
+                    && readCommitted == t.readCommitted
+                    && namespace.equals(t.namespace)
+                    && queryHints.equals(t.queryHints)
+                    && liftedBindings.equals(t.liftedBindings)
+                    && fixedBindings.equals(t.fixedBindings)
+                    && (dataset == null ? t.dataset == null : dataset
+                            .equals(t.dataset))
+                    && (preparedQueryId == null ? t.preparedQueryId == null
+                            : preparedQueryId.equals(t.preparedQueryId))
+                    && (template == null ? t.template == null : template
+                            .equals(t.template));
+
+        }
+
+    }
+
+    /**
+     * The key for an entry in the plan cache and the result cache.
+     */
+    public static class CacheKey {
+
+        private final PlanKey planKey;
+
+        /**
+         * The positions of the lifted constants in the statement patterns of
+         * the query. Each position is the ordinal of the statement pattern in
+         * a pre-order traversal of the query times four plus the index of the
+         * constant in that statement pattern.
+         */
+        private final int[] slots;
+
+        /**
+         * The values of the lifted constants and bindings (in that order).
+         */
+        private final List<Value> values;
+
+        private final boolean cacheSolutions;
+
+        private final int hashCode;
+
+        CacheKey(final PlanKey planKey, final int[] slots,
+                final List<Value> values, final boolean cacheSolutions) {
+
+            this.planKey = planKey;
+            this.slots = slots;
+            this.values = values;
+            this.cacheSolutions = cacheSolutions;
+            this.hashCode = planKey.hashCode() * 31 + values.hashCode();
+
+        }
+
+        /**
+         * The commit counter of the commit point on which the view reads.
+         */
+        public long getCommitCounter() {
+
+            return planKey.commitCounter;
+
+        }
+
+        /**
+         * <code>true</code> iff the solutions for the query may be cached.
+         * This is <code>false</code> for read-committed views (which may read
+         * on a newer commit point than the one in the key) and for queries
+         * which invoke a SERVICE.
+         */
+        public boolean isCacheSolutions() {
+
+            return cacheSolutions;
+
+        }
+
+        /**
+         * The #of constants and bindings which were lifted out of the query.
+         */
+        public int getParameterCount() {
+
+            return values.size();
+
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hashCode;
+
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            if (this == o)
+                return true;
+
+            if (!(o instanceof CacheKey))
+                return false;
+
+            final CacheKey t = (CacheKey) o;
+
+            return hashCode == t.hashCode && values.equals(t.values)
+                    && planKey.equals(t.planKey);
+
+        }
+
+        @Override
+        public String toString() {
+
+            return getClass().getSimpleName() + "{namespace="
+                    + planKey.namespace + ",readCommitted="
+                    + planKey.readCommitted + ",commitCounter="
+                    + planKey.commitCounter + ",values=" + values + "}";
+
+        }
+
+    }
+
+    /**
+     * An optimized query plan together with the parameters, the query UUID and
+     * the view timestamp which were used to generate it.
+     */
+    private static class CachedPlan {
+
+        private final QueryRoot optimizedAST;
+
+        private final IBindingSet[] bindingSets;
+
+        private final PipelineOp queryPlan;
+
+        @SuppressWarnings("rawtypes")
+        private final IV[] params;
+
+        private final UUID queryId;
+
+        private final long timestamp;
+
+        @SuppressWarnings("rawtypes")
+        CachedPlan(final QueryRoot optimizedAST,
+                final IBindingSet[] bindingSets, final PipelineOp queryPlan,
+                final IV[] params, final UUID queryId, final long timestamp) {
+
+            this.optimizedAST = BOpUtility.deepCopy(optimizedAST);
+            this.bindingSets = copy(bindingSets);
+            this.queryPlan = queryPlan;
+            this.params = params.clone();
+            this.queryId = queryId;
+            this.timestamp = timestamp;
+
+        }
+
+    }
+
+    /**
+     * A fully materialized result set.
+     */
+    public static class CachedSolutions {
+
+        private final List<String> projected;
+
+        private final List<BindingSet> solutions;
+
+        CachedSolutions(final List<String> projected,
+                final List<BindingSet> solutions) {
+
+            this.projected = Collections.unmodifiableList(projected);
+            this.solutions = Collections.unmodifiableList(solutions);
+
+        }
+
+        /**
+         * The names of the projected variables.
+         */
+        public List<String> getProjected() {
+
+            return projected;
+
+        }
+
+        /**
+         * The solutions.
+         */
+        public List<BindingSet> getSolutions() {
+
+            return solutions;
+
+        }
+
+    }
+
+    /**
+     * The maximum #of solutions in a result set which will be cached.
+     */
+    private final int maxSolutions;
+
+    /**
+     * The plan cache (LRU, guarded by <code>this</code>).
+     */
+    private final LinkedHashMap<PlanKey, CachedPlan> plans;
+
+    /**
+     * The result cache (LRU, guarded by <code>this</code>).
+     */
+    private final LinkedHashMap<CacheKey, CachedSolutions> results;
+
+    /**
+     * The most recent commit counter observed for a view (guarded by
+     * <code>this</code>).
+     */
+    private long lastCommitCounter = -1L;
+
+    private final AtomicLong planHits = new AtomicLong();
+
+    private final AtomicLong planMisses = new AtomicLong();
+
+    private final AtomicLong resultHits = new AtomicLong();
+
+    private final AtomicLong resultMisses = new AtomicLong();
+
+    /**
+     * @param planCapacity
+     *            The maximum #of query plans in the cache. The plan cache is
+     *            disabled if this is ZERO (0).
+     * @param resultCapacity
+     *            The maximum #of result sets in the cache. The result cache is
+     *            disabled if this is ZERO (0).
+     * @param maxSolutions
+     *            The maximum #of solutions in a result set which will be
+     *            cached.
+     */
+    public QueryPlanCache(final int planCapacity, final int resultCapacity,
+            final int maxSolutions) {
+
+        if (planCapacity < 0)
+            throw new IllegalArgumentException();
+
+        if (resultCapacity < 0)
+            throw new IllegalArgumentException();
+
+        if (maxSolutions < 0)
+            throw new IllegalArgumentException();
+
+        this.maxSolutions = maxSolutions;
+
+        this.plans = planCapacity == 0 ? null : new LruMap<PlanKey, CachedPlan>(
+                planCapacity);
+
+        this.results = resultCapacity == 0 ? null
+                : new LruMap<CacheKey, CachedSolutions>(resultCapacity);
+
+    }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        LruMap(final int capacity) {
+
+            super(capacity, .75f, true/* accessOrder */);
+
+            this.capacity = capacity;
+
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+
+            return size() > capacity;
+
+        }
+
+    }
+
+    /**
+     * <code>true</code> unless both the plan cache and the result cache are
+     * disabled.
+     */
+    public boolean isEnabled() {
+
+        return plans != null || results != null;
+
+    }
+
+    /**
+     * The #of queries for which a cached plan was reused.
+     */
+    public long getPlanHits() {
+
+        return planHits.get();
+
+    }
+
+    /**
+     * The #of cacheable queries for which there was no cached plan.
+     */
+    public long getPlanMisses() {
+
+        return planMisses.get();
+
+    }
+
+    /**
+     * The #of queries for which a cached result set was reused.
+     */
+    public long getResultHits() {
+
+        return resultHits.get();
+
+    }
+
+    /**
+     * The #of cacheable queries for which there was no cached result set.
+     */
+    public long getResultMisses() {
+
+        return resultMisses.get();
+
+    }
+
+    /**
+     * Return the cache key for a SELECT query.
+     * 
+     * @param db
+     *            The view of the KB against which the query will be evaluated.
+     * @param astContainer
+     *            The query (the original AST must not have been resolved or
+     *            optimized yet).
+     * @param globallyScopedBS
+     *            The globally scoped bindings (optional).
+     * @param dataset
+     *            The dataset (optional).
+     * 
+     * @return The key -or- <code>null</code> if the query can not be cached.
+     *         Queries can not be cached unless the view is read-only and
+     *         reads on a known commit point of an {@link AbstractJournal}.
+     *         Queries using non-deterministic functions are never cached.
+     */
+    public CacheKey getKey(final AbstractTripleStore db,
+            final ASTContainer astContainer,
+            final BindingSet globallyScopedBS, final Dataset dataset) {
+
+        final long timestamp = db.getTimestamp();
+
+        if (!TimestampUtility.isReadOnly(timestamp))
+            return null;
+
+        if (!(db.getIndexManager() instanceof AbstractJournal))
+            return null;
+
+        final QueryRoot queryRoot = astContainer.getOriginalAST();
+
+        if (queryRoot == null || queryRoot.getQueryType() != QueryType.SELECT)
+            return null;
+
+        boolean hasService = false;
+
+        // Variables which are used in value expressions or VALUES clauses.
+        final Set<String> exprVars = new HashSet<String>();
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(queryRoot);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (op instanceof FunctionNode) {
+
+                if (NON_DETERMINISTIC_FUNCTIONS.contains(((FunctionNode) op)
+                        .getFunctionURI())) {
+
+                    return null;
+
+                }
+
+                addVars(op, exprVars);
+
+            } else if (op instanceof BindingsClause) {
+
+                for (IVariable<?> var : ((BindingsClause) op)
+                        .getDeclaredVariables()) {
+
+                    exprVars.add(var.getName());
+
+                }
+
+            } else if (op instanceof ServiceNode) {
+
+                hasService = true;
+
+            }
+
+        }
+
+        final long commitCounter = getCommitCounter(
+                (AbstractJournal) db.getIndexManager(), timestamp);
+
+        if (commitCounter < 0L)
+            return null;
+
+        // Note: Nothing is lifted from a query which invokes a SERVICE.
+        final boolean lift = !hasService;
+
+        final List<Value> values = new ArrayList<Value>();
+
+        /*
+         * Replace the constants which are lifted by placeholders in a copy of
+         * the original AST. A prepared query is identified by its handle
+         * instead, since every execution uses a copy of the same parse.
+         */
+        final int[] slots = lift ? getSlots(queryRoot) : new int[0];
+
+        final UUID preparedQueryId = astContainer.getPreparedQueryId();
+
+        final QueryRoot template = preparedQueryId != null ? null
+                : BOpUtility.deepCopy(queryRoot);
+
+        {
+
+            final List<StatementPatternNode> a = getStatementPatterns(queryRoot);
+
+            final List<StatementPatternNode> b = template == null ? null
+                    : getStatementPatterns(template);
+
+            for (int i = 0; i < slots.length; i++) {
+
+                final int index = slots[i] % 4;
+
+                values.add(((ConstantNode) a.get(slots[i] / 4).get(index))
+                        .getValue());
+
+                if (b != null)
+                    b.get(slots[i] / 4).setArg(index, new VarNode(PARAM + i));
+
+            }
+
+        }
+
+        final Map<String, String> hints = new TreeMap<String, String>();
+
+        final Properties queryHints = astContainer.getQueryHints();
+
+        if (queryHints != null) {
+
+            // Note: The query UUID is not part of the key.
+            for (String name : queryHints.stringPropertyNames()) {
+
+                if (QueryHints.QUERYID.equals(name))
+                    continue;
+
+                hints.put(name, queryHints.getProperty(name));
+
+            }
+
+        }
+
+        final List<String> liftedBindings = new ArrayList<String>();
+
+        final Map<String, Value> fixedBindings = new TreeMap<String, Value>();
+
+        if (globallyScopedBS != null && globallyScopedBS.size() > 0) {
+
+            // Note: Put the bindings into a stable order.
+            for (String name : new TreeMap<String, Value>(
+                    toMap(globallyScopedBS)).keySet()) {
+
+                final Value value = globallyScopedBS.getValue(name);
+
+                if (lift && !exprVars.contains(name)) {
+
+                    liftedBindings.add(name);
+
+                    values.add(value);
+
+                } else {
+
+                    fixedBindings.put(name, value);
+
+                }
+
+            }
+
+        }
+
+        List<Set<URI>> datasetKey = null;
+
+        if (dataset != null) {
+
+            datasetKey = new ArrayList<Set<URI>>(2);
+
+            datasetKey.add(new HashSet<URI>(dataset.getDefaultGraphs()));
+
+            datasetKey.add(new HashSet<URI>(dataset.getNamedGraphs()));
+
+        }
+
+        final boolean readCommitted = TimestampUtility
+                .isReadCommitted(timestamp);
+
+        synchronized (this) {
+
+            if (commitCounter > lastCommitCounter) {
+
+                // Discard the entries for older commit points.
+                purge(plans, commitCounter);
+                purge(results, commitCounter);
+
+                lastCommitCounter = commitCounter;
+
+            }
+
+        }
+
+        final PlanKey planKey = new PlanKey(db.getNamespace(), readCommitted,
+                commitCounter, preparedQueryId, template, hints, liftedBindings, fixedBindings,
+                datasetKey);
+
+        return new CacheKey(planKey, slots, values, !readCommitted
+                && !hasService);
+
+    }
+
+    private static Map<String, Value> toMap(final BindingSet bset) {
+
+        final Map<String, Value> map = new HashMap<String, Value>();
+
+        for (String name : bset.getBindingNames()) {
+
+            map.put(name, bset.getValue(name));
+
+        }
+
+        return map;
+
+    }
+
+    /**
+     * Add the names of the variables used within an operator.
+     */
+    private static void addVars(final BOp op, final Set<String> vars) {
+
+        final Iterator<BOp> itr = BOpUtility.preOrderIteratorWithAnnotations(op);
+
+        while (itr.hasNext()) {
+
+            final BOp t = itr.next();
+
+            if (t instanceof IVariable<?>) {
+
+                vars.add(((IVariable<?>) t).getName());
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Return the statement patterns of a query in a pre-order traversal
+     * (including the graph patterns which are annotations, e.g., for FILTER
+     * EXISTS).
+     */
+    private static List<StatementPatternNode> getStatementPatterns(
+            final QueryRoot queryRoot) {
+
+        final List<StatementPatternNode> a = new ArrayList<StatementPatternNode>();
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(queryRoot);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (op instanceof StatementPatternNode)
+                a.add((StatementPatternNode) op);
+
+        }
+
+        return a;
+
+    }
+
+    /**
+     * Return the positions of the constants which will be lifted out of the
+     * query. These are the constants in the subject and object positions of
+     * the statement patterns whose predicate is a constant which is not a
+     * bigdata magic predicate.
+     * 
+     * @see CacheKey#slots
+     */
+    private static int[] getSlots(final QueryRoot queryRoot) {
+
+        final List<StatementPatternNode> a = getStatementPatterns(queryRoot);
+
+        final List<Integer> slots = new ArrayList<Integer>();
+
+        for (int i = 0; i < a.size(); i++) {
+
+            final StatementPatternNode sp = a.get(i);
+
+            final TermNode p = sp.p();
+
+            if (!(p instanceof ConstantNode))
+                continue;
+
+            final BigdataValue pval = ((ConstantNode) p).getValue();
+
+            if (!(pval instanceof URI)
+                    || pval.stringValue().startsWith(BIGDATA_NAMESPACE))
+                continue;
+
+            if (sp.s() instanceof ConstantNode)
+                slots.add(i * 4 + 0);
+
+            if (sp.o() instanceof ConstantNode)
+                slots.add(i * 4 + 2);
+
+        }
+
+        final int[] b = new int[slots.size()];
+
+        for (int i = 0; i < b.length; i++)
+            b[i] = slots.get(i);
+
+        return b;
+
+    }
+
+    /**
+     * Return the {@link IV}s of the parameters of a query whose original AST
+     * and globally scoped bindings have been resolved against the lexicon.
+     * 
+     * @param key
+     *            The key for the query.
+     * @param astContainer
+     *            The query.
+     * @param bindingSets
+     *            The resolved globally scoped bindings.
+     * 
+     * @return The {@link IV}s for the constants and bindings which were lifted
+     *         out of the query -or- <code>null</code> if some parameter is not
+     *         known to the lexicon or has the same {@link IV} as some constant
+     *         which was not lifted. In the latter case the plan can not be
+     *         rewritten for other parameters, so it is neither reused nor
+     *         cached.
+     */
+    @SuppressWarnings("rawtypes")
+    public IV[] getParameters(final CacheKey key,
+            final ASTContainer astContainer, final IBindingSet[] bindingSets) {
+
+        final QueryRoot queryRoot = astContainer.getOriginalAST();
+
+        final List<String> liftedBindings = key.planKey.liftedBindings;
+
+        final IV[] params = new IV[key.slots.length + liftedBindings.size()];
+
+        // The lifted constants.
+        final Map<ConstantNode, ConstantNode> lifted = new IdentityHashMap<ConstantNode, ConstantNode>();
+
+        final List<StatementPatternNode> a = getStatementPatterns(queryRoot);
+
+        int n = 0;
+
+        for (int slot : key.slots) {
+
+            final ConstantNode c = (ConstantNode) a.get(slot / 4).get(slot % 4);
+
+            lifted.put(c, c);
+
+            params[n++] = c.getValueExpression().get();
+
+        }
+
+        final IBindingSet bset = bindingSets == null
+                || bindingSets.length == 0 ? null : bindingSets[0];
+
+        for (String name : liftedBindings) {
+
+            final IConstant<?> c = bset == null ? null : bset.get(Var
+                    .var(name));
+
+            params[n++] = c == null ? null : (IV) c.get();
+
+        }
+
+        for (IV iv : params) {
+
+            if (iv == null || iv.isNullIV()) {
+
+                // Not known to the lexicon.
+                return null;
+
+            }
+
+        }
+
+        /*
+         * Collect the IVs of the constants which were not lifted.
+         */
+        final Set<IV> other = new HashSet<IV>();
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(queryRoot);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (op instanceof ConstantNode) {
+
+                if (!lifted.containsKey(op))
+                    other.add(((ConstantNode) op).getValueExpression().get());
+
+            } else if (op instanceof BindingsClause) {
+
+                final List<IBindingSet> list = ((BindingsClause) op)
+                        .getBindingSets();
+
+                if (list != null)
+                    for (IBindingSet t : list)
+                        addIVs(t, other);
+
+            } else if (op instanceof DatasetNode) {
+
+                addIVs(((DatasetNode) op).getDefaultGraphs(), other);
+
+                addIVs(((DatasetNode) op).getNamedGraphs(), other);
+
+            }
+
+        }
+
+        if (bset != null) {
+
+            for (String name : key.planKey.fixedBindings.keySet()) {
+
+                final IConstant<?> c = bset.get(Var.var(name));
+
+                if (c != null && c.get() instanceof IV)
+                    other.add((IV) c.get());
+
+            }
+
+        }
+
+        for (IV iv : params) {
+
+            if (other.contains(iv)) {
+
+                if (log.isDebugEnabled())
+                    log.debug("Parameter is also a constant: " + iv);
+
+                return null;
+
+            }
+
+        }
+
+        return params;
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void addIVs(final IBindingSet bset, final Set<IV> ivs) {
+
+        final Iterator<Map.Entry<IVariable, IConstant>> itr = bset.iterator();
+
+        while (itr.hasNext()) {
+
+            final Object v = itr.next().getValue().get();
+
+            if (v instanceof IV)
+                ivs.add((IV) v);
+
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void addIVs(final DataSetSummary summary, final Set<IV> ivs) {
+
+        if (summary != null && summary.graphs != null)
+            ivs.addAll(summary.graphs);
+
+    }
+
+    /**
+     * Return the commit counter for the commit point on which a read-only view
+     * reads.
+     * 
+     * @return The commit counter -or- <code>-1L</code> if there is no such
+     *         commit point.
+     */
+    private static long getCommitCounter(final AbstractJournal jnl,
+            final long timestamp) {
+
+        if (TimestampUtility.isReadCommitted(timestamp)) {
+
+            return jnl.getRootBlockView().getCommitCounter();
+
+        }
+
+        /*
+         * Note: This handles both commit times and read-only transactions. The
+         * identifier for a read-only tx is GTE the commit time on which it
+         * reads and LT the next commit time.
+         */
+        final ICommitRecord commitRecord = jnl.getCommitRecord(timestamp);
+
+        if (commitRecord == null)
+            return -1L;
+
+        return commitRecord.getCommitCounter();
+
+    }
+
+    private static void purge(final Map<?, ?> map, final long commitCounter) {
+
+        if (map == null)
+            return;
+
+        final Iterator<?> itr = map.keySet().iterator();
+
+        while (itr.hasNext()) {
+
+            final Object k = itr.next();
+
+            final PlanKey planKey = k instanceof CacheKey ? ((CacheKey) k).planKey
+                    : (PlanKey) k;
+
+            if (planKey.commitCounter < commitCounter)
+                itr.remove();
+
+        }
+
+    }
+
+    /**
+     * Lookup a cached query plan. On a hit, a copy of the optimized AST, the
+     * optimized binding sets and the query plan are set on the
+     * {@link ASTContainer}. The copy is rewritten for the parameters, the
+     * query UUID and the view timestamp of the given evaluation context.
+     * 
+     * @param key
+     *            The key.
+     * @param params
+     *            The {@link IV}s of the parameters of the query (from
+     *            {@link #getParameters(CacheKey, ASTContainer, IBindingSet[])}
+     *            ).
+     * @param astContainer
+     *            The query.
+     * @param ctx
+     *            The evaluation context for the query.
+     * 
+     * @return The optimized AST -or- <code>null</code> if there is no cached
+     *         query plan which can be used for those parameters.
+     */
+    @SuppressWarnings("rawtypes")
+    public QueryRoot getPlan(final CacheKey key, final IV[] params,
+            final ASTContainer astContainer, final AST2BOpContext ctx) {
+
+        if (plans == null)
+            return null;
+
+        final CachedPlan plan;
+
+        synchronized (this) {
+
+            plan = plans.get(key.planKey);
+
+        }
+
+        final Map<IV, IV> ivs = plan == null ? null : getMapping(plan.params,
+                params);
+
+        if (ivs == null) {
+
+            planMisses.incrementAndGet();
+
+            return null;
+
+        }
+
+        final PlanRewriter rewriter = new PlanRewriter(plan.queryId,
+                ctx.queryId, plan.timestamp, ctx.getTimestamp(), ivs);
+
+        final PipelineOp queryPlan;
+
+        final QueryRoot optimizedAST;
+
+        try {
+
+            queryPlan = (PipelineOp) rewriter.rewrite(plan.queryPlan);
+
+            optimizedAST = BOpUtility.deepCopy(plan.optimizedAST);
+
+            rewriter.rewriteInPlace(optimizedAST);
+
+        } catch (RuntimeException ex) {
+
+            /*
+             * Some operator could not be copied. Drop the plan and let the
+             * caller optimize the query.
+             */
+
+            log.warn("Could not reuse query plan: " + ex, ex);
+
+            synchronized (this) {
+
+                plans.remove(key.planKey);
+
+            }
+
+            planMisses.incrementAndGet();
+
+            return null;
+
+        }
+
+        final IBindingSet[] bindingSets = copy(plan.bindingSets);
+
+        if (bindingSets != null) {
+
+            for (int i = 0; i < bindingSets.length; i++) {
+
+                bindingSets[i] = rewriter.rewrite(bindingSets[i]);
+
+            }
+
+        }
+
+        astContainer.setOptimizedAST(optimizedAST);
+
+        astContainer.setQueryPlan(queryPlan);
+
+        astContainer.setOptimizedASTBindingSets(bindingSets);
+
+        final StaticAnalysisStats stats = new StaticAnalysisStats();
+
+        stats.registerParserCall(astContainer);
+
+        ctx.setStaticAnalysisStats(stats);
+
+        planHits.incrementAndGet();
+
+        if (log.isDebugEnabled())
+            log.debug("Reusing query plan: " + key);
+
+        return optimizedAST;
+
+    }
+
+    /**
+     * Return the mapping from the {@link IV}s of the parameters of a cached
+     * plan onto the {@link IV}s of the parameters of a query. Parameters
+     * which are the same are not included.
+     * 
+     * @return The mapping -or- <code>null</code> if the plan can not be
+     *         rewritten for those parameters. This is the case if some
+     *         parameter has a different kind of {@link IV} or if the equality
+     *         relation among the parameters is not the same.
+     */
+    @SuppressWarnings("rawtypes")
+    static Map<IV, IV> getMapping(final IV[] oldParams, final IV[] newParams) {
+
+        if (oldParams.length != newParams.length)
+            return null;
+
+        final Map<IV, IV> map = new HashMap<IV, IV>();
+
+        for (int i = 0; i < oldParams.length; i++) {
+
+            final IV o = oldParams[i];
+
+            final IV n = newParams[i];
+
+            if (o.getClass() != n.getClass())
+                return null;
+
+            final IV t = map.put(o, n);
+
+            if (t != null && !t.equals(n))
+                return null;
+
+        }
+
+        if (new HashSet<IV>(map.values()).size() != map.size()) {
+
+            // Two parameters which were distinct are now the same.
+            return null;
+
+        }
+
+        final Iterator<Map.Entry<IV, IV>> itr = map.entrySet().iterator();
+
+        while (itr.hasNext()) {
+
+            final Map.Entry<IV, IV> e = itr.next();
+
+            if (e.getKey().equals(e.getValue()))
+                itr.remove();
+
+        }
+
+        return map;
+
+    }
+
+    /**
+     * Cache the query plan which was generated for the query.
+     * 
+     * @param key
+     *            The key.
+     * @param params
+     *            The {@link IV}s of the parameters for which the plan was
+     *            generated.
+     * @param astContainer
+     *            The query (the optimized AST and the query plan must have been
+     *            set).
+     * @param ctx
+     *            The evaluation context which was used to generate the plan.
+     */
+    @SuppressWarnings("rawtypes")
+    public void putPlan(final CacheKey key, final IV[] params,
+            final ASTContainer astContainer, final AST2BOpContext ctx) {
+
+        if (plans == null)
+            return;
+
+        final CachedPlan plan = new CachedPlan(astContainer.getOptimizedAST(),
+                astContainer.getOptimizedASTBindingSets(),
+                astContainer.getQueryPlan(), params, ctx.queryId,
+                ctx.getTimestamp());
+
+        synchronized (this) {
+
+            if (key.planKey.commitCounter >= lastCommitCounter) {
+
+                plans.put(key.planKey, plan);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Lookup a cached result set.
+     * 
+     * @param key
+     *            The key.
+     * 
+     * @return The cached result set -or- <code>null</code> if there is no
+     *         result set for that key.
+     */
+    public CachedSolutions getSolutions(final CacheKey key) {
+
+        if (results == null || !key.cacheSolutions)
+            return null;
+
+        final CachedSolutions solutions;
+
+        synchronized (this) {
+
+            solutions = results.get(key);
+
+        }
+
+        if (solutions == null) {
+
+            resultMisses.incrementAndGet();
+
+            return null;
+
+        }
+
+        resultHits.incrementAndGet();
+
+        return solutions;
+
+    }
+
+    /**
+     * Wrap the solutions for a query such that they are entered into the
+     * result cache once they have been fully drained. The solutions are not
+     * cached if the iteration is closed before it is exhausted or if there are
+     * more than the maximum #of solutions for a cached result set.
+     * 
+     * @param key
+     *            The key.
+     * @param projected
+     *            The names of the projected variables.
+     * @param src
+     *            The solutions.
+     * 
+     * @return The wrapped iteration (or the source iteration if the solutions
+     *         can not be cached).
+     */
+    public CloseableIteration<BindingSet, QueryEvaluationException> cacheSolutions(
+            final CacheKey key, final List<String> projected,
+            final CloseableIteration<BindingSet, QueryEvaluationException> src) {
+
+        if (results == null || !key.cacheSolutions)
+            return src;
+
+        return new CachingIteration(key, projected, src);
+
+    }
+
+    private void putSolutions(final CacheKey key,
+            final CachedSolutions solutions) {
+
+        synchronized (this) {
+
+            if (key.planKey.commitCounter >= lastCommitCounter) {
+
+                results.put(key, solutions);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Collects the solutions as they are visited and enters them into the
+     * result cache when the source is exhausted.
+     */
+    private class CachingIteration implements
+            CloseableIteration<BindingSet, QueryEvaluationException> {
+
+        private final CacheKey key;
+
+        private final List<String> projected;
+
+        private final CloseableIteration<BindingSet, QueryEvaluationException> src;
+
+        /**
+         * The solutions visited so far and <code>null</code> once we know that
+         * the result set will not be cached.
+         */
+        private List<BindingSet> solutions = new ArrayList<BindingSet>();
+
+        CachingIteration(final CacheKey key, final List<String> projected,
+                final CloseableIteration<BindingSet, QueryEvaluationException> src) {
+
+            this.key = key;
+            this.projected = projected;
+            this.src = src;
+
+        }
+
+        @Override
+        public boolean hasNext() throws QueryEvaluationException {
+
+            if (src.hasNext())
+                return true;
+
+            if (solutions != null) {
+
+                putSolutions(key, new CachedSolutions(projected, solutions));
+
+                solutions = null;
+
+            }
+
+            return false;
+
+        }
+
+        @Override
+        public BindingSet next() throws QueryEvaluationException {
+
+            final BindingSet bset = src.next();
+
+            if (solutions != null) {
+
+                if (solutions.size() < maxSolutions) {
+
+                    solutions.add(bset);
+
+                } else {
+
+                    // Too many solutions.
+                    solutions = null;
+
+                }
+
+            }
+
+            return bset;
+
+        }
+
+        @Override
+        public void remove() throws QueryEvaluationException {
+
+            throw new UnsupportedOperationException();
+
+        }
+
+        @Override
+        public void close() throws QueryEvaluationException {
+
+            // Note: Not cached unless the source was exhausted.
+            solutions = null;
+
+            src.close();
+
+        }
+
+    }
+
+    private static IBindingSet[] copy(final IBindingSet[] bindingSets) {
+
+        if (bindingSets == null)
+            return null;
+
+        final IBindingSet[] a = new IBindingSet[bindingSets.length];
+
+        for (int i = 0; i < a.length; i++) {
+
+            a[i] = bindingSets[i].clone();
+
+        }
+
+        return a;
+
+    }
+
+    /**
+     * Rewrites a cached query plan (or a copy of the optimized AST), replacing
+     * the {@link IV}s of the parameters, the query UUID and the view timestamp
+     * which were used to generate the plan. Only the annotations which are
+     * known to carry the query UUID or the view timestamp are rewritten.
+     * Immutable operators ({@link BOpBase}) are copied using their
+     * copy-on-write methods and only when they (or one of their children or
+     * annotations) were modified. Mutable operators (AST nodes) are rewritten
+     * in place, so they must already have been copied (see
+     * {@link BOpUtility#deepCopy(BOp)}). AST nodes which are attached to a
+     * query plan are copied before they are rewritten.
+     */
+    static class PlanRewriter {
+
+        private final UUID oldQueryId;
+
+        private final UUID newQueryId;
+
+        private final long oldTimestamp;
+
+        private final long newTimestamp;
+
+        @SuppressWarnings("rawtypes")
+        private final Map<IV, IV> ivs;
+
+        @SuppressWarnings("rawtypes")
+        PlanRewriter(final UUID oldQueryId, final UUID newQueryId,
+                final long oldTimestamp, final long newTimestamp,
+                final Map<IV, IV> ivs) {
+
+            this.oldQueryId = oldQueryId;
+            this.newQueryId = newQueryId;
+            this.oldTimestamp = oldTimestamp;
+            this.newTimestamp = newTimestamp;
+            this.ivs = ivs;
+
+        }
+
+        /**
+         * Return the rewritten operator (copy-on-write).
+         */
+        BOp rewrite(final BOp op) {
+
+            if (op instanceof IConstant<?>) {
+
+                return rewrite((IConstant<?>) op);
+
+            }
+
+            if (op instanceof ModifiableBOpBase) {
+
+                final ModifiableBOpBase tmp = BOpUtility
+                        .deepCopy((ModifiableBOpBase) op);
+
+                return rewriteInPlace(tmp) ? tmp : op;
+
+            }
+
+            if (!(op instanceof BOpBase) || op instanceof IVariable<?>) {
+
+                return op;
+
+            }
+
+            BOpBase t = (BOpBase) op;
+
+            final int arity = op.arity();
+
+            for (int i = 0; i < arity; i++) {
+
+                final BOp child = op.get(i);
+
+                // depth first recursion.
+                final BOp tmp = child == null ? null : rewrite(child);
+
+                if (tmp != child)
+                    t = t.setArg(i, tmp);
+
+            }
+
+            for (Map.Entry<String, Object> e : op.annotations().entrySet()) {
+
+                final Object oval = e.getValue();
+
+                final Object nval = rewriteValue(e.getKey(), oval);
+
+                if (nval != oval)
+                    t = t.setProperty(e.getKey(), nval);
+
+            }
+
+            return t;
+
+        }
+
+        /**
+         * Rewrite a mutable operator in place.
+         * 
+         * @return <code>true</code> iff the operator was modified.
+         */
+        boolean rewriteInPlace(final ModifiableBOpBase op) {
+
+            boolean modified = false;
+
+            final int arity = op.arity();
+
+            for (int i = 0; i < arity; i++) {
+
+                final BOp child = op.get(i);
+
+                if (child instanceof ModifiableBOpBase) {
+
+                    if (rewriteInPlace((ModifiableBOpBase) child))
+                        modified = true;
+
+                } else if (child != null) {
+
+                    final BOp tmp = rewrite(child);
+
+                    if (tmp != child) {
+
+                        op.setArg(i, tmp);
+
+                        modified = true;
+
+                    }
+
+                }
+
+            }
+
+            // Note: Copy the entries since setProperty() modifies the map.
+            for (Map.Entry<String, Object> e : new ArrayList<Map.Entry<String, Object>>(
+                    op.annotations().entrySet())) {
+
+                final Object oval = e.getValue();
+
+                if (oval instanceof ModifiableBOpBase) {
+
+                    if (rewriteInPlace((ModifiableBOpBase) oval))
+                        modified = true;
+
+                    continue;
+
+                }
+
+                final Object nval = rewriteValue(e.getKey(), oval);
+
+                if (nval != oval) {
+
+                    op.setProperty(e.getKey(), nval);
+
+                    modified = true;
+
+                }
+
+            }
+
+            return modified;
+
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private IConstant<?> rewrite(final IConstant<?> c) {
+
+            final Object val = c.get();
+
+            final IV iv = val instanceof IV ? ivs.get(val) : null;
+
+            if (iv == null)
+                return c;
+
+            final IVariable var = c instanceof Constant<?> ? ((Constant<?>) c)
+                    .getVar() : null;
+
+            return var == null ? new Constant<IV>(iv) : new Constant<IV>(var,
+                    iv);
+
+        }
+
+        /**
+         * Return the rewritten binding set (or the given binding set if it was
+         * not modified).
+         */
+        @SuppressWarnings("rawtypes")
+        IBindingSet rewrite(final IBindingSet bset) {
+
+            IBindingSet t = null;
+
+            final Iterator<Map.Entry<IVariable, IConstant>> itr = bset
+                    .iterator();
+
+            while (itr.hasNext()) {
+
+                final Map.Entry<IVariable, IConstant> e = itr.next();
+
+                final IConstant<?> c = rewrite((IConstant<?>) e.getValue());
+
+                if (c != e.getValue()) {
+
+                    if (t == null)
+                        t = bset.clone();
+
+                    t.set(e.getKey(), c);
+
+                }
+
+            }
+
+            return t == null ? bset : t;
+
+        }
+
+        private Object rewriteValue(final String name, final Object val) {
+
+            if (val instanceof BOp) {
+
+                return rewrite((BOp) val);
+
+            } else if (val instanceof BOp[]) {
+
+                final BOp[] a = (BOp[]) val;
+
+                BOp[] b = null;
+
+                for (int i = 0; i < a.length; i++) {
+
+                    final BOp t = a[i] == null ? null : rewrite(a[i]);
+
+                    if (t != a[i]) {
+
+                        if (b == null)
+                            b = a.clone();
+
+                        b[i] = t;
+
+                    }
+
+                }
+
+                return b == null ? val : b;
+
+            } else if (val instanceof IBindingSet[]) {
+
+                final IBindingSet[] a = (IBindingSet[]) val;
+
+                IBindingSet[] b = null;
+
+                for (int i = 0; i < a.length; i++) {
+
+                    final IBindingSet t = a[i] == null ? null : rewrite(a[i]);
+
+                    if (t != a[i]) {
+
+                        if (b == null)
+                            b = a.clone();
+
+                        b[i] = t;
+
+                    }
+
+                }
+
+                return b == null ? val : b;
+
+            } else if (val instanceof INamedSolutionSetRef) {
+
+                return rewrite((INamedSolutionSetRef) val);
+
+            } else if (val instanceof INamedSolutionSetRef[]) {
+
+                final INamedSolutionSetRef[] a = (INamedSolutionSetRef[]) val;
+
+                INamedSolutionSetRef[] b = null;
+
+                for (int i = 0; i < a.length; i++) {
+
+                    final INamedSolutionSetRef t = rewrite(a[i]);
+
+                    if (t != a[i]) {
+
+                        if (b == null)
+                            b = a.clone();
+
+                        b[i] = t;
+
+                    }
+
+                }
+
+                return b == null ? val : b;
+
+            } else if (val instanceof NT) {
+
+                final NT nt = (NT) val;
+
+                if (nt.getTimestamp() == oldTimestamp
+                        && oldTimestamp != newTimestamp)
+                    return new NT(nt.getName(), newTimestamp);
+
+            } else if (val instanceof IV) {
+
+                final IV<?, ?> iv = ivs.get(val);
+
+                if (iv != null)
+                    return iv;
+
+            } else if (val instanceof UUID) {
+
+                if (QueryEngine.Annotations.QUERY_ID.equals(name)
+                        && val.equals(oldQueryId) && !val.equals(newQueryId))
+                    return newQueryId;
+
+            } else if (val instanceof Long) {
+
+                if (TIMESTAMP_ANNOTATIONS.contains(name)
+                        && ((Long) val).longValue() == oldTimestamp
+                        && oldTimestamp != newTimestamp)
+                    return Long.valueOf(newTimestamp);
+
+            }
+
+            return val;
+
+        }
+
+        private INamedSolutionSetRef rewrite(final INamedSolutionSetRef ref) {
+
+            if (ref == null)
+                return ref;
+
+            if (ref.getQueryId() != null) {
+
+                if (ref.getQueryId().equals(oldQueryId)
+                        && !oldQueryId.equals(newQueryId)) {
+
+                    return NamedSolutionSetRefUtility.newInstance(newQueryId,
+                            ref.getLocalName(), ref.getJoinVars());
+
+                }
+
+            } else if (ref.getNamespace() != null) {
+
+                if (ref.getTimestamp() == oldTimestamp
+                        && oldTimestamp != newTimestamp) {
+
+                    return NamedSolutionSetRefUtility.newInstance(
+                            ref.getNamespace(), newTimestamp,
+                            ref.getLocalName(), ref.getJoinVars());
+
+                }
+
+            }
+
+            return ref;
+
+        }
+
+    }
+
+}
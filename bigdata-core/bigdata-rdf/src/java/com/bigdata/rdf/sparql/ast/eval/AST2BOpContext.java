@@ -209,6 +209,16 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
      * @see QueryHints#NATIVE_HASH_JOINS
      */
     public boolean nativeHashJoins = QueryHints.DEFAULT_NATIVE_HASH_JOINS;
+
+    /**
+     * When <code>true</code>, hash joins against an access path and solution
+     * set hash joins which are not based on the {@link HTree} pack the join
+     * variables into primitive keys on the native heap where the IVs to which
+     * they are bound allow it.
+     * 
+     * @see QueryHints#INLINE_HASH_JOINS
+     */
+    public boolean inlineHashJoins = QueryHints.DEFAULT_INLINE_HASH_JOINS;
     
     /**
      * When <code>true</code>, use pipelined hash join operations wherever
@@ -227,6 +237,30 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
      * @see QueryHints#MERGE_JOIN
      */
     public boolean mergeJoin = QueryHints.DEFAULT_MERGE_JOIN;
+
+    /**
+     * When <code>true</code>, the static join optimizer may choose a merge
+     * join which co-scans two statement indices.
+     * 
+     * @see QueryHints#INDEX_MERGE_JOIN
+     */
+    public boolean indexMergeJoin = QueryHints.DEFAULT_INDEX_MERGE_JOIN;
+
+    /**
+     * The minimum estimated cardinality of both statement patterns for an
+     * index merge join.
+     * 
+     * @see QueryHints#INDEX_MERGE_JOIN_THRESHOLD
+     */
+    public long indexMergeJoinThreshold = QueryHints.DEFAULT_INDEX_MERGE_JOIN_THRESHOLD;
+
+    /**
+     * When <code>true</code>, the static join optimizer may choose a worst-case
+     * optimal join for cyclic join groups.
+     * 
+     * @see QueryHints#LEAPFROG_JOIN
+     */
+    public boolean leapfrogJoin = QueryHints.DEFAULT_LEAPFROG_JOIN;
     
     /**
      * The maximum parallelism for a solution set hash join when the join is
@@ -59,9 +59,12 @@ import com.bigdata.bop.join.HTreeHashJoinAnnotations;
 import com.bigdata.bop.join.HTreeHashJoinOp;
 import com.bigdata.bop.join.HashJoinAnnotations;
 import com.bigdata.bop.join.HashJoinOp;
+import com.bigdata.bop.join.InlineIVHashJoinOp;
 import com.bigdata.bop.join.JVMHashJoinOp;
 import com.bigdata.bop.join.JoinAnnotations;
 import com.bigdata.bop.join.PipelineJoin;
+import com.bigdata.bop.join.LeapfrogTriejoinOp;
+import com.bigdata.bop.join.SPOMergeJoinOp;
 import com.bigdata.bop.rdf.filter.NativeDistinctFilter;
 import com.bigdata.bop.rdf.filter.StripContextFilter;
 import com.bigdata.bop.rdf.join.DataSetJoin;
@@ -281,6 +284,147 @@ public class AST2BOpJoins extends AST2BOpFilters {
 
     }
 
+    /**
+     * Add an {@link SPOMergeJoinOp} which co-scans the access paths for two
+     * statement patterns (triples mode only).
+     * 
+     * @param left
+     * @param leftPred
+     *            The predicate for the first statement pattern.
+     * @param rightPred
+     *            The predicate for the second statement pattern.
+     * @param joinVar
+     *            The variable on which the access paths will be merged.
+     * @param doneSet
+     *            The set of variables already known to be materialized.
+     * @param constraints
+     *            Constraints on that join (optional).
+     * @param queryHints
+     *            Query hints associated with the second
+     *            {@link StatementPatternNode}.
+     * @param ctx
+     *            The evaluation context.
+     * 
+     * @see SPOMergeJoinOp
+     */
+    @SuppressWarnings("rawtypes")
+    public static PipelineOp indexMergeJoin(//
+            PipelineOp left,//
+            Predicate leftPred,//
+            Predicate rightPred,//
+            final IVariable<?> joinVar,//
+            final Set<IVariable<?>> doneSet,//
+            final Collection<IConstraint> constraints,//
+            final Properties queryHints,//
+            final AST2BOpContext ctx//
+            ) {
+
+        final Map<IConstraint, Set<IVariable<IV>>> needsMaterialization =
+                new LinkedHashMap<IConstraint, Set<IVariable<IV>>>();
+
+        final String[] strip = new String[] { Annotations.SCOPE,
+                Annotations.QUADS, Annotations.DATASET };
+
+        leftPred = leftPred.clearAnnotations(strip);
+
+        rightPred = rightPred.clearAnnotations(strip);
+
+        left = applyQueryHints(new SPOMergeJoinOp(leftOrEmpty(left),//
+                new NV(BOp.Annotations.BOP_ID, ctx.nextId()),//
+                new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(PipelineOp.Annotations.PIPELINED, false),//
+                new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),//
+                new NV(SPOMergeJoinOp.Annotations.PREDICATE, leftPred),//
+                new NV(SPOMergeJoinOp.Annotations.RIGHT_PREDICATE, rightPred),//
+                new NV(SPOMergeJoinOp.Annotations.JOIN_VAR, joinVar),//
+                new NV(JoinAnnotations.CONSTRAINTS, getJoinConstraints2(
+                        constraints, needsMaterialization, true/* conditionalRouting */))//
+                ), queryHints, ctx);
+
+        if (needsMaterialization.isEmpty()) {
+
+            // No filters.
+            return left;
+
+        }
+
+        return addMaterializationSteps3(left, doneSet, needsMaterialization,
+                queryHints, ctx);
+
+    }
+
+    /**
+     * Add a {@link LeapfrogTriejoinOp} which joins several statement patterns
+     * at once (triples mode only).
+     * 
+     * @param left
+     * @param preds
+     *            The predicates for the statement patterns.
+     * @param variableOrder
+     *            The order in which the variables will be bound.
+     * @param doneSet
+     *            The set of variables already known to be materialized.
+     * @param constraints
+     *            Constraints on that join (optional).
+     * @param queryHints
+     *            Query hints associated with the last
+     *            {@link StatementPatternNode}.
+     * @param ctx
+     *            The evaluation context.
+     * 
+     * @see LeapfrogTriejoinOp
+     */
+    @SuppressWarnings("rawtypes")
+    public static PipelineOp leapfrogTriejoin(//
+            PipelineOp left,//
+            final List<Predicate> preds,//
+            final IVariable<?>[] variableOrder,//
+            final Set<IVariable<?>> doneSet,//
+            final Collection<IConstraint> constraints,//
+            final Properties queryHints,//
+            final AST2BOpContext ctx//
+            ) {
+
+        final Map<IConstraint, Set<IVariable<IV>>> needsMaterialization =
+                new LinkedHashMap<IConstraint, Set<IVariable<IV>>>();
+
+        final String[] strip = new String[] { Annotations.SCOPE,
+                Annotations.QUADS, Annotations.DATASET };
+
+        final Predicate[] a = new Predicate[preds.size()];
+
+        for (int i = 0; i < a.length; i++) {
+
+            a[i] = preds.get(i).clearAnnotations(strip);
+
+        }
+
+        left = applyQueryHints(new LeapfrogTriejoinOp(leftOrEmpty(left),//
+                new NV(BOp.Annotations.BOP_ID, ctx.nextId()),//
+                new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(PipelineOp.Annotations.PIPELINED, false),//
+                new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),//
+                new NV(LeapfrogTriejoinOp.Annotations.PREDICATES, a),//
+                new NV(LeapfrogTriejoinOp.Annotations.VARIABLE_ORDER,
+                        variableOrder),//
+                new NV(JoinAnnotations.CONSTRAINTS, getJoinConstraints2(
+                        constraints, needsMaterialization, true/* conditionalRouting */))//
+                ), queryHints, ctx);
+
+        if (needsMaterialization.isEmpty()) {
+
+            // No filters.
+            return left;
+
+        }
+
+        return addMaterializationSteps3(left, doneSet, needsMaterialization,
+                queryHints, ctx);
+
+    }
+
     /**
 	 * FIXME We need to handle cutoff joins here or the distinct-term-scan will
 	 * not work with the RTO (alternatively, make sure the RTO is only using
@@ -1375,7 +1519,16 @@ public class AST2BOpJoins extends AST2BOpFilters {
                 
                 map.put(PipelineOp.Annotations.PIPELINED, false);
                 
-                left = new JVMHashJoinOp(leftOrEmpty(left), map);
+                if (ctx.inlineHashJoins) {
+
+                    // Pack inline IVs and TermIds into native memory keys.
+                    left = new InlineIVHashJoinOp(leftOrEmpty(left), map);
+
+                } else {
+
+                    left = new JVMHashJoinOp(leftOrEmpty(left), map);
+
+                }
                 
             }
 
@@ -62,14 +62,17 @@ import com.bigdata.bop.join.HTreeSolutionSetHashJoinOp;
 import com.bigdata.bop.join.HashIndexOp;
 import com.bigdata.bop.join.HashJoinAnnotations;
 import com.bigdata.bop.join.IHashJoinUtilityFactory;
+import com.bigdata.bop.join.InlineIVHashJoinUtility;
 import com.bigdata.bop.join.JVMHashJoinUtility;
 import com.bigdata.bop.join.JVMMergeJoin;
 import com.bigdata.bop.join.JVMPipelinedHashJoinUtility;
 import com.bigdata.bop.join.JVMSolutionSetHashJoinOp;
 import com.bigdata.bop.join.JoinAnnotations;
 import com.bigdata.bop.join.JoinTypeEnum;
+import com.bigdata.bop.join.LeapfrogTriejoinOp;
 import com.bigdata.bop.join.NestedLoopJoinOp;
 import com.bigdata.bop.join.PipelinedHashIndexAndSolutionSetJoinOp;
+import com.bigdata.bop.join.SPOMergeJoinOp;
 import com.bigdata.bop.join.SolutionSetHashJoinOp;
 import com.bigdata.bop.paths.ArbitraryLengthPathOp;
 import com.bigdata.bop.paths.ZeroLengthPathOp;
@@ -164,6 +167,7 @@ import com.bigdata.rdf.sparql.ast.optimizers.ASTExistsOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTJoinOrderByTypeOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTNamedSubqueryOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTSetValueExpressionsOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
 import com.bigdata.rdf.sparql.ast.service.MockIVReturningServiceCall;
 import com.bigdata.rdf.sparql.ast.service.ServiceCall;
 import com.bigdata.rdf.sparql.ast.service.ServiceCallUtility;
@@ -3204,6 +3208,28 @@ public class AST2BOpUtility extends AST2BOpRTO {
             
         }
 
+        if (start.get() == 0) {
+
+            /*
+             * Attempt to interpret the leading statement patterns in the group
+             * as a worst-case optimal join.
+             */
+
+            left = doLeapfrogTriejoin(left, joinGroup, doneSet, start, ctx);
+
+        }
+
+        if (start.get() == 0) {
+
+            /*
+             * Attempt to interpret the leading statement patterns in the group
+             * as a merge join of their statement indices.
+             */
+
+            left = doIndexMergeJoin(left, joinGroup, doneSet, start, ctx);
+
+        }
+
         if (QueryOptimizerEnum.Runtime.equals(joinGroup.getQueryOptimizer())) {
 
             /*
@@ -3404,6 +3430,168 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
     }
 
+    /**
+     * Translate the leading statement patterns in the group into a
+     * {@link LeapfrogTriejoinOp} if the {@link ASTStaticJoinOptimizer} marked
+     * them for a worst-case optimal join. The variables are bound in the order
+     * in which they first appear in those statement patterns, which follows
+     * the join order chosen by the optimizer.
+     * 
+     * @param left
+     * @param joinGroup
+     * @param doneSet
+     * @param start
+     *            Modified by side-effect to indicate how many children were
+     *            absorbed by the join IFF it was used.
+     * @param ctx
+     * 
+     * @return <i>left</i> if no such join was recognized and otherwise the
+     *         join plan.
+     * 
+     * @see StatementPatternNode#getLeapfrogJoinCount()
+     */
+    @SuppressWarnings("rawtypes")
+    private static PipelineOp doLeapfrogTriejoin(PipelineOp left,
+            final JoinGroupNode joinGroup,
+            final Set<IVariable<?>> doneSet,
+            final AtomicInteger start,
+            final AST2BOpContext ctx) {
+
+        if (joinGroup.arity() == 0
+                || !(joinGroup.get(0) instanceof StatementPatternNode)) {
+            return left;
+        }
+
+        final int n = ((StatementPatternNode) joinGroup.get(0))
+                .getLeapfrogJoinCount();
+
+        if (n == 0 || n > joinGroup.arity()) {
+            return left;
+        }
+
+        final List<Predicate> preds = new LinkedList<Predicate>();
+
+        final Set<IVariable<?>> vars = new LinkedHashSet<IVariable<?>>();
+
+        final List<IConstraint> constraints = new LinkedList<IConstraint>();
+
+        StatementPatternNode last = null;
+
+        for (int i = 0; i < n; i++) {
+
+            if (!(joinGroup.get(i) instanceof StatementPatternNode))
+                return left;
+
+            final StatementPatternNode sp = (StatementPatternNode) joinGroup
+                    .get(i);
+
+            if (sp.getRange() != null)
+                return left;
+
+            final Predicate<?> pred = toPredicate(sp, ctx);
+
+            preds.add(pred);
+
+            final Iterator<IVariable<?>> itr = BOpUtility
+                    .getArgumentVariables(pred);
+
+            while (itr.hasNext())
+                vars.add(itr.next());
+
+            final List<IConstraint> tmp = getJoinConstraints(sp);
+
+            if (tmp != null)
+                constraints.addAll(tmp);
+
+            last = sp;
+
+        }
+
+        left = AST2BOpJoins.leapfrogTriejoin(left, //
+                preds,//
+                vars.toArray(new IVariable<?>[vars.size()]),//
+                doneSet,//
+                constraints,//
+                last.getQueryHints(),//
+                ctx);
+
+        // The statement patterns were consumed.
+        start.set(n);
+
+        return left;
+
+    }
+
+    /**
+     * Translate the leading statement patterns in the group into an
+     * {@link SPOMergeJoinOp} if the {@link ASTStaticJoinOptimizer} marked them
+     * for an index merge join.
+     * 
+     * @param left
+     * @param joinGroup
+     * @param doneSet
+     * @param start
+     *            Modified by side-effect to indicate how many children were
+     *            absorbed by the merge join IFF a merge join was used.
+     * @param ctx
+     * 
+     * @return <i>left</i> if no merge join was recognized and otherwise the
+     *         merge join plan.
+     * 
+     * @see StatementPatternNode#getIndexMergeJoinVar()
+     */
+    private static PipelineOp doIndexMergeJoin(PipelineOp left,
+            final JoinGroupNode joinGroup,
+            final Set<IVariable<?>> doneSet,
+            final AtomicInteger start,
+            final AST2BOpContext ctx) {
+
+        if (joinGroup.arity() < 2
+                || !(joinGroup.get(0) instanceof StatementPatternNode)
+                || !(joinGroup.get(1) instanceof StatementPatternNode)) {
+            return left;
+        }
+
+        final StatementPatternNode sp1 = (StatementPatternNode) joinGroup
+                .get(0);
+
+        final StatementPatternNode sp2 = (StatementPatternNode) joinGroup
+                .get(1);
+
+        final VarNode joinVar = sp1.getIndexMergeJoinVar();
+
+        if (joinVar == null || sp1.getRange() != null
+                || sp2.getRange() != null) {
+            return left;
+        }
+
+        final List<IConstraint> constraints = new LinkedList<IConstraint>();
+
+        for (StatementPatternNode sp : new StatementPatternNode[] { sp1, sp2 }) {
+
+            final List<IConstraint> tmp = getJoinConstraints(sp);
+
+            if (tmp != null)
+                constraints.addAll(tmp);
+
+        }
+
+        left = AST2BOpJoins.indexMergeJoin(left, //
+                toPredicate(sp1, ctx),//
+                toPredicate(sp2, ctx),//
+                joinVar.getValueExpression(),//
+                doneSet,//
+                constraints,//
+                sp2.getQueryHints(),//
+                ctx);
+
+        // Both statement patterns were consumed.
+        start.set(2);
+
+        return left;
+
+    }
+
     /**
      * Attempt to translate the join group using a merge join.
      * <P>
@@ -4824,6 +5012,9 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
         final Iterator<OrderByExpr> it = orderBy.iterator();
 
+        // true iff each value expression is a bare variable.
+        boolean bareVars = true;
+
         for (int i = 0; it.hasNext(); i++) {
 
             final OrderByExpr orderByExpr = it.next();
@@ -4849,6 +5040,8 @@ public class AST2BOpUtility extends AST2BOpRTO {
                 StaticAnalysis.gatherVarsToMaterialize(
                         expr, vars);
 
+                bareVars = false;
+
             }
 
             sortOrders[i] = new SortOrder(expr, orderByExpr.isAscending());
@@ -4857,33 +5050,98 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
         final int sortId = ctx.nextId();
 
-        left = addMaterializationSteps2(left, sortId, vars, queryHints, ctx);
-
-        left = applyQueryHints(
-                new MemorySortOp(
-                        leftOrEmpty(left),
-                        NV.asMap(new NV[] {//
-                                new NV(MemorySortOp.Annotations.BOP_ID, sortId),//
-                                new NV(MemorySortOp.Annotations.SORT_ORDER,
-                                        sortOrders),//
-                                new NV(
-                                        MemorySortOp.Annotations.VALUE_COMPARATOR,
-                                        new IVComparator()),//
-                                new NV(
-                                        MemorySortOp.Annotations.EVALUATION_CONTEXT,
-                                        BOpEvaluationContext.CONTROLLER),//
-                                new NV(MemorySortOp.Annotations.PIPELINED, true),//
-                                new NV(MemorySortOp.Annotations.MAX_PARALLEL, 1),//
-                                new NV(MemorySortOp.Annotations.REORDER_SOLUTIONS, false),//
-//                                new NV(MemorySortOp.Annotations.SHARED_STATE,
-//                                        true),//
-                                new NV(MemorySortOp.Annotations.LAST_PASS, true),//
-                        })), queryHints, ctx);
+        final long limit = getOrderByLimit(queryBase);
+
+        /*
+         * For a top-k sort on bare variables, the sort materializes those
+         * variables itself, and only for the source solutions which could
+         * still be output. Otherwise they are materialized for each source
+         * solution before the sort.
+         */
+        final boolean deferMaterialization = bareVars
+                && limit != Long.MAX_VALUE;
+
+        if (!deferMaterialization) {
+
+            left = addMaterializationSteps2(left, sortId, vars, queryHints,
+                    ctx);
+
+        }
+
+        final Map<String, Object> anns = NV.asMap(new NV[] {//
+                new NV(MemorySortOp.Annotations.BOP_ID, sortId),//
+                new NV(MemorySortOp.Annotations.SORT_ORDER, sortOrders),//
+                new NV(MemorySortOp.Annotations.VALUE_COMPARATOR,
+                        new IVComparator()),//
+                new NV(MemorySortOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(MemorySortOp.Annotations.PIPELINED, true),//
+                new NV(MemorySortOp.Annotations.MAX_PARALLEL, 1),//
+                new NV(MemorySortOp.Annotations.REORDER_SOLUTIONS, false),//
+//                new NV(MemorySortOp.Annotations.SHARED_STATE, true),//
+                new NV(MemorySortOp.Annotations.LAST_PASS, true),//
+                new NV(MemorySortOp.Annotations.LIMIT, limit),//
+        });
+
+        if (deferMaterialization) {
+
+            anns.put(MemorySortOp.Annotations.MATERIALIZER,
+                    new ChunkedMaterializationOp.SolutionMaterializer());
+            anns.put(MemorySortOp.Annotations.RELATION_NAME,
+                    new String[] { ctx.getLexiconNamespace() });
+            anns.put(MemorySortOp.Annotations.TIMESTAMP,
+                    ctx.getLexiconReadTimestamp());
+
+        }
+
+        left = applyQueryHints(new MemorySortOp(leftOrEmpty(left), anns),
+                queryHints, ctx);
 
         return left;
 
     }
 
+    /**
+     * Return the maximum #of solutions which the ORDER BY of a query must
+     * output. When the ordered solutions flow into a SLICE without a change
+     * in their cardinality, only the OFFSET plus the LIMIT of that SLICE are
+     * required (top-k). A DISTINCT or REDUCED projection is evaluated after
+     * the ORDER BY and may eliminate solutions, in which case all solutions
+     * must be output.
+     * <p>
+     * Note: Only the top-k solutions are buffered and sorted by the
+     * {@link MemorySortOp}. When the sort is imposed on bare variables, the
+     * {@link MemorySortOp} also materializes those variables itself, and only
+     * for the source solutions which could still be among the top-k. The
+     * projection of the top-level query is materialized after the SLICE.
+     *
+     * @return The limit -or- {@link Long#MAX_VALUE} if all solutions must be
+     *         output.
+     */
+    static long getOrderByLimit(final QueryBase queryBase) {
+
+        final SliceNode slice = queryBase.getSlice();
+
+        if (slice == null || slice.getLimit() == Long.MAX_VALUE)
+            return Long.MAX_VALUE;
+
+        final ProjectionNode projection = queryBase.getProjection();
+
+        if (projection != null
+                && (projection.isDistinct() || projection.isReduced()))
+            return Long.MAX_VALUE;
+
+        final long limit = slice.getOffset() + slice.getLimit();
+
+        if (limit < 0L) {
+            // overflow.
+            return Long.MAX_VALUE;
+        }
+
+        return limit;
+
+    }
+
     /**
      * Impose an OFFSET and/or LIMIT on a query.
      */
@@ -5800,6 +6058,9 @@ public class AST2BOpUtility extends AST2BOpRTO {
           
           if (usePipelinedHashJoin) {
              joinUtilFactory = JVMPipelinedHashJoinUtility.factory;             
+          } else if (ctx.inlineHashJoins) {
+             // Packs join variables bound to inline IVs or TermIds.
+             joinUtilFactory = InlineIVHashJoinUtility.factory;
           } else {
              joinUtilFactory = JVMHashJoinUtility.factory;             
           }
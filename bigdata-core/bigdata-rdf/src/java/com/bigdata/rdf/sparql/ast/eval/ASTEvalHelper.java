@@ -84,6 +84,7 @@ import com.bigdata.rdf.sparql.ast.UpdateRoot;
 import com.bigdata.rdf.sparql.ast.cache.DescribeBindingsCollector;
 import com.bigdata.rdf.sparql.ast.cache.DescribeCacheUpdater;
 import com.bigdata.rdf.sparql.ast.cache.IDescribeCache;
+import com.bigdata.rdf.sparql.ast.cache.QueryPlanCache;
 import com.bigdata.rdf.sparql.ast.eval.ASTDeferredIVResolution.DeferredResolutionResult;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.rdf.store.BigdataBindingSetResolverator;
@@ -93,6 +94,7 @@ import com.bigdata.striterator.IChunkedOrderedIterator;
 
 import cutthecrap.utils.striterators.ICloseableIterator;
 import info.aduna.iteration.CloseableIteration;
+import info.aduna.iteration.CloseableIteratorIteration;
 
 /**
  * Helper class for evaluating SPARQL queries.
@@ -208,9 +210,70 @@ public class ASTEvalHelper {
 
         final AST2BOpContext context = new AST2BOpContext(astContainer, store);
 
-        final QueryRoot optimizedQuery = 
-                optimizeQuery(astContainer, context, globallyScopedBS, dataset);
-        
+        // The plan/result cache (if enabled).
+        final QueryPlanCache cache = QueryPlanCache.getInstance(
+                context.queryEngine, store);
+
+        // The cache key (null unless the query can be cached).
+        final QueryPlanCache.CacheKey cacheKey = cache == null ? null : cache
+                .getKey(store, astContainer, globallyScopedBS, dataset);
+
+        if (cacheKey != null) {
+
+            final QueryPlanCache.CachedSolutions solutions = cache
+                    .getSolutions(cacheKey);
+
+            if (solutions != null) {
+
+                // Reuse the solutions from the result cache.
+                return new TupleQueryResultImpl(
+                        solutions.getProjected(),
+                        new CloseableIteratorIteration<BindingSet, QueryEvaluationException>(
+                                solutions.getSolutions().iterator()));
+
+            }
+
+        }
+
+        QueryRoot optimizedQuery = null;
+
+        if (cacheKey == null) {
+
+            optimizedQuery = optimizeQuery(astContainer, context,
+                    globallyScopedBS, dataset);
+
+        } else {
+
+            final IBindingSet[] bindingSets = resolveQuery(astContainer,
+                    context, globallyScopedBS, dataset);
+
+            // The parameters (null if the plan can not be shared).
+            @SuppressWarnings("rawtypes")
+            final IV[] params = cache.getParameters(cacheKey, astContainer,
+                    bindingSets);
+
+            if (params != null) {
+
+                optimizedQuery = cache.getPlan(cacheKey, params,
+                        astContainer, context);
+
+            }
+
+            if (optimizedQuery == null) {
+
+                optimizedQuery = convertQuery(astContainer, context,
+                        bindingSets);
+
+                if (params != null) {
+
+                    cache.putPlan(cacheKey, params, astContainer, context);
+
+                }
+
+            }
+
+        }
+
         // Get the projection for the query.
         final IVariable<?>[] projected = astContainer.getOptimizedAST()
                 .getProjection().getProjectionVars();
@@ -223,10 +286,17 @@ public class ASTEvalHelper {
         final boolean materializeProjectionInQuery = context.materializeProjectionInQuery
                 && !optimizedQuery.hasSlice();
 
-        final CloseableIteration<BindingSet, QueryEvaluationException> itr = ASTEvalHelper
+        CloseableIteration<BindingSet, QueryEvaluationException> itr = ASTEvalHelper
                 .evaluateQuery(astContainer, context, 
                         materializeProjectionInQuery, projected);
 
+        if (cacheKey != null) {
+
+            // Enter the solutions into the result cache (if enabled).
+            itr = cache.cacheSolutions(cacheKey, projectedSet, itr);
+
+        }
+
         TupleQueryResult r = null;
         try {
             r = new TupleQueryResultImpl(projectedSet, itr);
@@ -400,6 +470,25 @@ public class ASTEvalHelper {
             final QueryBindingSet globallyScopedBS,
             final Dataset dataset) throws QueryEvaluationException {
 
+        final IBindingSet[] globallyScopedBSAsList = resolveQuery(
+                astContainer, context, globallyScopedBS, dataset);
+
+        return convertQuery(astContainer, context, globallyScopedBSAsList);
+
+    }
+
+    /**
+     * Resolve the {@link Value}s in the original AST of a query, the globally
+     * scoped bindings and the dataset against the lexicon.
+     * 
+     * @return The resolved globally scoped bindings.
+     */
+    static private IBindingSet[] resolveQuery(
+            final ASTContainer astContainer,
+            final AST2BOpContext context,
+            final QueryBindingSet globallyScopedBS,
+            final Dataset dataset) throws QueryEvaluationException {
+
         final AbstractTripleStore store = context.getAbstractTripleStore();
 
         final DeferredResolutionResult resolved;
@@ -416,12 +505,23 @@ public class ASTEvalHelper {
                 new DatasetNode(resolved.dataset, false/* update */));
         }
 
+        // Batch resolve Values to IVs and convert to bigdata binding set.
+        return toBindingSet(resolved.bindingSet);
+
+    }
+
+    /**
+     * Optimize a query whose original AST has been resolved.
+     * 
+     * @return An optimized AST.
+     */
+    static private QueryRoot convertQuery(final ASTContainer astContainer,
+            final AST2BOpContext context,
+            final IBindingSet[] globallyScopedBSAsList) {
+
         // Clear the optimized AST.
         astContainer.clearOptimizedAST();
 
-        // Batch resolve Values to IVs and convert to bigdata binding set.
-        final IBindingSet[] globallyScopedBSAsList = toBindingSet(resolved.bindingSet) ;
-
         // Convert the query (generates an optimized AST as a side-effect).
         AST2BOpUtility.convert(context, globallyScopedBSAsList);
 
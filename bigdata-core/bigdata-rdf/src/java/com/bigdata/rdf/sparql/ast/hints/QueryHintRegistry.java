@@ -111,9 +111,13 @@ public class QueryHintRegistry {
         add(new NativeDistinctSPOHint());
         add(new NativeDistinctSPOThresholdHint());
         add(new NativeHashJoinsHint());
+        add(new InlineHashJoinsHint());
         
         // JOIN hints.
         add(new MergeJoinHint());
+        add(new IndexMergeJoinHint());
+        add(new IndexMergeJoinThresholdHint());
+        add(new LeapfrogJoinHint());
         add(new HashJoinHint());
         add(new KeyOrderHint());
         add(new RemoteAPHint());
@@ -121,6 +125,7 @@ public class QueryHintRegistry {
         add(new AccessPathScanAndFilterHint());
         add(new NumTasksPerThreadHint());
         add(new MinDatapointsPerTaskHint());
+        add(new KeyRangePartitionsHint());
         
         // DESCRIBE
         add(new DescribeModeHint());
@@ -38,7 +38,11 @@ import org.apache.log4j.Logger;
 import com.bigdata.bop.BOp;
 import com.bigdata.bop.BOpUtility;
 import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IPredicate;
 import com.bigdata.bop.IVariable;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.join.LeapfrogTriejoinOp;
+import com.bigdata.bop.join.SPOMergeJoinOp;
 import com.bigdata.bop.joinGraph.fast.DefaultEvaluationPlan2;
 import com.bigdata.rdf.sparql.ast.GraphPatternGroup;
 import com.bigdata.rdf.sparql.ast.IBindingProducerNode;
@@ -54,9 +58,11 @@ import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.QueryNodeWithBindingSet;
 import com.bigdata.rdf.sparql.ast.QueryOptimizerEnum;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
 import com.bigdata.rdf.sparql.ast.StaticAnalysis;
 import com.bigdata.rdf.sparql.ast.SubqueryRoot;
 import com.bigdata.rdf.sparql.ast.UnionNode;
+import com.bigdata.rdf.sparql.ast.VarNode;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpBase;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
 import com.bigdata.rdf.sparql.ast.eval.IEvaluationContext;
@@ -586,8 +592,156 @@ public class ASTStaticJoinOptimizer implements IASTOptimizer {
 		    	joinGroup.setArg(slots[i++], runLast);
 		    	
 		    }
+
+		    if (ctx.leapfrogJoin && ancestry.isEmpty()) {
+
+		        markLeapfrogJoin(ctx, joinGroup);
+
+		    }
+
+		    if (ctx.indexMergeJoin && ancestry.isEmpty()) {
+
+		        markIndexMergeJoin(ctx, joinGroup);
+
+		    }
 		}
 	}
+
+    /**
+     * If the first two members of the join group are required statement
+     * patterns which share exactly one variable, both are large, and each can
+     * be read from a statement index in the order of that variable, then mark
+     * them to be evaluated by an {@link SPOMergeJoinOp}. Otherwise the second
+     * statement pattern would be evaluated by probing its access path once for
+     * each solution of the first.
+     * 
+     * @see QueryHints#INDEX_MERGE_JOIN
+     */
+    private void markIndexMergeJoin(final AST2BOpContext ctx,
+            final JoinGroupNode joinGroup) {
+
+        if (!ctx.isTriples() || ctx.isCluster() || joinGroup.arity() < 2)
+            return;
+
+        if (!(joinGroup.get(0) instanceof StatementPatternNode)
+                || !(joinGroup.get(1) instanceof StatementPatternNode))
+            return;
+
+        final StatementPatternNode sp1 = (StatementPatternNode) joinGroup
+                .get(0);
+
+        final StatementPatternNode sp2 = (StatementPatternNode) joinGroup
+                .get(1);
+
+        if (sp1.getLeapfrogJoinCount() != 0)
+            return;
+
+        if (!isMergeJoinCandidate(ctx, sp1) || !isMergeJoinCandidate(ctx, sp2))
+            return;
+
+        // The variables shared by the two statement patterns.
+        final Set<IVariable<?>> shared = sp1.getProducedBindings();
+
+        shared.retainAll(sp2.getProducedBindings());
+
+        if (shared.size() != 1)
+            return;
+
+        final IVariable<?> joinVar = shared.iterator().next();
+
+        if (SPOMergeJoinOp.getKeyOrder(getTerms(sp1), joinVar) == null
+                || SPOMergeJoinOp.getKeyOrder(getTerms(sp2), joinVar) == null)
+            return;
+
+        sp1.setIndexMergeJoinVar(new VarNode(joinVar.getName()));
+
+        if (log.isInfoEnabled())
+            log.info("Index merge join on " + joinVar + ": " + sp1 + ", "
+                    + sp2);
+
+    }
+
+    /**
+     * If the join graph of the leading required statement patterns in the join
+     * group is cyclic then mark them to be evaluated together by a
+     * {@link LeapfrogTriejoinOp}. A sequence of binary joins can produce
+     * intermediate results which are much larger than the final result for
+     * such join graphs (triangles, cliques, etc).
+     * 
+     * @see QueryHints#LEAPFROG_JOIN
+     */
+    private void markLeapfrogJoin(final AST2BOpContext ctx,
+            final JoinGroupNode joinGroup) {
+
+        if (!ctx.isTriples() || ctx.isCluster())
+            return;
+
+        final List<Set<IVariable<?>>> edges = new LinkedList<Set<IVariable<?>>>();
+
+        int n = 0;
+
+        while (n < joinGroup.arity()
+                && joinGroup.get(n) instanceof StatementPatternNode
+                && isCoScanCandidate((StatementPatternNode) joinGroup.get(n))) {
+
+            edges.add(((StatementPatternNode) joinGroup.get(n))
+                    .getProducedBindings());
+
+            n++;
+
+        }
+
+        if (n < 3 || !LeapfrogTriejoinOp.isCyclic(edges))
+            return;
+
+        final StatementPatternNode sp1 = (StatementPatternNode) joinGroup
+                .get(0);
+
+        sp1.setLeapfrogJoinCount(n);
+
+        if (log.isInfoEnabled())
+            log.info("Leapfrog join of " + n + " statement patterns: "
+                    + joinGroup);
+
+    }
+
+    private static boolean isMergeJoinCandidate(final AST2BOpContext ctx,
+            final StatementPatternNode sp) {
+
+        return isCoScanCandidate(sp)
+                && sp.getProperty(Annotations.ESTIMATED_CARDINALITY, -1L) >= ctx.indexMergeJoinThreshold;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the statement pattern is a required triple
+     * pattern which may be read directly from the statement indices by a join
+     * which scans several access paths at once.
+     */
+    private static boolean isCoScanCandidate(final StatementPatternNode sp) {
+
+        if (sp.isOptional() || sp.c() != null || sp.sid() != null
+                || sp.getRange() != null)
+            return false;
+
+        if (sp.getFastRangeCountVar() != null
+                || sp.getDistinctTermScanVar() != null
+                || sp.getQueryHint(IPredicate.Annotations.KEY_ORDER) != null)
+            return false;
+
+        return true;
+
+    }
+
+    private static IVariableOrConstant<?>[] getTerms(
+            final StatementPatternNode sp) {
+
+        return new IVariableOrConstant<?>[] {
+                (IVariableOrConstant<?>) sp.s().getValueExpression(),
+                (IVariableOrConstant<?>) sp.p().getValueExpression(),
+                (IVariableOrConstant<?>) sp.o().getValueExpression() };
+
+    }
     
 //    /**
 //     * Use the SPORelation from the database to grab the appropriate range
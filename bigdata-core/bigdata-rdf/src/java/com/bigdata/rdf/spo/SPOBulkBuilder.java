@@ -0,0 +1,614 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.spo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.btree.BTree;
+import com.bigdata.btree.BTreeBulkBuilder;
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.proc.ISimpleIndexProcedure;
+import com.bigdata.rdf.model.StatementEnum;
+import com.bigdata.util.BytesUtil;
+
+/**
+ * Collects the statements for an initial load into sorted runs on temporary
+ * files and then builds each statement index bottom-up from the merged runs
+ * using a {@link BTreeBulkBuilder}. This replaces the per-batch random inserts
+ * of {@link SPORelation#insert(ISPO[], int, com.bigdata.relation.accesspath.IElementFilter)}
+ * with one sequential pass over each index, which is much cheaper once the
+ * indices are larger than the write retention queue.
+ * <p>
+ * The statements for each run are buffered in memory. When the buffer is full
+ * the run is sorted once for each statement index, duplicates within the run
+ * are dropped (as by {@link SPOIndexWriter}) and the keys and values are
+ * written onto a temporary file for that index. {@link #build()} merges the
+ * runs for each index, reconciling the statement type of a statement which
+ * appears in more than one run in the same manner as {@link SPOIndexWriteProc}
+ * , and streams the merged tuples into the (empty) index.
+ * <p>
+ * The statement indices MUST be empty and MUST be local {@link BTree}s (e.g.,
+ * the unisolated indices of a journal). The caller is responsible for the
+ * lexicon: the terms of each statement MUST have been resolved before the
+ * statement is added to this class. The statement indices do not reflect any
+ * of the statements until {@link #build()} returns.
+ * <p>
+ * {@link #add(ISPO[], int)} is thread-safe so a single instance may be shared
+ * by several concurrent {@link com.bigdata.rdf.rio.StatementBuffer}s.
+ */
+public class SPOBulkBuilder {
+
+    private static final transient Logger log = Logger
+            .getLogger(SPOBulkBuilder.class);
+
+    private final SPORelation spoRelation;
+
+    private final File tmpDir;
+
+    /**
+     * The sorted runs for each statement index.
+     */
+    private final Map<SPOKeyOrder, List<File>> runs = new LinkedHashMap<SPOKeyOrder, List<File>>();
+
+    /**
+     * The statements for the current run.
+     */
+    private final ISPO[] buf;
+
+    private int n = 0;
+
+    /**
+     * The #of statements added.
+     */
+    private long nadded = 0L;
+
+    private boolean done = false;
+
+    /**
+     * @param spoRelation
+     *            The relation whose statement indices will be built.
+     * @param tmpDir
+     *            The directory in which the runs will be written.
+     * @param runCapacity
+     *            The #of statements buffered in memory for each run.
+     * 
+     * @throws IllegalStateException
+     *             if any statement index is not empty.
+     */
+    public SPOBulkBuilder(final SPORelation spoRelation, final File tmpDir,
+            final int runCapacity) {
+
+        if (spoRelation == null)
+            throw new IllegalArgumentException();
+
+        if (tmpDir == null)
+            throw new IllegalArgumentException();
+
+        if (runCapacity <= 0)
+            throw new IllegalArgumentException();
+
+        final Iterator<SPOKeyOrder> itr = spoRelation
+                .statementKeyOrderIterator();
+
+        while (itr.hasNext()) {
+
+            final SPOKeyOrder keyOrder = itr.next();
+
+            if (spoRelation.getIndex(keyOrder).rangeCount() != 0L)
+                throw new IllegalStateException("Not empty: " + keyOrder);
+
+            runs.put(keyOrder, new ArrayList<File>());
+
+        }
+
+        this.spoRelation = spoRelation;
+
+        this.tmpDir = tmpDir;
+
+        this.buf = new ISPO[runCapacity];
+
+    }
+
+    /**
+     * Return <code>true</code> iff every statement index of the relation is
+     * empty.
+     */
+    public static boolean isEmpty(final SPORelation spoRelation) {
+
+        final Iterator<SPOKeyOrder> itr = spoRelation
+                .statementKeyOrderIterator();
+
+        while (itr.hasNext()) {
+
+            if (spoRelation.getIndex(itr.next()).rangeCount() != 0L)
+                return false;
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * The #of statements added so far (including duplicates).
+     */
+    public synchronized long getAddedCount() {
+
+        return nadded;
+
+    }
+
+    /**
+     * Add statements. The statements must be fully bound.
+     * 
+     * @param a
+     *            The statements.
+     * @param numStmts
+     *            The #of statements in <i>a</i> to be added.
+     */
+    public synchronized void add(final ISPO[] a, final int numStmts) {
+
+        if (done)
+            throw new IllegalStateException();
+
+        for (int i = 0; i < numStmts; i++) {
+
+            final ISPO spo = a[i];
+
+            if (!spo.isFullyBound())
+                throw new IllegalArgumentException("Not fully bound: " + spo);
+
+            buf[n++] = spo;
+
+            if (n == buf.length)
+                spill();
+
+        }
+
+        nadded += numStmts;
+
+    }
+
+    /**
+     * Write the buffered statements as one sorted run for each index.
+     */
+    private void spill() {
+
+        if (n == 0)
+            return;
+
+        try {
+
+            for (Map.Entry<SPOKeyOrder, List<File>> e : runs.entrySet()) {
+
+                e.getValue().add(writeRun(e.getKey()));
+
+            }
+
+        } catch (IOException ex) {
+
+            throw new RuntimeException(ex);
+
+        }
+
+        Arrays.fill(buf, 0, n, null);
+
+        n = 0;
+
+    }
+
+    private File writeRun(final SPOKeyOrder keyOrder) throws IOException {
+
+        final long begin = System.currentTimeMillis();
+
+        // Note: stable, so the first of a set of duplicates is retained.
+        Arrays.sort(buf, 0, n, keyOrder.getComparator());
+
+        final SPOTupleSerializer tupleSer = (SPOTupleSerializer) spoRelation
+                .getIndex(keyOrder).getIndexMetadata().getTupleSerializer();
+
+        final File file = File.createTempFile("run-" + keyOrder.getIndexName()
+                + "-", ".tmp", tmpDir);
+
+        boolean ok = false;
+
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+
+        try {
+
+            byte[] lastKey = null;
+
+            int nwritten = 0;
+
+            for (int i = 0; i < n; i++) {
+
+                final byte[] key = tupleSer.serializeKey(buf[i]);
+
+                if (lastKey != null && BytesUtil.bytesEqual(lastKey, key)) {
+
+                    // skip duplicate.
+                    continue;
+
+                }
+
+                final byte[] val = tupleSer.serializeVal(buf[i]);
+
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(val.length);
+                out.write(val);
+
+                lastKey = key;
+
+                nwritten++;
+
+            }
+
+            // end of run.
+            out.writeInt(-1);
+
+            out.flush();
+
+            ok = true;
+
+            if (log.isInfoEnabled())
+                log.info("keyOrder=" + keyOrder + ", nstmts=" + n
+                        + ", nwritten=" + nwritten + ", elapsed="
+                        + (System.currentTimeMillis() - begin) + "ms");
+
+        } finally {
+
+            out.close();
+
+            if (!ok)
+                file.delete();
+
+        }
+
+        return file;
+
+    }
+
+    /**
+     * Merge the runs and build each statement index. The statements are
+     * visible in the indices once this method returns and will be made
+     * durable by the next commit. This instance may not be used afterwards.
+     * 
+     * @return The #of distinct statements written on the primary statement
+     *         index.
+     */
+    public synchronized long build() {
+
+        if (done)
+            throw new IllegalStateException();
+
+        try {
+
+            spill();
+
+            done = true;
+
+            long nstmts = 0L;
+
+            for (Map.Entry<SPOKeyOrder, List<File>> e : runs.entrySet()) {
+
+                final SPOKeyOrder keyOrder = e.getKey();
+
+                final long begin = System.currentTimeMillis();
+
+                final IIndex ndx = spoRelation.getIndex(keyOrder);
+
+                final long nwritten = ndx.submit(null/* key */,
+                        new BulkBuildProc(e.getValue()));
+
+                if (keyOrder.isPrimaryIndex())
+                    nstmts = nwritten;
+
+                if (log.isInfoEnabled())
+                    log.info("keyOrder=" + keyOrder + ", nruns="
+                            + e.getValue().size() + ", nwritten=" + nwritten
+                            + ", elapsed="
+                            + (System.currentTimeMillis() - begin) + "ms");
+
+            }
+
+            return nstmts;
+
+        } finally {
+
+            close();
+
+        }
+
+    }
+
+    /**
+     * Discard the buffered statements and delete the runs. This is a NOP if
+     * the runs were already deleted.
+     */
+    public synchronized void close() {
+
+        done = true;
+
+        Arrays.fill(buf, 0, n, null);
+
+        n = 0;
+
+        for (List<File> files : runs.values()) {
+
+            for (File file : files) {
+
+                if (file.exists() && !file.delete())
+                    log.warn("Could not delete: " + file);
+
+            }
+
+            files.clear();
+
+        }
+
+    }
+
+    /**
+     * Return the value to be written for a statement given the value already
+     * selected from an earlier run (if any) and the value from the next run.
+     * This mirrors the logic of {@link SPOIndexWriteProc}.
+     */
+    static byte[] reconcile(final SPOTupleSerializer tupleSer,
+            final byte[] oldval, final byte[] val) {
+
+        final boolean override = StatementEnum.isOverride(val[0]);
+
+        final boolean userFlag = StatementEnum.isUserFlag(val[0]);
+
+        final StatementEnum newType = StatementEnum.decode(val[0]);
+
+        if (oldval == null) {
+
+            return tupleSer.serializeVal(false/* override */, userFlag, newType);
+
+        }
+
+        final StatementEnum oldType = StatementEnum.deserialize(oldval);
+
+        final StatementEnum type;
+
+        if (oldType == StatementEnum.History
+                || newType == StatementEnum.History || override) {
+
+            type = newType;
+
+        } else {
+
+            type = StatementEnum.max(oldType, newType);
+
+        }
+
+        if (oldType == type)
+            return oldval;
+
+        return tupleSer.serializeVal(false/* override */, userFlag, type);
+
+    }
+
+    /**
+     * Reader for the next tuple in a run.
+     */
+    private static class Run {
+
+        final int order;
+
+        final DataInputStream in;
+
+        byte[] key;
+
+        byte[] val;
+
+        Run(final int order, final File file) throws IOException {
+
+            this.order = order;
+
+            this.in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+
+        }
+
+        /**
+         * Advance to the next tuple.
+         * 
+         * @return <code>false</code> if the run is exhausted.
+         */
+        boolean next() throws IOException {
+
+            final int klen = in.readInt();
+
+            if (klen == -1) {
+
+                key = val = null;
+
+                return false;
+
+            }
+
+            key = new byte[klen];
+
+            in.readFully(key);
+
+            val = new byte[in.readInt()];
+
+            in.readFully(val);
+
+            return true;
+
+        }
+
+    }
+
+    /**
+     * Orders the runs by their current key and then by their creation order
+     * so that the values for a given key are reconciled in the order in which
+     * the statements were added.
+     */
+    private static final Comparator<Run> RUN_COMPARATOR = new Comparator<Run>() {
+
+        @Override
+        public int compare(final Run o1, final Run o2) {
+
+            final int ret = BytesUtil.compareBytes(o1.key, o2.key);
+
+            if (ret != 0)
+                return ret;
+
+            return o1.order < o2.order ? -1 : o1.order > o2.order ? 1 : 0;
+
+        }
+
+    };
+
+    /**
+     * Merges the runs for one statement index and builds the index from the
+     * merged tuples. The procedure is applied to the local {@link BTree}
+     * while holding its write lock.
+     * <p>
+     * Note: This procedure can not be sent to a remote index.
+     */
+    private static class BulkBuildProc implements ISimpleIndexProcedure<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<File> files;
+
+        BulkBuildProc(final List<File> files) {
+
+            this.files = files;
+
+        }
+
+        @Override
+        public boolean isReadOnly() {
+
+            return false;
+
+        }
+
+        @Override
+        public Long apply(final IIndex ndx) {
+
+            if (!(ndx instanceof BTree))
+                throw new UnsupportedOperationException(ndx.getClass()
+                        .getName());
+
+            final SPOTupleSerializer tupleSer = (SPOTupleSerializer) ndx
+                    .getIndexMetadata().getTupleSerializer();
+
+            final BTreeBulkBuilder builder = new BTreeBulkBuilder((BTree) ndx);
+
+            final PriorityQueue<Run> queue = new PriorityQueue<Run>(Math.max(
+                    1, files.size()), RUN_COMPARATOR);
+
+            try {
+
+                try {
+
+                    for (int i = 0; i < files.size(); i++) {
+
+                        final Run run = new Run(i, files.get(i));
+
+                        if (run.next())
+                            queue.add(run);
+                        else
+                            run.in.close();
+
+                    }
+
+                    while (!queue.isEmpty()) {
+
+                        final byte[] key = queue.peek().key;
+
+                        byte[] val = null;
+
+                        // Reconcile the value across each run having this key.
+                        while (!queue.isEmpty()
+                                && BytesUtil.bytesEqual(key, queue.peek().key)) {
+
+                            final Run run = queue.poll();
+
+                            val = reconcile(tupleSer, val, run.val);
+
+                            if (run.next())
+                                queue.add(run);
+                            else
+                                run.in.close();
+
+                        }
+
+                        builder.add(key, val);
+
+                    }
+
+                } finally {
+
+                    for (Run run : queue) {
+
+                        run.in.close();
+
+                    }
+
+                }
+
+            } catch (IOException ex) {
+
+                throw new RuntimeException(ex);
+
+            }
+
+            return builder.close();
+
+        }
+
+    }
+
+}
@@ -67,6 +67,7 @@ import com.bigdata.btree.keys.IKeyBuilder;
 import com.bigdata.btree.keys.KeyBuilder;
 import com.bigdata.btree.keys.SuccessorUtil;
 import com.bigdata.btree.proc.LongAggregator;
+import com.bigdata.btree.raba.codec.BitPackedRabaCoder;
 import com.bigdata.btree.raba.codec.EmptyRabaValueCoder;
 import com.bigdata.btree.raba.codec.FixedLengthValueRabaCoder;
 import com.bigdata.btree.raba.codec.IRabaCoder;
@@ -190,6 +191,13 @@ public class SPORelation extends AbstractRelation<ISPO> {
      */
     final protected boolean bloomFilter;
 
+    /**
+     * <code>true</code> iff the statement index keys will be bit packed.
+     * 
+     * @see Options#BIT_PACKED_STATEMENT_KEYS
+     */
+    final protected boolean bitPackedStatementKeys;
+
     /**
      * This is used to conditionally index the {@link IChangeLog}.
      */
@@ -287,6 +295,10 @@ public class SPORelation extends AbstractRelation<ISPO> {
         this.bloomFilter = Boolean.parseBoolean(getProperty(
                 AbstractTripleStore.Options.BLOOM_FILTER,
                 AbstractTripleStore.Options.DEFAULT_BLOOM_FILTER));
+
+        this.bitPackedStatementKeys = Boolean.parseBoolean(getProperty(
+                AbstractTripleStore.Options.BIT_PACKED_STATEMENT_KEYS,
+                AbstractTripleStore.Options.DEFAULT_BIT_PACKED_STATEMENT_KEYS));
         
         final String historyClass = getProperty(
                 AbstractTripleStore.Options.RDR_HISTORY_CLASS,
@@ -708,9 +720,12 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
         final IndexMetadata metadata = newIndexMetadata(getFQN(keyOrder));
 
-        // leading key compression works great.
-        final IRabaCoder leafKeySer = DefaultTupleSerializer
-                .getDefaultLeafKeysCoder();
+        /*
+         * Leading key compression works great. Bit packing the IV columns
+         * trades some of that for search directly on the coded keys.
+         */
+        final IRabaCoder leafKeySer = bitPackedStatementKeys ? new BitPackedRabaCoder()
+                : DefaultTupleSerializer.getDefaultLeafKeysCoder();
 
 //        final IRabaCoder leafValSer;
 //        if (!statementIdentifiers) {
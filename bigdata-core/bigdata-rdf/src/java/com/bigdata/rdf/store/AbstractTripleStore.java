@@ -76,6 +76,8 @@ import com.bigdata.btree.IndexMetadata;
 import com.bigdata.btree.IndexSegment;
 import com.bigdata.btree.keys.KeyBuilder;
 import com.bigdata.btree.keys.SuccessorUtil;
+import com.bigdata.btree.raba.codec.BitPackedRabaCoder;
+import com.bigdata.io.DirectBufferPool;
 import com.bigdata.journal.IConcurrencyManager;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.journal.IResourceLock;
@@ -109,6 +111,9 @@ import com.bigdata.rdf.lexicon.ITextIndexer;
 import com.bigdata.rdf.lexicon.IValueCentricTextIndexer;
 import com.bigdata.rdf.lexicon.LexiconKeyOrder;
 import com.bigdata.rdf.lexicon.LexiconRelation;
+import com.bigdata.rdf.lexicon.OffHeapTermCache;
+import com.bigdata.rdf.lexicon.ShardedTermCache;
+import com.bigdata.rdf.lexicon.TermCache;
 import com.bigdata.rdf.lexicon.TermIdEncoder;
 import com.bigdata.rdf.model.BigdataResource;
 import com.bigdata.rdf.model.BigdataStatement;
@@ -126,6 +131,7 @@ import com.bigdata.rdf.rules.MatchRule;
 import com.bigdata.rdf.rules.RDFJoinNexusFactory;
 import com.bigdata.rdf.rules.RuleContextEnum;
 import com.bigdata.rdf.sail.RDRHistory;
+import com.bigdata.rdf.sparql.ast.cache.QueryPlanCache;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTBottomUpOptimizer;
 import com.bigdata.rdf.spo.BulkCompleteConverter;
 import com.bigdata.rdf.spo.BulkFilterConverter;
@@ -524,7 +530,7 @@ abstract public class AbstractTripleStore extends
     public static interface Options extends AbstractResource.Options,
             InferenceEngine.Options, com.bigdata.journal.Options,
             KeyBuilder.Options, DataLoader.Options, FullTextIndex.Options,
-            GeoSpatialConfigOptions.Options {
+            GeoSpatialConfigOptions.Options, QueryPlanCache.Options {
 
         /**
          * Boolean option (default <code>true</code>) enables support for the
@@ -649,6 +655,47 @@ abstract public class AbstractTripleStore extends
         
         String DEFAULT_TERM_CACHE_CAPACITY = "10000";//"50000";
 
+        /**
+         * The name of the class used for the term cache. The supported values
+         * are {@link TermCache} (the default), which is backed by weak
+         * references, and {@link ShardedTermCache}, which is a size bounded,
+         * sharded cache with TinyLFU admission control that reports its
+         * counters through {@link LexiconRelation#getTermCacheCounters()}.
+         */
+        String TERM_CACHE_CLASS = AbstractTripleStore.class.getName()
+                + ".termCache.class";
+
+        String DEFAULT_TERM_CACHE_CLASS = TermCache.class.getName();
+
+        /**
+         * The maximum #of frequently used entries which are softly pinned when
+         * they are evicted from a {@link ShardedTermCache} (default
+         * {@value #DEFAULT_TERM_CACHE_PIN_CAPACITY}, which disables pinning).
+         * Softly pinned entries are held outside of the
+         * {@link #TERM_CACHE_CAPACITY} until the JVM is under memory pressure.
+         */
+        String TERM_CACHE_PIN_CAPACITY = AbstractTripleStore.class.getName()
+                + ".termCache.pinCapacity";
+
+        String DEFAULT_TERM_CACHE_PIN_CAPACITY = "0";
+
+        /**
+         * The maximum #of bytes of native memory used by an
+         * {@link OffHeapTermCache} for the serialized RDF {@link Value}s read
+         * from the ID2TERM and BLOBS indices (default
+         * {@value #DEFAULT_TERM_CACHE_OFF_HEAP_CAPACITY}, which disables the
+         * off-heap cache). The off-heap cache is consulted for the {@link IV}s
+         * which are not found in the term cache before the indices are read.
+         * It is only used by read-only views of the lexicon, so the records of
+         * uncommitted write sets are never cached. It is shared by those views
+         * and is allocated from the {@link DirectBufferPool}, so the capacity
+         * is rounded up to a multiple of the buffer capacity of that pool.
+         */
+        String TERM_CACHE_OFF_HEAP_CAPACITY = AbstractTripleStore.class
+                .getName() + ".termCache.offHeapCapacity";
+
+        String DEFAULT_TERM_CACHE_OFF_HEAP_CAPACITY = "0";
+
         /**
          * The name of the class that will establish the pre-defined
          * {@link Vocabulary} for the database (default
@@ -795,6 +842,24 @@ abstract public class AbstractTripleStore extends
         String BLOOM_FILTER = AbstractTripleStore.class.getName() + ".bloomFilter";
 
         String DEFAULT_BLOOM_FILTER = "true";
+
+        /**
+         * When <code>true</code> (default
+         * {@value Options#DEFAULT_BIT_PACKED_STATEMENT_KEYS}), the keys in the
+         * leaves of the statement indices are coded using the
+         * {@link BitPackedRabaCoder}. Each column of the composite IV keys is
+         * bit packed using frame-of-reference coding, which supports binary
+         * search directly on the coded leaf. Leaves whose keys do not share a
+         * common length (e.g., due to variable length inline IVs) are front
+         * coded. This option only applies when the statement indices are
+         * created.
+         * 
+         * @see BitPackedRabaCoder
+         */
+        String BIT_PACKED_STATEMENT_KEYS = AbstractTripleStore.class
+                .getName() + ".bitPackedStatementKeys";
+
+        String DEFAULT_BIT_PACKED_STATEMENT_KEYS = "false";
         
         /**
          * When <code>true</code> (default {@value Options#DEFAULT_JUSTIFY}),
@@ -45,7 +45,14 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipInputStream;
 
@@ -71,8 +78,11 @@ import com.bigdata.rdf.rio.RDFParserOptions;
 import com.bigdata.rdf.rio.RioLoaderEvent;
 import com.bigdata.rdf.rio.RioLoaderListener;
 import com.bigdata.rdf.rio.StatementBuffer;
+import com.bigdata.rdf.rio.ntriples.ParallelNTriplesLoader;
 import com.bigdata.rdf.rules.InferenceEngine;
 import com.bigdata.rdf.spo.SPO;
+import com.bigdata.rdf.spo.SPOBulkBuilder;
+import com.bigdata.util.DaemonThreadFactory;
 
 /**
  * A utility class to load RDF data into an {@link AbstractTripleStore}. This
@@ -246,6 +256,31 @@ public class DataLoader {
 	 *      cause rio to throw a fatal exception)
 	 */
     private final boolean ignoreInvalidFiles;
+
+    /**
+     * @see Options#PARSER_THREADS
+     */
+    private final int parserThreads;
+
+    /**
+     * @see Options#PARSER_BLOCK_SIZE
+     */
+    private final int parserBlockSize;
+
+    /**
+     * @see Options#BULK_LOAD
+     */
+    private final boolean bulkLoad;
+
+    /**
+     * @see Options#BULK_LOAD_RUN_CAPACITY
+     */
+    private final int bulkLoadRunCapacity;
+
+    /**
+     * The directory in which the sorted runs are written for a bulk load.
+     */
+    private final File tmpDir;
     
 //    public boolean setFlush(boolean newValue) {
 //        
@@ -591,6 +626,76 @@ public class DataLoader {
 		 */
 		static final String DEFAULT_VERBOSE = "0";
 
+		/**
+		 * The #of files which will be parsed concurrently when loading a
+		 * directory using
+		 * {@link DataLoader#loadFiles(File, String, RDFFormat, String, FilenameFilter)}
+		 * . When greater than ONE (1), each parser thread has its own
+		 * {@link StatementBuffer} and the index writes for those buffers run
+		 * concurrently against the unisolated indices. Blank nodes are scoped
+		 * to the document in which they appear, as they are when the files are
+		 * loaded one at a time.
+		 * <p>
+		 * Note: Concurrent parsing is only used when {@link #CLOSURE} is
+		 * {@link ClosureEnum#None} and {@link #COMMIT} is not
+		 * {@link CommitEnum#Incremental}. Otherwise the files are loaded one at
+		 * a time.
+		 * <p>
+		 * When a single N-Triples or N-Quads document is loaded, this is the
+		 * #of threads which parse the blocks of that document (see
+		 * {@link ParallelNTriplesLoader}).
+		 */
+		static final String PARSER_THREADS = DataLoader.class.getName() + ".parserThreads";
+
+		/**
+		 * The default value (<code>1</code>) for {@link #PARSER_THREADS}.
+		 */
+		static final String DEFAULT_PARSER_THREADS = "1";
+
+		/**
+		 * The #of characters in each block of an N-Triples or N-Quads document
+		 * which is parsed by {@link #PARSER_THREADS} threads.
+		 */
+		static final String PARSER_BLOCK_SIZE = DataLoader.class.getName() + ".parserBlockSize";
+
+		/**
+		 * The default value for {@link #PARSER_BLOCK_SIZE}.
+		 */
+		static final String DEFAULT_PARSER_BLOCK_SIZE = Integer.toString(ParallelNTriplesLoader.DEFAULT_BLOCK_SIZE);
+
+		/**
+		 * When <code>true</code> and the statement indices are empty, the
+		 * statements loaded by
+		 * {@link DataLoader#loadFiles(File, String, RDFFormat, String, FilenameFilter)}
+		 * are not inserted into the statement indices as they are parsed.
+		 * Instead they are collected into sorted runs and each statement index
+		 * is built bottom-up from the merged runs once all files have been
+		 * parsed (see {@link SPOBulkBuilder}). The terms are still written on
+		 * the lexicon as the statements are parsed.
+		 * <p>
+		 * Note: This has the same restrictions as {@link #PARSER_THREADS} and
+		 * is also disabled if the statement indices are not empty or are not
+		 * local indices.
+		 */
+		static final String BULK_LOAD = DataLoader.class.getName() + ".bulkLoad";
+
+		/**
+		 * The default value (<code>false</code>) for {@link #BULK_LOAD}.
+		 */
+		static final String DEFAULT_BULK_LOAD = "false";
+
+		/**
+		 * The #of statements buffered in memory for each sorted run when
+		 * {@link #BULK_LOAD} is enabled. The runs are written into the
+		 * directory given by {@link com.bigdata.journal.Options#TMP_DIR}.
+		 */
+		static final String BULK_LOAD_RUN_CAPACITY = DataLoader.class.getName() + ".bulkLoadRunCapacity";
+
+		/**
+		 * The default value for {@link #BULK_LOAD_RUN_CAPACITY}.
+		 */
+		static final String DEFAULT_BULK_LOAD_RUN_CAPACITY = "1000000";
+
     }
 
     /**
@@ -766,6 +871,51 @@ public class DataLoader {
 				log.info(Options.DUMP_JOURNAL + "=" + dumpJournal);
 		}
 
+		{ // parserThreads.
+
+			parserThreads = Integer
+					.parseInt(properties.getProperty(Options.PARSER_THREADS, Options.DEFAULT_PARSER_THREADS));
+
+			if (parserThreads <= 0)
+				throw new IllegalArgumentException(Options.PARSER_THREADS + "=" + parserThreads);
+
+			if (log.isInfoEnabled())
+				log.info(Options.PARSER_THREADS + "=" + parserThreads);
+
+		}
+
+		{ // parserBlockSize.
+
+			parserBlockSize = Integer
+					.parseInt(properties.getProperty(Options.PARSER_BLOCK_SIZE, Options.DEFAULT_PARSER_BLOCK_SIZE));
+
+			if (parserBlockSize <= 0)
+				throw new IllegalArgumentException(Options.PARSER_BLOCK_SIZE + "=" + parserBlockSize);
+
+			if (log.isInfoEnabled())
+				log.info(Options.PARSER_BLOCK_SIZE + "=" + parserBlockSize);
+
+		}
+
+		{ // bulkLoad.
+
+			bulkLoad = Boolean.parseBoolean(properties.getProperty(Options.BULK_LOAD, Options.DEFAULT_BULK_LOAD));
+
+			bulkLoadRunCapacity = Integer.parseInt(
+					properties.getProperty(Options.BULK_LOAD_RUN_CAPACITY, Options.DEFAULT_BULK_LOAD_RUN_CAPACITY));
+
+			if (bulkLoadRunCapacity <= 0)
+				throw new IllegalArgumentException(Options.BULK_LOAD_RUN_CAPACITY + "=" + bulkLoadRunCapacity);
+
+			tmpDir = new File(properties.getProperty(com.bigdata.journal.Options.TMP_DIR,
+					System.getProperty("java.io.tmpdir")));
+
+			if (log.isInfoEnabled())
+				log.info(Options.BULK_LOAD + "=" + bulkLoad + ", " + Options.BULK_LOAD_RUN_CAPACITY + "="
+						+ bulkLoadRunCapacity);
+
+		}
+
     }
 
     public class MyLoadStats extends LoadStats {
@@ -1252,13 +1402,223 @@ public class DataLoader {
         
         final MyLoadStats totals = newLoadStats();
 
-        loadFiles(totals, 0/* depth */, file, baseURI, rdfFormat, defaultGraph, filter, true/* endOfBatch */
-        );
+        final boolean concurrent = parserThreads > 1 && file.isDirectory() && isConcurrentLoadSupported();
+
+        final SPOBulkBuilder bulkBuilder = newBulkBuilder();
+
+        try {
+
+            if (concurrent) {
+
+                loadFilesConcurrently(totals, file, baseURI, rdfFormat, defaultGraph, filter, bulkBuilder);
+
+            } else {
+
+                getAssertionBuffer().setBulkBuilder(bulkBuilder);
+
+                loadFiles(totals, 0/* depth */, file, baseURI, rdfFormat, defaultGraph, filter, true/* endOfBatch */
+                );
+
+            }
+
+            if (bulkBuilder != null) {
+
+                // Flush the diverted statements and then build the indices.
+                endSource();
+
+                final long begin = System.currentTimeMillis();
+
+                final long nstmts = bulkBuilder.build();
+
+                if (log.isInfoEnabled())
+                    log.info("Built statement indices: nstmts=" + nstmts + ", elapsed="
+                            + (System.currentTimeMillis() - begin) + "ms");
+
+            }
+
+        } finally {
+
+            if (bulkBuilder != null) {
+
+                if (buffer != null)
+                    buffer.setBulkBuilder(null);
+
+                // Note: NOP unless there was an error.
+                bulkBuilder.close();
+
+            }
+
+        }
 
         doCommit(totals);
         
         return totals;
 
+    }
+
+    /**
+     * Return <code>true</code> iff statements may be loaded by concurrent
+     * {@link StatementBuffer}s (no truth maintenance and no commit after each
+     * document).
+     * 
+     * @see Options#PARSER_THREADS
+     */
+    private boolean isConcurrentLoadSupported() {
+
+        return tm == null && commitEnum != CommitEnum.Incremental;
+
+    }
+
+    /**
+     * Return a new {@link SPOBulkBuilder} iff {@link Options#BULK_LOAD} was
+     * requested and may be used for the database in its current state.
+     * 
+     * @return The {@link SPOBulkBuilder} -or- <code>null</code> if the
+     *         statements will be written on the statement indices as they are
+     *         parsed.
+     */
+    private SPOBulkBuilder newBulkBuilder() {
+
+        if (!bulkLoad)
+            return null;
+
+        if (!isConcurrentLoadSupported() || !(database instanceof AbstractLocalTripleStore)) {
+
+            log.warn("Bulk load not supported: " + Options.CLOSURE + "=" + closureEnum + ", " + Options.COMMIT + "="
+                    + commitEnum + ", database=" + database.getClass().getName());
+
+            return null;
+
+        }
+
+        if (!SPOBulkBuilder.isEmpty(database.getSPORelation())) {
+
+            if (log.isInfoEnabled())
+                log.info("Bulk load disabled: statement indices are not empty.");
+
+            return null;
+
+        }
+
+        return new SPOBulkBuilder(database.getSPORelation(), tmpDir, bulkLoadRunCapacity);
+
+    }
+
+    /**
+     * Load the files in a directory (recursively) using
+     * {@link Options#PARSER_THREADS} concurrent parsers. Each parser has its
+     * own {@link StatementBuffer} and takes the next file from a shared queue
+     * until the queue is empty.
+     */
+    private void loadFilesConcurrently(final MyLoadStats totals, final File dir, final String baseURI,
+            final RDFFormat rdfFormat, final String defaultGraph, final FilenameFilter filter,
+            final SPOBulkBuilder bulkBuilder) throws IOException {
+
+        final Queue<File> queue = new ConcurrentLinkedQueue<File>();
+
+        listFiles(dir, filter, queue);
+
+        if (log.isInfoEnabled())
+            log.info("Loading " + queue.size() + " files using " + parserThreads + " parsers: " + dir);
+
+        final ExecutorService service = Executors.newFixedThreadPool(parserThreads,
+                new DaemonThreadFactory(getClass().getName() + ".parser"));
+
+        try {
+
+            final List<Future<MyLoadStats>> futures = new LinkedList<Future<MyLoadStats>>();
+
+            for (int i = 0; i < parserThreads; i++) {
+
+                futures.add(service.submit(new Callable<MyLoadStats>() {
+
+                    @Override
+                    public MyLoadStats call() throws Exception {
+
+                        final MyLoadStats stats = newLoadStats();
+
+                        @SuppressWarnings({ "rawtypes", "unchecked" })
+                        final StatementBuffer<?> sb = new StatementBuffer(database, bufferCapacity, queueCapacity);
+
+                        sb.setBulkBuilder(bulkBuilder);
+
+                        File file;
+
+                        while ((file = queue.poll()) != null) {
+
+                            loadFile(stats, file, baseURI, rdfFormat, defaultGraph, true/* endOfBatch */, sb);
+
+                        }
+
+                        sb.flush();
+
+                        return stats;
+
+                    }
+
+                }));
+
+            }
+
+            for (Future<MyLoadStats> f : futures) {
+
+                try {
+
+                    totals.add(f.get());
+
+                } catch (InterruptedException ex) {
+
+                    throw new RuntimeException(ex);
+
+                } catch (ExecutionException ex) {
+
+                    final Throwable cause = ex.getCause();
+
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+
+                    if (cause instanceof IOException)
+                        throw (IOException) cause;
+
+                    throw new RuntimeException(cause);
+
+                }
+
+            }
+
+        } finally {
+
+            service.shutdownNow();
+
+        }
+
+    }
+
+    /**
+     * Add the files to be loaded to the queue in the same order in which
+     * {@link #loadFiles(MyLoadStats, int, File, String, RDFFormat, String, FilenameFilter, boolean)}
+     * would visit them.
+     */
+    private static void listFiles(final File file, final FilenameFilter filter, final Queue<File> queue) {
+
+        if (!file.isDirectory()) {
+
+            queue.add(file);
+
+            return;
+
+        }
+
+        final File[] files = (filter != null ? file.listFiles(filter) : file.listFiles());
+
+        Arrays.sort(files);
+
+        for (File f : files) {
+
+            listFiles(f, filter, queue);
+
+        }
+
     }
 
 	/**
@@ -1306,7 +1666,23 @@ public class DataLoader {
             return;
             
         }
-        
+
+        loadFile(totals, file, baseURI, rdfFormat, defaultGraph, endOfBatch, null/* threadBuffer */);
+
+    }
+
+    /**
+     * Load a single file.
+     * 
+     * @param threadBuffer
+     *            The {@link StatementBuffer} for the parser thread -or-
+     *            <code>null</code> to use the shared
+     *            {@link #getAssertionBuffer() assertion buffer}.
+     */
+    private void loadFile(final MyLoadStats totals, final File file, final String baseURI,
+            final RDFFormat rdfFormat, final String defaultGraph, final boolean endOfBatch,
+            final StatementBuffer<?> threadBuffer) throws IOException {
+
         final String n = file.getName();
         
         RDFFormat fmt = RDFFormat.forFileName(n);
@@ -1357,7 +1733,7 @@ public class DataLoader {
 				final String s = baseURI != null ? baseURI : file.toURI().toString();
 
 				loadData4_ParserErrors_Not_Trapped(totals, reader, file.toString()/* label */,
-						file/* fileIfSourceIfFile */, s, fmt, defaultGraph, endOfBatch);
+						file/* fileIfSourceIfFile */, s, fmt, defaultGraph, endOfBatch, threadBuffer);
                 
                 return;
 
@@ -1449,7 +1825,7 @@ public class DataLoader {
 		try {
 
 			loadData4_ParserErrors_Not_Trapped(totals, source, label, null/* fileIfSourceIsFile */, baseURI, rdfFormat,
-					defaultGraph, endOfBatch);
+					defaultGraph, endOfBatch, null/* threadBuffer */);
 
 		} catch (RDFParseException ex) {
 
@@ -1494,6 +1870,10 @@ public class DataLoader {
 	 *            store.
 	 * @param endOfBatch
 	 *            Signal indicates the end of a batch.
+	 * @param threadBuffer
+	 *            The {@link StatementBuffer} for the parser thread -or-
+	 *            <code>null</code> to use the shared
+	 *            {@link #getAssertionBuffer() assertion buffer}.
 	 * 
 	 * @throws IOException
 	 *             if there is a problem reading the source.
@@ -1502,7 +1882,7 @@ public class DataLoader {
 	 */
 	private void loadData4_ParserErrors_Not_Trapped(final MyLoadStats totals, final Object source, String label,
 			final File fileIfSourceIsFile, final String baseURI, final RDFFormat rdfFormat, final String defaultGraph,
-			final boolean endOfBatch) throws IOException, RDFParseException {
+			final boolean endOfBatch, final StatementBuffer<?> threadBuffer) throws IOException, RDFParseException {
 
 		if (label == null) {
 			// Use baseURI
@@ -1518,7 +1898,7 @@ public class DataLoader {
         final MyLoadStats stats = new MyLoadStats();
         
         // Note: allocates a new buffer iff the [buffer] is null.
-        getAssertionBuffer();
+        final StatementBuffer<?> sb = threadBuffer != null ? threadBuffer : getAssertionBuffer();
         
         /*
 		 * Nope! We do not call reset() here. The buffer is non-empty when
@@ -1540,8 +1920,16 @@ public class DataLoader {
 //            
 //        }
         
-		// Setup the loader. Flush buffer at end of source iff flush:=true.
-        final PresortRioLoader loader = new PresortRioLoader ( buffer, flush ) ;
+		/*
+		 * Setup the loader. Flush buffer at end of source iff flush:=true.
+		 * 
+		 * Note: N-Triples and N-Quads are parsed by a pool of threads unless
+		 * this is already one of several concurrent parsers.
+		 */
+        final PresortRioLoader loader = parserThreads > 1 && threadBuffer == null
+                && ParallelNTriplesLoader.isSupported(rdfFormat)
+                ? new ParallelNTriplesLoader(sb, flush, parserThreads, parserBlockSize)
+                : new PresortRioLoader(sb, flush);
 
         // @todo review: disable auto-flush - caller will handle flush of the buffer.
 //        loader.setFlush(false);
@@ -1574,7 +1962,7 @@ public class DataLoader {
 
 				if (verbose > 2) {
 					// Show more details, especially about the assertion buffers.
-					final StatementBuffer<?> tmp = buffer;
+					final StatementBuffer<?> tmp = sb;
 					if (tmp != null) {
 						output.println(tmp.toString());
 						output.println(tmp.getCounters().toString());
@@ -1680,10 +2068,9 @@ public class DataLoader {
             if (log.isInfoEnabled()) {
 				log.info("file:: " + stats + "; totals:: " + totals
 						+ (baseURI != null ? "; baseURL=" + baseURI : ""));
-                if (buffer != null
-                        && buffer.getDatabase() instanceof AbstractLocalTripleStore) {
+                if (sb.getDatabase() instanceof AbstractLocalTripleStore) {
                 	if(log.isDebugEnabled())
-                    log.debug(((AbstractLocalTripleStore) buffer.getDatabase())
+                    log.debug(((AbstractLocalTripleStore) sb.getDatabase())
                             .getLocalBTreeBytesWritten(new StringBuilder())
                             .toString());
                 }
@@ -1704,7 +2091,12 @@ public class DataLoader {
              * (that is, by calling abort()).
              */
 
-			if (buffer != null) {
+			if (threadBuffer != null) {
+
+				// clear any buffered statements (the buffer is owned by the caller).
+				threadBuffer.reset();
+
+			} else if (buffer != null) {
 
                 // clear any buffer statements.
                 buffer.reset();
@@ -1760,6 +2152,8 @@ public class DataLoader {
 			}
 		}
 
+		counters.makePath("termCache").attach(database.getLexiconRelation().getTermCacheCounters());
+
 		output.println(counters.toString());
 
 		/*
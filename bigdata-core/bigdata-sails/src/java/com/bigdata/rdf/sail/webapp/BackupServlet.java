@@ -33,7 +33,9 @@ import org.apache.log4j.Logger;
 
 import com.bigdata.journal.BasicSnapshotFactory;
 import com.bigdata.journal.ISnapshotResult;
+import com.bigdata.journal.IncrementalSnapshotRestore;
 import com.bigdata.journal.Journal;
+import com.bigdata.rwstore.RWStore;
 
 /**
  * Request an online backup of the journal (non-HA Mode). The backup will be
@@ -50,6 +52,7 @@ import com.bigdata.journal.Journal;
  * file :  The name of the file.  Defaults to backup.jnl in the current working directory.
  * compress :  Boolean to compress the backup.   It defaults to false.  It is true if the parameter is present without a value.  Compress does not append a .gz to the backup file name.
  * block :   Boolean to block the REST call on creating the snapshot.  Defaults to true.  
+ * base :  The commit counter of a previous backup.  When given, an incremental backup holding only the blocks changed since that backup is written.  See {@link IncrementalSnapshotRestore}.
  * 
  * <code> curl \
  * 			--data-urlencode "file=/path/to/backup.jnl" \
@@ -99,6 +102,17 @@ public class BackupServlet extends BigdataRDFServlet {
 	 * {@link SnapshoTask} is completed.
 	 */
 	public static final String BLOCK = "block";
+
+	/**
+	 * URL parameter to request an incremental backup. The value is the commit
+	 * counter of a previous backup. It is optional. If it is not specified, a
+	 * full backup is written.
+	 * 
+	 * The incremental backup holds only the allocation blocks changed since
+	 * that backup and requires the journal to log its changes (see
+	 * {@link RWStore.Options#CHANGE_LOG_FILE}).
+	 */
+	public static final String BASE = "base";
 	
 	protected void doPost(final HttpServletRequest req,
 			final HttpServletResponse res) throws IOException {
@@ -115,8 +129,10 @@ public class BackupServlet extends BigdataRDFServlet {
 		boolean compress = false; // Default value is no compression
 		boolean block = true; // Default value is to block on the response
 		String file = DEFAULT_FILE;
+		long base = 0L; // Default is a full backup
 		
 		boolean hasError = false;
+		ISnapshotResult result = null;
 		final StringBuffer errorMessage = new StringBuffer();
 		
 		{
@@ -138,6 +154,19 @@ public class BackupServlet extends BigdataRDFServlet {
 				} // Default is true
 			}
 
+			param = req.getParameter(BASE);
+
+			if (param != null && !"".equals(param)) {
+				try {
+					base = Long.parseLong(param);
+				} catch (NumberFormatException e) {
+					buildAndCommitResponse(res, HTTP_BADREQUEST,
+							MIME_TEXT_PLAIN, "Bad value for " + BASE + ": "
+									+ param + "\n");
+					return;
+				}
+			}
+
 			param = req.getParameter(FILE);
 
 			if (param != null) {
@@ -160,16 +189,19 @@ public class BackupServlet extends BigdataRDFServlet {
 			log.warn("Snapshot requested.  Writing backup to "
 					+ snapfact.getFile());
 
-			final Future<ISnapshotResult> f = ((Journal) getIndexManager())
-					.snapshot(snapfact);
+			final Journal journal = (Journal) getIndexManager();
+
+			final Future<ISnapshotResult> f = base == 0L ? journal
+					.snapshot(snapfact) : journal.incrementalSnapshot(
+					snapfact, base);
 
 			if (block) {
 
 				try {
-					ISnapshotResult r = f.get();
+					result = f.get();
 					if (debug) {
 						log.debug("Snapshot completed at "
-								+ r.getFile().getAbsolutePath());
+								+ result.getFile().getAbsolutePath());
 					}
 				} catch (InterruptedException e) {
 					hasError = true;
@@ -188,7 +220,10 @@ public class BackupServlet extends BigdataRDFServlet {
 		if(hasError) {
 			buildAndCommitResponse(res, HTTP_INTERNALERROR, MIME_TEXT_PLAIN, errorMessage.toString() + "\n");
 		} else {
-			buildAndCommitResponse(res, HTTP_OK, MIME_TEXT_PLAIN, "Backup created at " + file + ".\n");
+			// The commit counter is the base for the next incremental backup.
+			buildAndCommitResponse(res, HTTP_OK, MIME_TEXT_PLAIN, "Backup created at " + file
+					+ (result == null ? "" : ", commitCounter="
+							+ result.getRootBlock().getCommitCounter()) + ".\n");
 		}
 
 	}
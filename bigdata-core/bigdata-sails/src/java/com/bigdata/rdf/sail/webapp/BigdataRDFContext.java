@@ -447,6 +447,51 @@ public class BigdataRDFContext extends BigdataBaseContext {
         
     }
 
+    /**
+     * The queries which have been prepared on the server, by namespace.
+     * 
+     * @see QueryServlet#ATTR_PREPARE
+     */
+    private final ConcurrentHashMap<String, PreparedQueryCache> m_preparedQueries = new ConcurrentHashMap<String, PreparedQueryCache>();
+
+    /**
+     * The queries which have been prepared on the server for a namespace.
+     * 
+     * @param namespace
+     *            The namespace.
+     */
+    final PreparedQueryCache getPreparedQueries(final String namespace) {
+
+        PreparedQueryCache cache = m_preparedQueries.get(namespace);
+
+        if (cache == null) {
+
+            final PreparedQueryCache tmp = m_preparedQueries.putIfAbsent(
+                    namespace, cache = new PreparedQueryCache(namespace,
+                            PreparedQueryCache.DEFAULT_CAPACITY));
+
+            if (tmp != null)
+                cache = tmp;
+
+        }
+
+        return cache;
+
+    }
+
+    /**
+     * Discard the queries which have been prepared on the server for a
+     * namespace (e.g., because that namespace was destroyed).
+     * 
+     * @param namespace
+     *            The namespace.
+     */
+    final void clearPreparedQueries(final String namespace) {
+
+        m_preparedQueries.remove(namespace);
+
+    }
+
     /**
      * Return the {@link AbstractRestApiTask} for a currently executing request.
      * 
@@ -165,6 +165,11 @@ public class DataLoaderServlet extends BigdataRDFServlet {
 	  <!-- --> 
 	  <entry key="durableQueues">true</entry> 
 	  <!-- --> 
+	  <!-- The #of parser threads. N-Triples and N-Quads files are split into
+	  blocks which are parsed concurrently. (Optional) -->
+	  <!-- --> 
+	  <entry key="parserThreads">4</entry> 
+	  <!-- --> 
 	  <!-- The
 	  namespace of the KB instance. Defaults to kb. --> 
 	  <!-- --> 
@@ -409,6 +414,9 @@ public class DataLoaderServlet extends BigdataRDFServlet {
 			final boolean durableQueues = getBooleanProperty(props,
 					"durableQueues", true);
 
+			// #of parser threads (Optional, overrides the propertyFile).
+			final String parserThreads = props.getProperty("parserThreads");
+
 			// Validated in the doBulkLoad method.
 			final String fileOrDirs = props.getProperty("fileOrDirs");
 
@@ -424,6 +432,7 @@ public class DataLoaderServlet extends BigdataRDFServlet {
 						+ defaultGraph + " ; quiet = " + quiet
 						+ " ; verbose = " + verbose + " ; "
 						+ "durableQueues = " + durableQueues
+						+ " ; parserThreads = " + parserThreads
 						+ " ; namespace = " + namespace + "propertyFile = "
 						+ propertyFile + " ; fileOrDirs = " + fileOrDirs + " )");
 
@@ -432,6 +441,13 @@ public class DataLoaderServlet extends BigdataRDFServlet {
 			final Properties properties = DataLoader.processProperties(
 					propertyFile, quiet, verbose, durableQueues);
 
+			if (parserThreads != null) {
+
+				properties.setProperty(DataLoader.Options.PARSER_THREADS,
+						parserThreads);
+
+			}
+
 			final long begin = System.currentTimeMillis();
             
             BigdataSailRepositoryConnection conn = null;
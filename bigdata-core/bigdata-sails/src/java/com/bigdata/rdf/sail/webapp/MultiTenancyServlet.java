@@ -621,6 +621,9 @@ public class MultiTenancyServlet extends BigdataRDFServlet {
 
             submitApiTask(new RestApiDestroyKBTask(req, resp, namespace)).get();
 
+            // Discard the queries which were prepared for that namespace.
+            getBigdataRDFContext().clearPreparedQueries(namespace);
+
         } catch (Throwable e) {
 
             launderThrowable(e, resp, "DELETE NAMESPACE: namespace="+namespace);
@@ -0,0 +1,239 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+
+/**
+ * Registry for the SPARQL queries which have been prepared on the server for
+ * some namespace. A client registers a query once and receives a handle. The
+ * query is then executed by handle with the usual <code>$name</code> bindings,
+ * so the query string is neither retransmitted nor reparsed.
+ * <p>
+ * The registry saves the parse. Each execution uses a copy of that parse which
+ * is tagged with the handle (see {@link ASTContainer#getPreparedQueryId()}),
+ * and the <code>$name</code> bindings are given to the query as exogenous
+ * bindings. The {@link com.bigdata.rdf.sparql.ast.cache.QueryPlanCache} caches
+ * the optimized plan of a SELECT query under its handle and the commit point
+ * of the view, and lifts the bindings which are not used in value expressions
+ * out of its key. So the plan is reused for other values of those bindings
+ * until the next commit.
+ * <p>
+ * There is one registry per namespace. It is bounded and evicts the least
+ * recently used entries. A client which receives an HTTP 404 for a handle
+ * should simply prepare the query again.
+ * 
+ * @see QueryServlet#ATTR_PREPARE
+ * @see QueryServlet#ATTR_PREPARED
+ * @see QueryServlet#ATTR_CLOSE_PREPARED
+ */
+class PreparedQueryCache {
+
+    private static final transient Logger log = Logger
+            .getLogger(PreparedQueryCache.class);
+
+    /**
+     * The name of the system property which specifies the maximum number of
+     * prepared queries retained by the server for each namespace.
+     */
+    static final String CAPACITY = PreparedQueryCache.class.getName()
+            + ".capacity";
+
+    static final int DEFAULT_CAPACITY = Integer.parseInt(System.getProperty(
+            CAPACITY, "100"));
+
+    /**
+     * A query which has been parsed and registered under some handle.
+     */
+    static class PreparedQuery {
+
+        /** The handle assigned to the query. */
+        final UUID handle;
+
+        /** The namespace against which the query was prepared. */
+        final String namespace;
+
+        /** The query string. */
+        final String queryStr;
+
+        /** The baseURI used to parse the query. */
+        final String baseURI;
+
+        /**
+         * The parsed query. This is never handed out since the AST is
+         * modified when the query is executed.
+         */
+        private final ASTContainer template;
+
+        PreparedQuery(final UUID handle, final String namespace,
+                final String queryStr, final String baseURI,
+                final ASTContainer template) {
+
+            this.handle = handle;
+            this.namespace = namespace;
+            this.queryStr = queryStr;
+            this.baseURI = baseURI;
+            this.template = template;
+
+        }
+
+        /**
+         * Return a new copy of the parsed query which may be used for a single
+         * execution. The copy is tagged with the handle of the prepared
+         * query.
+         */
+        ASTContainer newASTContainer() {
+
+            final ASTContainer astContainer = BOpUtility.deepCopy(template);
+
+            astContainer.setPreparedQueryId(handle);
+
+            return astContainer;
+
+        }
+
+        @Override
+        public String toString() {
+
+            return getClass().getSimpleName() + "{handle=" + handle
+                    + ",namespace=" + namespace + ",queryStr=[" + queryStr
+                    + "]}";
+
+        }
+
+    }
+
+    /**
+     * The namespace for which the queries are prepared.
+     */
+    private final String namespace;
+
+    /**
+     * The prepared queries in access order (guarded by synchronized).
+     */
+    private final LinkedHashMap<UUID, PreparedQuery> queries;
+
+    /**
+     * @param namespace
+     *            The namespace for which the queries are prepared.
+     * @param capacity
+     *            The maximum number of prepared queries which will be
+     *            retained.
+     */
+    PreparedQueryCache(final String namespace, final int capacity) {
+
+        if (namespace == null)
+            throw new IllegalArgumentException();
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException();
+
+        this.namespace = namespace;
+
+        this.queries = new LinkedHashMap<UUID, PreparedQuery>(16, .75f, true/* accessOrder */) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<UUID, PreparedQuery> eldest) {
+
+                if (size() <= capacity)
+                    return false;
+
+                if (log.isInfoEnabled())
+                    log.info("Evicting: " + eldest.getValue());
+
+                return true;
+
+            }
+
+        };
+
+    }
+
+    /**
+     * Register a parsed query.
+     * 
+     * @return The handle for that query.
+     */
+    synchronized PreparedQuery put(final String queryStr,
+            final String baseURI, final ASTContainer astContainer) {
+
+        if (queryStr == null || astContainer == null)
+            throw new IllegalArgumentException();
+
+        final PreparedQuery q = new PreparedQuery(UUID.randomUUID(),
+                namespace, queryStr, baseURI, astContainer);
+
+        queries.put(q.handle, q);
+
+        return q;
+
+    }
+
+    /**
+     * Return the prepared query for that handle.
+     * 
+     * @return The prepared query -or- <code>null</code> if there is no such
+     *         prepared query (never registered, closed, or evicted).
+     */
+    synchronized PreparedQuery get(final UUID handle) {
+
+        return queries.get(handle);
+
+    }
+
+    /**
+     * Close a prepared query.
+     * 
+     * @return <code>true</code> iff the prepared query was found.
+     */
+    synchronized boolean remove(final UUID handle) {
+
+        return queries.remove(handle) != null;
+
+    }
+
+    /**
+     * The #of prepared queries.
+     */
+    synchronized int size() {
+
+        return queries.size();
+
+    }
+
+}
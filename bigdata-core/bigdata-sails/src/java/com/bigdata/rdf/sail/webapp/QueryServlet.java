@@ -83,6 +83,7 @@ import com.bigdata.rdf.sail.sparql.ast.SimpleNode;
 import com.bigdata.rdf.sail.webapp.BigdataRDFContext.AbstractQueryTask;
 import com.bigdata.rdf.sail.webapp.BigdataRDFContext.RunningQuery;
 import com.bigdata.rdf.sail.webapp.BigdataRDFContext.UpdateTask;
+import com.bigdata.rdf.sail.webapp.PreparedQueryCache.PreparedQuery;
 import com.bigdata.rdf.sail.webapp.client.ConnectOptions;
 import com.bigdata.rdf.sail.webapp.client.EncodeDecodeValue;
 import com.bigdata.rdf.sparql.ast.ASTBase.Annotations;
@@ -182,6 +183,40 @@ public class QueryServlet extends BigdataRDFServlet {
      */
     static final transient String ATTR_UUID = "uuid";
 
+    /**
+     * The name of the URL query parameter which indicates a request to prepare
+     * the SPARQL query given by {@link #ATTR_QUERY} on the server. The query is
+     * parsed and registered for the namespace and a handle for that query is
+     * returned as a <code>text/plain</code> response entity.
+     * 
+     * @see #ATTR_PREPARED
+     * @see #ATTR_CLOSE_PREPARED
+     */
+    static final transient String ATTR_PREPARE = "prepare";
+
+    /**
+     * The name of the URL query parameter whose value is the handle of a query
+     * which was prepared on the server. The prepared query is executed against
+     * the namespace for which it was prepared using any bindings given by
+     * {@link #BINDING_PREFIX} parameters. Those bindings are given to the
+     * query as exogenous bindings, so the optimized plan of a prepared SELECT
+     * query is cached under its handle and reused for other bindings on the
+     * same commit point. An HTTP 404 is returned if the handle is not known
+     * (the query was closed or evicted).
+     * 
+     * @see #ATTR_PREPARE
+     * @see PreparedQueryCache
+     */
+    static final transient String ATTR_PREPARED = "prepared";
+
+    /**
+     * The name of the URL query parameter whose value is the handle of a query
+     * which was prepared on the server and which should now be released.
+     * 
+     * @see #ATTR_PREPARE
+     */
+    static final transient String ATTR_CLOSE_PREPARED = "closePrepared";
+
    /**
     * The name of the URL query parameter which is any of:
     * <dl>
@@ -244,6 +279,16 @@ public class QueryServlet extends BigdataRDFServlet {
             // SPARQL 1.1 UPDATE, see trac 711 for bug report motivating this case
             doSparqlUpdate(req, resp);
             
+	    } else if (req.getParameter(ATTR_PREPARE) != null) {
+
+            // Prepare a query on the server.
+            doPrepare(req, resp);
+
+        } else if (req.getParameter(ATTR_CLOSE_PREPARED) != null) {
+
+            // Release a query prepared on the server.
+            doClosePrepared(req, resp);
+
 	    } else if (req.getParameter(ATTR_UUID) != null) {
 
             // UUID with caching defeated.
@@ -285,7 +330,8 @@ public class QueryServlet extends BigdataRDFServlet {
     protected void doGet(final HttpServletRequest req,
             final HttpServletResponse resp) throws IOException {
 
-        if (req.getParameter(ATTR_QUERY) != null) {
+        if (req.getParameter(ATTR_QUERY) != null
+                || req.getParameter(ATTR_PREPARED) != null) {
             
             doSparqlQuery(req, resp);
             
@@ -337,6 +383,143 @@ public class QueryServlet extends BigdataRDFServlet {
 
     }
 
+    /**
+     * Parse a SPARQL query and register it with the
+     * {@link PreparedQueryCache}. The handle for the prepared query is sent as
+     * a <code>text/plain</code> response entity.
+     */
+    private void doPrepare(final HttpServletRequest req,
+            final HttpServletResponse resp) throws IOException {
+
+        final String queryStr = getQueryString(req);
+
+        if (queryStr == null) {
+
+            buildAndCommitResponse(resp, HTTP_BADREQUEST, MIME_TEXT_PLAIN,
+                    "Not found: query");
+
+            return;
+
+        }
+
+        try {
+
+            final String namespace = getNamespace(req);
+
+            final String baseURI = BigdataRDFContext.getBaseURI(req, resp);
+
+            final ASTContainer astContainer = new Bigdata2ASTSPARQLParser()
+                    .parseQuery2(queryStr, baseURI);
+
+            final PreparedQuery preparedQuery = getBigdataRDFContext()
+                    .getPreparedQueries(namespace).put(queryStr, baseURI,
+                            astContainer);
+
+            if (log.isInfoEnabled())
+                log.info("Prepared: " + preparedQuery);
+
+            buildAndCommitResponse(resp, HTTP_OK, MIME_TEXT_PLAIN,
+                    preparedQuery.handle.toString());
+
+        } catch (Throwable t) {
+
+            launderThrowable(t, resp, "SPARQL-PREPARE: queryStr=" + queryStr);
+
+        }
+
+    }
+
+    /**
+     * Release a query which was prepared on the server. An HTTP 404 is
+     * returned if the handle is not known.
+     */
+    private void doClosePrepared(final HttpServletRequest req,
+            final HttpServletResponse resp) throws IOException {
+
+        final UUID handle = getPreparedQueryHandle(req, resp,
+                ATTR_CLOSE_PREPARED);
+
+        if (handle == null) {
+            // Error response already committed.
+            return;
+        }
+
+        if (getBigdataRDFContext().getPreparedQueries(getNamespace(req))
+                .remove(handle)) {
+
+            buildAndCommitResponse(resp, HTTP_OK, MIME_TEXT_PLAIN, "");
+
+        } else {
+
+            buildAndCommitResponse(resp, HTTP_NOTFOUND, MIME_TEXT_PLAIN,
+                    "Not found: " + ATTR_CLOSE_PREPARED + "=" + handle);
+
+        }
+
+    }
+
+    /**
+     * Return the prepared query identified by {@link #ATTR_PREPARED}. An error
+     * response is committed if the handle is malformed, if there is no such
+     * prepared query, or if the query was prepared for a different namespace.
+     * 
+     * @return The prepared query -or- <code>null</code> if an error response
+     *         was committed.
+     */
+    private PreparedQuery getPreparedQuery(final HttpServletRequest req,
+            final HttpServletResponse resp) throws IOException {
+
+        final UUID handle = getPreparedQueryHandle(req, resp, ATTR_PREPARED);
+
+        if (handle == null) {
+            // Error response already committed.
+            return null;
+        }
+
+        final PreparedQuery preparedQuery = getBigdataRDFContext()
+                .getPreparedQueries(getNamespace(req)).get(handle);
+
+        if (preparedQuery == null) {
+
+            buildAndCommitResponse(resp, HTTP_NOTFOUND, MIME_TEXT_PLAIN,
+                    "Not found: " + ATTR_PREPARED + "=" + handle);
+
+            return null;
+
+        }
+
+        return preparedQuery;
+
+    }
+
+    /**
+     * Decode the handle of a prepared query from the named URL query
+     * parameter.
+     * 
+     * @return The handle -or- <code>null</code> if an error response was
+     *         committed.
+     */
+    private UUID getPreparedQueryHandle(final HttpServletRequest req,
+            final HttpServletResponse resp, final String name)
+            throws IOException {
+
+        final String s = req.getParameter(name);
+
+        try {
+
+            return UUID.fromString(s.trim());
+
+        } catch (IllegalArgumentException ex) {
+
+            buildAndCommitResponse(resp, HTTP_BADREQUEST, MIME_TEXT_PLAIN,
+                    "Bad value: " + name + "=" + s);
+
+            return null;
+
+        }
+
+    }
+
     /**
      * Generate a SPARQL 1.1 Service Description for the addressed triple store
      * or quad store.
@@ -640,7 +823,25 @@ public class QueryServlet extends BigdataRDFServlet {
             return;
         }
 
-        final String queryStr = getQueryString(req);
+        final PreparedQuery preparedQuery;
+        final String queryStr;
+
+        if (req.getParameter(ATTR_PREPARED) != null) {
+
+            if ((preparedQuery = getPreparedQuery(req, resp)) == null) {
+                // Error response already committed.
+                return;
+            }
+
+            queryStr = preparedQuery.queryStr;
+
+        } else {
+
+            preparedQuery = null;
+
+            queryStr = getQueryString(req);
+
+        }
 
         if (queryStr == null) {
 
@@ -677,7 +878,7 @@ public class QueryServlet extends BigdataRDFServlet {
 
          submitApiTask(
                new SparqlQueryTask(req, resp, namespace, timestamp, queryStr, includeInferred, bindings,
-                     getBigdataRDFContext())).get();
+                     getBigdataRDFContext(), preparedQuery)).get();
 
       } catch (Throwable t) {
 
@@ -698,6 +899,7 @@ public class QueryServlet extends BigdataRDFServlet {
 		private final BigdataRDFContext context;
 		private final boolean includeInferred;
 		private final Map<String, Value> bindings;
+		private final PreparedQuery preparedQuery;
 
       public SparqlQueryTask(final HttpServletRequest req,
             final HttpServletResponse resp, final String namespace,
@@ -705,6 +907,23 @@ public class QueryServlet extends BigdataRDFServlet {
             final boolean includeInferred, Map<String, Value> bindings,
             final BigdataRDFContext context) {
 
+         this(req, resp, namespace, timestamp, queryStr, includeInferred,
+               bindings, context, null/* preparedQuery */);
+
+      }
+
+      /**
+       * @param preparedQuery
+       *           When non-<code>null</code>, the query was prepared on the
+       *           server and a copy of its parsed AST is used rather than
+       *           parsing the query again.
+       */
+      public SparqlQueryTask(final HttpServletRequest req,
+            final HttpServletResponse resp, final String namespace,
+            final long timestamp, final String queryStr,
+            final boolean includeInferred, Map<String, Value> bindings,
+            final BigdataRDFContext context, final PreparedQuery preparedQuery) {
+
          super(req, resp, namespace, timestamp);
 
          if (queryStr == null)
@@ -716,6 +935,7 @@ public class QueryServlet extends BigdataRDFServlet {
          this.context = context;
          this.includeInferred = includeInferred;
          this.bindings = bindings;
+         this.preparedQuery = preparedQuery;
          
       }
         
@@ -734,11 +954,23 @@ public class QueryServlet extends BigdataRDFServlet {
              * before obtaining the connection
              */
             
-            // Setup the baseURI for this request. 
-            final String baseURI = BigdataRDFContext.getBaseURI(req, resp);
+            final String baseURI;
+            final ASTContainer astContainer;
+            if (preparedQuery != null) {
+
+                // Use a copy of the query prepared on the server.
+                baseURI = preparedQuery.baseURI;
+                astContainer = preparedQuery.newASTContainer();
+
+            } else {
+
+                // Setup the baseURI for this request.
+                baseURI = BigdataRDFContext.getBaseURI(req, resp);
 
-            // Parse the query.
-            final ASTContainer astContainer = new Bigdata2ASTSPARQLParser().parseQuery2(queryStr, baseURI);
+                // Parse the query.
+                astContainer = new Bigdata2ASTSPARQLParser().parseQuery2(queryStr, baseURI);
+
+            }
 
 			BigdataSailRepositoryConnection conn = null;
 			try {
@@ -260,6 +260,9 @@ public class RESTServlet extends BigdataRDFServlet {
                 || req.getParameter(QueryServlet.ATTR_HASSTMT) != null
                 || req.getParameter(QueryServlet.ATTR_GETSTMTS) != null
                 || req.getParameter(QueryServlet.ATTR_CONTEXTS) != null
+                || req.getParameter(QueryServlet.ATTR_PREPARE) != null
+                || req.getParameter(QueryServlet.ATTR_PREPARED) != null
+                || req.getParameter(QueryServlet.ATTR_CLOSE_PREPARED) != null
                 // the two cases below were added to fix bug trac 711
                 || hasMimeType(req, BigdataRDFServlet.MIME_SPARQL_UPDATE)
                 || hasMimeType(req, BigdataRDFServlet.MIME_SPARQL_QUERY)
@@ -70,6 +70,43 @@ public interface BufferAnnotations {
      */
     int DEFAULT_CHUNK_CAPACITY = 100;//trunk=100
 
+    /**
+     * When <code>true</code>, the query engine scales the target size of the
+     * chunks output by an operator by the fan-out (unitsOut/unitsIn) observed
+     * for that operator so far in the query (default
+     * {@value #DEFAULT_ADAPTIVE_CHUNK_CAPACITY}). Selective operators then push
+     * small chunks downstream with low latency while operators which fan out
+     * combine their outputs into larger chunks. The scaled capacity is never
+     * less than {@link #CHUNK_CAPACITY} divided by, nor more than
+     * {@link #CHUNK_CAPACITY} multiplied by, the
+     * {@link #ADAPTIVE_CHUNK_CAPACITY_FACTOR}.
+     * <p>
+     * Note: This is disabled by default since it changes the chunking of every
+     * operator on which it is enabled. Only the fan-out is considered; the
+     * elapsed time of the operator is not. It should be enabled for queries
+     * whose operators have a large and stable fan-out.
+     */
+    String ADAPTIVE_CHUNK_CAPACITY = BlockingBuffer.class.getName()
+            + ".adaptiveChunkCapacity";
+
+    /**
+     * Default for {@link #ADAPTIVE_CHUNK_CAPACITY}
+     */
+    boolean DEFAULT_ADAPTIVE_CHUNK_CAPACITY = false;
+
+    /**
+     * The bound on the factor by which the {@link #CHUNK_CAPACITY} may be
+     * scaled when {@link #ADAPTIVE_CHUNK_CAPACITY} is enabled (default
+     * {@value #DEFAULT_ADAPTIVE_CHUNK_CAPACITY_FACTOR}).
+     */
+    String ADAPTIVE_CHUNK_CAPACITY_FACTOR = BlockingBuffer.class.getName()
+            + ".adaptiveChunkCapacityFactor";
+
+    /**
+     * Default for {@link #ADAPTIVE_CHUNK_CAPACITY_FACTOR}
+     */
+    int DEFAULT_ADAPTIVE_CHUNK_CAPACITY_FACTOR = 10;
+
     /**
      * The timeout in milliseconds that the {@link BlockingBuffer} will wait for
      * another chunk to combine with the current chunk before returning the
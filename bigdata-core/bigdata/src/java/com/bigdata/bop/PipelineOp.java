@@ -310,6 +310,26 @@ abstract public class PipelineOp extends BOpBase {
         
     }
 
+    /**
+     * @see Annotations#ADAPTIVE_CHUNK_CAPACITY
+     */
+    final public boolean isAdaptiveChunkCapacity() {
+
+        return getProperty(Annotations.ADAPTIVE_CHUNK_CAPACITY,
+                Annotations.DEFAULT_ADAPTIVE_CHUNK_CAPACITY);
+
+    }
+
+    /**
+     * @see Annotations#ADAPTIVE_CHUNK_CAPACITY_FACTOR
+     */
+    final public int getAdaptiveChunkCapacityFactor() {
+
+        return getProperty(Annotations.ADAPTIVE_CHUNK_CAPACITY_FACTOR,
+                Annotations.DEFAULT_ADAPTIVE_CHUNK_CAPACITY_FACTOR);
+
+    }
+
     /**
      * @see Annotations#REORDER_SOLUTIONS
      */
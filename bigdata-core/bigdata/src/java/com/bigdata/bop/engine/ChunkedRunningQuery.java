@@ -1330,11 +1330,47 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
                 ) {
 
             return new HandleChunkBuffer(ChunkedRunningQuery.this, bopId,
-                    partitionId, sinkId, op.getChunkCapacity(),
+                    partitionId, sinkId, getChunkCapacity(op),
                     op.isReorderSolutions(), sinkMessagesOut, stats);
 
         }
 
+        /**
+         * Return the target chunk capacity for the outputs of the operator.
+         * This is the {@link PipelineOp#getChunkCapacity()} unless
+         * {@link PipelineOp.Annotations#ADAPTIVE_CHUNK_CAPACITY} is enabled, in
+         * which case the capacity is scaled by the fan-out observed for the
+         * operator across its invocations so far.
+         * 
+         * @param op
+         *            The operator whose evaluation task is being constructed.
+         * 
+         * @see ChunkedRunningQuery#getAdaptiveChunkCapacity(int, int, long,
+         *      long)
+         */
+        private int getChunkCapacity(final PipelineOp op) {
+
+            final int chunkCapacity = op.getChunkCapacity();
+
+            if (!op.isAdaptiveChunkCapacity() || !isController()) {
+
+                // Note: The aggregated statistics are only on the controller.
+                return chunkCapacity;
+
+            }
+
+            final BOpStats queryStats = ChunkedRunningQuery.this
+                    .getStats(bopId);
+
+            if (queryStats == null)
+                return chunkCapacity;
+
+            return getAdaptiveChunkCapacity(chunkCapacity,
+                    op.getAdaptiveChunkCapacityFactor(),
+                    queryStats.unitsIn.get(), queryStats.unitsOut.get());
+
+        }
+
         /**
          * Evaluate the {@link IChunkMessage}.
          */
@@ -1439,6 +1475,56 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
 
     } // class NoCloseBuffer
 
+    /**
+     * Return the chunk capacity for an operator scaled by its observed fan-out.
+     * A selective operator (fewer solutions out than in) gets smaller chunks so
+     * its solutions are pushed downstream with low latency (which matters for
+     * LIMIT queries). An operator which fans out gets larger chunks so its
+     * solutions are combined into fewer, larger chunks (which matters for
+     * throughput).
+     * 
+     * @param chunkCapacity
+     *            The configured chunk capacity.
+     * @param factor
+     *            The bound on the factor by which the capacity may be scaled.
+     * @param unitsIn
+     *            The #of solutions consumed by the operator so far.
+     * @param unitsOut
+     *            The #of solutions produced by the operator so far.
+     * 
+     * @return The scaled chunk capacity. This is the given capacity if nothing
+     *         has been observed yet.
+     * 
+     * @see PipelineOp.Annotations#ADAPTIVE_CHUNK_CAPACITY
+     */
+    static int getAdaptiveChunkCapacity(final int chunkCapacity,
+            final int factor, final long unitsIn, final long unitsOut) {
+
+        if (chunkCapacity <= 0)
+            throw new IllegalArgumentException();
+
+        if (factor <= 0)
+            throw new IllegalArgumentException();
+
+        if (unitsIn <= 0L) {
+
+            // Nothing observed yet.
+            return chunkCapacity;
+
+        }
+
+        final double fanOut = (double) unitsOut / unitsIn;
+
+        final long minCapacity = Math.max(1, chunkCapacity / factor);
+
+        final long maxCapacity = (long) chunkCapacity * factor;
+
+        final long capacity = Math.round(chunkCapacity * fanOut);
+
+        return (int) Math.min(maxCapacity, Math.max(minCapacity, capacity));
+
+    }
+
     /**
      * Class traps {@link #add(IBindingSet[])} to handle the {@link IBindingSet}
      * [] chunks as they are generated by the running operator task, invoking
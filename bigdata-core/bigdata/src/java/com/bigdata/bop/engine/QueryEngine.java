@@ -40,6 +40,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -81,6 +82,7 @@ import com.bigdata.util.DaemonThreadFactory;
 import com.bigdata.service.geospatial.GeoSpatialCounters;
 import com.bigdata.util.InnerCause;
 import com.bigdata.util.concurrent.IHaltable;
+import com.bigdata.util.concurrent.LatchedExecutor;
 
 /**
  * A class managing execution of concurrent queries against a local
@@ -1028,6 +1030,37 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
         localIndexManager.getExecutorService().execute(r);
         
     }
+
+    /**
+     * The {@link Executor} shared by all queries for the parallel scan of the
+     * key-range partitions of an access path (lazily initialized).
+     * 
+     * @see #getKeyRangeScanService()
+     */
+    private LatchedExecutor keyRangeScanService;
+
+    /**
+     * Return the {@link Executor} shared by all queries on which the
+     * key-range partitions of an access path are scanned when
+     * {@link com.bigdata.bop.join.PipelineJoin.Annotations#KEY_RANGE_PARTITIONS}
+     * is enabled. It runs on the local {@link IIndexManager}'s {@link ExecutorService}, but
+     * never more than one task per available processor at a time, no matter
+     * how many queries and joins are submitting partitions. Additional tasks
+     * wait in a queue until a running task completes.
+     */
+    public synchronized Executor getKeyRangeScanService() {
+
+        if (keyRangeScanService == null) {
+
+            keyRangeScanService = new LatchedExecutor(
+                    localIndexManager.getExecutorService(), Runtime
+                            .getRuntime().availableProcessors());
+
+        }
+
+        return keyRangeScanService;
+
+    }
     
     /**
      * Runnable submits chunks available for evaluation against running queries.
@@ -294,6 +294,7 @@ abstract public class HashJoinOp<E> extends PipelineOp implements
         public Void call() throws Exception {
 
             boolean didRun = false;
+            boolean ok = false;
             try {
 
                 acceptSolutions();
@@ -306,12 +307,14 @@ abstract public class HashJoinOp<E> extends PipelineOp implements
                     
                 }
 
+                ok = true;
+
                 // Done.
                 return null;
                 
             } finally {
 
-                if (didRun) {
+                if (didRun || !ok) {
 
                     /*
                      * The state needs to be released each time this operator
@@ -323,6 +326,10 @@ abstract public class HashJoinOp<E> extends PipelineOp implements
                      * (duplicate solutions will be output for things already in
                      * the hash index the next time we evaluate the hash join
                      * against the access path).
+                     * 
+                     * The state is also released if this invocation failed,
+                     * since the operator will not be invoked again and the
+                     * state may hold native memory.
                      */
 
                     state.release();
@@ -0,0 +1,732 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+package com.bigdata.bop.join;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IVariable;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.internal.impl.literal.XSDBooleanIV;
+import com.bigdata.rdf.internal.impl.literal.XSDNumericIV;
+import com.bigdata.rdf.internal.impl.uri.VocabURIByteIV;
+import com.bigdata.rdf.internal.impl.uri.VocabURIShortIV;
+import com.bigdata.rwstore.sector.IMemoryManager;
+import com.bigdata.rwstore.sector.SectorAllocator;
+
+/**
+ * A hash index for {@link IBindingSet}s whose key variables are bound to
+ * fixed-width {@link IV}s. Each as-bound key is packed into a pair of
+ * <code>long</code>s per key variable (a type tag and the value). The keys
+ * live in an open addressing (linear probing) hash table on the native heap,
+ * in pages allocated from an {@link IMemoryManager} (normally a child
+ * allocation context of the memory manager for the query). Nothing is
+ * allocated until the first solution is added. Each slot of the
+ * table holds the packed key and the index of the most recently added
+ * solution having that key. The solutions are kept in insertion order in an
+ * array and solutions having the same key are chained through an
+ * <code>int[]</code>. The per-solution join hit flag is a bit.
+ * <p>
+ * Unlike the {@link JVMHashIndex}, this does not allocate any objects per
+ * solution (other than growing the arrays), which substantially reduces the
+ * heap churn of large hash joins.
+ * <p>
+ * The packing is injective and consistent with {@link IV#equals(Object)} for
+ * the supported {@link IV} types ({@link TermId}s with a non-NULL term
+ * identifier, {@link XSDNumericIV}, {@link XSDBooleanIV},
+ * {@link VocabURIByteIV} and {@link VocabURIShortIV}). A solution whose key
+ * can not be packed (an unbound key variable, or some other kind of
+ * {@link IV}) is rejected by {@link #add(IBindingSet, long[])} and
+ * {@link #find(IBindingSet, long[])} so the caller can handle it separately.
+ * This is safe because a solution whose key can not be packed is never equal
+ * on the key variables to one whose key can be packed.
+ * <p>
+ * Note: This class is NOT thread-safe for writers. Concurrent readers are
+ * safe, except that {@link #setJoined(int)} must be externally synchronized.
+ * 
+ * @see InlineIVHashJoinUtility
+ */
+public class InlineIVHashIndex {
+
+    private static final Logger log = Logger.getLogger(InlineIVHashIndex.class);
+
+    /*
+     * Type tags for the packed keys.
+     */
+    private static final long TAG_TERM_ID = 1L;
+    private static final long TAG_BOOLEAN = 2L;
+    private static final long TAG_VOCAB_BYTE = 3L;
+    private static final long TAG_VOCAB_SHORT = 4L;
+    /** The data type code is OR'd into this tag. */
+    private static final long TAG_NUMERIC = 0x100L;
+
+    /**
+     * The maximum load factor for the hash table before it is resized.
+     */
+    private static final double LOAD_FACTOR = .5d;
+
+    /**
+     * The #of bytes in a page of the table. This is the largest allocation
+     * which the {@link IMemoryManager} returns as a single {@link ByteBuffer}.
+     */
+    private static final int PAGE_SIZE = SectorAllocator.BLOB_SIZE;
+
+    /**
+     * The variables used to form the keys.
+     */
+    private final IVariable<?>[] keyVars;
+
+    /**
+     * The #of <code>long</code>s in a packed key.
+     */
+    private final int keyLongs;
+
+    /**
+     * The #of bytes in a slot (the packed key plus the chain head).
+     */
+    private final int slotBytes;
+
+    /**
+     * The memory manager from which the {@link #context} is created.
+     */
+    private final IMemoryManager mmgr;
+
+    /**
+     * The allocation context for the pages -or- <code>null</code> until the
+     * table is allocated.
+     */
+    private IMemoryManager context;
+
+    /**
+     * The initial #of slots in the table.
+     */
+    private final long initialSlots;
+
+    /**
+     * The #of slots in each page of the table.
+     */
+    private final int slotsPerPage;
+
+    /**
+     * The addresses of the pages of the table -or- <code>null</code> if the
+     * table has not been allocated.
+     */
+    private long[] pages;
+
+    /**
+     * The {@link ByteBuffer}s for the {@link #pages}.
+     */
+    private ByteBuffer[] buffers;
+
+    /**
+     * The #of slots in the table.
+     */
+    private long capacity;
+
+    /**
+     * The #of distinct keys in the table.
+     */
+    private int keyCount;
+
+    /**
+     * The solutions in insertion order.
+     */
+    private IBindingSet[] solutions;
+
+    /**
+     * The index of the previous solution having the same key -or-
+     * <code>-1</code> if there is no such solution.
+     */
+    private int[] next;
+
+    /**
+     * The #of solutions in the index.
+     */
+    private int size;
+
+    /**
+     * A bit is set for the first solution added for each distinct key.
+     */
+    private final BitSet first = new BitSet();
+
+    /**
+     * A bit is set for each solution which has joined.
+     */
+    private final BitSet joined = new BitSet();
+
+    /**
+     * 
+     * @param keyVars
+     *            The variables that are used to form the keys in the hash index
+     *            (required, non-empty). The order of the entries is used when
+     *            forming the as-bound keys.
+     * @param initialCapacity
+     *            The initial capacity (#of solutions).
+     * @param mmgr
+     *            The memory manager from which the hash table will be
+     *            allocated.
+     */
+    public InlineIVHashIndex(final IVariable<?>[] keyVars,
+            final int initialCapacity, final IMemoryManager mmgr) {
+
+        if (keyVars == null || keyVars.length == 0)
+            throw new IllegalArgumentException();
+
+        if (initialCapacity <= 0)
+            throw new IllegalArgumentException();
+
+        if (mmgr == null)
+            throw new IllegalArgumentException();
+
+        this.keyVars = keyVars;
+
+        this.keyLongs = keyVars.length << 1;
+
+        this.slotBytes = (keyLongs + 1) << 3;
+
+        this.mmgr = mmgr;
+
+        this.slotsPerPage = PAGE_SIZE / slotBytes;
+
+        if (slotsPerPage == 0)
+            throw new IllegalArgumentException();
+
+        this.solutions = new IBindingSet[initialCapacity];
+
+        this.next = new int[initialCapacity];
+
+        this.initialSlots = (long) Math.ceil(initialCapacity / LOAD_FACTOR);
+
+    }
+
+    /**
+     * Pack the as-bound values of the given variables into the caller's
+     * array.
+     * 
+     * @param vars
+     *            The variables.
+     * @param bset
+     *            The solution.
+     * @param key
+     *            The packed key (two <code>long</code>s per variable).
+     * 
+     * @return <code>true</code> iff every variable is bound to an {@link IV}
+     *         which can be packed.
+     */
+    @SuppressWarnings("rawtypes")
+    static public boolean pack(final IVariable<?>[] vars,
+            final IBindingSet bset, final long[] key) {
+
+        for (int i = 0, j = 0; i < vars.length; i++, j += 2) {
+
+            final IConstant<?> c = bset.get(vars[i]);
+
+            if (c == null)
+                return false;
+
+            final Object v = c.get();
+
+            if (v instanceof TermId) {
+
+                final long termId = ((TermId) v).getTermId();
+
+                if (termId == TermId.NULL)
+                    return false;
+
+                key[j] = TAG_TERM_ID;
+                key[j + 1] = termId;
+
+            } else if (v instanceof XSDNumericIV) {
+
+                final XSDNumericIV iv = (XSDNumericIV) v;
+
+                key[j] = TAG_NUMERIC | (iv.getDTE().v() & 0xff);
+
+                switch (iv.getDTE()) {
+                case XSDFloat:
+                    key[j + 1] = Float.floatToIntBits(iv.floatValue());
+                    break;
+                case XSDDouble:
+                    key[j + 1] = Double.doubleToLongBits(iv.doubleValue());
+                    break;
+                default:
+                    key[j + 1] = iv.longValue();
+                }
+
+            } else if (v instanceof XSDBooleanIV) {
+
+                key[j] = TAG_BOOLEAN;
+                key[j + 1] = ((XSDBooleanIV) v).booleanValue() ? 1L : 0L;
+
+            } else if (v instanceof VocabURIByteIV) {
+
+                key[j] = TAG_VOCAB_BYTE;
+                key[j + 1] = ((VocabURIByteIV) v).getInlineValue();
+
+            } else if (v instanceof VocabURIShortIV) {
+
+                key[j] = TAG_VOCAB_SHORT;
+                key[j + 1] = ((VocabURIShortIV) v).getInlineValue();
+
+            } else {
+
+                return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Add a solution to the index.
+     * 
+     * @param bset
+     *            The solution.
+     * @param key
+     *            A scratch array of {@link #getKeyLength()} <code>long</code>s.
+     * 
+     * @return <code>true</code> iff the solution was added and
+     *         <code>false</code> if its key could not be packed.
+     */
+    public boolean add(final IBindingSet bset, final long[] key) {
+
+        if (!pack(keyVars, bset, key))
+            return false;
+
+        if (pages == null) {
+
+            // Allocate the table for the first solution.
+            context = mmgr.createAllocationContext();
+
+            allocate(initialSlots);
+
+        } else if (keyCount + 1 > capacity * LOAD_FACTOR) {
+
+            // Double the size of the table.
+            rehash(capacity << 1);
+
+        }
+
+        if (size == solutions.length) {
+
+            final int n = size << 1;
+
+            solutions = Arrays.copyOf(solutions, n);
+
+            next = Arrays.copyOf(next, n);
+
+        }
+
+        final int i = size++;
+
+        solutions[i] = bset;
+
+        final long slot = findSlot(key);
+
+        final ByteBuffer b = buffer(slot);
+
+        final int off = offset(slot);
+
+        final long head = b.getLong(off + (keyLongs << 3));
+
+        if (head == 0L) {
+
+            // New key.
+            for (int k = 0; k < keyLongs; k++) {
+
+                b.putLong(off + (k << 3), key[k]);
+
+            }
+
+            keyCount++;
+
+            first.set(i);
+
+            next[i] = -1;
+
+        } else {
+
+            // Chain onto the existing solutions for that key.
+            next[i] = (int) (head - 1);
+
+        }
+
+        b.putLong(off + (keyLongs << 3), i + 1L);
+
+        return true;
+
+    }
+
+    /**
+     * Return the index of the most recently added solution whose key is the
+     * as-bound key of the given solution.
+     * 
+     * @param bset
+     *            The probe.
+     * @param key
+     *            A scratch array of {@link #getKeyLength()} <code>long</code>s.
+     * 
+     * @return The index of the solution, <code>-1</code> if there is no
+     *         solution for that key, or <code>-2</code> if the key of the
+     *         probe could not be packed.
+     * 
+     * @see #next(int)
+     */
+    public int find(final IBindingSet bset, final long[] key) {
+
+        if (!pack(keyVars, bset, key))
+            return -2;
+
+        if (pages == null)
+            return -1; // empty.
+
+        final long slot = findSlot(key);
+
+        final long head = buffer(slot).getLong(
+                offset(slot) + (keyLongs << 3));
+
+        return (int) (head - 1);
+
+    }
+
+    /**
+     * Return the index of the previous solution having the same key as the
+     * given solution -or- <code>-1</code> if there is none.
+     */
+    public int next(final int i) {
+
+        return next[i];
+
+    }
+
+    /**
+     * Return the solution at the given index.
+     */
+    public IBindingSet get(final int i) {
+
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException();
+
+        return solutions[i];
+
+    }
+
+    /**
+     * Return a copy of the solutions in insertion order.
+     */
+    public IBindingSet[] toArray() {
+
+        return Arrays.copyOf(solutions, size);
+
+    }
+
+    /**
+     * Return <code>true</code> iff the solution at the given index is the
+     * first solution that was added for its key.
+     */
+    public boolean isFirst(final int i) {
+
+        return first.get(i);
+
+    }
+
+    /**
+     * Mark the solution at the given index as having joined.
+     */
+    public void setJoined(final int i) {
+
+        joined.set(i);
+
+    }
+
+    /**
+     * Return <code>true</code> iff the solution at the given index was marked
+     * as having joined.
+     */
+    public boolean isJoined(final int i) {
+
+        return joined.get(i);
+
+    }
+
+    /**
+     * The #of solutions in the index.
+     */
+    public int size() {
+
+        return size;
+
+    }
+
+    /**
+     * The #of distinct keys in the index.
+     */
+    public int keyCount() {
+
+        return keyCount;
+
+    }
+
+    /**
+     * The #of <code>long</code>s in a packed key.
+     */
+    public int getKeyLength() {
+
+        return keyLongs;
+
+    }
+
+    /**
+     * The #of bytes of native memory used by the hash table.
+     */
+    public long getNativeBytes() {
+
+        return pages == null ? 0L : (long) pages.length * PAGE_SIZE;
+
+    }
+
+    /**
+     * Release the native memory and the solutions. The index may not be used
+     * once it has been closed.
+     */
+    public void close() {
+
+        if (context != null) {
+
+            // Release all pages at once.
+            context.clear();
+
+            context = null;
+
+        }
+
+        pages = null;
+
+        buffers = null;
+
+        solutions = null;
+
+        next = null;
+
+    }
+
+    /**
+     * Return the slot for the key. This is either the slot holding that key
+     * or the empty slot where it would be inserted.
+     */
+    private long findSlot(final long[] key) {
+
+        long slot = (hash(key) & Long.MAX_VALUE) % capacity;
+
+        while (true) {
+
+            final ByteBuffer b = buffer(slot);
+
+            final int off = offset(slot);
+
+            if (b.getLong(off + (keyLongs << 3)) == 0L)
+                return slot; // empty.
+
+            boolean eq = true;
+
+            for (int k = 0; k < keyLongs && eq; k++) {
+
+                eq = b.getLong(off + (k << 3)) == key[k];
+
+            }
+
+            if (eq)
+                return slot;
+
+            if (++slot == capacity)
+                slot = 0;
+
+        }
+
+    }
+
+    private ByteBuffer buffer(final long slot) {
+
+        return buffers[(int) (slot / slotsPerPage)];
+
+    }
+
+    private int offset(final long slot) {
+
+        return (int) (slot % slotsPerPage) * slotBytes;
+
+    }
+
+    private static long hash(final long[] key) {
+
+        long h = 0x9E3779B97F4A7C15L;
+
+        for (int k = 0; k < key.length; k++) {
+
+            h ^= key[k];
+
+            h *= 0xC2B2AE3D27D4EB4FL;
+
+            h ^= h >>> 29;
+
+        }
+
+        return h;
+
+    }
+
+    /**
+     * Allocate an empty table having at least the given #of slots.
+     */
+    private void allocate(final long minSlots) {
+
+        final int npages = (int) ((minSlots + slotsPerPage - 1) / slotsPerPage);
+
+        final long[] p = new long[npages];
+
+        final ByteBuffer[] b = new ByteBuffer[npages];
+
+        try {
+
+            for (int i = 0; i < npages; i++) {
+
+                p[i] = context.allocate(PAGE_SIZE);
+
+                b[i] = context.get(p[i])[0];
+
+                // Clear the page (allocations are recycled).
+                final int limit = slotsPerPage * slotBytes;
+
+                for (int off = 0; off < limit; off += 8) {
+
+                    b[i].putLong(off, 0L);
+
+                }
+
+            }
+
+        } catch (RuntimeException ex) {
+
+            freePages(p);
+
+            throw ex;
+
+        }
+
+        this.pages = p;
+
+        this.buffers = b;
+
+        this.capacity = (long) npages * slotsPerPage;
+
+        if (log.isDebugEnabled())
+            log.debug("capacity=" + capacity + ", npages=" + npages);
+
+    }
+
+    /**
+     * Re-insert the keys into a new table with at least the given #of slots.
+     */
+    private void rehash(final long minSlots) {
+
+        final long[] oldPages = pages;
+
+        final ByteBuffer[] oldBuffers = buffers;
+
+        final long oldCapacity = capacity;
+
+        allocate(minSlots);
+
+        final long[] key = new long[keyLongs];
+
+        for (long slot = 0; slot < oldCapacity; slot++) {
+
+            final ByteBuffer ob = oldBuffers[(int) (slot / slotsPerPage)];
+
+            final int ooff = (int) (slot % slotsPerPage) * slotBytes;
+
+            final long head = ob.getLong(ooff + (keyLongs << 3));
+
+            if (head == 0L)
+                continue;
+
+            for (int k = 0; k < keyLongs; k++) {
+
+                key[k] = ob.getLong(ooff + (k << 3));
+
+            }
+
+            final long newSlot = findSlot(key);
+
+            final ByteBuffer nb = buffer(newSlot);
+
+            final int noff = offset(newSlot);
+
+            for (int k = 0; k < keyLongs; k++) {
+
+                nb.putLong(noff + (k << 3), key[k]);
+
+            }
+
+            nb.putLong(noff + (keyLongs << 3), head);
+
+        }
+
+        freePages(oldPages);
+
+    }
+
+    private void freePages(final long[] a) {
+
+        for (long addr : a) {
+
+            if (addr != 0L)
+                context.free(addr);
+
+        }
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + "{keyVars="
+                + Arrays.toString(keyVars) + ",size=" + size + ",keyCount="
+                + keyCount + ",capacity=" + capacity + "}";
+
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.Map;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.controller.INamedSolutionSetRef;
+
+/**
+ * A {@link JVMHashJoinOp} in which the source solutions are buffered on an
+ * {@link InlineIVHashJoinUtility}. When the join variables are bound to term
+ * identifiers or fixed-width inline {@link com.bigdata.rdf.internal.IV}s, the
+ * hash keys are packed into <code>long</code>s in a native memory hash table
+ * and no objects are allocated per buffered solution. Otherwise this behaves
+ * exactly like the {@link JVMHashJoinOp}.
+ * 
+ * @see InlineIVHashJoinUtility
+ */
+public class InlineIVHashJoinOp<E> extends JVMHashJoinOp<E> {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param op
+     */
+    public InlineIVHashJoinOp(final InlineIVHashJoinOp<E> op) {
+
+        super(op);
+
+    }
+
+    public InlineIVHashJoinOp(final BOp[] args, NV... annotations) {
+
+        this(args, NV.asMap(annotations));
+
+    }
+
+    /**
+     * @param args
+     * @param annotations
+     */
+    public InlineIVHashJoinOp(final BOp[] args,
+            final Map<String, Object> annotations) {
+
+        super(args, annotations);
+
+    }
+
+    @Override
+    protected IHashJoinUtility newState(final BOpContext<IBindingSet> context,
+            final INamedSolutionSetRef namedSetRef, final JoinTypeEnum joinType) {
+
+        return new InlineIVHashJoinUtility(context.getRunningQuery()
+                .getMemoryManager(), this, joinType);
+
+    }
+
+}
@@ -0,0 +1,786 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+package com.bigdata.bop.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.HashMapAnnotations;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.controller.INamedSolutionSetRef;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.counters.CAT;
+import com.bigdata.rdf.internal.impl.literal.XSDBooleanIV;
+import com.bigdata.relation.accesspath.BufferClosedException;
+import com.bigdata.relation.accesspath.IBuffer;
+import com.bigdata.relation.accesspath.ThickCloseableIterator;
+import com.bigdata.rwstore.sector.IMemoryManager;
+import com.bigdata.util.InnerCause;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+import cutthecrap.utils.striterators.Striterator;
+
+/**
+ * Utility class supporting hash joins where the join variables are bound to
+ * fixed-width inline {@link com.bigdata.rdf.internal.IV}s or term identifiers.
+ * Solutions whose join variables can be packed into <code>long</code>s are
+ * indexed by an {@link InlineIVHashIndex}, which keeps the keys in an open
+ * addressing hash table on the native heap and does not allocate any objects
+ * per solution. All other solutions (e.g., solutions having an unbound join
+ * variable or a join variable bound to a blob or a fully inline literal) are
+ * handled by a {@link JVMHashJoinUtility}. Since solutions which can be packed
+ * never join with solutions which can not, the two indices are probed
+ * independently and the results are the same as for the
+ * {@link JVMHashJoinUtility}.
+ * <p>
+ * The use of the {@link InlineIVHashIndex} is decided from the IVs to which
+ * the join variables are bound in the first solutions which are buffered. If
+ * fewer than half of them can be packed, then the {@link InlineIVHashIndex}
+ * is discarded before it allocates any native memory and the join is
+ * delegated entirely to the {@link JVMHashJoinUtility}. This avoids the cost
+ * of splitting the solutions when the join variables are mostly bound to
+ * other kinds of IVs.
+ * <p>
+ * The {@link JoinTypeEnum#Normal}, {@link JoinTypeEnum#Optional},
+ * {@link JoinTypeEnum#Exists} and {@link JoinTypeEnum#NotExists} join types
+ * are supported. A DISTINCT {@link JoinTypeEnum#Filter} and joins without any
+ * join variables are delegated entirely to the {@link JVMHashJoinUtility}.
+ * Merge joins are not supported.
+ * 
+ * @see InlineIVHashIndex
+ * @see InlineIVHashJoinOp
+ */
+public class InlineIVHashJoinUtility implements IHashJoinUtility {
+
+    private static final Logger log = Logger
+            .getLogger(InlineIVHashJoinUtility.class);
+
+    /**
+     * Singleton {@link IHashJoinUtilityFactory} that can be used to create a
+     * new {@link InlineIVHashJoinUtility}.
+     */
+    static public final IHashJoinUtilityFactory factory =
+            new IHashJoinUtilityFactory() {
+
+        private static final long serialVersionUID = 1L;
+
+        public IHashJoinUtility create(//
+                final BOpContext<IBindingSet> context,//
+                final INamedSolutionSetRef namedSetRef,//
+                final PipelineOp op,//
+                final JoinTypeEnum joinType//
+                ) {
+
+            return new InlineIVHashJoinUtility(
+                    context.getMemoryManager(namedSetRef.getQueryId()), op,
+                    joinType);
+
+        }
+    };
+
+    /**
+     * <code>true</code> until the state is discarded by {@link #release()}.
+     */
+    private final AtomicBoolean open = new AtomicBoolean(true);
+
+    /**
+     * Handles the solutions whose join variables can not be packed.
+     */
+    private final JVMHashJoinUtility fallback;
+
+    /**
+     * The index for the solutions whose join variables can be packed -or-
+     * <code>null</code> if everything is delegated to the {@link #fallback}.
+     */
+    private volatile InlineIVHashIndex index;
+
+    /**
+     * <code>true</code> once the use of the {@link #index} has been decided
+     * from the first solutions buffered by the join.
+     */
+    private boolean decided = false;
+
+    /**
+     * The #of left solutions considered for a join by the {@link #index}.
+     */
+    private final CAT nleftConsidered = new CAT();
+
+    /**
+     * The #of right solutions considered for a join by the {@link #index}.
+     */
+    private final CAT nrightConsidered = new CAT();
+
+    /**
+     * 
+     * @param mmgr
+     *            The memory manager for the query. The hash table is
+     *            allocated from a child allocation context when the first
+     *            solution is buffered and is released by {@link #release()}
+     *            or, at the latest, when the query's memory manager is
+     *            cleared.
+     * @param op
+     *            The operator whose annotation will inform construction the
+     *            hash index.
+     * @param joinType
+     *            The type of join to be performed.
+     */
+    public InlineIVHashJoinUtility(final IMemoryManager mmgr,
+            final PipelineOp op, final JoinTypeEnum joinType) {
+
+        // Note: validates the arguments.
+        this.fallback = new JVMHashJoinUtility(op, joinType);
+
+        final IVariable<?>[] joinVars = fallback.getJoinVars();
+
+        switch (joinType) {
+        case Normal:
+        case Optional:
+        case Exists:
+        case NotExists:
+            if (joinVars.length > 0) {
+                index = new InlineIVHashIndex(joinVars, op.getProperty(
+                        HashMapAnnotations.INITIAL_CAPACITY,
+                        HashMapAnnotations.DEFAULT_INITIAL_CAPACITY), mmgr);
+            }
+            break;
+        default:
+            // Delegate everything.
+            break;
+        }
+
+    }
+
+    /**
+     * Human readable representation of the {@link IHashJoinUtility} metadata
+     * (but not the solutions themselves).
+     */
+    @Override
+    public String toString() {
+
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(getClass().getSimpleName());
+
+        sb.append("{open=" + open);
+        sb.append(",index=" + index);
+        sb.append(",considered(left=" + nleftConsidered + ",right="
+                + nrightConsidered + ")");
+        sb.append(",fallback=" + fallback);
+        sb.append("}");
+
+        return sb.toString();
+
+    }
+
+    @Override
+    public JoinTypeEnum getJoinType() {
+        return fallback.getJoinType();
+    }
+
+    @Override
+    public IVariable<?> getAskVar() {
+        return fallback.getAskVar();
+    }
+
+    @Override
+    public IVariable<?>[] getJoinVars() {
+        return fallback.getJoinVars();
+    }
+
+    @Override
+    public IVariable<?>[] getSelectVars() {
+        return fallback.getSelectVars();
+    }
+
+    @Override
+    public boolean isOutputDistinctJoinVars() {
+        return fallback.isOutputDistinctJoinVars();
+    }
+
+    @Override
+    public IConstraint[] getConstraints() {
+        return fallback.getConstraints();
+    }
+
+    @Override
+    public boolean isEmpty() {
+
+        return getRightSolutionCount() == 0;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the {@link InlineIVHashIndex} is in use
+     * (exposed to the unit tests).
+     */
+    boolean isIndexed() {
+
+        return index != null;
+
+    }
+
+    @Override
+    public long getRightSolutionCount() {
+
+        final InlineIVHashIndex tmp = index;
+
+        return fallback.getRightSolutionCount()
+                + (tmp == null ? 0L : tmp.size());
+
+    }
+
+    @Override
+    public void release() {
+
+        if (!open.compareAndSet(true/* expect */, false/* update */)) {
+            // Already closed.
+            return;
+        }
+
+        final InlineIVHashIndex tmp = index;
+
+        if (tmp != null) {
+
+            // Release the native memory.
+            tmp.close();
+
+            index = null;
+
+        }
+
+        fallback.release();
+
+    }
+
+    @Override
+    public long acceptSolutions(final ICloseableIterator<IBindingSet[]> itr,
+            final BOpStats stats) {
+
+        if (!open.get())
+            throw new IllegalStateException();
+
+        if (index == null)
+            return fallback.acceptSolutions(itr, stats);
+
+        try {
+
+            final IBindingSet[] all = BOpUtility.toArray(itr, stats);
+
+            final long[] key = new long[index.getKeyLength()];
+
+            if (!decided && all.length > 0) {
+
+                decided = true;
+
+                if (!isPackable(all, key)) {
+
+                    if (log.isInfoEnabled())
+                        log.info("Join variables are not inline: " + index);
+
+                    /*
+                     * Do not use the native heap for this join. Nothing has
+                     * been allocated yet.
+                     */
+                    index.close();
+
+                    index = null;
+
+                    return fallback.acceptSolutions(newIterator(all),
+                            null/* stats */);
+
+                }
+
+            }
+
+            final List<IBindingSet> other = new ArrayList<IBindingSet>();
+
+            long naccepted = 0;
+
+            for (IBindingSet bset : all) {
+
+                if (index.add(bset, key)) {
+
+                    naccepted++;
+
+                } else {
+
+                    other.add(bset);
+
+                }
+
+            }
+
+            if (log.isDebugEnabled())
+                log.debug("Materialized: " + all.length
+                        + " source solutions, " + other.size()
+                        + " not packed: " + index);
+
+            if (!other.isEmpty()) {
+
+                naccepted += fallback.acceptSolutions(
+                        newIterator(other), null/* stats */);
+
+            }
+
+            return naccepted;
+
+        } catch (Throwable t) {
+
+            throw launderThrowable(t);
+
+        }
+
+    }
+
+    /**
+     * Return <code>true</code> iff at least half of the solutions have join
+     * variables which are all bound to IVs that can be packed.
+     * 
+     * @param a
+     *            The solutions.
+     * @param key
+     *            A scratch array for the packed key.
+     */
+    private boolean isPackable(final IBindingSet[] a, final long[] key) {
+
+        final IVariable<?>[] joinVars = getJoinVars();
+
+        int npacked = 0;
+
+        for (IBindingSet bset : a) {
+
+            if (InlineIVHashIndex.pack(joinVars, bset, key))
+                npacked++;
+
+        }
+
+        return npacked * 2 >= a.length;
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This is delegated to the {@link JVMHashJoinUtility}.
+     */
+    @Override
+    public long filterSolutions(final ICloseableIterator<IBindingSet[]> itr,
+            final BOpStats stats, final IBuffer<IBindingSet> sink) {
+
+        return fallback.filterSolutions(itr, stats, sink);
+
+    }
+
+    @Override
+    public void hashJoin(//
+            final ICloseableIterator<IBindingSet[]> leftItr,//
+            final BOpStats stats,//
+            final IBuffer<IBindingSet> outputBuffer//
+            ) {
+
+        hashJoin2(leftItr, stats, outputBuffer, getConstraints());
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each source solution whose join variables can be packed probes the
+     * {@link InlineIVHashIndex}. The other source solutions are joined using
+     * the {@link JVMHashJoinUtility}.
+     */
+    @Override
+    public void hashJoin2(//
+            final ICloseableIterator<IBindingSet[]> leftItr,//
+            final BOpStats stats,//
+            final IBuffer<IBindingSet> outputBuffer,//
+            final IConstraint[] constraints//
+            ) {
+
+        if (!open.get())
+            throw new IllegalStateException();
+
+        final InlineIVHashIndex index = this.index;
+
+        if (index == null) {
+
+            fallback.hashJoin2(leftItr, stats, outputBuffer, constraints);
+
+            return;
+
+        }
+
+        final JoinTypeEnum joinType = getJoinType();
+
+        final IVariable<?>[] selectVars = getSelectVars();
+
+        final long[] key = new long[index.getKeyLength()];
+
+        final List<IBindingSet> other = new ArrayList<IBindingSet>();
+
+        try {
+
+            while (leftItr.hasNext()) {
+
+                // Next chunk of solutions from left.
+                final IBindingSet[] leftChunk = leftItr.next();
+                if (stats != null) {
+                    stats.chunksIn.increment();
+                    stats.unitsIn.add(leftChunk.length);
+                }
+
+                for (IBindingSet left : leftChunk) {
+
+                    int i = index.find(left, key);
+
+                    if (i == -2) {
+
+                        // Can not be packed.
+                        other.add(left);
+
+                        continue;
+
+                    }
+
+                    nleftConsidered.increment();
+
+                    for (; i != -1; i = index.next(i)) {
+
+                        nrightConsidered.increment();
+
+                        // See if the solutions join.
+                        final IBindingSet outSolution = BOpContext.bind(//
+                                index.get(i),//
+                                left,//
+                                constraints,//
+                                selectVars//
+                                );
+
+                        if (outSolution == null)
+                            continue;
+
+                        switch (joinType) {
+                        case Normal:
+                            outputBuffer.add(outSolution);
+                            break;
+                        case Optional:
+                            outputBuffer.add(outSolution);
+                            // Note: Flag the right solution as joined.
+                            setJoined(index, i);
+                            break;
+                        case Exists:
+                        case NotExists:
+                            setJoined(index, i);
+                            break;
+                        default:
+                            throw new AssertionError();
+                        }
+
+                    }
+
+                }
+
+                if (!other.isEmpty()) {
+
+                    fallback.hashJoin2(newIterator(other), null/* stats */,
+                            outputBuffer, constraints);
+
+                    other.clear();
+
+                }
+
+            }
+
+        } catch (Throwable t) {
+
+            throw launderThrowable(t);
+
+        } finally {
+
+            leftItr.close();
+
+        }
+
+    }
+
+    /**
+     * Flag a right solution as joined. The join may be evaluated concurrently
+     * for different chunks of left solutions, so this is synchronized.
+     */
+    private static void setJoined(final InlineIVHashIndex index, final int i) {
+
+        if (index.isJoined(i))
+            return;
+
+        synchronized (index) {
+
+            index.setJoined(i);
+
+        }
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation is a NOP since the indices are safe for concurrent
+     * readers.
+     */
+    @Override
+    public void saveSolutionSet() {
+
+        // NOP
+
+    }
+
+    @Override
+    public void outputOptionals(final IBuffer<IBindingSet> outputBuffer) {
+
+        output(outputBuffer, false/* joined */);
+
+        fallback.outputOptionals(outputBuffer);
+
+    }
+
+    @Override
+    public void outputJoinSet(final IBuffer<IBindingSet> outputBuffer) {
+
+        output(outputBuffer, true/* joined */);
+
+        fallback.outputJoinSet(outputBuffer);
+
+    }
+
+    /**
+     * Output the indexed solutions that did (or did not) join, binding the
+     * {@link #getAskVar()} (if any).
+     * 
+     * @param outputBuffer
+     *            Where to write the solutions.
+     * @param joined
+     *            When <code>true</code>, output the solutions which joined.
+     *            Otherwise output those which did not join.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void output(final IBuffer<IBindingSet> outputBuffer,
+            final boolean joined) {
+
+        if (!open.get())
+            throw new IllegalStateException();
+
+        final InlineIVHashIndex index = this.index;
+
+        if (index == null)
+            return;
+
+        try {
+
+            final IVariable<?> askVar = getAskVar();
+
+            final Constant c = askVar == null ? null : new Constant(
+                    XSDBooleanIV.valueOf(joined));
+
+            final IVariable<?>[] selected = getSelectVars();
+
+            final int n = index.size();
+
+            for (int i = 0; i < n; i++) {
+
+                if (index.isJoined(i) != joined)
+                    continue;
+
+                final IBindingSet solution = index.get(i);
+
+                IBindingSet bs = solution;
+
+                if (selected != null) {
+
+                    // Drop variables which are not projected.
+                    bs = bs.copy(selected);
+
+                }
+
+                if (c != null) {
+
+                    if (bs == solution)
+                        bs = bs.clone();
+
+                    bs.set(askVar, c);
+
+                }
+
+                outputBuffer.add(bs);
+
+            }
+
+        } catch (Throwable t) {
+
+            throw launderThrowable(t);
+
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public ICloseableIterator<IBindingSet> indexScan() {
+
+        final InlineIVHashIndex index = this.index;
+
+        if (index == null)
+            return fallback.indexScan();
+
+        return (ICloseableIterator<IBindingSet>) new Striterator(
+                new ThickCloseableIterator<IBindingSet>(index.toArray()))
+                .append(fallback.indexScan());
+
+    }
+
+    @Override
+    public void outputSolutions(final IBuffer<IBindingSet> out) {
+
+        if (!open.get())
+            throw new IllegalStateException();
+
+        final InlineIVHashIndex index = this.index;
+
+        if (index != null) {
+
+            try {
+
+                final boolean distinct = isOutputDistinctJoinVars();
+
+                final IVariable<?>[] joinVars = getJoinVars();
+
+                final IVariable<?>[] selected = getSelectVars();
+
+                final int n = index.size();
+
+                for (int i = 0; i < n; i++) {
+
+                    IBindingSet bs = index.get(i);
+
+                    if (distinct) {
+
+                        /*
+                         * All solutions for a key have the same bindings for
+                         * the join variables, so only the first solution for
+                         * each key is output.
+                         */
+                        if (!index.isFirst(i))
+                            continue;
+
+                        bs = bs.copy(joinVars);
+
+                    } else if (selected != null) {
+
+                        // Drop variables which are not projected.
+                        bs = bs.copy(selected);
+
+                    }
+
+                    out.add(bs);
+
+                }
+
+            } catch (Throwable t) {
+
+                throw launderThrowable(t);
+
+            }
+
+        }
+
+        fallback.outputSolutions(out);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws UnsupportedOperationException
+     *             always.
+     */
+    @Override
+    public void mergeJoin(//
+            final IHashJoinUtility[] others,//
+            final IBuffer<IBindingSet> outputBuffer,//
+            final IConstraint[] constraints,//
+            final boolean optional//
+            ) {
+
+        throw new UnsupportedOperationException();
+
+    }
+
+    /**
+     * Wrap solutions as a single chunk.
+     */
+    private static ICloseableIterator<IBindingSet[]> newIterator(
+            final List<IBindingSet> a) {
+
+        return newIterator(a.toArray(new IBindingSet[a.size()]));
+
+    }
+
+    private static ICloseableIterator<IBindingSet[]> newIterator(
+            final IBindingSet[] a) {
+
+        return new ThickCloseableIterator<IBindingSet[]>(
+                new IBindingSet[][] { a });
+
+    }
+
+    /**
+     * Log and wrap the exception (unless it is an interrupt or a closed
+     * buffer, which are normal when a query is cancelled).
+     */
+    private RuntimeException launderThrowable(final Throwable t) {
+
+        final String msg = "cause=" + t + ", state=" + toString();
+
+        if (!InnerCause.isInnerCause(t, InterruptedException.class)
+                && !InnerCause.isInnerCause(t, BufferClosedException.class)) {
+
+            log.error(msg, t);
+
+        }
+
+        return new RuntimeException(msg, t);
+
+    }
+
+}
@@ -0,0 +1,1289 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.IElement;
+import com.bigdata.bop.IPredicate;
+import com.bigdata.bop.ISingleThreadedOp;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleCursor;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.btree.keys.NoSuccessorException;
+import com.bigdata.btree.keys.SuccessorUtil;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.spo.ISPO;
+import com.bigdata.rdf.spo.SPOKeyOrder;
+import com.bigdata.relation.IRelation;
+import com.bigdata.relation.accesspath.AccessPath;
+import com.bigdata.relation.accesspath.IAccessPath;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.UnsyncLocalOutputBuffer;
+import com.bigdata.striterator.IChunkedOrderedIterator;
+import com.bigdata.util.BytesUtil;
+
+/**
+ * A worst-case optimal join of N statement patterns using the Leapfrog
+ * Triejoin algorithm. Rather than joining the statement patterns two at a
+ * time, the variables are bound one at a time in a global
+ * {@link Annotations#VARIABLE_ORDER}. For each variable, the sorted keys of
+ * every statement pattern which uses that variable are intersected by
+ * repeatedly seeking the iterator with the smallest key to the largest key of
+ * the other iterators. Only values which satisfy all of those statement
+ * patterns are extended with bindings for the next variable, so cyclic join
+ * graphs (triangles, cliques) never produce the large intermediate results
+ * which a sequence of binary joins produces for such patterns.
+ * <p>
+ * Each statement pattern is read from a triple store statement index whose key
+ * consists of the constants of the pattern followed by its variables in the
+ * global variable order, using {@link ITupleCursor#seek(byte[])} to leap over
+ * the keys which can not join. When there is no such index (for example,
+ * <code>(?a :p ?b)</code> when <code>?a</code> precedes <code>?b</code> would
+ * require a PSO index) the access path for the statement pattern is read once
+ * and buffered as a sorted array of keys in the global variable order. If the
+ * range count of such an access path exceeds
+ * {@link Annotations#MAX_BUFFERED_KEYS}, then nothing is buffered and the
+ * source solution is joined with the statement patterns one at a time (in the
+ * given order) using nested index lookups, as a pipeline join would do.
+ * <p>
+ * Only triple patterns are supported. Quads mode is left out: the operator
+ * does not handle named or default graph access paths (the context position
+ * and the DISTINCT over the contexts of a default graph), so the optimizer
+ * never chooses it for a quads mode database.
+ * <p>
+ * This is an "at-once" operator. It is normally the first join in a group and
+ * has a single empty source solution. Variables bound by a source solution are
+ * treated as constants when evaluating the join for that source solution.
+ * 
+ * @see <a href="http://arxiv.org/abs/1210.0481">Leapfrog Triejoin: A Simple,
+ *      Worst-Case Optimal Join Algorithm</a>
+ */
+public class LeapfrogTriejoinOp extends PipelineOp implements ISingleThreadedOp {
+
+    private static final transient Logger log = Logger
+            .getLogger(LeapfrogTriejoinOp.class);
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 1L;
+
+    public interface Annotations extends JoinAnnotations {
+
+        /**
+         * The {@link IPredicate}s to be joined (required).
+         */
+        String PREDICATES = LeapfrogTriejoinOp.class.getName() + ".predicates";
+
+        /**
+         * The order in which the variables of the {@link #PREDICATES} will be
+         * bound (required). This must include each variable which appears in
+         * any of the predicates.
+         */
+        String VARIABLE_ORDER = LeapfrogTriejoinOp.class.getName()
+                + ".variableOrder";
+
+        /**
+         * The maximum range count of a statement pattern which will be
+         * buffered in memory because no statement index has a suitable key
+         * order. When this is exceeded for any such statement pattern, the
+         * source solution is evaluated using nested index joins instead.
+         */
+        String MAX_BUFFERED_KEYS = LeapfrogTriejoinOp.class.getName()
+                + ".maxBufferedKeys";
+
+        long DEFAULT_MAX_BUFFERED_KEYS = 100000L;
+
+    }
+
+    /**
+     * Deep copy constructor.
+     * 
+     * @param op
+     */
+    public LeapfrogTriejoinOp(final LeapfrogTriejoinOp op) {
+
+        super(op);
+
+    }
+
+    /**
+     * Shallow copy constructor.
+     * 
+     * @param args
+     * @param annotations
+     */
+    public LeapfrogTriejoinOp(final BOp[] args,
+            final Map<String, Object> annotations) {
+
+        super(args, annotations);
+
+        final IPredicate<ISPO>[] preds = getPredicates();
+
+        if (preds.length == 0)
+            throw new IllegalArgumentException(Annotations.PREDICATES);
+
+        final Set<IVariable<?>> vars = new LinkedHashSet<IVariable<?>>(
+                Arrays.asList(getVariableOrder()));
+
+        for (IPredicate<ISPO> pred : preds) {
+
+            if (pred.isOptional()) {
+
+                // OPTIONAL is not implemented for this operator.
+                throw new UnsupportedOperationException();
+
+            }
+
+            final Iterator<IVariable<?>> itr = BOpUtility.getArgumentVariables(pred);
+
+            while (itr.hasNext()) {
+
+                final IVariable<?> var = itr.next();
+
+                if (!vars.contains(var))
+                    throw new IllegalArgumentException(
+                            Annotations.VARIABLE_ORDER + " does not include "
+                                    + var);
+
+            }
+
+        }
+
+        switch (getEvaluationContext()) {
+        case CONTROLLER:
+            break;
+        default:
+            throw new UnsupportedOperationException(
+                    Annotations.EVALUATION_CONTEXT + "="
+                            + getEvaluationContext());
+        }
+
+        assertMaxParallelOne();
+
+        assertAtOnceJavaHeapOp();
+
+    }
+
+    public LeapfrogTriejoinOp(final BOp[] args, final NV... annotations) {
+
+        this(args, NV.asMap(annotations));
+
+    }
+
+    /**
+     * @see Annotations#PREDICATES
+     */
+    @SuppressWarnings("unchecked")
+    public IPredicate<ISPO>[] getPredicates() {
+
+        return (IPredicate<ISPO>[]) getRequiredProperty(Annotations.PREDICATES);
+
+    }
+
+    /**
+     * @see Annotations#VARIABLE_ORDER
+     */
+    public IVariable<?>[] getVariableOrder() {
+
+        return (IVariable<?>[]) getRequiredProperty(Annotations.VARIABLE_ORDER);
+
+    }
+
+    /**
+     * @see Annotations#MAX_BUFFERED_KEYS
+     */
+    public long getMaxBufferedKeys() {
+
+        return getProperty(Annotations.MAX_BUFFERED_KEYS,
+                Annotations.DEFAULT_MAX_BUFFERED_KEYS);
+
+    }
+
+    /**
+     * @see Annotations#SELECT
+     */
+    protected IVariable<?>[] getSelect() {
+
+        return getProperty(Annotations.SELECT, null/* defaultValue */);
+
+    }
+
+    /**
+     * @see Annotations#CONSTRAINTS
+     */
+    protected IConstraint[] constraints() {
+
+        return getProperty(Annotations.CONSTRAINTS, null/* defaultValue */);
+
+    }
+
+    /**
+     * Return <code>true</code> iff the hypergraph whose hyperedges are the
+     * given sets of variables is cyclic. This uses the GYO reduction: vertices
+     * which appear in only one edge and edges which are contained in another
+     * edge are removed until nothing more can be removed. The hypergraph is
+     * acyclic iff every edge is removed.
+     * 
+     * @param edges
+     *            The variables of each statement pattern.
+     */
+    static public boolean isCyclic(final Collection<Set<IVariable<?>>> edges) {
+
+        final List<Set<IVariable<?>>> tmp = new ArrayList<Set<IVariable<?>>>();
+
+        for (Set<IVariable<?>> e : edges) {
+
+            tmp.add(new LinkedHashSet<IVariable<?>>(e));
+
+        }
+
+        boolean modified = true;
+
+        while (modified && !tmp.isEmpty()) {
+
+            modified = false;
+
+            // Remove variables which appear in only one edge.
+            for (Set<IVariable<?>> e : tmp) {
+
+                final Iterator<IVariable<?>> itr = e.iterator();
+
+                while (itr.hasNext()) {
+
+                    final IVariable<?> var = itr.next();
+
+                    int n = 0;
+
+                    for (Set<IVariable<?>> f : tmp) {
+
+                        if (f.contains(var))
+                            n++;
+
+                    }
+
+                    if (n == 1) {
+
+                        itr.remove();
+
+                        modified = true;
+
+                    }
+
+                }
+
+            }
+
+            // Remove edges which are contained in some other edge.
+            for (int i = 0; i < tmp.size(); i++) {
+
+                final Set<IVariable<?>> e = tmp.get(i);
+
+                boolean remove = e.isEmpty();
+
+                for (int j = 0; !remove && j < tmp.size(); j++) {
+
+                    if (i != j && tmp.get(j).containsAll(e))
+                        remove = true;
+
+                }
+
+                if (remove) {
+
+                    tmp.remove(i--);
+
+                    modified = true;
+
+                }
+
+            }
+
+        }
+
+        return !tmp.isEmpty();
+
+    }
+
+    /**
+     * Return the triple store {@link SPOKeyOrder} whose key consists of the
+     * constants in the given statement pattern followed by its variables in
+     * the given variable order.
+     * 
+     * @param terms
+     *            The subject, predicate and object positions of a triple
+     *            pattern.
+     * @param order
+     *            The global variable order.
+     * 
+     * @return The {@link SPOKeyOrder} -or- <code>null</code> if there is no
+     *         such index (including when a variable is repeated in the
+     *         statement pattern).
+     */
+    static public SPOKeyOrder getKeyOrder(final IVariableOrConstant<?>[] terms,
+            final IVariable<?>[] order) {
+
+        if (terms.length != 3)
+            return null;
+
+        final Iterator<SPOKeyOrder> itr = SPOKeyOrder.tripleStoreKeyOrderIterator();
+
+        while (itr.hasNext()) {
+
+            final SPOKeyOrder keyOrder = itr.next();
+
+            boolean ok = true;
+
+            int lastRank = -1;
+
+            for (int i = 0; ok && i < keyOrder.getKeyArity(); i++) {
+
+                final IVariableOrConstant<?> t = terms[keyOrder.getKeyOrder(i)];
+
+                if (t == null) {
+
+                    ok = false;
+
+                } else if (t.isConstant()) {
+
+                    // Constants must precede the variables.
+                    ok = lastRank == -1;
+
+                } else {
+
+                    final int rank = Arrays.asList(order).indexOf(t);
+
+                    // Strictly increasing also rules out repeated variables.
+                    ok = rank > lastRank;
+
+                    lastRank = rank;
+
+                }
+
+            }
+
+            if (ok)
+                return keyOrder;
+
+        }
+
+        return null;
+
+    }
+
+    @Override
+    public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+        return new FutureTask<Void>(new ChunkTask(this, context));
+
+    }
+
+    /**
+     * A sorted set of keys. Each key is the concatenation of the encoded
+     * {@link IV}s for the constants of a statement pattern (if any) followed by
+     * its variables in the global variable order.
+     */
+    private interface IKeySource {
+
+        /**
+         * Return the first key GTE the given key and LT the optional
+         * exclusive upper bound.
+         * 
+         * @param key
+         *            The probe key.
+         * @param limit
+         *            The exclusive upper bound (optional).
+         * 
+         * @return The key -or- <code>null</code> if there is no such key.
+         */
+        byte[] ceiling(byte[] key, byte[] limit);
+
+    }
+
+    /**
+     * An {@link IKeySource} which leaps through the key range of a statement
+     * index using an {@link ITupleCursor}.
+     */
+    private static class CursorKeySource implements IKeySource {
+
+        private final ITupleCursor<ISPO> cursor;
+
+        private final byte[] toKey;
+
+        CursorKeySource(final ITupleCursor<ISPO> cursor, final byte[] toKey) {
+
+            this.cursor = cursor;
+
+            this.toKey = toKey;
+
+        }
+
+        @Override
+        public byte[] ceiling(final byte[] key, final byte[] limit) {
+
+            if (toKey != null && BytesUtil.compareBytes(key, toKey) >= 0)
+                return null;
+
+            ITuple<ISPO> tuple = cursor.seek(key);
+
+            if (tuple == null) {
+
+                if (!cursor.hasNext())
+                    return null;
+
+                tuple = cursor.next();
+
+            }
+
+            final byte[] found = tuple.getKey();
+
+            if (limit != null && BytesUtil.compareBytes(found, limit) >= 0)
+                return null;
+
+            return found;
+
+        }
+
+    }
+
+    /**
+     * An {@link IKeySource} backed by a sorted array of distinct keys.
+     */
+    private static class ArrayKeySource implements IKeySource {
+
+        private static final Comparator<byte[]> cmp = BytesUtil.UnsignedByteArrayComparator.INSTANCE;
+
+        private final byte[][] keys;
+
+        ArrayKeySource(final byte[][] keys) {
+
+            this.keys = keys;
+
+        }
+
+        @Override
+        public byte[] ceiling(final byte[] key, final byte[] limit) {
+
+            int index = Arrays.binarySearch(keys, key, cmp);
+
+            if (index < 0)
+                index = -(index + 1);
+
+            if (index == keys.length)
+                return null;
+
+            final byte[] found = keys[index];
+
+            if (limit != null && BytesUtil.compareBytes(found, limit) >= 0)
+                return null;
+
+            return found;
+
+        }
+
+    }
+
+    /**
+     * An iterator over the distinct values of the next variable of a
+     * statement pattern for a given key prefix (one level of the trie).
+     */
+    private static class TrieIterator {
+
+        private final IKeySource src;
+
+        private final byte[] prefix;
+
+        private final byte[] limit;
+
+        /** The current key (<code>null</code> when exhausted). */
+        private byte[] key;
+
+        /** The byte length of the current component of {@link #key}. */
+        private int len;
+
+        TrieIterator(final IKeySource src, final byte[] prefix) {
+
+            this.src = src;
+
+            this.prefix = prefix;
+
+            this.limit = prefix.length == 0 ? null : successor(prefix);
+
+            position(src.ceiling(prefix, limit));
+
+        }
+
+        private void position(final byte[] key) {
+
+            this.key = key;
+
+            this.len = key == null ? 0 : IVUtility.decodeFromOffset(key,
+                    prefix.length).byteLength();
+
+        }
+
+        boolean atEnd() {
+
+            return key == null;
+
+        }
+
+        int compareTo(final TrieIterator o) {
+
+            return BytesUtil.compareBytesWithLenAndOffset(prefix.length, len,
+                    key, o.prefix.length, o.len, o.key);
+
+        }
+
+        /**
+         * The encoded value of the variable at this level.
+         */
+        byte[] value() {
+
+            return Arrays.copyOfRange(key, prefix.length, prefix.length + len);
+
+        }
+
+        IV<?, ?> decodeValue() {
+
+            return IVUtility.decodeFromOffset(key, prefix.length);
+
+        }
+
+        /**
+         * Advance to the next distinct value.
+         */
+        void next() {
+
+            final byte[] tmp = successor(Arrays.copyOf(key, prefix.length
+                    + len));
+
+            position(tmp == null ? null : src.ceiling(tmp, limit));
+
+        }
+
+        /**
+         * Advance to the first value GTE the value at the other iterator.
+         */
+        void seek(final TrieIterator o) {
+
+            final byte[] tmp = new byte[prefix.length + o.len];
+
+            System.arraycopy(prefix, 0, tmp, 0, prefix.length);
+
+            System.arraycopy(o.key, o.prefix.length, tmp, prefix.length, o.len);
+
+            position(src.ceiling(tmp, limit));
+
+        }
+
+        /**
+         * The fixed length successor of a copy of the key -or-
+         * <code>null</code> if there is no successor.
+         */
+        private static byte[] successor(final byte[] b) {
+
+            try {
+
+                return SuccessorUtil.successor(b.clone());
+
+            } catch (NoSuccessorException ex) {
+
+                return null;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * A statement pattern together with its source of keys.
+     */
+    private static class Atom {
+
+        final IKeySource src;
+
+        /**
+         * The constant key prefix.
+         */
+        final byte[] prefix;
+
+        Atom(final IKeySource src, final byte[] prefix) {
+
+            this.src = src;
+
+            this.prefix = prefix;
+
+        }
+
+    }
+
+    /**
+     * Join each source solution.
+     */
+    static private class ChunkTask implements Callable<Void> {
+
+        private final LeapfrogTriejoinOp op;
+
+        private final BOpContext<IBindingSet> context;
+
+        private final IPredicate<ISPO>[] preds;
+
+        private final IVariable<?>[] order;
+
+        private final IRelation<ISPO> relation;
+
+        private final IVariable<?>[] selectVars;
+
+        private final IConstraint[] constraints;
+
+        private final long maxBufferedKeys;
+
+        ChunkTask(final LeapfrogTriejoinOp op,
+                final BOpContext<IBindingSet> context) {
+
+            this.op = op;
+
+            this.context = context;
+
+            this.preds = op.getPredicates();
+
+            this.order = op.getVariableOrder();
+
+            this.relation = context.getRelation(preds[0]);
+
+            this.selectVars = op.getSelect();
+
+            this.constraints = op.constraints();
+
+            this.maxBufferedKeys = op.getMaxBufferedKeys();
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final BOpStats stats = context.getStats();
+
+            // Convert source solutions to array (assumes low cardinality).
+            final IBindingSet[] leftSolutions = BOpUtility.toArray(
+                    context.getSource(), stats);
+
+            // default sink
+            final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+            try {
+
+                final UnsyncLocalOutputBuffer<IBindingSet> unsyncBuffer = new UnsyncLocalOutputBuffer<IBindingSet>(
+                        op.getChunkCapacity(), sink);
+
+                for (IBindingSet bindingSet : leftSolutions) {
+
+                    join(bindingSet, unsyncBuffer);
+
+                }
+
+                unsyncBuffer.flush();
+
+                // flush the sink.
+                sink.flush();
+
+                // Done.
+                return null;
+
+            } finally {
+
+                sink.close();
+
+                context.getSource().close();
+
+            }
+
+        }
+
+        /**
+         * Join one source solution.
+         */
+        private void join(final IBindingSet bindingSet,
+                final UnsyncLocalOutputBuffer<IBindingSet> buffer)
+                throws InterruptedException {
+
+            // The variables which are not bound by the source solution.
+            final List<IVariable<?>> tmp = new ArrayList<IVariable<?>>();
+
+            for (IVariable<?> var : order) {
+
+                if (!bindingSet.isBound(var))
+                    tmp.add(var);
+
+            }
+
+            final IVariable<?>[] vars = tmp.toArray(new IVariable<?>[tmp.size()]);
+
+            final List<Atom> atoms = new ArrayList<Atom>(preds.length);
+
+            final List<Set<IVariable<?>>> atomVars = new ArrayList<Set<IVariable<?>>>(
+                    preds.length);
+
+            for (IPredicate<ISPO> pred : preds) {
+
+                final IPredicate<ISPO> asBound = pred.asBound(bindingSet);
+
+                if (asBound == null) {
+
+                    // The bindings can not be unified (SIDs mode).
+                    return;
+
+                }
+
+                final Set<IVariable<?>> v = new LinkedHashSet<IVariable<?>>();
+
+                final Iterator<IVariable<?>> itr = BOpUtility
+                        .getArgumentVariables(asBound);
+
+                while (itr.hasNext())
+                    v.add(itr.next());
+
+                if (v.isEmpty()) {
+
+                    // A fully bound statement pattern is just a filter.
+                    if (context.getAccessPath(relation, asBound).isEmpty())
+                        return;
+
+                    continue;
+
+                }
+
+                final Atom atom = newAtom(asBound, vars);
+
+                if (atom == null) {
+
+                    // Too large to buffer.
+                    nestedIndexJoin(0, bindingSet, buffer);
+
+                    return;
+
+                }
+
+                atoms.add(atom);
+
+                atomVars.add(v);
+
+            }
+
+            // The atoms which use each variable.
+            final Atom[][] participants = new Atom[vars.length][];
+
+            final int[][] participantIndex = new int[vars.length][];
+
+            for (int d = 0; d < vars.length; d++) {
+
+                final List<Integer> list = new LinkedList<Integer>();
+
+                for (int i = 0; i < atoms.size(); i++) {
+
+                    if (atomVars.get(i).contains(vars[d]))
+                        list.add(i);
+
+                }
+
+                participants[d] = new Atom[list.size()];
+
+                participantIndex[d] = new int[list.size()];
+
+                for (int i = 0; i < list.size(); i++) {
+
+                    participantIndex[d][i] = list.get(i);
+
+                    participants[d][i] = atoms.get(list.get(i));
+
+                }
+
+            }
+
+            final byte[][] prefix = new byte[atoms.size()][];
+
+            for (int i = 0; i < atoms.size(); i++) {
+
+                prefix[i] = atoms.get(i).prefix;
+
+            }
+
+            new Search(bindingSet, vars, participants, participantIndex,
+                    buffer).search(0, prefix);
+
+        }
+
+        /**
+         * Return the {@link Atom} for an as-bound predicate -or-
+         * <code>null</code> if it would have to be buffered and its range
+         * count exceeds {@link Annotations#MAX_BUFFERED_KEYS}.
+         */
+        @SuppressWarnings("unchecked")
+        private Atom newAtom(IPredicate<ISPO> pred, final IVariable<?>[] vars) {
+
+            final SPOKeyOrder keyOrder = pred.getIndexLocalFilter() == null
+                    && pred.getAccessPathFilter() == null
+                    && pred.getAccessPathExpander() == null
+                    && (pred.arity() == 3 || pred.get(3) == null) ? getKeyOrder(
+                    new IVariableOrConstant<?>[] { pred.get(0), pred.get(1),
+                            pred.get(2) }, vars) : null;
+
+            if (keyOrder != null) {
+
+                pred = (IPredicate<ISPO>) pred.setProperty(
+                        IPredicate.Annotations.KEY_ORDER, keyOrder);
+
+                final IAccessPath<ISPO> ap = context.getAccessPath(relation,
+                        pred);
+
+                if (ap instanceof AccessPath) {
+
+                    final AccessPath<ISPO> tmp = (AccessPath<ISPO>) ap;
+
+                    final ITupleIterator<ISPO> itr = tmp.getIndex()
+                            .rangeIterator(tmp.getFromKey(), tmp.getToKey(),
+                                    0/* capacity */,
+                                    IRangeQuery.KEYS | IRangeQuery.CURSOR,
+                                    null/* filter */);
+
+                    if (itr instanceof ITupleCursor) {
+
+                        if (log.isDebugEnabled())
+                            log.debug("Leaping over " + keyOrder + " for "
+                                    + pred);
+
+                        return new Atom(new CursorKeySource(
+                                (ITupleCursor<ISPO>) itr, tmp.getToKey()),
+                                tmp.getFromKey() == null ? new byte[0]
+                                        : tmp.getFromKey());
+
+                    }
+
+                }
+
+            }
+
+            final long rangeCount = context.getAccessPath(relation, pred)
+                    .rangeCount(false/* exact */);
+
+            if (rangeCount > maxBufferedKeys) {
+
+                if (log.isInfoEnabled())
+                    log.info("Not buffering " + pred + ": rangeCount="
+                            + rangeCount + " exceeds " + maxBufferedKeys);
+
+                return null;
+
+            }
+
+            if (log.isDebugEnabled())
+                log.debug("Buffering " + pred);
+
+            return new Atom(materialize(pred, vars), new byte[0]);
+
+        }
+
+        /**
+         * Read the access path for the predicate and buffer its distinct
+         * bindings as a sorted array of keys in the global variable order.
+         */
+        private IKeySource materialize(final IPredicate<ISPO> pred,
+                final IVariable<?>[] vars) {
+
+            // The positions of the variables in global variable order.
+            final List<int[]> positions = new ArrayList<int[]>();
+
+            for (IVariable<?> var : vars) {
+
+                final List<Integer> tmp = new LinkedList<Integer>();
+
+                for (int i = 0; i < pred.arity(); i++) {
+
+                    if (var.equals(pred.get(i)))
+                        tmp.add(i);
+
+                }
+
+                if (tmp.isEmpty())
+                    continue;
+
+                final int[] a = new int[tmp.size()];
+
+                for (int i = 0; i < a.length; i++)
+                    a[i] = tmp.get(i);
+
+                positions.add(a);
+
+            }
+
+            final IKeyBuilder keyBuilder = new KeyBuilder();
+
+            final List<byte[]> keys = new ArrayList<byte[]>();
+
+            final Iterator<ISPO> itr = context.getAccessPath(relation, pred)
+                    .iterator();
+
+            elements: while (itr.hasNext()) {
+
+                final IElement e = (IElement) itr.next();
+
+                keyBuilder.reset();
+
+                for (int[] a : positions) {
+
+                    final IV<?, ?> iv = (IV<?, ?>) e.get(a[0]);
+
+                    for (int i = 1; i < a.length; i++) {
+
+                        // A repeated variable must have the same binding.
+                        if (!iv.equals(e.get(a[i])))
+                            continue elements;
+
+                    }
+
+                    IVUtility.encode(keyBuilder, iv);
+
+                }
+
+                keys.add(keyBuilder.getKey());
+
+            }
+
+            final byte[][] a = keys.toArray(new byte[keys.size()][]);
+
+            Arrays.sort(a, BytesUtil.UnsignedByteArrayComparator.INSTANCE);
+
+            // Remove duplicates.
+            int n = 0;
+
+            for (int i = 0; i < a.length; i++) {
+
+                if (n == 0 || !BytesUtil.bytesEqual(a[n - 1], a[i]))
+                    a[n++] = a[i];
+
+            }
+
+            return new ArrayKeySource(Arrays.copyOf(a, n));
+
+        }
+
+        /**
+         * Join the solution with the statement patterns starting at the given
+         * index by reading the as-bound access path of each statement pattern
+         * in turn. This is used instead of the leapfrog search when a
+         * statement pattern is too large to buffer.
+         */
+        private void nestedIndexJoin(final int i, final IBindingSet bindingSet,
+                final UnsyncLocalOutputBuffer<IBindingSet> buffer)
+                throws InterruptedException {
+
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            if (i == preds.length) {
+
+                emit(bindingSet, buffer);
+
+                return;
+
+            }
+
+            final IPredicate<ISPO> asBound = preds[i].asBound(bindingSet);
+
+            if (asBound == null)
+                return;
+
+            final IChunkedOrderedIterator<ISPO> itr = context.getAccessPath(
+                    relation, asBound).iterator();
+
+            try {
+
+                elements: while (itr.hasNext()) {
+
+                    final IElement e = (IElement) itr.next();
+
+                    for (int j = 1; j < asBound.arity(); j++) {
+
+                        final IVariableOrConstant<?> t = asBound.get(j);
+
+                        if (t == null || !t.isVar())
+                            continue;
+
+                        for (int k = 0; k < j; k++) {
+
+                            // A repeated variable must have the same binding.
+                            if (t.equals(asBound.get(k))
+                                    && !e.get(j).equals(e.get(k)))
+                                continue elements;
+
+                        }
+
+                    }
+
+                    final IBindingSet tmp = bindingSet.clone();
+
+                    BOpContext.copyValues(e, asBound, tmp);
+
+                    nestedIndexJoin(i + 1, tmp, buffer);
+
+                }
+
+            } finally {
+
+                itr.close();
+
+            }
+
+        }
+
+        /**
+         * Apply the constraints and the projection and output the solution.
+         */
+        private void emit(IBindingSet out,
+                final UnsyncLocalOutputBuffer<IBindingSet> buffer) {
+
+            if (constraints != null
+                    && !BOpUtility.isConsistent(constraints, out)) {
+
+                return;
+
+            }
+
+            if (selectVars != null) {
+
+                out = out.copy(selectVars);
+
+            }
+
+            buffer.add(out);
+
+        }
+
+        /**
+         * The recursive leapfrog search over the variables for one source
+         * solution.
+         */
+        private class Search {
+
+            private final IBindingSet bindingSet;
+
+            private final IVariable<?>[] vars;
+
+            private final Atom[][] participants;
+
+            private final int[][] participantIndex;
+
+            private final UnsyncLocalOutputBuffer<IBindingSet> buffer;
+
+            private final IConstant<?>[] values;
+
+            Search(final IBindingSet bindingSet, final IVariable<?>[] vars,
+                    final Atom[][] participants,
+                    final int[][] participantIndex,
+                    final UnsyncLocalOutputBuffer<IBindingSet> buffer) {
+
+                this.bindingSet = bindingSet;
+                this.vars = vars;
+                this.participants = participants;
+                this.participantIndex = participantIndex;
+                this.buffer = buffer;
+                this.values = new IConstant<?>[vars.length];
+
+            }
+
+            /**
+             * Bind the variable at the given depth.
+             * 
+             * @param depth
+             *            The index of the variable in the variable order.
+             * @param prefix
+             *            The current key prefix for each atom.
+             */
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            void search(final int depth, final byte[][] prefix)
+                    throws InterruptedException {
+
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+
+                if (depth == vars.length) {
+
+                    emit();
+
+                    return;
+
+                }
+
+                final Atom[] atoms = participants[depth];
+
+                final int k = atoms.length;
+
+                if (k == 0) {
+
+                    // The variable is not used by any statement pattern.
+                    values[depth] = null;
+
+                    search(depth + 1, prefix);
+
+                    return;
+
+                }
+
+                final TrieIterator[] its = new TrieIterator[k];
+
+                for (int i = 0; i < k; i++) {
+
+                    its[i] = new TrieIterator(atoms[i].src,
+                            prefix[participantIndex[depth][i]]);
+
+                    if (its[i].atEnd())
+                        return;
+
+                }
+
+                Arrays.sort(its, new Comparator<TrieIterator>() {
+                    @Override
+                    public int compare(final TrieIterator o1,
+                            final TrieIterator o2) {
+                        return o1.compareTo(o2);
+                    }
+                });
+
+                int p = 0;
+
+                while (true) {
+
+                    final TrieIterator min = its[p];
+
+                    final TrieIterator max = its[(p + k - 1) % k];
+
+                    if (min.compareTo(max) == 0) {
+
+                        // All iterators agree on the value of this variable.
+                        final byte[] value = min.value();
+
+                        values[depth] = new Constant(min.decodeValue());
+
+                        final byte[][] save = new byte[k][];
+
+                        for (int i = 0; i < k; i++) {
+
+                            final int j = participantIndex[depth][i];
+
+                            save[i] = prefix[j];
+
+                            final byte[] b = Arrays.copyOf(prefix[j],
+                                    prefix[j].length + value.length);
+
+                            System.arraycopy(value, 0, b, prefix[j].length,
+                                    value.length);
+
+                            prefix[j] = b;
+
+                        }
+
+                        search(depth + 1, prefix);
+
+                        for (int i = 0; i < k; i++) {
+
+                            prefix[participantIndex[depth][i]] = save[i];
+
+                        }
+
+                        min.next();
+
+                    } else {
+
+                        min.seek(max);
+
+                    }
+
+                    if (min.atEnd())
+                        return;
+
+                    p = (p + 1) % k;
+
+                }
+
+            }
+
+            /**
+             * Bind the variables and output the solution.
+             */
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            private void emit() {
+
+                final IBindingSet out = bindingSet.clone();
+
+                for (int i = 0; i < vars.length; i++) {
+
+                    if (values[i] != null)
+                        out.set((IVariable) vars[i], (IConstant) values[i]);
+
+                }
+
+                ChunkTask.this.emit(out, buffer);
+
+            }
+
+        }
+
+    } // class ChunkTask
+
+}
@@ -56,6 +56,7 @@ import com.bigdata.bop.IVariable;
 import com.bigdata.bop.NV;
 import com.bigdata.bop.PipelineOp;
 import com.bigdata.bop.engine.AbstractRunningQuery;
+import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.bop.engine.QueryTimeoutException;
 import com.bigdata.btree.keys.IKeyBuilder;
 import com.bigdata.concurrent.FutureTaskMon;
@@ -221,11 +222,35 @@ public class PipelineJoin<E> extends PipelineOp implements
 
         boolean DEFAULT_REORDER_ACCESS_PATHS = true;
 
+        /**
+         * When <code>true</code>, an access path having at least twice
+         * {@link #MIN_DATAPOINTS_PER_TASK} tuples is split into key-range
+         * partitions which are scanned and joined in parallel (default
+         * {@value #DEFAULT_KEY_RANGE_PARTITIONS}).
+         * <p>
+         * The partitions run on the {@link QueryEngine#getKeyRangeScanService()},
+         * which is shared by all queries and runs at most one partition per
+         * available processor at a time. The joined solutions are NOT written
+         * onto the sink in the order of the access path. This is not done for
+         * optional joins, cutoff joins or access paths which are not backed by
+         * a read-only B+Tree.
+         * 
+         * @see AccessPath#getSeparatorKeys(int, long)
+         */
+        String KEY_RANGE_PARTITIONS = (PipelineJoin.class.getName() + ".keyRangePartitions")
+                .intern();
+
+        boolean DEFAULT_KEY_RANGE_PARTITIONS = false;
+
         /**
          * The minimum number of (estimated) data points assigned to a task. This basically
-         * defines the threshold upon which parallelization starts to pay out. Currently only
-         * implemented for the geospatial feature (see BLZG-1478), but this might be implemented
-         * more generally for the pipelined join in the future
+         * defines the threshold upon which parallelization starts to pay out. This is used
+         * by the geospatial feature (see BLZG-1478) and by the pipelined join when
+         * {@link #KEY_RANGE_PARTITIONS} is enabled, in which case the key range of an
+         * access path having at least twice this many tuples is split into partitions
+         * that are scanned and joined in parallel.
+         * 
+         * @see AccessPath#getSeparatorKeys(int, long)
          */
         public String MIN_DATAPOINTS_PER_TASK = 
                 (PipelineJoin.class.getName() + ".minDatapointsPerTask").intern();
@@ -249,8 +274,9 @@ public class PipelineJoin<E> extends PipelineOp implements
          * Note that this is an upper bound only: we always consider the MIN_DATAPOINTS_PER_TASK
          * threshold in order to avoid generating threads with a low workload.
          * 
-         * Currently only implemented for the geospatial feature (see BLZG-1478), but this might be 
-         * implemented more generally for the pipelined join in the future.
+         * This is used by the geospatial feature (see BLZG-1478) and by the pipelined join
+         * when {@link #KEY_RANGE_PARTITIONS} is enabled. For the pipelined join, the thread
+         * count is the #of available processors.
          * 
          * Must be a value >= 1.
          */
@@ -480,6 +506,29 @@ public class PipelineJoin<E> extends PipelineOp implements
          */
 		final private boolean reorderAccessPaths;
 
+		/**
+		 * When <code>true</code> a large access path is split into key-range
+		 * partitions which are joined in parallel.
+		 * 
+		 * @see Annotations#KEY_RANGE_PARTITIONS
+		 */
+		final private boolean keyRangePartitions;
+
+		/**
+		 * The maximum #of key-range partitions into which a large access path
+		 * will be split for parallel evaluation.
+		 * 
+		 * @see Annotations#NUM_TASKS_PER_THREAD
+		 */
+		final private int maxPartitions;
+
+		/**
+		 * The minimum #of tuples in each key-range partition.
+		 * 
+		 * @see Annotations#MIN_DATAPOINTS_PER_TASK
+		 */
+		final private long minDatapointsPerTask;
+
 		/**
 		 * Used to enforce the {@link Annotations#LIMIT} iff one is specified.
 		 */
@@ -584,6 +633,25 @@ public class PipelineJoin<E> extends PipelineOp implements
             this.reorderAccessPaths = joinOp.getProperty(
                     Annotations.REORDER_ACCESS_PATHS,
                     Annotations.DEFAULT_REORDER_ACCESS_PATHS);
+            this.keyRangePartitions = joinOp.getProperty(
+                    Annotations.KEY_RANGE_PARTITIONS,
+                    Annotations.DEFAULT_KEY_RANGE_PARTITIONS);
+            final int numTasksPerThread = joinOp.getProperty(
+                    Annotations.NUM_TASKS_PER_THREAD,
+                    Annotations.DEFAULT_NUM_TASKS_PER_THREAD);
+            if (numTasksPerThread < 1)
+                throw new IllegalArgumentException(
+                        Annotations.NUM_TASKS_PER_THREAD + "="
+                                + numTasksPerThread);
+            this.maxPartitions = Runtime.getRuntime().availableProcessors()
+                    * numTasksPerThread;
+            this.minDatapointsPerTask = joinOp.getProperty(
+                    Annotations.MIN_DATAPOINTS_PER_TASK,
+                    Annotations.DEFAULT_MIN_DATAPOINTS_PER_TASK);
+            if (minDatapointsPerTask < 1)
+                throw new IllegalArgumentException(
+                        Annotations.MIN_DATAPOINTS_PER_TASK + "="
+                                + minDatapointsPerTask);
 
 			this.threadLocalBufferFactory = new TLBFactory(sink);
 
@@ -1818,6 +1886,33 @@ public class PipelineJoin<E> extends PipelineOp implements
             		final long cutoffLimit = predicate.getProperty(
             			IPredicate.Annotations.CUTOFF_LIMIT, 
             			IPredicate.Annotations.DEFAULT_CUTOFF_LIMIT);
+
+                if (keyRangePartitions
+                        && !optional
+                        && cutoffLimit == IPredicate.Annotations.DEFAULT_CUTOFF_LIMIT
+                        && accessPath instanceof AccessPath) {
+
+                    /*
+                     * Split a large access path into key-range partitions and
+                     * join them in parallel. This is not done for an optional
+                     * join (the join must observe all partitions before it
+                     * can decide whether a source solution failed) nor for a
+                     * cutoff join (the RTO relies on the cutoff).
+                     */
+
+                    final byte[][] separatorKeys = ((AccessPath<E>) accessPath)
+                            .getSeparatorKeys(maxPartitions,
+                                    minDatapointsPerTask);
+
+                    if (separatorKeys.length > 0) {
+
+                        handlePartitionedJoin(separatorKeys);
+
+                        return;
+
+                    }
+
+                }
             	
                 // Obtain the iterator for the current join dimension.
                 final ICloseableIterator<IBindingSet[]> itr = ((IBindingSetAccessPath<?>) accessPath)
@@ -1842,49 +1937,7 @@ public class PipelineJoin<E> extends PipelineOp implements
                         
                         for(IBindingSet right : rightChunk) { // next solution from AP.
                         
-                        int bindex = 0; // index 1:1 with bindingSets[].
-                        for (IBindingSet left : bindingSets) { // upstream pipeline solutions.
-
-                            // join solutions.
-                            final IBindingSet bset = BOpContext.bind(left, right,
-//                                    true/* leftIsPipeline */,
-                                    constraints,
-                                    variablesToKeep);
-                            
-                            if (bset != null) {
-                                // solutions joined.
-                                if (limit != Long.MAX_VALUE
-                                        && exactOutputCount.incrementAndGet() > limit) {
-                                    // break query @ limit.
-                                    if (log.isInfoEnabled())
-                                        log.info("Breaking query @ limit: limit=" + limit
-                                                + ", exactOutputCount="
-                                                + exactOutputCount.get());
-                                    halt((Void) null);
-                                    break;
-                                }
-
-                                // Accept this binding set.
-                                unsyncBuffer.add(bset);
-
-                                // #of binding sets accepted.
-                                naccepted++;
-                                
-                                // #of elements accepted for this binding set.
-                                this.naccepted[bindex]++;
-
-                                // #of output solutions generated.
-                                stats.outputSolutions.increment(); 
-
-                            }
-
-                            if (bindex++ % 50 == 0) {
-                                // Periodically check for an interrupt.
-                                if (Thread.interrupted())
-                                    throw new InterruptedException();
-                            }
-
-                        }
+                        naccepted = join(right, unsyncBuffer, this.naccepted);
 
                         if (log.isDebugEnabled())
                             if (naccepted == 0) {
@@ -1968,6 +2021,212 @@ public class PipelineJoin<E> extends PipelineOp implements
 
                 }
 
+            }
+
+            /**
+             * Join a solution visited on the access path with each of the
+             * source solutions.
+             * 
+             * @param right
+             *            A solution visited on the access path.
+             * @param unsyncBuffer
+             *            The buffer onto which the joined solutions are
+             *            written.
+             * @param naccepted
+             *            An array correlated with the {@link #bindingSets}
+             *            whose values are incremented for each source solution
+             *            that joins.
+             * 
+             * @return The #of joined solutions.
+             */
+            private int join(final IBindingSet right,
+                    final AbstractUnsynchronizedArrayBuffer<IBindingSet> unsyncBuffer,
+                    final int[] naccepted) throws InterruptedException {
+
+                int n = 0;
+
+                int bindex = 0; // index 1:1 with bindingSets[].
+                for (IBindingSet left : bindingSets) { // upstream pipeline solutions.
+
+                    // join solutions.
+                    final IBindingSet bset = BOpContext.bind(left, right,
+//                            true/* leftIsPipeline */,
+                            constraints,
+                            variablesToKeep);
+                    
+                    if (bset != null) {
+                        // solutions joined.
+                        if (limit != Long.MAX_VALUE
+                                && exactOutputCount.incrementAndGet() > limit) {
+                            // break query @ limit.
+                            if (log.isInfoEnabled())
+                                log.info("Breaking query @ limit: limit=" + limit
+                                        + ", exactOutputCount="
+                                        + exactOutputCount.get());
+                            halt((Void) null);
+                            break;
+                        }
+
+                        // Accept this binding set.
+                        unsyncBuffer.add(bset);
+
+                        // #of binding sets accepted.
+                        n++;
+                        
+                        // #of elements accepted for this binding set.
+                        naccepted[bindex]++;
+
+                        // #of output solutions generated.
+                        stats.outputSolutions.increment(); 
+
+                    }
+
+                    if (bindex++ % 50 == 0) {
+                        // Periodically check for an interrupt.
+                        if (Thread.interrupted())
+                            throw new InterruptedException();
+                    }
+
+                }
+
+                return n;
+
+            }
+
+            /**
+             * Join the source solutions with each key-range partition of the
+             * {@link #accessPath} in parallel. Each partition is scanned by a
+             * task running on the {@link QueryEngine#getKeyRangeScanService()}
+             * and writes onto its own thread-local buffer.
+             * 
+             * @param separatorKeys
+             *            The separator keys for the partitions.
+             * 
+             * @see AccessPath#getSeparatorKeys(int, long)
+             */
+            protected void handlePartitionedJoin(final byte[][] separatorKeys) {
+
+                final AccessPath<E> ap = (AccessPath<E>) accessPath;
+
+                // #of input solutions consumed (pre-increment).
+                stats.inputSolutions.add(bindingSets.length);
+
+                final List<FutureTask<Void>> futureTasks = new LinkedList<FutureTask<Void>>();
+
+                for (int i = 0; i <= separatorKeys.length; i++) {
+
+                    final byte[] fromKey = i == 0 ? ap.getFromKey()
+                            : separatorKeys[i - 1];
+
+                    final byte[] toKey = i == separatorKeys.length ? ap
+                            .getToKey() : separatorKeys[i];
+
+                    futureTasks.add(new FutureTaskMon<Void>(
+                            new PartitionTask(fromKey, toKey)));
+
+                }
+
+                if (log.isDebugEnabled())
+                    log.debug("accessPath=" + accessPath + ", partitions="
+                            + futureTasks.size());
+
+                final Executor executor = context.getRunningQuery()
+                        .getQueryEngine().getKeyRangeScanService();
+
+                try {
+
+                    for (FutureTask<Void> ft : futureTasks) {
+
+                        halted();
+
+                        executor.execute(ft);
+
+                    }
+
+                    for (FutureTask<Void> ft : futureTasks) {
+
+                        if (!isDone())
+                            ft.get();
+
+                    }
+
+                } catch (Throwable t) {
+
+                    // ensure query halts.
+                    halt(t);
+                    if (getCause() != null) {
+                        // abnormal termination.
+                        throw new RuntimeException(t);
+                    }
+                    // normal termination - ignore exception.
+
+                } finally {
+
+                    for (FutureTask<Void> ft : futureTasks) {
+
+                        ft.cancel(true/* mayInterruptIfRunning */);
+
+                    }
+
+                }
+
+            }
+
+            /**
+             * Scans one key-range partition of the {@link #accessPath} and
+             * joins the visited solutions with the source solutions.
+             */
+            private class PartitionTask implements Callable<Void> {
+
+                private final byte[] fromKey;
+
+                private final byte[] toKey;
+
+                PartitionTask(final byte[] fromKey, final byte[] toKey) {
+
+                    this.fromKey = fromKey;
+
+                    this.toKey = toKey;
+
+                }
+
+                @Override
+                public Void call() throws Exception {
+
+                    final ICloseableIterator<IBindingSet[]> itr = ((AccessPath<E>) accessPath)
+                            .solutions(context, fromKey, toKey, stats);
+
+                    try {
+
+                        // Each thread gets its own buffer.
+                        final AbstractUnsynchronizedArrayBuffer<IBindingSet> unsyncBuffer = threadLocalBufferFactory
+                                .get();
+
+                        // Not used since the join is not optional.
+                        final int[] naccepted = new int[bindingSets.length];
+
+                        while (itr.hasNext()) {
+
+                            halted();
+
+                            for (IBindingSet right : itr.next()) {
+
+                                join(right, unsyncBuffer, naccepted);
+
+                            }
+
+                        }
+
+                        return null;
+
+                    } finally {
+
+                        itr.close();
+
+                    }
+
+                }
+
             }
 
 			protected void handleStarJoin() {
@@ -0,0 +1,904 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.BOpEvaluationContext;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.IElement;
+import com.bigdata.bop.IPredicate;
+import com.bigdata.bop.ISingleThreadedOp;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.ILinearList;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.spo.ISPO;
+import com.bigdata.rdf.spo.SPOKeyOrder;
+import com.bigdata.relation.IRelation;
+import com.bigdata.relation.accesspath.AccessPath;
+import com.bigdata.relation.accesspath.IAccessPath;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.UnsyncLocalOutputBuffer;
+import com.bigdata.util.BytesUtil;
+
+import cutthecrap.utils.striterators.IFilter;
+
+/**
+ * A merge join of two statement patterns which co-scans their access paths.
+ * Each {@link IPredicate} must be answered by an {@link SPOKeyOrder} whose
+ * key begins with the constants of that predicate followed by the shared join
+ * variable. For example, <code>(?x :p1 ?o)</code> and
+ * <code>(?y :p2 ?o)</code> may both be read in {@link SPOKeyOrder#POS} order,
+ * in which case both key-range scans visit the tuples in <code>?o</code>
+ * order. The two scans are merged in a single pass without any per-solution
+ * index probes, which replaces the point lookups that a {@link PipelineJoin}
+ * would otherwise issue for each solution flowing out of the first join.
+ * <p>
+ * The key range is divided into {@link Annotations#PARTITION_COUNT} ranges of
+ * the join variable using the {@link ILinearList} interface of the index for
+ * the left predicate. The partitions are joined in parallel.
+ * <p>
+ * This is an "at-once" operator. It is normally the first join in a group and
+ * has a single empty source solution. If a source solution binds variables
+ * such that either predicate can no longer be answered by such an index
+ * order then that source solution is joined using a nested loop over the two
+ * access paths instead.
+ * 
+ * @see #getKeyOrder(IVariableOrConstant[], IVariable)
+ */
+public class SPOMergeJoinOp extends PipelineOp implements ISingleThreadedOp {
+
+    private static final transient Logger log = Logger
+            .getLogger(SPOMergeJoinOp.class);
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 1L;
+
+    public interface Annotations extends AccessPathJoinAnnotations {
+
+        /**
+         * The {@link IPredicate} for the right hand side of the join. The
+         * {@link #PREDICATE} is the left hand side of the join.
+         */
+        String RIGHT_PREDICATE = SPOMergeJoinOp.class.getName()
+                + ".rightPredicate";
+
+        /**
+         * The variable shared by the two predicates (required).
+         */
+        String JOIN_VAR = SPOMergeJoinOp.class.getName() + ".joinVar";
+
+        /**
+         * The maximum #of key range partitions that will be joined in
+         * parallel.
+         */
+        String PARTITION_COUNT = SPOMergeJoinOp.class.getName()
+                + ".partitionCount";
+
+        int DEFAULT_PARTITION_COUNT = Runtime.getRuntime()
+                .availableProcessors();
+
+        /**
+         * The minimum #of tuples in the key range of the left predicate for
+         * each partition.
+         */
+        String MIN_PARTITION_SIZE = SPOMergeJoinOp.class.getName()
+                + ".minPartitionSize";
+
+        long DEFAULT_MIN_PARTITION_SIZE = 10000L;
+
+    }
+
+    /**
+     * Deep copy constructor.
+     * 
+     * @param op
+     */
+    public SPOMergeJoinOp(final SPOMergeJoinOp op) {
+
+        super(op);
+
+    }
+
+    /**
+     * Shallow copy constructor.
+     * 
+     * @param args
+     * @param annotations
+     */
+    public SPOMergeJoinOp(final BOp[] args,
+            final Map<String, Object> annotations) {
+
+        super(args, annotations);
+
+        // MUST be given.
+        getRequiredProperty(Annotations.PREDICATE);
+        getRequiredProperty(Annotations.RIGHT_PREDICATE);
+        getJoinVar();
+
+        switch (getEvaluationContext()) {
+        case CONTROLLER:
+            break;
+        default:
+            throw new UnsupportedOperationException(
+                    Annotations.EVALUATION_CONTEXT + "="
+                            + getEvaluationContext());
+        }
+
+        if (getLeftPredicate().isOptional()
+                || getRightPredicate().isOptional()) {
+
+            // OPTIONAL is not implemented for this operator.
+            throw new UnsupportedOperationException();
+
+        }
+
+        assertMaxParallelOne();
+
+        assertAtOnceJavaHeapOp();
+
+    }
+
+    public SPOMergeJoinOp(final BOp[] args, final NV... annotations) {
+
+        this(args, NV.asMap(annotations));
+
+    }
+
+    /**
+     * @see Annotations#PREDICATE
+     */
+    @SuppressWarnings("unchecked")
+    public IPredicate<ISPO> getLeftPredicate() {
+
+        return (IPredicate<ISPO>) getRequiredProperty(Annotations.PREDICATE);
+
+    }
+
+    /**
+     * @see Annotations#RIGHT_PREDICATE
+     */
+    @SuppressWarnings("unchecked")
+    public IPredicate<ISPO> getRightPredicate() {
+
+        return (IPredicate<ISPO>) getRequiredProperty(Annotations.RIGHT_PREDICATE);
+
+    }
+
+    /**
+     * @see Annotations#JOIN_VAR
+     */
+    public IVariable<?> getJoinVar() {
+
+        return (IVariable<?>) getRequiredProperty(Annotations.JOIN_VAR);
+
+    }
+
+    /**
+     * @see Annotations#SELECT
+     */
+    protected IVariable<?>[] getSelect() {
+
+        return getProperty(Annotations.SELECT, null/* defaultValue */);
+
+    }
+
+    /**
+     * @see Annotations#CONSTRAINTS
+     */
+    protected IConstraint[] constraints() {
+
+        return getProperty(Annotations.CONSTRAINTS, null/* defaultValue */);
+
+    }
+
+    /**
+     * Return the triple store {@link SPOKeyOrder} whose key consists of the
+     * constants in the given statement pattern followed by the join variable
+     * and then by distinct variables which are not the join variable. A
+     * key-range scan of that index for the constants visits the matching
+     * statements in the order of the join variable.
+     * 
+     * @param terms
+     *            The subject, predicate and object positions of a triple
+     *            pattern.
+     * @param joinVar
+     *            The join variable.
+     * 
+     * @return The {@link SPOKeyOrder} -or- <code>null</code> if there is no
+     *         such index.
+     */
+    static public SPOKeyOrder getKeyOrder(final IVariableOrConstant<?>[] terms,
+            final IVariable<?> joinVar) {
+
+        if (terms.length != 3 || joinVar == null)
+            return null;
+
+        final Iterator<SPOKeyOrder> itr = SPOKeyOrder.tripleStoreKeyOrderIterator();
+
+        while (itr.hasNext()) {
+
+            final SPOKeyOrder keyOrder = itr.next();
+
+            if (getJoinVarIndex(keyOrder, terms, joinVar) != -1)
+                return keyOrder;
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Return the index of the join variable in the key for the given
+     * {@link SPOKeyOrder} -or- <code>-1</code> if that index can not be used
+     * for a merge join on that variable.
+     * 
+     * @see #getKeyOrder(IVariableOrConstant[], IVariable)
+     */
+    static private int getJoinVarIndex(final SPOKeyOrder keyOrder,
+            final IVariableOrConstant<?>[] terms, final IVariable<?> joinVar) {
+
+        final int keyArity = keyOrder.getKeyArity();
+
+        int joinIndex = -1;
+
+        for (int i = 0; i < keyArity; i++) {
+
+            final IVariableOrConstant<?> t = terms[keyOrder.getKeyOrder(i)];
+
+            if (t == null)
+                return -1;
+
+            if (joinIndex == -1) {
+
+                if (t.isConstant())
+                    continue;
+
+                if (!t.equals(joinVar))
+                    return -1;
+
+                joinIndex = i;
+
+            } else {
+
+                // Only distinct variables may follow the join variable.
+                if (t.isConstant() || t.equals(joinVar))
+                    return -1;
+
+                for (int j = joinIndex + 1; j < i; j++) {
+
+                    if (t.equals(terms[keyOrder.getKeyOrder(j)]))
+                        return -1;
+
+                }
+
+            }
+
+        }
+
+        return joinIndex;
+
+    }
+
+    /**
+     * Return the subject, predicate and object positions of the predicate.
+     */
+    static private IVariableOrConstant<?>[] getTerms(final IPredicate<?> pred) {
+
+        if (pred.arity() > 3 && pred.get(3) != null)
+            return new IVariableOrConstant<?>[0];
+
+        return new IVariableOrConstant<?>[] { pred.get(0), pred.get(1),
+                pred.get(2) };
+
+    }
+
+    @Override
+    public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+        return new FutureTask<Void>(new ChunkTask(this, context));
+
+    }
+
+    /**
+     * Join each source solution against the two access paths.
+     */
+    static private class ChunkTask implements Callable<Void> {
+
+        private final SPOMergeJoinOp op;
+
+        private final BOpContext<IBindingSet> context;
+
+        private final IVariable<?> joinVar;
+
+        private final IPredicate<ISPO> leftPred;
+
+        private final IPredicate<ISPO> rightPred;
+
+        private final IRelation<ISPO> relation;
+
+        private final IVariable<?>[] selectVars;
+
+        private final IConstraint[] constraints;
+
+        private final int partitionCount;
+
+        private final long minPartitionSize;
+
+        ChunkTask(final SPOMergeJoinOp op,
+                final BOpContext<IBindingSet> context) {
+
+            this.op = op;
+
+            this.context = context;
+
+            this.joinVar = op.getJoinVar();
+
+            this.leftPred = op.getLeftPredicate();
+
+            this.rightPred = op.getRightPredicate();
+
+            this.relation = context.getRelation(leftPred);
+
+            this.selectVars = op.getSelect();
+
+            this.constraints = op.constraints();
+
+            this.partitionCount = Math.max(1, op.getProperty(
+                    Annotations.PARTITION_COUNT,
+                    Annotations.DEFAULT_PARTITION_COUNT));
+
+            this.minPartitionSize = Math.max(1L, op.getProperty(
+                    Annotations.MIN_PARTITION_SIZE,
+                    Annotations.DEFAULT_MIN_PARTITION_SIZE));
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final BOpStats stats = context.getStats();
+
+            // Convert source solutions to array (assumes low cardinality).
+            final IBindingSet[] leftSolutions = BOpUtility.toArray(
+                    context.getSource(), stats);
+
+            // default sink
+            final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+            try {
+
+                for (IBindingSet bindingSet : leftSolutions) {
+
+                    final IPredicate<ISPO> left = leftPred.asBound(bindingSet);
+
+                    final IPredicate<ISPO> right = rightPred
+                            .asBound(bindingSet);
+
+                    if (left == null || right == null) {
+
+                        // The bindings can not be unified (SIDs mode).
+                        continue;
+
+                    }
+
+                    if (!mergeJoin(bindingSet, left, right, sink)) {
+
+                        nestedLoopJoin(bindingSet, left, right, sink);
+
+                    }
+
+                }
+
+                // flush the sink.
+                sink.flush();
+
+                // Done.
+                return null;
+
+            } finally {
+
+                sink.close();
+
+                context.getSource().close();
+
+            }
+
+        }
+
+        /**
+         * Join the source solution using a merge join.
+         * 
+         * @return <code>false</code> if the as-bound predicates can not be
+         *         merge joined.
+         */
+        @SuppressWarnings("unchecked")
+        private boolean mergeJoin(final IBindingSet bindingSet,
+                IPredicate<ISPO> left, IPredicate<ISPO> right,
+                final IBlockingBuffer<IBindingSet[]> sink) throws Exception {
+
+            if (bindingSet.isBound(joinVar))
+                return false;
+
+            if (left.getAccessPathExpander() != null
+                    || right.getAccessPathExpander() != null)
+                return false;
+
+            if (left.getAccessPathFilter() != null
+                    || right.getAccessPathFilter() != null)
+                return false;
+
+            final SPOKeyOrder leftKeyOrder = getKeyOrder(getTerms(left),
+                    joinVar);
+
+            final SPOKeyOrder rightKeyOrder = getKeyOrder(getTerms(right),
+                    joinVar);
+
+            if (leftKeyOrder == null || rightKeyOrder == null)
+                return false;
+
+            left = (IPredicate<ISPO>) left.setProperty(
+                    IPredicate.Annotations.KEY_ORDER, leftKeyOrder);
+
+            right = (IPredicate<ISPO>) right.setProperty(
+                    IPredicate.Annotations.KEY_ORDER, rightKeyOrder);
+
+            final IAccessPath<ISPO> leftAP = context.getAccessPath(relation,
+                    left);
+
+            final IAccessPath<ISPO> rightAP = context.getAccessPath(relation,
+                    right);
+
+            if (!(leftAP instanceof AccessPath)
+                    || !(rightAP instanceof AccessPath)) {
+
+                return false;
+
+            }
+
+            final Side l = new Side(left, (AccessPath<ISPO>) leftAP);
+
+            final Side r = new Side(right, (AccessPath<ISPO>) rightAP);
+
+            final List<Partition> partitions = split(bindingSet, l, r);
+
+            if (log.isInfoEnabled())
+                log.info("left=" + left + ", right=" + right + ", partitions="
+                        + partitions.size());
+
+            if (partitions.size() == 1) {
+
+                // Run in the caller's thread.
+                partitions.get(0).call();
+
+                return true;
+
+            }
+
+            final Executor executor = context.getExecutorService();
+
+            final List<FutureTask<Void>> futures = new LinkedList<FutureTask<Void>>();
+
+            try {
+
+                for (Partition p : partitions) {
+
+                    final FutureTask<Void> ft = new FutureTask<Void>(p);
+
+                    futures.add(ft);
+
+                    executor.execute(ft);
+
+                }
+
+                for (FutureTask<Void> ft : futures) {
+
+                    // Await the partition (and propagate any error).
+                    ft.get();
+
+                }
+
+            } finally {
+
+                for (FutureTask<Void> ft : futures) {
+
+                    ft.cancel(true/* mayInterruptIfRunning */);
+
+                }
+
+            }
+
+            return true;
+
+        }
+
+        /**
+         * Divide the key range of the join variable into partitions.
+         */
+        private List<Partition> split(final IBindingSet bindingSet,
+                final Side l, final Side r) {
+
+            final List<Partition> partitions = new ArrayList<Partition>();
+
+            byte[] leftFrom = l.fromKey;
+
+            byte[] rightFrom = r.fromKey;
+
+            if (partitionCount > 1 && l.ndx instanceof ILinearList) {
+
+                final ILinearList ll = (ILinearList) l.ndx;
+
+                final long lo = l.fromKey == null ? 0L : normalize(ll
+                        .indexOf(l.fromKey));
+
+                final long hi = l.toKey == null ? l.ndx.rangeCount()
+                        : normalize(ll.indexOf(l.toKey));
+
+                final long n = hi - lo;
+
+                final int nparts = (int) Math.min(partitionCount,
+                        n / minPartitionSize);
+
+                for (int k = 1; k < nparts; k++) {
+
+                    final byte[] key = ll.keyAt(lo + (n * k) / nparts);
+
+                    // The join variable's component of that key.
+                    final int len = IVUtility.decodeFromOffset(key,
+                            l.prefixLength).byteLength();
+
+                    final byte[] leftTo = Arrays.copyOf(key, l.prefixLength
+                            + len);
+
+                    if (leftFrom != null
+                            && BytesUtil.compareBytes(leftFrom, leftTo) >= 0) {
+
+                        // Skewed join variable (same value).
+                        continue;
+
+                    }
+
+                    final byte[] rightTo = new byte[r.prefixLength + len];
+
+                    if (r.prefixLength > 0)
+                        System.arraycopy(r.fromKey, 0, rightTo, 0,
+                                r.prefixLength);
+
+                    System.arraycopy(key, l.prefixLength, rightTo,
+                            r.prefixLength, len);
+
+                    partitions.add(new Partition(bindingSet, l, leftFrom,
+                            leftTo, r, rightFrom, rightTo));
+
+                    leftFrom = leftTo;
+
+                    rightFrom = rightTo;
+
+                }
+
+            }
+
+            partitions.add(new Partition(bindingSet, l, leftFrom, l.toKey, r,
+                    rightFrom, r.toKey));
+
+            return partitions;
+
+        }
+
+        /**
+         * Convert an insertion point into an index.
+         */
+        static private long normalize(final long index) {
+
+            return index < 0 ? -(index + 1) : index;
+
+        }
+
+        /**
+         * Join the source solution by a nested loop over the access paths.
+         */
+        private void nestedLoopJoin(final IBindingSet bindingSet,
+                final IPredicate<ISPO> left, final IPredicate<ISPO> right,
+                final IBlockingBuffer<IBindingSet[]> sink) {
+
+            final UnsyncLocalOutputBuffer<IBindingSet> unsyncBuffer = new UnsyncLocalOutputBuffer<IBindingSet>(
+                    op.getChunkCapacity(), sink);
+
+            final Iterator<ISPO> litr = context.getAccessPath(relation, left)
+                    .iterator();
+
+            while (litr.hasNext()) {
+
+                final IBindingSet tmp = bindingSet.clone();
+
+                BOpContext.copyValues((IElement) litr.next(), left, tmp);
+
+                final IPredicate<ISPO> asBound = right.asBound(tmp);
+
+                if (asBound == null)
+                    continue;
+
+                final Iterator<ISPO> ritr = context.getAccessPath(relation,
+                        asBound).iterator();
+
+                while (ritr.hasNext()) {
+
+                    final IBindingSet out = tmp.clone();
+
+                    BOpContext.copyValues((IElement) ritr.next(), right, out);
+
+                    emit(out, unsyncBuffer);
+
+                }
+
+            }
+
+            unsyncBuffer.flush();
+
+        }
+
+        /**
+         * Apply the constraints and the projection and output the solution.
+         */
+        private void emit(IBindingSet out,
+                final UnsyncLocalOutputBuffer<IBindingSet> buffer) {
+
+            if (constraints != null
+                    && !BOpUtility.isConsistent(constraints, out)) {
+
+                return;
+
+            }
+
+            if (selectVars != null) {
+
+                out = out.copy(selectVars);
+
+            }
+
+            buffer.add(out);
+
+        }
+
+        /**
+         * One side of the merge join.
+         */
+        static private class Side {
+
+            final IPredicate<ISPO> pred;
+
+            final IIndex ndx;
+
+            final byte[] fromKey;
+
+            final byte[] toKey;
+
+            /**
+             * The #of bytes in the key before the join variable.
+             */
+            final int prefixLength;
+
+            final IFilter filter;
+
+            Side(final IPredicate<ISPO> pred, final AccessPath<ISPO> ap) {
+
+                this.pred = pred;
+                this.ndx = ap.getIndex();
+                this.fromKey = ap.getFromKey();
+                this.toKey = ap.getToKey();
+                this.prefixLength = fromKey == null ? 0 : fromKey.length;
+                this.filter = pred.getIndexLocalFilter();
+
+            }
+
+        }
+
+        /**
+         * The current tuple on one side of the merge join.
+         */
+        static private class Row {
+
+            final byte[] key;
+
+            /**
+             * The offset of the join variable in the {@link #key}.
+             */
+            final int off;
+
+            /**
+             * The length of the join variable in the {@link #key}.
+             */
+            final int len;
+
+            final ISPO spo;
+
+            Row(final ITuple<ISPO> tuple, final int off) {
+
+                this.key = tuple.getKey();
+                this.off = off;
+                this.len = IVUtility.decodeFromOffset(key, off).byteLength();
+                this.spo = tuple.getObject();
+
+            }
+
+            int compareTo(final Row o) {
+
+                return BytesUtil.compareBytesWithLenAndOffset(off, len, key,
+                        o.off, o.len, o.key);
+
+            }
+
+        }
+
+        /**
+         * Merge join of a key range of the join variable.
+         */
+        private class Partition implements Callable<Void> {
+
+            private final IBindingSet bindingSet;
+
+            private final Side l, r;
+
+            private final byte[] leftFrom, leftTo, rightFrom, rightTo;
+
+            Partition(final IBindingSet bindingSet, final Side l,
+                    final byte[] leftFrom, final byte[] leftTo, final Side r,
+                    final byte[] rightFrom, final byte[] rightTo) {
+
+                this.bindingSet = bindingSet;
+                this.l = l;
+                this.leftFrom = leftFrom;
+                this.leftTo = leftTo;
+                this.r = r;
+                this.rightFrom = rightFrom;
+                this.rightTo = rightTo;
+
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public Void call() throws Exception {
+
+                final UnsyncLocalOutputBuffer<IBindingSet> unsyncBuffer = new UnsyncLocalOutputBuffer<IBindingSet>(
+                        op.getChunkCapacity(), context.getSink());
+
+                final ITupleIterator<ISPO> litr = l.ndx.rangeIterator(leftFrom,
+                        leftTo, 0/* capacity */, IRangeQuery.KEYS
+                                | IRangeQuery.VALS, l.filter);
+
+                final ITupleIterator<ISPO> ritr = r.ndx.rangeIterator(
+                        rightFrom, rightTo, 0/* capacity */, IRangeQuery.KEYS
+                                | IRangeQuery.VALS, r.filter);
+
+                Row lrow = next(litr, l);
+
+                Row rrow = next(ritr, r);
+
+                final List<ISPO> group = new ArrayList<ISPO>();
+
+                while (lrow != null && rrow != null) {
+
+                    if (Thread.interrupted())
+                        throw new InterruptedException();
+
+                    final int cmp = lrow.compareTo(rrow);
+
+                    if (cmp < 0) {
+
+                        lrow = next(litr, l);
+
+                    } else if (cmp > 0) {
+
+                        rrow = next(ritr, r);
+
+                    } else {
+
+                        // Buffer the right tuples for this value.
+                        final Row first = rrow;
+
+                        group.clear();
+
+                        do {
+
+                            group.add(rrow.spo);
+
+                            rrow = next(ritr, r);
+
+                        } while (rrow != null && first.compareTo(rrow) == 0);
+
+                        // Join each left tuple for this value.
+                        do {
+
+                            final IBindingSet tmp = bindingSet.clone();
+
+                            BOpContext.copyValues((IElement) lrow.spo, l.pred,
+                                    tmp);
+
+                            for (ISPO spo : group) {
+
+                                final IBindingSet out = tmp.clone();
+
+                                BOpContext.copyValues((IElement) spo, r.pred,
+                                        out);
+
+                                emit(out, unsyncBuffer);
+
+                            }
+
+                            lrow = next(litr, l);
+
+                        } while (lrow != null && lrow.compareTo(first) == 0);
+
+                    }
+
+                }
+
+                unsyncBuffer.flush();
+
+                return null;
+
+            }
+
+            private Row next(final ITupleIterator<ISPO> itr, final Side side) {
+
+                return itr.hasNext() ? new Row(itr.next(), side.prefixLength)
+                        : null;
+
+            }
+
+        }
+
+    } // class ChunkTask
+
+}
@@ -0,0 +1,70 @@
+/*
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.bop.solutions;
+
+import java.io.Serializable;
+
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IVariable;
+
+/**
+ * Batch materialization of the values bound on a chunk of solutions. This
+ * allows an operator such as the {@link MemorySortOp} to defer the
+ * materialization of the values it needs until it knows which solutions it
+ * will retain.
+ * 
+ * @see MemorySortOp.Annotations#MATERIALIZER
+ */
+public interface ISolutionMaterializer extends Serializable {
+
+    /**
+     * Materialize the values bound on the given variables for a chunk of
+     * solutions. Values which do not require materialization are left alone.
+     * 
+     * @param context
+     *            The evaluation context of the calling operator.
+     * @param namespace
+     *            The namespace of the relation from which the values are
+     *            materialized.
+     * @param timestamp
+     *            The timestamp of the view of that relation.
+     * @param vars
+     *            The variables whose bound values will be materialized.
+     * @param chunk
+     *            The solutions.
+     * 
+     * @return The solutions, in the same order, with their values
+     *         materialized.
+     */
+    IBindingSet[] materialize(BOpContext<IBindingSet> context,
+            String namespace, long timestamp, IVariable<?>[] vars,
+            IBindingSet[] chunk);
+
+}
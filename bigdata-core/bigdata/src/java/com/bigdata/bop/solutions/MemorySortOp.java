@@ -3,6 +3,7 @@ package com.bigdata.bop.solutions;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.FutureTask;
@@ -14,11 +15,13 @@ import com.bigdata.bop.BOpContext;
 import com.bigdata.bop.IBind;
 import com.bigdata.bop.IBindingSet;
 import com.bigdata.bop.IQueryAttributes;
+import com.bigdata.bop.ILocatableResourceAnnotations;
+import com.bigdata.bop.ITimestampAnnotations;
 import com.bigdata.bop.IValueExpression;
+import com.bigdata.bop.IVariable;
 import com.bigdata.bop.IVariableOrConstant;
 import com.bigdata.bop.engine.BOpStats;
 import com.bigdata.bop.engine.IRunningQuery;
-import com.bigdata.bop.solutions.SliceOp.Annotations;
 import com.bigdata.rdf.error.SparqlTypeErrorException;
 import com.bigdata.rdf.internal.IV;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
@@ -61,6 +64,24 @@ import cutthecrap.utils.striterators.ICloseableIterator;
  * solutions would probably be written as serialized binding sets on the memory
  * manager such that each solution has its own int32 address. That address can
  * then be paired with the as-bound key to be sorted on the JVM heap.
+ * <p>
+ * When a {@link Annotations#LIMIT} is specified (a top-k ORDER BY followed by
+ * a SLICE) only the best <i>limit</i> solutions are retained. The buffered
+ * solutions are sorted and truncated each time the buffer grows to twice the
+ * limit, so the heap demand is bounded by the limit rather than by the #of
+ * source solutions. Since the sort is stable, the solutions are identical to
+ * the first <i>limit</i> solutions of a full sort.
+ * <p>
+ * When a {@link Annotations#MATERIALIZER} is also specified, the variables on
+ * which the sort is imposed are materialized by this operator rather than by
+ * the upstream operators. Once <i>limit</i> solutions have been retained, a
+ * source solution is dropped without being materialized when it is known to
+ * be ordered after the last retained solution. That is known when the values
+ * of the solution are inline (or already materialized), or when they differ
+ * from the values of that solution in their kind (unbound, blank node,
+ * statement, IRI or literal). The remaining solutions are materialized in
+ * batches each time the buffer is truncated, so the lexicon is only read for
+ * the solutions which could still be output.
  * 
  * @author <a href="mailto:thompsonbry@users.sourceforge.net">Bryan Thompson</a>
  * @version $Id: DistinctElementFilter.java 3466 2010-08-27 14:28:04Z
@@ -75,6 +96,42 @@ public class MemorySortOp extends SortOp {
      */
     private static final long serialVersionUID = 1L;
 
+    public interface Annotations extends SortOp.Annotations {
+
+        /**
+         * The maximum #of solutions which will be output by the operator
+         * (default {@value #DEFAULT_LIMIT}, which is all). This is the OFFSET
+         * plus the LIMIT of a SLICE which consumes the ordered solutions
+         * without changing their cardinality (no DISTINCT or REDUCED).
+         */
+        String LIMIT = MemorySortOp.class.getName() + ".limit";
+
+        long DEFAULT_LIMIT = Long.MAX_VALUE;
+
+        /**
+         * An optional {@link ISolutionMaterializer}. When specified, the
+         * values bound on the variables of the {@link #SORT_ORDER} are
+         * materialized by this operator using the {@link #RELATION_NAME} and
+         * the {@link #TIMESTAMP}. Each value expression of the
+         * {@link #SORT_ORDER} MUST be a bare variable. This is only useful
+         * together with a {@link #LIMIT}.
+         */
+        String MATERIALIZER = MemorySortOp.class.getName() + ".materializer";
+
+        /**
+         * The namespace of the relation against which the values are
+         * materialized (required with a {@link #MATERIALIZER}).
+         */
+        String RELATION_NAME = ILocatableResourceAnnotations.RELATION_NAME;
+
+        /**
+         * The timestamp of the view of that relation (required with a
+         * {@link #MATERIALIZER}).
+         */
+        String TIMESTAMP = ITimestampAnnotations.TIMESTAMP;
+
+    }
+
     /**
      * Constructor required for {@link com.bigdata.bop.BOpUtility#deepCopy(FilterNode)}.
      */
@@ -127,8 +184,47 @@ public class MemorySortOp extends SortOp {
                     "Value expression not wrapped by bind: " + expr);
 
         }
+
+        if (getLimit() < 0L)
+            throw new IllegalArgumentException(Annotations.LIMIT + "="
+                    + getLimit());
+
+        if (getMaterializer() != null) {
+
+            getRequiredProperty(Annotations.RELATION_NAME);
+
+            getRequiredProperty(Annotations.TIMESTAMP);
+
+            for (ISortOrder<?> s : getSortOrder()) {
+
+                if (!(s.getExpr() instanceof IVariable<?>))
+                    throw new IllegalArgumentException(
+                            Annotations.MATERIALIZER
+                                    + " requires variables: " + s.getExpr());
+
+            }
+
+        }
         
 	}
+
+    /**
+     * @see Annotations#LIMIT
+     */
+    public long getLimit() {
+
+        return getProperty(Annotations.LIMIT, Annotations.DEFAULT_LIMIT);
+
+    }
+
+    /**
+     * @see Annotations#MATERIALIZER
+     */
+    public ISolutionMaterializer getMaterializer() {
+
+        return (ISolutionMaterializer) getProperty(Annotations.MATERIALIZER);
+
+    }
     
     @Override
     public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
@@ -150,6 +246,23 @@ public class MemorySortOp extends SortOp {
 
         private final ISortOrder<?>[] sortOrder;
 
+        /**
+         * The maximum #of solutions to retain.
+         */
+        private final long limit;
+
+        /**
+         * The object used to materialize the variables on which the sort is
+         * imposed -or- <code>null</code> if they were materialized upstream.
+         */
+        private final ISolutionMaterializer materializer;
+
+        /**
+         * The variables on which the sort is imposed (only when there is a
+         * {@link #materializer}).
+         */
+        private final IVariable<?>[] vars;
+
         /**
          * The {@link IQueryAttributes} for the {@link IRunningQuery} off which
          * we will hang the named solution set.
@@ -167,6 +280,22 @@ public class MemorySortOp extends SortOp {
          * the {@link IQueryAttributes}.
          */
         private final String key;
+
+        /**
+         * The last of the retained solutions once the buffer has been
+         * truncated with a {@link #materializer} and <code>null</code> until
+         * then. Since the retained solutions are the first {@link #limit}
+         * buffered solutions and are materialized, only the solutions which
+         * follow them need to be materialized. A reference to this object is
+         * stored on the {@link IQueryAttributes}.
+         */
+        private transient IBindingSet threshold;
+
+        /**
+         * The name of the key under which the {@link #threshold} is stored in
+         * the {@link IQueryAttributes}.
+         */
+        private final String thresholdKey;
         
         @SuppressWarnings("unchecked")
         SortTask(final MemorySortOp op,
@@ -179,10 +308,32 @@ public class MemorySortOp extends SortOp {
             this.stats = context.getStats();
 
             this.sortOrder = op.getSortOrder();
+
+            this.limit = op.getLimit();
+
+            this.materializer = op.getMaterializer();
+
+            if (materializer != null) {
+
+                vars = new IVariable<?>[sortOrder.length];
+
+                for (int i = 0; i < sortOrder.length; i++) {
+
+                    vars[i] = (IVariable<?>) sortOrder[i].getExpr();
+
+                }
+
+            } else {
+
+                vars = null;
+
+            }
         
             this.attrs = context.getQueryAttributes();
             
             this.key = Integer.toString(op.getId());
+
+            this.thresholdKey = key + ".threshold";
                     
             solutions = (LinkedList<IBindingSet>) attrs.get(key);
 
@@ -194,6 +345,8 @@ public class MemorySortOp extends SortOp {
                     throw new AssertionError();
                 
             }
+
+            threshold = (IBindingSet) attrs.get(thresholdKey);
             
         }
 
@@ -203,8 +356,12 @@ public class MemorySortOp extends SortOp {
                 log.info("Releasing state");
 
             attrs.remove(key);
+
+            attrs.remove(thresholdKey);
             
             solutions = null;
+
+            threshold = null;
             
         }
 
@@ -296,11 +453,26 @@ public class MemorySortOp extends SortOp {
                             
                         }
 
+                        if (threshold != null && isExcluded(bset)) {
+
+                            // Can not be output: not materialized.
+                            continue;
+
+                        }
+
                         // add to the set of solutions to be sorted.
                         solutions.add(bset);
 
                     } // next source solution
 
+                    if (limit < Integer.MAX_VALUE / 2
+                            && solutions.size() > 2 * limit) {
+
+                        // Discard the solutions which can not be output.
+                        truncate();
+
+                    }
+
 //                    /*
 //                     * Note: By synchronizing on [stats] here we are able to run
 //                     * concurrent evaluation tasks for this operator which
@@ -325,6 +497,182 @@ public class MemorySortOp extends SortOp {
         
         } // acceptSolutions
 
+        /**
+         * Sort the buffered solutions and retain only the first {@link #limit}
+         * solutions. The retained solutions are ordered, and precede any
+         * solutions buffered later, so the stable sort of the final buffer
+         * has the same result as a sort of all source solutions.
+         */
+        private void truncate() {
+
+            if (limit == 0L) {
+
+                solutions.clear();
+
+                return;
+
+            }
+
+            materialize();
+
+            final IBindingSet[] all = sort();
+
+            solutions.clear();
+
+            solutions.addAll(Arrays.asList(all).subList(0, (int) limit));
+
+            if (materializer != null) {
+
+                threshold = all[(int) limit - 1];
+
+                attrs.put(thresholdKey, threshold);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info("Retained " + limit + " of " + all.length
+                        + " solutions");
+
+        }
+
+        /**
+         * Return <code>true</code> iff the solution is known to be ordered
+         * after the {@link #threshold} (and hence can not be output) without
+         * materializing it. The values of the solution are compared with those
+         * of the {@link #threshold} in turn. A value can be compared when it is
+         * unbound, a blank node or a statement, when it is inline (or already
+         * materialized) or when it differs in its kind from the value of the
+         * {@link #threshold} (the kinds are ordered as by the
+         * {@link IVComparator}). The solution is not known to be excluded once
+         * a value can not be compared. A solution which is equal to the
+         * {@link #threshold} is excluded since it was buffered later.
+         */
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private boolean isExcluded(final IBindingSet bset) {
+
+            final Comparator c = op.getValueComparator();
+
+            for (ISortOrder<?> s : sortOrder) {
+
+                final IV v1 = (IV) s.getExpr().get(bset);
+
+                final IV v2 = (IV) s.getExpr().get(threshold);
+
+                final int k1 = kind(v1);
+
+                final int k2 = kind(v2);
+
+                int ret;
+
+                if (k1 != k2) {
+
+                    ret = k1 < k2 ? -1 : 1;
+
+                } else if (k1 <= 2 || !v1.needsMaterialization()
+                        || v1.hasValue()) {
+
+                    ret = c.compare(v1, v2);
+
+                } else {
+
+                    // Not known without materializing the value.
+                    return false;
+
+                }
+
+                if (!s.isAscending())
+                    ret = -ret;
+
+                if (ret != 0)
+                    return ret > 0;
+
+            }
+
+            return true;
+
+        }
+
+        /**
+         * Return the kind of a value in the order imposed by the
+         * {@link IVComparator}: unbound, blank node, statement, IRI, literal.
+         * The kind of an {@link IV} is known without materializing it.
+         */
+        @SuppressWarnings("rawtypes")
+        private static int kind(final IV iv) {
+
+            if (iv == null)
+                return 0;
+
+            if (iv.isBNode())
+                return 1;
+
+            if (iv.isStatement())
+                return 2;
+
+            if (iv.isURI())
+                return 3;
+
+            return 4;
+
+        }
+
+        /**
+         * Materialize the variables on which the sort is imposed for the
+         * buffered solutions which follow the retained solutions (which were
+         * materialized when they were retained).
+         */
+        private void materialize() {
+
+            if (materializer == null)
+                return;
+
+            final List<IBindingSet> tail = solutions.subList(
+                    threshold == null ? 0 : (int) limit, solutions.size());
+
+            if (tail.isEmpty())
+                return;
+
+            final IBindingSet[] a = materializer.materialize(context,
+                    ((String[]) op
+                            .getRequiredProperty(Annotations.RELATION_NAME))[0],
+                    (Long) op.getRequiredProperty(Annotations.TIMESTAMP), vars,
+                    tail.toArray(new IBindingSet[tail.size()]));
+
+            tail.clear();
+
+            tail.addAll(Arrays.asList(a));
+
+            if (log.isInfoEnabled())
+                log.info("Materialized " + a.length + " solutions");
+
+        }
+
+        /**
+         * Return the buffered solutions in order.
+         */
+        private IBindingSet[] sort() {
+
+            final IBindingSet[] all = solutions.toArray(new IBindingSet[0]);
+
+            @SuppressWarnings({ "rawtypes", "unchecked" })
+            final Comparator<IBindingSet> c = new BindingSetComparator(
+                    sortOrder, op.getValueComparator());
+
+            final long begin = System.currentTimeMillis();
+
+            // Note: Arrays.sort() is stable for objects.
+            Arrays.sort(all, c);
+
+            final long elapsed = System.currentTimeMillis() - begin;
+
+            if (log.isInfoEnabled())
+                log.info("Sorted " + all.length + " solutions in " + elapsed
+                        + "ms.");
+
+            return all;
+
+        }
+
         /**
          * Sort the solutions based on the as-bound value expressions.
          * 
@@ -336,25 +684,15 @@ public class MemorySortOp extends SortOp {
             if (log.isInfoEnabled())
                 log.info("Sorting.");
 
-            final IBindingSet[] all = solutions.toArray(new IBindingSet[0]);
-
-            @SuppressWarnings({ "rawtypes", "unchecked" })
-            final Comparator<IBindingSet> c = new BindingSetComparator(
-                    sortOrder, op.getValueComparator());
+            materialize();
 
-            // sort.
-            {
-                
-                final long begin = System.currentTimeMillis();
+            IBindingSet[] all = sort();
 
-                Arrays.sort(all, c);
+            if (all.length > limit) {
 
-                final long elapsed = System.currentTimeMillis() - begin;
+                // top-k: drop the solutions which can not be output.
+                all = Arrays.copyOf(all, (int) limit);
 
-                if (log.isInfoEnabled())
-                    log.info("Sorted " + all.length + " solutions in "
-                            + elapsed + "ms.");
-                
             }
 
             // Drop variables for computed value expressions.
@@ -774,6 +774,14 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
      *      dirty pages in an index)
      */
     final private int minDirtyListSizeForParallelEvict;
+
+    /**
+     * The optional cache of per-leaf {@link XorFilter}s (<code>null</code>
+     * unless enabled).
+     * 
+     * @see IndexMetadata.Options#LEAF_FILTER_CACHE_CAPACITY
+     */
+    final LeafFilterCache leafFilters;
     
 //    /**
 //     * The {@link #readRetentionQueue} reduces reads through to the backing
@@ -1132,9 +1140,34 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
         minDirtyListSizeForParallelEvict = Integer.parseInt(
                 System.getProperty(IndexMetadata.Options.MIN_DIRTY_LIST_SIZE_FOR_PARALLEL_EVICT,
                         IndexMetadata.Options.DEFAULT_MIN_DIRTY_LIST_SIZE_FOR_PARALLEL_EVICT));
+
+        // Optional per-leaf filters for negative point lookups.
+        {
+
+            final int leafFilterCacheCapacity = metadata
+                    .getLeafFilterCacheCapacity();
+
+            leafFilters = leafFilterCacheCapacity > 0 ? new LeafFilterCache(
+                    leafFilterCacheCapacity) : null;
+
+        }
         
     }
 
+    /**
+     * Return the optional cache of per-leaf {@link XorFilter}s.
+     * 
+     * @return The cache -or- <code>null</code> if per-leaf filters are not
+     *         enabled.
+     * 
+     * @see IndexMetadata.Options#LEAF_FILTER_CACHE_CAPACITY
+     */
+    public LeafFilterCache getLeafFilterCache() {
+
+        return leafFilters;
+
+    }
+
     /**
      * Note: Method is package private since it must be overridden for some unit
      * tests.
@@ -1321,6 +1354,10 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
 
         // release the optional bloom filter.
         bloomFilter = null;
+
+        // release the optional leaf filters.
+        if (leafFilters != null)
+            leafFilters.clear();
         
     }
 
@@ -4412,8 +4449,8 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
 
             final long beginNanos = System.nanoTime();
             
-            // wrap as ByteBuffer and write on the store.
-            addr = store.write(slice.asByteBuffer());
+            // wrap as ByteBuffer, compress (optional) and write on the store.
+            addr = store.write(nodeSer.compress(slice.asByteBuffer()));
             
             // now we have a new address, delete previous identity if any
             if (node.isPersistent()) {
@@ -4450,6 +4487,13 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
 
         node.setDirty(false);
 
+        if (leafFilters != null && node.isLeaf()) {
+
+            // Filter for negative lookups once the leaf is evicted.
+            leafFilters.put(addr, (Leaf) node);
+
+        }
+
         if (parent != null) {
 
             // Set the persistent identity of the child on the parent.
@@ -4583,6 +4627,13 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
             // wrap as Node or Leaf.
             final AbstractNode<?> node = nodeSer.wrap(this, addr, data);
 
+            if (leafFilters != null && data.isLeaf()) {
+
+                // Filter for negative lookups once the leaf is evicted.
+                leafFilters.put(addr, (ILeafData) data);
+
+            }
+
             // Note: The de-serialization ctor already does this.
 //            node.setDirty(false);
 
@@ -4896,6 +4947,13 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
 			
 		}
 
+		if (leafFilters != null) {
+
+			// The address may be recycled for another record.
+			leafFilters.remove(addr);
+
+		}
+
 		btreeCounters.bytesOnStore_nodesAndLeaves.addAndGet(-recycle(addr));
 
     }
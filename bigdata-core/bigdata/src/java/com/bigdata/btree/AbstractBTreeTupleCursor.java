@@ -36,6 +36,7 @@ import com.bigdata.btree.Leaf.ILeafListener;
 import com.bigdata.btree.isolation.IsolatedFusedView;
 import com.bigdata.btree.view.FusedView;
 import com.bigdata.io.DataOutputBuffer;
+import com.bigdata.journal.Journal;
 import com.bigdata.mdi.LocalPartitionMetadata;
 import com.bigdata.util.BytesUtil;
 
@@ -2216,6 +2217,18 @@ abstract public class AbstractBTreeTupleCursor<I extends AbstractBTree, L extend
                 final ILeafCursor<Leaf> leafCursor, final int index,
                 final byte[] key) {
 
+            if (btree.isReadOnly() && btree.getStore() instanceof Journal) {
+
+                /*
+                 * Read ahead the sibling leaves as the cursor advances so the
+                 * IOs for a cold range scan are issued concurrently.
+                 */
+                ((BTree.LeafCursor) leafCursor).setReadAhead(
+                        ((Journal) btree.getStore()).getReadAheadLeaves(),
+                        getInclusiveLowerBound(), getExclusiveUpperBound());
+
+            }
+
             return new ReadOnlyCursorPosition<E>(this, leafCursor, index, key);
 
         }
@@ -26,9 +26,13 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
  */
 package com.bigdata.btree;
 
+import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
@@ -40,12 +44,15 @@ import com.bigdata.btree.data.INodeData;
 import com.bigdata.io.ByteArrayBuffer;
 import com.bigdata.journal.AbstractJournal;
 import com.bigdata.journal.IIndexManager;
+import com.bigdata.journal.Journal;
 import com.bigdata.mdi.IResourceMetadata;
 import com.bigdata.mdi.JournalMetadata;
 import com.bigdata.mdi.LocalPartitionMetadata;
+import com.bigdata.rawstore.IAddressFilter;
 import com.bigdata.rawstore.IRawStore;
 import com.bigdata.rwstore.IRWStrategy;
 import com.bigdata.util.Bytes;
+import com.bigdata.util.BytesUtil;
 
 /**
  * <p>
@@ -1335,6 +1342,96 @@ public class BTree extends AbstractBTree implements //ICommitter,
 
     }
 
+    /**
+     * Relocate the clean nodes and leaves whose persistent address is selected
+     * by the filter. Such nodes and leaves are made mutable using the normal
+     * copy-on-write protocol, so they are written onto new addresses by the
+     * next checkpoint and their old addresses are released through the normal
+     * (deferred) free protocol of the backing store. Any clean parents of a
+     * relocated node or leaf are copied as well.
+     * <p>
+     * All nodes are read, but a leaf is only read if it must be relocated
+     * since its address is available from its parent. Raw records referenced
+     * from the leaves are not relocated.
+     * 
+     * @param filter
+     *            Selects the addresses to be relocated.
+     * 
+     * @return The #of nodes and leaves which were selected by the filter and
+     *         copied.
+     * 
+     * @see com.bigdata.journal.OnlineCompactTask
+     */
+    public long relocate(final IAddressFilter filter) {
+
+        if (filter == null)
+            throw new IllegalArgumentException();
+
+        assertNotTransient();
+        
+        assertNotReadOnly();
+
+        final AtomicLong counter = new AtomicLong();
+
+        relocate(getRoot(), 0/* depth */, filter, counter);
+
+        if (log.isInfoEnabled())
+            log.info("Relocated " + counter + " nodes and leaves: "
+                    + metadata.getName());
+
+        return counter.get();
+
+    }
+
+    /**
+     * Relocate the node or leaf (if selected) and its descendants.
+     * <p>
+     * Note: Copy-on-write of a child will also copy its parent if the parent
+     * is clean. The node is therefore re-read from the child after each child
+     * is processed.
+     * 
+     * @return The current version of the node or leaf.
+     */
+    private AbstractNode<?> relocate(AbstractNode<?> node, final int depth,
+            final IAddressFilter filter, final AtomicLong counter) {
+
+        if (!node.isDirty() && filter.accept(node.getIdentity())) {
+
+            node = node.isLeaf() ? node.copyOnWrite() : node
+                    .copyOnWrite(IRawStore.NULL);
+
+            counter.incrementAndGet();
+
+        }
+
+        if (node.isLeaf())
+            return node;
+
+        Node p = (Node) node;
+
+        // true iff the children of this node are leaves.
+        final boolean leaves = depth + 1 == getHeight();
+
+        for (int i = 0; i < p.getChildCount(); i++) {
+
+            final long addr = p.getChildAddr(i);
+
+            if (leaves && (addr == IRawStore.NULL || !filter.accept(addr))) {
+                // Do not read a leaf unless it will be relocated.
+                continue;
+            }
+
+            final AbstractNode<?> child = relocate(p.getChild(i), depth + 1,
+                    filter, counter);
+
+            p = child.getParent();
+
+        }
+
+        return p;
+
+    }
+
     /**
      * Remove all entries in the B+Tree.
      * <p>
@@ -1494,7 +1591,62 @@ public class BTree extends AbstractBTree implements //ICommitter,
              */
 
             newRootLeaf();
-   
+
+    }
+
+    /**
+     * Replace the (empty) root leaf with a root node or leaf which was written
+     * onto the backing store by a {@link BTreeBulkBuilder}. The nodes and
+     * leaves of the new tree are already persistent, so the next checkpoint
+     * only needs to record the address of the new root. This is a low level
+     * method.
+     *
+     * @param addrRoot
+     *            The address of the new root node or leaf.
+     * @param height
+     *            The height of the new tree.
+     * @param nnodes
+     *            The #of nodes in the new tree.
+     * @param nleaves
+     *            The #of leaves in the new tree.
+     * @param nentries
+     *            The #of tuples in the new tree.
+     *
+     * @throws IllegalStateException
+     *             if the {@link BTree} is not empty.
+     */
+    void installBulkRoot(final long addrRoot, final int height,
+            final long nnodes, final long nleaves, final long nentries) {
+
+        assertNotReadOnly();
+
+        if (this.nentries != 0L)
+            throw new IllegalStateException();
+
+        if (root != null && root.isPersistent()) {
+
+            // Release the old (empty) root leaf.
+            deleteNodeOrLeaf(root.getIdentity());
+
+        }
+
+        // Note: Discards the old root leaf if it was dirty.
+        writeRetentionQueue.clear(true/* clearRefs */);
+
+        ndistinctOnWriteRetentionQueue = 0;
+
+        root = readNodeOrLeaf(addrRoot);
+
+        this.height = height;
+
+        this.nnodes = nnodes;
+
+        this.nleaves = nleaves;
+
+        this.nentries = nentries;
+
+        fireDirtyEvent();
+
     }
 
     /**
@@ -2448,6 +2600,209 @@ public class BTree extends AbstractBTree implements //ICommitter,
          */
         private Leaf leaf;
 
+        /**
+         * The maximum #of leaves which will be scheduled for materialization
+         * ahead of the current leaf and which may be in flight at any given
+         * time (ZERO disables read ahead).
+         * 
+         * @see #setReadAhead(int, byte[], byte[])
+         */
+        private int readAhead = 0;
+
+        /**
+         * The optional inclusive lower bound and exclusive upper bound of the
+         * key-range which will be visited. Leaves outside of that key-range
+         * are not read ahead.
+         */
+        private byte[] readAheadFromKey, readAheadToKey;
+
+        /**
+         * The parent whose children were most recently scheduled by read
+         * ahead and the index of the last child scheduled. These are used to
+         * avoid scheduling the same leaf more than once.
+         */
+        private Node readAheadParent = null;
+        private int readAheadIndex = -1;
+
+        /**
+         * The #of read ahead tasks which have been scheduled and which have
+         * not yet completed.
+         */
+        private AtomicInteger readAheadInFlight = null;
+
+        /**
+         * Enable the asynchronous materialization of the sibling leaves
+         * which lie ahead of the cursor each time it visits a new leaf in a
+         * given direction. The leaves are read by the
+         * {@link Journal#getReadAheadExecutor()}, so concurrent IOs are issued
+         * against the backing store rather than one IO at a time as the
+         * cursor advances. Only leaves which are children of the same parent
+         * as the current leaf are read ahead.
+         * <p>
+         * Note: This is only safe for a read-only {@link BTree} since leaves
+         * are materialized concurrently by other threads.
+         * 
+         * @param nleaves
+         *            The maximum #of leaves to read ahead (ZERO disables read
+         *            ahead).
+         * @param fromKey
+         *            The optional inclusive lower bound of the scan.
+         * @param toKey
+         *            The optional exclusive upper bound of the scan.
+         * 
+         * @see Journal.Options#READ_AHEAD_LEAVES
+         */
+        public void setReadAhead(final int nleaves, final byte[] fromKey,
+                final byte[] toKey) {
+
+            if (nleaves < 0)
+                throw new IllegalArgumentException();
+
+            if (nleaves > 0 && !isReadOnly())
+                throw new UnsupportedOperationException();
+
+            this.readAhead = nleaves;
+
+            this.readAheadFromKey = fromKey;
+
+            this.readAheadToKey = toKey;
+
+            if (nleaves > 0 && readAheadInFlight == null)
+                readAheadInFlight = new AtomicInteger();
+
+        }
+
+        /**
+         * Schedule the materialization of up to {@link #readAhead} leaves
+         * following (or preceding) the current leaf within its parent
+         * (non-blocking). Leaves which are already materialized and leaves
+         * which lie outside of the key-range of the scan are skipped.
+         * 
+         * @param forward
+         *            <code>true</code> iff the cursor is moving forward.
+         */
+        private void readAhead(final boolean forward) {
+
+            if (readAhead == 0 || stack.size() == 0)
+                return;
+
+            if (!(store instanceof Journal))
+                return;
+
+            final Executor s = ((Journal) store).getReadAheadExecutor();
+
+            if (s == null)
+                return;
+
+            final Node p = stack.peek();
+
+            final int index = p.getIndexOf(leaf);
+
+            final int nkeys = p.getKeyCount();
+
+            final int step = forward ? 1 : -1;
+
+            int i = index + step;
+
+            if (p == readAheadParent) {
+
+                // Do not schedule leaves which were already scheduled.
+                i = forward ? Math.max(i, readAheadIndex + 1) : Math.min(i,
+                        readAheadIndex - 1);
+
+            }
+
+            for (; Math.abs(i - index) <= readAhead && i >= 0 && i <= nkeys; i += step) {
+
+                /*
+                 * Child [i] spans [keys[i-1], keys[i]). Stop once the child
+                 * lies entirely outside of the key-range of the scan.
+                 */
+                if (forward && i > 0 && readAheadToKey != null
+                        && BytesUtil.compareBytes(p.getKeys().get(i - 1),
+                                readAheadToKey) >= 0)
+                    break;
+
+                if (!forward && i < nkeys && readAheadFromKey != null
+                        && BytesUtil.compareBytes(p.getKeys().get(i),
+                                readAheadFromKey) <= 0)
+                    break;
+
+                if (readAheadInFlight.get() >= readAhead) {
+
+                    // Do not exceed the in-flight window.
+                    break;
+
+                }
+
+                readAheadParent = p;
+
+                readAheadIndex = i;
+
+                final Reference<AbstractNode<?>> ref = p.getChildRef(i);
+
+                if (ref != null && ref.get() != null) {
+
+                    // Already materialized.
+                    continue;
+
+                }
+
+                final int childIndex = i;
+
+                final AtomicInteger inFlight = readAheadInFlight;
+
+                inFlight.incrementAndGet();
+
+                try {
+
+                    /*
+                     * Note: We do not track the future of this task. The task
+                     * has a side effect on the parent/child references among
+                     * the nodes in the B+Tree and on the hard reference queue.
+                     * That side effect is all that we are seeking. If the
+                     * B+Tree is concurrently closed, then the task will error
+                     * out. That is fine.
+                     */
+                    s.execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+
+                            try {
+
+                                if (!p.btree.isOpen()) {
+
+                                    // No longer open.
+                                    return;
+
+                                }
+
+                                // Materialize the child.
+                                p.getChild(childIndex);
+
+                            } finally {
+
+                                inFlight.decrementAndGet();
+
+                            }
+
+                        }
+
+                    });
+
+                } catch (RejectedExecutionException ex) {
+
+                    inFlight.decrementAndGet();
+
+                    return;
+
+                }
+
+            }
+
+        }
+
         @Override
         public Leaf leaf() {
             
@@ -2682,7 +3037,11 @@ public class BTree extends AbstractBTree implements //ICommitter,
                 
             }
             
-            return leaf = (Leaf) sibling;
+            leaf = (Leaf) sibling;
+
+            readAhead(true/* forward */);
+
+            return leaf;
             
         }
 
@@ -2784,7 +3143,11 @@ public class BTree extends AbstractBTree implements //ICommitter,
                 
             }
             
-            return leaf = (Leaf) sibling;
+            leaf = (Leaf) sibling;
+
+            readAhead(false/* forward */);
+
+            return leaf;
             
         }
         
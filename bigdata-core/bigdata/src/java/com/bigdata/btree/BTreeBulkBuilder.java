@@ -0,0 +1,615 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.btree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.bigdata.btree.data.IAbstractNodeData;
+import com.bigdata.btree.data.ILeafData;
+import com.bigdata.btree.raba.MutableKeyBuffer;
+import com.bigdata.btree.raba.MutableValueBuffer;
+import com.bigdata.io.AbstractFixedByteArrayBuffer;
+import com.bigdata.util.BytesUtil;
+
+/**
+ * Builds the nodes and leaves of an empty, mutable {@link BTree} bottom-up
+ * from tuples presented in strictly ascending key order. This is the same
+ * strategy used by the {@link IndexSegmentBuilder}, except that the nodes and
+ * leaves are written onto the backing store of the {@link BTree} and the new
+ * root is installed on the {@link BTree} by {@link #close()}. The
+ * {@link BTree} is then checkpointed normally (e.g., by the next commit of
+ * the journal).
+ * <p>
+ * Each node and leaf is filled to the branching factor. One full node or leaf
+ * is held back on each level so that the last two siblings on that level can
+ * be rebalanced once the input is exhausted, which keeps every node and leaf
+ * other than the root at or above the minimum fill. The memory demand is
+ * therefore proportional to the height of the tree rather than to the #of
+ * tuples.
+ * <p>
+ * Version timestamps and raw records are not supported. When delete markers
+ * are enabled, every tuple is written as a non-deleted tuple. The optional
+ * bloom filter is populated (or disabled) exactly as it would be by
+ * {@link BTree#insert(byte[], byte[])}.
+ * <p>
+ * Note: This class is not thread-safe. The caller must hold the write lock
+ * for the {@link BTree}, e.g., by running within an index procedure.
+ */
+public class BTreeBulkBuilder {
+
+    private final BTree btree;
+
+    /**
+     * The branching factor of the {@link BTree}.
+     */
+    private final int m;
+
+    private final boolean deleteMarkers;
+
+    /**
+     * The leaves (index ZERO) and then the nodes from the bottom up.
+     */
+    private final List<Level> levels = new ArrayList<Level>();
+
+    /**
+     * The last key presented to {@link #add(byte[], byte[])}.
+     */
+    private byte[] lastKey = null;
+
+    /**
+     * The last key in the last leaf written onto the store.
+     */
+    private byte[] lastKeyWritten = null;
+
+    private BloomFilter bloomFilter;
+
+    private long nentries = 0L;
+
+    private long nnodes = 0L;
+
+    private long nleaves = 0L;
+
+    private boolean closed = false;
+
+    /**
+     * @param btree
+     *            An empty, mutable {@link BTree}.
+     * 
+     * @throws IllegalArgumentException
+     *             if <i>btree</i> is <code>null</code>.
+     * @throws IllegalStateException
+     *             if the <i>btree</i> is not empty.
+     * @throws UnsupportedOperationException
+     *             if the <i>btree</i> is read-only, is transient, or uses
+     *             version timestamps or raw records.
+     */
+    public BTreeBulkBuilder(final BTree btree) {
+
+        if (btree == null)
+            throw new IllegalArgumentException();
+
+        btree.assertNotReadOnly();
+
+        if (btree.getStore() == null)
+            throw new UnsupportedOperationException("Transient");
+
+        final IndexMetadata md = btree.getIndexMetadata();
+
+        if (md.getVersionTimestamps() || md.getRawRecords())
+            throw new UnsupportedOperationException(md.getName());
+
+        if (btree.getEntryCount() != 0L)
+            throw new IllegalStateException("Not empty: " + md.getName());
+
+        this.btree = btree;
+
+        this.m = btree.getBranchingFactor();
+
+        this.deleteMarkers = md.getDeleteMarkers();
+
+        this.bloomFilter = btree.getBloomFilter();
+
+        levels.add(new Level(0/* height */));
+
+    }
+
+    /**
+     * The #of tuples added so far.
+     */
+    public long getEntryCount() {
+
+        return nentries;
+
+    }
+
+    /**
+     * Add a tuple. The key MUST be strictly greater than the key of the
+     * previous tuple.
+     * 
+     * @param key
+     *            The key.
+     * @param val
+     *            The value (may be <code>null</code>).
+     * 
+     * @throws IllegalArgumentException
+     *             if the key is <code>null</code> or is not strictly greater
+     *             than the previous key.
+     * @throws IllegalStateException
+     *             if the builder is closed.
+     */
+    public void add(final byte[] key, final byte[] val) {
+
+        if (closed)
+            throw new IllegalStateException();
+
+        if (key == null)
+            throw new IllegalArgumentException();
+
+        if (lastKey != null && BytesUtil.compareBytes(lastKey, key) >= 0)
+            throw new IllegalArgumentException("Key out of order: key="
+                    + BytesUtil.toString(key) + ", lastKey="
+                    + BytesUtil.toString(lastKey));
+
+        final Level leaves = levels.get(0);
+
+        if (leaves.n == m)
+            leaves.shift();
+
+        leaves.keys[leaves.n] = key;
+        leaves.vals[leaves.n] = val;
+        leaves.n++;
+
+        lastKey = key;
+
+        nentries++;
+
+        if (bloomFilter != null) {
+
+            if (nentries > bloomFilter.getMaxN()) {
+
+                // Same policy as AbstractBTree#insert().
+                btree.recycle(bloomFilter.disable());
+
+                bloomFilter = null;
+
+            } else {
+
+                bloomFilter.add(key);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Write any buffered nodes and leaves and install the new root on the
+     * {@link BTree}. This is a NOP if no tuples were added. The builder may
+     * not be used once it has been closed.
+     * 
+     * @return The #of tuples written.
+     */
+    public long close() {
+
+        if (closed)
+            throw new IllegalStateException();
+
+        closed = true;
+
+        if (nentries == 0L)
+            return 0L;
+
+        for (int h = 0; h < levels.size(); h++) {
+
+            final Level level = levels.get(h);
+
+            if (level.n == 0) {
+
+                // The held back record is the last one on this level.
+                level.swap();
+
+            }
+
+            if (level.pending == null && level.nwritten == 0) {
+
+                // Everything on this level fits in one record : the root.
+                final long addrRoot = level.write(level.asRecord());
+
+                btree.installBulkRoot(addrRoot, h/* height */, nnodes,
+                        nleaves, nentries);
+
+                return nentries;
+
+            }
+
+            if (level.pending != null) {
+
+                level.rebalance();
+
+                level.emit(level.pending);
+
+                level.pending = null;
+
+            }
+
+            level.emit(level.asRecord());
+
+            level.n = 0;
+
+        }
+
+        // Note: the loop always terminates at the root.
+        throw new AssertionError();
+
+    }
+
+    /**
+     * Write a coded node or leaf onto the store.
+     */
+    private long write(final IAbstractNodeData data) {
+
+        final NodeSerializer nodeSer = btree.getNodeSerializer();
+
+        final BTreeCounters btreeCounters = btree.getBtreeCounters();
+
+        final long beginNanos = System.nanoTime();
+
+        final IAbstractNodeData coded = nodeSer.encodeLive(data);
+
+        final AbstractFixedByteArrayBuffer slice = coded.data();
+
+        btreeCounters.serializeNanos.add(System.nanoTime() - beginNanos);
+
+        final long beginWriteNanos = System.nanoTime();
+
+        final long addr = btree.getStore().write(
+                nodeSer.compress(slice.asByteBuffer()));
+
+        final int nbytes = btree.getStore().getByteCount(addr);
+
+        btreeCounters.writeNanos.add(System.nanoTime() - beginWriteNanos);
+
+        btreeCounters.bytesWritten.add(nbytes);
+
+        btreeCounters.bytesOnStore_nodesAndLeaves.addAndGet(nbytes);
+
+        if (data.isLeaf()) {
+
+            btreeCounters.leavesWritten.increment();
+
+            if (btree.leafFilters != null) {
+
+                btree.leafFilters.put(addr, (ILeafData) coded);
+
+            }
+
+            nleaves++;
+
+        } else {
+
+            btreeCounters.nodesWritten.increment();
+
+            nnodes++;
+
+        }
+
+        return addr;
+
+    }
+
+    /**
+     * The record being filled on some level of the tree together with the
+     * full record which is being held back for rebalancing.
+     * <p>
+     * On the leaf level, {@link #keys} and {@link #vals} are the tuples. On a
+     * node level, {@link #keys}[i] is the separator key between the i<sup>th</sup>
+     * child and the child which precedes it on the same level (whether or not
+     * that child is in the same node), {@link #addrs}[i] is the address of the
+     * child and {@link #counts}[i] is the #of tuples spanned by the child. The
+     * first separator key is <code>null</code> for the first child on a level.
+     */
+    private class Level {
+
+        final int height;
+
+        byte[][] keys;
+
+        byte[][] vals;
+
+        long[] addrs;
+
+        long[] counts;
+
+        int n;
+
+        /**
+         * The full record held back for rebalancing (or <code>null</code>).
+         */
+        Level pending;
+
+        /**
+         * The #of records written for this level.
+         */
+        long nwritten;
+
+        Level(final int height) {
+
+            this.height = height;
+
+            keys = new byte[m][];
+
+            if (height == 0) {
+
+                vals = new byte[m][];
+
+            } else {
+
+                addrs = new long[m];
+
+                counts = new long[m];
+
+            }
+
+        }
+
+        private Level(final Level src) {
+
+            this.height = src.height;
+            this.keys = src.keys;
+            this.vals = src.vals;
+            this.addrs = src.addrs;
+            this.counts = src.counts;
+            this.n = src.n;
+
+        }
+
+        /**
+         * The current record is full: emit the held back record (if any), hold
+         * back the current record and start a new one.
+         */
+        void shift() {
+
+            if (pending != null)
+                emit(pending);
+
+            pending = new Level(this);
+
+            keys = new byte[m][];
+
+            if (height == 0) {
+
+                vals = new byte[m][];
+
+            } else {
+
+                addrs = new long[m];
+
+                counts = new long[m];
+
+            }
+
+            n = 0;
+
+        }
+
+        /**
+         * Make the held back record the current record.
+         */
+        void swap() {
+
+            if (pending == null)
+                return;
+
+            keys = pending.keys;
+            vals = pending.vals;
+            addrs = pending.addrs;
+            counts = pending.counts;
+            n = pending.n;
+
+            pending = null;
+
+        }
+
+        /**
+         * Move entries from the end of the held back record to the front of
+         * the current record until both are at least minimally full.
+         */
+        void rebalance() {
+
+            // Note: the same for nodes (#of children) and leaves (#of keys).
+            final int min = btree.minChildren;
+
+            if (n >= min)
+                return;
+
+            final int total = pending.n + n;
+
+            final int nmove = (total >> 1) - n;
+
+            System.arraycopy(keys, 0, keys, nmove, n);
+            System.arraycopy(pending.keys, pending.n - nmove, keys, 0, nmove);
+
+            if (height == 0) {
+
+                System.arraycopy(vals, 0, vals, nmove, n);
+                System.arraycopy(pending.vals, pending.n - nmove, vals, 0,
+                        nmove);
+
+            } else {
+
+                System.arraycopy(addrs, 0, addrs, nmove, n);
+                System.arraycopy(pending.addrs, pending.n - nmove, addrs, 0,
+                        nmove);
+
+                System.arraycopy(counts, 0, counts, nmove, n);
+                System.arraycopy(pending.counts, pending.n - nmove, counts, 0,
+                        nmove);
+
+            }
+
+            for (int i = pending.n - nmove; i < pending.n; i++) {
+
+                pending.keys[i] = null;
+
+                if (height == 0)
+                    pending.vals[i] = null;
+
+            }
+
+            pending.n -= nmove;
+
+            n += nmove;
+
+        }
+
+        /**
+         * Return a view of the current record.
+         */
+        Level asRecord() {
+
+            return new Level(this);
+
+        }
+
+        /**
+         * Write a record on the store and add it to the parent level.
+         */
+        void emit(final Level rec) {
+
+            assert rec.n > 0;
+
+            final long addr = write(rec);
+
+            // The separator key for this record in its parent.
+            final byte[] separatorKey;
+
+            final long count;
+
+            if (height == 0) {
+
+                separatorKey = lastKeyWritten == null ? null : BytesUtil
+                        .getSeparatorKey(rec.keys[0], lastKeyWritten);
+
+                lastKeyWritten = rec.keys[rec.n - 1];
+
+                count = rec.n;
+
+            } else {
+
+                separatorKey = rec.keys[0];
+
+                long sum = 0L;
+
+                for (int i = 0; i < rec.n; i++)
+                    sum += rec.counts[i];
+
+                count = sum;
+
+            }
+
+            nwritten++;
+
+            if (levels.size() == height + 1)
+                levels.add(new Level(height + 1));
+
+            final Level parent = levels.get(height + 1);
+
+            if (parent.n == m)
+                parent.shift();
+
+            parent.keys[parent.n] = separatorKey;
+            parent.addrs[parent.n] = addr;
+            parent.counts[parent.n] = count;
+            parent.n++;
+
+        }
+
+        /**
+         * Code and write a record.
+         */
+        long write(final Level rec) {
+
+            if (height == 0) {
+
+                final MutableKeyBuffer k = new MutableKeyBuffer(m + 1);
+
+                final MutableValueBuffer v = new MutableValueBuffer(m + 1);
+
+                for (int i = 0; i < rec.n; i++) {
+
+                    k.keys[i] = rec.keys[i];
+
+                    v.values[i] = rec.vals[i];
+
+                }
+
+                k.nkeys = rec.n;
+
+                v.nvalues = rec.n;
+
+                return BTreeBulkBuilder.this.write(new MutableLeafData(k, v,
+                        null/* versionTimestamps */,
+                        deleteMarkers ? new boolean[m + 1] : null,
+                        null/* rawRecords */));
+
+            }
+
+            // Note: the first separator key is carried by the parent.
+            final MutableKeyBuffer k = new MutableKeyBuffer(m);
+
+            final long[] childAddr = new long[m + 1];
+
+            final long[] childEntryCounts = new long[m + 1];
+
+            long sum = 0L;
+
+            for (int i = 0; i < rec.n; i++) {
+
+                if (i > 0)
+                    k.keys[i - 1] = rec.keys[i];
+
+                childAddr[i] = rec.addrs[i];
+
+                childEntryCounts[i] = rec.counts[i];
+
+                sum += rec.counts[i];
+
+            }
+
+            k.nkeys = rec.n - 1;
+
+            return BTreeBulkBuilder.this.write(new MutableNodeData(sum, k,
+                    childAddr, childEntryCounts,
+                    false/* hasVersionTimestamps */, 0L/* min */, 0L/* max */));
+
+        }
+
+    }
+
+}
@@ -159,6 +159,8 @@ final public class BTreeCounters implements Cloneable, ICounterSetAccess {
         cacheMisses.add(o.cacheMisses.get());
         nodesRead.add(o.nodesRead.get());
         leavesRead.add(o.leavesRead.get());
+        leafFilterRejects.add(o.leafFilterRejects.get());
+        leafFilterFalsePos.add(o.leafFilterFalsePos.get());
         bytesRead.add(o.bytesRead.get());
         readNanos.add(o.readNanos.get());
         deserializeNanos.add(o.deserializeNanos.get());
@@ -231,6 +233,8 @@ final public class BTreeCounters implements Cloneable, ICounterSetAccess {
         t.cacheMisses.add(-o.cacheMisses.get());
         t.nodesRead.add(-o.nodesRead.get());
         t.leavesRead.add(-o.leavesRead.get());
+        t.leafFilterRejects.add(-o.leafFilterRejects.get());
+        t.leafFilterFalsePos.add(-o.leafFilterFalsePos.get());
         t.bytesRead.add(-o.bytesRead.get());
         t.readNanos.add(-o.readNanos.get());
         t.deserializeNanos.add(-o.deserializeNanos.get());
@@ -360,6 +364,10 @@ final public class BTreeCounters implements Cloneable, ICounterSetAccess {
     public final CAT nodesRead = new CAT();
     /** #of leaf read operations. */
     public final CAT leavesRead = new CAT();
+    /** #of lookups rejected by a per-leaf filter without reading the leaf. */
+    public final CAT leafFilterRejects = new CAT();
+    /** #of lookups accepted by a per-leaf filter for a key not in the leaf. */
+    public final CAT leafFilterFalsePos = new CAT();
     /** Total bytes read for nodes and leaves (but not raw records). */;
     public final CAT bytesRead = new CAT();
     /** Read time for nodes and leaves (but not raw records). */
@@ -896,6 +904,20 @@ final public class BTreeCounters implements Cloneable, ICounterSetAccess {
                     }
                 });
 
+                tmp.addCounter("leafFilterRejects", new Instrument<Long>() {
+                    @Override
+                    protected void sample() {
+                        setValue(leafFilterRejects.get());
+                    }
+                });
+
+                tmp.addCounter("leafFilterFalsePos", new Instrument<Long>() {
+                    @Override
+                    protected void sample() {
+                        setValue(leafFilterFalsePos.get());
+                    }
+                });
+
                 tmp.addCounter("nodeReadCount", new Instrument<Long>() {
                     @Override
                     protected void sample() {
@@ -59,6 +59,8 @@ import com.bigdata.io.DirectBufferPool;
 import com.bigdata.io.LongPacker;
 import com.bigdata.io.SerializerUtil;
 import com.bigdata.io.compression.IRecordCompressorFactory;
+import com.bigdata.io.compression.LZ4HCRecordCompressorFactory;
+import com.bigdata.io.compression.LZ4RecordCompressorFactory;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.mdi.LocalPartitionMetadata;
 import com.bigdata.mdi.MetadataIndex;
@@ -605,12 +607,22 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
 
         /**
          * An optional factory providing record-level compression for the nodes
-         * and leaves of an {@link IndexSegment} (default
-         * {@value #DEFAULT_BTREE_RECORD_COMPRESSOR_FACTORY}).
+         * and leaves of a {@link BTree} (default
+         * {@value #DEFAULT_BTREE_RECORD_COMPRESSOR_FACTORY}). The coded nodes
+         * and leaves are compressed when they are written on the backing
+         * store and decompressed when they are read. Records which do not get
+         * smaller are written uncompressed, as are all records written before
+         * a factory was specified.
+         * <p>
+         * The {@link LZ4RecordCompressorFactory} and
+         * {@link LZ4HCRecordCompressorFactory} decompress much faster than the
+         * deflate based factories. A dictionary trained on the records of a
+         * given index can be used by setting an
+         * {@link LZ4RecordCompressorFactory} instance on the
+         * {@link IndexMetadata} when the index is registered (see
+         * {@link IndexMetadata#setBtreeRecordCompressorFactory(IRecordCompressorFactory)}).
          * 
          * @see #INDEX_SEGMENT_RECORD_COMPRESSOR_FACTORY
-         * 
-         * FIXME Record level compression support is not finished.
          */
         String BTREE_RECORD_COMPRESSOR_FACTORY = (BTree.class.getName()
                 + ".recordCompressorFactory").intern();
@@ -652,6 +664,33 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
          */
         String MIN_DIRTY_LIST_SIZE_FOR_PARALLEL_EVICT = BTree.class.getName()+".minDirtyListSizeForParallelEvict";
         String DEFAULT_MIN_DIRTY_LIST_SIZE_FOR_PARALLEL_EVICT = "5";
+
+        /**
+         * The maximum #of per-leaf {@link XorFilter}s retained by each
+         * {@link BTree} or {@link IndexSegment} (default
+         * {@value #DEFAULT_LEAF_FILTER_CACHE_CAPACITY}). When non-zero, a
+         * filter is built from the keys of each leaf as it is written or read
+         * and is consulted by point lookups (including
+         * {@link AbstractBTree#contains(byte[])}) before a leaf which is no
+         * longer in memory is read from the store. Unlike the
+         * {@link BloomFilter}, these filters are never disabled as the index
+         * grows. Each filter requires ~10 bits per key in the leaf. A value of
+         * ZERO (0) disables the per-leaf filters.
+         * <p>
+         * Note: The filters are not persisted with the leaves. Each
+         * {@link AbstractBTree} instance (including each read-only view of a
+         * historical commit point) starts with an empty cache and builds the
+         * filter for a leaf from its keys the first time that leaf is read or
+         * written by that instance. Opening many short-lived views of a large
+         * index therefore pays for rebuilding the filters of every leaf they
+         * touch.
+         * 
+         * @see LeafFilterCache
+         */
+        String LEAF_FILTER_CACHE_CAPACITY = BTree.class.getName()
+                + ".leafFilterCacheCapacity";
+
+        String DEFAULT_LEAF_FILTER_CACHE_CAPACITY = "0";
  
         
         /*
@@ -1101,6 +1140,10 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
     private int branchingFactor;
     private int writeRetentionQueueCapacity;
     private int writeRetentionQueueScan;
+    /**
+     * @see #VERSION5
+     */
+    private int leafFilterCacheCapacity;
 //    private int btreeReadRetentionQueueCapacity;
 //    private int btreeReadRetentionQueueScan;
     private LocalPartitionMetadata pmd;
@@ -1309,6 +1352,24 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
         
     }
 
+    /**
+     * @see Options#LEAF_FILTER_CACHE_CAPACITY
+     */
+    public final int getLeafFilterCacheCapacity() {
+        
+        return leafFilterCacheCapacity;
+        
+    }
+    
+    public final void setLeafFilterCacheCapacity(final int v) {
+        
+        if (v < 0)
+            throw new IllegalArgumentException();
+        
+        this.leafFilterCacheCapacity = v;
+        
+    }
+
 //    /**
 //     * @see Options#BTREE_READ_RETENTION_QUEUE_CAPACITY
 //     */
@@ -2070,6 +2131,11 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
                 Options.DEFAULT_WRITE_RETENTION_QUEUE_SCAN,
                 IntegerValidator.GTE_ZERO);
 
+        this.leafFilterCacheCapacity = getProperty(indexManager,
+                properties, namespace, Options.LEAF_FILTER_CACHE_CAPACITY,
+                Options.DEFAULT_LEAF_FILTER_CACHE_CAPACITY,
+                IntegerValidator.GTE_ZERO);
+
 //        this.btreeReadRetentionQueueCapacity = getProperty(indexManager,
 //                properties, namespace, Options.BTREE_READ_RETENTION_QUEUE_CAPACITY,
 //                Options.DEFAULT_BTREE_READ_RETENTION_QUEUE_CAPACITY,
@@ -2467,6 +2533,7 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
                         : indexSegmentRecordCompressorFactory));
         sb.append(", asynchronousIndexWriteConfiguration=" + asynchronousIndexWriteConfiguration);
         sb.append(", scatterSplitConfiguration=" + scatterSplitConfiguration);
+        sb.append(", leafFilterCacheCapacity=" + leafFilterCacheCapacity);
         toString(sb); // extension hook
 
         return sb.toString();
@@ -2520,10 +2587,16 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
 	 */
     private static transient final int VERSION4 = 0x4;
 
+    /**
+     * This version adds {@link #leafFilterCacheCapacity}. This field defaults
+     * to ZERO (0) (per-leaf filters disabled) for all prior versions.
+     */
+    private static transient final int VERSION5 = 0x5;
+
     /**
      * The version that will be serialized by this class.
      */
-    private static transient final int CURRENT_VERSION = VERSION4;
+    private static transient final int CURRENT_VERSION = VERSION5;
 
     /**
 	 * The actual version as set by {@link #readExternal(ObjectInput)} and
@@ -2545,7 +2618,7 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
         case VERSION2:
         case VERSION3:
         case VERSION4:
-//        case VERSION5:
+        case VERSION5:
 //        case VERSION6:
 //        case VERSION7:
 //        case VERSION8:
@@ -2666,6 +2739,16 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
 
 		}
 
+        if (version >= VERSION5) {
+
+            leafFilterCacheCapacity = (int) LongPacker.unpackLong(in);
+
+        } else {
+
+            leafFilterCacheCapacity = 0;
+
+        }
+
     }
 
     public void writeExternal(final ObjectOutput out) throws IOException {
@@ -2751,6 +2834,12 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
         // introduced in VERSION2
         out.writeObject(scatterSplitConfiguration);
 
+        if (version >= VERSION5) {
+
+            LongPacker.packLong(out, leafFilterCacheCapacity);
+
+        }
+
 //        if (version >= VERSION2) {
 //
 //            if (version >= VERSION3) {
@@ -0,0 +1,186 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+
+package com.bigdata.btree;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.bigdata.btree.data.ILeafData;
+
+/**
+ * A bounded LRU cache of {@link XorFilter}s for the leaves of a B+Tree or
+ * {@link IndexSegment}, keyed by the address of the leaf. Since a leaf data
+ * record is immutable once it has been written, the filter for a given address
+ * can never become stale (the address of a leaf changes each time it is
+ * written and the filter for the old address is dropped when that address is
+ * deleted).
+ * <p>
+ * The filters are consulted by {@link Node#lookup(byte[], Tuple)} before a
+ * child leaf which is not in memory is read from the backing store, which
+ * allows a negative point lookup to be answered without any IO for a leaf
+ * whose keys have been seen before. The filters are much smaller than the
+ * leaves (~10 bits per key) so they remain cached long after the leaf has been
+ * evicted.
+ * <p>
+ * The filters are not persisted. Each {@link AbstractBTree} instance owns its
+ * own cache, so a new read-only view starts empty and builds the filter for
+ * each leaf the first time it reads that leaf.
+ * 
+ * @see IndexMetadata.Options#LEAF_FILTER_CACHE_CAPACITY
+ */
+public class LeafFilterCache {
+
+    /**
+     * The maximum #of filters to retain.
+     */
+    private final int capacity;
+
+    /**
+     * The filters (access order).
+     */
+    private final LinkedHashMap<Long, XorFilter> map;
+
+    /**
+     * @param capacity
+     *            The maximum #of filters to retain.
+     */
+    public LeafFilterCache(final int capacity) {
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException();
+
+        this.capacity = capacity;
+
+        this.map = new LinkedHashMap<Long, XorFilter>(16, .75f, true/* accessOrder */) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Long, XorFilter> eldest) {
+
+                return size() > LeafFilterCache.this.capacity;
+
+            }
+
+        };
+
+    }
+
+    /**
+     * The maximum #of filters to retain.
+     */
+    public int capacity() {
+
+        return capacity;
+
+    }
+
+    /**
+     * The #of filters in the cache.
+     */
+    synchronized public int size() {
+
+        return map.size();
+
+    }
+
+    /**
+     * Return the filter for the leaf at that address.
+     * 
+     * @return The filter -or- <code>null</code> if there is no filter for that
+     *         address.
+     */
+    synchronized public XorFilter get(final long addr) {
+
+        return map.get(addr);
+
+    }
+
+    /**
+     * Build and cache a filter for the keys of the leaf at that address. This
+     * is a NOP if there is already a filter for that address since the leaf
+     * data record at a given address is immutable, so a leaf which is read
+     * again after it has been evicted does not rebuild its filter.
+     * 
+     * @param addr
+     *            The address of the leaf.
+     * @param data
+     *            The leaf data record.
+     */
+    public void put(final long addr, final ILeafData data) {
+
+        synchronized (this) {
+
+            if (map.get(addr) != null) {
+
+                // Already cached (also updates the access order).
+                return;
+
+            }
+
+        }
+
+        final XorFilter filter = XorFilter.create(data.getKeys());
+
+        synchronized (this) {
+
+            if (filter == null) {
+
+                map.remove(addr);
+
+            } else {
+
+                map.put(addr, filter);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Drop the filter for the leaf at that address (if any).
+     */
+    synchronized public void remove(final long addr) {
+
+        map.remove(addr);
+
+    }
+
+    /**
+     * Drop all filters.
+     */
+    synchronized public void clear() {
+
+        map.clear();
+
+    }
+
+}
@@ -935,9 +935,67 @@ public class Node extends AbstractNode<Node> implements INodeData {
 
         final int childIndex = findChild(key);
 
+        final XorFilter filter = getChildLeafFilter(childIndex);
+
+        if (filter != null && !filter.contains(key)) {
+
+            // Rejected without reading the leaf.
+            btree.getBtreeCounters().leafFilterRejects.increment();
+
+            return null;
+
+        }
+
         final AbstractNode<?> child = getChild(childIndex);
 
-        return child.lookup(key, tuple);
+        final Tuple ret = child.lookup(key, tuple);
+
+        if (filter != null && ret == null) {
+
+            filter.falsePos();
+
+            btree.getBtreeCounters().leafFilterFalsePos.increment();
+
+        }
+
+        return ret;
+
+    }
+
+    /**
+     * Return the {@link XorFilter} for the child at that index iff the child
+     * is a leaf which is not in memory and a filter is available for its
+     * address. The filter is only used when it can save a read on the store.
+     * 
+     * @param index
+     *            The index of the child.
+     * 
+     * @return The filter -or- <code>null</code>.
+     * 
+     * @see AbstractBTree#getLeafFilterCache()
+     */
+    private XorFilter getChildLeafFilter(final int index) {
+
+        final LeafFilterCache leafFilters = btree.leafFilters;
+
+        if (leafFilters == null)
+            return null;
+
+        final Reference<AbstractNode<?>> childRef = childRefs[index];
+
+        if (childRef != null && childRef.get() != null) {
+
+            // Already materialized.
+            return null;
+
+        }
+
+        final long addr = getChildAddr(index);
+
+        if (addr == IRawStore.NULL)
+            return null;
+
+        return leafFilters.get(addr);
 
     }
 
@@ -43,6 +43,7 @@ import com.bigdata.io.FixedByteArrayBuffer;
 import com.bigdata.io.IDataRecord;
 import com.bigdata.io.compression.IRecordCompressor;
 import com.bigdata.io.compression.IRecordCompressorFactory;
+import com.bigdata.io.compression.LZ4Compressor;
 import com.bigdata.io.compression.NOPRecordCompressor;
 import com.bigdata.rawstore.IAddressManager;
 import com.bigdata.rawstore.IRawStore;
@@ -112,6 +113,14 @@ public class NodeSerializer {
      */
     final IAbstractNodeDataCoder<ILeafData> leafCoder;
     
+    /**
+     * The type byte for a node or leaf record which was compressed by
+     * {@link #compress(ByteBuffer)}. This is distinct from the
+     * {@link AbstractReadOnlyNodeData#NODE}, {@link AbstractReadOnlyNodeData#LEAF}
+     * and {@link AbstractReadOnlyNodeData#LINKED_LEAF} type bytes.
+     */
+    static final byte COMPRESSED = (byte) 0x7F;
+
     /**
      * Factory for record-level (de-)compression of nodes and leaves (optional).
      */
@@ -352,11 +361,17 @@ public class NodeSerializer {
      *         FIXME modify to accept {@link IDataRecord} rather than
      *         {@link ByteBuffer}.
      */
-    public IAbstractNodeData decode(final ByteBuffer buf) {
+    public IAbstractNodeData decode(ByteBuffer buf) {
 
         if (buf == null)
             throw new IllegalArgumentException();
 
+        if (buf.get(AbstractReadOnlyNodeData.O_TYPE) == COMPRESSED) {
+
+            buf = decompress(buf);
+
+        }
+
         final boolean isNode = AbstractReadOnlyNodeData.isNode(buf
                 .get(AbstractReadOnlyNodeData.O_TYPE));
 
@@ -385,6 +400,93 @@ public class NodeSerializer {
 
     }
 
+    /**
+     * Apply record-level compression to a coded node or leaf before it is
+     * written on the backing store (NOT thread-safe). The record is returned
+     * unchanged if there is no {@link IRecordCompressorFactory} or if it does
+     * not get smaller. Otherwise the compressed record is returned with a
+     * leading {@link #COMPRESSED} byte in place of the node or leaf type byte
+     * so that {@link #decode(ByteBuffer)} can recognize it.
+     * 
+     * @param buf
+     *            The coded record.
+     * 
+     * @return The record to be written on the backing store.
+     */
+    public ByteBuffer compress(final ByteBuffer buf) {
+
+        if (recordCompressorFactory == null) {
+
+            return buf;
+
+        }
+
+        final int nbytes = buf.remaining();
+
+        final ByteBuffer tmp = getRecordCompressor().compress(buf.duplicate());
+
+        if (tmp.remaining() + 1 >= nbytes) {
+
+            // Not worth it.
+            return buf;
+
+        }
+
+        final ByteBuffer out = ByteBuffer.allocate(tmp.remaining() + 1);
+
+        out.put(COMPRESSED);
+
+        out.put(tmp);
+
+        out.flip();
+
+        return out;
+
+    }
+
+    /**
+     * Decompress a record written by {@link #compress(ByteBuffer)}
+     * (thread-safe).
+     * 
+     * @param buf
+     *            The record as read from the backing store.
+     * 
+     * @return The coded node or leaf in an exact fit heap buffer.
+     */
+    private ByteBuffer decompress(final ByteBuffer buf) {
+
+        if (recordCompressorFactory == null) {
+
+            throw new IllegalStateException(
+                    "Compressed record but no record compressor");
+
+        }
+
+        final IRecordCompressor compressor = recordCompressorFactory
+                .getInstance();
+
+        final ByteBuffer tmp = buf.duplicate();
+
+        tmp.position(tmp.position() + 1);
+
+        final ByteBuffer d = compressor.decompress(tmp);
+
+        if (compressor instanceof LZ4Compressor) {
+
+            // Already a new exact fit buffer.
+            return d;
+
+        }
+
+        // Copy since the data may be in a buffer shared by the compressor.
+        final byte[] b = new byte[d.remaining()];
+
+        d.get(b);
+
+        return ByteBuffer.wrap(b);
+
+    }
+
     /**
      * Wrap an {@link INodeData} or {@link ILeafData} instance as a {@link Node}
      * or a {@link Leaf}. This DOES NOT set the parent of the new {@link Node}
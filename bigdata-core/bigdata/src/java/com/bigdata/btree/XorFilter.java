@@ -0,0 +1,340 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+
+package com.bigdata.btree;
+
+import java.util.Arrays;
+
+import com.bigdata.btree.raba.IRaba;
+
+/**
+ * An immutable xor filter (8-bit fingerprints) over the keys of a single
+ * B+Tree leaf. Unlike the {@link BloomFilter}, an xor filter is built from a
+ * fixed set of keys. This is a good fit for B+Tree leaves since their data
+ * records are immutable once written (copy-on-write), so the filter may be
+ * derived from the leaf keys each time a leaf is written or read and never
+ * needs to be disabled as the index grows. The filter uses ~9.84 bits per key
+ * and has a false positive rate of ~0.39%.
+ * <p>
+ * See Graf and Lemire, "Xor Filters: Faster and Smaller Than Bloom and Cuckoo
+ * Filters", ACM JEA 2020.
+ * 
+ * @see LeafFilterCache
+ */
+public class XorFilter implements IBloomFilter {
+
+    /**
+     * The maximum #of attempts to construct the filter before giving up.
+     */
+    private static final int MAX_ATTEMPTS = 32;
+
+    /** The #of fingerprints in each of the three blocks. */
+    private final int blockLength;
+
+    /** The seed used to hash the keys. */
+    private final long seed;
+
+    /** The fingerprints. */
+    private final byte[] fingerprints;
+
+    /** The #of false positives reported by the caller. */
+    private volatile long nfalsePos;
+
+    private XorFilter(final int blockLength, final long seed,
+            final byte[] fingerprints) {
+
+        this.blockLength = blockLength;
+
+        this.seed = seed;
+
+        this.fingerprints = fingerprints;
+
+    }
+
+    /**
+     * Build a filter for the keys.
+     * 
+     * @param keys
+     *            The keys (<code>null</code>s are not permitted).
+     * 
+     * @return The filter -or- <code>null</code> if the filter could not be
+     *         constructed (this is only possible if there are duplicate keys or
+     *         64-bit hash collisions).
+     */
+    public static XorFilter create(final IRaba keys) {
+
+        final int size = keys.size();
+
+        final long[] hashes = new long[size];
+
+        for (int i = 0; i < size; i++) {
+
+            hashes[i] = hash(keys.get(i));
+
+        }
+
+        return create(hashes);
+
+    }
+
+    /**
+     * Build a filter from the 64-bit hashes of the keys.
+     */
+    static XorFilter create(final long[] keys) {
+
+        final int size = keys.length;
+
+        final int capacity = 32 + (int) Math.ceil(1.23 * size);
+
+        final int blockLength = capacity / 3;
+
+        final int arrayLength = 3 * blockLength;
+
+        final long[] reverseOrder = new long[size];
+        final byte[] reverseH = new byte[size];
+        final int[] t2count = new int[arrayLength];
+        final long[] t2hash = new long[arrayLength];
+        final int[] alone = new int[arrayLength];
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+
+            final long seed = mix(0x9E3779B97F4A7C15L * (attempt + 1));
+
+            Arrays.fill(t2count, 0);
+            Arrays.fill(t2hash, 0L);
+
+            for (int i = 0; i < size; i++) {
+
+                final long h = mix(keys[i] + seed);
+
+                for (int hi = 0; hi < 3; hi++) {
+
+                    final int index = index(h, hi, blockLength);
+
+                    t2count[index]++;
+
+                    t2hash[index] ^= h;
+
+                }
+
+            }
+
+            // Peel off the keys which map to a singleton cell.
+            int qsize = 0;
+
+            for (int i = 0; i < arrayLength; i++) {
+
+                if (t2count[i] == 1)
+                    alone[qsize++] = i;
+
+            }
+
+            int stackSize = 0;
+
+            while (qsize > 0) {
+
+                final int i = alone[--qsize];
+
+                if (t2count[i] != 1)
+                    continue;
+
+                final long h = t2hash[i];
+
+                reverseOrder[stackSize] = h;
+
+                reverseH[stackSize] = (byte) (i / blockLength);
+
+                stackSize++;
+
+                for (int hi = 0; hi < 3; hi++) {
+
+                    final int index = index(h, hi, blockLength);
+
+                    t2count[index]--;
+
+                    t2hash[index] ^= h;
+
+                    if (t2count[index] == 1)
+                        alone[qsize++] = index;
+
+                }
+
+            }
+
+            if (stackSize != size) {
+
+                // Cycle in the hypergraph. Retry with another seed.
+                continue;
+
+            }
+
+            final byte[] fingerprints = new byte[arrayLength];
+
+            for (int i = size - 1; i >= 0; i--) {
+
+                final long h = reverseOrder[i];
+
+                final int found = reverseH[i];
+
+                int xor = fingerprint(h);
+
+                for (int hi = 0; hi < 3; hi++) {
+
+                    if (hi != found)
+                        xor ^= fingerprints[index(h, hi, blockLength)];
+
+                }
+
+                fingerprints[index(h, found, blockLength)] = (byte) xor;
+
+            }
+
+            return new XorFilter(blockLength, seed, fingerprints);
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Not supported (the filter is immutable).
+     * 
+     * @throws UnsupportedOperationException
+     *             always.
+     */
+    @Override
+    public boolean add(final byte[] key) {
+
+        throw new UnsupportedOperationException();
+
+    }
+
+    @Override
+    public boolean contains(final byte[] key) {
+
+        if (key == null)
+            throw new IllegalArgumentException();
+
+        final long h = mix(hash(key) + seed);
+
+        final int f = fingerprint(h) ^ fingerprints[index(h, 0, blockLength)]
+                ^ fingerprints[index(h, 1, blockLength)]
+                ^ fingerprints[index(h, 2, blockLength)];
+
+        return (f & 0xFF) == 0;
+
+    }
+
+    @Override
+    public void falsePos() {
+
+        nfalsePos++;
+
+    }
+
+    /**
+     * The #of false positives reported by the caller.
+     */
+    public long getFalsePosCount() {
+
+        return nfalsePos;
+
+    }
+
+    /**
+     * The #of bytes in the filter.
+     */
+    public int getByteLength() {
+
+        return fingerprints.length;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + "{bytes=" + fingerprints.length
+                + ",falsePos=" + nfalsePos + "}";
+
+    }
+
+    /**
+     * A 64-bit hash of an <code>unsigned byte[]</code> key.
+     */
+    static long hash(final byte[] key) {
+
+        long h = 0xCBF29CE484222325L; // FNV-1a
+
+        for (int i = 0; i < key.length; i++) {
+
+            h ^= key[i] & 0xFF;
+
+            h *= 0x100000001B3L;
+
+        }
+
+        return mix(h);
+
+    }
+
+    /**
+     * The MurmurHash3 64-bit finalizer.
+     */
+    private static long mix(long h) {
+
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+
+        return h;
+
+    }
+
+    private static int fingerprint(final long h) {
+
+        return (int) (h ^ (h >>> 32));
+
+    }
+
+    /**
+     * The cell for the given hash in the specified block.
+     */
+    private static int index(final long h, final int block,
+            final int blockLength) {
+
+        final long r = Long.rotateLeft(h, 21 * block);
+
+        return (int) (((r & 0xFFFFFFFFL) * blockLength) >>> 32) + block
+                * blockLength;
+
+    }
+
+}
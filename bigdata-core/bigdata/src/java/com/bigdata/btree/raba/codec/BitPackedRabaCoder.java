@@ -0,0 +1,923 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.btree.raba.codec;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+
+import com.bigdata.btree.raba.IRaba;
+import com.bigdata.btree.raba.codec.FrontCodedRabaCoder.DefaultFrontCodedRabaCoder;
+import com.bigdata.io.AbstractFixedByteArrayBuffer;
+import com.bigdata.io.DataOutputBuffer;
+import com.bigdata.util.Bytes;
+
+/**
+ * Coder for B+Tree keys having a fixed length within a leaf, such as the
+ * composite IV keys of the statement indices.
+ * The key is decomposed into <em>columns</em>: maximal runs of the byte
+ * positions whose value differs between the keys of the leaf, split into
+ * chunks of at most 8 bytes. Byte positions having the same value for every
+ * key are stored once in a template key. For a statement index these columns
+ * fall out naturally along the IV boundaries since the flags bytes and the
+ * high order bytes of the term identifiers are constant within a leaf.
+ * <p>
+ * Each column is coded separately using frame-of-reference coding: the value
+ * of the column is interpreted as an unsigned big-endian integer and stored as
+ * the delta from the minimum value of that column within the leaf, bit packed
+ * using the minimum #of bits required for the largest delta. Since every coded
+ * key has the same bit width, any key may be decoded in O(1) and
+ * {@link IRaba#search(byte[])} is a binary search which compares the probe key
+ * against the packed columns in place without materializing the keys.
+ * <p>
+ * Leaves whose keys do not all have the same length (or which are empty) are
+ * coded using the fallback {@link IRabaCoder} specified to the constructor
+ * (by default the {@link DefaultFrontCodedRabaCoder}).
+ * 
+ * <h2>Binary Format</h2>
+ * 
+ * <pre>
+ * type     : byte (PACKED or FALLBACK)
+ * </pre>
+ * 
+ * If the type is FALLBACK, the remainder of the record is coded by the
+ * fallback coder. Otherwise:
+ * 
+ * <pre>
+ * size     : int32
+ * keyLen   : uint16
+ * ncols    : uint16
+ * template : byte[keyLen]
+ * columns  : ncols * (off:uint16, nbytes:byte, nbits:byte, ref:int64)
+ * packed   : ncols * byte[ceil(size * nbits / 8)]
+ * </pre>
+ * 
+ * @author <a href="mailto:thompsonbry@users.sourceforge.net">Bryan Thompson</a>
+ */
+public class BitPackedRabaCoder implements IRabaCoder, Externalizable {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = -3178414338722745839L;
+
+    private static final byte VERSION0 = 0x00;
+
+    /** The record is coded using the bit packed format. */
+    private static final byte PACKED = 0x00;
+
+    /** The record is coded using the fallback coder. */
+    private static final byte FALLBACK = 0x01;
+
+    /** The maximum byte width of a column. */
+    private static final int MAX_COLUMN_BYTES = Bytes.SIZEOF_LONG;
+
+    /** The maximum key length which may be bit packed. */
+    private static final int MAX_KEY_LENGTH = 0xFFFF;
+
+    /** The byte offset of the record type. */
+    private static final int O_TYPE = 0;
+
+    /** The byte offset of the #of keys. */
+    private static final int O_SIZE = O_TYPE + Bytes.SIZEOF_BYTE;
+
+    /** The byte offset of the key length. */
+    private static final int O_KEYLEN = O_SIZE + Bytes.SIZEOF_INT;
+
+    /** The byte offset of the #of columns. */
+    private static final int O_NCOLS = O_KEYLEN + Bytes.SIZEOF_SHORT;
+
+    /** The byte offset of the template key. */
+    private static final int O_TEMPLATE = O_NCOLS + Bytes.SIZEOF_SHORT;
+
+    /** The size of a column descriptor. */
+    private static final int SIZEOF_COLUMN = Bytes.SIZEOF_SHORT
+            + Bytes.SIZEOF_BYTE + Bytes.SIZEOF_BYTE + Bytes.SIZEOF_LONG;
+
+    /**
+     * The coder used for leaves whose keys do not share a common length.
+     */
+    private IRabaCoder fallbackCoder;
+
+    @Override
+    public String toString() {
+
+        return super.toString() + "{fallbackCoder=" + fallbackCoder + "}";
+
+    }
+
+    /**
+     * Yes.
+     */
+    @Override
+    final public boolean isKeyCoder() {
+
+        return true;
+
+    }
+
+    /**
+     * No.
+     */
+    @Override
+    final public boolean isValueCoder() {
+
+        return false;
+
+    }
+
+    @Override
+    public boolean isDuplicateKeys() {
+
+        return false;
+
+    }
+
+    /**
+     * The coder used for leaves whose keys do not share a common length.
+     */
+    public IRabaCoder getFallbackCoder() {
+
+        return fallbackCoder;
+
+    }
+
+    /**
+     * Uses the {@link DefaultFrontCodedRabaCoder} for leaves whose keys do not
+     * share a common length (also used for de-serialization).
+     */
+    public BitPackedRabaCoder() {
+
+        this(DefaultFrontCodedRabaCoder.INSTANCE);
+
+    }
+
+    /**
+     * @param fallbackCoder
+     *            The coder used for leaves whose keys do not share a common
+     *            length.
+     */
+    public BitPackedRabaCoder(final IRabaCoder fallbackCoder) {
+
+        if (fallbackCoder == null)
+            throw new IllegalArgumentException();
+
+        if (!fallbackCoder.isKeyCoder())
+            throw new IllegalArgumentException();
+
+        this.fallbackCoder = fallbackCoder;
+
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+
+        out.writeByte(VERSION0);
+
+        out.writeObject(fallbackCoder);
+
+    }
+
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException,
+            ClassNotFoundException {
+
+        final byte version = in.readByte();
+        switch (version) {
+        case VERSION0:
+            break;
+        default:
+            throw new IOException("Unknown version: " + version);
+        }
+
+        fallbackCoder = (IRabaCoder) in.readObject();
+
+    }
+
+    @Override
+    public ICodedRaba encodeLive(final IRaba raba, final DataOutputBuffer buf) {
+
+        if (raba == null)
+            throw new IllegalArgumentException();
+
+        if (buf == null)
+            throw new IllegalArgumentException();
+
+        if (!raba.isKeys())
+            throw new UnsupportedOperationException();
+
+        final int size = raba.size();
+
+        final byte[][] keys = new byte[size][];
+
+        int keyLen = -1;
+
+        for (int i = 0; i < size; i++) {
+
+            keys[i] = raba.get(i);
+
+            if (keyLen == -1) {
+
+                keyLen = keys[i].length;
+
+            } else if (keyLen != keys[i].length) {
+
+                keyLen = -1;
+
+                break;
+
+            }
+
+        }
+
+        if (keyLen <= 0 || keyLen > MAX_KEY_LENGTH) {
+
+            return encodeFallback(raba, buf);
+
+        }
+
+        // Identify the byte positions which vary within the leaf.
+        final byte[] template = keys[0];
+
+        final boolean[] varying = new boolean[keyLen];
+
+        for (int i = 1; i < size; i++) {
+
+            final byte[] key = keys[i];
+
+            for (int j = 0; j < keyLen; j++) {
+
+                if (key[j] != template[j])
+                    varying[j] = true;
+
+            }
+
+        }
+
+        // Decompose the varying byte positions into columns.
+        final int[] colOff = new int[keyLen];
+        final int[] colBytes = new int[keyLen];
+        int ncols = 0;
+        for (int j = 0; j < keyLen;) {
+
+            if (!varying[j]) {
+                j++;
+                continue;
+            }
+
+            final int off = j;
+
+            while (j < keyLen && varying[j] && j - off < MAX_COLUMN_BYTES)
+                j++;
+
+            colOff[ncols] = off;
+            colBytes[ncols] = j - off;
+            ncols++;
+
+        }
+
+        // Compute the frame of reference and bit width for each column.
+        final long[] colRef = new long[ncols];
+        final int[] colBits = new int[ncols];
+        int packedBytes = 0;
+        for (int c = 0; c < ncols; c++) {
+
+            long min = -1L, max = 0L; // unsigned extrema.
+
+            for (int i = 0; i < size; i++) {
+
+                final long v = getColumn(keys[i], colOff[c], colBytes[c]);
+
+                if (compareUnsigned(v, min) < 0)
+                    min = v;
+
+                if (compareUnsigned(v, max) > 0)
+                    max = v;
+
+            }
+
+            colRef[c] = min;
+
+            colBits[c] = Long.SIZE - Long.numberOfLeadingZeros(max - min);
+
+            packedBytes += packedLength(size, colBits[c]);
+
+        }
+
+        final int capacity = O_TEMPLATE + keyLen + ncols * SIZEOF_COLUMN
+                + packedBytes;
+
+        buf.ensureFree(capacity);
+
+        final int O_origin = buf.pos();
+
+        buf.putByte(PACKED);
+
+        buf.putInt(size);
+
+        buf.putShort((short) keyLen);
+
+        buf.putShort((short) ncols);
+
+        buf.put(template);
+
+        for (int c = 0; c < ncols; c++) {
+
+            buf.putShort((short) colOff[c]);
+
+            buf.putByte((byte) colBytes[c]);
+
+            buf.putByte((byte) colBits[c]);
+
+            buf.putLong(colRef[c]);
+
+        }
+
+        for (int c = 0; c < ncols; c++) {
+
+            final byte[] packed = new byte[packedLength(size, colBits[c])];
+
+            for (int i = 0; i < size; i++) {
+
+                final long delta = getColumn(keys[i], colOff[c], colBytes[c])
+                        - colRef[c];
+
+                putBits(packed, (long) i * colBits[c], colBits[c], delta);
+
+            }
+
+            buf.put(packed);
+
+        }
+
+        assert buf.pos() == O_origin + capacity;
+
+        return new CodedRabaImpl(buf.slice(O_origin, capacity));
+
+    }
+
+    /**
+     * Code the {@link IRaba} using the fallback coder.
+     */
+    private ICodedRaba encodeFallback(final IRaba raba,
+            final DataOutputBuffer buf) {
+
+        final int O_origin = buf.pos();
+
+        buf.putByte(FALLBACK);
+
+        final ICodedRaba delegate = fallbackCoder.encodeLive(raba, buf);
+
+        return new FallbackCodedRaba(buf.slice(O_origin,
+                delegate.data().len() + 1), delegate);
+
+    }
+
+    @Override
+    public AbstractFixedByteArrayBuffer encode(final IRaba raba,
+            final DataOutputBuffer buf) {
+
+        return encodeLive(raba, buf).data();
+
+    }
+
+    @Override
+    public ICodedRaba decode(final AbstractFixedByteArrayBuffer data) {
+
+        final byte type = data.getByte(O_TYPE);
+
+        switch (type) {
+        case PACKED:
+            return new CodedRabaImpl(data);
+        case FALLBACK:
+            return new FallbackCodedRaba(data, fallbackCoder.decode(data.slice(
+                    1, data.len() - 1)));
+        default:
+            throw new RuntimeException("Unknown type: " + type);
+        }
+
+    }
+
+    /**
+     * The #of bytes required to pack <i>size</i> values of <i>nbits</i> each.
+     */
+    private static int packedLength(final int size, final int nbits) {
+
+        return (int) (((long) size * nbits + 7) >>> 3);
+
+    }
+
+    /**
+     * Return the unsigned big-endian value of a column.
+     */
+    private static long getColumn(final byte[] a, final int off, final int len) {
+
+        long v = 0L;
+
+        for (int i = 0; i < len; i++) {
+
+            v = (v << 8) | (a[off + i] & 0xFF);
+
+        }
+
+        return v;
+
+    }
+
+    /**
+     * Compare two longs as unsigned values.
+     */
+    private static int compareUnsigned(final long a, final long b) {
+
+        final long x = a + Long.MIN_VALUE;
+
+        final long y = b + Long.MIN_VALUE;
+
+        return x < y ? -1 : (x == y ? 0 : 1);
+
+    }
+
+    /**
+     * Write the low <i>nbits</i> of <i>v</i> at the given bit index (bits are
+     * written MSB first).
+     */
+    private static void putBits(final byte[] a, long bitIndex, final int nbits,
+            final long v) {
+
+        int remaining = nbits;
+
+        while (remaining > 0) {
+
+            final int byteIndex = (int) (bitIndex >>> 3);
+
+            final int avail = 8 - (int) (bitIndex & 7);
+
+            final int take = Math.min(avail, remaining);
+
+            final int bits = (int) (v >>> (remaining - take)) & ((1 << take) - 1);
+
+            a[byteIndex] |= bits << (avail - take);
+
+            remaining -= take;
+
+            bitIndex += take;
+
+        }
+
+    }
+
+    /**
+     * Read <i>nbits</i> starting at the given bit index relative to the byte
+     * offset (bits are read MSB first).
+     */
+    private static long getBits(final byte[] a, final int off, long bitIndex,
+            final int nbits) {
+
+        long v = 0L;
+
+        int remaining = nbits;
+
+        while (remaining > 0) {
+
+            final int b = a[off + (int) (bitIndex >>> 3)] & 0xFF;
+
+            final int avail = 8 - (int) (bitIndex & 7);
+
+            final int take = Math.min(avail, remaining);
+
+            v = (v << take) | ((b >>> (avail - take)) & ((1 << take) - 1));
+
+            remaining -= take;
+
+            bitIndex += take;
+
+        }
+
+        return v;
+
+    }
+
+    /**
+     * Class provides in place access to the bit packed keys.
+     */
+    private static class CodedRabaImpl extends AbstractCodedRaba {
+
+        private final AbstractFixedByteArrayBuffer data;
+
+        /** The backing array and the offset of the record within it. */
+        private final byte[] a;
+        private final int off;
+
+        private final int size;
+        private final int keyLen;
+        private final int ncols;
+
+        private final int[] colOff;
+        private final int[] colBytes;
+        private final int[] colBits;
+        private final long[] colRef;
+
+        /** The offset in {@link #a} of the packed data for each column. */
+        private final int[] colData;
+
+        /** The offset in {@link #a} of the template key. */
+        private final int templateOff;
+
+        public CodedRabaImpl(final AbstractFixedByteArrayBuffer data) {
+
+            if (data == null)
+                throw new IllegalArgumentException();
+
+            this.data = data;
+
+            this.a = data.array();
+
+            this.off = data.off();
+
+            this.size = data.getInt(O_SIZE);
+
+            this.keyLen = data.getShort(O_KEYLEN) & 0xFFFF;
+
+            this.ncols = data.getShort(O_NCOLS) & 0xFFFF;
+
+            this.templateOff = off + O_TEMPLATE;
+
+            colOff = new int[ncols];
+            colBytes = new int[ncols];
+            colBits = new int[ncols];
+            colRef = new long[ncols];
+            colData = new int[ncols];
+
+            int pos = O_TEMPLATE + keyLen;
+
+            for (int c = 0; c < ncols; c++) {
+
+                colOff[c] = data.getShort(pos) & 0xFFFF;
+                pos += Bytes.SIZEOF_SHORT;
+
+                colBytes[c] = data.getByte(pos) & 0xFF;
+                pos += Bytes.SIZEOF_BYTE;
+
+                colBits[c] = data.getByte(pos) & 0xFF;
+                pos += Bytes.SIZEOF_BYTE;
+
+                colRef[c] = data.getLong(pos);
+                pos += Bytes.SIZEOF_LONG;
+
+            }
+
+            for (int c = 0; c < ncols; c++) {
+
+                colData[c] = off + pos;
+
+                pos += packedLength(size, colBits[c]);
+
+            }
+
+        }
+
+        @Override
+        final public AbstractFixedByteArrayBuffer data() {
+
+            return data;
+
+        }
+
+        @Override
+        public boolean isKeys() {
+
+            return true;
+
+        }
+
+        @Override
+        final public int capacity() {
+
+            return size;
+
+        }
+
+        @Override
+        final public int size() {
+
+            return size;
+
+        }
+
+        @Override
+        final public boolean isEmpty() {
+
+            return size == 0;
+
+        }
+
+        @Override
+        final public boolean isFull() {
+
+            return true;
+
+        }
+
+        protected void rangeCheck(final int index) {
+
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException();
+
+        }
+
+        @Override
+        public boolean isNull(final int index) {
+
+            rangeCheck(index);
+
+            return false;
+
+        }
+
+        @Override
+        public int length(final int index) {
+
+            rangeCheck(index);
+
+            return keyLen;
+
+        }
+
+        /**
+         * Return the value of the column for the key at that index.
+         */
+        private long column(final int c, final int index) {
+
+            return colRef[c]
+                    + getBits(a, colData[c], (long) index * colBits[c],
+                            colBits[c]);
+
+        }
+
+        @Override
+        public byte[] get(final int index) {
+
+            rangeCheck(index);
+
+            final byte[] key = new byte[keyLen];
+
+            System.arraycopy(a, templateOff, key, 0, keyLen);
+
+            for (int c = 0; c < ncols; c++) {
+
+                long v = column(c, index);
+
+                for (int j = colOff[c] + colBytes[c] - 1; j >= colOff[c]; j--) {
+
+                    key[j] = (byte) v;
+
+                    v >>>= 8;
+
+                }
+
+            }
+
+            return key;
+
+        }
+
+        @Override
+        public int copy(final int index, final OutputStream os) {
+
+            try {
+
+                os.write(get(index));
+
+            } catch (IOException ex) {
+
+                throw new RuntimeException(ex);
+
+            }
+
+            return keyLen;
+
+        }
+
+        /*
+         * Search
+         */
+
+        /**
+         * Compare the key at that index with the probe key as
+         * <code>unsigned byte[]</code>s.
+         */
+        private int compare(final int index, final byte[] key) {
+
+            int pos = 0;
+
+            for (int c = 0; c <= ncols; c++) {
+
+                // Compare the constant bytes preceding the column.
+                final int end = c < ncols ? colOff[c] : keyLen;
+
+                for (; pos < end; pos++) {
+
+                    if (pos >= key.length)
+                        return 1;
+
+                    final int ret = (a[templateOff + pos] & 0xFF)
+                            - (key[pos] & 0xFF);
+
+                    if (ret != 0)
+                        return ret;
+
+                }
+
+                if (c == ncols)
+                    break;
+
+                // Compare the column against the corresponding probe bytes.
+                final int nbytes = colBytes[c];
+
+                final int n = Math.min(nbytes, key.length - pos);
+
+                if (n <= 0)
+                    return 1;
+
+                final long v = column(c, index) >>> ((nbytes - n) << 3);
+
+                final int ret = compareUnsigned(v, getColumn(key, pos, n));
+
+                if (ret != 0)
+                    return ret;
+
+                if (n < nbytes)
+                    return 1;
+
+                pos += nbytes;
+
+            }
+
+            return keyLen < key.length ? -1 : 0;
+
+        }
+
+        @Override
+        public int search(final byte[] key) {
+
+            if (key == null)
+                throw new IllegalArgumentException();
+
+            int low = 0;
+
+            int high = size - 1;
+
+            while (low <= high) {
+
+                final int mid = (low + high) >>> 1;
+
+                final int ret = compare(mid, key);
+
+                if (ret < 0) {
+
+                    low = mid + 1;
+
+                } else if (ret > 0) {
+
+                    high = mid - 1;
+
+                } else {
+
+                    return mid;
+
+                }
+
+            }
+
+            return -(low + 1);
+
+        }
+
+    }
+
+    /**
+     * Wraps the {@link ICodedRaba} of the fallback coder while reporting the
+     * caller's slice (including the record type byte) from {@link #data()}.
+     */
+    private static class FallbackCodedRaba extends AbstractCodedRaba {
+
+        private final AbstractFixedByteArrayBuffer data;
+
+        private final ICodedRaba delegate;
+
+        FallbackCodedRaba(final AbstractFixedByteArrayBuffer data,
+                final ICodedRaba delegate) {
+
+            this.data = data;
+
+            this.delegate = delegate;
+
+        }
+
+        @Override
+        public AbstractFixedByteArrayBuffer data() {
+
+            return data;
+
+        }
+
+        @Override
+        public boolean isKeys() {
+
+            return delegate.isKeys();
+
+        }
+
+        @Override
+        public int capacity() {
+
+            return delegate.capacity();
+
+        }
+
+        @Override
+        public int size() {
+
+            return delegate.size();
+
+        }
+
+        @Override
+        public boolean isEmpty() {
+
+            return delegate.isEmpty();
+
+        }
+
+        @Override
+        public boolean isFull() {
+
+            return delegate.isFull();
+
+        }
+
+        @Override
+        public boolean isNull(final int index) {
+
+            return delegate.isNull(index);
+
+        }
+
+        @Override
+        public int length(final int index) {
+
+            return delegate.length(index);
+
+        }
+
+        @Override
+        public byte[] get(final int index) {
+
+            return delegate.get(index);
+
+        }
+
+        @Override
+        public int copy(final int index, final OutputStream os) {
+
+            return delegate.copy(index, os);
+
+        }
+
+        @Override
+        public int search(final byte[] searchKey) {
+
+            return delegate.search(searchKey);
+
+        }
+
+    }
+
+}
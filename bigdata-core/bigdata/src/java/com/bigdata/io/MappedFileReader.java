@@ -0,0 +1,423 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+
+package com.bigdata.io;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.util.Bytes;
+
+/**
+ * Read-only memory mapping of a backing file which may be used to satisfy
+ * reads without a {@link FileChannel} system call. The file is mapped in
+ * fixed size segments since a single {@link MappedByteBuffer} can not address
+ * more than 2GB. The mapping is extended lazily: a read which lies beyond the
+ * current mapped extent causes the file to be remapped against its current
+ * size. A read which spans a segment boundary, or which lies beyond the end of
+ * the file, is not satisfied and the caller must read through to the
+ * {@link FileChannel}.
+ * <p>
+ * Note: Records are always copied out of the mapping into the caller's
+ * buffer. This saves the system call but not the copy. A view of the mapping
+ * is never handed out, so a segment can be unmapped as soon as it is replaced
+ * without invalidating a buffer held by the caller. The copy is made under a
+ * shared lock and segments are unmapped under the exclusive lock.
+ * <p>
+ * Note: The caller is responsible for only reading records which have been
+ * written onto the file (rather than records still buffered by a write cache)
+ * and for invoking {@link #clear()} if the file is truncated and before the
+ * file is closed.
+ * 
+ * @see com.bigdata.journal.Options#READ_MAPPED
+ */
+public class MappedFileReader {
+
+    private static final Logger log = Logger.getLogger(MappedFileReader.class);
+
+    /**
+     * The default segment size (1GB).
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = Bytes.gigabyte;
+
+    /**
+     * An immutable snapshot of the mapped segments. All segments are full
+     * except the last, which covers the remainder of the mapped extent.
+     */
+    private static class Mapping {
+
+        final MappedByteBuffer[] segments;
+
+        final long extent;
+
+        Mapping(final MappedByteBuffer[] segments, final long extent) {
+            this.segments = segments;
+            this.extent = extent;
+        }
+
+    }
+
+    private static final Mapping EMPTY = new Mapping(new MappedByteBuffer[0],
+            0L);
+
+    /**
+     * Used to (re-)open the channel for the backing file.
+     */
+    private final IReopenChannel<FileChannel> opener;
+
+    /**
+     * The size of each mapped segment.
+     */
+    private final long segmentSize;
+
+    /**
+     * The current mapping. Replaced (never modified) when the file is
+     * remapped.
+     */
+    private volatile Mapping mapping = EMPTY;
+
+    /**
+     * Held shared while bytes are copied out of the {@link #mapping} and
+     * exclusively while the {@link #mapping} is replaced and the old segments
+     * are unmapped.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The #of times the file was remapped.
+     */
+    private volatile int nremap = 0;
+
+    /**
+     * @param opener
+     *            Used to (re-)open the channel for the backing file.
+     */
+    public MappedFileReader(final IReopenChannel<FileChannel> opener) {
+
+        this(opener, DEFAULT_SEGMENT_SIZE);
+
+    }
+
+    /**
+     * @param opener
+     *            Used to (re-)open the channel for the backing file.
+     * @param segmentSize
+     *            The size of each mapped segment (GT ZERO and LTE
+     *            {@link Integer#MAX_VALUE}).
+     */
+    public MappedFileReader(final IReopenChannel<FileChannel> opener,
+            final long segmentSize) {
+
+        if (opener == null)
+            throw new IllegalArgumentException();
+
+        if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException();
+
+        this.opener = opener;
+
+        this.segmentSize = segmentSize;
+
+    }
+
+    /**
+     * The #of bytes of the file which are currently mapped.
+     */
+    public long getExtent() {
+
+        return mapping.extent;
+
+    }
+
+    /**
+     * The #of times the file was remapped.
+     */
+    public int getRemapCount() {
+
+        return nremap;
+
+    }
+
+    /**
+     * Copy {@link ByteBuffer#remaining()} bytes from the backing file into the
+     * caller's buffer, starting at the specified offset in the file. The
+     * position of the caller's buffer is not changed.
+     * 
+     * @param offset
+     *            The offset of the first byte on the backing file.
+     * @param dst
+     *            Where to put the data. Bytes will be written at position until
+     *            limit.
+     * 
+     * @return <code>true</code> iff the bytes were copied from the mapping.
+     *         When <code>false</code> the caller's buffer is unchanged and the
+     *         caller must read through to the {@link FileChannel}.
+     */
+    public boolean read(final long offset, final ByteBuffer dst) {
+
+        final int nbytes = dst.remaining();
+
+        if (offset < 0)
+            throw new IllegalArgumentException();
+
+        if (nbytes == 0)
+            return true;
+
+        final int index = (int) (offset / segmentSize);
+
+        final int pos = (int) (offset % segmentSize);
+
+        if (pos + (long) nbytes > segmentSize) {
+
+            // Spans a segment boundary.
+            return false;
+
+        }
+
+        if (offset + nbytes > mapping.extent) {
+
+            remap(offset + nbytes);
+
+        }
+
+        lock.readLock().lock();
+
+        try {
+
+            final Mapping m = mapping;
+
+            if (offset + nbytes > m.extent) {
+
+                // Not on the file (yet).
+                return false;
+
+            }
+
+            // duplicate() since the position and limit are not thread-safe.
+            final ByteBuffer src = m.segments[index].duplicate();
+
+            src.limit(pos + nbytes);
+
+            src.position(pos);
+
+            final int dpos = dst.position();
+
+            dst.put(src);
+
+            dst.position(dpos);
+
+            return true;
+
+        } finally {
+
+            lock.readLock().unlock();
+
+        }
+
+    }
+
+    /**
+     * Discard and unmap the current mapping. This MUST be invoked if the
+     * backing file is truncated and before it is closed. The file will be
+     * remapped on demand.
+     */
+    public void clear() {
+
+        lock.writeLock().lock();
+
+        try {
+
+            final Mapping m = mapping;
+
+            mapping = EMPTY;
+
+            for (MappedByteBuffer b : m.segments) {
+
+                unmap(b);
+
+            }
+
+        } finally {
+
+            lock.writeLock().unlock();
+
+        }
+
+    }
+
+    /**
+     * Remap the file if the current mapping does not cover the given extent.
+     * 
+     * @param minExtent
+     *            The required extent.
+     * 
+     * @return The current mapping. This will not cover the given extent if
+     *         the file is not (yet) that large.
+     */
+    private Mapping remap(final long minExtent) {
+
+        lock.writeLock().lock();
+
+        try {
+
+            return remapLocked(minExtent);
+
+        } finally {
+
+            lock.writeLock().unlock();
+
+        }
+
+    }
+
+    private Mapping remapLocked(final long minExtent) {
+
+        final Mapping m = mapping;
+
+        if (minExtent <= m.extent) {
+
+            // Remapped by a concurrent reader.
+            return m;
+
+        }
+
+        try {
+
+            final FileChannel channel = opener.reopenChannel();
+
+            final long size = channel.size();
+
+            if (size <= m.extent) {
+
+                // The file has not been extended.
+                return m;
+
+            }
+
+            final int nsegments = (int) ((size + segmentSize - 1) / segmentSize);
+
+            final MappedByteBuffer[] a = new MappedByteBuffer[nsegments];
+
+            for (int i = 0; i < nsegments; i++) {
+
+                final long begin = i * segmentSize;
+
+                final long len = Math.min(segmentSize, size - begin);
+
+                if (i < m.segments.length
+                        && m.segments[i].capacity() == len) {
+
+                    // Reuse a segment which is already fully mapped.
+                    a[i] = m.segments[i];
+
+                } else {
+
+                    a[i] = channel.map(MapMode.READ_ONLY, begin, len);
+
+                }
+
+            }
+
+            nremap++;
+
+            if (log.isInfoEnabled())
+                log.info("Remapped: file=" + opener + ", extent=" + size
+                        + ", nsegments=" + nsegments);
+
+            mapping = new Mapping(a, size);
+
+            // Unmap the segments which were replaced.
+            for (int i = 0; i < m.segments.length; i++) {
+
+                if (a[i] != m.segments[i])
+                    unmap(m.segments[i]);
+
+            }
+
+            return mapping;
+
+        } catch (IOException ex) {
+
+            /*
+             * Note: The caller will read through to the FileChannel, which
+             * will report any persistent problem with the file.
+             */
+            log.warn("Could not map: file=" + opener + " : " + ex);
+
+            return m;
+
+        }
+
+    }
+
+    /**
+     * Release the memory mapped by a segment now rather than when it is
+     * finalized. The JDK does not expose this, so the buffer's cleaner is
+     * invoked by reflection. If that is not possible the segment is left for
+     * the garbage collector.
+     * <p>
+     * Note: The caller MUST hold the exclusive lock and the segment MUST NOT
+     * be reachable from the {@link #mapping}.
+     */
+    private static void unmap(final MappedByteBuffer b) {
+
+        try {
+
+            final Method getCleaner = b.getClass().getMethod("cleaner");
+
+            getCleaner.setAccessible(true);
+
+            final Object cleaner = getCleaner.invoke(b);
+
+            if (cleaner != null) {
+
+                final Method clean = cleaner.getClass().getMethod("clean");
+
+                clean.setAccessible(true);
+
+                clean.invoke(cleaner);
+
+            }
+
+        } catch (Exception ex) {
+
+            if (log.isDebugEnabled())
+                log.debug("Could not unmap: " + ex);
+
+        }
+
+    }
+
+}
@@ -27,6 +27,7 @@ package com.bigdata.io;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import org.apache.log4j.Logger;
@@ -41,6 +42,9 @@ import com.bigdata.journal.AbstractJournal.ISnapshotEntry;
  * The ISnapshotData provides access to an ordered iteration of [Address,Data] that is processed
  * with the InputStream to determine which data to write to the OutputStream, alternately transferring
  * bytes from the InputStream and the ISnapshotData.
+ * <p>
+ * An entry may lie beyond the end of the InputStream, in which case the gap is
+ * written as zeros.
  * 
  * @author Martyn Cutcher
  *
@@ -66,7 +70,10 @@ public class MergeStreamWithSnapshotData {
 			
 			// transfer Input to Output until start of buffer
 			if (curs < pos) {
-				transfer(in, (pos-curs), bb, out);
+				final long n = transfer(in, (pos-curs), bb, out);
+				
+				// zero fill if the input ended before the buffer.
+				pad(pos - curs - n, bb, out);
 				
 				curs = pos;
 			}
@@ -87,22 +94,31 @@ public class MergeStreamWithSnapshotData {
 		transfer(in, Long.MAX_VALUE, bb, out);
 	}
 
-	private static void transfer(final InputStream in, final long len, final byte[] buf, final OutputStream out) throws IOException {
+	/**
+	 * @return the #of bytes transferred, which is less than <i>len</i> iff the
+	 *         end of the input was reached.
+	 */
+	private static long transfer(final InputStream in, final long len, final byte[] buf, final OutputStream out) throws IOException {
 		long rem = len;
-		while (rem > buf.length) {
-			int rdlen = in.read(buf);
+		while (rem > 0) {
+			final int rdlen = in.read(buf, 0, (int) Math.min(buf.length, rem));
 			if (rdlen == -1)
-				return; // eof
+				break; // eof
 			
 			out.write(buf, 0, rdlen);
 			rem -= rdlen;
 		}
 		
-		// now read in what's left
-		int rdlen = in.read(buf, 0, (int) rem);
-		if (rdlen == -1)
-			return; // eof
-		
-		out.write(buf, 0, rdlen);
+		return len - rem;
+	}
+
+	private static void pad(final long len, final byte[] buf, final OutputStream out) throws IOException {
+		Arrays.fill(buf, (byte) 0);
+		long rem = len;
+		while (rem > 0) {
+			final int n = (int) Math.min(buf.length, rem);
+			out.write(buf, 0, n);
+			rem -= n;
+		}
 	}
 }
@@ -54,6 +54,21 @@ public class CompressorRegistry {
      * @see GZipCompressor
      */
     final public static String GZIP = "GZIP";
+
+    /**
+     * Key for LZ4 compression (fast decompression).
+     * 
+     * @see LZ4Compressor
+     */
+    final public static String LZ4 = "LZ4";
+
+    /**
+     * Key for LZ4 compression using the high compression match finder (same
+     * decompression speed as {@link #LZ4}).
+     * 
+     * @see LZ4Compressor
+     */
+    final public static String LZ4_HIGH_COMPRESSION = "LZ4HC";
     
     /**
      * Key for no compression.
@@ -80,6 +95,8 @@ public class CompressorRegistry {
 		add(DEFLATE_BEST_SPEED, new RecordCompressor(Deflater.BEST_SPEED));
 		add(DEFLATE_BEST_COMPRESSION, new RecordCompressor(Deflater.BEST_COMPRESSION));
 		add(GZIP, new GZipCompressor());
+		add(LZ4, new LZ4Compressor(false/* highCompression */, null/* dictionary */));
+		add(LZ4_HIGH_COMPRESSION, new LZ4Compressor(true/* highCompression */, null/* dictionary */));
 		add(NOP, new NOPRecordCompressor());
 	}
 	
@@ -0,0 +1,257 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.io.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a dictionary for the {@link LZ4Compressor} from sample records, such
+ * as the coded leaves of an index. Small records compress poorly on their own
+ * since there is little repetition within a single record, but the records of
+ * a given index (SPO, POS, TERM2ID, etc.) share a great deal of structure.
+ * <p>
+ * The sample data are divided into one epoch per dictionary segment. Each
+ * 8-byte gram is scored by the #of samples in which it occurs and, within
+ * each epoch, the segment with the highest total score for grams which are not
+ * already covered by the dictionary is selected (a simplified form of the
+ * COVER algorithm).
+ */
+public class DictionaryTrainer {
+
+    /** The length of the grams used to score segments. */
+    private static final int GRAM = 8;
+
+    /** The default length of a dictionary segment. */
+    public static final int DEFAULT_SEGMENT_LENGTH = 32;
+
+    /** The default size of the dictionary. */
+    public static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+
+    private DictionaryTrainer() {
+    }
+
+    /**
+     * Train a dictionary using the default segment length.
+     * 
+     * @param samples
+     *            The sample records.
+     * @param dictionarySize
+     *            The maximum size of the dictionary (at most 64k).
+     * 
+     * @return The dictionary (empty if nothing repeats across the samples).
+     */
+    public static byte[] train(final List<byte[]> samples,
+            final int dictionarySize) {
+
+        return train(samples, dictionarySize, DEFAULT_SEGMENT_LENGTH);
+
+    }
+
+    /**
+     * Train a dictionary.
+     * 
+     * @param samples
+     *            The sample records.
+     * @param dictionarySize
+     *            The maximum size of the dictionary (at most 64k).
+     * @param segmentLength
+     *            The length of each dictionary segment (at least 8).
+     * 
+     * @return The dictionary (empty if nothing repeats across the samples).
+     */
+    public static byte[] train(final List<byte[]> samples,
+            final int dictionarySize, final int segmentLength) {
+
+        if (samples == null)
+            throw new IllegalArgumentException();
+
+        if (dictionarySize <= 0 || dictionarySize > LZ4Compressor.MAX_DISTANCE)
+            throw new IllegalArgumentException();
+
+        if (segmentLength < GRAM)
+            throw new IllegalArgumentException();
+
+        /*
+         * Document frequency of each gram (counted once per sample).
+         */
+        final Map<Long, int[]> freq = new HashMap<Long, int[]>();
+
+        long total = 0;
+
+        for (byte[] b : samples) {
+
+            final Set<Long> seen = new HashSet<Long>();
+
+            for (int i = 0; i + GRAM <= b.length; i++) {
+
+                final Long g = gram(b, i);
+
+                if (!seen.add(g))
+                    continue;
+
+                final int[] n = freq.get(g);
+
+                if (n == null) {
+                    freq.put(g, new int[] { 1 });
+                } else {
+                    n[0]++;
+                }
+
+            }
+
+            total += b.length;
+
+        }
+
+        final ByteArrayOutputStream dict = new ByteArrayOutputStream(
+                dictionarySize);
+
+        if (total == 0)
+            return dict.toByteArray();
+
+        final int nsegments = Math.max(1, dictionarySize / segmentLength);
+
+        final long epochSize = Math.max(segmentLength, total / nsegments);
+
+        /*
+         * Visit each epoch, selecting the best segment which lies entirely
+         * within one sample.
+         */
+        long epochStart = 0;
+        int sampleIndex = 0;
+        long sampleStart = 0;
+
+        while (dict.size() + GRAM <= dictionarySize
+                && sampleIndex < samples.size()) {
+
+            final long epochEnd = epochStart + epochSize;
+
+            int bestScore = 0;
+            byte[] bestSample = null;
+            int bestOffset = 0;
+
+            while (sampleIndex < samples.size()) {
+
+                final byte[] b = samples.get(sampleIndex);
+
+                final long sampleEnd = sampleStart + b.length;
+
+                // the part of this sample within the epoch.
+                final int from = (int) Math.max(0, epochStart - sampleStart);
+
+                final int to = (int) Math.min(b.length, epochEnd - sampleStart);
+
+                for (int i = from; i + segmentLength <= b.length && i < to; i++) {
+
+                    final int score = score(freq, b, i, segmentLength);
+
+                    if (score > bestScore) {
+
+                        bestScore = score;
+                        bestSample = b;
+                        bestOffset = i;
+
+                    }
+
+                }
+
+                if (sampleEnd > epochEnd) {
+                    // The rest of this sample is in the next epoch.
+                    break;
+                }
+
+                sampleIndex++;
+
+                sampleStart = sampleEnd;
+
+            }
+
+            epochStart = epochEnd;
+
+            if (bestSample == null)
+                continue;
+
+            final int n = Math.min(segmentLength, dictionarySize - dict.size());
+
+            dict.write(bestSample, bestOffset, n);
+
+            // The grams in this segment are now covered.
+            for (int i = bestOffset; i + GRAM <= bestOffset + n; i++) {
+
+                freq.remove(gram(bestSample, i));
+
+            }
+
+        }
+
+        return dict.toByteArray();
+
+    }
+
+    /**
+     * The sum of the frequency of the grams in the segment which occur in more
+     * than one sample.
+     */
+    private static int score(final Map<Long, int[]> freq, final byte[] b,
+            final int off, final int len) {
+
+        int score = 0;
+
+        for (int i = off; i + GRAM <= off + len; i++) {
+
+            final int[] n = freq.get(gram(b, i));
+
+            if (n != null && n[0] > 1)
+                score += n[0];
+
+        }
+
+        return score;
+
+    }
+
+    private static Long gram(final byte[] b, final int off) {
+
+        long v = 0;
+
+        for (int i = 0; i < GRAM; i++) {
+
+            v = (v << 8) | (b[off + i] & 0xFF);
+
+        }
+
+        return Long.valueOf(v);
+
+    }
+
+}
@@ -0,0 +1,759 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.io.compression;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Pure Java record compressor using the LZ4 block format. Decompression is a
+ * byte copy loop with no entropy decoding, which makes it several times
+ * faster than {@link RecordCompressor} (deflate) on the read path.
+ * <p>
+ * Two match finders are supported. The default uses a single hash probe per
+ * position. The high compression mode walks a hash chain over the 64k window
+ * and takes the longest match, trading write throughput for a better ratio
+ * while keeping the same decoder.
+ * <p>
+ * An optional dictionary (at most 64k) may be given. The dictionary is treated
+ * as if it immediately preceded each record, so matches in small records can
+ * refer to byte sequences which are common to the records of an index (see
+ * {@link DictionaryTrainer}). Records MUST be decompressed with the same
+ * dictionary that was used to compress them.
+ * <p>
+ * The record format is the 4 byte length of the uncompressed data followed by
+ * the LZ4 sequences.
+ * <p>
+ * This class is thread-safe. Decompression returns a newly allocated buffer.
+ * 
+ * @see LZ4RecordCompressorFactory
+ */
+public class LZ4Compressor implements IRecordCompressor, Externalizable {
+
+    protected static final transient Logger log = Logger
+            .getLogger(LZ4Compressor.class);
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = -3203880383003813640L;
+
+    /** The minimum length of a match. */
+    private static final int MIN_MATCH = 4;
+
+    /** The #of bytes at the end of a record which are always literals. */
+    private static final int LAST_LITERALS = 5;
+
+    /** A match may not start within this many bytes of the end of a record. */
+    private static final int MF_LIMIT = 12;
+
+    /** The maximum distance of a match. */
+    static final int MAX_DISTANCE = 0xFFFF;
+
+    private static final int HASH_LOG = 12;
+
+    private static final int HASH_SIZE = 1 << HASH_LOG;
+
+    /** The maximum #of chain entries visited in high compression mode. */
+    private static final int MAX_ATTEMPTS = 64;
+
+    /**
+     * <code>true</code> if the hash chain match finder is used.
+     */
+    private boolean highCompression;
+
+    /**
+     * The dictionary (may be empty, never <code>null</code>).
+     */
+    private byte[] dictionary;
+
+    /**
+     * The hash table for the dictionary, copied into the scratch table before
+     * each record is compressed (default match finder only).
+     */
+    private transient int[] dictionaryTable;
+
+    /**
+     * Scratch state for the match finder (hash table and chain).
+     */
+    private transient ThreadLocal<int[][]> scratch;
+
+    /**
+     * (De-)serialization ctor.
+     */
+    public LZ4Compressor() {
+
+        this(false/* highCompression */, null/* dictionary */);
+
+    }
+
+    /**
+     * @param highCompression
+     *            When <code>true</code> a hash chain is used to find the
+     *            longest match.
+     * @param dictionary
+     *            The dictionary (optional, at most 64k).
+     */
+    public LZ4Compressor(final boolean highCompression, final byte[] dictionary) {
+
+        if (dictionary != null && dictionary.length > MAX_DISTANCE)
+            throw new IllegalArgumentException();
+
+        this.highCompression = highCompression;
+
+        this.dictionary = dictionary == null ? new byte[0] : dictionary;
+
+        init();
+
+    }
+
+    private void init() {
+
+        scratch = new ThreadLocal<int[][]>() {
+            @Override
+            protected int[][] initialValue() {
+                return new int[][] { new int[HASH_SIZE],
+                        highCompression ? new int[MAX_DISTANCE + 1] : null };
+            }
+        };
+
+        dictionaryTable = new int[HASH_SIZE];
+
+        Arrays.fill(dictionaryTable, -1);
+
+        for (int c = 0; c + MIN_MATCH <= dictionary.length; c++) {
+
+            dictionaryTable[hash(readInt(dictionary, c))] = c;
+
+        }
+
+    }
+
+    public boolean isHighCompression() {
+
+        return highCompression;
+
+    }
+
+    /**
+     * The dictionary (NOT a copy, do not modify).
+     */
+    public byte[] getDictionary() {
+
+        return dictionary;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getName() + "{highCompression=" + highCompression
+                + ", dictionaryLength=" + dictionary.length + "}";
+
+    }
+
+    /*
+     * Compression.
+     */
+
+    @Override
+    public void compress(final ByteBuffer bin, final ByteBuffer out) {
+
+        out.put(compress(bin));
+
+    }
+
+    @Override
+    public ByteBuffer compress(final ByteBuffer bin) {
+
+        final byte[] b = toCompressedArray(bin);
+
+        if (log.isTraceEnabled())
+            log.trace("Record compression to " + b.length);
+
+        return ByteBuffer.wrap(b);
+
+    }
+
+    @Override
+    public void compress(final ByteBuffer bin, final OutputStream os) {
+
+        write(toCompressedArray(bin), os);
+
+    }
+
+    @Override
+    public void compress(final byte[] bytes, final OutputStream os) {
+
+        compress(bytes, 0, bytes.length, os);
+
+    }
+
+    @Override
+    public void compress(final byte[] bytes, final int off, final int len,
+            final OutputStream os) {
+
+        final Output out = new Output(len);
+
+        compress(bytes, off, len, out);
+
+        write(out.toByteArray(), os);
+
+    }
+
+    /**
+     * Compress the data from the position to the limit, advancing the
+     * position to the limit.
+     */
+    private byte[] toCompressedArray(final ByteBuffer bin) {
+
+        final int len = bin.remaining();
+
+        final Output out = new Output(len);
+
+        if (bin.hasArray()) {
+
+            compress(bin.array(), bin.arrayOffset() + bin.position(), len, out);
+
+            bin.position(bin.limit());
+
+        } else {
+
+            final byte[] tmp = new byte[len];
+
+            bin.get(tmp);
+
+            compress(tmp, 0, len, out);
+
+        }
+
+        return out.toByteArray();
+
+    }
+
+    private static void write(final byte[] b, final OutputStream os) {
+
+        try {
+
+            os.write(b);
+
+        } catch (IOException ex) {
+
+            throw new RuntimeException(ex);
+
+        }
+
+    }
+
+    /**
+     * Compress the source bytes onto the output.
+     */
+    private void compress(final byte[] src, final int off, final int len,
+            final Output out) {
+
+        out.writeInt(len);
+
+        final byte[] dict = dictionary;
+
+        final int dictLen = dict.length;
+
+        final int[][] state = scratch.get();
+
+        // head[hash] is the most recent coordinate with that hash.
+        final int[] head = state[0];
+
+        // chain[coord & MAX_DISTANCE] is the prior coordinate with that hash.
+        final int[] chain = state[1];
+
+        /*
+         * Note: Coordinates address the dictionary followed by the source, so
+         * the source byte at [p] has the coordinate (dictLen + p).
+         */
+        if (highCompression) {
+
+            Arrays.fill(head, -1);
+
+            for (int c = 0; c + MIN_MATCH <= dictLen; c++) {
+
+                final int h = hash(readInt(dict, c));
+
+                chain[c & MAX_DISTANCE] = head[h];
+
+                head[h] = c;
+
+            }
+
+        } else {
+
+            System.arraycopy(dictionaryTable, 0, head, 0, HASH_SIZE);
+
+        }
+
+        final int limit = len - MF_LIMIT;
+
+        // the end of the last match.
+        final int matchLimit = len - LAST_LITERALS;
+
+        int anchor = 0;
+
+        int p = 0;
+
+        while (p < limit) {
+
+            final int cur = dictLen + p;
+
+            final int h = hash(readInt(src, off + p));
+
+            int cand = head[h];
+
+            int bestLen = 0, bestCoord = -1;
+
+            int attempts = highCompression ? MAX_ATTEMPTS : 1;
+
+            while (cand >= 0 && cur - cand <= MAX_DISTANCE && attempts-- > 0) {
+
+                final int n = matchLength(dict, src, off, cand, p, matchLimit);
+
+                if (n > bestLen) {
+
+                    bestLen = n;
+
+                    bestCoord = cand;
+
+                }
+
+                if (!highCompression)
+                    break;
+
+                final int next = chain[cand & MAX_DISTANCE];
+
+                if (next >= cand) {
+                    // Slot was reused by a more recent coordinate.
+                    break;
+                }
+
+                cand = next;
+
+            }
+
+            insert(head, chain, h, cur);
+
+            if (bestLen < MIN_MATCH) {
+
+                p++;
+
+                continue;
+
+            }
+
+            writeSequence(out, src, off + anchor, p - anchor, cur - bestCoord,
+                    bestLen);
+
+            if (highCompression) {
+
+                // Index the positions covered by the match.
+                for (int i = p + 1; i < p + bestLen && i < limit; i++) {
+
+                    insert(head, chain, hash(readInt(src, off + i)), dictLen
+                            + i);
+
+                }
+
+            }
+
+            p += bestLen;
+
+            anchor = p;
+
+        }
+
+        // Trailing literals.
+        writeLiterals(out, src, off + anchor, len - anchor);
+
+    }
+
+    private void insert(final int[] head, final int[] chain, final int h,
+            final int coord) {
+
+        if (highCompression)
+            chain[coord & MAX_DISTANCE] = head[h];
+
+        head[h] = coord;
+
+    }
+
+    /**
+     * The length of the match between the coordinate and the source position
+     * (zero if the first {@link #MIN_MATCH} bytes differ).
+     */
+    private static int matchLength(final byte[] dict, final byte[] src,
+            final int off, final int coord, final int p, final int matchLimit) {
+
+        final int dictLen = dict.length;
+
+        final int max = matchLimit - p;
+
+        int n = 0;
+
+        while (n < max) {
+
+            final int c = coord + n;
+
+            final byte b = c < dictLen ? dict[c] : src[off + c - dictLen];
+
+            if (b != src[off + p + n])
+                break;
+
+            n++;
+
+        }
+
+        return n;
+
+    }
+
+    private static void writeSequence(final Output out, final byte[] src,
+            final int litOff, final int litLen, final int offset,
+            final int matchLen) {
+
+        final int ml = matchLen - MIN_MATCH;
+
+        out.write(((litLen < 15 ? litLen : 15) << 4) | (ml < 15 ? ml : 15));
+
+        if (litLen >= 15)
+            writeLength(out, litLen - 15);
+
+        out.write(src, litOff, litLen);
+
+        out.write(offset & 0xFF);
+
+        out.write((offset >>> 8) & 0xFF);
+
+        if (ml >= 15)
+            writeLength(out, ml - 15);
+
+    }
+
+    private static void writeLiterals(final Output out, final byte[] src,
+            final int litOff, final int litLen) {
+
+        out.write((litLen < 15 ? litLen : 15) << 4);
+
+        if (litLen >= 15)
+            writeLength(out, litLen - 15);
+
+        out.write(src, litOff, litLen);
+
+    }
+
+    private static void writeLength(final Output out, int n) {
+
+        while (n >= 255) {
+
+            out.write(255);
+
+            n -= 255;
+
+        }
+
+        out.write(n);
+
+    }
+
+    private static int readInt(final byte[] b, final int i) {
+
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8)
+                | ((b[i + 2] & 0xFF) << 16) | ((b[i + 3] & 0xFF) << 24);
+
+    }
+
+    private static int hash(final int i) {
+
+        return (i * -1640531535) >>> (32 - HASH_LOG);
+
+    }
+
+    /*
+     * Decompression.
+     */
+
+    @Override
+    public ByteBuffer decompress(final ByteBuffer bin) {
+
+        if (bin.hasArray()) {
+
+            return ByteBuffer.wrap(decompress(bin.array(), bin.arrayOffset()
+                    + bin.position(), bin.remaining()));
+
+        }
+
+        final byte[] tmp = new byte[bin.remaining()];
+
+        bin.duplicate().get(tmp);
+
+        return decompress(tmp);
+
+    }
+
+    @Override
+    public ByteBuffer decompress(final byte[] bin) {
+
+        return ByteBuffer.wrap(decompress(bin, 0, bin.length));
+
+    }
+
+    /**
+     * Decompress a record.
+     * 
+     * @return The uncompressed data in a new exact fit byte[].
+     */
+    public byte[] decompress(final byte[] src, final int off, final int len) {
+
+        final byte[] dict = dictionary;
+
+        final int dictLen = dict.length;
+
+        final int end = off + len;
+
+        int ip = off;
+
+        final int n = ((src[ip] & 0xFF) << 24) | ((src[ip + 1] & 0xFF) << 16)
+                | ((src[ip + 2] & 0xFF) << 8) | (src[ip + 3] & 0xFF);
+
+        ip += 4;
+
+        if (n < 0)
+            throw new RuntimeException("Corrupt record");
+
+        final byte[] dst = new byte[n];
+
+        int op = 0;
+
+        while (ip < end) {
+
+            final int token = src[ip++] & 0xFF;
+
+            // literals.
+            int litLen = token >>> 4;
+
+            if (litLen == 15) {
+
+                int b;
+
+                do {
+                    b = src[ip++] & 0xFF;
+                    litLen += b;
+                } while (b == 255);
+
+            }
+
+            System.arraycopy(src, ip, dst, op, litLen);
+
+            ip += litLen;
+
+            op += litLen;
+
+            if (ip >= end) {
+                // The last sequence has no match.
+                break;
+            }
+
+            // match.
+            final int offset = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+
+            ip += 2;
+
+            int matchLen = token & 0xF;
+
+            if (matchLen == 15) {
+
+                int b;
+
+                do {
+                    b = src[ip++] & 0xFF;
+                    matchLen += b;
+                } while (b == 255);
+
+            }
+
+            matchLen += MIN_MATCH;
+
+            if (offset == 0 || offset > op + dictLen)
+                throw new RuntimeException("Corrupt record: offset=" + offset);
+
+            int m = op - offset;
+
+            if (m < 0) {
+
+                // copy from the dictionary first.
+                int c = dictLen + m;
+
+                while (c < dictLen && matchLen > 0) {
+
+                    dst[op++] = dict[c++];
+
+                    matchLen--;
+
+                }
+
+                m = 0;
+
+            }
+
+            if (op - m >= matchLen) {
+
+                // no overlap.
+                System.arraycopy(dst, m, dst, op, matchLen);
+
+                op += matchLen;
+
+            } else {
+
+                // overlapping copy.
+                while (matchLen-- > 0) {
+
+                    dst[op++] = dst[m++];
+
+                }
+
+            }
+
+        }
+
+        if (op != n)
+            throw new RuntimeException("Corrupt record: expected=" + n
+                    + ", actual=" + op);
+
+        return dst;
+
+    }
+
+    /*
+     * Externalizable.
+     */
+
+    private static final transient byte VERSION0 = 0x0;
+
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException,
+            ClassNotFoundException {
+
+        final byte version = in.readByte();
+
+        if (version != VERSION0)
+            throw new IOException("Unknown version=" + version);
+
+        highCompression = in.readBoolean();
+
+        dictionary = new byte[in.readInt()];
+
+        in.readFully(dictionary);
+
+        init();
+
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+
+        out.writeByte(VERSION0);
+
+        out.writeBoolean(highCompression);
+
+        out.writeInt(dictionary.length);
+
+        out.write(dictionary);
+
+    }
+
+    /**
+     * A growable output buffer.
+     */
+    private static class Output {
+
+        private byte[] buf;
+
+        private int len;
+
+        Output(final int srcLen) {
+
+            // worst case for incompressible data.
+            buf = new byte[4 + srcLen + srcLen / 255 + 16];
+
+        }
+
+        private void ensure(final int n) {
+
+            if (len + n > buf.length)
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+
+        }
+
+        void write(final int b) {
+
+            ensure(1);
+
+            buf[len++] = (byte) b;
+
+        }
+
+        void write(final byte[] b, final int off, final int n) {
+
+            ensure(n);
+
+            System.arraycopy(b, off, buf, len, n);
+
+            len += n;
+
+        }
+
+        void writeInt(final int v) {
+
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+
+        }
+
+        byte[] toByteArray() {
+
+            return Arrays.copyOf(buf, len);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.io.compression;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import com.bigdata.btree.IndexMetadata;
+
+/**
+ * Factory for the {@link LZ4Compressor}. The factory is serialized with the
+ * {@link IndexMetadata}, so a dictionary trained for a given index (see
+ * {@link DictionaryTrainer}) is available whenever that index is opened. For
+ * example:
+ * 
+ * <pre>
+ * metadata.setBtreeRecordCompressorFactory(new LZ4RecordCompressorFactory(
+ *         true, DictionaryTrainer.train(samples, 16 * 1024)));
+ * </pre>
+ * 
+ * The factory may also be selected by class name using
+ * {@link IndexMetadata.Options#BTREE_RECORD_COMPRESSOR_FACTORY}, in which case
+ * no dictionary is used.
+ * <p>
+ * Note: The compressor is thread-safe, so a single instance is shared.
+ * 
+ * @see LZ4HCRecordCompressorFactory
+ */
+public class LZ4RecordCompressorFactory implements
+        IRecordCompressorFactory<LZ4Compressor>, Externalizable {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 2236815011346347394L;
+
+    private LZ4Compressor compressor;
+
+    /**
+     * (De-)serialization ctor. Also used when the factory is selected by class
+     * name (default match finder, no dictionary).
+     */
+    public LZ4RecordCompressorFactory() {
+
+        this(false/* highCompression */, null/* dictionary */);
+
+    }
+
+    /**
+     * @param highCompression
+     *            When <code>true</code> the slower match finder with the
+     *            better compression ratio is used (decompression speed is
+     *            the same).
+     * @param dictionary
+     *            The dictionary (optional, at most 64k).
+     */
+    public LZ4RecordCompressorFactory(final boolean highCompression,
+            final byte[] dictionary) {
+
+        this.compressor = new LZ4Compressor(highCompression, dictionary);
+
+    }
+
+    @Override
+    public LZ4Compressor getInstance() {
+
+        return compressor;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getName() + "{" + compressor + "}";
+
+    }
+
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException,
+            ClassNotFoundException {
+
+        compressor = new LZ4Compressor();
+
+        compressor.readExternal(in);
+
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+
+        compressor.writeExternal(out);
+
+    }
+
+}
@@ -0,0 +1,266 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.io.writecache;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import com.bigdata.io.compression.RecordCompressor;
+
+/**
+ * A second tier for the {@link WriteCacheService} read cache. Records which
+ * have been read while on a {@link WriteCache.ReadCache} buffer but which are
+ * not hot enough for the hot cache are compressed onto the Java heap when that
+ * buffer is recycled rather than being dropped. The tier is bounded by the #of
+ * compressed bytes and evicts in LRU order.
+ * <p>
+ * The records are stored exactly as they appear on the disk (including the
+ * checksum suffix) so a hit is interchangeable with a read on the backing
+ * file.
+ * <p>
+ * Note: The caller is responsible for invalidating the entry for an offset
+ * before that offset is written on or recycled.
+ */
+public class CompressedReadCache {
+
+    /**
+     * The compressor is not thread-safe, so each thread has its own instance.
+     */
+    private static final ThreadLocal<RecordCompressor> compressor = new ThreadLocal<RecordCompressor>() {
+        @Override
+        protected RecordCompressor initialValue() {
+            return new RecordCompressor(Deflater.BEST_SPEED);
+        }
+    };
+
+    /** The maximum #of compressed bytes retained. */
+    private final long maximumBytes;
+
+    /** The #of compressed bytes retained (guarded by {@link #map}). */
+    private long bytes;
+
+    /**
+     * The compressed records keyed by the file offset in access order (guarded
+     * by synchronized(map)).
+     */
+    private final LinkedHashMap<Long, byte[]> map;
+
+    /**
+     * @param maximumBytes
+     *            The maximum #of compressed bytes to retain (GT ZERO).
+     */
+    public CompressedReadCache(final long maximumBytes) {
+
+        if (maximumBytes <= 0)
+            throw new IllegalArgumentException();
+
+        this.maximumBytes = maximumBytes;
+
+        this.map = new LinkedHashMap<Long, byte[]>(1024, .75f, true/* accessOrder */);
+
+    }
+
+    /**
+     * Compress and retain a record, evicting least recently used records as
+     * necessary.
+     * 
+     * @param offset
+     *            The file offset of the record.
+     * @param data
+     *            The record (including the checksum) between the position and
+     *            the limit. The position is not changed.
+     */
+    public void put(final long offset, final ByteBuffer data) {
+
+        final ByteBuffer c = compressor.get().compress(data.duplicate());
+
+        final byte[] b = new byte[c.remaining()];
+
+        c.get(b);
+
+        if (b.length > maximumBytes)
+            return;
+
+        synchronized (map) {
+
+            final byte[] old = map.put(offset, b);
+
+            if (old != null)
+                bytes -= old.length;
+
+            bytes += b.length;
+
+            final Iterator<Map.Entry<Long, byte[]>> itr = map.entrySet()
+                    .iterator();
+
+            while (bytes > maximumBytes && itr.hasNext()) {
+
+                bytes -= itr.next().getValue().length;
+
+                itr.remove();
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Return the record for that offset.
+     * 
+     * @param offset
+     *            The file offset of the record.
+     * @param nbytes
+     *            The length of the record (including the checksum).
+     * 
+     * @return The decompressed record in a new heap {@link ByteBuffer} -or-
+     *         <code>null</code> if the record is not present.
+     */
+    public ByteBuffer get(final long offset, final int nbytes) {
+
+        final byte[] b;
+        synchronized (map) {
+
+            b = map.get(offset);
+
+        }
+
+        return b == null ? null : decompress(b, nbytes);
+
+    }
+
+    /**
+     * Remove and return the record for that offset.
+     * 
+     * @param offset
+     *            The file offset of the record.
+     * @param nbytes
+     *            The length of the record (including the checksum).
+     * 
+     * @return The decompressed record in a new heap {@link ByteBuffer} -or-
+     *         <code>null</code> if the record is not present.
+     */
+    public ByteBuffer remove(final long offset, final int nbytes) {
+
+        final byte[] b;
+        synchronized (map) {
+
+            b = map.remove(offset);
+
+            if (b == null)
+                return null;
+
+            bytes -= b.length;
+
+        }
+
+        return decompress(b, nbytes);
+
+    }
+
+    private ByteBuffer decompress(final byte[] b, final int nbytes) {
+
+        // Note: a view onto a buffer shared by the current thread.
+        final ByteBuffer d = compressor.get().decompress(b);
+
+        if (d.remaining() != nbytes) {
+
+            // Not the same record (the caller should have invalidated it).
+            return null;
+
+        }
+
+        final byte[] a = new byte[nbytes];
+
+        d.get(a);
+
+        return ByteBuffer.wrap(a);
+
+    }
+
+    /**
+     * Invalidate the record for that offset (if present).
+     */
+    public void clear(final long offset) {
+
+        synchronized (map) {
+
+            final byte[] old = map.remove(offset);
+
+            if (old != null)
+                bytes -= old.length;
+
+        }
+
+    }
+
+    /**
+     * Discard all records.
+     */
+    public void clear() {
+
+        synchronized (map) {
+
+            map.clear();
+
+            bytes = 0L;
+
+        }
+
+    }
+
+    /**
+     * The #of records retained.
+     */
+    public int size() {
+
+        synchronized (map) {
+
+            return map.size();
+
+        }
+
+    }
+
+    /**
+     * The #of compressed bytes retained.
+     */
+    public long bytes() {
+
+        synchronized (map) {
+
+            return bytes;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,217 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.io.writecache;
+
+/**
+ * A compact, approximate frequency histogram for file offsets used to make
+ * admission decisions for the read cache (TinyLFU). The sketch is a count-min
+ * sketch with four rows of 4-bit saturating counters packed into a
+ * <code>long[]</code>. Once the #of recorded accesses reaches the sample size
+ * all counters are halved so the sketch tracks recent rather than historical
+ * frequency.
+ * <p>
+ * Note: Updates are NOT synchronized. Concurrent increments may be lost, which
+ * is acceptable since the sketch only needs to distinguish records which are
+ * touched repeatedly from records which are touched once by a scan.
+ * 
+ * @see WriteCacheService
+ */
+public class FrequencySketch {
+
+    /** Mask used to halve all counters in a word. */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /** Seeds for the per-row hash functions. */
+    private static final long[] SEEDS = new long[] { 0xc3a5c85c97cb3127L,
+            0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+    /** The counters (16 x 4-bit counters per word). */
+    private final long[] table;
+
+    /** Mask used to index into {@link #table}. */
+    private final int tableMask;
+
+    /** The #of increments after which the counters are halved. */
+    private final int sampleSize;
+
+    /** The #of increments since the last reset (approximate). */
+    private int size;
+
+    /**
+     * @param maximumSize
+     *            The expected #of distinct records in the cache (GT ZERO).
+     */
+    public FrequencySketch(final int maximumSize) {
+
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException();
+
+        final int n = Integer.highestOneBit(Math.max(16,
+                Math.min(maximumSize, 1 << 30)) - 1) << 1;
+
+        this.table = new long[n];
+
+        this.tableMask = n - 1;
+
+        this.sampleSize = 10 * Math.min(maximumSize, Integer.MAX_VALUE / 10);
+
+    }
+
+    /**
+     * Record an access to the record at that offset.
+     */
+    public void increment(final long offset) {
+
+        final long hash = spread(offset);
+
+        final int start = (int) (hash & 3) << 2;
+
+        boolean added = false;
+
+        for (int i = 0; i < 4; i++) {
+
+            added |= incrementAt(indexOf(hash, i), start + i);
+
+        }
+
+        if (added && ++size >= sampleSize) {
+
+            reset();
+
+        }
+
+    }
+
+    /**
+     * Return the estimated #of recent accesses to the record at that offset
+     * (saturates at 15).
+     */
+    public int frequency(final long offset) {
+
+        final long hash = spread(offset);
+
+        final int start = (int) (hash & 3) << 2;
+
+        int min = Integer.MAX_VALUE;
+
+        for (int i = 0; i < 4; i++) {
+
+            final int shift = (start + i) << 2;
+
+            final int count = (int) ((table[indexOf(hash, i)] >>> shift) & 0xfL);
+
+            min = Math.min(min, count);
+
+        }
+
+        return min;
+
+    }
+
+    /**
+     * Halve all counters (aging).
+     */
+    void reset() {
+
+        for (int i = 0; i < table.length; i++) {
+
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+
+        }
+
+        size = size >>> 1;
+
+    }
+
+    /**
+     * Clear all counters.
+     */
+    public void clear() {
+
+        for (int i = 0; i < table.length; i++) {
+
+            table[i] = 0L;
+
+        }
+
+        size = 0;
+
+    }
+
+    /**
+     * Increment the j-th 4-bit counter in the i-th word unless it is saturated.
+     * 
+     * @return <code>true</code> if the counter was incremented.
+     */
+    private boolean incrementAt(final int i, final int j) {
+
+        final int shift = j << 2;
+
+        final long mask = 0xfL << shift;
+
+        final long word = table[i];
+
+        if ((word & mask) != mask) {
+
+            table[i] = word + (1L << shift);
+
+            return true;
+
+        }
+
+        return false;
+
+    }
+
+    private int indexOf(final long hash, final int i) {
+
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+
+        h += h >>> 32;
+
+        return ((int) h) & tableMask;
+
+    }
+
+    /**
+     * File offsets are aligned on slot boundaries, so the low bits must be
+     * mixed before they are used.
+     */
+    private static long spread(final long offset) {
+
+        long h = offset * 0x9e3779b97f4a7c15L;
+
+        h ^= h >>> 32;
+
+        h ^= h >>> 16;
+
+        return h;
+
+    }
+
+}
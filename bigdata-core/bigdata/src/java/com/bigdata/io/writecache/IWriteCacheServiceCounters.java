@@ -213,4 +213,62 @@ public interface IWriteCacheServiceCounters {
      */
     String MEMO_CACHE_SIZE = "memoCacheSize";
 
+    /*
+     * Per-tier hit counters. The hit rates are the #of hits for the tier
+     * divided by the #of read requests made on the service.
+     */
+
+    /**
+     * The #of read requests made on the {@link WriteCacheService}.
+     */
+    String NREAD_REQUESTS = "nreadRequests";
+
+    /**
+     * The #of read requests satisfied by a dirty or clean write cache buffer.
+     */
+    String NWRITE_CACHE_HIT = "nwriteCacheHit";
+
+    /**
+     * The #of read requests satisfied by the read cache (other than the hot
+     * cache).
+     */
+    String NREAD_CACHE_HIT = "nreadCacheHit";
+
+    /**
+     * The #of read requests satisfied by the hot cache.
+     */
+    String NHOT_CACHE_HIT = "nhotCacheHit";
+
+    /**
+     * The #of read requests satisfied by the compressed read cache tier.
+     */
+    String NCOMPRESSED_CACHE_HIT = "ncompressedCacheHit";
+
+    /**
+     * The #of records read from the disk which were not installed into the read
+     * cache because their estimated access frequency was below the admission
+     * threshold.
+     */
+    String NREAD_NOT_ADMITTED = "nreadNotAdmitted";
+
+    /**
+     * The hit rate for the write cache buffers.
+     */
+    String WRITE_CACHE_HIT_RATE = "writeCacheHitRate";
+
+    /**
+     * The hit rate for the read cache (other than the hot cache).
+     */
+    String READ_CACHE_HIT_RATE = "readCacheHitRate";
+
+    /**
+     * The hit rate for the hot cache.
+     */
+    String HOT_CACHE_HIT_RATE = "hotCacheHitRate";
+
+    /**
+     * The hit rate for the compressed read cache tier.
+     */
+    String COMPRESSED_CACHE_HIT_RATE = "compressedCacheHitRate";
+
 } // interface IWriteCacheCounters
@@ -2059,6 +2059,12 @@ abstract public class WriteCache implements IWriteCache {
 
     public static class ReadCache extends WriteCache {
 
+		/**
+		 * <code>true</code> iff this buffer is part of the hot cache (used to
+		 * report hits by tier).
+		 */
+		private volatile boolean hot = false;
+
 		public ReadCache(IBufferAccess buf) throws InterruptedException {
 			super(buf, false/* prefixWrites */, true/* useChecksum */,
 					false/* isHighlyAvailable */, false/* bufferHasData */, 0/* fileExtent */);
@@ -2095,6 +2101,23 @@ abstract public class WriteCache implements IWriteCache {
 	        
 	    }
 	    
+		/**
+		 * Return <code>true</code> iff this buffer is part of the hot cache.
+		 */
+		boolean isHot() {
+			return hot;
+		}
+
+		/**
+		 * Called from WCS when moving a buffer onto the hotList.
+		 * 
+		 * @return this ReadCache
+		 */
+		ReadCache setHot() {
+			hot = true;
+			return this;
+		}
+
 	    @Override
 	    public void closeForWrites() {
 
@@ -2120,6 +2143,7 @@ abstract public class WriteCache implements IWriteCache {
          * @return this ReadCache
          */
 		ReadCache resetHitCounts() {
+			hot = false;
 			Iterator<RecordMetadata> mds = recordMap.values().iterator();
 			
 			while (mds.hasNext()) {
@@ -30,9 +30,12 @@ package com.bigdata.io.writecache;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
@@ -231,6 +234,22 @@ abstract public class WriteCacheService implements IWriteCache {
      */
     private Future<Void> localWriteFuture;
 
+    /**
+     * The maximum #of dirty {@link WriteCache} buffers which the
+     * {@link WriteTask} will write onto the backing store concurrently.
+     * 
+     * @see com.bigdata.journal.Options#WRITE_CACHE_WRITER_COUNT
+     */
+    final private int writerCount;
+
+    /**
+     * The service used by the {@link WriteTask} to write dirty
+     * {@link WriteCache} buffers concurrently -or- <code>null</code> if the
+     * buffers are written one at a time by the {@link WriteTask} (always the
+     * case for HA since the buffers must be replicated in order).
+     */
+    final private ExecutorService writerService;
+
     /**
      * The {@link Future} of the task running on the {@link #remoteWriteService}
      * .
@@ -507,9 +526,39 @@ abstract public class WriteCacheService implements IWriteCache {
             final IBackingReader reader)
             throws InterruptedException {
 
+        this(nwriteBuffers, minCleanListSize, nreadBuffers, prefixWrites,
+                compactionThreshold, hotCacheSize, hotCacheThreshold,
+                useChecksum, fileExtent, opener, quorum, reader, 1/* writerCount */);
+
+    }
+
+    /**
+     * Allocates N buffers from the {@link DirectBufferPool}.
+     * 
+     * @param writerCount
+     *            The maximum #of dirty {@link WriteCache} buffers which will be
+     *            written onto the backing store concurrently (GTE ONE). This
+     *            is ignored (and the buffers are written one at a time) if
+     *            there is a {@link Quorum}.
+     * 
+     * @see #WriteCacheService(int, int, int, boolean, int, int, int, boolean,
+     *      long, IReopenChannel, Quorum, IBackingReader)
+     */
+    public WriteCacheService(final int nwriteBuffers, int minCleanListSize,
+            final int nreadBuffers,
+            final boolean prefixWrites, final int compactionThreshold,
+            final int hotCacheSize, final int hotCacheThreshold,
+            final boolean useChecksum, final long fileExtent,
+            final IReopenChannel<? extends Channel> opener, final Quorum quorum,
+            final IBackingReader reader, final int writerCount)
+            throws InterruptedException {
+
         if (nwriteBuffers <= 0)
             throw new IllegalArgumentException();
 
+        if (writerCount <= 0)
+            throw new IllegalArgumentException();
+
         if (minCleanListSize == 0) { // default
 
             /*
@@ -649,7 +698,7 @@ the clear/dirty list threshold)
         
         // pre-populate hotList and readList
         for (int i = 0; i < hotListSize; i++) {
-        	hotList.add(readBuffers[i]);
+        	hotList.add(readBuffers[i].setHot());
         }
 
         for (int i = hotListSize; i < readListSize; i++) {
@@ -731,6 +780,25 @@ the clear/dirty list threshold)
                 .newSingleThreadExecutor(new DaemonThreadFactory(getClass()
                         .getName()));
 
+        /*
+         * Service used to write dirty buffers concurrently. HA must write (and
+         * replicate) the buffers in order.
+         */
+        this.writerCount = quorum == null ? Math.min(writerCount,
+                nwriteBuffers) : 1;
+
+        if (this.writerCount > 1) {
+
+            writerService = Executors.newFixedThreadPool(this.writerCount,
+                    new DaemonThreadFactory(getClass().getName()
+                            + ".writerService"));
+
+        } else {
+
+            writerService = null;
+
+        }
+
         // run the write task
         localWriteFuture = localWriteService.submit(newWriteTask());
         
@@ -852,6 +920,136 @@ the clear/dirty list threshold)
      */
     private ReadCache hotReserve = null;
 
+    /**
+     * The frequency sketch used to decide whether a record read from the disk
+     * is admitted into the read cache -or- <code>null</code> if all such
+     * records are admitted.
+     * 
+     * @see #setReadCachePolicy(int, long)
+     */
+    private volatile FrequencySketch admissionSketch = null;
+
+    /**
+     * The estimated #of recent reads of a record required before it is
+     * admitted into the read cache.
+     * 
+     * @see #setReadCachePolicy(int, long)
+     */
+    private volatile int admissionFrequency = 0;
+
+    /**
+     * The compressed second tier of the read cache -or- <code>null</code> if
+     * records are dropped when they are evicted from the read cache.
+     * 
+     * @see #setReadCachePolicy(int, long)
+     */
+    private volatile CompressedReadCache compressedCache = null;
+
+    /**
+     * Configure the scan resistance of the read cache.
+     * <p>
+     * When an admission frequency is given, every read request is recorded in
+     * a {@link FrequencySketch} and a record read from the disk is only
+     * installed into the read cache once it has been read at least that many
+     * times recently. Records touched once (for example, by a large scan) are
+     * returned to the caller without displacing the working set.
+     * <p>
+     * When a compressed cache size is given, records which were read while on
+     * a {@link ReadCache} buffer but which are not promoted to the hot cache
+     * are compressed onto the heap when that buffer is recycled. A hit on this
+     * tier avoids the disk read and the record is installed back into the read
+     * cache.
+     * <p>
+     * Note: This is a NOP if there is no read cache.
+     * 
+     * @param admissionFrequency
+     *            The #of recent reads required for admission (ZERO admits all
+     *            records; at most 15).
+     * @param compressedCacheBytes
+     *            The maximum #of bytes for the compressed tier (ZERO disables
+     *            that tier).
+     */
+    public void setReadCachePolicy(final int admissionFrequency,
+            final long compressedCacheBytes) {
+
+        if (admissionFrequency < 0 || admissionFrequency > 15)
+            throw new IllegalArgumentException();
+
+        if (compressedCacheBytes < 0)
+            throw new IllegalArgumentException();
+
+        if (readListSize == 0)
+            return;
+
+        this.admissionFrequency = admissionFrequency;
+
+        /*
+         * Note: The sketch is sized assuming an average record of 1k. Under
+         * estimating the #of records only makes the sketch less precise.
+         */
+        this.admissionSketch = admissionFrequency == 0 ? null
+                : new FrequencySketch((int) Math.min(Integer.MAX_VALUE,
+                        Math.max(1024, (long) readListSize * capacity / 1024)));
+
+        this.compressedCache = compressedCacheBytes == 0 ? null
+                : new CompressedReadCache(compressedCacheBytes);
+
+    }
+
+    /**
+     * Copy the records which were read while on the given {@link ReadCache}
+     * buffer onto the compressed tier (if enabled). This is invoked before the
+     * buffer is recycled.
+     * 
+     * @param cache
+     *            The buffer to be recycled.
+     * @param threshold
+     *            Records with at least this many hits are not retained (they
+     *            will be transferred to the hot cache).
+     */
+    private void retainReads(final ReadCache cache, final int threshold) {
+
+        final CompressedReadCache tier2 = compressedCache;
+
+        if (tier2 == null || cache.isEmpty())
+            return;
+
+        final ByteBuffer buf = cache.peek();
+
+        if (buf == null)
+            return;
+
+        final Iterator<Map.Entry<Long, RecordMetadata>> itr = cache.recordMap
+                .entrySet().iterator();
+
+        while (itr.hasNext()) {
+
+            final Map.Entry<Long, RecordMetadata> e = itr.next();
+
+            final RecordMetadata md = e.getValue();
+
+            final int nhits = md.getHitCount();
+
+            if (nhits == 0 || nhits >= threshold)
+                continue;
+
+            if (serviceMap.get(e.getKey()) != cache) {
+                // Cleared or moved.
+                continue;
+            }
+
+            final ByteBuffer rec = buf.duplicate();
+
+            rec.limit(md.bufferOffset + md.recordLength);
+
+            rec.position(md.bufferOffset);
+
+            tier2.put(e.getKey(), rec);
+
+        }
+
+    }
+
 //    /**
 //     * Computes modular distance of a circular number list.
 //     * 
@@ -1003,6 +1201,21 @@ the clear/dirty list threshold)
                 // Await dirty cache buffer.
                 final WriteCache cache = awaitDirtyBuffer();
 
+                if (writerService != null) {
+
+                    final List<WriteCache> batch = getWriteBatch(cache);
+
+                    if (batch.size() > 1) {
+
+                        // Write the buffers concurrently.
+                        writeCacheBlocks(batch);
+
+                        continue;
+
+                    }
+
+                }
+
                 boolean didCompact = false;
                 boolean didWrite = false;
 
@@ -1105,6 +1318,214 @@ the clear/dirty list threshold)
             } // while(true)
             
         } // doRun()
+
+        /**
+         * Return the dirty buffers which may be written concurrently, starting
+         * with the buffer at the head of the {@link #dirtyList}. A buffer is
+         * only included if it would be written (rather than compacted) and if
+         * it does not write on any file offset which is written by another
+         * buffer in the batch. Writes are only made against the [current]
+         * buffer, so a record which is recycled after the batch is formed
+         * will be written by a later batch.
+         * 
+         * @param head
+         *            The {@link WriteCache} at the head of the
+         *            {@link #dirtyList}.
+         * 
+         * @return The batch, in {@link #dirtyList} order. The batch is empty
+         *         if the head is empty or must be compacted.
+         */
+        private List<WriteCache> getWriteBatch(final WriteCache head) {
+
+            final List<WriteCache> batch = new LinkedList<WriteCache>();
+
+            final Set<Long> offsets = new HashSet<Long>();
+
+            // Note: Only this thread removes buffers from the dirtyList.
+            final Iterator<WriteCache> itr = dirtyList.iterator();
+
+            while (itr.hasNext() && batch.size() < writerCount) {
+
+                final WriteCache cache = itr.next();
+
+                if (batch.isEmpty() && cache != head)
+                    throw new AssertionError();
+
+                if (cache.isEmpty()) {
+
+                    // Handled by the serial code path (no IO).
+                    break;
+
+                }
+
+                if (compactionEnabled && !directWrite
+                        && cache.potentialCompaction() >= compactionThreshold) {
+
+                    // Compaction is serial.
+                    break;
+
+                }
+
+                boolean overlap = false;
+
+                for (Long offset : cache.recordMap.keySet()) {
+
+                    if (!offsets.add(offset)) {
+
+                        overlap = true;
+
+                        break;
+
+                    }
+
+                }
+
+                if (overlap) {
+
+                    // Must be written after the buffers in the batch.
+                    break;
+
+                }
+
+                batch.add(cache);
+
+            }
+
+            return batch;
+
+        }
+
+        /**
+         * Write the {@link WriteCache} buffers at the head of the
+         * {@link #dirtyList} concurrently onto the backing store, then move
+         * them to the {@link #cleanList}. The buffers are removed from the
+         * {@link #dirtyList} only once all of them have been written, so a
+         * {@link #flush(boolean)} (and hence the commit) will not proceed
+         * until all of those writes are done.
+         * <p>
+         * Note: This is only used when there is no {@link Quorum}.
+         * 
+         * @param batch
+         *            The buffers (from {@link #getWriteBatch(WriteCache)}).
+         */
+        private void writeCacheBlocks(final List<WriteCache> batch)
+                throws InterruptedException, ExecutionException {
+
+            assert quorum == null;
+
+            final List<Future<Long>> futures = new LinkedList<Future<Long>>();
+
+            try {
+
+                for (final WriteCache cache : batch) {
+
+                    // Must be closed for writes.
+                    cache.closeForWrites();
+
+                    if (cache.peek().position() == 0) {
+                        // Empty cache.
+                        continue;
+                    }
+
+                    // Increment WriteCache sequence.
+                    cacheSequence.getAndIncrement();
+
+                    // Set the current file extent on the WriteCache.
+                    cache.setFileExtent(fileExtent.get());
+
+                    final long nrecs = cache.recordMap.size();
+
+                    futures.add(writerService.submit(new Callable<Long>() {
+                        @Override
+                        public Long call() throws Exception {
+                            final long begin = System.nanoTime();
+                            // Flush WriteCache buffer to channel.
+                            cache.flush(false/* force */);
+                            return System.nanoTime() - begin;
+                        }
+                    }));
+
+                    final WriteCacheServiceCounters c = counters.get();
+                    c.nbufferEvictedToChannel++;
+                    c.nrecordsEvictedToChannel += nrecs;
+
+                }
+
+                /*
+                 * Wait for all of the writes, even if one of them fails. The
+                 * other writers are not interrupted since an interrupt during
+                 * an IO would close the channel for all of them.
+                 */
+                ExecutionException firstError = null;
+
+                for (Future<Long> f : futures) {
+
+                    try {
+
+                        final long elapsed = f.get();
+
+                        counters.get().elapsedBufferEvictedToChannelNanos += elapsed;
+
+                    } catch (ExecutionException ex) {
+
+                        if (firstError == null)
+                            firstError = ex;
+
+                    }
+
+                }
+
+                if (firstError != null) {
+
+                    // The batch stays on the dirtyList and the WriteTask halts.
+                    throw firstError;
+
+                }
+
+            } finally {
+
+                for (Future<Long> f : futures) {
+
+                    // Cancel any outstanding writes if we were interrupted.
+                    f.cancel(true/* mayInterruptIfRunning */);
+
+                }
+
+            }
+
+            // Now written, remove from dirtyList.
+            for (final WriteCache cache : batch) {
+
+                if (dirtyList.take() != cache)
+                    throw new AssertionError();
+
+                counters.get().ndirty--;
+
+            }
+
+            dirtyListLock.lockInterruptibly();
+            try {
+                if (dirtyList.isEmpty()) {
+                    /*
+                     * Signal Condition when we release the dirtyListLock.
+                     */
+                    dirtyListEmpty.signalAll();
+                }
+            } finally {
+                dirtyListLock.unlock();
+            }
+
+            for (final WriteCache cache : batch) {
+
+                addClean(cache, false/* addFirst */);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info("Wrote " + batch.size()
+                        + " buffers concurrently: nwrites=" + futures.size());
+
+        }
         
         /**
          * We choose here whether to compact the cache.
@@ -1777,6 +2198,11 @@ the clear/dirty list threshold)
 	         */
 	        // clear the service record map.
 	        serviceMap.clear();
+
+	        final CompressedReadCache tier2 = compressedCache;
+	        if (tier2 != null) {
+	            tier2.clear();
+	        }
 	
 	        // reset each buffer.
 	        for (WriteCache t : writeBuffers) {
@@ -1863,6 +2289,11 @@ the clear/dirty list threshold)
         // Immediate shutdown of the write service.
         localWriteService.shutdownNow();
 
+        if (writerService != null) {
+            // Immediate shutdown of the concurrent writers (if any).
+            writerService.shutdownNow();
+        }
+
 //          // Immediate shutdown of the remote write service (if running).
 //          if (remoteWriteService != null) {
 //              remoteWriteService.shutdownNow();
@@ -1952,6 +2383,12 @@ the clear/dirty list threshold)
                 hotReserve = null;
             }
 
+            // discard the compressed read cache tier.
+            final CompressedReadCache tier2 = compressedCache;
+            if (tier2 != null) {
+                tier2.clear();
+            }
+
             // clear the service record map.
             serviceMap.clear();
 
@@ -2473,6 +2910,15 @@ the clear/dirty list threshold)
             throw new IllegalArgumentException(
                     AbstractBufferStrategy.ERR_BUFFER_NULL);
 
+        final CompressedReadCache tier2 = compressedCache;
+
+        if (tier2 != null) {
+
+            // Any copy of an old record at that offset is no longer valid.
+            tier2.clear(offset);
+
+        }
+
         // #of bytes in the record.
         final int remaining = data.remaining();
 
@@ -3143,11 +3589,14 @@ the clear/dirty list threshold)
              */
             synchronized (readCache) {
                 if (hotCache == null) {
+                    retainReads(tmp, Integer.MAX_VALUE/* threshold */);
                     tmp.resetWith(serviceMap);
                     return tmp;
                 }
                 int cycles = 0;
                 while (tmp != null) {
+                    retainReads(tmp, hotCacheThreshold);
+
                     if (log.isDebugEnabled() && !tmp.isEmpty()) {
                         /*
                          * Just debug stuff.
@@ -3199,7 +3648,7 @@ the clear/dirty list threshold)
                         throw new AssertionError();
                     }
                     tmp.reset();
-                    hotReserve = tmp;
+                    hotReserve = tmp.setHot();
 
                     tmp = readList.poll();
                 } // while (tmp != null)
@@ -3235,6 +3684,17 @@ the clear/dirty list threshold)
     public ByteBuffer read(final long offset, final int nbytes)
             throws InterruptedException, ChecksumError {
 
+        counters.get().nreadRequests.increment();
+
+        final FrequencySketch sketch = admissionSketch;
+
+        if (sketch != null) {
+
+            // Record the access for the read cache admission policy.
+            sketch.increment(offset);
+
+        }
+
         // Check the cache.
         final ByteBuffer tmp = _readFromCache(offset, nbytes);
 
@@ -3336,9 +3796,22 @@ the clear/dirty list threshold)
 
                 }
 
-                if (ret != null)
+                if (ret != null) {
+
+                    // Track hits by tier.
+                    final WriteCacheServiceCounters c = counters.get();
+                    if (!(cache instanceof ReadCache)) {
+                        c.nwriteCacheHit.increment();
+                    } else if (((ReadCache) cache).isHot()) {
+                        c.nhotCacheHit.increment();
+                    } else {
+                        c.nreadCacheHit.increment();
+                    }
+
                     return ret;
 
+                }
+
                 // May have been transferred to another Cache!
                 //
                 // Fall through.
@@ -3603,6 +4076,32 @@ the clear/dirty list threshold)
             return ret;
         }
 
+        final CompressedReadCache tier2 = compressedCache;
+
+        final FrequencySketch sketch = admissionSketch;
+
+        if (sketch != null && sketch.frequency(offset) < admissionFrequency) {
+
+            /*
+             * Not read often enough (recently) to displace records already in
+             * the read cache. Read through without installing the record.
+             */
+            counters.get().nreadNotAdmitted.increment();
+
+            final ByteBuffer raw = tier2 == null ? null : tier2.get(offset,
+                    nbytes);
+
+            return _readFromTierOrDisk(offset, nbytes, raw);
+
+        }
+
+        /*
+         * If the record is on the compressed tier then it is removed from that
+         * tier and installed into the read cache from there.
+         */
+        final ByteBuffer raw = tier2 == null ? null : tier2.remove(offset,
+                nbytes);
+
         /*
          * The reader threads co-operatively manage the readCache on behalf of
          * the WCS. The allocation attempt for a cache buffer is serialized and
@@ -3699,7 +4198,11 @@ the clear/dirty list threshold)
                  * ByteBuffer and return that to the caller.
                  */
                 assert willInstall == false;
-                return _readFromLocalDiskIntoNewHeapByteBuffer(offset, nbytes);
+                if (raw != null) {
+                    // Return the record to the compressed tier.
+                    tier2.put(offset, raw);
+                }
+                return _readFromTierOrDisk(offset, nbytes, raw);
     		}
 
             /*
@@ -3710,8 +4213,16 @@ the clear/dirty list threshold)
             // The offset into [bb] of the allocation.
 		    final int pos = bb.position();
 		    
-		    // Read the record from the disk into NIO buffer.
-		    final ByteBuffer ret = reader.readRaw(offset, bb);
+		    // Read the record from the disk (or compressed tier) into NIO buffer.
+		    final ByteBuffer ret;
+		    if (raw != null) {
+		        counters.get().ncompressedCacheHit.increment();
+		        bb.put(raw);
+		        bb.position(pos);
+		        ret = bb;
+		    } else {
+		        ret = reader.readRaw(offset, bb);
+		    }
 		
 		    // must copy to heap buffer from cache, allowing for checksum
             final byte[] b = new byte[nbytes - 4];
@@ -3754,6 +4265,52 @@ the clear/dirty list threshold)
  
 	}
 
+    /**
+     * Return a record which is not installed into the read cache, using the
+     * copy from the compressed tier if there is one and otherwise reading
+     * through to the backing file.
+     * 
+     * @param offset
+     *            The byte offset of the record on the backing file.
+     * @param nbytes
+     *            The #of bytes to be read.
+     * @param raw
+     *            The record (including the checksum) from the compressed tier
+     *            -or- <code>null</code>.
+     * 
+     * @return The record in a heap {@link ByteBuffer}.
+     */
+    private final ByteBuffer _readFromTierOrDisk(final long offset,
+            final int nbytes, final ByteBuffer raw) {
+
+        if (raw == null) {
+
+            return _readFromLocalDiskIntoNewHeapByteBuffer(offset, nbytes);
+
+        }
+
+        counters.get().ncompressedCacheHit.increment();
+
+        final ByteBuffer ret = raw.duplicate();
+
+        final int chk = ChecksumUtility.getCHK().checksum(ret.array(),
+                0/* offset */, nbytes - 4/* len */); // read checksum
+
+        final int tstchk = ret.getInt(nbytes - 4);
+
+        if (chk != tstchk)
+            throw new ChecksumError("offset=" + offset + ",nbytes=" + nbytes
+                    + ",expected=" + tstchk + ",actual=" + chk);
+
+        ret.limit(nbytes - 4);
+
+        // This read was not installed into the read cache.
+        counters.get().nreadNotInstalled.increment();
+
+        return ret;
+
+    }
+
     /**
      * Read through to the backing file.
      * 
@@ -3874,6 +4431,11 @@ the clear/dirty list threshold)
      *            the address to check
      */
     public boolean clearWrite(final long offset, final int latchedAddr) {
+        final CompressedReadCache tier2 = compressedCache;
+        if (tier2 != null) {
+            // The record is no longer valid.
+            tier2.clear(offset);
+        }
         try {
             counters.get().nclearAddrRequests++;
             while (true) {
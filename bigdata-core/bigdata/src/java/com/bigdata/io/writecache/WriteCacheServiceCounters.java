@@ -167,6 +167,38 @@ public class WriteCacheServiceCounters extends WriteCacheCounters implements
     public final CAT nreadNotInstalled = new CAT();
     
     public final CAT memoCacheSize = new CAT();
+
+    /**
+     * The #of read requests made on the {@link WriteCacheService}.
+     */
+    public final CAT nreadRequests = new CAT();
+
+    /**
+     * The #of read requests satisfied by a write cache buffer.
+     */
+    public final CAT nwriteCacheHit = new CAT();
+
+    /**
+     * The #of read requests satisfied by the read cache (other than the hot
+     * cache).
+     */
+    public final CAT nreadCacheHit = new CAT();
+
+    /**
+     * The #of read requests satisfied by the hot cache.
+     */
+    public final CAT nhotCacheHit = new CAT();
+
+    /**
+     * The #of read requests satisfied by the compressed read cache tier.
+     */
+    public final CAT ncompressedCacheHit = new CAT();
+
+    /**
+     * The #of records read from the disk which were not admitted into the read
+     * cache.
+     */
+    public final CAT nreadNotAdmitted = new CAT();
     
     public WriteCacheServiceCounters(final int nbuffers,
             final int dirtyListThreshold, final int compactingThreshold) {
@@ -366,8 +398,93 @@ public class WriteCacheServiceCounters extends WriteCacheCounters implements
             }
         });
 
+        /*
+         * Per-tier hit counters.
+         */
+
+        root.addCounter(NREAD_REQUESTS, new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(nreadRequests.get());
+            }
+        });
+
+        root.addCounter(NWRITE_CACHE_HIT, new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(nwriteCacheHit.get());
+            }
+        });
+
+        root.addCounter(NREAD_CACHE_HIT, new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(nreadCacheHit.get());
+            }
+        });
+
+        root.addCounter(NHOT_CACHE_HIT, new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(nhotCacheHit.get());
+            }
+        });
+
+        root.addCounter(NCOMPRESSED_CACHE_HIT, new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(ncompressedCacheHit.get());
+            }
+        });
+
+        root.addCounter(NREAD_NOT_ADMITTED, new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(nreadNotAdmitted.get());
+            }
+        });
+
+        root.addCounter(WRITE_CACHE_HIT_RATE, new Instrument<Double>() {
+            @Override
+            public void sample() {
+                setValue(hitRate(nwriteCacheHit));
+            }
+        });
+
+        root.addCounter(READ_CACHE_HIT_RATE, new Instrument<Double>() {
+            @Override
+            public void sample() {
+                setValue(hitRate(nreadCacheHit));
+            }
+        });
+
+        root.addCounter(HOT_CACHE_HIT_RATE, new Instrument<Double>() {
+            @Override
+            public void sample() {
+                setValue(hitRate(nhotCacheHit));
+            }
+        });
+
+        root.addCounter(COMPRESSED_CACHE_HIT_RATE, new Instrument<Double>() {
+            @Override
+            public void sample() {
+                setValue(hitRate(ncompressedCacheHit));
+            }
+        });
+
         return root;
 
     }
 
+    /**
+     * Return the #of hits for some tier as a fraction of the read requests.
+     */
+    private double hitRate(final CAT nhit) {
+
+        final long nreads = nreadRequests.get();
+
+        return nreads == 0L ? 0d : (double) nhit.get() / nreads;
+
+    }
+
 } // class WriteCacheServiceCounters
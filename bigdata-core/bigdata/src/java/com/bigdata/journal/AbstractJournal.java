@@ -6983,6 +6983,13 @@ public abstract class AbstractJournal implements IJournal/* , ITimestampService
      * If this is not done then it is possible for the allocation data - both
      * metabits and fixed allocator commit bits - to be overwritten and inconsistent
      * with the saved root blocks.
+     * <p>
+     * For an RWStore with a cold tier, the regions on the cold tier are added
+     * to the snapshot past the end of the heap and the current root block is
+     * rewritten accordingly (see
+     * {@link RWStore#snapshotAllocationData(ISnapshotData, IRootBlockView)}).
+     * The caller MUST invoke {@link ISnapshotData#release()} once the
+     * snapshot was written.
      * 
      * @throws IOException 
      */
@@ -7011,11 +7018,16 @@ public abstract class AbstractJournal implements IJournal/* , ITimestampService
 			if (bs instanceof RWStrategy) {
 				final RWStore rws = ((RWStrategy) bs).getStore();
 				
-				// get metabits
-				rws.snapshotMetabits(tm);
+				// get metabits, committed allocations and the cold tier (if any)
+				final IRootBlockView rb = rws.snapshotAllocationData(tm, rbv.get());
 				
-				// get committed allocations
-				rws.snapshotAllocators(tm);
+				if (rb != rbv.get()) {
+					tm.put((long) (rb.isRootBlock0() ? FileMetadata.OFFSET_ROOT_BLOCK0
+							: FileMetadata.OFFSET_ROOT_BLOCK1), BytesUtil.toArray(rb
+							.asReadOnlyBuffer()));
+					
+					rbv.set(rb);
+				}
 			}
 			
 			
@@ -8711,54 +8723,70 @@ public abstract class AbstractJournal implements IJournal/* , ITimestampService
     public interface ISnapshotData {
     	void put(long addr, byte[] data);
     	
+    	/**
+    	 * Add an entry whose data is only read when the snapshot is written
+    	 * (such as a region of the RWStore cold tier).
+    	 */
+    	void put(ISnapshotEntry entry);
+    	
     	Iterator<ISnapshotEntry> entries();
+    	
+    	/**
+    	 * Register a task to be run by {@link #release()}.
+    	 */
+    	void onRelease(Runnable task);
+    	
+    	/**
+    	 * Release the resources held for the snapshot once it was written (or
+    	 * abandoned).
+    	 */
+    	void release();
     }
     
     static public class SnapshotData implements ISnapshotData {
     	
-    	final TreeMap<Long, byte[]> m_map = new TreeMap<Long, byte[]>();
-
-		@Override
-		public void put(long addr, byte[] data) {
-			m_map.put(addr, data);
-		}
+    	final TreeMap<Long, ISnapshotEntry> m_map = new TreeMap<Long, ISnapshotEntry>();
+    	
+    	final List<Runnable> m_release = new LinkedList<Runnable>();
 
 		@Override
-		public Iterator<ISnapshotEntry> entries() {
-			final Iterator<Map.Entry<Long, byte[]>> entries = m_map.entrySet().iterator();
-			
-			return new Iterator<ISnapshotEntry>() {
+		public void put(final long addr, final byte[] data) {
+			m_map.put(addr, new ISnapshotEntry() {
 
 				@Override
-				public boolean hasNext() {
-					return entries.hasNext();
+				public long getAddress() {
+					return addr;
 				}
 
 				@Override
-				public ISnapshotEntry next() {
-					final Map.Entry<Long, byte[]> entry = entries.next();
-					return new ISnapshotEntry() {
+				public byte[] getData() {
+					return data;
+				}
+				
+			});
+		}
 
-						@Override
-						public long getAddress() {
-							return entry.getKey();
-						}
+		@Override
+		public void put(final ISnapshotEntry entry) {
+			m_map.put(entry.getAddress(), entry);
+		}
 
-						@Override
-						public byte[] getData() {
-							return entry.getValue();
-						}
-						
-					};
-				}
+		@Override
+		public Iterator<ISnapshotEntry> entries() {
+			return m_map.values().iterator();
+		}
 
-				@Override
-				public void remove() {
-					entries.remove();
-				}
-				
-			};
-		}   	
+		@Override
+		synchronized public void onRelease(final Runnable task) {
+			m_release.add(task);
+		}
+
+		@Override
+		synchronized public void release() {
+			while (!m_release.isEmpty()) {
+				m_release.remove(0).run();
+			}
+		}
     }
 
     @Override
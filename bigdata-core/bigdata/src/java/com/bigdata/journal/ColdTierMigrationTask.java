@@ -0,0 +1,103 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.journal;
+
+import java.util.concurrent.Callable;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.rwstore.RWStore;
+
+/**
+ * Task migrates the allocators of an {@link RWStrategy} backed journal which
+ * hold only historical data onto the cold tier of the store. The records are
+ * copied without blocking concurrent reads, writes or commits. The task then
+ * submits an unisolated task which writes nothing so that the tier map (and
+ * the return of emptied cold allocators to the backing file) is made durable
+ * by a group commit rather than by a commit interleaved with the writes of
+ * other unisolated tasks.
+ * 
+ * @see Journal#migrateColdAllocators()
+ * @see RWStore#migrateColdAllocators()
+ */
+public class ColdTierMigrationTask implements Callable<Integer> {
+
+    private static final Logger log = Logger
+            .getLogger(ColdTierMigrationTask.class);
+
+    /**
+     * The journal.
+     */
+    private final Journal journal;
+
+    /**
+     * @param journal
+     *            The journal (must be backed by an {@link RWStrategy}).
+     */
+    public ColdTierMigrationTask(final Journal journal) {
+
+        if (journal == null)
+            throw new IllegalArgumentException();
+
+        if (!(journal.getBufferStrategy() instanceof RWStrategy))
+            throw new UnsupportedOperationException();
+
+        this.journal = journal;
+
+    }
+
+    /**
+     * @return The #of allocators which were migrated.
+     */
+    @Override
+    public Integer call() throws Exception {
+
+        final RWStore store = ((RWStrategy) journal.getBufferStrategy())
+                .getStore();
+
+        final long begin = System.currentTimeMillis();
+
+        final int nmigrated = store.migrateColdAllocators();
+
+        if (store.requiresCommit()) {
+
+            journal.getConcurrencyManager()
+                    .submit(new OnlineCompactTask.CommitTask(journal
+                            .getConcurrencyManager())).get();
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("Migrated " + nmigrated + " allocators: elapsed="
+                    + (System.currentTimeMillis() - begin) + "ms");
+
+        return nmigrated;
+
+    }
+
+}
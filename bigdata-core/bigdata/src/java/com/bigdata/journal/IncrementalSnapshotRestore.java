@@ -0,0 +1,289 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.journal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.io.ChecksumUtility;
+import com.bigdata.io.FileChannelUtility;
+
+/**
+ * Utility applies a chain of incremental snapshots to a copy of a full
+ * snapshot of a journal. The first incremental snapshot must have been taken
+ * against the commit point of the full snapshot and each subsequent
+ * incremental snapshot against the commit point of its predecessor. Each
+ * incremental snapshot is verified (store UUID, base commit counter and the
+ * checksum of each entry) before any of its entries are written onto the
+ * journal.
+ * <p>
+ * Note: The journal file is modified in place. If the restore fails part way
+ * through an incremental snapshot then the journal must be restored from the
+ * full snapshot again. The full snapshot must be decompressed first if it was
+ * compressed (see {@link SnapshotTask#decompress(File, File)}).
+ * 
+ * @see IncrementalSnapshotTask
+ */
+public class IncrementalSnapshotRestore {
+
+   private static final Logger log = Logger
+         .getLogger(IncrementalSnapshotRestore.class);
+
+   /**
+    * Apply the incremental snapshots, in the given order, to the journal.
+    * 
+    * @param journalFile
+    *           The journal (a copy of a full snapshot). It must not be open.
+    * @param snapshots
+    *           The incremental snapshots.
+    * 
+    * @return The commit counter of the restored journal.
+    * 
+    * @throws IOException
+    *            if an incremental snapshot is corrupt or does not continue the
+    *            chain.
+    */
+   public static long apply(final File journalFile, final File... snapshots)
+         throws IOException {
+
+      if (!journalFile.exists())
+         throw new FileNotFoundException(journalFile.getAbsolutePath());
+
+      final RandomAccessFile raf = new RandomAccessFile(journalFile, "rw");
+      try {
+
+         final IRootBlockView rbv = readRootBlock(raf);
+
+         final UUID uuid = rbv.getUUID();
+
+         long commitCounter = rbv.getCommitCounter();
+
+         for (File snapshot : snapshots) {
+
+            // verify the snapshot before writing anything.
+            final long newCommitCounter = process(snapshot, uuid,
+                  commitCounter, null/* raf */);
+
+            process(snapshot, uuid, commitCounter, raf);
+
+            raf.getChannel().force(true/* metaData */);
+
+            if (log.isInfoEnabled())
+               log.info("Applied " + snapshot + ": commitCounter="
+                     + newCommitCounter);
+
+            commitCounter = newCommitCounter;
+
+         }
+
+         return commitCounter;
+
+      } finally {
+
+         raf.close();
+
+      }
+
+   }
+
+   /**
+    * Read an incremental snapshot, verifying the checksum of each entry.
+    * 
+    * @param raf
+    *           The journal on which the entries are written -or-
+    *           <code>null</code> to only verify the snapshot.
+    * 
+    * @return The commit counter of the snapshot.
+    */
+   private static long process(final File snapshot, final UUID uuid,
+         final long baseCommitCounter, final RandomAccessFile raf)
+         throws IOException {
+
+      final DataInputStream is = new DataInputStream(openStream(snapshot));
+      try {
+
+         if (is.readInt() != IncrementalSnapshotTask.MAGIC)
+            throw new IOException("Not an incremental snapshot: " + snapshot);
+
+         final int version = is.readInt();
+
+         if (version != IncrementalSnapshotTask.VERSION)
+            throw new IOException("Unknown version: " + version + ", file="
+                  + snapshot);
+
+         final UUID tmp = new UUID(is.readLong(), is.readLong());
+
+         if (!uuid.equals(tmp))
+            throw new IOException("Different store: expected=" + uuid
+                  + ", actual=" + tmp + ", file=" + snapshot);
+
+         final long base = is.readLong();
+
+         if (base != baseCommitCounter)
+            throw new IOException("Not the next snapshot in the chain: base="
+                  + base + ", expected=" + baseCommitCounter + ", file="
+                  + snapshot);
+
+         final long commitCounter = is.readLong();
+
+         final long extent = is.readLong();
+
+         if (raf != null && raf.length() < extent)
+            raf.setLength(extent);
+
+         final ChecksumUtility chk = ChecksumUtility.getCHK();
+
+         byte[] buf = new byte[0];
+
+         long offset;
+
+         while ((offset = is.readLong()) != -1L) {
+
+            final int len = is.readInt();
+
+            if (offset < 0 || len < 0)
+               throw new IOException("Bad entry: offset=" + offset + ", len="
+                     + len + ", file=" + snapshot);
+
+            if (buf.length < len)
+               buf = new byte[len];
+
+            is.readFully(buf, 0, len);
+
+            if (is.readInt() != chk.checksum(buf, 0, len))
+               throw new IOException("Bad checksum: offset=" + offset
+                     + ", file=" + snapshot);
+
+            if (raf != null)
+               FileChannelUtility.writeAll(raf.getChannel(),
+                     ByteBuffer.wrap(buf, 0, len), offset);
+
+         }
+
+         return commitCounter;
+
+      } finally {
+
+         is.close();
+
+      }
+
+   }
+
+   /**
+    * Open an incremental snapshot, which may be compressed.
+    */
+   private static InputStream openStream(final File snapshot)
+         throws IOException {
+
+      final InputStream is = new BufferedInputStream(new FileInputStream(
+            snapshot));
+
+      // Test for the GZIP magic.
+      is.mark(2);
+      final int b0 = is.read();
+      final int b1 = is.read();
+      is.reset();
+
+      if (b0 == (GZIPInputStream.GZIP_MAGIC & 0xff)
+            && b1 == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+
+         return new GZIPInputStream(is, SnapshotTask.GZIP_BUFFER);
+
+      }
+
+      return is;
+
+   }
+
+   private static IRootBlockView readRootBlock(final RandomAccessFile raf)
+         throws IOException {
+
+      final ChecksumUtility checker = ChecksumUtility.getCHK();
+
+      final byte[] b0 = new byte[RootBlockView.SIZEOF_ROOT_BLOCK];
+      final byte[] b1 = new byte[RootBlockView.SIZEOF_ROOT_BLOCK];
+
+      raf.seek(FileMetadata.OFFSET_ROOT_BLOCK0);
+      raf.readFully(b0);
+      raf.seek(FileMetadata.OFFSET_ROOT_BLOCK1);
+      raf.readFully(b1);
+
+      return RootBlockUtility.chooseRootBlock(
+            new RootBlockView(true/* rootBlock0 */, ByteBuffer.wrap(b0),
+                  checker),
+            new RootBlockView(false/* rootBlock0 */, ByteBuffer.wrap(b1),
+                  checker));
+
+   }
+
+   /**
+    * Apply a chain of incremental snapshots to a copy of a full snapshot.
+    * 
+    * @param args
+    *           <code>journalFile incrementalSnapshot...</code>
+    * 
+    * @throws IOException
+    */
+   public static void main(final String[] args) throws IOException {
+
+      if (args.length < 2) {
+
+         System.err.println("usage: <journalFile> <incrementalSnapshot>...");
+
+         System.exit(1);
+
+      }
+
+      final File[] snapshots = new File[args.length - 1];
+
+      for (int i = 1; i < args.length; i++) {
+
+         snapshots[i - 1] = new File(args[i]);
+
+      }
+
+      final long commitCounter = apply(new File(args[0]), snapshots);
+
+      System.out.println("Restored " + args[0] + " to commitCounter="
+            + commitCounter);
+
+   }
+
+}
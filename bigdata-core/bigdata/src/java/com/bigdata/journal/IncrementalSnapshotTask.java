@@ -0,0 +1,314 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.io.ChecksumUtility;
+import com.bigdata.journal.AbstractJournal.ISnapshotData;
+import com.bigdata.journal.AbstractJournal.ISnapshotEntry;
+import com.bigdata.rwstore.RWStore;
+
+/**
+ * Take an incremental snapshot of the journal. The snapshot holds only the
+ * allocation blocks changed since the commit point of a previous (full or
+ * incremental) snapshot together with the allocation data and root blocks of
+ * the current commit point. The changed blocks are identified by the change
+ * log of the {@link RWStore}, which must have been enabled before the commit
+ * point of the previous snapshot.
+ * <p>
+ * The snapshot is a stream (optionally compressed) consisting of a header
+ * followed by a sequence of <code>{offset, length, bytes, checksum}</code>
+ * entries, each of which is written onto the backing file at the given offset
+ * when the snapshot is applied by {@link IncrementalSnapshotRestore}.
+ * <p>
+ * Note: As for a {@link SnapshotTask}, the regions on the cold tier (if any)
+ * are relocated onto the backing file by the snapshot (see
+ * {@link RWStore#snapshotAllocationData(ISnapshotData, IRootBlockView)}). Since
+ * they are relocated by each snapshot, every incremental snapshot includes all
+ * of the cold tier.
+ * 
+ * @see Journal#incrementalSnapshot(ISnapshotFactory, long)
+ * @see RWStore.Options#CHANGE_LOG_FILE
+ * @see IncrementalSnapshotRestore
+ */
+public class IncrementalSnapshotTask implements Callable<ISnapshotResult> {
+
+   private static final Logger log = Logger
+         .getLogger(IncrementalSnapshotTask.class);
+
+   /**
+    * The magic value at the start of an incremental snapshot.
+    */
+   static final int MAGIC = 0x62646973; // "bdis"
+
+   /**
+    * The current version of the incremental snapshot format.
+    */
+   static final int VERSION = 0;
+
+   /**
+    * The maximum #of bytes in an entry. Larger regions are broken into
+    * several entries.
+    */
+   private static final int MAX_ENTRY_SIZE = 1024 * 1024;
+
+   private final Journal journal;
+   private final ISnapshotFactory snapshotFactory;
+   private final long baseCommitCounter;
+
+   /**
+    * @param journal
+    *           The journal (must be backed by an {@link RWStrategy}).
+    * @param snapshotFactory
+    *           The factory that will provide the name of the file on which the
+    *           snapshot will be written.
+    * @param baseCommitCounter
+    *           The commit counter of the previous snapshot.
+    */
+   public IncrementalSnapshotTask(final Journal journal,
+         final ISnapshotFactory snapshotFactory, final long baseCommitCounter) {
+      if (journal == null)
+         throw new IllegalArgumentException();
+      if (snapshotFactory == null)
+         throw new IllegalArgumentException();
+      if (baseCommitCounter <= 0L)
+         throw new IllegalArgumentException();
+      if (!(journal.getBufferStrategy() instanceof RWStrategy))
+         throw new UnsupportedOperationException();
+      this.journal = journal;
+      this.snapshotFactory = snapshotFactory;
+      this.baseCommitCounter = baseCommitCounter;
+   }
+
+   @Override
+   public ISnapshotResult call() throws Exception {
+
+      final RWStore store = ((RWStrategy) journal.getBufferStrategy())
+            .getStore();
+
+      // Grab a read lock.
+      final long txId = journal.newTx(ITx.READ_COMMITTED);
+      ISnapshotData coreData = null;
+      try {
+
+         /*
+          * Get all snapshot core data, including rootblocks and any allocation
+          * data, setting the current committed rootblock view.
+          */
+         final AtomicReference<IRootBlockView> rbv = new AtomicReference<IRootBlockView>();
+         coreData = journal.snapshotAllocationData(rbv);
+
+         final long commitCounter = rbv.get().getCommitCounter();
+
+         if (commitCounter <= baseCommitCounter) {
+
+            throw new IllegalStateException("No commits since base: base="
+                  + baseCommitCounter + ", commitCounter=" + commitCounter);
+
+         }
+
+         // The regions changed since the base (throws if not logged).
+         final List<long[]> regions = store.getChangedRegions(
+               baseCommitCounter, commitCounter);
+
+         final File file = snapshotFactory.getSnapshotFile(rbv.get());
+
+         if (file.exists() && file.length() != 0L) {
+
+            // Do not overwrite an existing snapshot.
+            throw new IOException("File exists: " + file);
+
+         }
+
+         final File parentDir = file.getAbsoluteFile().getParentFile();
+
+         // Make sure the parent directory(ies) exist.
+         if (!parentDir.exists())
+            if (!parentDir.mkdirs())
+               throw new IOException("Could not create directory: " + parentDir);
+
+         /*
+          * Write the snapshot on a temporary file which is renamed onto the
+          * target file name iff the snapshot is successfully written.
+          */
+         final File tmp = File.createTempFile(
+               SnapshotTask.SNAPSHOT_TMP_PREFIX,
+               SnapshotTask.SNAPSHOT_TMP_SUFFIX, parentDir);
+
+         long nbytes = 0L;
+         boolean success = false;
+         try {
+
+            OutputStream osx = new FileOutputStream(tmp);
+
+            if (snapshotFactory.getCompress())
+               osx = new GZIPOutputStream(osx, SnapshotTask.GZIP_BUFFER);
+            else
+               osx = new BufferedOutputStream(osx);
+
+            final DataOutputStream os = new DataOutputStream(osx);
+
+            try {
+
+               os.writeInt(MAGIC);
+               os.writeInt(VERSION);
+               os.writeLong(rbv.get().getUUID().getMostSignificantBits());
+               os.writeLong(rbv.get().getUUID().getLeastSignificantBits());
+               os.writeLong(baseCommitCounter);
+               os.writeLong(commitCounter);
+               os.writeLong(store.getStoreFile().length());
+
+               // The changed regions.
+               final ByteBuffer buf = ByteBuffer.allocate(MAX_ENTRY_SIZE);
+
+               for (long[] region : regions) {
+
+                  long done = 0L;
+
+                  while (done < region[1]) {
+
+                     buf.clear();
+                     buf.limit((int) Math.min(MAX_ENTRY_SIZE, region[1] - done));
+                     store.readRaw(region[0] + done, buf);
+
+                     writeEntry(os, region[0] + done, buf.array(), buf.limit());
+
+                     done += buf.limit();
+
+                  }
+
+                  nbytes += region[1];
+
+               }
+
+               /*
+                * The allocation data and root blocks. These are written last
+                * since they make the regions visible.
+                */
+               final Iterator<ISnapshotEntry> itr = coreData.entries();
+
+               while (itr.hasNext()) {
+
+                  final ISnapshotEntry e = itr.next();
+
+                  final byte[] data = e.getData();
+
+                  writeEntry(os, e.getAddress(), data, data.length);
+
+               }
+
+               // end of entries.
+               os.writeLong(-1L);
+
+               os.flush();
+
+            } finally {
+
+               os.close();
+
+            }
+
+            // done.
+            success = true;
+
+         } finally {
+
+            /*
+             * Either rename the temporary file onto the target filename or
+             * delete the tempoary file.
+             */
+            if (success) {
+
+               if (!tmp.renameTo(file)) {
+
+                  log.error("Could not rename " + tmp + " as " + file);
+
+               } else {
+
+                  if (log.isInfoEnabled())
+                     log.info("Captured incremental snapshot: " + file
+                           + ", baseCommitCounter=" + baseCommitCounter
+                           + ", commitCounter=" + commitCounter
+                           + ", nregions=" + regions.size() + ", nbytes="
+                           + nbytes + ", length=" + file.length());
+
+               }
+
+            } else {
+
+               if (!tmp.delete()) {
+
+                  log.warn("Could not delete temporary file: " + tmp);
+
+               }
+
+            }
+
+         }
+
+         // Done.
+         return new SnapshotResult(file, snapshotFactory.getCompress(),
+               rbv.get());
+
+      } finally {
+         if (coreData != null) {
+            // Release the resources held for the snapshot (if any).
+            coreData.release();
+         }
+         // Release the read lock.
+         journal.abort(txId);
+      }
+
+   }
+
+   private static void writeEntry(final DataOutputStream os,
+         final long offset, final byte[] data, final int len)
+         throws IOException {
+
+      os.writeLong(offset);
+      os.writeInt(len);
+      os.write(data, 0, len);
+      os.writeInt(ChecksumUtility.getCHK().checksum(data, 0, len));
+
+   }
+
+}
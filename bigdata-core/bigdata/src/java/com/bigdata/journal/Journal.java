@@ -255,6 +255,22 @@ public class Journal extends AbstractJournal implements IConcurrencyManager,
         String READ_POOL_SIZE = Journal.class.getName() + ".readPoolSize";
 
         String DEFAULT_READ_POOL_SIZE = "0";
+
+        /**
+         * The maximum #of leaves which a tuple cursor on a read-only
+         * {@link BTree} will schedule for materialization ahead of its current
+         * leaf (default {@value #DEFAULT_READ_AHEAD_LEAVES}). The leaves are
+         * read by the {@link Journal#getReadExecutor()} when
+         * {@link #READ_POOL_SIZE} is positive and otherwise by a pool which
+         * reads at most this many leaves at a time for all cursors. ZERO (0)
+         * disables read ahead for cursors.
+         * 
+         * @see Journal#getReadAheadLeaves()
+         * @see Journal#getReadAheadExecutor()
+         */
+        String READ_AHEAD_LEAVES = Journal.class.getName() + ".readAheadLeaves";
+
+        String DEFAULT_READ_AHEAD_LEAVES = "4";
         
     }
     
@@ -315,6 +331,29 @@ public class Journal extends AbstractJournal implements IConcurrencyManager,
                 
             }
 
+            readAheadLeaves = Integer.valueOf(properties.getProperty(
+                    Options.READ_AHEAD_LEAVES,
+                    Options.DEFAULT_READ_AHEAD_LEAVES));
+
+            if (readAheadLeaves < 0)
+                throw new IllegalArgumentException(Options.READ_AHEAD_LEAVES
+                        + "=" + readAheadLeaves);
+
+            if (readAheadLeaves == 0) {
+
+                readAheadService = null;
+
+            } else if (readService != null) {
+
+                readAheadService = readService;
+
+            } else {
+
+                readAheadService = new LatchedExecutor(executorService,
+                        readAheadLeaves);
+
+            }
+
         }
 
         resourceLocator = newResourceLocator();
@@ -2883,6 +2922,107 @@ public class Journal extends AbstractJournal implements IConcurrencyManager,
 
    }
 
+   /**
+    * Submit a task that will take an incremental snapshot of the journal and
+    * return the {@link Future} for that task. The incremental snapshot holds
+    * only the allocation blocks which were changed since the commit point of a
+    * previous (full or incremental) snapshot, plus the allocation data and
+    * root blocks for the current commit point. A chain of incremental
+    * snapshots may be applied to a copy of a full snapshot using
+    * {@link IncrementalSnapshotRestore}. The backing store MUST be an
+    * {@link RWStrategy} on which the {@link RWStore.Options#CHANGE_LOG_FILE}
+    * was specified before the commit point of the previous snapshot.
+    * 
+    * @param snapshotFactory
+    *           The factory that will provide the name of the file on which the
+    *           snapshot will be written.
+    * @param baseCommitCounter
+    *           The commit counter of the previous snapshot (see
+    *           {@link ISnapshotResult#getRootBlock()}).
+    * 
+    * @return The {@link Future} for the snapshot.
+    * 
+    * @throws UnsupportedOperationException
+    *            if the backing store is not an {@link RWStrategy}.
+    * 
+    * @see IncrementalSnapshotTask
+    */
+   public Future<ISnapshotResult> incrementalSnapshot(
+         final ISnapshotFactory snapshotFactory, final long baseCommitCounter) {
+
+      if (!(getBufferStrategy() instanceof RWStrategy)) {
+
+         throw new UnsupportedOperationException();
+
+      }
+
+      return executorService.submit(new IncrementalSnapshotTask(this,
+            snapshotFactory, baseCommitCounter));
+
+   }
+
+   /**
+    * Submit a task that will compact the journal while it remains online and
+    * return the {@link Future} for that task. The B+Tree pages which live in
+    * the trailing allocation blocks of sparsely utilized allocators are
+    * relocated, those blocks are released once they are empty and the backing
+    * file is truncated to the new end of the heap. The backing store MUST be
+    * an {@link RWStrategy}.
+    * 
+    * @param maxUtilization
+    *           An allocator is evacuated iff its utilization (the fraction of
+    *           its slots which are allocated) is LTE this value. Must be in
+    *           <code>(0:1)</code>.
+    * 
+    * @return The {@link Future} for the task. The future evaluates to the #of
+    *         bytes by which the backing file was truncated.
+    * 
+    * @throws UnsupportedOperationException
+    *            if the backing store is not an {@link RWStrategy}.
+    * 
+    * @see OnlineCompactTask
+    */
+   public Future<Long> compactOnline(final float maxUtilization) {
+
+      if (!(getBufferStrategy() instanceof RWStrategy)) {
+
+         throw new UnsupportedOperationException();
+
+      }
+
+      return executorService.submit(new OnlineCompactTask(this,
+            maxUtilization));
+
+   }
+
+   /**
+    * Submit a task that will migrate the allocators which hold only historical
+    * data onto the cold tier of the backing store and return the
+    * {@link Future} for that task. The tier map is made durable by a group
+    * commit once the allocators have been migrated. The backing store MUST be
+    * an {@link RWStrategy} which was configured with a cold tier.
+    * 
+    * @return The {@link Future} for the task. The future evaluates to the #of
+    *         allocators which were migrated.
+    * 
+    * @throws UnsupportedOperationException
+    *            if the backing store is not an {@link RWStrategy}.
+    * 
+    * @see ColdTierMigrationTask
+    * @see com.bigdata.rwstore.RWStore.Options#COLD_TIER_FILE
+    */
+   public Future<Integer> migrateColdAllocators() {
+
+      if (!(getBufferStrategy() instanceof RWStrategy)) {
+
+         throw new UnsupportedOperationException();
+
+      }
+
+      return executorService.submit(new ColdTierMigrationTask(this));
+
+   }
+
    @Override
 	public void dropIndex(final String name) {
 
@@ -3989,6 +4129,36 @@ public class Journal extends AbstractJournal implements IConcurrencyManager,
     }
     private final LatchedExecutor readService;
 
+    /**
+     * The maximum #of leaves which a tuple cursor on a read-only
+     * {@link BTree} will read ahead of its current leaf using the
+     * {@link #getReadAheadExecutor()}.
+     * 
+     * @see Options#READ_AHEAD_LEAVES
+     */
+    public int getReadAheadLeaves() {
+
+        return readAheadLeaves;
+
+    }
+    private final int readAheadLeaves;
+
+    /**
+     * The executor used by tuple cursors on a read-only {@link BTree} to read
+     * leaves ahead of the cursor. This is the {@link #getReadExecutor()} if
+     * one was configured and otherwise runs at most
+     * {@link #getReadAheadLeaves()} reads at a time. It is <code>null</code>
+     * iff read ahead is disabled.
+     * 
+     * @see Options#READ_AHEAD_LEAVES
+     */
+    public LatchedExecutor getReadAheadExecutor() {
+
+        return readAheadService;
+
+    }
+    private final LatchedExecutor readAheadService;
+
     /*
      * Warm-up Journal.
      */
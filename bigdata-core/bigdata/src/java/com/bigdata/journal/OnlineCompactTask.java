@@ -0,0 +1,289 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.journal;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.btree.BTree;
+import com.bigdata.btree.ILocalBTreeView;
+import com.bigdata.rawstore.IAddressFilter;
+import com.bigdata.rwstore.RWStore;
+import com.bigdata.util.InnerCause;
+
+/**
+ * Task compacts an {@link RWStrategy} backed journal while it remains online.
+ * The trailing allocation blocks of the allocators whose utilization is at or
+ * below a threshold are placed into an evacuation mode (the allocators do not
+ * satisfy new allocations) when they lie above the highest region which can
+ * not be moved. The nodes and leaves of each named {@link BTree} which live in
+ * those blocks are then relocated by an unisolated task (one index at a time)
+ * using the normal copy-on-write protocol. The relocated pages are written
+ * onto other allocators when the task commits and the old addresses are
+ * released through the deferred free protocol. The task then commits until
+ * the evacuated blocks have been released by the store (or
+ * {@link #MAX_COMMITS} is reached), which lowers the end of the heap and
+ * truncates the backing file.
+ * <p>
+ * Note: The old addresses are only released once the history retention
+ * period allows it, so blocks are not released unless the retention period
+ * expires while the task is running.
+ * <p>
+ * Note: Only {@link BTree}s are relocated. The pages of other index types and
+ * raw records (including those referenced from the index leaves) are not
+ * moved, so blocks holding them are not released.
+ * 
+ * @see Journal#compactOnline(float)
+ * @see RWStore#beginEvacuation(float)
+ */
+public class OnlineCompactTask implements Callable<Long> {
+
+    private static final Logger log = Logger.getLogger(OnlineCompactTask.class);
+
+    /**
+     * The maximum #of commits made while waiting for the evacuated blocks to
+     * be released. Each commit releases the deferred frees which are older
+     * than the history retention period and the blocks which are then empty.
+     */
+    static final int MAX_COMMITS = 4;
+
+    /**
+     * The journal.
+     */
+    private final Journal journal;
+
+    /**
+     * An allocator is evacuated iff its utilization is GT ZERO and LTE this
+     * value.
+     */
+    private final float maxUtilization;
+
+    /**
+     * @param journal
+     *            The journal (must be backed by an {@link RWStrategy}).
+     * @param maxUtilization
+     *            An allocator is evacuated iff its utilization (the fraction
+     *            of its slots which are allocated) is LTE this value. Must be
+     *            in <code>(0:1)</code>.
+     */
+    public OnlineCompactTask(final Journal journal, final float maxUtilization) {
+
+        if (journal == null)
+            throw new IllegalArgumentException();
+
+        if (!(journal.getBufferStrategy() instanceof RWStrategy))
+            throw new UnsupportedOperationException();
+
+        if (maxUtilization <= 0f || maxUtilization >= 1f)
+            throw new IllegalArgumentException();
+
+        this.journal = journal;
+
+        this.maxUtilization = maxUtilization;
+
+    }
+
+    /**
+     * @return The #of bytes by which the backing file was truncated.
+     */
+    @Override
+    public Long call() throws Exception {
+
+        final RWStrategy bufferStrategy = (RWStrategy) journal
+                .getBufferStrategy();
+
+        final RWStore store = bufferStrategy.getStore();
+
+        final int nallocators = store.beginEvacuation(maxUtilization);
+
+        if (nallocators == 0) {
+
+            if (log.isInfoEnabled())
+                log.info("No allocators to evacuate: maxUtilization="
+                        + maxUtilization);
+
+            return 0L;
+
+        }
+
+        final long begin = System.currentTimeMillis();
+
+        final long extent = bufferStrategy.getExtent();
+
+        long nrelocated = 0L;
+
+        int ncommits = 0;
+
+        try {
+
+            final IAddressFilter filter = new IAddressFilter() {
+                @Override
+                public boolean accept(final long addr) {
+                    return bufferStrategy.isEvacuating(addr);
+                }
+            };
+
+            // Snapshot the B+Tree names before submitting any writes.
+            final List<String> names = new LinkedList<String>();
+            {
+                final long commitTime = journal.getLastCommitTime();
+
+                final Iterator<String> itr = journal.indexNameScan(
+                        null/* prefix */, commitTime);
+
+                while (itr.hasNext()) {
+
+                    final String name = itr.next();
+
+                    /*
+                     * Note: The unisolated view of an index which is not a
+                     * BTree can not be obtained from an AbstractTask.
+                     */
+                    if (journal.getIndexLocal(name, commitTime) instanceof BTree)
+                        names.add(name);
+
+                }
+            }
+
+            for (String name : names) {
+
+                try {
+
+                    nrelocated += journal
+                            .getConcurrencyManager()
+                            .submit(new RelocateIndexTask(journal
+                                    .getConcurrencyManager(), name, filter))
+                            .get();
+
+                } catch (ExecutionException ex) {
+
+                    if (InnerCause.isInnerCause(ex,
+                            NoSuchIndexException.class)) {
+
+                        // Dropped concurrently.
+                        continue;
+
+                    }
+
+                    throw ex;
+
+                }
+
+            }
+
+            while (store.getEvacuationCount() > 0 && ncommits < MAX_COMMITS) {
+
+                journal.getConcurrencyManager()
+                        .submit(new CommitTask(journal.getConcurrencyManager()))
+                        .get();
+
+                ncommits++;
+
+            }
+
+        } finally {
+
+            store.endEvacuation();
+
+        }
+
+        final long truncated = extent - bufferStrategy.getExtent();
+
+        if (log.isInfoEnabled())
+            log.info("Evacuated " + nallocators + " allocators: nrelocated="
+                    + nrelocated + ", ncommits=" + ncommits + ", truncated="
+                    + truncated + ", elapsed="
+                    + (System.currentTimeMillis() - begin) + "ms");
+
+        return truncated;
+
+    }
+
+    /**
+     * Unisolated task which writes nothing. The group commit which follows it
+     * lets the store release the evacuated blocks (or write the cold tier map)
+     * without a commit being interleaved with the writes of other unisolated
+     * tasks.
+     */
+    static class CommitTask extends AbstractTask<Void> {
+
+        CommitTask(final IConcurrencyManager concurrencyManager) {
+
+            super(concurrencyManager, ITx.UNISOLATED, new String[0]);
+
+        }
+
+        @Override
+        protected Void doTask() throws Exception {
+
+            return null;
+
+        }
+
+    }
+
+    /**
+     * Unisolated task relocates the pages of a single named index.
+     */
+    private static class RelocateIndexTask extends AbstractTask<Long> {
+
+        private final IAddressFilter filter;
+
+        RelocateIndexTask(final IConcurrencyManager concurrencyManager,
+                final String name, final IAddressFilter filter) {
+
+            super(concurrencyManager, ITx.UNISOLATED, name);
+
+            this.filter = filter;
+
+        }
+
+        @Override
+        protected Long doTask() throws Exception {
+
+            final ILocalBTreeView ndx = getIndex(getOnlyResource());
+
+            if (!(ndx instanceof BTree)) {
+
+                // Not a simple B+Tree view (e.g., a FusedView).
+                return 0L;
+
+            }
+
+            return ((BTree) ndx).relocate(filter);
+
+        }
+
+    }
+
+}
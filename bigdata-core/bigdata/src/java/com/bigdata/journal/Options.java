@@ -275,6 +275,25 @@ public interface Options {
      */
     String WRITE_CACHE_COMPACTION_THRESHOLD = AbstractJournal.class.getName()+".writeCacheCompactionThreshold";
 
+    /**
+     * The #of threads which will concurrently write dirty {@link WriteCache}
+     * buffers onto the backing file (default
+     * {@value #DEFAULT_WRITE_CACHE_WRITER_COUNT}). When GT ONE (1), the
+     * {@link WriteCacheService} will write up to this many dirty buffers at a
+     * time using positional writes, provided that they do not write on any
+     * common file offset. The commit protocol still waits until all dirty
+     * buffers have been written before the root block is written.
+     * <p>
+     * Note: This option is ignored for highly available journals since the
+     * {@link WriteCache} buffers must be replicated and logged in order.
+     * <p>
+     * Note: The {@link RWStore} does not use its double buffering of writes
+     * when this option is GT ONE (1).
+     * 
+     * @see #DEFAULT_WRITE_CACHE_WRITER_COUNT
+     */
+    String WRITE_CACHE_WRITER_COUNT = AbstractJournal.class.getName()+".writeCacheWriterCount";
+
     /**
      * <strong>ALPHA FEATURE</strong>
      * <p>
@@ -318,6 +337,54 @@ public interface Options {
      */
     String HOT_CACHE_SIZE = AbstractJournal.class.getName()+".hotCacheSize";
 
+    /**
+     * <strong>ALPHA FEATURE</strong>
+     * <p>
+     * Option may be used to make the read cache resistant to scans. When
+     * non-zero, read requests are tracked in a frequency sketch and a record
+     * read from the disk is only installed into the read cache once it has
+     * been read at least this many times recently (at most 15). Records read
+     * once by a large scan are then returned without displacing the working
+     * set. When ZERO (0) every record read from the disk is installed.
+     * 
+     * @see #DEFAULT_READ_CACHE_ADMISSION_FREQUENCY
+     * @see #READ_CACHE_BUFFER_COUNT
+     */
+    String READ_CACHE_ADMISSION_FREQUENCY = AbstractJournal.class.getName()+".readCacheAdmissionFrequency";
+
+    /**
+     * <strong>ALPHA FEATURE</strong>
+     * <p>
+     * Option may be used to specify the maximum #of bytes in a compressed
+     * second tier for the read cache. Records which were read while on the
+     * read cache but were not hot enough for the hot cache are compressed onto
+     * the Java heap rather than dropped when their buffer is recycled. When
+     * ZERO (0) the compressed tier is disabled.
+     * 
+     * @see #DEFAULT_READ_CACHE_COMPRESSED_SIZE
+     * @see #READ_CACHE_BUFFER_COUNT
+     */
+    String READ_CACHE_COMPRESSED_SIZE = AbstractJournal.class.getName()+".readCacheCompressedSize";
+
+    /**
+     * <strong>ALPHA FEATURE</strong>
+     * <p>
+     * Boolean option may be used to read records which are not found in the
+     * {@link WriteCacheService} through a read-only memory mapping of the
+     * backing file rather than through {@link FileChannel} reads (default
+     * {@value #DEFAULT_READ_MAPPED}). The file is mapped in large segments
+     * which are remapped as the file is extended. This avoids a system call
+     * per record read and can be a win when the OS page cache holds most of
+     * the file. It is not a zero-copy read: each record is still copied out
+     * of the mapping into a heap buffer since the coded node and leaf
+     * records are backed by a <code>byte[]</code>. This option is only used
+     * by the {@link BufferMode#DiskRW} and {@link BufferMode#DiskWORM} modes.
+     * 
+     * @see #DEFAULT_READ_MAPPED
+     * @see com.bigdata.io.MappedFileReader
+     */
+    String READ_MAPPED = AbstractJournal.class.getName()+".readMapped";
+
 //    /**
 //     * An integer property whose value controls the size of the write cache (in
 //     * bytes) used by the selected {@link BufferMode} (default
@@ -672,6 +739,11 @@ public interface Options {
      * @see #WRITE_CACHE_COMPACTION_THRESHOLD
      */
     String DEFAULT_WRITE_CACHE_COMPACTION_THRESHOLD = "20";
+
+    /**
+     * @see #WRITE_CACHE_WRITER_COUNT
+     */
+    String DEFAULT_WRITE_CACHE_WRITER_COUNT = "1";
     
 //    /**
 //     * The default for {@link #READ_CACHE_MAX_RECORD_SIZE}.
@@ -687,6 +759,21 @@ public interface Options {
      * The default for {@link #HOT_CACHE_THRESHOLD}.
      */
     String DEFAULT_HOT_CACHE_SIZE = "10";
+
+    /**
+     * The default for {@link #READ_CACHE_ADMISSION_FREQUENCY}.
+     */
+    String DEFAULT_READ_CACHE_ADMISSION_FREQUENCY = "0";
+
+    /**
+     * The default for {@link #READ_CACHE_COMPRESSED_SIZE}.
+     */
+    String DEFAULT_READ_CACHE_COMPRESSED_SIZE = "0";
+    
+    /**
+     * The default for {@link #READ_MAPPED}.
+     */
+    String DEFAULT_READ_MAPPED = "false";
     
     /**
      * The default initial extent for a new journal.
@@ -432,6 +432,30 @@ public class RWStrategy extends AbstractRawStore implements IBufferStrategy,
 
         }
 
+        final File coldFile = m_store.getColdTierFile();
+
+        if (coldFile != null && coldFile.exists()) {
+
+            if (!coldFile.delete()) {
+
+                log.warn("Unable to delete file: " + coldFile);
+
+            }
+
+        }
+
+        final File changeLogFile = m_store.getChangeLogFile();
+
+        if (changeLogFile != null && changeLogFile.exists()) {
+
+            if (!changeLogFile.delete()) {
+
+                log.warn("Unable to delete file: " + changeLogFile);
+
+            }
+
+        }
+
 	}
 
 	public void destroy() {
@@ -799,6 +823,36 @@ public class RWStrategy extends AbstractRawStore implements IBufferStrategy,
 	    
 	}
 
+    /**
+     * Return <code>true</code> iff the address lies in an allocator which was
+     * migrated to the cold tier.
+     * 
+     * @param addr
+     *            The address.
+     * 
+     * @see RWStore#migrateColdAllocators()
+     */
+    public boolean isCold(final long addr) {
+
+        return m_store.isCold(decodeAddr(addr));
+
+    }
+
+    /**
+     * Return <code>true</code> iff the address lies in an allocation block
+     * which is being evacuated by an online compaction.
+     * 
+     * @param addr
+     *            The address.
+     * 
+     * @see RWStore#beginEvacuation(float)
+     */
+    public boolean isEvacuating(final long addr) {
+
+        return m_store.isEvacuating(decodeAddr(addr));
+
+    }
+
     /**
      * Return <code>true</code> iff the address was in the write cache as of the
      * moment the write cache was inspected.
@@ -94,7 +94,7 @@ public class SnapshotTask implements Callable<ISnapshotResult> {
    /**
     * See BLZG-1732
     */
-   private static final int GZIP_BUFFER =  getGzipBuffer();
+   static final int GZIP_BUFFER =  getGzipBuffer();
    private static final int DEFAULT_BUFFER = 512;
    
    /**
@@ -122,6 +122,7 @@ public class SnapshotTask implements Callable<ISnapshotResult> {
 
       // Grab a read lock.
       final long txId = journal.newTx(ITx.READ_COMMITTED);
+      ISnapshotData coreData = null;
       try {
 
          /*
@@ -129,7 +130,7 @@ public class SnapshotTask implements Callable<ISnapshotResult> {
           * data, setting the current committed rootblock view.
           */
          final AtomicReference<IRootBlockView> rbv = new AtomicReference<IRootBlockView>();
-         final ISnapshotData coreData = journal.snapshotAllocationData(rbv);
+         coreData = journal.snapshotAllocationData(rbv);
 
          if (rbv.get().getCommitCounter() == 0L) {
 
@@ -266,6 +267,10 @@ public class SnapshotTask implements Callable<ISnapshotResult> {
                rbv.get());
    
       } finally {
+         if (coreData != null) {
+            // Release the resources held for the snapshot (if any).
+            coreData.release();
+         }
          // Release the read lock.
          journal.abort(txId);
       }
@@ -62,6 +62,7 @@ import com.bigdata.io.DirectBufferPool;
 import com.bigdata.io.FileChannelUtility;
 import com.bigdata.io.IBufferAccess;
 import com.bigdata.io.IReopenChannel;
+import com.bigdata.io.MappedFileReader;
 import com.bigdata.io.MergeStreamWithSnapshotData;
 import com.bigdata.io.compression.CompressorRegistry;
 import com.bigdata.io.compression.IRecordCompressor;
@@ -257,6 +258,33 @@ public class WORMStrategy extends AbstractBufferStrategy implements
      * @see com.bigdata.journal.Options#HOT_CACHE_SIZE
      */
     private final int hotCacheSize;
+
+    /**
+     * @see com.bigdata.journal.Options#READ_CACHE_ADMISSION_FREQUENCY
+     */
+    private final int readCacheAdmissionFrequency;
+
+    /**
+     * @see com.bigdata.journal.Options#READ_CACHE_COMPRESSED_SIZE
+     */
+    private final long readCacheCompressedSize;
+
+    /**
+     * Used to read records which are not in the {@link WriteCacheService}
+     * through a memory mapping of the backing file -or- <code>null</code> if
+     * mapped reads are disabled.
+     * 
+     * @see com.bigdata.journal.Options#READ_MAPPED
+     */
+    private final MappedFileReader mappedReader;
+
+    /**
+     * The #of threads which will concurrently write dirty {@link WriteCache}
+     * buffers onto the backing file.
+     * 
+     * @see com.bigdata.journal.Options#WRITE_CACHE_WRITER_COUNT
+     */
+    private final int writerCount;
     
     /**
      * The key for the {@link CompressorRegistry} which identifies the
@@ -965,6 +993,23 @@ public class WORMStrategy extends AbstractBufferStrategy implements
         this.hotCacheSize = Integer.valueOf(fileMetadata.getProperty(
                 com.bigdata.journal.Options.HOT_CACHE_SIZE,
                 com.bigdata.journal.Options.DEFAULT_HOT_CACHE_SIZE));
+
+        this.readCacheAdmissionFrequency = Integer.valueOf(fileMetadata.getProperty(
+                com.bigdata.journal.Options.READ_CACHE_ADMISSION_FREQUENCY,
+                com.bigdata.journal.Options.DEFAULT_READ_CACHE_ADMISSION_FREQUENCY));
+
+        this.readCacheCompressedSize = Long.valueOf(fileMetadata.getProperty(
+                com.bigdata.journal.Options.READ_CACHE_COMPRESSED_SIZE,
+                com.bigdata.journal.Options.DEFAULT_READ_CACHE_COMPRESSED_SIZE));
+
+        this.writerCount = Integer.valueOf(fileMetadata.getProperty(
+                com.bigdata.journal.Options.WRITE_CACHE_WRITER_COUNT,
+                com.bigdata.journal.Options.DEFAULT_WRITE_CACHE_WRITER_COUNT));
+
+        this.mappedReader = Boolean.valueOf(fileMetadata.getProperty(
+                com.bigdata.journal.Options.READ_MAPPED,
+                com.bigdata.journal.Options.DEFAULT_READ_MAPPED)) ? new MappedFileReader(
+                opener) : null;
         
         this.compressorKey = fileMetadata.getProperty(
                 com.bigdata.journal.Options.HALOG_COMPRESSOR,
@@ -1013,7 +1058,11 @@ public class WORMStrategy extends AbstractBufferStrategy implements
             // Note: Compaction explicitly disabled for the WORM.
             super(writeCacheBufferCount, 0/* minCleanListSize */, readCacheBufferCount,
                     false/* prefixWrites */, 100/* compactionThreshold */, hotCacheSize, hotCacheThreshold,
-                    useChecksums, extent, opener, quorum, WORMStrategy.this /*reader*/);
+                    useChecksums, extent, opener, quorum, WORMStrategy.this /*reader*/,
+                    writerCount);
+
+            setReadCachePolicy(readCacheAdmissionFrequency,
+                    readCacheCompressedSize);
 
         }
 
@@ -1292,6 +1341,11 @@ public class WORMStrategy extends AbstractBufferStrategy implements
 
         // Release the write cache.
         releaseWriteCache();
+
+        if (mappedReader != null) {
+            // Unmap the file before it is closed.
+            mappedReader.clear();
+        }
         
         try {
 
@@ -1517,7 +1571,7 @@ public class WORMStrategy extends AbstractBufferStrategy implements
             // Allocate a new buffer of the exact capacity.
             final ByteBuffer dst = ByteBuffer.allocate(nbytes);
 
-            // Read through to the disk.
+            // Read through to the mapping or the disk.
             readRaw(/* nbytes, */paddr, dst);
 
             if (useChecksums) {
@@ -1597,9 +1651,10 @@ public class WORMStrategy extends AbstractBufferStrategy implements
                 // final long pos = headerSize + offset;
                 final long pos = offset; // offset is physical disk address
 
-                // read on the disk.
-                final int ndiskRead = FileChannelUtility.readAll(opener, dst,
-                        pos);
+                // read on the mapping or the disk.
+                final int ndiskRead = mappedReader != null
+                        && mappedReader.read(pos, dst) ? 0 : FileChannelUtility
+                        .readAll(opener, dst, pos);
 
                 // update performance counters.
                 final StoreCounters<?> c = (StoreCounters<?>) storeCounters
@@ -2326,8 +2381,21 @@ public class WORMStrategy extends AbstractBufferStrategy implements
              * a ClosedByInterruptException. [See the notes below in the catch
              * clause.]
              */
+            if (mappedReader != null) {
+                /*
+                 * Unmap before the file is truncated (some platforms can not
+                 * truncate a mapped file) and again afterwards in case a
+                 * reader remapped it in the meantime.
+                 */
+                mappedReader.clear();
+            }
+
             getRandomAccessFile().setLength(newExtent);
 
+            if (mappedReader != null) {
+                mappedReader.clear();
+            }
+
             if (writeCacheService != null) {
                 /*
                  * Inform the write cache service that the file extent has
@@ -783,6 +783,127 @@ public class AccessPath<R> implements IAccessPath<R>, IBindingSetAccessPath<R> {
                 stats);
 
     }
+
+    /**
+     * Return separator keys which divide the key range of this access path
+     * into partitions having roughly the same #of tuples. Each partition may
+     * then be scanned by a different thread using
+     * {@link #solutions(BOpContext, byte[], byte[], BaseJoinStats)}.
+     * <p>
+     * An empty array is returned unless the backing index is a read-only
+     * {@link AbstractBTree} (which supports both {@link ILinearList} and
+     * concurrent readers) and there is no
+     * {@link IPredicate.Annotations#ACCESS_PATH_FILTER} (such filters, e.g.,
+     * DISTINCT for a default graph access path, are not local to a partition).
+     * 
+     * @param maxPartitions
+     *            The maximum #of partitions.
+     * @param minPartitionSize
+     *            The minimum #of tuples in each partition.
+     * 
+     * @return The separator keys. There are <code>n-1</code> separator keys
+     *         for <code>n</code> partitions.
+     */
+    public byte[][] getSeparatorKeys(final int maxPartitions,
+            final long minPartitionSize) {
+
+        assertInitialized();
+
+        if (maxPartitions <= 0)
+            throw new IllegalArgumentException();
+
+        if (minPartitionSize <= 0L)
+            throw new IllegalArgumentException();
+
+        if (maxPartitions == 1 || isFullyBoundForKey
+                || accessPathFilter != null
+                || !(ndx instanceof AbstractBTree)
+                || !((AbstractBTree) ndx).isReadOnly()) {
+
+            return EMPTY_SEPARATOR_KEYS;
+
+        }
+
+        final AbstractBTree btree = (AbstractBTree) ndx;
+
+        final long lo = fromKey == null ? 0L : normalize(btree
+                .indexOf(fromKey));
+
+        final long hi = toKey == null ? btree.getEntryCount()
+                : normalize(btree.indexOf(toKey));
+
+        final long n = hi - lo;
+
+        final int npartitions = (int) Math.min(maxPartitions, n
+                / minPartitionSize);
+
+        if (npartitions <= 1)
+            return EMPTY_SEPARATOR_KEYS;
+
+        final byte[][] keys = new byte[npartitions - 1][];
+
+        for (int i = 1; i < npartitions; i++) {
+
+            keys[i - 1] = btree.keyAt(lo + (n * i) / npartitions);
+
+        }
+
+        return keys;
+
+    }
+
+    private static final byte[][] EMPTY_SEPARATOR_KEYS = new byte[0][];
+
+    /**
+     * Convert an insertion point into an index.
+     */
+    static private long normalize(final long index) {
+
+        return index < 0 ? -(index + 1) : index;
+
+    }
+
+    /**
+     * Visit the solutions for a key-range partition of this access path. The
+     * partition is read synchronously in the caller's thread and the same
+     * {@link IPredicate.Annotations#INDEX_LOCAL_FILTER} is applied as for
+     * {@link #iterator()}.
+     * 
+     * @param context
+     *            The evaluation context.
+     * @param fromKey
+     *            The inclusive lower bound of the partition. This must be
+     *            either {@link #getFromKey()} or one of the separator keys.
+     * @param toKey
+     *            The exclusive upper bound of the partition. This must be
+     *            either {@link #getToKey()} or one of the separator keys.
+     * @param stats
+     *            Statistics for the join.
+     * 
+     * @see #getSeparatorKeys(int, long)
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public ICloseableIterator<IBindingSet[]> solutions(
+            final BOpContext context, final byte[] fromKey,
+            final byte[] toKey, final BaseJoinStats stats) {
+
+        assertInitialized();
+
+        if (accessPathFilter != null) {
+            // Such filters are not local to a key-range partition.
+            throw new UnsupportedOperationException();
+        }
+
+        final ITupleIterator<R> tupleItr = ndx.rangeIterator(fromKey, toKey,
+                0/* capacity */, flags, indexLocalFilter);
+
+        final Iterator<R> src = new Striterator(tupleItr)
+                .addFilter(new TupleObjectResolver());
+
+        return context.solutions(new ChunkedWrappedIterator<R>(src,
+                chunkCapacity, keyOrder, null/* filter */), predicate, stats);
+
+    }
     
     @Override
     final public IChunkedOrderedIterator<R> iterator() {
@@ -379,7 +379,13 @@ public class AllocBlock {
 					// obtained the latched address for that bit.
 					final int latchedAddr = -((m_allocator.getIndex() << RWStore.OFFSET_BITS) + (startBit + b));
 					
-					cache.clearWrite(clr, latchedAddr);
+					/*
+					 * Note: The region of a cold allocator may have been
+					 * reused, and the cache entries for that region then
+					 * belong to another allocator.
+					 */
+					if (!m_allocator.isCold())
+						cache.clearWrite(clr, latchedAddr);
 					
 //					cache.overwrite(clr, m_allocator.m_size);
 					
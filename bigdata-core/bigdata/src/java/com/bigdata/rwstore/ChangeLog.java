@@ -0,0 +1,407 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rwstore;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.io.ChecksumUtility;
+
+/**
+ * An append only log of the regions of the backing file of an {@link RWStore}
+ * which were changed by each commit. A record is appended (and forced to
+ * stable storage) by each commit before the new root block is written, so the
+ * log is never behind the store. A record for a commit which then failed is
+ * harmless since it can only widen the set of regions reported for that
+ * commit counter.
+ * <p>
+ * The regions are the allocation blocks in which a slot was allocated by the
+ * commit. Since the store never overwrites a committed slot, the contents of
+ * any other allocation block are unchanged by the commit. The allocator and
+ * metabits records and the root blocks are not logged since they are always
+ * part of a snapshot.
+ * 
+ * @see RWStore.Options#CHANGE_LOG_FILE
+ * @see RWStore#getChangedRegions(long, long)
+ */
+public class ChangeLog {
+
+    private static final Logger log = Logger.getLogger(ChangeLog.class);
+
+    /**
+     * The magic value at the start of the file.
+     */
+    private static final int MAGIC = 0x62646368; // "bdch"
+
+    /**
+     * The current version of the file format.
+     */
+    private static final int VERSION = 0;
+
+    /**
+     * The #of bytes in the file header.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    private final File file;
+
+    private final RandomAccessFile raf;
+
+    /**
+     * The byte offset at which the next record will be written.
+     */
+    private long extent;
+
+    /**
+     * The commit counter of the first and last records in the log -or- ZERO
+     * (0L) if the log is empty.
+     */
+    private long firstCommitCounter, lastCommitCounter;
+
+    /**
+     * Open (or create) the change log. A partial record left at the end of the
+     * file by a failed append is discarded.
+     * 
+     * @param file
+     *            The file.
+     * 
+     * @throws IOException
+     *             if the file can not be opened -or- if an existing file is not
+     *             a change log.
+     */
+    public ChangeLog(final File file) throws IOException {
+
+        if (file == null)
+            throw new IllegalArgumentException();
+
+        this.file = file;
+
+        this.raf = new RandomAccessFile(file, "rw");
+
+        if (raf.length() == 0L) {
+
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+
+            extent = HEADER_SIZE;
+
+        } else {
+
+            if (raf.readInt() != MAGIC || raf.readInt() != VERSION)
+                throw new IOException("Not a change log: " + file);
+
+            final Scanner scanner = new Scanner(raf.length());
+            try {
+                Record r;
+                while ((r = scanner.next()) != null) {
+                    if (firstCommitCounter == 0L)
+                        firstCommitCounter = r.commitCounter;
+                    lastCommitCounter = r.commitCounter;
+                }
+                extent = scanner.offset;
+            } finally {
+                scanner.close();
+            }
+
+            if (extent != raf.length()) {
+
+                log.warn("Discarding partial record: file=" + file
+                        + ", offset=" + extent);
+
+                raf.setLength(extent);
+
+            }
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("file=" + file + ", commitCounters=["
+                    + firstCommitCounter + ":" + lastCommitCounter + "]");
+
+    }
+
+    /**
+     * The backing file.
+     */
+    public File getFile() {
+
+        return file;
+
+    }
+
+    /**
+     * The commit counter of the last record in the log -or- ZERO (0L) if the
+     * log is empty.
+     */
+    synchronized public long getLastCommitCounter() {
+
+        return lastCommitCounter;
+
+    }
+
+    /**
+     * Append a record and force it to stable storage.
+     * 
+     * @param commitCounter
+     *            The commit counter of the commit.
+     * @param regions
+     *            The regions changed by that commit as <code>{offset,
+     *            length}</code> pairs.
+     */
+    synchronized public void append(final long commitCounter,
+            final List<long[]> regions) throws IOException {
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(
+                12 + regions.size() * 16);
+        final DataOutputStream os = new DataOutputStream(baos);
+
+        os.writeLong(commitCounter);
+        os.writeInt(regions.size());
+        for (long[] region : regions) {
+            os.writeLong(region[0]);
+            os.writeLong(region[1]);
+        }
+        os.flush();
+
+        final byte[] buf = baos.toByteArray();
+
+        raf.seek(extent);
+        raf.write(buf);
+        raf.writeInt(ChecksumUtility.getCHK().checksum(buf));
+        raf.getChannel().force(false/* metaData */);
+
+        extent += buf.length + 4;
+
+        if (firstCommitCounter == 0L)
+            firstCommitCounter = commitCounter;
+        lastCommitCounter = commitCounter;
+
+    }
+
+    /**
+     * Return the regions changed by the commits after
+     * <i>fromCommitCounter</i> up to and including <i>toCommitCounter</i>. The
+     * regions are ordered by offset and adjacent or overlapping regions are
+     * coalesced.
+     * 
+     * @param fromCommitCounter
+     *            The commit counter of the base (exclusive).
+     * @param toCommitCounter
+     *            The commit counter of interest (inclusive).
+     * 
+     * @return The regions as <code>{offset, length}</code> pairs.
+     * 
+     * @throws IllegalStateException
+     *             if the log does not have a record for each of those commits.
+     */
+    public List<long[]> getChangedRegions(final long fromCommitCounter,
+            final long toCommitCounter) throws IOException {
+
+        if (fromCommitCounter < 0 || toCommitCounter < fromCommitCounter)
+            throw new IllegalArgumentException();
+
+        final long ncommits = toCommitCounter - fromCommitCounter;
+
+        if (ncommits > Integer.MAX_VALUE)
+            throw new IllegalArgumentException();
+
+        final long limit;
+        synchronized (this) {
+            limit = extent;
+        }
+
+        final BitSet seen = new BitSet((int) ncommits);
+
+        final TreeMap<Long, Long> map = new TreeMap<Long, Long>();
+
+        final Scanner scanner = new Scanner(limit);
+        try {
+            Record r;
+            while ((r = scanner.next()) != null) {
+                if (r.commitCounter <= fromCommitCounter
+                        || r.commitCounter > toCommitCounter)
+                    continue;
+                seen.set((int) (r.commitCounter - fromCommitCounter - 1));
+                for (int i = 0; i < r.regions.length; i += 2) {
+                    final Long len = map.get(r.regions[i]);
+                    if (len == null || len < r.regions[i + 1])
+                        map.put(r.regions[i], r.regions[i + 1]);
+                }
+            }
+        } finally {
+            scanner.close();
+        }
+
+        if (seen.cardinality() != ncommits)
+            throw new IllegalStateException("No change log record: file="
+                    + file + ", commitCounter="
+                    + (fromCommitCounter + 1 + seen.nextClearBit(0)));
+
+        final List<long[]> regions = new ArrayList<long[]>();
+
+        long[] last = null;
+
+        for (Map.Entry<Long, Long> e : map.entrySet()) {
+
+            final long offset = e.getKey();
+            final long end = offset + e.getValue();
+
+            if (last != null && offset <= last[0] + last[1]) {
+                last[1] = Math.max(last[1], end - last[0]);
+            } else {
+                last = new long[] { offset, e.getValue() };
+                regions.add(last);
+            }
+
+        }
+
+        return regions;
+
+    }
+
+    synchronized public void close() throws IOException {
+
+        raf.close();
+
+    }
+
+    @Override
+    public String toString() {
+
+        return file.toString();
+
+    }
+
+    /**
+     * A record read back from the log.
+     */
+    private static class Record {
+
+        final long commitCounter;
+
+        /**
+         * The changed regions as <code>{offset, length}</code> pairs.
+         */
+        final long[] regions;
+
+        Record(final long commitCounter, final long[] regions) {
+            this.commitCounter = commitCounter;
+            this.regions = regions;
+        }
+
+    }
+
+    /**
+     * Reads the valid records in the log up to some limit. The scan stops at
+     * the first partial or corrupt record.
+     */
+    private class Scanner {
+
+        private final long limit;
+
+        private final DataInputStream is;
+
+        /**
+         * The offset of the first byte after the last valid record.
+         */
+        long offset = HEADER_SIZE;
+
+        Scanner(final long limit) throws IOException {
+            this.limit = limit;
+            final FileInputStream fis = new FileInputStream(file);
+            fis.getChannel().position(HEADER_SIZE);
+            this.is = new DataInputStream(new BufferedInputStream(fis));
+        }
+
+        Record next() throws IOException {
+
+            if (offset + 16 > limit)
+                return null;
+
+            try {
+
+                final byte[] head = new byte[12];
+                is.readFully(head);
+
+                final long commitCounter = ByteBuffer.wrap(head).getLong(0);
+                final int nregions = ByteBuffer.wrap(head).getInt(8);
+
+                final long len = head.length + nregions * 16L;
+
+                if (nregions < 0 || offset + len + 4 > limit)
+                    return null;
+
+                final byte[] buf = new byte[(int) len];
+                System.arraycopy(head, 0, buf, 0, head.length);
+                is.readFully(buf, head.length, buf.length - head.length);
+
+                if (is.readInt() != ChecksumUtility.getCHK().checksum(buf))
+                    return null;
+
+                final ByteBuffer b = ByteBuffer.wrap(buf);
+                b.position(head.length);
+
+                final long[] regions = new long[nregions * 2];
+                for (int i = 0; i < regions.length; i++) {
+                    regions[i] = b.getLong();
+                }
+
+                offset += len + 4;
+
+                return new Record(commitCounter, regions);
+
+            } catch (EOFException ex) {
+
+                return null;
+
+            }
+
+        }
+
+        void close() throws IOException {
+            is.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,561 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+
+package com.bigdata.rwstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.io.FileChannelUtility;
+import com.bigdata.io.IReopenChannel;
+import com.bigdata.journal.AbstractJournal.ISnapshotEntry;
+
+/**
+ * A file, normally on a secondary (cheaper and slower) volume, which holds the
+ * allocation regions migrated off the backing file of an {@link RWStore}
+ * together with the tier map records describing them.
+ * <p>
+ * The file begins with a small header (which also records the UUID of the
+ * store, see {@link #bind(UUID)}) so that ZERO (0) is never a valid offset.
+ * Space is taken from the released regions first and otherwise from the end
+ * of the file. A region which a root block may still refer to is released
+ * with a hold of some #of commits (see {@link #release(long, long, int)}) and
+ * is only reused once {@link #postCommit()} has been invoked that many times.
+ * Free space at the end of the file is truncated. The free space is not
+ * recorded on the file: it is recovered from the tier map when the store is
+ * opened (see {@link #recover(List)}).
+ * 
+ * @see RWStore.Options#COLD_TIER_FILE
+ * @see RWStore#migrateColdAllocators()
+ */
+public class ColdTierFile implements IReopenChannel<FileChannel> {
+
+    private static final Logger log = Logger.getLogger(ColdTierFile.class);
+
+    /**
+     * The magic value at the start of the file.
+     */
+    private static final int MAGIC = 0x62646374; // "bdct"
+
+    /**
+     * The current version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The #of bytes in the file header (magic, version and the store UUID).
+     */
+    static final int HEADER_SIZE = 24;
+
+    private final File file;
+
+    private final String mode;
+
+    private volatile RandomAccessFile raf;
+
+    /**
+     * The byte offset of the end of the allocated space.
+     */
+    private long extent;
+
+    /**
+     * The released regions which may be reused, as a map from the byte offset
+     * to the length of each region. Adjacent regions are coalesced.
+     */
+    private final TreeMap<Long, Long> free = new TreeMap<Long, Long>();
+
+    /**
+     * The released regions which may not be reused until some #of commits
+     * have been made, each as <code>{offset, length, holdCommits}</code>.
+     */
+    private final List<long[]> held = new ArrayList<long[]>();
+
+    /**
+     * Open (or create) the cold tier file.
+     * 
+     * @param file
+     *            The file.
+     * @param readOnly
+     *            <code>true</code> iff the file is opened for reading only.
+     * 
+     * @throws IOException
+     *             if the file can not be opened -or- if an existing file is not
+     *             a cold tier file.
+     */
+    public ColdTierFile(final File file, final boolean readOnly)
+            throws IOException {
+
+        if (file == null)
+            throw new IllegalArgumentException();
+
+        this.file = file;
+
+        this.mode = readOnly ? "r" : "rw";
+
+        if (!file.exists() && readOnly)
+            throw new IOException("Not found: " + file);
+
+        final FileChannel channel = reopenChannel();
+
+        final ByteBuffer hdr = ByteBuffer.allocate(HEADER_SIZE);
+
+        if (channel.size() == 0L) {
+
+            hdr.putInt(MAGIC);
+            hdr.putInt(VERSION);
+            hdr.putLong(0L); // not yet bound to a store.
+            hdr.putLong(0L);
+            hdr.flip();
+
+            FileChannelUtility.writeAll(this, hdr, 0L/* pos */);
+
+            extent = HEADER_SIZE;
+
+        } else {
+
+            FileChannelUtility.readAll(this, hdr, 0L/* pos */);
+
+            if (hdr.getInt(0) != MAGIC || hdr.getInt(4) != VERSION)
+                throw new IOException("Not a cold tier file: " + file);
+
+            extent = channel.size();
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("file=" + file + ", extent=" + extent);
+
+    }
+
+    /**
+     * Bind the file to a store. The UUID is recorded on a new file. For an
+     * existing file it must agree with the recorded UUID, so the regions of
+     * another store are never read or reused.
+     * 
+     * @param uuid
+     *            The UUID of the store.
+     * 
+     * @throws IOException
+     *             if the file is bound to another store.
+     */
+    synchronized public void bind(final UUID uuid) throws IOException {
+
+        if (uuid == null)
+            throw new IllegalArgumentException();
+
+        final ByteBuffer hdr = ByteBuffer.allocate(16);
+
+        FileChannelUtility.readAll(this, hdr, 8L/* pos */);
+
+        final UUID actual = new UUID(hdr.getLong(0), hdr.getLong(8));
+
+        if (actual.equals(uuid))
+            return;
+
+        if (actual.getMostSignificantBits() != 0L
+                || actual.getLeastSignificantBits() != 0L)
+            throw new IOException("Cold tier file " + file
+                    + " belongs to store " + actual + ", not " + uuid);
+
+        if (mode.equals("r"))
+            return;
+
+        hdr.clear();
+        hdr.putLong(uuid.getMostSignificantBits());
+        hdr.putLong(uuid.getLeastSignificantBits());
+        hdr.flip();
+
+        FileChannelUtility.writeAll(this, hdr, 8L/* pos */);
+
+    }
+
+    /**
+     * The backing file.
+     */
+    public File getFile() {
+
+        return file;
+
+    }
+
+    /**
+     * The #of bytes in the file.
+     */
+    synchronized public long size() {
+
+        return extent;
+
+    }
+
+    /**
+     * Allocate a region, reusing the first released region which is large
+     * enough and otherwise extending the file.
+     * 
+     * @param nbytes
+     *            The length of the region.
+     * 
+     * @return The byte offset of the region.
+     */
+    synchronized public long allocate(final long nbytes) {
+
+        if (nbytes <= 0)
+            throw new IllegalArgumentException();
+
+        final Iterator<Map.Entry<Long, Long>> itr = free.entrySet().iterator();
+
+        while (itr.hasNext()) {
+
+            final Map.Entry<Long, Long> e = itr.next();
+
+            final long len = e.getValue();
+
+            if (len < nbytes)
+                continue;
+
+            final long addr = e.getKey();
+
+            itr.remove();
+
+            if (len > nbytes)
+                free.put(addr + nbytes, len - nbytes);
+
+            return addr;
+
+        }
+
+        final long addr = extent;
+
+        extent += nbytes;
+
+        return addr;
+
+    }
+
+    /**
+     * Write the remaining bytes in the buffer onto an allocated region.
+     * 
+     * @param addr
+     *            The byte offset to write at.
+     * @param data
+     *            The data.
+     */
+    public void write(final long addr, final ByteBuffer data)
+            throws IOException {
+
+        if (addr < HEADER_SIZE)
+            throw new IllegalArgumentException("addr=" + addr);
+
+        FileChannelUtility.writeAll(this, data, addr);
+
+    }
+
+    /**
+     * Allocate a region for the remaining bytes in the buffer and write them
+     * onto that region.
+     * 
+     * @param data
+     *            The data.
+     * 
+     * @return The byte offset at which the data was written.
+     */
+    public long append(final ByteBuffer data) throws IOException {
+
+        final long addr = allocate(data.remaining());
+
+        write(addr, data);
+
+        return addr;
+
+    }
+
+    /**
+     * Release a region.
+     * 
+     * @param addr
+     *            The byte offset of the region.
+     * @param nbytes
+     *            The length of the region.
+     * @param holdCommits
+     *            The #of commits which must be made before the region may be
+     *            reused. This is ZERO (0) unless a root block may still refer
+     *            to the region.
+     */
+    synchronized public void release(final long addr, final long nbytes,
+            final int holdCommits) {
+
+        if (addr < HEADER_SIZE || nbytes <= 0 || addr + nbytes > extent)
+            throw new IllegalArgumentException("addr=" + addr + ", nbytes="
+                    + nbytes + ", extent=" + extent);
+
+        if (holdCommits > 0) {
+            held.add(new long[] { addr, nbytes, holdCommits });
+        } else {
+            addFree(addr, nbytes);
+        }
+
+    }
+
+    /**
+     * Invoked after each commit. The held regions whose hold has expired may
+     * now be reused and the file is truncated to the end of the regions which
+     * are not free.
+     */
+    synchronized public void postCommit() throws IOException {
+
+        final Iterator<long[]> itr = held.iterator();
+
+        while (itr.hasNext()) {
+
+            final long[] e = itr.next();
+
+            if (--e[2] <= 0) {
+
+                itr.remove();
+
+                addFree(e[0], e[1]);
+
+            }
+
+        }
+
+        if (free.isEmpty())
+            return;
+
+        final Map.Entry<Long, Long> last = free.lastEntry();
+
+        if (last.getKey() + last.getValue() != extent)
+            return;
+
+        free.remove(last.getKey());
+
+        extent = last.getKey();
+
+        reopenChannel().truncate(extent);
+
+        if (log.isInfoEnabled())
+            log.info("Truncated " + file + " to " + extent);
+
+    }
+
+    /**
+     * Recover the free space when the store is opened. Each gap between the
+     * regions which are in use is released with a hold of two commits, since
+     * the other root block may refer to a tier map which still uses it.
+     * 
+     * @param used
+     *            The regions in use, each as <code>{offset, length}</code>.
+     */
+    synchronized public void recover(final List<long[]> used) {
+
+        free.clear();
+
+        held.clear();
+
+        final List<long[]> regions = new ArrayList<long[]>(used);
+
+        Collections.sort(regions, new Comparator<long[]>() {
+            @Override
+            public int compare(final long[] o1, final long[] o2) {
+                return o1[0] < o2[0] ? -1 : o1[0] > o2[0] ? 1 : 0;
+            }
+        });
+
+        long pos = HEADER_SIZE;
+
+        for (long[] r : regions) {
+
+            if (r[0] > pos)
+                held.add(new long[] { pos, r[0] - pos, 2/* holdCommits */});
+
+            pos = Math.max(pos, r[0] + r[1]);
+
+        }
+
+        if (extent > pos)
+            held.add(new long[] { pos, extent - pos, 2/* holdCommits */});
+
+        if (log.isInfoEnabled())
+            log.info("file=" + file + ", extent=" + extent + ", released="
+                    + held.size());
+
+    }
+
+    /**
+     * Add a region to the free space, coalescing it with its neighbours.
+     */
+    private void addFree(long addr, long nbytes) {
+
+        final Map.Entry<Long, Long> prior = free.floorEntry(addr);
+
+        if (prior != null && prior.getKey() + prior.getValue() == addr) {
+
+            free.remove(prior.getKey());
+
+            addr = prior.getKey();
+
+            nbytes += prior.getValue();
+
+        }
+
+        final Long next = free.get(addr + nbytes);
+
+        if (next != null) {
+
+            free.remove(addr + nbytes);
+
+            nbytes += next;
+
+        }
+
+        free.put(addr, nbytes);
+
+    }
+
+    /**
+     * Read bytes from the file into the remaining space in the buffer.
+     * 
+     * @param addr
+     *            The byte offset to read from.
+     * @param dst
+     *            The buffer.
+     */
+    public void read(final long addr, final ByteBuffer dst) throws IOException {
+
+        if (addr < HEADER_SIZE)
+            throw new IllegalArgumentException("addr=" + addr);
+
+        FileChannelUtility.readAll(this, dst, addr);
+
+    }
+
+    /**
+     * Return a snapshot entry whose data is read from this file when the
+     * snapshot is written.
+     * 
+     * @param caddr
+     *            The byte offset on this file.
+     * @param addr
+     *            The byte offset of the entry in the snapshot.
+     * @param nbytes
+     *            The #of bytes in the entry.
+     */
+    ISnapshotEntry snapshotEntry(final long caddr, final long addr,
+            final int nbytes) {
+
+        return new ISnapshotEntry() {
+
+            @Override
+            public long getAddress() {
+                return addr;
+            }
+
+            @Override
+            public byte[] getData() {
+                final byte[] data = new byte[nbytes];
+                try {
+                    read(caddr, ByteBuffer.wrap(data));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                return data;
+            }
+
+        };
+
+    }
+
+    /**
+     * Force the data written on the file to stable storage.
+     */
+    public void force() throws IOException {
+
+        reopenChannel().force(false/* metaData */);
+
+    }
+
+    @Override
+    public FileChannel reopenChannel() throws IOException {
+
+        {
+            final RandomAccessFile tmp = raf;
+            if (tmp != null) {
+                final FileChannel channel = tmp.getChannel();
+                if (channel.isOpen()) {
+                    return channel;
+                }
+            }
+        }
+
+        synchronized (this) {
+
+            if (raf != null) {
+                final FileChannel channel = raf.getChannel();
+                if (channel.isOpen()) {
+                    return channel;
+                }
+            }
+
+            raf = new RandomAccessFile(file, mode);
+
+            return raf.getChannel();
+
+        }
+
+    }
+
+    synchronized public void close() throws IOException {
+
+        if (raf != null) {
+
+            raf.close();
+
+        }
+
+    }
+
+    @Override
+    public String toString() {
+
+        return file.toString();
+
+    }
+
+}
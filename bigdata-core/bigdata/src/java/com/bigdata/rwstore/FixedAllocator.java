@@ -32,6 +32,7 @@ import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -84,6 +85,60 @@ public class FixedAllocator implements Allocator {
 	 * from a "free" allocator.
 	 */
 	boolean m_smallSlotHighWaste = false;
+
+	/**
+	 * The byte offsets on the cold tier of the regions managed by each
+	 * {@link AllocBlock} -or- <code>null</code> unless this allocator was
+	 * migrated to the cold tier. The first block is never migrated since it
+	 * fixes the order of the allocator on reopen, so its entry is always ZERO
+	 * (0). The entry for any other block is ZERO (0) once none of its slots is
+	 * accessible. A cold allocator is never returned to the free list, so the
+	 * records in its regions are immutable.
+	 * 
+	 * @see RWStore#migrateColdAllocators()
+	 */
+	private volatile long[] m_coldAddrs = null;
+
+	/**
+	 * The #of reads against this allocator since the last pass of
+	 * {@link RWStore#migrateColdAllocators()}. This is only maintained when
+	 * the store has a cold tier.
+	 */
+	final AtomicInteger m_reads = new AtomicInteger(); // accessible from RWStore
+
+	/**
+	 * The #of slots of this allocator which were freed while they were still
+	 * visible to the retained history and whose deferred free has not yet
+	 * been processed. When this reaches the #of live slots, every record in
+	 * the allocator is only visible to historical commit points. This is
+	 * guarded by the allocation lock, is only maintained when the store has a
+	 * cold tier and is cleared when the store is reopened or a commit is
+	 * discarded, so it never overstates the deferred frees.
+	 * 
+	 * @see RWStore#deferFree(int, int)
+	 */
+	int m_deferredFrees = 0; // accessible from RWStore
+
+	/**
+	 * <code>true</code> while the regions of this allocator are being copied
+	 * onto the cold tier or until its return from the cold tier is durable.
+	 * The allocator is kept off the free list while this is set so that no
+	 * new allocations are made from it.
+	 * 
+	 * @see RWStore#migrateColdAllocators()
+	 * @see #rewarm()
+	 */
+	volatile boolean m_migrating = false; // accessible from RWStore
+
+	/**
+	 * The index of the first {@link AllocBlock} being evacuated by an online
+	 * compaction -or- ZERO (0) if this allocator is not being evacuated. The
+	 * allocator is kept off the free list while this is set so that no new
+	 * allocations are made from it.
+	 * 
+	 * @see RWStore#beginEvacuation(float)
+	 */
+	volatile int m_evacuateFrom = 0; // accessible from RWStore
 	
 	public void setIndex(final int index) {
 		final AllocBlock fb = (AllocBlock) m_allocBlocks.get(0);
@@ -853,7 +908,7 @@ public class FixedAllocator implements Allocator {
 		return sessionFrees <= sessionBits;	
 	}
 	
-	private void checkFreeList() {
+	void checkFreeList() {
 		if (m_freeWaiting && !m_pendingContextCommit) {
 			if (meetsSmallSlotThreshold()) {
 				
@@ -876,6 +931,17 @@ public class FixedAllocator implements Allocator {
 	}
 	
 	private boolean meetsSmallSlotThreshold() {
+		// never return an allocator to the free list once it has been
+		// migrated to the cold tier (or while it is being migrated)
+		if (m_coldAddrs != null || m_migrating) {
+			return false;
+		}
+		
+		// nor while its trailing blocks are being evacuated
+		if (m_evacuateFrom != 0) {
+			return false;
+		}
+		
 		// check threshold for all slots
 		if (m_freeBits < m_store.cDefaultFreeBitsThreshold) {
 			return false;
@@ -1002,7 +1068,16 @@ public class FixedAllocator implements Allocator {
 			blockSize *= m_size;
 			blockSize >>= RWStore.ALLOCATION_SCALEUP;
 
-			block.m_addr = grabAllocation(m_store, blockSize);
+			/*
+			 * The first block fixes the order of this allocator (and hence its
+			 * index) when the store is reopened, so it is always taken from the
+			 * end of the heap. Other blocks may reuse a region vacated by a
+			 * migration to the cold tier.
+			 */
+			block.m_addr = m_startAddr == 0 ? 0 : m_store
+					.allocReclaimedBlock(blockSize);
+			if (block.m_addr == 0)
+				block.m_addr = grabAllocation(m_store, blockSize);
 			if (s_islogDebug)
 				log.debug("Allocation block at " + block.m_addr
 						+ " of " + (blockSize << 16) + " bytes");
@@ -1198,6 +1273,552 @@ public class FixedAllocator implements Allocator {
 		return alloted * m_size;		
 	}
 
+	/**
+	 * Return <code>true</code> iff this allocator was migrated to the cold
+	 * tier.
+	 */
+	boolean isCold() {
+		return m_coldAddrs != null;
+	}
+
+	/**
+	 * @return the fraction of the storage reserved by this allocator which is
+	 *         assigned to slots (committed or not).
+	 */
+	float getUtilization() {
+		final long storage = getFileStorage();
+		
+		if (storage == 0) {
+			return 0f;
+		}
+		
+		return (float) getAllocatedSlots() / storage;
+	}
+
+	/**
+	 * @return the size of the region managed by an {@link AllocBlock} in
+	 *         units of {@link RWStore#ALLOCATION_SCALEUP}.
+	 */
+	int getBlockUnits() {
+		return (32 * m_bitSize * m_size) >> RWStore.ALLOCATION_SCALEUP;
+	}
+
+	/**
+	 * @param nblocks
+	 *            The #of leading {@link AllocBlock}s to consider.
+	 * 
+	 * @return the end of the highest region managed by those blocks, in
+	 *         positive units of {@link RWStore#ALLOCATION_SCALEUP}, -or- ZERO
+	 *         (0) if none of them is allocated.
+	 */
+	int getHeapEnd(final int nblocks) {
+		final int units = getBlockUnits();
+		int end = 0;
+		for (int i = 0; i < nblocks; i++) {
+			final int addr = m_allocBlocks.get(i).m_addr;
+			if (addr == 0)
+				break;
+			end = Math.max(end, -addr + units);
+		}
+		return end;
+	}
+
+	/**
+	 * The allocated {@link AllocBlock}s form a prefix of the blocks, so only a
+	 * trailing run of blocks can be released. The first block is never
+	 * released since it fixes the order of the allocator on reopen.
+	 * 
+	 * @param cut
+	 *            A heap offset in positive units of
+	 *            {@link RWStore#ALLOCATION_SCALEUP}.
+	 * 
+	 * @return the index of the first block of the longest trailing run of
+	 *         allocated blocks (not including the first block) which all lie
+	 *         at or above the cut. This is {@link #getAllocatedBlocks()} if
+	 *         there is no such block.
+	 */
+	int getTailFrom(final int cut) {
+		int from = getAllocatedBlocks();
+		while (from > 1 && -m_allocBlocks.get(from - 1).m_addr >= cut) {
+			from--;
+		}
+		return from;
+	}
+
+	/**
+	 * Return <code>true</code> iff the slot lies in an {@link AllocBlock} which
+	 * is being evacuated.
+	 * 
+	 * @param offset
+	 *            The offset of the slot within this allocator.
+	 */
+	boolean isEvacuating(final int offset) {
+		final int from = m_evacuateFrom;
+		
+		return from != 0 && (offset - 3) / (32 * m_bitSize) >= from;
+	}
+
+	/**
+	 * Release the evacuated {@link AllocBlock}s once none of their slots is
+	 * live, committed or protected. Their regions are no longer reserved and
+	 * the blocks will take a new region if they are used again.
+	 * 
+	 * @return the addresses of the released blocks (for
+	 *         {@link #restoreBlocks(int[])}) -or- <code>null</code> if the
+	 *         blocks were not released.
+	 */
+	int[] releaseEvacuatedBlocks() {
+		final int from = m_evacuateFrom;
+		
+		if (from == 0) {
+			return null;
+		}
+		
+		final int nblocks = getAllocatedBlocks();
+		
+		for (int i = from; i < nblocks; i++) {
+			final AllocBlock ab = m_allocBlocks.get(i);
+			if (ab.m_saveCommit != null)
+				return null;
+			for (int j = 0; j < ab.m_live.length; j++) {
+				if ((ab.m_live[j] | ab.m_commit[j] | ab.m_transients[j]) != 0)
+					return null;
+			}
+		}
+		
+		final int[] addrs = new int[nblocks - from];
+		
+		for (int i = from; i < nblocks; i++) {
+			final AllocBlock ab = m_allocBlocks.get(i);
+			addrs[i - from] = ab.m_addr;
+			ab.m_addr = 0;
+		}
+		
+		if (m_statsBucket != null) {
+			m_statsBucket.addSlots(-addrs.length * 32 * m_bitSize);
+		}
+		
+		m_allocIndex = -1;
+		
+		if (s_islogDebug)
+			log.debug("Released " + addrs.length + " blocks of allocator "
+					+ m_index);
+		
+		return addrs;
+	}
+
+	/**
+	 * Undo {@link #releaseEvacuatedBlocks()} when a commit is discarded.
+	 */
+	void restoreBlocks(final int[] addrs) {
+		final int from = m_evacuateFrom;
+		
+		for (int i = 0; i < addrs.length; i++) {
+			m_allocBlocks.get(from + i).m_addr = addrs[i];
+		}
+		
+		if (m_statsBucket != null) {
+			m_statsBucket.addSlots(addrs.length * 32 * m_bitSize);
+		}
+	}
+
+	/**
+	 * Clear the evacuation and return the allocator to the free list if it
+	 * would otherwise have been returned.
+	 */
+	void endEvacuation() {
+		m_evacuateFrom = 0;
+		
+		checkFreeList();
+	}
+
+	/**
+	 * Return <code>true</code> iff this allocator is on the free list.
+	 */
+	boolean isOnFreeList() {
+		return !m_freeWaiting;
+	}
+
+	/**
+	 * Return <code>true</code> iff a slot was allocated since the last commit
+	 * (or is held by an isolated allocation context). The data for such a slot
+	 * may not yet be on the backing file.
+	 */
+	boolean hasUncommittedAllocations() {
+		for (AllocBlock ab : m_allocBlocks) {
+			if (ab.m_saveCommit != null)
+				return true;
+			for (int i = 0; i < ab.m_live.length; i++) {
+				if ((ab.m_live[i] & ~ab.m_commit[i]) != 0)
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Add the region of each {@link AllocBlock} in which a slot was allocated
+	 * since the last commit to the list as an <code>{offset, length}</code>
+	 * pair. Committed slots are never overwritten, so the other regions of
+	 * this allocator are unchanged by the commit.
+	 * 
+	 * @see ChangeLog
+	 */
+	void addChangedRegions(final List<long[]> regions) {
+		final long nbytes = (long) allocBlockRange * m_size;
+
+		for (AllocBlock ab : m_allocBlocks) {
+			if (ab.m_addr == 0)
+				continue;
+
+			for (int i = 0; i < ab.m_live.length; i++) {
+				// a shadowed block has its committed bits in m_saveCommit.
+				final int committed = ab.m_saveCommit == null ? ab.m_commit[i]
+						: ab.m_commit[i] & ab.m_saveCommit[i];
+				if ((ab.m_live[i] & ~committed) != 0) {
+					regions.add(new long[] { RWStore.convertAddr(ab.m_addr),
+							nbytes });
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the byte offset on the cold tier corresponding to a bit index into
+	 * this cold {@link FixedAllocator}. The same accessibility check is made
+	 * as by {@link #getPhysicalAddress(int, boolean)}.
+	 * 
+	 * @param offset
+	 *            The bit index into the {@link FixedAllocator}.
+	 * 
+	 * @return The byte offset on the cold tier, ZERO (0L) if the slot lies in
+	 *         the first {@link AllocBlock} (which stays on the backing file)
+	 *         -or- <code>-1L</code> if the slot is not accessible.
+	 */
+	long getColdAddress(int offset) {
+		offset -= 3;
+
+		final int block = offset / allocBlockRange;
+
+		final int bit = offset % allocBlockRange;
+
+		final AllocBlock ab = m_allocBlocks.get(block);
+
+		if (!RWStore.tstBit(ab.m_transients, bit))
+			return -1L;
+
+		if (block == 0)
+			return 0L;
+
+		final long caddr = m_coldAddrs[block];
+
+		if (caddr == 0L)
+			return -1L;
+
+		return caddr + ((long) m_size * bit);
+	}
+
+	/**
+	 * @return the #of slots which are allocated (committed or not).
+	 */
+	int getLiveSlots() {
+		int n = 0;
+		for (AllocBlock ab : m_allocBlocks) {
+			if (ab.m_addr == 0)
+				break;
+			for (int i = 0; i < ab.m_live.length; i++) {
+				n += Integer.bitCount(ab.m_live[i]);
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * @return <code>true</code> iff no slot of the {@link AllocBlock} is
+	 *         live, committed, protected or held by an allocation context.
+	 */
+	private static boolean isEmpty(final AllocBlock ab) {
+		if (ab.m_saveCommit != null)
+			return false;
+		for (int i = 0; i < ab.m_live.length; i++) {
+			if ((ab.m_live[i] | ab.m_commit[i] | ab.m_transients[i]) != 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the end of the highest region of the backing file which is
+	 *         reserved by this allocator, in positive units of
+	 *         {@link RWStore#ALLOCATION_SCALEUP}. Only the first
+	 *         {@link AllocBlock} of a cold allocator is on the backing file.
+	 */
+	int getReservedHeapEnd() {
+		return getHeapEnd(m_coldAddrs != null ? 1 : getAllocatedBlocks());
+	}
+
+	/**
+	 * Copy the regions of this allocator which hold accessible slots, other
+	 * than the region of the first {@link AllocBlock}, onto the cold tier. The
+	 * caller must have verified that no slot was allocated since the last
+	 * commit (so the regions are on the backing file) and must have set
+	 * {@link #m_migrating} (so no slot can be allocated). The allocation lock
+	 * is not required: slots may be freed concurrently, but the records in
+	 * the regions do not change.
+	 * 
+	 * @return The byte offsets on the cold tier for each {@link AllocBlock}
+	 *         (for {@link #setCold(long[], RWWriteCacheService)}).
+	 */
+	long[] copyToColdTier(final ColdTierFile cold) throws IOException {
+		if (m_coldAddrs != null || !m_migrating)
+			throw new IllegalStateException();
+
+		final long nbytes = (long) allocBlockRange * m_size;
+
+		final long[] coldAddrs = new long[m_allocBlocks.size()];
+
+		final ByteBuffer buf = ByteBuffer.allocate((int) Math.min(nbytes,
+				1024 * 1024));
+
+		try {
+			for (int b = 1; b < m_allocBlocks.size(); b++) {
+				final AllocBlock ab = m_allocBlocks.get(b);
+				if (ab.m_addr == 0)
+					break;
+
+				boolean accessible = false;
+				for (int i = 0; i < ab.m_transients.length; i++) {
+					if (ab.m_transients[i] != 0) {
+						accessible = true;
+						break;
+					}
+				}
+
+				if (!accessible)
+					continue;
+
+				final long paddr = RWStore.convertAddr(ab.m_addr);
+
+				final long caddr = cold.allocate(nbytes);
+
+				coldAddrs[b] = caddr;
+
+				long done = 0;
+				while (done < nbytes) {
+					buf.clear();
+					buf.limit((int) Math.min(buf.capacity(), nbytes - done));
+					m_store.readRaw(paddr + done, buf);
+					cold.write(caddr + done, buf);
+					done += buf.limit();
+				}
+			}
+		} catch (IOException e) {
+			releaseColdCopies(cold, coldAddrs, 0/* holdCommits */);
+			throw e;
+		}
+
+		return coldAddrs;
+	}
+
+	/**
+	 * Release the regions of the cold tier copied for this allocator.
+	 * 
+	 * @param coldAddrs
+	 *            The byte offsets on the cold tier for each {@link AllocBlock}.
+	 * @param holdCommits
+	 *            The #of commits which must be made before the regions may be
+	 *            reused.
+	 */
+	void releaseColdCopies(final ColdTierFile cold, final long[] coldAddrs,
+			final int holdCommits) {
+		final long nbytes = (long) allocBlockRange * m_size;
+
+		for (int b = 0; b < coldAddrs.length; b++) {
+			if (coldAddrs[b] != 0L) {
+				cold.release(coldAddrs[b], nbytes, holdCommits);
+				coldAddrs[b] = 0L;
+			}
+		}
+	}
+
+	/**
+	 * Mark this allocator as cold once its regions were copied by
+	 * {@link #copyToColdTier(ColdTierFile)} and clear the vacated regions
+	 * from the write cache. The caller must hold the allocation write lock.
+	 * 
+	 * @return The regions vacated on the backing file, each as
+	 *         <code>{addr, size}</code> in the scaled form used for
+	 *         {@link AllocBlock} addresses -or- <code>null</code> if a block
+	 *         which was not copied is no longer empty (the caller must then
+	 *         release the copies).
+	 */
+	ArrayList<int[]> setCold(final long[] coldAddrs,
+			final RWWriteCacheService cache) {
+		if (m_coldAddrs != null)
+			throw new IllegalStateException();
+
+		final int units = getBlockUnits();
+
+		final ArrayList<int[]> vacated = new ArrayList<int[]>();
+
+		for (int b = 1; b < m_allocBlocks.size(); b++) {
+			final AllocBlock ab = m_allocBlocks.get(b);
+			if (ab.m_addr == 0)
+				break;
+
+			if (coldAddrs[b] == 0L && !isEmpty(ab))
+				return null;
+
+			vacated.add(new int[] { ab.m_addr, units });
+		}
+
+		for (int[] region : vacated) {
+			// the region may be reused, so drop any cached records.
+			final long paddr = RWStore.convertAddr(region[0]);
+			for (int bit = 0; bit < allocBlockRange; bit++) {
+				cache.clearWrite(paddr + ((long) m_size * bit), 0/* latchedAddr */);
+			}
+		}
+
+		setColdAddrs(coldAddrs);
+
+		return vacated;
+	}
+
+	/**
+	 * Release the cold tier copies of the {@link AllocBlock}s of this cold
+	 * allocator which are now empty. The caller must hold the allocation write
+	 * lock.
+	 * 
+	 * @param holdCommits
+	 *            The #of commits which must be made before the regions may be
+	 *            reused.
+	 * 
+	 * @return <code>true</code> iff any copy was released.
+	 */
+	boolean releaseColdBlocks(final ColdTierFile cold, final int holdCommits) {
+		final long nbytes = (long) allocBlockRange * m_size;
+
+		boolean released = false;
+
+		for (int b = 1; b < m_coldAddrs.length; b++) {
+			if (m_coldAddrs[b] != 0L && isEmpty(m_allocBlocks.get(b))) {
+				cold.release(m_coldAddrs[b], nbytes, holdCommits);
+				m_coldAddrs[b] = 0L;
+				released = true;
+			}
+		}
+
+		return released;
+	}
+
+	/**
+	 * Return this cold allocator to the backing file once none of its slots is
+	 * accessible. Only the region of the first {@link AllocBlock} is still
+	 * reserved. The other blocks take a new region if they are used again.
+	 * This is invoked by the commit which writes the allocator and the tier
+	 * map. {@link #m_migrating} is set, so the allocator stays off the free
+	 * list until {@link #endRewarm()} is invoked once the commit is durable.
+	 * 
+	 * @return The addresses of the {@link AllocBlock}s (for
+	 *         {@link #restoreCold(int[])}) -or- <code>null</code> if the
+	 *         allocator is not empty.
+	 */
+	int[] rewarm() {
+		if (m_coldAddrs == null || m_migrating)
+			throw new IllegalStateException();
+
+		final int nblocks = getAllocatedBlocks();
+
+		for (int b = 0; b < nblocks; b++) {
+			if (!isEmpty(m_allocBlocks.get(b)) || m_coldAddrs[b] != 0L)
+				return null;
+		}
+
+		final int[] addrs = new int[nblocks];
+
+		for (int b = 0; b < nblocks; b++) {
+			final AllocBlock ab = m_allocBlocks.get(b);
+			addrs[b] = ab.m_addr;
+			if (b > 0)
+				ab.m_addr = 0;
+		}
+
+		if (m_statsBucket != null) {
+			m_statsBucket.addSlots(-(nblocks - 1) * 32 * m_bitSize);
+		}
+
+		m_allocIndex = -1;
+
+		m_migrating = true;
+
+		m_coldAddrs = null;
+
+		if (s_islogDebug)
+			log.debug("Returned allocator " + m_index + " from the cold tier");
+
+		return addrs;
+	}
+
+	/**
+	 * Undo {@link #rewarm()} when a commit is discarded.
+	 */
+	void restoreCold(final int[] addrs) {
+		for (int b = 1; b < addrs.length; b++) {
+			m_allocBlocks.get(b).m_addr = addrs[b];
+		}
+
+		if (m_statsBucket != null) {
+			m_statsBucket.addSlots((addrs.length - 1) * 32 * m_bitSize);
+		}
+
+		m_coldAddrs = new long[m_allocBlocks.size()];
+
+		m_migrating = false;
+	}
+
+	/**
+	 * Return the allocator to the free list (as its free slots permit) once the
+	 * commit which recorded {@link #rewarm()} is durable.
+	 */
+	void endRewarm() {
+		m_migrating = false;
+
+		checkFreeList();
+	}
+
+	/**
+	 * Mark this allocator as cold (used when the tier map is read back).
+	 * 
+	 * @param coldAddrs
+	 *            The byte offsets on the cold tier for each {@link AllocBlock}.
+	 */
+	void setColdAddrs(final long[] coldAddrs) {
+		if (coldAddrs.length != m_allocBlocks.size())
+			throw new IllegalArgumentException();
+
+		m_coldAddrs = coldAddrs;
+
+		removeFromFreeList();
+	}
+
+	/**
+	 * The byte offsets on the cold tier for each {@link AllocBlock} -or-
+	 * <code>null</code> unless this allocator is cold.
+	 */
+	long[] getColdAddrs() {
+		return m_coldAddrs;
+	}
+
+	/**
+	 * @return the length of the region managed by an {@link AllocBlock} in
+	 *         bytes.
+	 */
+	long getBlockBytes() {
+		return (long) allocBlockRange * m_size;
+	}
+
 	public boolean isAllocated(int offset) {
 	  	offset -= 3;
 
@@ -1598,21 +2219,83 @@ public class FixedAllocator implements Allocator {
 			tm.put(m_store.metaBit2Addr(m_diskAddr), commitData());
 	}
 	
+	/**
+	 * Add the regions of this cold allocator (other than the region of the
+	 * first {@link AllocBlock}, which is on the backing file) to the snapshot
+	 * at consecutive heap addresses, together with the committed allocation
+	 * data recording those addresses. A region whose slots are not accessible
+	 * is not copied.
+	 * 
+	 * @param next
+	 *            The next heap address (as for {@link RWStore#allocBlock(int)}).
+	 * 
+	 * @return The next heap address after the relocated regions.
+	 * 
+	 * @see RWStore#snapshotAllocationData(ISnapshotData,
+	 *      com.bigdata.journal.IRootBlockView)
+	 */
+	int snapshotColdBlocks(final ISnapshotData tm, final ColdTierFile cold,
+			int next) {
+		final long nbytes = getBlockBytes();
+		final int units = getBlockUnits();
+		final int chunk = 1024 * 1024;
+
+		final int[] addrs = new int[m_allocBlocks.size()];
+
+		addrs[0] = m_allocBlocks.get(0).m_addr;
+
+		for (int b = 1; b < addrs.length; b++) {
+			if (m_allocBlocks.get(b).m_addr == 0)
+				break;
+
+			addrs[b] = next;
+			next -= units;
+
+			final long caddr = m_coldAddrs[b];
+
+			if (caddr == 0L)
+				continue;
+
+			final long paddr = RWStore.convertAddr(addrs[b]);
+
+			for (long done = 0; done < nbytes; done += chunk) {
+				tm.put(cold.snapshotEntry(caddr + done, paddr + done,
+						(int) Math.min(chunk, nbytes - done)));
+			}
+		}
+
+		if (m_diskAddr > 0)
+			tm.put(m_store.metaBit2Addr(m_diskAddr), commitData(addrs));
+
+		return next;
+	}
+
 	/**
 	 * Returns the 1K committed allocation data by writing the commit data for each allocation block.
 	 */
 	byte[] commitData() {
+		return commitData(null);
+	}
+
+	/**
+	 * Returns the 1K committed allocation data with the given region for each
+	 * allocation block.
+	 * 
+	 * @param addrs
+	 *            The address to record for each {@link AllocBlock} -or-
+	 *            <code>null</code> to record their current addresses.
+	 */
+	byte[] commitData(final int[] addrs) {
 		try {			
 			final byte[] buf = new byte[1024];
 			final DataOutputStream str = new DataOutputStream(new FixedOutputStream(buf));
 			try {
                 str.writeInt(m_size);
                 
-                final Iterator<AllocBlock> iter = m_allocBlocks.iterator();
-                while (iter.hasNext()) {
-                    final AllocBlock block = iter.next();
+                for (int b = 0; b < m_allocBlocks.size(); b++) {
+                    final AllocBlock block = m_allocBlocks.get(b);
 
-                    str.writeInt(block.m_addr);
+                    str.writeInt(addrs == null ? block.m_addr : addrs[b]);
                     for (int i = 0; i < m_bitSize; i++) {
                     	    str.writeInt(block.m_commit[i]);
                     }
@@ -1634,7 +2317,9 @@ public class FixedAllocator implements Allocator {
 
 	public void addToRegionMap(HashMap<Integer, FixedAllocator> map) {
 		for (AllocBlock ab : m_allocBlocks) {
-			if (ab.m_addr != 0) {
+			// the regions of a cold allocator (other than the first) may have
+			// been reused.
+			if (ab.m_addr != 0 && (m_coldAddrs == null || ab == m_allocBlocks.get(0))) {
 				final FixedAllocator pa = map.put(ab.m_addr, this);
 				if (pa != null) {
 					throw new IllegalStateException("Duplicate mapping Allocators, " + pa.m_index + ", " + m_index);
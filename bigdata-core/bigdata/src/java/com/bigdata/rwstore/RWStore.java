@@ -25,7 +25,9 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package com.bigdata.rwstore;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -47,6 +49,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -55,6 +58,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -87,6 +91,7 @@ import com.bigdata.io.FileChannelUtility;
 import com.bigdata.io.FileChannelUtility.AsyncTransfer;
 import com.bigdata.io.IBufferAccess;
 import com.bigdata.io.IReopenChannel;
+import com.bigdata.io.MappedFileReader;
 import com.bigdata.io.MergeStreamWithSnapshotData;
 import com.bigdata.io.compression.CompressorRegistry;
 import com.bigdata.io.compression.IRecordCompressor;
@@ -490,7 +495,44 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         String DOUBLE_BUFFER_WRITES = RWStore.class.getName() + ".doubleBuffer";
         
         String DEFAULT_DOUBLE_BUFFER_WRITES = "true";
-        
+
+        /**
+         * The name of a secondary file (normally on a cheaper and slower
+         * volume) onto which {@link RWStore#migrateColdAllocators()} moves the
+         * allocation regions of {@link FixedAllocator}s which hold only
+         * historical data and have not been read recently. Reads against those
+         * allocators are transparently resolved against this file. The option
+         * must be specified each time a store with a cold tier is reopened.
+         * There is no default: when not specified the store has a single tier.
+         * <p>
+         * Note: The cold tier is not supported for a highly available
+         * journal. Snapshots (full or incremental) relocate the regions on the
+         * cold tier onto the backing file, so a snapshot is restored without
+         * the cold tier. Digests cover both the backing file and the cold
+         * tier.
+         *
+         * @see ColdTierFile
+         * @see com.bigdata.journal.Journal#migrateColdAllocators()
+         */
+        String COLD_TIER_FILE = RWStore.class.getName() + ".coldTierFile";
+
+        /**
+         * The name of a file on which each commit logs the regions of the
+         * backing file which it changed. The log makes it possible to take an
+         * incremental snapshot which copies only the allocation blocks changed
+         * since a previous snapshot. The log only covers the commits made while
+         * the option was specified. There is no default: when not specified
+         * changes are not logged.
+         * <p>
+         * Note: The change log is not supported for a highly available
+         * journal.
+         *
+         * @see ChangeLog
+         * @see com.bigdata.journal.Journal#incrementalSnapshot(com.bigdata.journal.ISnapshotFactory,
+         *      long)
+         */
+        String CHANGE_LOG_FILE = RWStore.class.getName() + ".changeLogFile";
+
 //        /**
 //         * When <code>true</code> fills recycled storage with a recognizable
 //         * byte pattern.
@@ -594,7 +636,106 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
      * configured threshold.
      */
     private ArrayList<FixedAllocator> m_freeFixed[];
-    
+
+    /**
+     * The cold tier -or- <code>null</code> if the store has a single tier.
+     *
+     * @see Options#COLD_TIER_FILE
+     */
+    private final ColdTierFile m_coldTier;
+
+    /**
+     * The byte offset and length of the last tier map record written onto the
+     * {@link #m_coldTier} -or- ZERO (0) if none. These are recorded in the
+     * reserved metabits header fields.
+     */
+    private long m_coldMapAddr = 0L;
+    private int m_coldMapLen = 0;
+
+    /**
+     * <code>true</code> iff the tier map must be written out by the next
+     * commit.
+     */
+    private boolean m_coldMapDirty = false;
+
+    /**
+     * A region of the backing file, expressed in the scaled int32 form used
+     * for {@link AllocBlock} addresses, which was vacated by a migration to the
+     * cold tier.
+     */
+    private static class Extent {
+
+        /** The (negative) scaled address of the start of the region. */
+        int addr;
+
+        /** The size of the region in units of {@link RWStore#ALLOCATION_SCALEUP}. */
+        int size;
+
+        /**
+         * The #of commits which must complete before the region may be
+         * reused.
+         */
+        int holdCommits;
+
+        Extent(final int addr, final int size, final int holdCommits) {
+            this.addr = addr;
+            this.size = size;
+            this.holdCommits = holdCommits;
+        }
+
+    }
+
+    /**
+     * Vacated regions which may be reused for new {@link AllocBlock}s.
+     * Guarded by the {@link #m_allocationLock}.
+     */
+    private final ArrayList<Extent> m_reclaimed = new ArrayList<Extent>();
+
+    /**
+     * Vacated regions which may not be reused until both root blocks refer
+     * to a tier map which records the migration. Guarded by the
+     * {@link #m_allocationLock}.
+     */
+    private final ArrayList<Extent> m_coldHeld = new ArrayList<Extent>();
+
+    /**
+     * The cold allocators found empty by the last pass of
+     * {@link #migrateColdAllocators()}, which the next commit will return to
+     * the backing file. Guarded by the {@link #m_allocationLock}.
+     */
+    private final ArrayList<FixedAllocator> m_rewarmPending = new ArrayList<FixedAllocator>();
+
+    /**
+     * <code>true</code> while a pass of {@link #migrateColdAllocators()} is
+     * running.
+     */
+    private final AtomicBoolean m_migrationActive = new AtomicBoolean();
+
+    /**
+     * The #of snapshots which are reading the cold tier. No allocator is moved
+     * between the tiers while this is non-zero.
+     * 
+     * @see #snapshotAllocationData(ISnapshotData, IRootBlockView)
+     */
+    private final AtomicInteger m_coldTierPins = new AtomicInteger();
+
+    /**
+     * The #of {@link FixedAllocator}s whose trailing {@link AllocBlock}s are
+     * being evacuated by an online compaction and have not yet been released.
+     * Guarded by the {@link #m_allocationLock}.
+     * 
+     * @see #beginEvacuation(float)
+     */
+    private volatile int m_evacuationCount = 0;
+
+    /**
+     * The log of the regions changed by each commit -or- <code>null</code> if
+     * changes are not logged.
+     *
+     * @see Options#CHANGE_LOG_FILE
+     */
+    private final ChangeLog m_changeLog;
+
 //  /** lists of free blob allocators. */
     // private final ArrayList<BlobAllocator> m_freeBlobs;
 
@@ -640,6 +781,16 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
      * @see com.bigdata.journal.Options#HOT_CACHE_SIZE
      */
     private final int m_hotCacheSize;
+
+    /**
+     * @see com.bigdata.journal.Options#READ_CACHE_ADMISSION_FREQUENCY
+     */
+    private final int m_readCacheAdmissionFrequency;
+
+    /**
+     * @see com.bigdata.journal.Options#READ_CACHE_COMPRESSED_SIZE
+     */
+    private final long m_readCacheCompressedSize;
     
     /**
      * The key for the {@link CompressorRegistry} which identifies the
@@ -794,7 +945,24 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
      */
     private final ReopenFileChannel m_reopener;
 
+    /**
+     * Used to read records which are not in the {@link WriteCacheService}
+     * through a memory mapping of the backing file -or- <code>null</code> if
+     * mapped reads are disabled.
+     * 
+     * @see com.bigdata.journal.Options#READ_MAPPED
+     */
+    private final MappedFileReader m_mappedReader;
+
     private volatile BufferedWrite m_bufferedWrite;
+
+    /**
+     * The #of threads which will concurrently write dirty {@link WriteCache}
+     * buffers onto the backing file.
+     * 
+     * @see com.bigdata.journal.Options#WRITE_CACHE_WRITER_COUNT
+     */
+    private final int m_writerCount;
     
     /**
      * Our StoreageStats objects
@@ -1007,6 +1175,27 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         }
 
         if (Boolean.valueOf(fileMetadata.getProperty(
+                com.bigdata.journal.Options.READ_MAPPED,
+                com.bigdata.journal.Options.DEFAULT_READ_MAPPED))) {
+            m_mappedReader = new MappedFileReader(m_reopener);
+        } else {
+            m_mappedReader = null;
+        }
+
+        m_writerCount = Integer.valueOf(fileMetadata.getProperty(
+                com.bigdata.journal.Options.WRITE_CACHE_WRITER_COUNT,
+                com.bigdata.journal.Options.DEFAULT_WRITE_CACHE_WRITER_COUNT));
+
+        if (m_writerCount <= 0)
+            throw new IllegalArgumentException(
+                    com.bigdata.journal.Options.WRITE_CACHE_WRITER_COUNT + "="
+                            + m_writerCount);
+
+        /*
+         * Note: The BufferedWrite is shared by all WriteCache buffers so it
+         * can not be used when the buffers are written concurrently.
+         */
+        if (m_writerCount == 1 && Boolean.valueOf(fileMetadata.getProperty(
                 Options.DOUBLE_BUFFER_WRITES,
                 Options.DEFAULT_DOUBLE_BUFFER_WRITES))) {
             try {
@@ -1060,6 +1249,14 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             log.info(com.bigdata.journal.Options.HOT_CACHE_SIZE + "="
                     + m_hotCacheSize);
 
+        this.m_readCacheAdmissionFrequency = Integer.valueOf(fileMetadata.getProperty(
+                com.bigdata.journal.Options.READ_CACHE_ADMISSION_FREQUENCY,
+                com.bigdata.journal.Options.DEFAULT_READ_CACHE_ADMISSION_FREQUENCY));
+
+        this.m_readCacheCompressedSize = Long.valueOf(fileMetadata.getProperty(
+                com.bigdata.journal.Options.READ_CACHE_COMPRESSED_SIZE,
+                com.bigdata.journal.Options.DEFAULT_READ_CACHE_COMPRESSED_SIZE));
+
         this.m_compressorKey = fileMetadata.getProperty(
                 com.bigdata.journal.Options.HALOG_COMPRESSOR,
                 com.bigdata.journal.Options.DEFAULT_HALOG_COMPRESSOR);
@@ -1068,6 +1265,62 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             log.info(com.bigdata.journal.Options.HALOG_COMPRESSOR + "="
                     + m_compressorKey);
 
+        {
+            final String coldFile = fileMetadata.getProperty(
+                    Options.COLD_TIER_FILE, null/* default */);
+
+            if (coldFile != null && coldFile.length() > 0) {
+
+                if (quorum != null)
+                    throw new UnsupportedOperationException(
+                            Options.COLD_TIER_FILE
+                                    + " is not supported for HA");
+
+                try {
+                    m_coldTier = new ColdTierFile(new File(coldFile),
+                            fileMetadata.readOnly);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+
+            } else {
+
+                m_coldTier = null;
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info(Options.COLD_TIER_FILE + "=" + coldFile);
+        }
+
+        {
+            final String changeLogFile = fileMetadata.getProperty(
+                    Options.CHANGE_LOG_FILE, null/* default */);
+
+            if (changeLogFile != null && changeLogFile.length() > 0
+                    && !fileMetadata.readOnly) {
+
+                if (quorum != null)
+                    throw new UnsupportedOperationException(
+                            Options.CHANGE_LOG_FILE
+                                    + " is not supported for HA");
+
+                try {
+                    m_changeLog = new ChangeLog(new File(changeLogFile));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+
+            } else {
+
+                m_changeLog = null;
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info(Options.CHANGE_LOG_FILE + "=" + changeLogFile);
+        }
+
         // m_writeCache = newWriteCache();
 
         try {
@@ -1274,10 +1527,11 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 
             final boolean prefixWrites = m_quorum != null; // highlyAvailable
 
-            return new RWWriteCacheService(m_writeCacheBufferCount,
+            final RWWriteCacheService wcs = new RWWriteCacheService(m_writeCacheBufferCount,
                     m_minCleanListSize, m_readCacheBufferCount, prefixWrites, m_compactionThreshold, m_hotCacheSize, m_hotCacheThreshold,
 
-                    convertAddr(m_fileSize), m_reopener, m_quorum, this) {
+                    convertAddr(m_fileSize), m_reopener, m_quorum, this,
+                    m_writerCount) {
 
                         @Override
                         @SuppressWarnings("unchecked")
@@ -1293,6 +1547,11 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                                     fileExtent, m_compressorKey);
                         }
                 };
+
+            wcs.setReadCachePolicy(m_readCacheAdmissionFrequency,
+                    m_readCacheCompressedSize);
+
+            return wcs;
         } catch (InterruptedException e) {
             throw new IllegalStateException(ERR_WRITE_CACHE_CREATE, e);
         } catch (IOException e) {
@@ -1342,8 +1601,21 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         if (log.isInfoEnabled())
             log.info("Set default file extent " + convertAddr(m_fileSize));
         
+        if (m_mappedReader != null) {
+            /*
+             * Unmap before the file is truncated (some platforms can not
+             * truncate a mapped file) and again afterwards in case a reader
+             * remapped it in the meantime.
+             */
+            m_mappedReader.clear();
+        }
+
         m_reopener.raf.setLength(convertAddr(m_fileSize));
 
+        if (m_mappedReader != null) {
+            m_mappedReader.clear();
+        }
+
     }
 
     public boolean isOpen() {
@@ -1365,7 +1637,16 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                 m_bufferedWrite = null;
             }
             m_writeCacheService.close();
+            if (m_mappedReader != null) {
+                m_mappedReader.clear();
+            }
             m_reopener.close();
+            if (m_coldTier != null) {
+                m_coldTier.close();
+            }
+            if (m_changeLog != null) {
+                m_changeLog.close();
+            }
         } catch (Throwable t) {
             throw new RuntimeException(t);
         }
@@ -1533,6 +1814,13 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 
         m_storeUUID = rb.getUUID();
         
+        if (m_coldTier != null) {
+
+            // never read (or reuse) the cold tier of another store.
+            m_coldTier.bind(m_storeUUID);
+
+        }
+
         if (rb.getNextOffset() == 0) {
 
             defaultInit();
@@ -1655,10 +1943,16 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                 m_storageStatsAddr = strBuf.readLong();
 
                 // and let's read in those reserved ints
+                final int[] reserved = new int[cReservedMetaBits];
                 for (int i = 0; i < cReservedMetaBits; i++) {
-                    strBuf.readInt();
+                    reserved[i] = strBuf.readInt();
                 }
 
+                // the location of the tier map on the cold tier (if any).
+                m_coldMapAddr = (((long) reserved[0]) << 32)
+                        | (reserved[1] & 0xFFFFFFFFL);
+                m_coldMapLen = reserved[2];
+
                 m_allocSizes = new int[allocBlocks];
                 for (int i = 0; i < allocBlocks; i++) {
                     m_allocSizes[i] = strBuf.readInt();
@@ -1687,6 +1981,8 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         
                 readAllocationBlocks();
                 
+                readColdMap();
+                
             }
             
             if (log.isInfoEnabled())
@@ -2065,8 +2361,9 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         final Lock lock = m_allocationReadLock;
         lock.lock();
         try {
-            // must allow for checksum
-            if (sze > (m_maxFixedAlloc-4) || m_writeCacheService == null) {
+            // must allow for checksum (cold tier reads bypass the cache)
+            if (sze > (m_maxFixedAlloc-4) || m_writeCacheService == null
+                    || coldAddress((int) rwaddr) != 0L) {
                 final byte buf[] = new byte[sze + 4]; // 4 bytes for checksum
             
                 getData(rwaddr, buf, 0, sze+4);
@@ -2239,6 +2536,12 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 								if (i == (nblocks - 1)) {
 									rdlen = length - cursor;
 								}
+								if (coldAddress(blobHdr[i]) != 0L) {
+									// read synchronously from the cold tier
+									getData(blobHdr[i], buf, cursor, rdlen);
+									cursor += rdlen - 4;
+									continue;
+								}
 								final ByteBuffer bb = ByteBuffer.wrap(buf,
 										cursor, rdlen - 4); // strip off
 															// checksum to avoid
@@ -2291,6 +2594,26 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                     throw new IllegalStateException("Bad Address: length requested greater than allocated slot: " + slotSize + " < " + length);
                 }
 
+                final long caddr = coldAddress((int) addr);
+                
+                if (caddr != 0L) {
+
+                    readCold(caddr, buf, offset, length);
+
+                    final StoreCounters<?> c = (StoreCounters<?>) storeCounters
+                            .get().acquire();
+                    try {
+                        c.nreads++;
+                        c.bytesRead += length;
+                        c.elapsedReadNanos += (System.nanoTime() - begin);
+                    } finally {
+                        c.release();
+                    }
+
+                    return;
+
+                }
+
                 final long paddr = physicalAddress((int) addr);
                 
                 if (paddr == 0) {
@@ -2746,8 +3069,9 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             assert pa != 0;
             // only clear any existing write to cache if no active session
             if (overrideSession || !this.isSessionProtected()) {
-                // Only overwrite if NOT committed
-                if (!alloc.isCommitted(addrOffset)) {
+                // Only overwrite if NOT committed (and not cold, since the
+                // region of a cold allocator may have been reused)
+                if (!alloc.isCommitted(addrOffset) && !alloc.isCold()) {
                         m_writeCacheService.clearWrite(pa,addr);
 //                    m_writeCache.overwrite(pa, sze);
                     /*
@@ -3018,7 +3342,8 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
     	for (int i = 0; i < m_allocs.size(); i++) {
     		final FixedAllocator tst = m_allocs.get(i);
     		if (tst.getBlockSize() == block) { // right size
-    			if (tst.m_freeBits > candidateFreeBits) {
+    			if (tst.m_freeBits > candidateFreeBits && tst.m_evacuateFrom == 0
+    					&& !tst.isCold() && !tst.m_migrating) {
     				candidate = tst;
     				candidateFreeBits = candidate.m_freeBits;
     			}
@@ -3275,6 +3600,8 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
              */
             for (FixedAllocator fa : m_allocs) {
                 isolatedWrites |= fa.reset(m_writeCacheService, m_committedNextAllocation);
+                // the discarded deferred frees are not tracked.
+                fa.m_deferredFrees = 0;
             }
             
             /**
@@ -3432,6 +3759,15 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
     }
     
     private byte[] genMetabitsData() throws IOException {
+        return genMetabitsData(true/* coldMap */);
+    }
+
+    /**
+     * @param coldMap
+     *            <code>false</code> to leave out the location of the tier map
+     *            (for a snapshot which relocates the cold tier).
+     */
+    private byte[] genMetabitsData(final boolean coldMap) throws IOException {
         // the metabits is now prefixed by a long specifying the lastTxReleaseTime
         // used to free the deferedFree allocations.  This is used to determine
         //  which commitRecord to access to process the nextbatch of deferred
@@ -3450,8 +3786,17 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             str.writeLong(m_storageStatsAddr);
 
             // Let's reserve ourselves some space 
+            final int[] reserved = new int[cReservedMetaBits];
+            
+            // the location of the tier map on the cold tier (if any).
+            if (coldMap) {
+                reserved[0] = (int) (m_coldMapAddr >>> 32);
+                reserved[1] = (int) m_coldMapAddr;
+                reserved[2] = m_coldMapLen;
+            }
+            
             for (int i = 0; i < cReservedMetaBits; i++) {
-                str.writeInt(0);
+                str.writeInt(reserved[i]);
             }
             
             /*
@@ -3504,6 +3849,37 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         private final int m_lastCommittedNextAllocation;
         private final long m_storageStatsAddr;
         private final int m_metaBitsAddr;
+        private final long m_coldMapAddr;
+        private final int m_coldMapLen;
+        private final int m_nextAllocation;
+        private final int m_fileSize;
+
+        /**
+         * The evacuated allocators whose blocks were released by this commit
+         * and the addresses of those blocks -or- <code>null</code> if none
+         * were released.
+         */
+        private Map<FixedAllocator, int[]> m_released = null;
+
+        /**
+         * The vacated regions before they were trimmed to the new end of the
+         * heap by this commit -or- <code>null</code> if they were not
+         * trimmed.
+         */
+        private List<Extent> m_reclaimed = null;
+
+        /**
+         * The cold allocators returned to the backing file by this commit and
+         * the addresses of their blocks -or- <code>null</code> if none were
+         * returned.
+         */
+        private Map<FixedAllocator, int[]> m_rewarmed = null;
+
+        /**
+         * The regions changed by this commit -or- <code>null</code> if changes
+         * are not logged. These are logged when the root block is written.
+         */
+        private List<long[]> m_changedRegions = null;
 
         CommitState() {
             // retain copy of critical pre-commit state
@@ -3512,6 +3888,10 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             m_lastCommittedNextAllocation = RWStore.this.m_committedNextAllocation;
             m_storageStatsAddr = RWStore.this.m_storageStatsAddr;
             m_metaBitsAddr = RWStore.this.m_metaBitsAddr;
+            m_coldMapAddr = RWStore.this.m_coldMapAddr;
+            m_coldMapLen = RWStore.this.m_coldMapLen;
+            m_nextAllocation = RWStore.this.m_nextAllocation;
+            m_fileSize = RWStore.this.m_fileSize;
         }
 
         void postCommit() {
@@ -3527,6 +3907,33 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             RWStore.this.m_storageStatsAddr = m_storageStatsAddr;
             RWStore.this.m_committedNextAllocation = m_lastCommittedNextAllocation;
             RWStore.this.m_metaBitsAddr = m_metaBitsAddr;
+            if (RWStore.this.m_coldMapAddr != m_coldMapAddr) {
+                // The tier map must be written again by the next commit.
+                m_coldTier.release(RWStore.this.m_coldMapAddr,
+                        RWStore.this.m_coldMapLen, 0/* holdCommits */);
+                RWStore.this.m_coldMapAddr = m_coldMapAddr;
+                RWStore.this.m_coldMapLen = m_coldMapLen;
+                RWStore.this.m_coldMapDirty = true;
+            }
+            if (m_released != null) {
+                // The blocks are still reserved by the last commit point.
+                for (Map.Entry<FixedAllocator, int[]> e : m_released.entrySet()) {
+                    e.getKey().restoreBlocks(e.getValue());
+                }
+                if (m_reclaimed != null) {
+                    RWStore.this.m_reclaimed.clear();
+                    RWStore.this.m_reclaimed.addAll(m_reclaimed);
+                }
+                RWStore.this.m_nextAllocation = m_nextAllocation;
+                RWStore.this.m_fileSize = m_fileSize;
+            }
+            if (m_rewarmed != null) {
+                // The allocators are still cold as of the last commit point.
+                for (Map.Entry<FixedAllocator, int[]> e : m_rewarmed.entrySet()) {
+                    e.getKey().restoreCold(e.getValue());
+                }
+                RWStore.this.m_coldMapDirty = true;
+            }
          }
 
     }
@@ -3569,6 +3976,11 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                         "RWStore commitState found, incomplete previous commit must be rolled back/aborted");
             }
 
+            if (m_evacuationCount > 0) {
+                // before anything is allocated by this commit.
+                releaseEvacuatedBlocks(m_commitStateRef.get());
+            }
+
 //          final int totalFreed = checkDeferredFrees(true, journal); // free now if possible
 //          
 //          if (totalFreed > 0 && log.isInfoEnabled()) {
@@ -3586,6 +3998,14 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                 m_storageStatsAddr = (addr << 16) + buf.length;
             }
 
+            if (!m_rewarmPending.isEmpty()) {
+                rewarmColdAllocators(m_commitStateRef.get());
+            }
+
+            if (m_coldMapDirty) {
+                writeColdMap();
+            }
+
             /*
              * Pre-allocate storage for metaBits from FixedAllocators (ensure
              * that we do not need to reallocate the metabits region when we are
@@ -3660,10 +4080,18 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             // save allocation headers
             FixedAllocator fa = m_commitHead;
             
+            final List<long[]> changedRegions = m_changeLog == null ? null
+                    : new ArrayList<long[]>();
+
             while (fa != null) {
                 
                 final FixedAllocator allocator = fa;
                 
+                if (changedRegions != null) {
+                    // before write() since that may release the transients.
+                    allocator.addChangedRegions(changedRegions);
+                }
+
                 // the bit in metabits for the old allocator version.
                 final int old = allocator.getDiskAddr();
 
@@ -3694,6 +4122,9 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                 
                 fa = fa.m_nextCommit;
             }
+
+            m_commitStateRef.get().m_changedRegions = changedRegions;
+
             // DO NOT clear the commit list until the writes have been flushed
             // m_commitList.clear();
 
@@ -3793,8 +4224,59 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         	m_storageStats.commit();
         }
 
+        releaseHeldExtents();
+
+        if (m_coldTier != null) {
+
+            try {
+
+                m_coldTier.postCommit();
+
+            } catch (IOException e) {
+
+                throw new RuntimeException(e);
+
+            }
+
+            if (m_coldMapAddr != commitState.m_coldMapAddr
+                    && commitState.m_coldMapAddr != 0L) {
+
+                // The other root block still refers to the replaced tier map.
+                m_coldTier.release(commitState.m_coldMapAddr,
+                        commitState.m_coldMapLen, 1/* holdCommits */);
+
+            }
+
+            if (commitState.m_rewarmed != null) {
+
+                for (FixedAllocator fa : commitState.m_rewarmed.keySet()) {
+
+                    fa.endRewarm();
+
+                }
+
+            }
+
+        }
+
         clearCommitList();
 
+        if (commitState.m_released != null) {
+
+            for (FixedAllocator fa : commitState.m_released.keySet()) {
+
+                fa.endEvacuation();
+
+                m_evacuationCount--;
+
+            }
+
+            // The root blocks no longer refer to the released regions.
+            if (m_fileSize != commitState.m_fileSize)
+                truncateFile();
+
+        }
+
     }
 
     @Override
@@ -4703,8 +5185,14 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         return m_fd;
     }
 
+    /**
+     * Return <code>true</code> iff there were allocations since the last
+     * commit -or- an online compaction is in progress (the evacuated blocks
+     * are only released by a commit).
+     */
     public boolean requiresCommit() {
-        return m_recentAlloc;
+        return m_recentAlloc || m_evacuationCount > 0 || m_coldMapDirty
+                || !m_rewarmPending.isEmpty();
     }
 
     /**
@@ -5234,6 +5722,10 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 
             } else {
                 m_deferredFreeOut.writeInt(rwaddr);             
+                if (m_coldTier != null) {
+                    // the slot is now only visible to the retained history.
+                    getBlock(rwaddr).m_deferredFrees++;
+                }
             }
         } catch (IOException e) {
             throw new RuntimeException("Could not free: rwaddr=" + rwaddr
@@ -5329,6 +5821,11 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 
                     immediateFree(-nxtAddr, bloblen);
                 } else {
+                    if (m_coldTier != null) {
+                        final FixedAllocator fa = getBlock(nxtAddr);
+                        if (fa.m_deferredFrees > 0)
+                            fa.m_deferredFrees--;
+                    }
                     // The lack of size messes with the stats
                     immediateFree(nxtAddr, 1); // size ignored for FixedAllocators
                 }
@@ -5790,6 +6287,20 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         
         try {
             
+            /*
+             * Log the regions changed by this commit before the root block
+             * makes it visible. Root blocks written outside of the commit
+             * protocol do not change any region.
+             */
+            final CommitState commitState = m_commitStateRef.get();
+
+            if (commitState != null && commitState.m_changedRegions != null) {
+
+                m_changeLog.append(rootBlock.getCommitCounter(),
+                        commitState.m_changedRegions);
+
+            }
+
             final ByteBuffer data = rootBlock.asReadOnlyBuffer();
 
             final long pos = rootBlock.isRootBlock0()
@@ -6736,9 +7247,10 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                 final long pos = offset;
                 final int length = dst.limit();
 
-                // read on the disk.
-                final int ndiskRead = FileChannelUtility.readAll(m_reopener,
-                        dst, pos);
+                // read on the mapping or the disk.
+                final int ndiskRead = m_mappedReader != null
+                        && m_mappedReader.read(pos, dst) ? 0
+                        : FileChannelUtility.readAll(m_reopener, dst, pos);
 
                 m_diskReads += ndiskRead;
                 
@@ -6945,29 +7457,1083 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         }
     }
 
-    public boolean inWriteCache(final int rwaddr) {
-        
-        return m_writeCacheService.isPresent(physicalAddress(rwaddr, true));
-        
-    }
+    /**
+     * Migrate the {@link FixedAllocator}s which hold only historical data and
+     * which have not been read since the last pass (or since the store was
+     * opened) to the cold tier. An allocator holds only historical data once
+     * each of its live slots was freed while the store retains history (see
+     * {@link AbstractTransactionService.Options#MIN_RELEASE_AGE}), so its
+     * records remain readable from the commit points before those frees but
+     * not from the current state. Such an allocator is selected iff it is not
+     * on the free list, no slot has been allocated against it since the last
+     * commit, it is not shadowed by an allocation context, it is not being
+     * evacuated, it does not hold the metabits and it has more than one
+     * {@link AllocBlock}. No allocator is selected unless history is retained.
+     * <p>
+     * Each selected allocator is taken off the free list and the regions of
+     * its blocks (other than the first block, which fixes the order of the
+     * allocator on reopen) are then copied onto the cold tier without holding
+     * the allocation lock, so concurrent reads, writes and commits are not
+     * blocked by the copy. The allocator is then marked as cold under the
+     * allocation lock (it will never be used for new allocations) and reads
+     * against the copied blocks are resolved against the cold tier from then
+     * on. The tier map is written by the next commit. The vacated regions of
+     * the backing file are reused for new {@link AllocBlock}s once two further
+     * commits have been made, so that neither root block can refer to the
+     * data which was moved.
+     * <p>
+     * Each pass also releases the space on the cold tier for the blocks of the
+     * cold allocators whose slots have all been released, and the next commit
+     * returns a cold allocator whose slots have all been released to the
+     * backing file. The cold tier is truncated once the space at its end is
+     * free.
+     * <p>
+     * Nothing is moved between the tiers while a snapshot is being taken.
+     * 
+     * @return The #of allocators which were migrated.
+     * 
+     * @throws IllegalStateException
+     *             if the store does not have a cold tier.
+     * 
+     * @see Options#COLD_TIER_FILE
+     * @see com.bigdata.journal.Journal#migrateColdAllocators()
+     */
+    public int migrateColdAllocators() {
 
-    @Override
-    public InputStream getInputStream(long addr) {
-        return new PSInputStream(this, addr);
-    }
+        assertOpen();
 
-    @Override
-    public IPSOutputStream getOutputStream() {
-        return getOutputStream(null);
-    }  
+        if (m_coldTier == null)
+            throw new IllegalStateException("No cold tier: "
+                    + Options.COLD_TIER_FILE);
 
-    public IPSOutputStream getOutputStream(final IAllocationContext context) {
-    	checkContext(context);
-    	
-        return PSOutputStream.getNew(this, m_maxFixedAlloc, context);
-    }
+        if (!m_migrationActive.compareAndSet(false/* expect */, true/* update */)) {
 
-    /**
+            // another pass is running.
+            return 0;
+
+        }
+
+        try {
+
+            final List<FixedAllocator> candidates = selectColdAllocators();
+
+            if (candidates.isEmpty())
+                return 0;
+
+            /*
+             * Copy the regions without the allocation lock. The candidates
+             * are off the free list and no slot can be allocated from them.
+             */
+            final Map<FixedAllocator, long[]> copies = new HashMap<FixedAllocator, long[]>();
+
+            try {
+
+                for (FixedAllocator fa : candidates) {
+
+                    copies.put(fa, fa.copyToColdTier(m_coldTier));
+
+                }
+
+                // The copies must be stable before the tier map is written.
+                m_coldTier.force();
+
+            } catch (IOException e) {
+
+                abandonMigration(candidates, copies);
+
+                throw new RuntimeException(e);
+
+            }
+
+            return swapColdAllocators(candidates, copies);
+
+        } finally {
+
+            m_migrationActive.set(false);
+
+        }
+
+    }
+
+    /**
+     * Select the allocators for {@link #migrateColdAllocators()} and set
+     * {@link FixedAllocator#m_migrating} on each of them. This also releases
+     * the space on the cold tier of the empty blocks of the cold allocators
+     * and notes the empty cold allocators for the next commit.
+     */
+    private List<FixedAllocator> selectColdAllocators() {
+
+        final List<FixedAllocator> candidates = new ArrayList<FixedAllocator>();
+
+        m_allocationWriteLock.lock();
+
+        try {
+
+            if (m_coldTierPins.get() != 0)
+                return candidates;
+
+            final int mbIndex = m_metaBitsAddr < 0 ? (-m_metaBitsAddr) >>> OFFSET_BITS
+                    : -1;
+
+            int nreleased = 0;
+
+            for (FixedAllocator fa : m_allocs) {
+
+                // start counting again for the next pass.
+                final int reads = fa.m_reads.getAndSet(0);
+
+                if (fa.isCold()) {
+
+                    // the last committed tier map may refer to the copies.
+                    if (fa.releaseColdBlocks(m_coldTier, 2/* holdCommits */)) {
+
+                        m_coldMapDirty = true;
+
+                        nreleased++;
+
+                    }
+
+                    if (fa.getLiveSlots() == 0 && !m_rewarmPending.contains(fa))
+                        m_rewarmPending.add(fa);
+
+                    continue;
+
+                }
+
+                final boolean candidate = m_minReleaseAge > 0
+                        && reads == 0
+                        && !fa.m_migrating
+                        && fa.m_evacuateFrom == 0
+                        && fa.isUnlocked() && !fa.m_pendingContextCommit
+                        && !fa.isOnFreeList()
+                        && fa.getIndex() != mbIndex
+                        && fa.getDiskAddr() != 0
+                        && fa.getAllocatedBlocks() > 1
+                        && fa.m_deferredFrees > 0
+                        && fa.m_deferredFrees >= fa.getLiveSlots()
+                        && !fa.hasUncommittedAllocations();
+
+                if (!candidate)
+                    continue;
+
+                fa.m_migrating = true;
+
+                candidates.add(fa);
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info("Selected " + candidates.size() + " of "
+                        + m_allocs.size() + " allocators for the cold tier"
+                        + ", released=" + nreleased + ", rewarm="
+                        + m_rewarmPending.size());
+
+            return candidates;
+
+        } finally {
+
+            m_allocationWriteLock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Mark the allocators whose regions were copied as cold. An allocator is
+     * not migrated (and its copies are released) if a snapshot started during
+     * the copy -or- if the allocator was discarded by an abort -or- if a block
+     * which was not copied is no longer empty.
+     * 
+     * @return The #of allocators which were migrated.
+     */
+    private int swapColdAllocators(final List<FixedAllocator> candidates,
+            final Map<FixedAllocator, long[]> copies) {
+
+        m_allocationWriteLock.lock();
+
+        try {
+
+            int n = 0;
+
+            for (FixedAllocator fa : candidates) {
+
+                fa.m_migrating = false;
+
+                final long[] coldAddrs = copies.get(fa);
+
+                final ArrayList<int[]> vacated = m_coldTierPins.get() == 0
+                        && fa.getIndex() >= 0 && fa.getIndex() < m_allocs.size()
+                        && m_allocs.get(fa.getIndex()) == fa ? fa.setCold(
+                        coldAddrs, m_writeCacheService) : null;
+
+                if (vacated == null) {
+
+                    fa.releaseColdCopies(m_coldTier, coldAddrs, 0/* holdCommits */);
+
+                    fa.checkFreeList();
+
+                    continue;
+
+                }
+
+                for (int[] region : vacated) {
+
+                    m_coldHeld.add(new Extent(region[0], region[1], 2/* holdCommits */));
+
+                }
+
+                n++;
+
+            }
+
+            if (n > 0)
+                m_coldMapDirty = true;
+
+            if (log.isInfoEnabled())
+                log.info("Migrated " + n + " of " + m_allocs.size()
+                        + " allocators to the cold tier");
+
+            return n;
+
+        } finally {
+
+            m_allocationWriteLock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Release the copies made for the allocators when a migration fails.
+     */
+    private void abandonMigration(final List<FixedAllocator> candidates,
+            final Map<FixedAllocator, long[]> copies) {
+
+        m_allocationWriteLock.lock();
+
+        try {
+
+            for (FixedAllocator fa : candidates) {
+
+                fa.m_migrating = false;
+
+                final long[] coldAddrs = copies.get(fa);
+
+                if (coldAddrs != null)
+                    fa.releaseColdCopies(m_coldTier, coldAddrs, 0/* holdCommits */);
+
+                fa.checkFreeList();
+
+            }
+
+        } finally {
+
+            m_allocationWriteLock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Invoked by {@link #commit()} to return the empty cold allocators to the
+     * backing file. The changes are recorded on the {@link CommitState} so
+     * they can be undone if the commit is discarded.
+     */
+    private void rewarmColdAllocators(final CommitState cs) {
+
+        for (FixedAllocator fa : m_rewarmPending) {
+
+            if (!fa.isCold() || m_allocs.get(fa.getIndex()) != fa)
+                continue;
+
+            final int[] addrs = fa.rewarm();
+
+            if (addrs == null)
+                continue;
+
+            if (cs.m_rewarmed == null)
+                cs.m_rewarmed = new HashMap<FixedAllocator, int[]>();
+
+            cs.m_rewarmed.put(fa, addrs);
+
+            // the allocator must be written without its cold blocks.
+            addToCommit(fa);
+
+            m_coldMapDirty = true;
+
+        }
+
+        m_rewarmPending.clear();
+
+        if (log.isInfoEnabled() && cs.m_rewarmed != null)
+            log.info("Returned " + cs.m_rewarmed.size()
+                    + " allocators from the cold tier");
+
+    }
+
+    /**
+     * Return <code>true</code> iff the latched address lies in an allocator
+     * which was migrated to the cold tier.
+     * 
+     * @param rwaddr
+     *            A latched address.
+     * 
+     * @see #migrateColdAllocators()
+     */
+    public boolean isCold(final int rwaddr) {
+
+        if (m_coldTier == null || rwaddr >= 0)
+            return false;
+
+        final Lock lock = m_allocationReadLock;
+
+        lock.lock();
+
+        try {
+
+            return getBlock(rwaddr).isCold();
+
+        } finally {
+
+            lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * The cold tier file -or- <code>null</code> if the store has a single
+     * tier.
+     */
+    public File getColdTierFile() {
+
+        return m_coldTier == null ? null : m_coldTier.getFile();
+
+    }
+
+    /**
+     * The change log file -or- <code>null</code> if changes are not logged.
+     *
+     * @see Options#CHANGE_LOG_FILE
+     */
+    public File getChangeLogFile() {
+
+        return m_changeLog == null ? null : m_changeLog.getFile();
+
+    }
+
+    /**
+     * Return the regions of the backing file changed by the commits after
+     * <i>fromCommitCounter</i> up to and including <i>toCommitCounter</i>.
+     * Together with the allocation data captured by
+     * {@link #snapshotMetabits(ISnapshotData)} and
+     * {@link #snapshotAllocators(ISnapshotData)} (and the root blocks), these
+     * regions bring a copy of the backing file as of the first commit point up
+     * to date with the second.
+     *
+     * @return The regions as <code>{offset, length}</code> pairs ordered by
+     *         offset.
+     *
+     * @throws IllegalStateException
+     *             if changes are not logged -or- if the log does not cover
+     *             those commits.
+     *
+     * @see Options#CHANGE_LOG_FILE
+     */
+    public List<long[]> getChangedRegions(final long fromCommitCounter,
+            final long toCommitCounter) throws IOException {
+
+        if (m_changeLog == null)
+            throw new IllegalStateException(Options.CHANGE_LOG_FILE
+                    + " not specified");
+
+        return m_changeLog.getChangedRegions(fromCommitCounter,
+                toCommitCounter);
+
+    }
+
+    /**
+     * Return the byte offset on the cold tier of the record at the latched
+     * address -or- ZERO (0L) if the record is on the backing file. When the
+     * store has a cold tier the read is also noted against the
+     * {@link FixedAllocator} so that allocators which are being read are not
+     * migrated. The caller must hold the allocation read lock.
+     * 
+     * @throws PhysicalAddressResolutionException
+     *             if the address lies in a cold allocator but is not
+     *             accessible.
+     */
+    private long coldAddress(final int rwaddr) {
+
+        if (m_coldTier == null)
+            return 0L;
+
+        final FixedAllocator fa = getBlock(rwaddr);
+
+        fa.m_reads.incrementAndGet();
+
+        if (!fa.isCold())
+            return 0L;
+
+        final long caddr = fa.getColdAddress(getOffset(rwaddr));
+
+        if (caddr == -1L)
+            throw new PhysicalAddressResolutionException(rwaddr);
+
+        return caddr;
+
+    }
+
+    /**
+     * Read a record, including its checksum, from the cold tier.
+     */
+    private void readCold(final long caddr, final byte[] buf,
+            final int offset, final int length) throws IOException {
+
+        final ByteBuffer bb = ByteBuffer.wrap(buf, offset, length);
+
+        m_coldTier.read(caddr, bb);
+
+        final int chk = ChecksumUtility.getCHK().checksum(buf, offset,
+                length - 4);
+
+        final int tstchk = bb.getInt(offset + length - 4);
+
+        if (chk != tstchk) {
+
+            throw new IllegalStateException(
+                    "Invalid data checksum from cold tier address: " + caddr
+                            + ", size: " + (length - 4));
+
+        }
+
+    }
+
+    /**
+     * Take a region vacated by a migration to the cold tier for a new
+     * {@link AllocBlock}.
+     * 
+     * @param size
+     *            The size of the region in units of
+     *            {@link #ALLOCATION_SCALEUP}.
+     * 
+     * @return The scaled address of the region -or- ZERO (0) if no vacated
+     *         region is large enough.
+     */
+    int allocReclaimedBlock(final int size) {
+
+        for (int i = 0; i < m_reclaimed.size(); i++) {
+
+            final Extent e = m_reclaimed.get(i);
+
+            if (e.size < size)
+                continue;
+
+            final int addr = e.addr;
+
+            e.addr -= size;
+
+            e.size -= size;
+
+            if (e.size == 0)
+                m_reclaimed.remove(i);
+
+            m_coldMapDirty = true;
+
+            if (log.isDebugEnabled())
+                log.debug("Reusing vacated region at " + convertAddr(addr)
+                        + " for " + convertAddr(-size));
+
+            return addr;
+
+        }
+
+        return 0;
+
+    }
+
+    /**
+     * Invoked after each commit to release the vacated regions whose hold has
+     * expired.
+     */
+    private void releaseHeldExtents() {
+
+        final Iterator<Extent> itr = m_coldHeld.iterator();
+
+        while (itr.hasNext()) {
+
+            final Extent e = itr.next();
+
+            if (--e.holdCommits <= 0) {
+
+                itr.remove();
+
+                m_reclaimed.add(e);
+
+                m_coldMapDirty = true;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Write the tier map onto the cold tier. The record lists the cold
+     * allocators with the cold tier offset of each of their
+     * {@link AllocBlock}s, followed by the vacated regions of the backing file
+     * and a checksum. The replaced tier map is released by
+     * {@link #postCommit()}.
+     */
+    private void writeColdMap() throws IOException {
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        final DataOutputStream out = new DataOutputStream(baos);
+
+        out.writeInt(0); // version
+
+        int ncold = 0;
+        for (FixedAllocator fa : m_allocs) {
+            if (fa.isCold())
+                ncold++;
+        }
+
+        out.writeInt(ncold);
+
+        for (FixedAllocator fa : m_allocs) {
+
+            final long[] coldAddrs = fa.getColdAddrs();
+
+            if (coldAddrs == null)
+                continue;
+
+            out.writeInt(fa.getIndex());
+
+            out.writeInt(coldAddrs.length);
+
+            for (long caddr : coldAddrs) {
+                out.writeLong(caddr);
+            }
+
+        }
+
+        out.writeInt(m_reclaimed.size() + m_coldHeld.size());
+
+        for (Extent e : m_reclaimed) {
+            out.writeInt(e.addr);
+            out.writeInt(e.size);
+            out.writeInt(0/* holdCommits */);
+        }
+
+        for (Extent e : m_coldHeld) {
+            out.writeInt(e.addr);
+            out.writeInt(e.size);
+            out.writeInt(e.holdCommits);
+        }
+
+        out.flush();
+
+        final byte[] data = baos.toByteArray();
+
+        final ByteBuffer buf = ByteBuffer.allocate(data.length + 4);
+
+        buf.put(data);
+
+        buf.putInt(ChecksumUtility.getCHK().checksum(data, 0, data.length));
+
+        buf.flip();
+
+        m_coldMapAddr = m_coldTier.append(buf);
+
+        m_coldMapLen = data.length + 4;
+
+        m_coldTier.force();
+
+        m_coldMapDirty = false;
+
+    }
+
+    /**
+     * Read back the tier map identified by the metabits header (if any) and
+     * mark the cold allocators. This is invoked once the allocators have been
+     * read. The space on the cold tier which is not used by the tier map is
+     * released.
+     */
+    private void readColdMap() throws IOException {
+
+        m_reclaimed.clear();
+
+        m_coldHeld.clear();
+
+        m_rewarmPending.clear();
+
+        if (m_coldMapLen == 0) {
+
+            if (m_coldTier != null)
+                m_coldTier.recover(Collections.<long[]> emptyList());
+
+            return;
+
+        }
+
+        if (m_coldTier == null)
+            throw new IllegalStateException(
+                    "The store has a cold tier, but " + Options.COLD_TIER_FILE
+                            + " was not specified");
+
+        final byte[] buf = new byte[m_coldMapLen];
+
+        m_coldTier.read(m_coldMapAddr, ByteBuffer.wrap(buf));
+
+        final int chk = ChecksumUtility.getCHK().checksum(buf, 0,
+                buf.length - 4);
+
+        if (chk != ByteBuffer.wrap(buf).getInt(buf.length - 4))
+            throw new IllegalStateException("Invalid tier map checksum: file="
+                    + m_coldTier.getFile() + ", addr=" + m_coldMapAddr);
+
+        final DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(buf, 0, buf.length - 4));
+
+        final int version = in.readInt();
+
+        if (version != 0)
+            throw new IllegalStateException("Unknown tier map version: "
+                    + version);
+
+        final int ncold = in.readInt();
+
+        final List<long[]> used = new ArrayList<long[]>();
+
+        used.add(new long[] { m_coldMapAddr, m_coldMapLen });
+
+        for (int i = 0; i < ncold; i++) {
+
+            final int index = in.readInt();
+
+            final long[] coldAddrs = new long[in.readInt()];
+
+            final FixedAllocator fa = m_allocs.get(index);
+
+            for (int j = 0; j < coldAddrs.length; j++) {
+                coldAddrs[j] = in.readLong();
+                if (coldAddrs[j] != 0L)
+                    used.add(new long[] { coldAddrs[j], fa.getBlockBytes() });
+            }
+
+            fa.setColdAddrs(coldAddrs);
+
+        }
+
+        m_coldTier.recover(used);
+
+        final int nextents = in.readInt();
+
+        for (int i = 0; i < nextents; i++) {
+
+            final Extent e = new Extent(in.readInt(), in.readInt(),
+                    in.readInt());
+
+            if (e.holdCommits > 0) {
+                m_coldHeld.add(e);
+            } else {
+                m_reclaimed.add(e);
+            }
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("Restored tier map: cold=" + ncold + ", vacated="
+                    + nextents);
+
+    }
+
+    /**
+     * Begin an online compaction. The backing file can only be truncated to
+     * the end of the highest region which must stay in place: the first
+     * {@link AllocBlock} of each allocator (which fixes its order on reopen),
+     * the meta-allocation regions, the metabits demi-space, the regions held
+     * for the cold tier and all blocks of the allocators which are not
+     * selected. Each unlocked allocator whose utilization is not more than the
+     * given threshold is selected, and the trailing run of its blocks which
+     * lies above that cut is evacuated. The cut is raised until each
+     * allocator's blocks above it form such a trailing run.
+     * <p>
+     * An allocator with evacuated blocks is removed from the free lists, so
+     * no new allocations are made from it. The caller is responsible for
+     * rewriting the live records in those blocks (see
+     * {@link #isEvacuating(int)}) onto new addresses. Once the old addresses
+     * have been released by the (deferred) free protocol the blocks are
+     * released by the next commit, the heap is lowered to the new end of the
+     * used regions and the backing file is truncated once the root block
+     * which records this has been written.
+     * 
+     * @param maxUtilization
+     *            The maximum utilization of an allocator selected for
+     *            evacuation in (0:1).
+     * 
+     * @return The #of allocators with evacuated blocks. When ZERO, no
+     *         evacuation is in progress.
+     * 
+     * @throws IllegalStateException
+     *             if an evacuation is already in progress.
+     * @throws UnsupportedOperationException
+     *             if the store is highly available (the followers can not
+     *             reduce their extent).
+     * 
+     * @see #endEvacuation()
+     */
+    public int beginEvacuation(final float maxUtilization) {
+
+        if (maxUtilization <= 0f || maxUtilization >= 1f)
+            throw new IllegalArgumentException();
+
+        if (m_quorum != null)
+            throw new UnsupportedOperationException(
+                    "Can not reduce the extent of an HA store");
+
+        assertOpen();
+
+        m_allocationWriteLock.lock();
+
+        try {
+
+            if (m_evacuationCount != 0)
+                throw new IllegalStateException();
+
+            final List<FixedAllocator> candidates = new ArrayList<FixedAllocator>();
+
+            int cut = getReservedEnd();
+
+            for (FixedAllocator fa : m_allocs) {
+
+                if (!fa.isCold() && !fa.m_migrating && fa.isUnlocked()
+                        && !fa.m_pendingContextCommit
+                        && fa.getUtilization() <= maxUtilization) {
+
+                    candidates.add(fa);
+
+                    cut = Math.max(cut, fa.getHeapEnd(1/* nblocks */));
+
+                } else {
+
+                    // only the first block of a cold allocator is reserved
+                    // (see m_coldHeld, m_reclaimed for the others).
+                    cut = Math.max(cut, fa.getReservedHeapEnd());
+
+                }
+
+            }
+
+            /*
+             * A block above the cut which is followed by a block below the cut
+             * can not be released, so it raises the cut.
+             */
+            boolean changed;
+            do {
+                changed = false;
+                for (FixedAllocator fa : candidates) {
+                    final int end = fa.getHeapEnd(fa.getTailFrom(cut));
+                    if (end > cut) {
+                        cut = end;
+                        changed = true;
+                    }
+                }
+            } while (changed);
+
+            int n = 0;
+
+            for (FixedAllocator fa : candidates) {
+
+                final int from = fa.getTailFrom(cut);
+
+                if (from == fa.getAllocatedBlocks())
+                    continue;
+
+                fa.m_evacuateFrom = from;
+
+                fa.removeFromFreeList();
+
+                n++;
+
+            }
+
+            m_evacuationCount = n;
+
+            if (log.isInfoEnabled())
+                log.info("Evacuating " + n + " of " + m_allocs.size()
+                        + " allocators above " + convertAddr(-cut)
+                        + ", extent=" + convertAddr(m_fileSize));
+
+            return n;
+
+        } finally {
+
+            m_allocationWriteLock.unlock();
+
+        }
+
+    }
+
+    /**
+     * End an online compaction. The allocators whose evacuated blocks have not
+     * been released are returned to the free lists as their free slots
+     * permit.
+     * 
+     * @see #beginEvacuation(float)
+     */
+    public void endEvacuation() {
+
+        m_allocationWriteLock.lock();
+
+        try {
+
+            for (FixedAllocator fa : m_allocs) {
+
+                if (fa.m_evacuateFrom != 0)
+                    fa.endEvacuation();
+
+            }
+
+            m_evacuationCount = 0;
+
+        } finally {
+
+            m_allocationWriteLock.unlock();
+
+        }
+
+    }
+
+    /**
+     * The #of allocators whose evacuated blocks have not yet been released by
+     * a commit.
+     * 
+     * @see #beginEvacuation(float)
+     */
+    public int getEvacuationCount() {
+
+        return m_evacuationCount;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the latched address lies in an
+     * {@link AllocBlock} which is being evacuated.
+     * 
+     * @param rwaddr
+     *            A latched address.
+     * 
+     * @see #beginEvacuation(float)
+     */
+    public boolean isEvacuating(final int rwaddr) {
+
+        if (m_evacuationCount == 0 || rwaddr >= 0)
+            return false;
+
+        final Lock lock = m_allocationReadLock;
+
+        lock.lock();
+
+        try {
+
+            return getBlock(rwaddr).isEvacuating(getOffset(rwaddr));
+
+        } finally {
+
+            lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Invoked by {@link #commit()} to release the evacuated blocks which are
+     * now empty, lower the heap to the end of the regions which are still in
+     * use and shrink the extent accordingly. The changes are recorded on the
+     * {@link CommitState} so they can be undone if the commit is discarded.
+     * The file itself is truncated by {@link #postCommit()}.
+     */
+    private void releaseEvacuatedBlocks(final CommitState cs) {
+
+        for (FixedAllocator fa : m_allocs) {
+
+            if (fa.m_evacuateFrom == 0)
+                continue;
+
+            final int[] addrs = fa.releaseEvacuatedBlocks();
+
+            if (addrs == null)
+                continue;
+
+            if (cs.m_released == null)
+                cs.m_released = new HashMap<FixedAllocator, int[]>();
+
+            cs.m_released.put(fa, addrs);
+
+            // the allocator must be written with the released blocks.
+            addToCommit(fa);
+
+        }
+
+        if (cs.m_released == null)
+            return;
+
+        int end = getReservedEnd();
+
+        for (FixedAllocator fa : m_allocs) {
+
+            end = Math.max(end, fa.getReservedHeapEnd());
+
+        }
+
+        // Vacated regions above the new end of the heap are dropped.
+        for (int i = 0; i < m_reclaimed.size(); i++) {
+
+            final Extent e = m_reclaimed.get(i);
+
+            if (-e.addr + e.size <= end)
+                continue;
+
+            if (cs.m_reclaimed == null) {
+                cs.m_reclaimed = new ArrayList<Extent>();
+                for (Extent x : m_reclaimed)
+                    cs.m_reclaimed.add(new Extent(x.addr, x.size,
+                            x.holdCommits));
+            }
+
+            if (-e.addr >= end) {
+                m_reclaimed.remove(i--);
+            } else {
+                e.size = end + e.addr;
+            }
+
+            m_coldMapDirty = true;
+
+        }
+
+        if (-end > m_nextAllocation) {
+
+            m_nextAllocation = -end;
+
+        }
+
+        // Leave room for a meta-allocation before the file is extended.
+        final int fileSize = m_nextAllocation - META_ALLOCATION;
+
+        if (fileSize > m_fileSize) {
+
+            m_fileSize = fileSize;
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("Released the evacuated blocks of "
+                    + cs.m_released.size() + " allocators, nextAllocation="
+                    + convertAddr(m_nextAllocation) + ", extent="
+                    + convertAddr(m_fileSize));
+
+    }
+
+    /**
+     * The end of the highest region of the heap which is not managed by a
+     * {@link FixedAllocator} but may not be moved: the meta-allocation
+     * regions, the metabits demi-space and the regions held for the cold tier.
+     * 
+     * @return The end in positive units of {@link #ALLOCATION_SCALEUP}.
+     */
+    private int getReservedEnd() {
+
+        int end = 0;
+
+        // the first int of each metabits block is the start of its region.
+        for (int i = 0; i < m_metaBits.length; i += cDefaultMetaBitsSize) {
+
+            if (m_metaBits[i] != 0)
+                end = Math.max(end, -m_metaBits[i] + META_ALLOCATION);
+
+        }
+
+        if (m_metaBitsAddr > 0) {
+
+            // 2 * 64K, toggled between the two halves.
+            end = Math.max(end, (m_metaBitsAddr & ~1) + 2);
+
+        }
+
+        for (Extent e : m_coldHeld) {
+
+            end = Math.max(end, -e.addr + e.size);
+
+        }
+
+        return end;
+
+    }
+
+    /**
+     * Truncate the backing file to {@link #m_fileSize}. This is invoked once
+     * the root block which records the smaller extent has been written.
+     */
+    private void truncateFile() {
+
+        final Lock lock = this.m_extensionLock.writeLock();
+        lock.lock();
+        try {
+
+            final long toAddr = convertAddr(m_fileSize);
+
+            if (log.isInfoEnabled())
+                log.info("Truncating file to: " + toAddr);
+
+            if (m_mappedReader != null) {
+                // Unmap before and after the file is truncated.
+                m_mappedReader.clear();
+            }
+
+            m_reopener.reopenChannel();
+            m_reopener.raf.setLength(toAddr);
+            storeCounters.get().ntruncate++;
+
+            if (m_mappedReader != null) {
+                m_mappedReader.clear();
+            }
+
+            m_writeCacheService.setExtent(toAddr);
+
+        } catch (Throwable t) {
+            throw new RuntimeException("Force Reopen", t);
+        } finally {
+            m_readsAtExtend = this.m_diskReads;
+            lock.unlock();
+        }
+
+    }
+
+    public boolean inWriteCache(final int rwaddr) {
+        
+        return m_writeCacheService.isPresent(physicalAddress(rwaddr, true));
+        
+    }
+
+    @Override
+    public InputStream getInputStream(long addr) {
+        return new PSInputStream(this, addr);
+    }
+
+    @Override
+    public IPSOutputStream getOutputStream() {
+        return getOutputStream(null);
+    }  
+
+    public IPSOutputStream getOutputStream(final IAllocationContext context) {
+    	checkContext(context);
+    	
+        return PSOutputStream.getNew(this, m_maxFixedAlloc, context);
+    }
+
+    /**
      * Low level routine used when we replace the root blocks of an empty
      * journal in HA with those from the leader.
      * <p>
@@ -7641,18 +9207,112 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
     public void computeDigest(final Object snapshot, final MessageDigest digest)
             throws DigestException, IOException {
 
-        if(true) {
+        if (m_coldTier != null) {
+
+            // No allocator is moved between the tiers during the digest.
+            m_allocationReadLock.lock();
+            try {
+                m_coldTierPins.incrementAndGet();
+            } finally {
+                m_allocationReadLock.unlock();
+            }
+
+        }
+
+        try {
+
+            if(true) {
+
+                computeDigestOld(snapshot, digest);
+                
+            } else {
+                
+                computeDigestAlt(snapshot, digest);
+                
+            }
+
+            if (m_coldTier != null) {
+
+                computeColdDigest(digest);
+
+            }
+
+        } finally {
+
+            if (m_coldTier != null) {
+
+                m_coldTierPins.decrementAndGet();
+
+            }
 
-            computeDigestOld(snapshot, digest);
-            
-        } else {
-            
-            computeDigestAlt(snapshot, digest);
-            
         }
         
     }
 
+    /**
+     * Add the regions on the cold tier to the digest, in the order of the
+     * cold allocators and their blocks.
+     */
+    private void computeColdDigest(final MessageDigest digest)
+            throws IOException {
+
+        final List<long[]> regions = new ArrayList<long[]>();
+
+        m_allocationReadLock.lock();
+
+        try {
+
+            for (FixedAllocator fa : m_allocs) {
+
+                final long[] coldAddrs = fa.getColdAddrs();
+
+                if (coldAddrs == null)
+                    continue;
+
+                for (long caddr : coldAddrs) {
+
+                    if (caddr != 0L)
+                        regions.add(new long[] { caddr, fa.getBlockBytes() });
+
+                }
+
+            }
+
+        } finally {
+
+            m_allocationReadLock.unlock();
+
+        }
+
+        final ByteBuffer b = ByteBuffer.allocate(1024 * 1024);
+
+        for (long[] region : regions) {
+
+            long done = 0L;
+
+            while (done < region[1]) {
+
+                b.clear();
+                b.limit((int) Math.min(b.capacity(), region[1] - done));
+
+                m_coldTier.read(region[0] + done, b);
+
+                b.flip();
+
+                digest.update(b);
+
+                done += b.limit();
+
+            }
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("Computed digest of the cold tier: #regions="
+                    + regions.size());
+
+    }
+
     private void computeDigestOld(final Object snapshot, final MessageDigest digest)
             throws DigestException, IOException {
 
@@ -7958,6 +9618,11 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 	 * @throws IOException 
 	 */
 	public void snapshotMetabits(final ISnapshotData tm) throws IOException {
+		snapshotMetabits(tm, true/* coldMap */);
+	}
+
+	private void snapshotMetabits(final ISnapshotData tm, final boolean coldMap)
+			throws IOException {
 		final long mba;
 		if (m_metaBitsAddr < 0) {
 			mba = physicalAddress((int) m_metaBitsAddr);
@@ -7966,7 +9631,110 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 			mba = convertAddr(-m_metaBitsAddr); // maximum 48 bit address range
 		}
 
-		tm.put(mba, genMetabitsData());
+		tm.put(mba, genMetabitsData(coldMap));
+	}
+
+	/**
+	 * Add the metabits and the committed allocation data to the snapshot. For
+	 * a store with a cold tier the regions on the cold tier are also added,
+	 * since the snapshot must be restorable without the cold tier: the blocks
+	 * of each cold allocator (other than its first block) are relocated to
+	 * consecutive regions from the end of the heap, the allocators are
+	 * recorded with those regions, the metabits are recorded without the tier
+	 * map and the root block is rewritten for the extended heap. A store
+	 * restored from the snapshot has a single tier. The regions which were
+	 * vacated on the backing file are not reused by the restored store.
+	 * <p>
+	 * The regions are read from the cold tier as the snapshot is written and
+	 * no allocator is moved between the tiers until
+	 * {@link ISnapshotData#release()} is invoked. Since the regions are
+	 * relocated by each snapshot, an incremental snapshot includes all of the
+	 * cold tier.
+	 * 
+	 * @param tm
+	 *            The snapshot data.
+	 * @param rbv
+	 *            The current root block.
+	 * 
+	 * @return The root block to record in the snapshot. This is <i>rbv</i>
+	 *         unless it was rewritten.
+	 */
+	public IRootBlockView snapshotAllocationData(final ISnapshotData tm,
+			final IRootBlockView rbv) throws IOException {
+
+		if (m_coldTier == null) {
+			snapshotMetabits(tm);
+			snapshotAllocators(tm);
+			return rbv;
+		}
+
+		boolean ok = false;
+
+		// orders the pin against the end of a migration.
+		m_allocationReadLock.lock();
+		try {
+			m_coldTierPins.incrementAndGet();
+
+			tm.onRelease(new Runnable() {
+				@Override
+				public void run() {
+					m_coldTierPins.decrementAndGet();
+				}
+			});
+
+			snapshotAllocators(tm);
+
+			int next = m_nextAllocation;
+
+			for (FixedAllocator fa : m_allocs) {
+				if (fa.isCold())
+					next = fa.snapshotColdBlocks(tm, m_coldTier, next);
+			}
+
+			if (next == m_nextAllocation) {
+				snapshotMetabits(tm);
+				ok = true;
+				return rbv;
+			}
+
+			snapshotMetabits(tm, false/* coldMap */);
+
+			// Leave room for a meta-allocation before the file is extended.
+			final int fileSize = Math.min(m_fileSize, next - META_ALLOCATION);
+
+			if (fileSize != m_fileSize) {
+				// extend the snapshot to the new extent.
+				tm.put(convertAddr(fileSize) - 8, new byte[8]);
+			}
+
+			// The heap now ends after the relocated regions.
+			final long nextOffset = rbv.getNextOffset()
+					+ (((long) (-(int) (rbv.getNextOffset() >> 32) - next)) << 32);
+
+			if (log.isInfoEnabled())
+				log.info("Relocated the cold tier from "
+						+ convertAddr(m_nextAllocation) + " to "
+						+ convertAddr(next) + ", extent="
+						+ convertAddr(fileSize));
+
+			final IRootBlockView ret = new RootBlockView(rbv.isRootBlock0(),
+					rbv.getOffsetBits(), nextOffset, rbv.getFirstCommitTime(),
+					rbv.getLastCommitTime(), rbv.getCommitCounter(),
+					rbv.getCommitRecordAddr(), rbv.getCommitRecordIndexAddr(),
+					rbv.getUUID(), rbv.getBlockSequence(),
+					rbv.getQuorumToken(), -fileSize/* metaStartAddr */,
+					rbv.getMetaBitsAddr(), rbv.getStoreType(),
+					rbv.getCreateTime(), rbv.getCloseTime(),
+					rbv.getVersion(), ChecksumUtility.getCHK());
+
+			ok = true;
+
+			return ret;
+		} finally {
+			m_allocationReadLock.unlock();
+			if (!ok)
+				tm.release();
+		}
 	}
 
 	/**
@@ -55,8 +55,21 @@ public class RWWriteCacheService extends WriteCacheService implements IWriteCach
             final IBackingReader reader)
             throws InterruptedException, IOException {
 
+        this(nbuffers, minCleanListSize, readBuffers, prefixWrites,
+                compactionThreshold, hotCacheSize, hotCacheThreshold,
+                fileExtent, opener, quorum, reader, 1/* writerCount */);
+    }
+
+    public RWWriteCacheService(final int nbuffers, final int minCleanListSize, final int readBuffers,
+            final boolean prefixWrites, final int compactionThreshold,
+            final int hotCacheSize, final int hotCacheThreshold,
+            final long fileExtent,
+            final IReopenChannel<? extends Channel> opener, final Quorum quorum,
+            final IBackingReader reader, final int writerCount)
+            throws InterruptedException, IOException {
+
         super(nbuffers, minCleanListSize,  readBuffers, prefixWrites, compactionThreshold, hotCacheSize, hotCacheThreshold,
-                true/* useChecksum */, fileExtent, opener, quorum, reader);
+                true/* useChecksum */, fileExtent, opener, quorum, reader, writerCount);
     }
 
     /**
@@ -0,0 +1,228 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.jmh;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.bigdata.btree.BTree;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.IndexMetadata;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.rawstore.SimpleMemoryRawStore;
+
+/**
+ * Benchmarks for {@link BTree#insert(byte[], byte[])},
+ * {@link BTree#lookup(byte[])} and {@link BTree#rangeIterator(byte[], byte[])}
+ * over synthetic unsigned <code>long</code> keys.
+ * <p>
+ * The branching factor and the #of tuples in the index are parameters so the
+ * same benchmark may be used to choose a branching factor for an index of a
+ * given size. For example:
+ * 
+ * <pre>
+ * java -jar target/benchmarks.jar BTreeBenchmark -p branchingFactor=64,256,1024
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BTreeBenchmark {
+
+    /**
+     * The branching factor of the B+Tree.
+     */
+    @Param({ "32", "128", "512" })
+    public int branchingFactor;
+
+    /**
+     * The #of tuples in the pre-populated B+Tree.
+     */
+    @Param({ "100000" })
+    public int ntuples;
+
+    /**
+     * The #of tuples visited by each range scan.
+     */
+    @Param({ "100" })
+    public int rangeCount;
+
+    /**
+     * The keys in the pre-populated B+Tree, in a random order.
+     */
+    private byte[][] keys;
+
+    /**
+     * Keys which are not present in the pre-populated B+Tree.
+     */
+    private byte[][] newKeys;
+
+    /**
+     * The pre-populated B+Tree used for the read benchmarks.
+     */
+    private BTree btree;
+
+    /**
+     * The B+Tree used by {@link #insert()}. It is recreated for each iteration.
+     */
+    private BTree insertTree;
+
+    private int readIndex = 0;
+
+    private int insertIndex = 0;
+
+    private final byte[] value = new byte[8];
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+
+        final Random r = new Random(541L);
+
+        final IKeyBuilder keyBuilder = new KeyBuilder(8);
+
+        keys = new byte[ntuples][];
+
+        newKeys = new byte[ntuples][];
+
+        for (int i = 0; i < ntuples; i++) {
+
+            // even values are in the index, odd values are not.
+            final long v = (r.nextLong() & ~1L);
+
+            keys[i] = keyBuilder.reset().append(v).getKey();
+
+            newKeys[i] = keyBuilder.reset().append(v | 1L).getKey();
+
+        }
+
+        btree = newBTree(branchingFactor);
+
+        for (int i = 0; i < ntuples; i++) {
+
+            btree.insert(keys[i], value);
+
+        }
+
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+
+        insertTree = newBTree(branchingFactor);
+
+        insertIndex = 0;
+
+    }
+
+    /**
+     * Create an unisolated B+Tree backed by a {@link SimpleMemoryRawStore}.
+     */
+    static BTree newBTree(final int branchingFactor) {
+
+        final IndexMetadata md = new IndexMetadata(UUID.randomUUID());
+
+        md.setBranchingFactor(branchingFactor);
+
+        return BTree.create(new SimpleMemoryRawStore(), md);
+
+    }
+
+    /**
+     * Insert a key which is not yet in the index. Once all keys have been
+     * inserted the benchmark overwrites the existing tuples.
+     */
+    @Benchmark
+    public byte[] insert() {
+
+        final byte[] key = newKeys[insertIndex++ % ntuples];
+
+        return insertTree.insert(key, value);
+
+    }
+
+    /**
+     * Point lookup of a key which is present in the index.
+     */
+    @Benchmark
+    public byte[] lookupHit() {
+
+        return btree.lookup(keys[readIndex++ % ntuples]);
+
+    }
+
+    /**
+     * Point lookup of a key which is not present in the index.
+     */
+    @Benchmark
+    public byte[] lookupMiss() {
+
+        return btree.lookup(newKeys[readIndex++ % ntuples]);
+
+    }
+
+    /**
+     * Visit {@link #rangeCount} tuples starting at a random key.
+     */
+    @Benchmark
+    public void rangeIterator(final Blackhole bh) {
+
+        // Note: the capacity is ignored, so we stop the scan ourselves.
+        final ITupleIterator<?> itr = btree.rangeIterator(
+                keys[readIndex++ % ntuples], null/* toKey */, 0/* capacity */,
+                IRangeQuery.KEYS | IRangeQuery.VALS, null/* filter */);
+
+        int n = 0;
+
+        while (n++ < rangeCount && itr.hasNext()) {
+
+            final ITuple<?> tuple = itr.next();
+
+            bh.consume(tuple.getValueBuffer());
+
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.jmh;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bigdata.btree.HTreeIndexMetadata;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.htree.HTree;
+import com.bigdata.rawstore.SimpleMemoryRawStore;
+
+/**
+ * Benchmarks for {@link HTree#insert(byte[], byte[])} and
+ * {@link HTree#lookupFirst(byte[])} over synthetic <code>int</code> hash keys.
+ * <p>
+ * The #of address bits (the fan out of the directory pages) is a parameter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTreeBenchmark {
+
+    /**
+     * The #of address bits for the {@link HTree} directory pages.
+     */
+    @Param({ "4", "6", "10" })
+    public int addressBits;
+
+    /**
+     * The #of tuples in the pre-populated {@link HTree}.
+     */
+    @Param({ "100000" })
+    public int ntuples;
+
+    /**
+     * The keys in the pre-populated {@link HTree}.
+     */
+    private byte[][] keys;
+
+    /**
+     * Keys which are not present in the pre-populated {@link HTree}.
+     */
+    private byte[][] newKeys;
+
+    private HTree htree;
+
+    /**
+     * The {@link HTree} used by {@link #insert()}. It is recreated for each
+     * iteration.
+     */
+    private HTree insertTree;
+
+    private int readIndex = 0;
+
+    private int insertIndex = 0;
+
+    private final byte[] value = new byte[8];
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+
+        final Random r = new Random(541L);
+
+        final IKeyBuilder keyBuilder = new KeyBuilder(4);
+
+        keys = new byte[ntuples][];
+
+        newKeys = new byte[ntuples][];
+
+        for (int i = 0; i < ntuples; i++) {
+
+            // even values are in the index, odd values are not.
+            final int v = (r.nextInt() & ~1);
+
+            keys[i] = keyBuilder.reset().append(v).getKey();
+
+            newKeys[i] = keyBuilder.reset().append(v | 1).getKey();
+
+        }
+
+        htree = newHTree(addressBits);
+
+        for (int i = 0; i < ntuples; i++) {
+
+            htree.insert(keys[i], value);
+
+        }
+
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+
+        insertTree = newHTree(addressBits);
+
+        insertIndex = 0;
+
+    }
+
+    /**
+     * Create an unisolated {@link HTree} backed by a
+     * {@link SimpleMemoryRawStore}.
+     */
+    static HTree newHTree(final int addressBits) {
+
+        final HTreeIndexMetadata md = new HTreeIndexMetadata(UUID.randomUUID());
+
+        md.setAddressBits(addressBits);
+
+        return HTree.create(new SimpleMemoryRawStore(), md);
+
+    }
+
+    /**
+     * Insert a tuple. The {@link HTree} allows duplicate keys, so this
+     * benchmark always grows the index.
+     */
+    @Benchmark
+    public byte[] insert() {
+
+        return insertTree.insert(newKeys[insertIndex++ % ntuples], value);
+
+    }
+
+    /**
+     * Point lookup of a key which is present in the index.
+     */
+    @Benchmark
+    public byte[] lookupHit() {
+
+        return htree.lookupFirst(keys[readIndex++ % ntuples]);
+
+    }
+
+    /**
+     * Point lookup of a key which is not present in the index.
+     */
+    @Benchmark
+    public byte[] lookupMiss() {
+
+        return htree.lookupFirst(newKeys[readIndex++ % ntuples]);
+
+    }
+
+}
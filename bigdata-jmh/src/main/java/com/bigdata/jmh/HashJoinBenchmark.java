@@ -0,0 +1,316 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.jmh;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstraint;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.join.HTreeHashJoinAnnotations;
+import com.bigdata.bop.join.HTreeHashJoinUtility;
+import com.bigdata.bop.join.HashJoinAnnotations;
+import com.bigdata.bop.join.IHashJoinUtility;
+import com.bigdata.bop.join.JVMHashJoinUtility;
+import com.bigdata.bop.join.JoinAnnotations;
+import com.bigdata.bop.join.JoinTypeEnum;
+import com.bigdata.io.DirectBufferPool;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.relation.accesspath.IBuffer;
+import com.bigdata.rwstore.sector.MemoryManager;
+import com.bigdata.striterator.Chunkerator;
+
+/**
+ * Benchmarks for building and probing the hash index of an
+ * {@link IHashJoinUtility}. The left and right solutions share one join
+ * variable and each bind one additional variable. The join variable is drawn
+ * from a domain of {@link #ndistinct} values, so the expected fan out of the
+ * join is <code>nright / ndistinct</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashJoinBenchmark {
+
+    /**
+     * The {@link IHashJoinUtility} implementation: <code>JVM</code> for the
+     * {@link JVMHashJoinUtility} and <code>HTree</code> for the
+     * {@link HTreeHashJoinUtility}.
+     */
+    @Param({ "JVM", "HTree" })
+    public String impl;
+
+    /**
+     * The #of solutions in the hash index (right).
+     */
+    @Param({ "100000" })
+    public int nright;
+
+    /**
+     * The #of solutions probing the hash index (left).
+     */
+    @Param({ "100000" })
+    public int nleft;
+
+    /**
+     * The #of distinct values for the join variable.
+     */
+    @Param({ "100000" })
+    public int ndistinct;
+
+    /**
+     * The chunk size used to feed solutions to the hash index.
+     */
+    @Param({ "1000" })
+    public int chunkSize;
+
+    private final IVariable<?> x = Var.var("x");
+
+    private final IVariable<?> y = Var.var("y");
+
+    private final IVariable<?> z = Var.var("z");
+
+    private PipelineOp op;
+
+    private MemoryManager mmgr;
+
+    private IBindingSet[] left;
+
+    private IBindingSet[] right;
+
+    /**
+     * The hash index used by {@link #hashJoin()}.
+     */
+    private IHashJoinUtility state;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void setUpTrial() {
+
+        final Random r = new Random(541L);
+
+        op = new MockPipelineOp(BOp.NOARGS, //
+                new NV(HTreeHashJoinAnnotations.RELATION_NAME,
+                        new String[] { getClass().getName() }),//
+                new NV(HashJoinAnnotations.JOIN_VARS, new IVariable[] { x }),//
+                new NV(JoinAnnotations.SELECT, null),//
+                new NV(JoinAnnotations.CONSTRAINTS, new IConstraint[0])//
+        );
+
+        mmgr = new MemoryManager(DirectBufferPool.INSTANCE);
+
+        right = new IBindingSet[nright];
+
+        for (int i = 0; i < nright; i++) {
+
+            right[i] = new ListBindingSet();
+
+            right[i].set(x, new Constant<IV>(new TermId(VTE.URI, 1 + r
+                    .nextInt(ndistinct))));
+
+            right[i].set(y, new Constant<IV>(new TermId(VTE.LITERAL, 1 + i)));
+
+        }
+
+        left = new IBindingSet[nleft];
+
+        for (int i = 0; i < nleft; i++) {
+
+            left[i] = new ListBindingSet();
+
+            left[i].set(x, new Constant<IV>(new TermId(VTE.URI, 1 + r
+                    .nextInt(ndistinct))));
+
+            left[i].set(z, new Constant<IV>(new TermId(VTE.LITERAL, 1 + i)));
+
+        }
+
+        state = newHashJoinUtility();
+
+        state.acceptSolutions(newChunkerator(right), new BOpStats());
+
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+
+        if (state != null) {
+
+            state.release();
+
+            state = null;
+
+        }
+
+        if (mmgr != null) {
+
+            mmgr.close();
+
+            mmgr = null;
+
+        }
+
+    }
+
+    private IHashJoinUtility newHashJoinUtility() {
+
+        if ("JVM".equals(impl))
+            return new JVMHashJoinUtility(op, JoinTypeEnum.Normal);
+
+        if ("HTree".equals(impl))
+            return new HTreeHashJoinUtility(mmgr, op, JoinTypeEnum.Normal);
+
+        throw new IllegalArgumentException(impl);
+
+    }
+
+    private Chunkerator<IBindingSet> newChunkerator(final IBindingSet[] a) {
+
+        return new Chunkerator<IBindingSet>(Arrays.asList(a).iterator(),
+                chunkSize, IBindingSet.class);
+
+    }
+
+    /**
+     * Build a hash index over the right solutions.
+     */
+    @Benchmark
+    public long acceptSolutions() {
+
+        final IHashJoinUtility tmp = newHashJoinUtility();
+
+        try {
+
+            return tmp.acceptSolutions(newChunkerator(right), new BOpStats());
+
+        } finally {
+
+            tmp.release();
+
+        }
+
+    }
+
+    /**
+     * Probe the hash index with the left solutions.
+     */
+    @Benchmark
+    public long hashJoin() {
+
+        final CountingBuffer out = new CountingBuffer();
+
+        state.hashJoin(newChunkerator(left), null/* stats */, out);
+
+        return out.size();
+
+    }
+
+    /**
+     * Counts the solutions produced by the join.
+     */
+    private static class CountingBuffer implements IBuffer<IBindingSet> {
+
+        private int n = 0;
+
+        @Override
+        public int size() {
+            return n;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return n == 0;
+        }
+
+        @Override
+        public void add(final IBindingSet e) {
+            n++;
+        }
+
+        @Override
+        public long flush() {
+            return 0L;
+        }
+
+        @Override
+        public void reset() {
+            n = 0;
+        }
+
+    }
+
+    /**
+     * The {@link IHashJoinUtility} classes initialize their state from the
+     * annotations of an operator, but they never evaluate it.
+     */
+    private static class MockPipelineOp extends PipelineOp {
+
+        private static final long serialVersionUID = 1L;
+
+        public MockPipelineOp(final BOp[] args, final NV... anns) {
+
+            super(args, NV.asMap(anns));
+
+        }
+
+        @Override
+        public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+            throw new UnsupportedOperationException();
+
+        }
+
+    }
+
+}
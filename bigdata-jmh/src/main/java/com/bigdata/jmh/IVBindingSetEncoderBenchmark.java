@@ -0,0 +1,147 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.encoder.IVBindingSetEncoder;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.internal.impl.literal.XSDNumericIV;
+import com.bigdata.rdf.model.BigdataValueFactoryImpl;
+
+/**
+ * Benchmarks for {@link IVBindingSetEncoder}, which is used to encode the
+ * solutions stored in the {@link com.bigdata.htree.HTree} hash indices.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IVBindingSetEncoderBenchmark {
+
+    private static final int N = 1024;
+
+    /**
+     * The #of variables bound in each solution.
+     */
+    @Param({ "2", "5", "10" })
+    public int nvars;
+
+    private IVBindingSetEncoder encoder;
+
+    private IBindingSet[] solutions;
+
+    private byte[][] encoded;
+
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void setUpTrial() {
+
+        final Random r = new Random(541L);
+
+        encoder = new IVBindingSetEncoder(
+                BigdataValueFactoryImpl.getInstance(getClass().getName()),
+                false/* filter */);
+
+        final IVariable[] vars = new IVariable[nvars];
+
+        for (int i = 0; i < nvars; i++) {
+
+            vars[i] = Var.var("v" + i);
+
+        }
+
+        solutions = new IBindingSet[N];
+
+        encoded = new byte[N][];
+
+        for (int i = 0; i < N; i++) {
+
+            final IBindingSet bset = new ListBindingSet();
+
+            for (int j = 0; j < nvars; j++) {
+
+                final IV iv = (j % 2 == 0) ? new TermId(VTE.URI,
+                        1 + r.nextInt(Integer.MAX_VALUE)) : new XSDNumericIV(
+                        r.nextInt());
+
+                bset.set(vars[j], new Constant<IV>(iv));
+
+            }
+
+            solutions[i] = bset;
+
+        }
+
+        for (int i = 0; i < N; i++) {
+
+            // Note: the schema is fully established by the first solution.
+            encoded[i] = encoder.encodeSolution(solutions[i]);
+
+        }
+
+    }
+
+    @Benchmark
+    public byte[] encodeSolution() {
+
+        return encoder.encodeSolution(solutions[index++ % N]);
+
+    }
+
+    @Benchmark
+    public IBindingSet decodeSolution() {
+
+        final byte[] b = encoded[index++ % N];
+
+        return encoder.decodeSolution(b, 0/* off */, b.length, false/* resolveCachedValues */);
+
+    }
+
+}
@@ -0,0 +1,187 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.internal.impl.literal.XSDNumericIV;
+
+/**
+ * Benchmarks for {@link KeyBuilder} key encoding: primitive composite keys,
+ * statement index keys formed from {@link IV}s, decoding those keys, and
+ * Unicode sort keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyBuilderBenchmark {
+
+    private static final int N = 1024;
+
+    private final IKeyBuilder keyBuilder = KeyBuilder.newInstance();
+
+    private IKeyBuilder unicodeKeyBuilder;
+
+    private long[] longs;
+
+    /**
+     * Triples of {@link IV}s (s, p, o) where o is alternately a {@link TermId}
+     * and an inline {@link XSDNumericIV}.
+     */
+    @SuppressWarnings("rawtypes")
+    private IV[][] spos;
+
+    /**
+     * The statement index keys for {@link #spos}.
+     */
+    private byte[][] spoKeys;
+
+    private String[] strings;
+
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("rawtypes")
+    public void setUpTrial() {
+
+        final Random r = new Random(541L);
+
+        unicodeKeyBuilder = KeyBuilder.newUnicodeInstance();
+
+        longs = new long[N * 3];
+
+        for (int i = 0; i < longs.length; i++) {
+
+            longs[i] = r.nextLong();
+
+        }
+
+        spos = new IV[N][];
+
+        spoKeys = new byte[N][];
+
+        strings = new String[N];
+
+        for (int i = 0; i < N; i++) {
+
+            final IV s = new TermId(VTE.URI, 1 + r.nextInt(Integer.MAX_VALUE));
+
+            final IV p = new TermId(VTE.URI, 1 + r.nextInt(1000));
+
+            final IV o = (i % 2 == 0) ? new TermId(VTE.LITERAL,
+                    1 + r.nextInt(Integer.MAX_VALUE)) : new XSDNumericIV(
+                    r.nextInt());
+
+            spos[i] = new IV[] { s, p, o };
+
+            spoKeys[i] = encode(keyBuilder, spos[i]);
+
+            strings[i] = "http://www.example.org/resource/" + r.nextLong();
+
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static byte[] encode(final IKeyBuilder keyBuilder, final IV[] ivs) {
+
+        keyBuilder.reset();
+
+        for (IV iv : ivs) {
+
+            IVUtility.encode(keyBuilder, iv);
+
+        }
+
+        return keyBuilder.getKey();
+
+    }
+
+    /**
+     * Encode a composite key of three <code>long</code>s.
+     */
+    @Benchmark
+    public byte[] encodeLongs() {
+
+        final int i = (index++ % N) * 3;
+
+        return keyBuilder.reset().append(longs[i]).append(longs[i + 1])
+                .append(longs[i + 2]).getKey();
+
+    }
+
+    /**
+     * Encode a statement index key from three {@link IV}s.
+     */
+    @Benchmark
+    public byte[] encodeIVs() {
+
+        return encode(keyBuilder, spos[index++ % N]);
+
+    }
+
+    /**
+     * Decode the three {@link IV}s in a statement index key.
+     */
+    @Benchmark
+    @SuppressWarnings("rawtypes")
+    public IV[] decodeIVs() {
+
+        return IVUtility.decode(spoKeys[index++ % N], 3/* numTerms */);
+
+    }
+
+    /**
+     * Generate a Unicode sort key for a URI string using the default collator.
+     */
+    @Benchmark
+    public byte[] encodeUnicode() {
+
+        return unicodeKeyBuilder.reset().append(strings[index++ % N]).getKey();
+
+    }
+
+}
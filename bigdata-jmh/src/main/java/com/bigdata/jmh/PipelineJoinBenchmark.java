@@ -0,0 +1,255 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.jmh;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IPredicate;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.ap.E;
+import com.bigdata.bop.ap.Predicate;
+import com.bigdata.bop.ap.R;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.engine.BlockingBufferWithStats;
+import com.bigdata.bop.engine.MockRunningQuery;
+import com.bigdata.bop.join.PipelineJoin;
+import com.bigdata.bop.join.PipelineJoinStats;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.ITx;
+import com.bigdata.journal.Journal;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.ThickAsynchronousIterator;
+import com.bigdata.striterator.ChunkedArrayIterator;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * Benchmark for a {@link PipelineJoin} against a synthetic relation. Each
+ * source solution binds <code>?x</code> and the join reads the access path for
+ * <code>R(?x, ?y)</code>, so each source solution produces {@link #fanOut}
+ * solutions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineJoinBenchmark {
+
+    private static final String namespace = "ns";
+
+    /**
+     * The #of distinct values for the first column of the relation.
+     */
+    @Param({ "10000" })
+    public int nnames;
+
+    /**
+     * The #of elements in the relation for each distinct name.
+     */
+    @Param({ "1", "10" })
+    public int fanOut;
+
+    /**
+     * The #of source solutions for each evaluation of the join.
+     */
+    @Param({ "10000" })
+    public int nsource;
+
+    /**
+     * The #of source solutions in each chunk.
+     */
+    @Param({ "100", "1000" })
+    public int chunkSize;
+
+    private Journal jnl;
+
+    private PipelineJoin<E> join;
+
+    private IBindingSet[][] source;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUpTrial() {
+
+        final Properties p = new Properties();
+
+        p.setProperty(Journal.Options.BUFFER_MODE, BufferMode.Transient
+                .toString());
+
+        jnl = new Journal(p);
+
+        // create and populate the relation.
+        {
+
+            final R rel = new R(jnl, namespace, ITx.UNISOLATED,
+                    new Properties());
+
+            rel.create();
+
+            final E[] a = new E[nnames * fanOut];
+
+            int n = 0;
+
+            for (int i = 0; i < nnames; i++) {
+
+                for (int j = 0; j < fanOut; j++) {
+
+                    a[n++] = new E("n" + i, "v" + j);
+
+                }
+
+            }
+
+            rel.insert(new ChunkedArrayIterator<E>(a.length, a, null/* keyOrder */));
+
+            jnl.commit();
+
+        }
+
+        final Predicate<E> pred = new Predicate<E>(new IVariableOrConstant[] {
+                Var.var("x"), Var.var("y") }, NV.asMap(new NV[] {//
+                new NV(IPredicate.Annotations.RELATION_NAME,
+                        new String[] { namespace }),//
+                new NV(IPredicate.Annotations.BOP_ID, 2),//
+                new NV(IPredicate.Annotations.TIMESTAMP, ITx.READ_COMMITTED),//
+        }));
+
+        join = new PipelineJoin<E>(new BOp[] {},//
+                new NV(BOp.Annotations.BOP_ID, 1),//
+                new NV(PipelineJoin.Annotations.PREDICATE, pred));
+
+        final Random r = new Random(541L);
+
+        final int nchunks = (nsource + chunkSize - 1) / chunkSize;
+
+        source = new IBindingSet[nchunks][];
+
+        for (int i = 0, n = 0; i < nchunks; i++) {
+
+            final int len = Math.min(chunkSize, nsource - n);
+
+            source[i] = new IBindingSet[len];
+
+            for (int j = 0; j < len; j++, n++) {
+
+                final IBindingSet bset = new ListBindingSet();
+
+                bset.set(Var.var("x"),
+                        new Constant<String>("n" + r.nextInt(nnames)));
+
+                source[i][j] = bset;
+
+            }
+
+        }
+
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+
+        if (jnl != null) {
+
+            jnl.destroy();
+
+            jnl = null;
+
+        }
+
+    }
+
+    /**
+     * Evaluate the join for all source solutions and drain the sink.
+     */
+    @Benchmark
+    public long join() throws InterruptedException, ExecutionException {
+
+        final PipelineJoinStats stats = join.newStats();
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(
+                join, stats);
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                new MockRunningQuery(null/* fed */, jnl/* indexManager */),
+                -1/* partitionId */, stats, join/* op */,
+                true/* lastInvocation */,
+                new ThickAsynchronousIterator<IBindingSet[]>(source), sink,
+                null/* sink2 */);
+
+        final FutureTask<Void> ft = join.eval(context);
+
+        jnl.getExecutorService().execute(ft);
+
+        long n = 0;
+
+        final ICloseableIterator<IBindingSet[]> itr = sink.iterator();
+
+        try {
+
+            while (itr.hasNext()) {
+
+                n += itr.next().length;
+
+            }
+
+        } finally {
+
+            itr.close();
+
+        }
+
+        // verify nothing thrown.
+        ft.get();
+
+        return n;
+
+    }
+
+}
@@ -0,0 +1,166 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.bigdata.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
+import com.bigdata.journal.Options;
+import com.bigdata.journal.RWStrategy;
+import com.bigdata.rwstore.RWStore;
+
+/**
+ * Benchmarks for the {@link RWStore} allocation and read paths:
+ * {@link RWStore#alloc(byte[], int, com.bigdata.rwstore.IAllocationContext)},
+ * {@link RWStore#free(long, int)} and {@link RWStore#getData(long, int)}.
+ * <p>
+ * The store is a temporary {@link BufferMode#DiskRW} journal. The records read
+ * by {@link #getData()} are committed before the measurement begins, so reads
+ * are served by the write cache service and the backing file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RWStoreBenchmark {
+
+    /**
+     * The size of the allocations in bytes.
+     */
+    @Param({ "64", "1024", "8192" })
+    public int recordSize;
+
+    /**
+     * The #of committed records used by {@link #getData()}.
+     */
+    @Param({ "100000" })
+    public int nrecords;
+
+    private Journal journal;
+
+    private RWStore store;
+
+    /**
+     * The data written for each record.
+     */
+    private byte[] data;
+
+    /**
+     * The addresses of the committed records.
+     */
+    private long[] addrs;
+
+    private int readIndex = 0;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Options.BUFFER_MODE, BufferMode.DiskRW.name());
+
+        properties.setProperty(Options.CREATE_TEMP_FILE, "true");
+
+        properties.setProperty(Options.DELETE_ON_EXIT, "true");
+
+        journal = new Journal(properties);
+
+        store = ((RWStrategy) journal.getBufferStrategy()).getStore();
+
+        data = new byte[recordSize];
+
+        new Random(541L).nextBytes(data);
+
+        addrs = new long[nrecords];
+
+        for (int i = 0; i < nrecords; i++) {
+
+            addrs[i] = store.alloc(data, recordSize, null/* context */);
+
+        }
+
+        journal.commit();
+
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+
+        if (journal != null) {
+
+            journal.destroy();
+
+            journal = null;
+
+        }
+
+    }
+
+    /**
+     * Allocate and write a record and then immediately free it. Since the
+     * record was never committed, the slot is recycled without a deferred free.
+     */
+    @Benchmark
+    public long allocFree() {
+
+        final long addr = store.alloc(data, recordSize, null/* context */);
+
+        store.free(addr, recordSize);
+
+        return addr;
+
+    }
+
+    /**
+     * Read a committed record (this is the code path used by
+     * {@link RWStrategy#read(long)}).
+     */
+    @Benchmark
+    public ByteBuffer getData() {
+
+        return store.getData(addrs[readIndex++ % nrecords], recordSize);
+
+    }
+
+}
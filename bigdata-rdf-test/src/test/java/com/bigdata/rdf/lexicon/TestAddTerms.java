@@ -29,6 +29,7 @@ package com.bigdata.rdf.lexicon;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Map;
@@ -36,8 +37,10 @@ import java.util.Properties;
 
 import org.openrdf.model.vocabulary.RDF;
 
+import com.bigdata.journal.ITx;
 import com.bigdata.rdf.axioms.NoAxioms;
 import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.impl.TermId;
 import com.bigdata.rdf.model.BigdataBNode;
 import com.bigdata.rdf.model.BigdataLiteral;
 import com.bigdata.rdf.model.BigdataURI;
@@ -456,6 +459,105 @@ public class TestAddTerms extends AbstractTripleStoreTestCase {
 
     }
 
+    /**
+     * Unit test verifies that the {@link OffHeapTermCache} is not filled from
+     * an unisolated view. The {@link TermId}s assigned by a write set which is
+     * aborted are reused for the terms added after the abort, so a record
+     * cached from the aborted write set would resolve them to the wrong RDF
+     * Values.
+     */
+    public void test_offHeapTermCache_abort() {
+
+        final Properties properties = getProperties();
+
+        // test w/o predefined vocab.
+        properties.setProperty(Options.VOCABULARY_CLASS, NoVocabulary.class
+                .getName());
+
+        // test w/o axioms - they imply a predefined vocab.
+        properties.setProperty(Options.AXIOMS_CLASS, NoAxioms.class.getName());
+
+        // test w/o the full text index.
+        properties.setProperty(Options.TEXT_INDEX, "false");
+
+        // enable the off-heap term cache (rounded up to one buffer).
+        properties.setProperty(Options.TERM_CACHE_OFF_HEAP_CAPACITY, "1");
+
+        final AbstractTripleStore store = getStore(properties);
+
+        try {
+
+            if (!store.isStable()) {
+
+                // abort() is not supported.
+                return;
+
+            }
+
+            final BigdataValueFactory f = store.getValueFactory();
+
+            final BigdataURI a = f.createURI("http://www.bigdata.com/a");
+            final BigdataURI b = f.createURI("http://www.bigdata.com/b");
+
+            // write a term.
+            store.getLexiconRelation().addTerms(new BigdataValue[] { a }, 1,
+                    false/* readOnly */);
+
+            final IV<?, ?> iv = a.getIV();
+
+            assertNotNull(iv);
+
+            // read it back through the unisolated view.
+            assertEquals(a, store.getLexiconRelation()
+                    .getTerms(Collections.<IV<?, ?>> singleton(iv)).get(iv));
+
+            assertEquals(a, store.getLexiconRelation().getTerm(iv));
+
+            // the unisolated view does not use the off-heap cache.
+            assertNull(store.getLexiconRelation().getOffHeapTermCache());
+
+            // discard the write set.
+            store.abort();
+
+            // rewrite a different term.
+            store.getLexiconRelation().addTerms(new BigdataValue[] { b }, 1,
+                    false/* readOnly */);
+
+            // the TermId of the aborted write set was reused.
+            assertEquals(iv, b.getIV());
+
+            store.commit();
+
+            final LexiconRelation view = (LexiconRelation) store
+                    .getIndexManager()
+                    .getResourceLocator()
+                    .locate(store.getLexiconRelation().getNamespace(),
+                            ITx.READ_COMMITTED);
+
+            final OffHeapTermCache cache = view.getOffHeapTermCache();
+
+            assertNotNull(cache);
+
+            // nothing was entered from the unisolated view.
+            assertNull(cache.get(iv));
+
+            // read the new term through the read-only view.
+            assertEquals(b,
+                    view.getTerms(Collections.<IV<?, ?>> singleton(iv)).get(iv));
+
+            // the committed record was entered into the cache.
+            assertNotNull(cache.get(iv));
+
+            assertEquals(b, view.getTerm(iv));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
     /**
      * @param store
      * @param terms
@@ -105,6 +105,10 @@ public class TestAll extends TestCase {
         // test suite for the IV cache, including serialization of cached vals.
         suite.addTestSuite(TestIVCache.class);
 
+        // test suite for the sharded term cache.
+        suite.addTestSuite(TestShardedTermCache.class);
+        suite.addTestSuite(TestOffHeapTermCache.class);
+
         // test suite for access paths reading on the TERMS index.
         suite.addTestSuite(TestAccessPaths.class);
         
@@ -0,0 +1,221 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.lexicon;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.cache.ConcurrentWeakValueCacheWithBatchedUpdates;
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.ICounter;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.BlobIV;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.model.BigdataValueFactoryImpl;
+
+/**
+ * Test suite for {@link OffHeapTermCache}.
+ */
+public class TestOffHeapTermCache extends TestCase2 {
+
+    public TestOffHeapTermCache() {
+    }
+
+    public TestOffHeapTermCache(final String name) {
+        super(name);
+    }
+
+    private BigdataValueFactory vf;
+
+    private OffHeapTermCache cache;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        vf = BigdataValueFactoryImpl.getInstance(getName() + UUID.randomUUID());
+        cache = new OffHeapTermCache(1L/* capacity */);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (cache != null) {
+            cache.close();
+            cache = null;
+        }
+        if (vf != null) {
+            vf.remove();
+            vf = null;
+        }
+        super.tearDown();
+    }
+
+    private TermId<?> iv(final long i) {
+        return new TermId<BigdataURI>(VTE.URI, i);
+    }
+
+    private byte[] data(final long i) {
+        return vf.getValueSerializer().serialize(
+                vf.createURI("http://www.bigdata.com/" + i));
+    }
+
+    private Object counter(final String name) {
+        final CounterSet counters = cache.getCounters();
+        return ((ICounter<?>) counters.getChild(name)).getInstrument()
+                .getValue();
+    }
+
+    /**
+     * A serialized value may be read back by its {@link IV}. The flags of the
+     * {@link IV} are part of the key.
+     */
+    public void test_putGet() {
+
+        assertNull(cache.get(iv(1)));
+
+        cache.put(iv(1), data(1));
+
+        assertEquals(data(1), cache.get(iv(1)));
+
+        assertNull(cache.get(new TermId<BigdataURI>(VTE.LITERAL, 1L)));
+
+        final BlobIV<?> blob = new BlobIV<BigdataURI>(VTE.LITERAL, -12,
+                (short) 3);
+
+        assertNull(cache.get(blob));
+
+        cache.put(blob, data(2));
+
+        assertEquals(data(2), cache.get(blob));
+
+        assertNull(cache.get(new BlobIV<BigdataURI>(VTE.LITERAL, -12,
+                (short) 4)));
+
+        assertEquals(2L, cache.size());
+
+        assertEquals(Long.valueOf(2L), counter("hits"));
+
+    }
+
+    /**
+     * The batch resolution returns the {@link IV}s which were not found and
+     * enters the resolved values into the caller's map.
+     */
+    public void test_resolve() {
+
+        cache.put(iv(1), data(1));
+        cache.put(iv(3), data(3));
+
+        final List<TermId<?>> ivs = new LinkedList<TermId<?>>();
+        for (int i = 1; i <= 4; i++)
+            ivs.add(iv(i));
+
+        final ConcurrentHashMap<IV<?, ?>, BigdataValue> ret = new ConcurrentHashMap<IV<?, ?>, BigdataValue>();
+
+        final TermCache<IV<?, ?>, BigdataValue> termCache = new TermCache<IV<?, ?>, BigdataValue>(
+                new ConcurrentWeakValueCacheWithBatchedUpdates<IV<?, ?>, BigdataValue>(
+                        100));
+
+        final List<TermId<?>> notFound = new LinkedList<TermId<?>>(
+                cache.resolve(ivs, ret, termCache, vf));
+
+        assertEquals(2, notFound.size());
+        assertTrue(notFound.contains(iv(2)));
+        assertTrue(notFound.contains(iv(4)));
+
+        assertEquals(2, ret.size());
+        assertEquals(vf.createURI("http://www.bigdata.com/1"), ret.get(iv(1)));
+        assertEquals(iv(3), ret.get(iv(3)).getIV());
+        assertSame(ret.get(iv(3)), termCache.get(iv(3)));
+
+    }
+
+    /**
+     * Entries are evicted once the native memory is exhausted and the cache
+     * remains usable.
+     */
+    public void test_eviction() {
+
+        final int n = 20000;
+
+        for (int i = 1; i <= n; i++) {
+
+            final byte[] b = new byte[256];
+            b[0] = (byte) i;
+
+            cache.put(iv(i), b);
+
+        }
+
+        assertTrue(((Long) counter("evictions")).longValue() > 0);
+
+        assertTrue(cache.size() < n);
+
+        // The most recent entry is still present.
+        assertEquals((byte) n, cache.get(iv(n))[0]);
+
+    }
+
+    /**
+     * Records larger than a quarter of a buffer are not cached.
+     */
+    public void test_largeRecord() {
+
+        cache.put(iv(1), new byte[2 * 1024 * 1024]);
+
+        assertNull(cache.get(iv(1)));
+
+        assertEquals(Long.valueOf(1L), counter("rejections"));
+
+    }
+
+    /**
+     * The cache is empty once closed.
+     */
+    public void test_close() {
+
+        cache.put(iv(1), data(1));
+
+        cache.close();
+
+        assertNull(cache.get(iv(1)));
+
+        cache.put(iv(2), data(2));
+
+        assertEquals(0L, cache.size());
+
+    }
+
+}
@@ -0,0 +1,255 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.lexicon;
+
+import java.util.UUID;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.ICounter;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.model.BigdataValueFactoryImpl;
+
+/**
+ * Test suite for {@link ShardedTermCache}.
+ */
+public class TestShardedTermCache extends TestCase2 {
+
+    public TestShardedTermCache() {
+    }
+
+    public TestShardedTermCache(final String name) {
+        super(name);
+    }
+
+    private BigdataValueFactory vf;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        vf = BigdataValueFactoryImpl.getInstance(getName() + UUID.randomUUID());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (vf != null) {
+            vf.remove();
+            vf = null;
+        }
+        super.tearDown();
+    }
+
+    private IV<?, ?> iv(final long i) {
+        return new TermId<BigdataURI>(VTE.URI, i);
+    }
+
+    private BigdataValue value(final long i) {
+        final BigdataValue v = vf.createURI("http://www.bigdata.com/" + i);
+        v.setIV(iv(i));
+        return v;
+    }
+
+    /**
+     * Resolve a term through the cache as the {@link LexiconRelation} does (a
+     * read followed by an insert on a miss).
+     */
+    private BigdataValue resolve(
+            final ShardedTermCache<IV<?, ?>, BigdataValue> cache, final long i) {
+        final BigdataValue v = cache.get(iv(i));
+        if (v != null)
+            return v;
+        final BigdataValue tmp = cache.putIfAbsent(iv(i), value(i));
+        return tmp != null ? tmp : cache.get(iv(i));
+    }
+
+    public void test_ctor_correctRejection() {
+
+        try {
+            new ShardedTermCache<IV<?, ?>, BigdataValue>(0/* capacity */, 0/* pinCapacity */);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        try {
+            new ShardedTermCache<IV<?, ?>, BigdataValue>(10/* capacity */, -1/* pinCapacity */);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+    /**
+     * The first value inserted for a key is canonical and the key does not
+     * retain a reference to the cached value.
+     */
+    public void test_putIfAbsent_get() {
+
+        final ShardedTermCache<IV<?, ?>, BigdataValue> cache = new ShardedTermCache<IV<?, ?>, BigdataValue>(
+                100/* capacity */, 0/* pinCapacity */);
+
+        assertNull(cache.get(iv(1)));
+
+        final BigdataValue v1 = value(1);
+
+        assertNull(cache.putIfAbsent(iv(1), v1));
+
+        assertSame(v1, cache.get(iv(1)));
+
+        assertSame(v1, cache.putIfAbsent(iv(1), value(1)));
+
+        assertEquals(1, cache.size());
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+
+        assertNull(cache.get(iv(1)));
+
+    }
+
+    /**
+     * The #of entries never exceeds the capacity.
+     */
+    public void test_capacity() {
+
+        final int capacity = 64;
+
+        final ShardedTermCache<IV<?, ?>, BigdataValue> cache = new ShardedTermCache<IV<?, ?>, BigdataValue>(
+                capacity, 0/* pinCapacity */);
+
+        for (int i = 0; i < 1000; i++) {
+
+            assertNotNull(resolve(cache, i));
+
+            assertTrue(cache.size() <= capacity);
+
+        }
+
+    }
+
+    /**
+     * Frequently used terms are not flushed from the cache by a scan over
+     * terms which are used only once.
+     */
+    public void test_scanResistance() {
+
+        final ShardedTermCache<IV<?, ?>, BigdataValue> cache = new ShardedTermCache<IV<?, ?>, BigdataValue>(
+                64/* capacity */, 0/* pinCapacity */);
+
+        final int nhot = 16;
+
+        for (int j = 0; j < 10; j++) {
+
+            for (int i = 0; i < nhot; i++) {
+
+                resolve(cache, i);
+
+            }
+
+        }
+
+        // Scan cold terms.
+        for (int i = 1000; i < 1200; i++) {
+
+            resolve(cache, i);
+
+        }
+
+        for (int i = 0; i < nhot; i++) {
+
+            assertNotNull("hot term was evicted: " + i, cache.get(iv(i)));
+
+        }
+
+    }
+
+    /**
+     * A softly pinned entry is visible even though it is not in the bounded
+     * part of the cache.
+     */
+    public void test_pin() {
+
+        final ShardedTermCache<IV<?, ?>, BigdataValue> disabled = new ShardedTermCache<IV<?, ?>, BigdataValue>(
+                64/* capacity */, 0/* pinCapacity */);
+
+        assertFalse(disabled.pin(iv(1), value(1)));
+
+        assertNull(disabled.get(iv(1)));
+
+        final ShardedTermCache<IV<?, ?>, BigdataValue> cache = new ShardedTermCache<IV<?, ?>, BigdataValue>(
+                64/* capacity */, 1/* pinCapacity */);
+
+        final BigdataValue v1 = value(1);
+
+        assertTrue(cache.pin(iv(1), v1));
+
+        // At the pin capacity.
+        assertFalse(cache.pin(iv(2), value(2)));
+
+        assertSame(v1, cache.get(iv(1)));
+
+        // The pinned value is canonical.
+        assertSame(v1, cache.putIfAbsent(iv(1), value(1)));
+
+        assertEquals(0, cache.size());
+
+    }
+
+    /**
+     * The hit and miss counters are reported through the counter set.
+     */
+    public void test_counters() {
+
+        final ShardedTermCache<IV<?, ?>, BigdataValue> cache = new ShardedTermCache<IV<?, ?>, BigdataValue>(
+                64/* capacity */, 0/* pinCapacity */);
+
+        resolve(cache, 1); // miss, then hit.
+
+        cache.get(iv(1)); // hit.
+
+        final CounterSet counters = cache.getCounters();
+
+        assertEquals(Long.valueOf(2L), ((ICounter<?>) counters
+                .getChild("hits")).getInstrument().getValue());
+
+        assertEquals(Long.valueOf(1L), ((ICounter<?>) counters
+                .getChild("misses")).getInstrument().getValue());
+
+    }
+
+}
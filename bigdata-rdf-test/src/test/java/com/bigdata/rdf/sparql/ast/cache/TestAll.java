@@ -64,6 +64,9 @@ public class TestAll extends TestCase {
             suite.addTestSuite(TestCacheConnectionFactory.class);
 
         }
+
+        // Query plan and result cache.
+        suite.addTestSuite(TestQueryPlanCache.class);
                 
         /*
          * Note: Data-driven unit tests are used for the SPARQL named solution
@@ -0,0 +1,556 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.cache;
+
+import info.aduna.iteration.CloseableIteration;
+import info.aduna.iteration.CloseableIteratorIteration;
+import info.aduna.iteration.Iterations;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.algebra.evaluation.QueryBindingSet;
+import org.openrdf.query.impl.MapBindingSet;
+
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.bop.fed.QueryEngineFactory;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.sail.sparql.Bigdata2ASTSPARQLParser;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.AbstractASTEvaluationTestCase;
+import com.bigdata.rdf.sparql.ast.eval.ASTEvalHelper;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * Test suite for the {@link QueryPlanCache}.
+ */
+public class TestQueryPlanCache extends AbstractASTEvaluationTestCase {
+
+    public TestQueryPlanCache() {
+    }
+
+    public TestQueryPlanCache(final String name) {
+        super(name);
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        // Note: clone to avoid modifying!!!
+        final Properties properties = (Properties) super.getProperties().clone();
+
+        // triples mode.
+        properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+        return properties;
+
+    }
+
+    private static final String NS = "http://example.org/";
+
+    /**
+     * A query with an aggregation subquery. The subquery is lifted into a
+     * named subquery, so the query plan references a named solution set which
+     * is scoped by the query UUID.
+     */
+    private static final String QUERY = "SELECT ?s ?o ?n WHERE {\n"
+            + "  ?s <" + NS + "p> ?o .\n"
+            + "  { SELECT ?s (COUNT(?x) AS ?n) { ?s <" + NS + "q> ?x } GROUP BY ?s }\n"
+            + "}";
+
+    private void add(final String s, final String p, final String o) {
+
+        store.addStatement(valueFactory.createURI(NS + s),
+                valueFactory.createURI(NS + p), valueFactory.createURI(NS + o));
+
+    }
+
+    private Journal getJournal() {
+
+        return (Journal) store.getIndexManager();
+
+    }
+
+    /**
+     * Evaluate the query against a read-only tx reading on the last commit
+     * point.
+     */
+    private Set<BindingSet> evaluate(final String queryStr,
+            final ASTContainer[] container) throws Exception {
+
+        return evaluate(queryStr, new QueryBindingSet(), container);
+
+    }
+
+    /**
+     * Evaluate the query with the given bindings against a read-only tx
+     * reading on the last commit point.
+     */
+    private Set<BindingSet> evaluate(final String queryStr,
+            final QueryBindingSet bindings, final ASTContainer[] container)
+            throws Exception {
+
+        container[0] = new Bigdata2ASTSPARQLParser().parseQuery2(queryStr,
+                baseURI);
+
+        return evaluate(container[0], bindings);
+
+    }
+
+    /**
+     * Evaluate the parsed query with the given bindings against a read-only
+     * tx reading on the last commit point.
+     */
+    private Set<BindingSet> evaluate(final ASTContainer astContainer,
+            final QueryBindingSet bindings) throws Exception {
+
+        final long tx = getJournal().newTx(
+                getJournal().getLastCommitTime());
+
+        try {
+
+            final AbstractTripleStore view = (AbstractTripleStore) getJournal()
+                    .getResourceLocator().locate(store.getNamespace(), tx);
+
+            return new HashSet<BindingSet>(Iterations.asList(ASTEvalHelper
+                    .evaluateTupleQuery(view, astContainer, bindings,
+                            null/* dataset */)));
+
+        } finally {
+
+            getJournal().abort(tx);
+
+        }
+
+    }
+
+    /**
+     * Verify that the query plan is reused for the same query on the same
+     * commit point and that the plan cache is invalidated by a commit.
+     */
+    public void test_planCache() throws Exception {
+
+        add("a", "p", "b");
+        add("a", "q", "c");
+        add("a", "q", "d");
+        add("e", "p", "f");
+        add("e", "q", "g");
+        store.commit();
+
+        final QueryEngine queryEngine = QueryEngineFactory.getInstance()
+                .getQueryController(getJournal());
+
+        final QueryPlanCache cache = QueryPlanCache.getInstance(queryEngine,
+                store);
+
+        assertNotNull(cache);
+
+        final long hits0 = cache.getPlanHits();
+
+        final ASTContainer[] c1 = new ASTContainer[1];
+        final ASTContainer[] c2 = new ASTContainer[1];
+
+        final Set<BindingSet> r1 = evaluate(QUERY, c1);
+
+        final Set<BindingSet> r2 = evaluate(QUERY, c2);
+
+        assertEquals(2, r1.size());
+
+        assertEquals(r1, r2);
+
+        // The plan was reused.
+        assertEquals(hits0 + 1, cache.getPlanHits());
+
+        // But each query has its own copy of the optimized AST.
+        assertTrue(c1[0].getOptimizedAST() != c2[0].getOptimizedAST());
+
+        // And the plan was rewritten for the new query UUID.
+        assertFalse(c1[0].getQueryPlan()
+                .getProperty(QueryEngine.Annotations.QUERY_ID)
+                .equals(c2[0].getQueryPlan()
+                        .getProperty(QueryEngine.Annotations.QUERY_ID)));
+
+        // A different query is not a hit.
+        evaluate(QUERY.replace("?o ?n", "?n"), new ASTContainer[1]);
+
+        assertEquals(hits0 + 1, cache.getPlanHits());
+
+        // Commit a change.
+        add("h", "p", "i");
+        add("h", "q", "j");
+        store.commit();
+
+        final ASTContainer[] c3 = new ASTContainer[1];
+
+        final Set<BindingSet> r3 = evaluate(QUERY, c3);
+
+        // The old plan was not reused.
+        assertEquals(hits0 + 1, cache.getPlanHits());
+
+        assertTrue(c1[0].getOptimizedAST() != c3[0].getOptimizedAST());
+
+        // The new data is visible.
+        assertEquals(3, r3.size());
+
+    }
+
+    /**
+     * Verify that the plan is reused for queries which differ only in the
+     * constants of their statement patterns and that the reused plan is
+     * rewritten for the new constants.
+     */
+    public void test_planCache_liftedConstants() throws Exception {
+
+        add("a", "p", "b");
+        add("b", "q", "c");
+        add("d", "p", "e");
+        add("e", "q", "f");
+        store.commit();
+
+        final QueryPlanCache cache = QueryPlanCache.getInstance(QueryEngineFactory
+                .getInstance().getQueryController(getJournal()), store);
+
+        final long hits0 = cache.getPlanHits();
+
+        final String query = "SELECT ?o ?x WHERE {\n"
+                + "  <" + NS + "S> <" + NS + "p> ?o .\n"
+                + "  ?o <" + NS + "q> ?x .\n"
+                + "}";
+
+        final Set<BindingSet> r1 = evaluate(query.replace("S>", "a>"),
+                new ASTContainer[1]);
+
+        final Set<BindingSet> r2 = evaluate(query.replace("S>", "d>"),
+                new ASTContainer[1]);
+
+        // The plan was reused.
+        assertEquals(hits0 + 1, cache.getPlanHits());
+
+        assertEquals(1, r1.size());
+        assertEquals(valueFactory.createURI(NS + "c"), r1.iterator().next()
+                .getValue("x"));
+
+        assertEquals(1, r2.size());
+        assertEquals(valueFactory.createURI(NS + "f"), r2.iterator().next()
+                .getValue("x"));
+
+        // A constant which is not in the lexicon can not reuse the plan.
+        assertEquals(0, evaluate(query.replace("S>", "z>"),
+                new ASTContainer[1]).size());
+
+        assertEquals(hits0 + 1, cache.getPlanHits());
+
+    }
+
+    /**
+     * Verify that the plan is reused for other values of the globally scoped
+     * bindings unless those bindings are used in a value expression.
+     */
+    public void test_planCache_liftedBindings() throws Exception {
+
+        add("a", "p", "b");
+        add("d", "p", "e");
+        store.commit();
+
+        final QueryPlanCache cache = QueryPlanCache.getInstance(QueryEngineFactory
+                .getInstance().getQueryController(getJournal()), store);
+
+        final long hits0 = cache.getPlanHits();
+
+        final QueryBindingSet bs1 = new QueryBindingSet();
+        bs1.addBinding("s", valueFactory.createURI(NS + "a"));
+
+        final QueryBindingSet bs2 = new QueryBindingSet();
+        bs2.addBinding("s", valueFactory.createURI(NS + "d"));
+
+        final String query = "SELECT ?o WHERE { ?s <" + NS + "p> ?o }";
+
+        final Set<BindingSet> r1 = evaluate(query, bs1, new ASTContainer[1]);
+
+        final Set<BindingSet> r2 = evaluate(query, bs2, new ASTContainer[1]);
+
+        // The plan was reused.
+        assertEquals(hits0 + 1, cache.getPlanHits());
+
+        assertEquals(1, r1.size());
+        assertEquals(valueFactory.createURI(NS + "b"), r1.iterator().next()
+                .getValue("o"));
+
+        assertEquals(1, r2.size());
+        assertEquals(valueFactory.createURI(NS + "e"), r2.iterator().next()
+                .getValue("o"));
+
+        // The binding is not lifted when it is used in a FILTER.
+        final String query2 = "SELECT ?o WHERE { ?s <" + NS + "p> ?o "
+                + "FILTER(?s != <" + NS + "b>) }";
+
+        assertEquals(1, evaluate(query2, bs1, new ASTContainer[1]).size());
+
+        final Set<BindingSet> r3 = evaluate(query2, bs2, new ASTContainer[1]);
+
+        assertEquals(hits0 + 1, cache.getPlanHits());
+
+        assertEquals(valueFactory.createURI(NS + "e"), r3.iterator().next()
+                .getValue("o"));
+
+    }
+
+    /**
+     * Verify that the plan of a prepared query is cached under its handle.
+     */
+    public void test_planCache_preparedQuery() throws Exception {
+
+        add("a", "p", "b");
+        add("d", "p", "e");
+        store.commit();
+
+        final QueryPlanCache cache = QueryPlanCache.getInstance(QueryEngineFactory
+                .getInstance().getQueryController(getJournal()), store);
+
+        final long hits0 = cache.getPlanHits();
+
+        final ASTContainer prepared = new Bigdata2ASTSPARQLParser()
+                .parseQuery2("SELECT ?o WHERE { ?s <" + NS + "p> ?o }",
+                        baseURI);
+
+        final UUID handle = UUID.randomUUID();
+
+        final QueryBindingSet bs1 = new QueryBindingSet();
+        bs1.addBinding("s", valueFactory.createURI(NS + "a"));
+
+        final QueryBindingSet bs2 = new QueryBindingSet();
+        bs2.addBinding("s", valueFactory.createURI(NS + "d"));
+
+        final ASTContainer c1 = BOpUtility.deepCopy(prepared);
+        c1.setPreparedQueryId(handle);
+
+        final ASTContainer c2 = BOpUtility.deepCopy(prepared);
+        c2.setPreparedQueryId(handle);
+
+        final Set<BindingSet> r1 = evaluate(c1, bs1);
+
+        final Set<BindingSet> r2 = evaluate(c2, bs2);
+
+        // The plan was reused.
+        assertEquals(hits0 + 1, cache.getPlanHits());
+
+        assertEquals(valueFactory.createURI(NS + "b"), r1.iterator().next()
+                .getValue("o"));
+
+        assertEquals(valueFactory.createURI(NS + "e"), r2.iterator().next()
+                .getValue("o"));
+
+        // Another handle does not share that plan.
+        final ASTContainer c3 = BOpUtility.deepCopy(prepared);
+        c3.setPreparedQueryId(UUID.randomUUID());
+
+        evaluate(c3, bs1);
+
+        assertEquals(hits0 + 1, cache.getPlanHits());
+
+    }
+
+    /**
+     * Verify that a plan is neither cached nor reused when a lifted constant
+     * is also used elsewhere in the query.
+     */
+    public void test_planCache_sharedConstant() throws Exception {
+
+        add("a", "p", "a");
+        add("a", "p", "b");
+        store.commit();
+
+        final QueryPlanCache cache = QueryPlanCache.getInstance(QueryEngineFactory
+                .getInstance().getQueryController(getJournal()), store);
+
+        final long hits0 = cache.getPlanHits();
+
+        final String query = "SELECT ?o WHERE { <" + NS + "a> <" + NS
+                + "p> ?o FILTER(?o != <" + NS + "a>) }";
+
+        final Set<BindingSet> r1 = evaluate(query, new ASTContainer[1]);
+
+        final Set<BindingSet> r2 = evaluate(query, new ASTContainer[1]);
+
+        assertEquals(hits0, cache.getPlanHits());
+
+        assertEquals(1, r1.size());
+        assertEquals(r1, r2);
+
+    }
+
+    /**
+     * Verify the cases where a query can not be cached.
+     */
+    public void test_notCacheable() throws Exception {
+
+        add("a", "p", "b");
+        store.commit();
+
+        final QueryPlanCache cache = new QueryPlanCache(10/* planCapacity */,
+                10/* resultCapacity */, 100/* maxSolutions */);
+
+        // The unisolated view.
+        assertNull(cache.getKey(store, new Bigdata2ASTSPARQLParser()
+                .parseQuery2(QUERY, baseURI), null, null));
+
+        final AbstractTripleStore view = (AbstractTripleStore) getJournal()
+                .getResourceLocator().locate(store.getNamespace(),
+                        getJournal().getLastCommitTime());
+
+        assertNotNull(cache.getKey(view, new Bigdata2ASTSPARQLParser()
+                .parseQuery2(QUERY, baseURI), null, null));
+
+        // Non-deterministic function.
+        assertNull(cache.getKey(view, new Bigdata2ASTSPARQLParser()
+                .parseQuery2("SELECT ?s ?t { ?s ?p ?o . BIND(NOW() AS ?t) }",
+                        baseURI), null, null));
+
+        // Not a SELECT.
+        assertNull(cache.getKey(view, new Bigdata2ASTSPARQLParser()
+                .parseQuery2("ASK { ?s ?p ?o }", baseURI), null, null));
+
+    }
+
+    /**
+     * Verify that the keys distinguish the bindings and that the result cache
+     * only caches fully drained result sets which are not too large.
+     */
+    public void test_resultCache() throws Exception {
+
+        add("a", "p", "b");
+        store.commit();
+
+        final QueryPlanCache cache = new QueryPlanCache(10/* planCapacity */,
+                10/* resultCapacity */, 2/* maxSolutions */);
+
+        final AbstractTripleStore view = (AbstractTripleStore) getJournal()
+                .getResourceLocator().locate(store.getNamespace(),
+                        getJournal().getLastCommitTime());
+
+        final BigdataURI a = valueFactory.createURI(NS + "a");
+        final BigdataURI b = valueFactory.createURI(NS + "b");
+
+        final QueryBindingSet bs1 = new QueryBindingSet();
+        bs1.addBinding("s", a);
+
+        final QueryBindingSet bs2 = new QueryBindingSet();
+        bs2.addBinding("s", b);
+
+        final QueryPlanCache.CacheKey k1 = cache.getKey(view,
+                new Bigdata2ASTSPARQLParser().parseQuery2(QUERY, baseURI), bs1,
+                null);
+
+        final QueryPlanCache.CacheKey k2 = cache.getKey(view,
+                new Bigdata2ASTSPARQLParser().parseQuery2(QUERY, baseURI), bs2,
+                null);
+
+        final QueryPlanCache.CacheKey k3 = cache.getKey(view,
+                new Bigdata2ASTSPARQLParser().parseQuery2(QUERY, baseURI), bs1,
+                null);
+
+        assertFalse(k1.equals(k2));
+        assertEquals(k1, k3);
+        assertTrue(k1.isCacheSolutions());
+
+        final List<String> projected = Arrays.asList(new String[] { "s" });
+
+        // Not cached until drained.
+        assertNull(cache.getSolutions(k1));
+
+        CloseableIteration<BindingSet, QueryEvaluationException> itr = cache
+                .cacheSolutions(k1, projected, newIteration(a, b));
+
+        itr.next();
+        itr.close();
+
+        assertNull(cache.getSolutions(k1));
+
+        // Cached once drained.
+        Iterations.asList(cache.cacheSolutions(k1, projected,
+                newIteration(a, b)));
+
+        final QueryPlanCache.CachedSolutions solutions = cache
+                .getSolutions(k3);
+
+        assertNotNull(solutions);
+        assertEquals(projected, solutions.getProjected());
+        assertEquals(2, solutions.getSolutions().size());
+
+        // Too many solutions.
+        Iterations.asList(cache.cacheSolutions(k2, projected,
+                newIteration(a, b, a)));
+
+        assertNull(cache.getSolutions(k2));
+
+        // Invalidated once a newer commit point is observed.
+        add("c", "p", "d");
+        store.commit();
+
+        final AbstractTripleStore view2 = (AbstractTripleStore) getJournal()
+                .getResourceLocator().locate(store.getNamespace(),
+                        getJournal().getLastCommitTime());
+
+        assertEquals(k1.getCommitCounter() + 1, cache.getKey(view2,
+                new Bigdata2ASTSPARQLParser().parseQuery2(QUERY, baseURI),
+                bs1, null).getCommitCounter());
+
+        assertNull(cache.getSolutions(k1));
+
+    }
+
+    private static CloseableIteration<BindingSet, QueryEvaluationException> newIteration(
+            final BigdataURI... values) {
+
+        final List<BindingSet> list = new LinkedList<BindingSet>();
+
+        for (BigdataURI v : values) {
+
+            final MapBindingSet bs = new MapBindingSet();
+
+            bs.addBinding("s", v);
+
+            list.add(bs);
+
+        }
+
+        return new CloseableIteratorIteration<BindingSet, QueryEvaluationException>(
+                list.iterator());
+
+    }
+
+}
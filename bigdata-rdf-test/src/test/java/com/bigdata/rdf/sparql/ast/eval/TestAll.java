@@ -117,6 +117,8 @@ public class TestAll extends TestCase {
 
         // Test suite for a merge join pattern
         suite.addTestSuite(TestMergeJoin.class);
+        suite.addTestSuite(TestIndexMergeJoin.class);
+        suite.addTestSuite(TestLeapfrogJoin.class);
         
         // Test suite for explain hint annotationss
         suite.addTestSuite(TestExplainHints.class);
@@ -37,6 +37,7 @@ import com.bigdata.bop.IPredicate;
 import com.bigdata.bop.PipelineOp;
 import com.bigdata.bop.ap.Predicate;
 import com.bigdata.bop.join.HTreeHashJoinOp;
+import com.bigdata.bop.join.InlineIVHashJoinOp;
 import com.bigdata.bop.join.JVMHashJoinOp;
 import com.bigdata.htree.HTree;
 import com.bigdata.rdf.internal.IV;
@@ -122,6 +123,27 @@ public class TestHashJoin extends AbstractDataDrivenSPARQLTestCase {
 
             fail("Expecting an HTree-based hash join in the query plan: "
                     + astContainer.toString());
+            
+        }
+
+    }
+
+    /**
+     * Variant on {@link #test_hash_join_1()} where we request the use of the
+     * {@link InlineIVHashJoinOp}.
+     */
+    public void test_hash_join_1c() throws Exception {
+
+        final ASTContainer astContainer = new TestHelper("hash-join-1c")
+                .runTest();
+
+        final PipelineOp queryPlan = astContainer.getQueryPlan();
+
+        if (!BOpUtility.visitAll(queryPlan, InlineIVHashJoinOp.class)
+                .hasNext()) {
+
+            fail("Expecting an inline IV hash join in the query plan: "
+                    + astContainer.toString());
 
         }
 
@@ -0,0 +1,125 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.eval;
+
+import java.util.Properties;
+
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.join.SPOMergeJoinOp;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * Data driven test suite for the {@link SPOMergeJoinOp}.
+ * 
+ * @see QueryHints#INDEX_MERGE_JOIN
+ */
+public class TestIndexMergeJoin extends AbstractDataDrivenSPARQLTestCase {
+
+    /**
+     *
+     */
+    public TestIndexMergeJoin() {
+    }
+
+    /**
+     * @param name
+     */
+    public TestIndexMergeJoin(String name) {
+        super(name);
+    }
+
+    /**
+     * The merge join is only supported in triples mode.
+     */
+    @Override
+    public Properties getProperties() {
+
+        final Properties properties = new Properties(super.getProperties());
+
+        // turn off quads.
+        properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+        // turn on triples
+        properties.setProperty(AbstractTripleStore.Options.TRIPLES_MODE,
+                "true");
+
+        return properties;
+
+    }
+
+    /**
+     * Two statement patterns which share an object position are joined by
+     * co-scanning the POS index.
+     * 
+     * <pre>
+     * SELECT ?a ?b ?x
+     * WHERE {
+     *   ?a :knows ?x .
+     *   ?b :likes ?x .
+     * }
+     * </pre>
+     */
+    public void test_index_merge_join_01() throws Exception {
+
+        final ASTContainer astContainer = new TestHelper(//
+                "index-merge-join-01", // testURI,
+                "index-merge-join-01.rq",// queryFileURL
+                "index-merge-join-01.ttl",// dataFileURL
+                "index-merge-join-01.srx"// resultFileURL
+        ).runTest();
+
+        assertTrue(
+                "No merge join?",
+                BOpUtility.visitAll(astContainer.getQueryPlan(),
+                        SPOMergeJoinOp.class).hasNext());
+
+    }
+
+    /**
+     * Variant of the test above in which the merge join is disabled with a
+     * query hint.
+     */
+    public void test_index_merge_join_01a() throws Exception {
+
+        final ASTContainer astContainer = new TestHelper(//
+                "index-merge-join-01a", // testURI,
+                "index-merge-join-01a.rq",// queryFileURL
+                "index-merge-join-01.ttl",// dataFileURL
+                "index-merge-join-01.srx"// resultFileURL
+        ).runTest();
+
+        assertFalse(
+                "Merge join should have been suppressed",
+                BOpUtility.visitAll(astContainer.getQueryPlan(),
+                        SPOMergeJoinOp.class).hasNext());
+
+    }
+
+}
@@ -33,6 +33,8 @@ import java.util.Properties;
 import org.openrdf.rio.RDFFormat;
 import org.openrdf.rio.RDFParseException;
 
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValueFactory;
 import com.bigdata.rdf.store.DataLoader.ClosureEnum;
 import com.bigdata.rdf.store.DataLoader.CommitEnum;
 import com.bigdata.util.InnerCause;
@@ -466,6 +468,202 @@ public class TestDataLoader extends AbstractTripleStoreTestCase {
 
 	}
 
+	/**
+	 * Test concurrent parsing of the files in a directory with the statement
+	 * indices built from sorted runs.
+	 * 
+	 * @see DataLoader.Options#PARSER_THREADS
+	 * @see DataLoader.Options#BULK_LOAD
+	 */
+	public void test_bulkLoad_parserThreads() throws IOException {
+
+		final AbstractTripleStore store = getStore();
+
+		// temporary directory where we setup the test.
+		final File tmpDir = File.createTempFile(getClass().getName(), ".tmp");
+
+		try {
+
+			tmpDir.delete(); // delete random file name.
+			tmpDir.mkdir(); // recreate it as a directory.
+
+			final int nfiles = 5, nsubjects = 40;
+
+			for (int i = 0; i < nfiles; i++) {
+
+				final StringBuilder sb = new StringBuilder();
+
+				for (int j = 0; j < nsubjects; j++) {
+
+					// Note: the same statements appear in every file.
+					sb.append("<http://www.bigdata.com/s" + j + "> <http://www.bigdata.com/p> \"v" + j + "\" .\n");
+
+					// Note: these statements are distinct for each file.
+					sb.append("<http://www.bigdata.com/s" + j + "> <http://www.bigdata.com/q> <http://www.bigdata.com/o" + i
+							+ "> .\n");
+
+				}
+
+				writeOnFile(new File(tmpDir, "data" + i + ".nt"), sb.toString());
+
+			}
+
+			final Properties properties = new Properties(store.getProperties());
+
+			properties.setProperty(DataLoader.Options.COMMIT, CommitEnum.Batch.name());
+
+			properties.setProperty(DataLoader.Options.CLOSURE, ClosureEnum.None.name());
+
+			properties.setProperty(DataLoader.Options.PARSER_THREADS, "3");
+
+			properties.setProperty(DataLoader.Options.BULK_LOAD, "true");
+
+			// Note: forces several runs.
+			properties.setProperty(DataLoader.Options.BULK_LOAD_RUN_CAPACITY, "17");
+
+			final long before = store.getStatementCount(true/* exact */);
+
+			final DataLoader dataLoader = new DataLoader(properties, store);
+
+			dataLoader.loadFiles(tmpDir, null/* baseURI */, RDFFormat.NTRIPLES,
+					store.isQuads() ? "http://www.bigdata.com/c" : null/* defaultGraph */, null/* filter */);
+
+			assertEquals(before + nsubjects * (nfiles + 1), store.getStatementCount(true/* exact */));
+
+			final BigdataValueFactory f = store.getValueFactory();
+
+			for (int j = 0; j < nsubjects; j++) {
+
+				final BigdataURI s = f.createURI("http://www.bigdata.com/s" + j);
+
+				assertTrue(store.hasStatement(s, f.createURI("http://www.bigdata.com/p"), f.createLiteral("v" + j)));
+
+				for (int i = 0; i < nfiles; i++) {
+
+					assertTrue(store.hasStatement(s, f.createURI("http://www.bigdata.com/q"),
+							f.createURI("http://www.bigdata.com/o" + i)));
+
+				}
+
+			}
+
+		} finally {
+
+			recursiveDelete(tmpDir);
+
+			store.__tearDownUnitTest();
+
+		}
+
+	}
+
+	/**
+	 * Test loads a single N-Triples document using several parser threads and
+	 * a block size which splits the document into many blocks. Blank nodes
+	 * must be resolved consistently across the blocks.
+	 * 
+	 * @see DataLoader.Options#PARSER_THREADS
+	 * @see DataLoader.Options#PARSER_BLOCK_SIZE
+	 */
+	public void test_parallelNTriplesParser() throws IOException {
+
+		final AbstractTripleStore store = getStore();
+
+		// temporary directory where we setup the test.
+		final File tmpDir = File.createTempFile(getClass().getName(), ".tmp");
+
+		try {
+
+			tmpDir.delete(); // delete random file name.
+			tmpDir.mkdir(); // recreate it as a directory.
+
+			final int nsubjects = 50;
+
+			final StringBuilder sb = new StringBuilder();
+
+			sb.append("# comment\n\n");
+
+			for (int j = 0; j < nsubjects; j++) {
+
+				sb.append("<http://www.bigdata.com/s" + j + "> <http://www.bigdata.com/p> \"v\\\"" + j + "\"@en .\n");
+
+				sb.append("<http://www.bigdata.com/s" + j
+						+ "> <http://www.bigdata.com/q> \"" + j + "\"^^<http://www.w3.org/2001/XMLSchema#int> .\r\n");
+
+			}
+
+			// Note: The same blank node is used at both ends of the document.
+			sb.append("_:b1 <http://www.bigdata.com/p> \"x\" .\n");
+
+			for (int j = 0; j < nsubjects; j++) {
+
+				sb.append("<http://www.bigdata.com/s" + j + "> <http://www.bigdata.com/r> _:b" + j + ".\n");
+
+			}
+
+			// Note: The last line does not end with a newline.
+			sb.append("_:b1 <http://www.bigdata.com/q> \"y\" .");
+
+			final File file = new File(tmpDir, "data.nt");
+
+			writeOnFile(file, sb.toString());
+
+			final Properties properties = new Properties(store.getProperties());
+
+			properties.setProperty(DataLoader.Options.PARSER_THREADS, "4");
+
+			properties.setProperty(DataLoader.Options.PARSER_BLOCK_SIZE, "256");
+
+			final long before = store.getStatementCount(true/* exact */);
+
+			final DataLoader dataLoader = new DataLoader(properties, store);
+
+			dataLoader.loadFiles(file, null/* baseURI */, RDFFormat.NTRIPLES,
+					store.isQuads() ? "http://www.bigdata.com/c" : null/* defaultGraph */, null/* filter */);
+
+			assertEquals(before + nsubjects * 3 + 2, store.getStatementCount(true/* exact */));
+
+			final BigdataValueFactory f = store.getValueFactory();
+
+			final BigdataURI p = f.createURI("http://www.bigdata.com/p");
+
+			final BigdataURI q = f.createURI("http://www.bigdata.com/q");
+
+			for (int j = 0; j < nsubjects; j++) {
+
+				final BigdataURI s = f.createURI("http://www.bigdata.com/s" + j);
+
+				assertTrue(store.hasStatement(s, p, f.createLiteral("v\"" + j, "en")));
+
+				assertTrue(store.hasStatement(s, q, f.createLiteral(Integer.toString(j), f.createURI("http://www.w3.org/2001/XMLSchema#int"))));
+
+			}
+
+			// The subject of "x" is also the subject of "y".
+			final BigdataStatementIterator itr = store.getStatements(null/* s */, p, f.createLiteral("x"));
+
+			try {
+
+				assertTrue(itr.hasNext());
+
+				assertTrue(store.hasStatement(itr.next().getSubject(), q, f.createLiteral("y")));
+
+			} finally {
+
+				itr.close();
+
+			}
+
+		} finally {
+
+			recursiveDelete(tmpDir);
+
+			store.__tearDownUnitTest();
+
+		}
+
+	}
+
 	private void writeOnFile(final File file, final String data) throws IOException {
 		
 		file.createNewFile();
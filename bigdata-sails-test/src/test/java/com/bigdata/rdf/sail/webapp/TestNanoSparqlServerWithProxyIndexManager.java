@@ -262,6 +262,7 @@ public class TestNanoSparqlServerWithProxyIndexManager<S extends IIndexManager>
          suite.addTestSuite(Test_REST_ASK.class);
          suite.addTestSuite(Test_REST_DESCRIBE.class);
          suite.addTestSuite(Test_REST_ESTCARD.class);
+         suite.addTestSuite(Test_REST_PREPARED.class);
          if(BigdataStatics.runKnownBadTests) {// FIXME Restore for BLZG-1195
              suite.addTestSuite(Test_REST_ESTCARD.ReadWriteTx.class);
          }
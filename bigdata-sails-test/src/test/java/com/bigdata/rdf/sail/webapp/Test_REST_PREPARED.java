@@ -0,0 +1,175 @@
+/**
+
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2016.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC DBA Blazegraph
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@blazegraph.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 18, 2026
+ */
+
+package com.bigdata.rdf.sail.webapp;
+
+import java.util.UUID;
+
+import junit.framework.Test;
+
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+
+import com.bigdata.journal.IIndexManager;
+import com.bigdata.rdf.sail.webapp.client.EncodeDecodeValue;
+import com.bigdata.rdf.sail.webapp.client.HttpException;
+import com.bigdata.rdf.sail.webapp.client.IPreparedBooleanQuery;
+import com.bigdata.rdf.sail.webapp.client.IPreparedTupleQuery;
+import com.bigdata.rdf.sail.webapp.client.RemoteRepositoryDecls;
+import com.bigdata.rdf.store.BD;
+
+/**
+ * Proxied test suite for queries which are prepared on the server and then
+ * evaluated by their handle.
+ *
+ * @param <S>
+ */
+public class Test_REST_PREPARED<S extends IIndexManager> extends
+        AbstractTestNanoSparqlClient<S> {
+
+    public Test_REST_PREPARED() {
+
+    }
+
+    public Test_REST_PREPARED(final String name) {
+
+        super(name);
+
+    }
+
+    public static Test suite() {
+
+        return ProxySuiteHelper.suiteWhenStandalone(Test_REST_PREPARED.class,
+                "test.*", TestMode.quads
+//                , TestMode.sids
+//                , TestMode.triples
+                );
+
+    }
+
+    private static final String SELECT = "PREFIX bd: <" + BD.NAMESPACE
+            + ">\n SELECT ?o WHERE { ?s bd:likes ?o }";
+
+    /**
+     * Evaluate a prepared SELECT query with and without bindings, then close
+     * it and verify that the handle is no longer accepted.
+     */
+    public void test_prepared_select() throws Exception {
+
+        setupDataOnServer();
+
+        final URI mike = new URIImpl(BD.NAMESPACE + "Mike");
+        final URI bryan = new URIImpl(BD.NAMESPACE + "Bryan");
+
+        final UUID handle = m_repo.prepareServerSideQuery(SELECT);
+
+        assertNotNull(handle);
+
+        // No bindings.
+        assertEquals(2, countResults(m_repo.prepareServerSideTupleQuery(handle)
+                .evaluate()));
+
+        // Evaluate more than once with different bindings.
+        for (int i = 0; i < 2; i++) {
+
+            for (URI s : new URI[] { mike, bryan }) {
+
+                final IPreparedTupleQuery query = m_repo
+                        .prepareServerSideTupleQuery(handle);
+
+                query.addRequestParam(RemoteRepositoryDecls.BINDING_PREFIX
+                        + "s", EncodeDecodeValue.encodeValue(s));
+
+                assertEquals(1, countResults(query.evaluate()));
+
+            }
+
+        }
+
+        assertTrue(m_repo.closeServerSideQuery(handle));
+
+        // Closed.
+        assertFalse(m_repo.closeServerSideQuery(handle));
+
+        try {
+            countResults(m_repo.prepareServerSideTupleQuery(handle).evaluate());
+            fail("Expecting: " + HttpException.class);
+        } catch (HttpException ex) {
+            assertEquals(404, ex.getStatusCode());
+        }
+
+    }
+
+    /**
+     * Evaluate a prepared ASK query.
+     */
+    public void test_prepared_ask() throws Exception {
+
+        final UUID handle = m_repo
+                .prepareServerSideQuery("ASK where {?s ?p ?o}");
+
+        final IPreparedBooleanQuery query = m_repo
+                .prepareServerSideBooleanQuery(handle);
+
+        assertFalse(query.evaluate());
+
+        setupDataOnServer();
+
+        assertTrue(m_repo.prepareServerSideBooleanQuery(handle).evaluate());
+
+    }
+
+    /**
+     * A malformed query is rejected when it is prepared.
+     */
+    public void test_prepare_malformedQuery() throws Exception {
+
+        try {
+            m_repo.prepareServerSideQuery("SELECT ?s WHERE {");
+            fail("Expecting: " + HttpException.class);
+        } catch (HttpException ex) {
+            assertEquals(400, ex.getStatusCode());
+        }
+
+    }
+
+    /**
+     * An unknown handle is reported as NOT FOUND.
+     */
+    public void test_prepared_unknownHandle() throws Exception {
+
+        try {
+            countResults(m_repo.prepareServerSideTupleQuery(UUID.randomUUID())
+                    .evaluate());
+            fail("Expecting: " + HttpException.class);
+        } catch (HttpException ex) {
+            assertEquals(404, ex.getStatusCode());
+        }
+
+    }
+
+}
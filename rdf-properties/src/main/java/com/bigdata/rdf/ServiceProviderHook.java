@@ -37,6 +37,7 @@ import java.util.ServiceLoader;
 
 import org.apache.log4j.Logger;
 import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.resultio.TupleQueryResultFormat;
 import org.openrdf.query.resultio.TupleQueryResultParserFactory;
 import org.openrdf.query.resultio.TupleQueryResultParserRegistry;
 import org.openrdf.query.resultio.TupleQueryResultWriterFactory;
@@ -97,6 +98,10 @@ public class ServiceProviderHook {
 	
 	public static final String JSON_RESULT_PARSER_FACTORY = "com.bigdata.rdf.rio.json.BigdataSPARQLResultsJSONParserFactory"; 
 	public static final String JSON_CONSTRUCT_PARSER_FACTORY = "com.bigdata.rdf.rio.json.BigdataSPARQLResultsJSONParserForConstructFactory";
+
+	public static final String BINARY_RESULTS_WRITER_FACTORY = "com.bigdata.rdf.sail.webapp.client.BigdataBinaryResultsWriterFactory";
+
+	public static final String BINARY_RESULTS_PARSER_FACTORY = "com.bigdata.rdf.sail.webapp.client.BigdataBinaryResultsParserFactory";
 	
 	
 	
@@ -120,6 +125,9 @@ public class ServiceProviderHook {
 				"application/sparql-results+json", "application/json"),
 				Charset.forName("UTF-8"), Arrays.asList("srj", "json"),
 				RDFFormat.NO_NAMESPACES, RDFFormat.SUPPORTS_CONTEXTS);        
+
+		BINARY_RESULTS = new TupleQueryResultFormat("Bigdata-Binary-Results",
+				"application/x-bigdata-binary-results-table", null, "bdrt");
 		
         forceLoad();
 
@@ -150,6 +158,16 @@ public class ServiceProviderHook {
      * result stes using JSON.
      */
     public static final RDFFormat JSON_RDR;
+
+    /**
+     * The bigdata binary format for SPARQL result sets. Each distinct RDF
+     * Value is written once per response and solutions are written as
+     * ordinals into that table.
+     * 
+     * @see #BINARY_RESULTS_WRITER_FACTORY
+     * @see #BINARY_RESULTS_PARSER_FACTORY
+     */
+    public static final TupleQueryResultFormat BINARY_RESULTS;
     
     /**
 	 * This hook may be used to force the load of this class so it can ensure
@@ -211,6 +229,7 @@ public class ServiceProviderHook {
 		RDFFormat.register(TURTLE_RDR);
 		RDFFormat.register(NTRIPLES_RDR);
 		RDFFormat.register(JSON_RDR);
+		TupleQueryResultFormat.register(BINARY_RESULTS);
 		
 		/*
          * Force the class loader to resolve the register, which will cause it
@@ -246,6 +265,9 @@ public class ServiceProviderHook {
 
         	// add our custom RDR-enabled JSON writer for SPARQL result sets.
         	r.add((TupleQueryResultWriterFactory) getInstanceForClass(JSON_WRITER_FACTORY));
+
+        	// add our binary writer for SPARQL result sets.
+        	r.add((TupleQueryResultWriterFactory) getInstanceForClass(BINARY_RESULTS_WRITER_FACTORY));
         	
         }
 
@@ -256,6 +278,9 @@ public class ServiceProviderHook {
             // add our custom RDR-enabled JSON parser for SPARQL result sets.
            
             r.add((TupleQueryResultParserFactory) getInstanceForClass(JSON_RESULT_PARSER_FACTORY));
+
+            // add our binary parser for SPARQL result sets.
+            r.add((TupleQueryResultParserFactory) getInstanceForClass(BINARY_RESULTS_PARSER_FACTORY));
             
         }
 